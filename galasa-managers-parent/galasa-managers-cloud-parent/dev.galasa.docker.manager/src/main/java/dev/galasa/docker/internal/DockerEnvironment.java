@@ -9,6 +9,7 @@ import java.lang.reflect.Field;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -23,10 +24,12 @@ import dev.galasa.docker.DockerManagerException;
 import dev.galasa.docker.DockerProvisionException;
 import dev.galasa.docker.IDockerContainer;
 import dev.galasa.docker.IDockerEngine;
+import dev.galasa.core.manager.spi.DssSlotAllocator;
 import dev.galasa.docker.internal.properties.DockerSlots;
 import dev.galasa.framework.spi.DssAdd;
 import dev.galasa.framework.spi.DssDelete;
 import dev.galasa.framework.spi.DssDeletePrefix;
+import dev.galasa.framework.spi.DssUpdate;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.IDynamicResource;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
@@ -50,6 +53,8 @@ public class DockerEnvironment implements IDockerEnvironment {
 
     private final static Log logger = LogFactory.getLog(DockerEnvironment.class);
 
+    private final static String DSS_NAMESPACE = "docker";
+
     /**
      * Sets the environment up to use the dss in the docker namespace.
      * 
@@ -182,11 +187,15 @@ public class DockerEnvironment implements IDockerEnvironment {
      */
     @Override
     public void discard() throws DockerManagerException {
-        for (DockerContainerImpl container : containersByTag.values()) {
-            container.discard();
-        }
-        for (DockerVolumeImpl volume : volumes) {
-            removeDockerVolume(volume);
+        try {
+            for (DockerContainerImpl container : containersByTag.values()) {
+                container.discard();
+            }
+            for (DockerVolumeImpl volume : volumes) {
+                removeDockerVolume(volume);
+            }
+        } finally {
+            DockerSlotMetrics.flush(dss);
         }
     }
 
@@ -285,7 +294,8 @@ public class DockerEnvironment implements IDockerEnvironment {
 
     /**
      * Used during the provisioning of a docker slot to allocate a slot within the
-     * DSS to lock the resource.
+     * DSS to lock the resource. The slot count and the slot name are updated in
+     * a single DSS transaction.
      * 
      * @param dockerHost
      * @return boolean (failed/passed)
@@ -293,59 +303,53 @@ public class DockerEnvironment implements IDockerEnvironment {
      */
     private DockerSlotImpl allocateAndCreateDssSlot(String dockerEngineId, String runName, DockerEngineImpl engine)
             throws DockerProvisionException {
-        String slotKey = "engine." + dockerEngineId + ".current.slots";
         String slotNamePrefix = "SLOT_" + runName + "_";
-        String allocatedSlotName;
-        String slotPropertyKey;
         String allocatedTime = Instant.now().toString();
 
-        HashMap<String, String> slotProps = new HashMap<>();
-
+        int maxSlots;
         try {
-            int maxSlots = Integer.parseInt(DockerSlots.get(engine));
-            int usedSlots = 0;
-            String currentSlots = dss.get(slotKey);
-
-            if (currentSlots != null) {
-                usedSlots = Integer.parseInt(currentSlots);
-            }
-            if (usedSlots >= maxSlots) {
-                throw new DockerProvisionException("Not enough available slots");
-            }
-            usedSlots++;
-            String slotIncrease = Integer.toString(usedSlots);
-
-            for (int i = 0;; i++) {
-                slotProps.clear();
-                allocatedSlotName = slotNamePrefix + i;
-                slotPropertyKey = "engine." + dockerEngineId + ".slot." + allocatedSlotName;
-                slotProps.put("slot." + dockerEngineId + ".run." + runName + "." + allocatedSlotName, "active");
-                if (dss.putSwap(slotPropertyKey, null, runName)) {
-                    break;
-                }
-            }
+            maxSlots = Integer.parseInt(DockerSlots.get(engine));
+        } catch (DockerManagerException e) {
+            logger.error("Could not find number of docker slots in CPS");
+            throw new DockerProvisionException("Failed to provision docker slot", e);
+        }
 
-            if (dss.putSwap(slotKey, currentSlots, slotIncrease, slotProps)) {
-                String resourcePropertyPrefix = "slot." + allocatedSlotName;
+        String allocatedSlotName;
+        try {
+            allocatedSlotName = slotAllocator(dss, dockerEngineId).allocateNamedSlot(maxSlots, "engine." + dockerEngineId + ".slot.",
+                    i -> slotNamePrefix + i, runName,
+                    name -> Collections.singletonMap("slot." + dockerEngineId + ".run." + runName + "." + name, "active"));
+        } catch (DynamicStatusStoreException e) {
+            logger.warn("Could not perform putswap on dss");
+            throw new DockerProvisionException("Failed to provision docker slot", e);
+        }
+        if (allocatedSlotName == null) {
+            throw new DockerProvisionException("Not enough available slots");
+        }
 
-                HashMap<String, String> resProps = new HashMap<>();
-                resProps.put(resourcePropertyPrefix, runName);
-                resProps.put(resourcePropertyPrefix + ".allocated", allocatedTime);
+        String resourcePropertyPrefix = "slot." + allocatedSlotName;
 
-                dynamicResource.put(resProps);
+        HashMap<String, String> resProps = new HashMap<>();
+        resProps.put(resourcePropertyPrefix, runName);
+        resProps.put(resourcePropertyPrefix + ".allocated", allocatedTime);
 
-                return new DockerSlotImpl(dockerManager, engine, allocatedSlotName, resProps);
-            } else {
-                // Retry as another slot was allocated during the allocation of this slot
-                dss.delete(slotPropertyKey);
-                return allocateAndCreateDssSlot(dockerEngineId, runName, engine);
-            }
-        } catch (DockerManagerException e) {
-            logger.error("Could not find number of docker slots in CPS");
+        try {
+            dynamicResource.put(resProps);
         } catch (DynamicStatusStoreException e) {
-            logger.warn("Could not perform putswap on dss");
+            throw new DockerProvisionException("Failed to provision docker slot", e);
         }
-        throw new DockerProvisionException("Failed to provision docker slot");
+
+        return new DockerSlotImpl(dockerManager, engine, allocatedSlotName, resProps);
+    }
+
+    /**
+     * Returns the shared allocator for the slots of an engine, recording its contention in {@link DockerSlotMetrics}
+     */
+    private static DssSlotAllocator slotAllocator(IDynamicStatusStoreService dss, String dockerEngineId) {
+        DssSlotAllocator allocator = DssSlotAllocator.forCount(dss, DSS_NAMESPACE, "engine." + dockerEngineId + ".current.slots");
+        allocator.setContentionListener((countKey, transactions, conflicts, backoffMillis) ->
+                DockerSlotMetrics.record(dockerEngineId, transactions, conflicts, backoffMillis));
+        return allocator;
     }
 
     /**
@@ -360,29 +364,13 @@ public class DockerEnvironment implements IDockerEnvironment {
         String dockerEngineId = dockerEngine.getEngineId();
 
         try {
-            String currentSlot = dss.get("engine." + dockerEngineId + ".current.slots");
-            if (currentSlot == null) {
-                return;
-            }
-
-            int usedSlots = Integer.parseInt(currentSlot);
-            usedSlots--;
-            if (usedSlots < 0) {
-                usedSlots = 0;
-            }
-            dynamicResource.delete(dockerSlot.getResourcePropertyKeys());
-
             String prefix = "engine." + dockerEngineId + ".slot." + dockerSlot.getSlotName();
             String slotKey = "slot." + dockerEngineId + ".run." + framework.getTestRunName() + "."
                     + dockerSlot.getSlotName();
-            HashMap<String, String> otherProps = new HashMap<>();
-            otherProps.put(slotKey, "free");
-            if (!dss.putSwap("engine." + dockerEngineId + ".current.slots", currentSlot, Integer.toString(usedSlots),
-                    otherProps)) {
-                Thread.sleep(200);
-                freeDockerSlot(dockerSlot);
+            if (!slotAllocator(dss, dockerEngineId).free(new DssUpdate(slotKey, "free"))) {
                 return;
             }
+            dynamicResource.delete(dockerSlot.getResourcePropertyKeys());
 
             HashSet<String> delProps = new HashSet<>();
             delProps.add(prefix);
@@ -407,18 +395,6 @@ public class DockerEnvironment implements IDockerEnvironment {
     public static void deleteStaleDssSlot(String runName, String dockerEngineId, String slotName,
             IDynamicStatusStoreService dss) {
         try {
-            String numberOfSlotKey = "engine." + dockerEngineId + ".current.slots";
-            String currentSlot = dss.get(numberOfSlotKey);
-            if (currentSlot == null) {
-                return;
-            }
-
-            int usedSlots = Integer.parseInt(currentSlot);
-            usedSlots--;
-            if (usedSlots < 0) {
-                usedSlots = 0;
-            }
-
             IDynamicResource dynamicResource = dss.getDynamicResource("engine." + dockerEngineId);
             String resPrefix = "slot." + slotName;
 
@@ -430,13 +406,8 @@ public class DockerEnvironment implements IDockerEnvironment {
             String slotStatusKey = "slot." + dockerEngineId + ".run." + runName + "." + slotName;
             String runIdKey = "engine." + dockerEngineId + ".slot." + slotName;
 
-            HashMap<String, String> dockerDssProps = new HashMap<>();
-            dockerDssProps.put(slotStatusKey, "free");
-
             if ("active".equals(dss.get(slotStatusKey))) {
-                if (!dss.putSwap(numberOfSlotKey, currentSlot, Integer.toString(usedSlots), dockerDssProps)) {
-                    Thread.sleep(200);
-                    deleteStaleDssSlot(runName, dockerEngineId, slotName, dss);
+                if (!slotAllocator(dss, dockerEngineId).free(new DssUpdate(slotStatusKey, "free"))) {
                     return;
                 }
                 HashSet<String> props = new HashSet<>();
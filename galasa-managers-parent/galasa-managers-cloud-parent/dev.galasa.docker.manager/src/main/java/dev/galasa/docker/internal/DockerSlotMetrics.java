@@ -0,0 +1,133 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.docker.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+/**
+ * Records the contention on the docker engine slot counts in the test run and adds it to cumulative totals in the
+ * docker DSS, <code>metrics.engine.[engine id].slot.transactions</code>, <code>.conflicts</code> and
+ * <code>.backoff.millis</code>, when the run discards its docker environment.
+ */
+public class DockerSlotMetrics {
+
+    private static final Log logger = LogFactory.getLog(DockerSlotMetrics.class);
+
+    public static final String DSS_PREFIX = "metrics.engine.";
+
+    private static final String[] SUFFIXES = { ".slot.transactions", ".slot.conflicts", ".slot.backoff.millis" };
+
+    private static final int FLUSH_ATTEMPTS = 10;
+    private static final long FLUSH_BACKOFF_MILLIS = 50;
+
+    private static final Map<String, AtomicLongArray> engines = new ConcurrentHashMap<>();
+
+    private DockerSlotMetrics() {
+    }
+
+    /**
+     * Record the contention for one change to the slot count of an engine
+     *
+     * @param dockerEngineId the docker engine
+     * @param transactions the number of transactions attempted
+     * @param conflicts the number of those transactions that failed and were retried
+     * @param backoffMillis the time spent waiting between attempts
+     */
+    public static void record(String dockerEngineId, long transactions, long conflicts, long backoffMillis) {
+        AtomicLongArray totals = engines.computeIfAbsent(dockerEngineId, k -> new AtomicLongArray(SUFFIXES.length));
+        totals.addAndGet(0, transactions);
+        totals.addAndGet(1, conflicts);
+        totals.addAndGet(2, backoffMillis);
+    }
+
+    /**
+     * Add the contention recorded since the last flush to the totals in the DSS. Failures are logged rather than
+     * thrown, metrics must not fail a run, and the contention is kept for the next flush
+     *
+     * @param dss the docker DSS
+     */
+    public static void flush(IDynamicStatusStoreService dss) {
+        Map<String, long[]> deltas = new HashMap<>();
+        for (Entry<String, AtomicLongArray> entry : engines.entrySet()) {
+            long[] delta = new long[SUFFIXES.length];
+            for (int i = 0; i < delta.length; i++) {
+                delta[i] = entry.getValue().getAndSet(i, 0);
+            }
+            if (delta[0] > 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (int attempt = 1; ; attempt++) {
+                Map<String, String> current = dss.getPrefix(DSS_PREFIX);
+                List<IDssAction> actions = new ArrayList<>();
+                for (Entry<String, long[]> delta : deltas.entrySet()) {
+                    for (int i = 0; i < SUFFIXES.length; i++) {
+                        String key = DSS_PREFIX + delta.getKey() + SUFFIXES[i];
+                        String oldValue = current.get(key);
+                        String newValue = Long.toString(parse(oldValue) + delta.getValue()[i]);
+                        actions.add(oldValue == null ? new DssAdd(key, newValue) : new DssSwap(key, oldValue, newValue));
+                    }
+                }
+                try {
+                    dss.performActions(actions.toArray(new IDssAction[actions.size()]));
+                    return;
+                } catch (DynamicStatusStoreException e) {
+                    //*** Another run updated the same engine, try again with the new totals
+                    if (attempt >= FLUSH_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+                Thread.sleep(ThreadLocalRandom.current().nextLong(FLUSH_BACKOFF_MILLIS * attempt + 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            restore(deltas);
+            logger.warn("Interrupted updating docker slot metrics");
+        } catch (Exception e) {
+            restore(deltas);
+            logger.warn("Failed to update docker slot metrics", e);
+        }
+    }
+
+    private static void restore(Map<String, long[]> deltas) {
+        for (Entry<String, long[]> delta : deltas.entrySet()) {
+            long[] values = delta.getValue();
+            record(delta.getKey(), values[0], values[1], values[2]);
+        }
+    }
+
+    private static long parse(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
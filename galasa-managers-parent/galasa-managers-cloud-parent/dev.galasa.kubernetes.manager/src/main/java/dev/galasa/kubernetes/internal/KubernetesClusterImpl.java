@@ -24,6 +24,9 @@ import com.google.gson.GsonBuilder;
 
 import dev.galasa.ICredentials;
 import dev.galasa.ICredentialsToken;
+import dev.galasa.core.manager.spi.DssSlotAllocator;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IResourcePoolingService;
@@ -56,6 +59,7 @@ public class KubernetesClusterImpl {
     private final String                     clusterId;
     private final IDynamicStatusStoreService dss;
     private final IFramework                 framework;
+    private final DssSlotAllocator           slotAllocator;
     
     private ApiClient                        apiClient;
 
@@ -63,12 +67,20 @@ public class KubernetesClusterImpl {
         this.clusterId = clusterId;     
         this.dss       = dss;
         this.framework = framework;
+        this.slotAllocator = new DssSlotAllocator(dss, KubernetesManagerImpl.NAMESPACE, "cluster." + clusterId + ".current.slots");
     }
 
     public String getId() {
         return this.clusterId;
     }
 
+    /**
+     * @return the allocator for the slots of the cluster
+     */
+    public DssSlotAllocator getSlotAllocator() {
+        return this.slotAllocator;
+    }
+
     /**
      * Return the current availability of namespaces in the cluster
      * 
@@ -131,34 +143,25 @@ public class KubernetesClusterImpl {
                         continue; //*** Unable to reserve this name,  add to rejected and try next
                     }
 
-                    //*** Now we have a namespace,  increase the slot count
-                    while(true) { //*** have to loop around incase another test changed the current slot count
-                        int maxSlots = KubernetesMaxSlots.get(this);
-                        int currentSlots = 0;
-                        String sCurrentSlots = dss.get("cluster." + this.clusterId + ".current.slots");
-                        if (sCurrentSlots != null) {
-                            currentSlots = Integer.parseInt(sCurrentSlots);
-                        }
-
-                        if (currentSlots >= maxSlots) {
-                            dss.deletePrefix(namespacePrefix); // Clear the reserved namespace
-                            return null; // no availability
-                        }
-
-                        currentSlots++;
-                        HashMap<String, String> slotOtherValues = new HashMap<>();
-                        slotOtherValues.put(namespacePrefix, "active");
-                        slotOtherValues.put("slot.run." + runName + ".cluster." + this.clusterId + ".namespace." + possibleNamespace, "active");
-                        slotOtherValues.put("slot.run." + runName + ".cluster." + this.clusterId + ".namespace." + possibleNamespace + ".tag", namespaceTag);
-                        if (dss.putSwap("cluster." + this.clusterId + ".current.slots", sCurrentSlots, Integer.toString(currentSlots), slotOtherValues)) {
-                            selectedNamespace = possibleNamespace;
-                            break;
-                        }
+                    //*** Now we have a namespace,  increase the slot count, retrying incase another test changed the current slot count
+                    boolean allocated;
+                    try {
+                        allocated = this.slotAllocator.allocate(KubernetesMaxSlots.get(this),
+                                new DssUpdate(namespacePrefix, "active"),
+                                new DssUpdate("slot.run." + runName + ".cluster." + this.clusterId + ".namespace." + possibleNamespace, "active"),
+                                new DssUpdate("slot.run." + runName + ".cluster." + this.clusterId + ".namespace." + possibleNamespace + ".tag", namespaceTag));
+                    } catch (DynamicStatusStoreException e) {
+                        dss.deletePrefix(namespacePrefix); // Clear the reserved namespace
+                        throw e;
                     }
-                    
-                    if (selectedNamespace != null) {
-                        break;
+
+                    if (!allocated) {
+                        dss.deletePrefix(namespacePrefix); // Clear the reserved namespace
+                        return null; // no availability
                     }
+
+                    selectedNamespace = possibleNamespace;
+                    break;
                 }
             }
             
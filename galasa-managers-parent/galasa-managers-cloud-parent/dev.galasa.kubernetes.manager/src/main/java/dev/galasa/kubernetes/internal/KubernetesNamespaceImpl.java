@@ -27,6 +27,7 @@ import com.google.protobuf.Message;
 import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.SetContentType;
 import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.DssUpdate;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
@@ -178,26 +179,8 @@ public class KubernetesNamespaceImpl implements IKubernetesNamespace {
 
             String slotStatus = dss.get(slotKey);
             if ("active".equals(slotStatus)) {
-                //*** Decrement the cluster current slot count and mark the namespace as free
-                while(true) { //*** have to loop around incase another test changed the current slot count
-                    int currentSlots = 0;
-                    String sCurrentSlots = dss.get("cluster." + this.cluster.getId() + ".current.slots");
-                    if (sCurrentSlots != null) {
-                        currentSlots = Integer.parseInt(sCurrentSlots);
-                    }
-                    currentSlots--;
-
-                    if (currentSlots < 0) {
-                        currentSlots = 0;
-                    }
-
-                    HashMap<String, String> slotOtherValues = new HashMap<>();
-                    slotOtherValues.put(namespacePrefix, "free");
-                    slotOtherValues.put(slotKey, "free");
-                    if (dss.putSwap("cluster." + this.cluster.getId() + ".current.slots", sCurrentSlots, Integer.toString(currentSlots), slotOtherValues)) {
-                        break;
-                    }
-                }
+                //*** Decrement the cluster current slot count and mark the namespace as free, retrying incase another test changed the current slot count
+                this.cluster.getSlotAllocator().free(new DssUpdate(namespacePrefix, "free"), new DssUpdate(slotKey, "free"));
             }
 
             //*** Slot count has been decremented, we can now delete the actual DSS properties
@@ -0,0 +1,50 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry a failed request after a delay that doubles with each attempt, up to a
+ * maximum. The actual delay is chosen at random between 0 and that value, so
+ * that many requests failing together do not all retry together.
+ */
+public class ExponentialBackoffRetryPolicy implements IHttpRetryPolicy {
+
+    private final long initialDelay;
+    private final long maxDelay;
+    private final int  maxAttempts;
+
+    /**
+     * @param initialDelay the upper bound of the first delay in milliseconds
+     * @param maxDelay     the upper bound of any delay in milliseconds
+     * @param maxAttempts  the maximum number of attempts, 0 for no limit
+     */
+    public ExponentialBackoffRetryPolicy(long initialDelay, long maxDelay, int maxAttempts) {
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public long getRetryDelay(int attempt, int statusCode) {
+        if (maxAttempts > 0 && attempt >= maxAttempts) {
+            return -1;
+        }
+
+        long ceiling = maxDelay;
+        int shift = attempt - 1;
+        if (shift < Long.numberOfLeadingZeros(initialDelay) - 1) {
+            ceiling = Math.min(maxDelay, initialDelay << shift);
+        }
+
+        if (ceiling <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+}
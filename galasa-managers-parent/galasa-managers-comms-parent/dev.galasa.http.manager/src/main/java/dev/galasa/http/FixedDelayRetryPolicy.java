@@ -0,0 +1,34 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http;
+
+/**
+ * Retry a failed request after the same delay each time. This is the default
+ * policy, retrying every 2 seconds without limit.
+ */
+public class FixedDelayRetryPolicy implements IHttpRetryPolicy {
+
+    private final long delay;
+    private final int  maxAttempts;
+
+    /**
+     * @param delay       the delay between attempts in milliseconds
+     * @param maxAttempts the maximum number of attempts, 0 for no limit
+     */
+    public FixedDelayRetryPolicy(long delay, int maxAttempts) {
+        this.delay = delay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public long getRetryDelay(int attempt, int statusCode) {
+        if (maxAttempts > 0 && attempt >= maxAttempts) {
+            return -1;
+        }
+        return delay;
+    }
+
+}
@@ -5,8 +5,14 @@
  */
 package dev.galasa.http;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,6 +22,7 @@ import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -29,6 +36,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
+import dev.galasa.http.internal.JaxbContextCache;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 
@@ -190,6 +198,51 @@ public class HttpClientResponse<T> {
         return response;
     }
 
+    /**
+     * Create an {@link HttpClientResponse} with an {@link InputStream} content
+     * type from an {@link HttpResponse}, without reading the body. The
+     * httpResponse is closed when the stream is closed, which must be done to
+     * release the connection.
+     * 
+     * @param httpResponse
+     * @return - {@link HttpClientResponse} with an {@link InputStream} content type
+     * @throws HttpClientException
+     */
+    public static HttpClientResponse<InputStream> streamResponse(CloseableHttpResponse httpResponse)
+            throws HttpClientException {
+
+        HttpClientResponse<InputStream> response = new HttpClientResponse<>();
+        try {
+            response.populateGenericValues(httpResponse);
+
+            if (httpResponse.getEntity() == null) {
+                httpResponse.close();
+                response.setContent(new ByteArrayInputStream(new byte[0]));
+                return response;
+            }
+
+            response.setContent(new FilterInputStream(httpResponse.getEntity().getContent()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        httpResponse.close();
+                    }
+                }
+            });
+        } catch (IOException e) {
+            try {
+                httpResponse.close();
+            } catch (IOException e1) {
+                e.addSuppressed(e1);
+            }
+            throw new HttpClientException("Unable to open response body stream", e);
+        }
+
+        return response;
+    }
+
     /**
      * Create an {@link HttpClientResponse} with a {@link String} content type from
      * an {@link HttpResponse}.
@@ -272,14 +325,12 @@ public class HttpClientResponse<T> {
 
             if (httpResponse.getEntity() != null) {
                 if (response.getStatusCode() == HttpStatus.SC_OK || contentOnBadResponse) {
-                    String sResponse = EntityUtils.toString(httpResponse.getEntity());
-                    
-//                    JsonReader reader = new JsonReader(new InputStreamReader(httpResponse.getEntity().getContent()));
+                    // *** Parse straight from the entity rather than reading it into a String first
                     JsonElement jsonElement = null;
-                    try{
-                        jsonElement = new Gson().fromJson(sResponse, JsonElement.class);
+                    try (Reader reader = new InputStreamReader(httpResponse.getEntity().getContent(), jsonCharset(httpResponse.getEntity()))) {
+                        jsonElement = new Gson().fromJson(reader, JsonElement.class);
                     }catch(JsonSyntaxException jse){
-                        System.err.println("Unable to parse JSON from the following: " + sResponse);
+                        System.err.println("Unable to parse JSON from the response: " + jse.getMessage());
                         throw jse;
                     }
                     if (jsonElement != null) {
@@ -299,6 +350,22 @@ public class HttpClientResponse<T> {
         return response;
     }
 
+    /**
+     * The charset of a JSON entity, UTF-8 unless the entity says otherwise
+     */
+    private static Charset jsonCharset(HttpEntity entity) {
+        Charset charset = null;
+        try {
+            org.apache.http.entity.ContentType contentType = org.apache.http.entity.ContentType.get(entity);
+            if (contentType != null) {
+                charset = contentType.getCharset();
+            }
+        } catch (RuntimeException e) {
+            // *** Unparseable or unsupported charset, fall back to the JSON default
+        }
+        return charset != null ? charset : StandardCharsets.UTF_8;
+    }
+
     /**
      * Create an {@link HttpClientResponse} with a {@link Document} content type
      * from an {@link HttpResponse}.
@@ -393,7 +460,7 @@ public class HttpClientResponse<T> {
 
             if (httpResponse.getEntity() != null) {
                 if (response.getStatusCode() == HttpStatus.SC_OK || contentOnBadResponse) {
-                    JAXBContext context = JAXBContext.newInstance(responseTypes);
+                    JAXBContext context = JaxbContextCache.getContext(responseTypes);
                     Object data = context.createUnmarshaller().unmarshal(httpResponse.getEntity().getContent());
                     response.setContent(data);
                 } else {
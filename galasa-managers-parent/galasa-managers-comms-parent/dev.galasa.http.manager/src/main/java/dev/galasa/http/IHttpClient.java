@@ -10,6 +10,7 @@ import java.net.URI;
 import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -85,6 +86,17 @@ public interface IHttpClient {
      */
     HttpClientResponse<JsonObject> getJson(String url) throws HttpClientException;
 
+    /**
+     * Issue an HTTP GET to the provided URL with the headers for this request
+     * only, receiving a {@link JsonObject} in the response
+     * 
+     * @param url
+     * @param headers
+     * @return - {@link HttpClientResponse} with a {@link JsonObject} content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<JsonObject> getJson(String url, Map<String, String> headers) throws HttpClientException;
+
     /**
      * Issue an HTTP POST to the provided URL, sending the provided
      * {@link JSONObject} and receiving a {@link JSONObject} in the response.
@@ -96,6 +108,20 @@ public interface IHttpClient {
      */
     HttpClientResponse<JsonObject> postJson(String url, JsonObject json) throws HttpClientException;
 
+    /**
+     * Issue an HTTP POST to the provided URL, sending the provided
+     * {@link JsonObject} with the headers for this request only, and receiving a
+     * {@link JsonObject} in the response
+     * 
+     * @param url
+     * @param json
+     * @param headers
+     * @return - {@link HttpClientResponse} with a {@link JsonObject} content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<JsonObject> postJson(String url, JsonObject json, Map<String, String> headers)
+            throws HttpClientException;
+
      /**
      * Issue an HTTP PUT to the provided URL, sending the provided
      * {@link JSONObject} and receiving a {@link JSONObject} in the response.
@@ -107,6 +133,20 @@ public interface IHttpClient {
      */
     HttpClientResponse<JsonObject> putJson(String url, JsonObject json) throws HttpClientException;
 
+    /**
+     * Issue an HTTP PUT to the provided URL, sending the provided
+     * {@link JsonObject} with the headers for this request only, and receiving a
+     * {@link JsonObject} in the response
+     * 
+     * @param url
+     * @param json
+     * @param headers
+     * @return - {@link HttpClientResponse} with a {@link JsonObject} content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<JsonObject> putJson(String url, JsonObject json, Map<String, String> headers)
+            throws HttpClientException;
+
     /**
      * Issue an HTTP DELETE to the provided URL, receiving a {@link JSONObject} in
      * the response.
@@ -117,6 +157,17 @@ public interface IHttpClient {
      */
     HttpClientResponse<JsonObject> deleteJson(String url) throws HttpClientException;
 
+    /**
+     * Issue an HTTP DELETE to the provided URL with the headers for this request
+     * only, receiving a {@link JsonObject} in the response
+     * 
+     * @param url
+     * @param headers
+     * @return - {@link HttpClientResponse} with a {@link JsonObject} content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<JsonObject> deleteJson(String url, Map<String, String> headers) throws HttpClientException;
+
     /**
      * Issue an HTTP GET to the provided URL, receiving a {@link String} in the
      * response.
@@ -127,6 +178,17 @@ public interface IHttpClient {
      */
     HttpClientResponse<String> getText(String url) throws HttpClientException;
 
+    /**
+     * Issue an HTTP GET to the provided URL with the headers for this request
+     * only, receiving a String in the response
+     * 
+     * @param url
+     * @param headers
+     * @return - {@link HttpClientResponse} with a String content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<String> getText(String url, Map<String, String> headers) throws HttpClientException;
+
     /**
      * Issue an HTTP POST to the provided URL, sending the provided {@link String}
      * and receiving a {@link String} in the response.
@@ -149,6 +211,19 @@ public interface IHttpClient {
      */
     HttpClientResponse<String> putText(String url, String text) throws HttpClientException;
 
+    /**
+     * Issue an HTTP PUT to the provided URL, sending the provided String with the
+     * headers for this request only, and receiving a String in the response
+     * 
+     * @param url
+     * @param text
+     * @param headers
+     * @return - {@link HttpClientResponse} with a String content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<String> putText(String url, String text, Map<String, String> headers)
+            throws HttpClientException;
+
     /**
      * Issue an HTTP DELETE to the provided URL, receiving a {@link String} in the
      * response.
@@ -170,6 +245,19 @@ public interface IHttpClient {
      */
     HttpClientResponse<byte[]> putBinary(String url, byte[] binary) throws HttpClientException;
 
+    /**
+     * Issue an HTTP PUT to the provided URL, sending the provided byte array with
+     * the headers for this request only, and receiving a byte array in the response
+     * 
+     * @param url
+     * @param binary
+     * @param headers
+     * @return - {@link HttpClientResponse} with a byte array content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<byte[]> putBinary(String url, byte[] binary, Map<String, String> headers)
+            throws HttpClientException;
+
     /**
      * Issue an HTTP GET to the provided URL, sending the provided
      * {@link byte[]} and receiving a {@link byte[]} in the response.
@@ -203,6 +291,72 @@ public interface IHttpClient {
      */
     HttpClientResponse<byte[]> deleteBinary(String url, byte[] binary) throws HttpClientException;
 
+    /**
+     * Issue an HTTP GET to the provided URL, with the body of the response
+     * available as a stream rather than read into memory. The stream must be
+     * closed to release the connection, use
+     * {@link java.nio.channels.Channels#newChannel(InputStream)} if a channel is
+     * needed.
+     * 
+     * @param url
+     * @param acceptTypes
+     * @return - {@link HttpClientResponse} with an {@link InputStream} content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<InputStream> getStream(String url, ContentType... acceptTypes) throws HttpClientException;
+
+    /**
+     * Issue an HTTP POST to the provided URL, sending the body from the stream
+     * without reading it into memory first, and receiving a String in the response
+     * 
+     * @param url
+     * @param content
+     * @param contentType
+     * @return - {@link HttpClientResponse} with a String content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<String> postStream(String url, InputStream content, ContentType contentType)
+            throws HttpClientException;
+
+    /**
+     * Issue an HTTP PUT to the provided URL, sending the body from the stream
+     * without reading it into memory first, and receiving a String in the response
+     * 
+     * @param url
+     * @param content
+     * @param contentType
+     * @return - {@link HttpClientResponse} with a String content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<String> putStream(String url, InputStream content, ContentType contentType)
+            throws HttpClientException;
+
+    /**
+     * Issue an HTTP PUT to the provided URL, sending the body from the stream
+     * with the headers for this request only, and receiving a String in the
+     * response
+     * 
+     * @param url
+     * @param content
+     * @param contentType
+     * @param headers
+     * @return - {@link HttpClientResponse} with a String content type
+     * @throws HttpClientException
+     */
+    HttpClientResponse<String> putStream(String url, InputStream content, ContentType contentType,
+            Map<String, String> headers) throws HttpClientException;
+
+    /**
+     * Run calls on this client on another thread, so that many requests can be
+     * in flight at once, limited by the size of the connection pool. For example
+     * {@code client.executeAsync(c -> c.getJson("/jobs/" + id))}
+     * 
+     * @param call the calls to make
+     * @return a future completed with the result of the calls, or exceptionally
+     *         with the {@link HttpClientException} they threw
+     */
+    <T> CompletableFuture<T> executeAsync(IHttpClientCall<T> call);
+
     /**
      * Download a file from a specified location to a specified destination on local host.
      * 
@@ -210,6 +364,15 @@ public interface IHttpClient {
      * @param String path = URL path
      */
     CloseableHttpResponse getFile(String path) throws HttpClientException;
+
+    /**
+     * Download a file from a specified location with the headers for this request
+     * only. The response must be closed to release the connection.
+     * 
+     * @param path
+     * @param headers
+     */
+    CloseableHttpResponse getFile(String path, Map<String, String> headers) throws HttpClientException;
     
     /**
      * Download a file from a specified location to a specified destination on local host.
@@ -289,6 +452,15 @@ public interface IHttpClient {
      */
     void addOkResponseCode(int responseCode);
 
+    /**
+     * Set the policy used to retry requests made with retry requested. The
+     * default is to retry every 2 seconds without limit.
+     * 
+     * @param retryPolicy
+     * @return the updated client
+     */
+    IHttpClient setRetryPolicy(IHttpRetryPolicy retryPolicy);
+
     /**
      * Build the client
      * 
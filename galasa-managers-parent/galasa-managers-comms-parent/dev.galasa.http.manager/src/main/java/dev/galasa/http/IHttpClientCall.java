@@ -0,0 +1,19 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http;
+
+/**
+ * One or more calls on an {@link IHttpClient}, to be run by
+ * {@link IHttpClient#executeAsync(IHttpClientCall)}
+ *
+ * @param <T> the result of the calls, usually an {@link HttpClientResponse}
+ */
+@FunctionalInterface
+public interface IHttpClientCall<T> {
+
+    T call(IHttpClient client) throws HttpClientException;
+
+}
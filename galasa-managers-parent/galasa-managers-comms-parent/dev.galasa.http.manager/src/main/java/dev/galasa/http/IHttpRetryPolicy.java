@@ -0,0 +1,24 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http;
+
+/**
+ * Decides whether, and after how long, a failed HTTP request is retried by an
+ * {@link IHttpClient}. Requests that fail with 401 Unauthorized are never
+ * retried.
+ */
+public interface IHttpRetryPolicy {
+
+    /**
+     * Get the delay before the next attempt of a failed request
+     * 
+     * @param attempt    the number of the attempt that failed, starting at 1
+     * @param statusCode the status code of the failed attempt
+     * @return the delay in milliseconds, or a negative number to stop retrying
+     */
+    long getRetryDelay(int attempt, int statusCode);
+
+}
@@ -7,7 +7,6 @@ package dev.galasa.http.internal;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
@@ -24,6 +23,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -52,6 +61,10 @@ import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.entity.ByteArrayEntity;
@@ -63,17 +76,25 @@ import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.AbstractHttpMessage;
 import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
 import org.w3c.dom.Document;
 
 import com.google.gson.JsonObject;
 
 import dev.galasa.http.ContentType;
+import dev.galasa.http.FixedDelayRetryPolicy;
 import dev.galasa.http.HttpClientException;
 import dev.galasa.http.HttpClientResponse;
 import dev.galasa.http.IHttpClient;
+import dev.galasa.http.IHttpClientCall;
+import dev.galasa.http.IHttpRetryPolicy;
+import dev.galasa.http.internal.properties.ConnectionPoolIdleTimeout;
+import dev.galasa.http.internal.properties.ConnectionPoolMaxPerRoute;
+import dev.galasa.http.internal.properties.ConnectionPoolMaxTotal;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.annotation.XmlType;
@@ -82,8 +103,21 @@ public class HttpClientImpl implements IHttpClient {
 
     private static final String JAVA_VENDOR_PROPERTY = "java.vendor";
 
-    private CloseableHttpClient httpClient;
-    protected URI               host                 = null;
+    private static final AtomicInteger asyncThreadNumber = new AtomicInteger();
+
+    private static final long RETIRED_POOL_CHECK_MILLIS = 1000;
+
+    // *** Closes the pools of rebuilt clients once their requests have finished
+    private static final ScheduledExecutorService retiredPoolCloser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "galasa-http-pool-closer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private CloseableHttpClient                httpClient;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private volatile boolean                   rebuildRequired      = true;
+    protected URI                              host                 = null;
 
     private final List<Header>  commonHeaders        = new ArrayList<>();
 
@@ -96,12 +130,22 @@ public class HttpClientImpl implements IHttpClient {
     private HttpClientContext   httpContext          = null;
     private Set<Integer>        okResponseCodes      = new HashSet<>();
 
+    private int                 maxConnectionsPerRoute;
+    private int                 maxConnectionsTotal;
+    private int                 idleConnectionTimeout;
+
+    private IHttpRetryPolicy    retryPolicy          = new FixedDelayRetryPolicy(2000, 0);
+    private ExecutorService     asyncExecutor;
+
     private Log                 logger;
 
     public HttpClientImpl(int timeout, Log log) {
         this.timeout = timeout;
         this.logger = log;
         this.cookieStore = new BasicCookieStore();
+        this.maxConnectionsPerRoute = ConnectionPoolMaxPerRoute.get();
+        this.maxConnectionsTotal = ConnectionPoolMaxTotal.get();
+        this.idleConnectionTimeout = ConnectionPoolIdleTimeout.get();
     }
 
     @Override
@@ -152,36 +196,62 @@ public class HttpClientImpl implements IHttpClient {
 
     @Override
     public HttpClientResponse<JsonObject> getJson(String url) throws HttpClientException {
+        return getJson(url, null);
+    }
+
+    @Override
+    public HttpClientResponse<JsonObject> getJson(String url, Map<String, String> headers) throws HttpClientException {
         HttpClientRequest request = HttpClientRequest.newGetRequest(buildUri(url, null).toString(),
                 new ContentType[] { ContentType.APPLICATION_JSON });
+        addRequestHeaders(request, headers);
         return executeJsonRequest(request);
     }
 
     @Override
     public HttpClientResponse<JsonObject> putJson(String url, JsonObject json) throws HttpClientException {
+        return putJson(url, json, null);
+    }
+
+    @Override
+    public HttpClientResponse<JsonObject> putJson(String url, JsonObject json, Map<String, String> headers)
+            throws HttpClientException {
 
         HttpClientRequest request = HttpClientRequest.newPutRequest(buildUri(url, null).toString(),
                 new ContentType[] { ContentType.APPLICATION_JSON }, ContentType.APPLICATION_JSON);
         request.setJSONBody(json);
+        addRequestHeaders(request, headers);
 
         return executeJsonRequest(request);
     }
 
     @Override
     public HttpClientResponse<JsonObject> postJson(String url, JsonObject json) throws HttpClientException {
+        return postJson(url, json, null);
+    }
+
+    @Override
+    public HttpClientResponse<JsonObject> postJson(String url, JsonObject json, Map<String, String> headers)
+            throws HttpClientException {
 
         HttpClientRequest request = HttpClientRequest.newPostRequest(buildUri(url, null).toString(),
                 new ContentType[] { ContentType.APPLICATION_JSON }, ContentType.APPLICATION_JSON);
         request.setJSONBody(json);
+        addRequestHeaders(request, headers);
 
         return executeJsonRequest(request);
     }
 
     @Override
     public HttpClientResponse<JsonObject> deleteJson(String url) throws HttpClientException {
+        return deleteJson(url, null);
+    }
+
+    @Override
+    public HttpClientResponse<JsonObject> deleteJson(String url, Map<String, String> headers) throws HttpClientException {
 
         HttpClientRequest request = HttpClientRequest.newDeleteRequest(buildUri(url, null).toString(),
                 new ContentType[] { ContentType.APPLICATION_JSON });
+        addRequestHeaders(request, headers);
 
         return executeJsonRequest(request);
     }
@@ -194,19 +264,32 @@ public class HttpClientImpl implements IHttpClient {
 
     @Override
     public HttpClientResponse<String> getText(String url) throws HttpClientException {
+        return getText(url, null);
+    }
+
+    @Override
+    public HttpClientResponse<String> getText(String url, Map<String, String> headers) throws HttpClientException {
 
         HttpClientRequest request = HttpClientRequest.newGetRequest(buildUri(url, null).toString(),
                 new ContentType[] { ContentType.TEXT_PLAIN });
+        addRequestHeaders(request, headers);
 
         return executeTextRequest(request);
     }
 
     @Override
     public HttpClientResponse<String> putText(String url, String text) throws HttpClientException {
+        return putText(url, text, null);
+    }
+
+    @Override
+    public HttpClientResponse<String> putText(String url, String text, Map<String, String> headers)
+            throws HttpClientException {
 
         HttpClientRequest request = HttpClientRequest.newPutRequest(buildUri(url, null).toString(),
                 new ContentType[] { ContentType.TEXT_PLAIN }, ContentType.TEXT_PLAIN);
         request.setBody(text);
+        addRequestHeaders(request, headers);
 
         return executeTextRequest(request);
     }
@@ -221,6 +304,82 @@ public class HttpClientImpl implements IHttpClient {
         return executeTextRequest(request);
     }
 
+    @Override
+    public HttpClientResponse<InputStream> getStream(String url, ContentType... acceptTypes) throws HttpClientException {
+
+        HttpClientRequest request = HttpClientRequest.newGetRequest(buildUri(url, null).toString(), acceptTypes);
+
+        return HttpClientResponse.streamResponse(execute(request.buildRequest()));
+    }
+
+    @Override
+    public HttpClientResponse<String> postStream(String url, InputStream content, ContentType contentType)
+            throws HttpClientException {
+
+        HttpClientRequest request = HttpClientRequest.newPostRequest(buildUri(url, null).toString(),
+                new ContentType[] { ContentType.TEXT_PLAIN, ContentType.APPLICATION_JSON }, contentType);
+        request.setBody(content);
+
+        return executeTextRequest(request);
+    }
+
+    @Override
+    public HttpClientResponse<String> putStream(String url, InputStream content, ContentType contentType)
+            throws HttpClientException {
+        return putStream(url, content, contentType, null);
+    }
+
+    @Override
+    public HttpClientResponse<String> putStream(String url, InputStream content, ContentType contentType,
+            Map<String, String> headers) throws HttpClientException {
+
+        HttpClientRequest request = HttpClientRequest.newPutRequest(buildUri(url, null).toString(),
+                new ContentType[] { ContentType.TEXT_PLAIN, ContentType.APPLICATION_JSON }, contentType);
+        request.setBody(content);
+        addRequestHeaders(request, headers);
+
+        return executeTextRequest(request);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(IHttpClientCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            getAsyncExecutor().execute(() -> {
+                try {
+                    future.complete(call.call(this));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new HttpClientException("HTTP client has been closed", e));
+        }
+        return future;
+    }
+
+    private synchronized ExecutorService getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "galasa-http-async-" + asyncThreadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            // *** The pool size bounds the useful concurrency, idle threads time out
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConnectionsTotal, maxConnectionsTotal, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+            executor.allowCoreThreadTimeOut(true);
+            asyncExecutor = executor;
+        }
+        return asyncExecutor;
+    }
+
+    @Override
+    public IHttpClient setRetryPolicy(IHttpRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
     @Override
     public HttpClientResponse<String> deleteText(String url) throws HttpClientException {
 
@@ -238,9 +397,16 @@ public class HttpClientImpl implements IHttpClient {
 
     @Override
     public HttpClientResponse<byte[]> putBinary(String url, byte[] binary) throws HttpClientException {       
+        return putBinary(url, binary, null);
+    }
+
+    @Override
+    public HttpClientResponse<byte[]> putBinary(String url, byte[] binary, Map<String, String> headers)
+            throws HttpClientException {
         HttpClientRequest request = HttpClientRequest.newPutRequest(buildUri(url, null).toString(),
                 new ContentType[] { ContentType.TEXT_PLAIN }, ContentType.TEXT_PLAIN);
         request.setBody(binary);
+        addRequestHeaders(request, headers);
         return executeByteRequest(request);
     }
 
@@ -382,6 +548,7 @@ public class HttpClientImpl implements IHttpClient {
     public IHttpClient setSSLContext(SSLContext sslContext) {
 
         this.sslContext = sslContext;
+        this.rebuildRequired = true;
 
         return this;
     }
@@ -396,6 +563,7 @@ public class HttpClientImpl implements IHttpClient {
     public IHttpClient setHostnameVerifier(HostnameVerifier hostnameVerifier) {
 
         this.hostnameVerifier = hostnameVerifier;
+        this.rebuildRequired = true;
 
         return this;
     }
@@ -408,6 +576,7 @@ public class HttpClientImpl implements IHttpClient {
     public IHttpClient setNoopHostnameVerifier() {
 
         this.hostnameVerifier = NoopHostnameVerifier.INSTANCE;
+        this.rebuildRequired = true;
 
         return this;
     }
@@ -462,13 +631,72 @@ public class HttpClientImpl implements IHttpClient {
     }
 
     /**
-     * Build the client
+     * Set the limits of the connection pool, takes effect when the client is next built
+     * 
+     * @param maxPerRoute the maximum number of connections to each host
+     * @param maxTotal    the maximum number of connections across all hosts
+     * @return the updated client
+     */
+    public IHttpClient setConnectionPoolLimits(int maxPerRoute, int maxTotal) {
+        this.maxConnectionsPerRoute = maxPerRoute;
+        this.maxConnectionsTotal = maxTotal;
+        this.rebuildRequired = true;
+        return this;
+    }
+
+    /**
+     * Set how long a pooled connection can be idle before it is closed, takes
+     * effect when the client is next built
+     * 
+     * @param seconds the idle time in seconds, 0 to keep idle connections open
+     * @return the updated client
+     */
+    public IHttpClient setIdleConnectionTimeout(int seconds) {
+        this.idleConnectionTimeout = seconds;
+        this.rebuildRequired = true;
+        return this;
+    }
+
+    /**
+     * Get the statistics of the connection pool
+     * 
+     * @return the leased, pending and available connections, or null if the client has not been built
+     */
+    public PoolStats getPoolStats() {
+        PoolingHttpClientConnectionManager manager = this.connectionManager;
+        if (manager == null) {
+            return null;
+        }
+        return manager.getTotalStats();
+    }
+
+    /**
+     * Build the client, replacing any previously built client and its
+     * connection pool. The client is built on first use if this is not called,
+     * and rebuilt when the SSL context, hostname verifier or pool settings change.
+     * Requests already using the previous pool complete normally, the pool is
+     * closed once none of its connections are leased.
      * 
      * @return the built client
      */
-    public IHttpClient build() {
+    public synchronized IHttpClient build() {
+
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslContext != null ? new SSLConnectionSocketFactory(sslContext, hostnameVerifier)
+                        : SSLConnectionSocketFactory.getSocketFactory())
+                .build();
+
+        PoolingHttpClientConnectionManager newConnectionManager = new PoolingHttpClientConnectionManager(registry);
+        newConnectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        newConnectionManager.setMaxTotal(maxConnectionsTotal);
 
         HttpClientBuilder builder = HttpClients.custom().setDefaultCookieStore(cookieStore);
+        builder.setConnectionManager(newConnectionManager);
+        builder.evictExpiredConnections();
+        if (idleConnectionTimeout > 0) {
+            builder.evictIdleConnections(idleConnectionTimeout, TimeUnit.SECONDS);
+        }
         builder.setDefaultCredentialsProvider(credentialsProvider);
         builder.setDefaultHeaders(commonHeaders);
 
@@ -478,16 +706,68 @@ public class HttpClientImpl implements IHttpClient {
             builder.setDefaultRequestConfig(requestBuilder.build());
         }
 
-        if (sslContext != null) {
-            SSLConnectionSocketFactory csf = new SSLConnectionSocketFactory(sslContext, hostnameVerifier);
-            builder.setSSLSocketFactory(csf);
-        }
+        // *** Set the flag before building so a setter called meanwhile is not lost
+        rebuildRequired = false;
 
+        CloseableHttpClient oldClient = httpClient;
+        PoolingHttpClientConnectionManager oldConnectionManager = connectionManager;
+        connectionManager = newConnectionManager;
         httpClient = builder.build();
+        retireClient(oldClient, oldConnectionManager);
 
         return this;
     }
 
+    /**
+     * Close the idle connections of a replaced pool now and the pool once its
+     * leased connections are returned. The first check is deferred so a request
+     * that fetched the old client just before it was replaced has leased its
+     * connection by then.
+     */
+    private void retireClient(CloseableHttpClient client, PoolingHttpClientConnectionManager manager) {
+        if (client == null) {
+            return;
+        }
+        manager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+        retiredPoolCloser.schedule(() -> closeWhenDrained(client, manager), RETIRED_POOL_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeWhenDrained(CloseableHttpClient client, PoolingHttpClientConnectionManager manager) {
+        PoolStats stats = manager.getTotalStats();
+        if (stats.getLeased() > 0 || stats.getPending() > 0) {
+            manager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+            retiredPoolCloser.schedule(() -> closeWhenDrained(client, manager), RETIRED_POOL_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Closing replaced HTTP client, connection pool " + stats);
+        }
+        try {
+            client.close();
+        } catch (IOException e) {
+        }
+    }
+
+    private synchronized CloseableHttpClient getHttpClient() {
+        if (httpClient == null || rebuildRequired) {
+            build();
+        }
+        return httpClient;
+    }
+
+    /**
+     * Headers set on the request take precedence over the common headers of the client
+     */
+    private void addRequestHeaders(HttpClientRequest request, Map<String, String> headers) {
+        if (headers == null) {
+            return;
+        }
+        for (Entry<String, String> header : headers.entrySet()) {
+            request.addHeader(header.getKey(), header.getValue());
+        }
+    }
+
     private void addHeaders(AbstractHttpMessage message, ContentType contentType, ContentType[] acceptTypes) {
 
         if (contentType != null) {
@@ -519,11 +799,12 @@ public class HttpClientImpl implements IHttpClient {
 
     private byte[] execute(HttpUriRequest request, boolean retry) throws HttpClientException {
 
+        int attempt = 0;
         while (true) {
+            attempt++;
             CloseableHttpResponse response = null;
             try {
-                this.build();
-                response = httpClient.execute(request, httpContext);
+                response = getHttpClient().execute(request, requestContext());
                 StatusLine status = response.getStatusLine();
                 if (status.getStatusCode() != HttpStatus.SC_OK
                         && status.getStatusCode() != HttpStatus.SC_CREATED
@@ -532,10 +813,14 @@ public class HttpClientImpl implements IHttpClient {
                     String message = "HTTP " + request.getMethod() + " to " + request.getURI().toASCIIString()
                             + " failed with " + status.getStatusCode() + ": '" + status.getReasonPhrase() + "'";
 
+                    long delay = -1;
                     if (retry && status.getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
-                        logger.warn(message + ", retrying");
+                        delay = retryPolicy.getRetryDelay(attempt, status.getStatusCode());
+                    }
+                    if (delay >= 0) {
+                        logger.warn(message + ", retrying in " + delay + "ms");
                         try {
-                            Thread.sleep(2000);
+                            Thread.sleep(delay);
                         } catch (InterruptedException e1) {
                             Thread.currentThread().interrupt();
                             throw new HttpClientException("Galasa HTTP Client retry failed due to interruption", e1);
@@ -647,7 +932,7 @@ public class HttpClientImpl implements IHttpClient {
 
         try {
             if (jaxbClasses != null && jaxbClasses.length > 0) {
-                JAXBContext ctx = JAXBContext.newInstance(jaxbClasses);
+                JAXBContext ctx = JaxbContextCache.getContext(jaxbClasses);
                 return ctx.createUnmarshaller().unmarshal(new ByteArrayInputStream(content));
             }
         } catch (JAXBException e) {
@@ -658,24 +943,20 @@ public class HttpClientImpl implements IHttpClient {
 
     }
 
-    private byte[] marshall(Object object, Class<?>[] jaxbClasses) throws HttpClientException {
+    private HttpEntity marshall(Object object, Class<?>[] jaxbClasses) throws HttpClientException {
 
         if (object == null) {
-            return new byte[0];
+            return new ByteArrayEntity(new byte[0]);
         }
 
         if (object.getClass().isAnnotationPresent(XmlType.class) && jaxbClasses != null && jaxbClasses.length > 0) {
             try {
-                JAXBContext ctx = JAXBContext.newInstance(jaxbClasses);
-                ByteArrayOutputStream os = new ByteArrayOutputStream();
-                ctx.createMarshaller().marshal(object, os);
-
-                return os.toByteArray();
+                return new JaxbEntity(JaxbContextCache.getContext(jaxbClasses), object);
             } catch (JAXBException e) {
                 throw new HttpClientException(e);
             }
         } else {
-            return ((String) object).getBytes();
+            return new ByteArrayEntity(((String) object).getBytes());
         }
     }
 
@@ -683,10 +964,8 @@ public class HttpClientImpl implements IHttpClient {
     public Object post(String path, Map<String, String> queryParams, ContentType contentType, Object data,
             ContentType[] acceptTypes, Class<?>[] jaxbClasses, boolean retry) throws HttpClientException {
 
-        byte[] dataBytes = marshall(data, jaxbClasses);
-
         HttpPost post = new HttpPost(buildUri(path, queryParams));
-        post.setEntity(new ByteArrayEntity(dataBytes));
+        post.setEntity(marshall(data, jaxbClasses));
         addHeaders(post, contentType, acceptTypes);
 
         byte[] response = execute(post, retry);
@@ -718,9 +997,14 @@ public class HttpClientImpl implements IHttpClient {
     }
 
     public CloseableHttpResponse getFile(String path) throws HttpClientException {
+        return getFile(path, (Map<String, String>) null);
+    }
+
+    public CloseableHttpResponse getFile(String path, Map<String, String> headers) throws HttpClientException {
         try{
             HttpClientRequest request = HttpClientRequest.newGetRequest(buildUri(path, null).toString(),
                     new ContentType[] { ContentType.APPLICATION_OCTET_STREAM, ContentType.APPLICATION_X_TAR });
+            addRequestHeaders(request, headers);
 
             return execute(request.buildRequest());
         } catch (HttpClientException e) {
@@ -769,7 +1053,7 @@ public class HttpClientImpl implements IHttpClient {
                 entity = new InputStreamEntity((InputStream) data);
                 put.setEntity(entity);
                 addHeaders(put, contentType, acceptTypes);
-                return httpClient.execute(put, context);
+                return getHttpClient().execute(put, context);
             } catch (IOException e) {
                 logger.error("IO error with input stream", e);
                 throw new HttpClientException(e);
@@ -807,25 +1091,56 @@ public class HttpClientImpl implements IHttpClient {
     }
 
     private CloseableHttpResponse execute(HttpUriRequest request) throws HttpClientException {
-        this.build();
         try {
-            return httpClient.execute(request, httpContext);
+            return getHttpClient().execute(request, requestContext());
         } catch (IOException e) {
             throw new HttpClientException("Error executing http request", e);
         }
     }
 
+    /**
+     * The context holds state for the request as it is executed, so each
+     * request needs its own when they may be executed concurrently. The auth
+     * cache and credentials are thread safe and shared.
+     */
+    private HttpClientContext requestContext() {
+        HttpClientContext sharedContext = this.httpContext;
+        if (sharedContext == null) {
+            return null;
+        }
+
+        HttpClientContext context = HttpClientContext.create();
+        context.setCredentialsProvider(sharedContext.getCredentialsProvider());
+        context.setAuthCache(sharedContext.getAuthCache());
+        return context;
+    }
+
     @Override
-    public void close() {
+    public synchronized void close() {
+        closeClient();
+
+        if (asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            asyncExecutor = null;
+        }
+    }
+
+    private void closeClient() {
         if (this.httpClient == null) {
             return;
         }
 
+        if (logger.isDebugEnabled()) {
+            logger.debug("Closing HTTP client, connection pool " + connectionManager.getTotalStats());
+        }
+
         try {
             httpClient.close();
         } catch (IOException e) {
         }
 
+        httpClient = null;
+        connectionManager = null;
     }
 
 }
@@ -5,8 +5,8 @@
  */
 package dev.galasa.http.internal;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -26,6 +26,7 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.FileEntity;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.w3c.dom.Document;
 
@@ -33,7 +34,6 @@ import com.google.gson.JsonObject;
 
 import dev.galasa.http.ContentType;
 import dev.galasa.http.HttpClientException;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 
 /**
@@ -191,6 +191,18 @@ public class HttpClientRequest {
         return this;
     }
 
+    /**
+     * Set the body of the request, which will be streamed and sent chunked
+     * 
+     * @param data
+     * @return - the updated request
+     */
+    public HttpClientRequest setBody(InputStream data) {
+        this.content = new InputStreamEntity(data);
+
+        return this;
+    }
+
     /**
      * Set the body of the request
      * 
@@ -222,16 +234,12 @@ public class HttpClientRequest {
      */
     public HttpClientRequest setJAXBBody(Object jaxbObject) {
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
         try {
-            JAXBContext context = JAXBContext.newInstance(jaxbObject.getClass());
-            context.createMarshaller().marshal(jaxbObject, baos);
+            this.content = new JaxbEntity(JaxbContextCache.getContext(jaxbObject.getClass()), jaxbObject);
         } catch (JAXBException e) {
             throw new IllegalArgumentException("Body is an instance of " + jaxbObject.getClass().getSimpleName()
                     + " which appears not to be a valid JAXB class", e);
         }
-        this.content = new ByteArrayEntity(baos.toByteArray());
 
         return this;
     }
@@ -19,6 +19,7 @@ import org.osgi.service.component.annotations.Component;
 import dev.galasa.ManagerException;
 import dev.galasa.framework.spi.AbstractManager;
 import dev.galasa.framework.spi.AnnotatedField;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.GenerateAnnotatedField;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IManager;
@@ -26,13 +27,16 @@ import dev.galasa.framework.spi.ResourceUnavailableException;
 import dev.galasa.framework.spi.language.GalasaTest;
 import dev.galasa.http.HttpClient;
 import dev.galasa.http.IHttpClient;
+import dev.galasa.http.internal.properties.HttpPropertiesSingleton;
 import dev.galasa.http.spi.IHttpManagerSpi;
 
 @Component(service = { IManager.class })
 public class HttpManagerImpl extends AbstractManager implements IHttpManagerSpi {
 
-    private static final Log  logger              = LogFactory.getLog(HttpManagerImpl.class);
-    private List<IHttpClient> instantiatedClients = new ArrayList<>();
+    public static final String NAMESPACE           = "http";
+
+    private static final Log   logger              = LogFactory.getLog(HttpManagerImpl.class);
+    private List<IHttpClient>  instantiatedClients = new ArrayList<>();
 
     @GenerateAnnotatedField(annotation = HttpClient.class)
     public IHttpClient generateHttpClient(Field field, List<Annotation> annotations) {
@@ -62,6 +66,12 @@ public class HttpManagerImpl extends AbstractManager implements IHttpManagerSpi
                 youAreRequired(allManagers, activeManagers, galasaTest);
             }
         }
+
+        try {
+            HttpPropertiesSingleton.setCps(framework.getConfigurationPropertyService(NAMESPACE));
+        } catch (ConfigurationPropertyStoreException e) {
+            throw new ManagerException("Failed to set the CPS with the http namespace", e);
+        }
     }
 
     @Override
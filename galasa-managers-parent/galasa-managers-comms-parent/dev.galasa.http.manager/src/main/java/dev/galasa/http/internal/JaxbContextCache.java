@@ -0,0 +1,85 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.validation.constraints.NotNull;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * Cache of JAXB contexts keyed by the set of classes they were created for.
+ * Creating a context introspects every class reachable from the ones given,
+ * so is far more expensive than the request it is used for. Contexts are
+ * thread safe, the marshallers and unmarshallers created from them are not.
+ * 
+ * <p>
+ * The contexts are held by one of their own classes, through a
+ * {@link ClassValue}, rather than by a static map, so they do not keep the
+ * class loader of a test bundle alive once the bundle is uninstalled.
+ */
+public class JaxbContextCache {
+
+    private static final ClassValue<Map<Set<Class<?>>, JAXBContext>> contexts = new ClassValue<Map<Set<Class<?>>, JAXBContext>>() {
+        @Override
+        protected Map<Set<Class<?>>, JAXBContext> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private JaxbContextCache() {
+    }
+
+    /**
+     * Get the context for the classes, creating it on first use. The order of
+     * the classes does not matter.
+     * 
+     * @param classes the JAXB classes
+     * @return the context
+     * @throws JAXBException if the context cannot be created
+     */
+    public static @NotNull JAXBContext getContext(@NotNull Class<?>... classes) throws JAXBException {
+        if (classes.length == 0) {
+            return JAXBContext.newInstance(classes);
+        }
+        Set<Class<?>> key = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(classes)));
+        Map<Set<Class<?>>, JAXBContext> cache = contexts.get(owner(key));
+
+        JAXBContext context = cache.get(key);
+        if (context == null) {
+            // *** Two threads may both create the context, only one is kept
+            context = JAXBContext.newInstance(classes);
+            JAXBContext existing = cache.putIfAbsent(key, context);
+            if (existing != null) {
+                context = existing;
+            }
+        }
+
+        return context;
+    }
+
+    /**
+     * The class holding the contexts for a set of classes, the same whatever
+     * the order they are supplied in
+     */
+    private static Class<?> owner(Set<Class<?>> classes) {
+        Class<?> owner = null;
+        for (Class<?> candidate : classes) {
+            if (owner == null || candidate.getName().compareTo(owner.getName()) < 0) {
+                owner = candidate;
+            }
+        }
+        return owner;
+    }
+
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http.internal;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.http.entity.ByteArrayEntity;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * An entity holding a JAXB object marshalled with a cached context. The
+ * object is marshalled once, when the entity is created, so marshalling
+ * errors are reported by the caller building the request and the request is
+ * sent with a Content-Length rather than chunked.
+ */
+public class JaxbEntity extends ByteArrayEntity {
+
+    public JaxbEntity(JAXBContext context, Object jaxbObject) throws JAXBException {
+        super(marshal(context, jaxbObject));
+    }
+
+    private static byte[] marshal(JAXBContext context, Object jaxbObject) throws JAXBException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        context.createMarshaller().marshal(jaxbObject, baos);
+        return baos.toByteArray();
+    }
+
+}
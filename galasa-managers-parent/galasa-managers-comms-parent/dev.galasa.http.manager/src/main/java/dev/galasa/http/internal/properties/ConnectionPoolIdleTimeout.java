@@ -0,0 +1,39 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http.internal.properties;
+
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.cps.CpsProperties;
+
+/**
+ * The number of seconds a pooled HTTP connection can be idle before it is closed, 0 to keep idle connections open
+ * </p>
+ * <p>
+ * The property is:-<br>
+ * <br>
+ * http.connection.pool.idle.timeout=60
+ * </p>
+ * <p>
+ * default is 60
+ * </p>
+ * 
+ */
+public class ConnectionPoolIdleTimeout extends CpsProperties {
+
+    public static int get() {
+        IConfigurationPropertyStoreService cps = HttpPropertiesSingleton.cps();
+        if (cps == null) {
+            return 60;
+        }
+
+        int value = getIntWithDefault(cps, 60, "connection.pool", "idle.timeout");
+        if (value < 0) {
+            return 60;
+        }
+        return value;
+    }
+
+}
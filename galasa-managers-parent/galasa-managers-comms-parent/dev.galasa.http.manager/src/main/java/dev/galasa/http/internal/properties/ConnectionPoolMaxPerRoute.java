@@ -0,0 +1,39 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http.internal.properties;
+
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.cps.CpsProperties;
+
+/**
+ * The maximum number of pooled connections an HTTP client keeps to each host
+ * </p>
+ * <p>
+ * The property is:-<br>
+ * <br>
+ * http.connection.pool.max.per.route=20
+ * </p>
+ * <p>
+ * default is 20
+ * </p>
+ * 
+ */
+public class ConnectionPoolMaxPerRoute extends CpsProperties {
+
+    public static int get() {
+        IConfigurationPropertyStoreService cps = HttpPropertiesSingleton.cps();
+        if (cps == null) {
+            return 20;
+        }
+
+        int value = getIntWithDefault(cps, 20, "connection.pool", "max.per.route");
+        if (value < 1) {
+            return 20;
+        }
+        return value;
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http.internal.properties;
+
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.cps.CpsProperties;
+
+/**
+ * The maximum number of pooled connections an HTTP client keeps across all hosts
+ * </p>
+ * <p>
+ * The property is:-<br>
+ * <br>
+ * http.connection.pool.max.total=100
+ * </p>
+ * <p>
+ * default is 100
+ * </p>
+ * 
+ */
+public class ConnectionPoolMaxTotal extends CpsProperties {
+
+    public static int get() {
+        IConfigurationPropertyStoreService cps = HttpPropertiesSingleton.cps();
+        if (cps == null) {
+            return 100;
+        }
+
+        int value = getIntWithDefault(cps, 100, "connection.pool", "max.total");
+        if (value < 1) {
+            return 100;
+        }
+        return value;
+    }
+
+}
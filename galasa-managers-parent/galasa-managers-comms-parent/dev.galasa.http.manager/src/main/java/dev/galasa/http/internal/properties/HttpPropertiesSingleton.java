@@ -0,0 +1,51 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.http.internal.properties;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+
+@Component(service = HttpPropertiesSingleton.class, immediate = true)
+public class HttpPropertiesSingleton {
+
+    private static HttpPropertiesSingleton     instance;
+
+    private IConfigurationPropertyStoreService cps;
+
+    @Activate
+    public void activate() {
+        setInstance(this);
+    }
+
+    @Deactivate
+    public void deacivate() {
+        setInstance(null);
+    }
+
+    /**
+     * @return the CPS, or null if the manager has not been initialised, as for a stand alone client
+     */
+    public static IConfigurationPropertyStoreService cps() {
+        if (instance != null) {
+            return instance.cps;
+        }
+
+        return null;
+    }
+
+    public static void setCps(IConfigurationPropertyStoreService cps) {
+        if (instance != null) {
+            instance.cps = cps;
+        }
+    }
+
+    private static synchronized void setInstance(HttpPropertiesSingleton newInstance) {
+        instance = newInstance;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.galasa.http.ContentType;
+import dev.galasa.http.ExponentialBackoffRetryPolicy;
+import dev.galasa.http.FixedDelayRetryPolicy;
+import dev.galasa.http.HttpClientException;
+import dev.galasa.http.HttpClientResponse;
+import dev.galasa.http.internal.HttpClientImpl;
+
+public class AsyncAndStreamingTest {
+
+    private static final ContentType[] TEXT = new ContentType[] { ContentType.TEXT_PLAIN };
+
+    private HttpServer                 server;
+    private final AtomicInteger        failuresLeft = new AtomicInteger();
+    private final AtomicInteger        attempts     = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            respond(exchange, 200, IOUtils.toByteArray(exchange.getRequestBody()));
+        });
+        server.createContext("/item", exchange -> {
+            respond(exchange, 200, exchange.getRequestURI().getPath().getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/flaky", exchange -> {
+            attempts.incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                respond(exchange, 503, new byte[0]);
+            } else {
+                respond(exchange, 200, "ok".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExecuteAsync() throws Exception {
+        HttpClientImpl client = newClient();
+
+        List<CompletableFuture<HttpClientResponse<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String path = "/item/" + i;
+            futures.add(client.executeAsync(c -> c.getText(path)));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals("Response is incorrect", "/item/" + i,
+                    futures.get(i).get(10, TimeUnit.SECONDS).getContent());
+        }
+
+        CompletableFuture<Object> failed = client.executeAsync(c -> {
+            throw new HttpClientException("expected");
+        });
+        try {
+            failed.get(10, TimeUnit.SECONDS);
+            Assert.fail("Future should have completed exceptionally");
+        } catch (ExecutionException e) {
+            Assert.assertTrue("Cause is incorrect", e.getCause() instanceof HttpClientException);
+        }
+
+        client.close();
+    }
+
+    @Test
+    public void testStreamingBodies() throws Exception {
+        HttpClientImpl client = newClient();
+
+        HttpClientResponse<String> posted = client.postStream("/echo",
+                new ByteArrayInputStream("streamed body".getBytes(StandardCharsets.UTF_8)), ContentType.TEXT_PLAIN);
+        Assert.assertEquals("Echoed body is incorrect", "streamed body", posted.getContent());
+
+        HttpClientResponse<InputStream> streamed = client.getStream("/item/abc", ContentType.TEXT_PLAIN);
+        Assert.assertEquals("Status is incorrect", 200, streamed.getStatusCode());
+        try (InputStream is = streamed.getContent()) {
+            Assert.assertEquals("Streamed body is incorrect", "/item/abc", IOUtils.toString(is, StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals("Connection should be released when the stream is closed", 0,
+                client.getPoolStats().getLeased());
+
+        client.close();
+    }
+
+    @Test
+    public void testRetryPolicy() throws Exception {
+        HttpClientImpl client = newClient();
+
+        failuresLeft.set(2);
+        client.setRetryPolicy(new FixedDelayRetryPolicy(1, 5));
+        Assert.assertEquals("Response is incorrect", "ok",
+                client.post("/flaky", null, ContentType.TEXT_PLAIN, "", TEXT, null, true));
+        Assert.assertEquals("Attempts are incorrect", 3, attempts.get());
+
+        failuresLeft.set(10);
+        attempts.set(0);
+        client.setRetryPolicy(new ExponentialBackoffRetryPolicy(1, 4, 3));
+        try {
+            client.post("/flaky", null, ContentType.TEXT_PLAIN, "", TEXT, null, true);
+            Assert.fail("Retries should have been exhausted");
+        } catch (HttpClientException e) {
+            Assert.assertEquals("Attempts are incorrect", 3, attempts.get());
+        }
+
+        client.close();
+    }
+
+    @Test
+    public void testExponentialBackoffDelays() {
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(100, 1000, 0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue("First delay is out of range", policy.getRetryDelay(1, 503) <= 100);
+            Assert.assertTrue("Third delay is out of range", policy.getRetryDelay(3, 503) <= 400);
+            long delay = policy.getRetryDelay(200, 503);
+            Assert.assertTrue("Delay should be capped", delay >= 0 && delay <= 1000);
+        }
+        Assert.assertEquals("Attempts should be limited", -1,
+                new ExponentialBackoffRetryPolicy(100, 1000, 2).getRetryDelay(2, 503));
+    }
+
+    private HttpClientImpl newClient() {
+        HttpClientImpl client = new HttpClientImpl(10000, LogFactory.getLog(AsyncAndStreamingTest.class));
+        client.setURI(URI.create("http://127.0.0.1:" + server.getAddress().getPort()));
+        return client;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/plain");
+        if (body.length == 0) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.getResponseBody().close();
+            return;
+        }
+
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import dev.galasa.http.HttpClientResponse;
+import dev.galasa.http.internal.HttpClientImpl;
+
+public class ConnectionPoolTest {
+
+    private HttpServer        server;
+    private ExecutorService   serverExecutor;
+    private final Set<String> clientAddresses = Collections.synchronizedSet(new HashSet<>());
+    private final CountDownLatch slowRequestStarted = new CountDownLatch(1);
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            clientAddresses.add(exchange.getRemoteAddress().toString());
+            byte[] body = "hello".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            slowRequestStarted.countDown();
+            try {
+                Thread.sleep(1500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "slow".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        // *** Serve the slow request and the others at the same time
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testConnectionIsReused() throws Exception {
+        HttpClientImpl client = newClient();
+        Assert.assertNull("Pool should not exist before the client is used", client.getPoolStats());
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals("Response is incorrect", "hello", client.getText("/test").getContent());
+        }
+
+        Assert.assertEquals("Only one connection should have been opened", 1, clientAddresses.size());
+        PoolStats stats = client.getPoolStats();
+        Assert.assertEquals("Connection should be back in the pool", 1, stats.getAvailable());
+        Assert.assertEquals("No connections should be leased", 0, stats.getLeased());
+
+        client.close();
+        Assert.assertNull("Pool should be closed with the client", client.getPoolStats());
+    }
+
+    @Test
+    public void testConfigurationChangeRebuildsClient() throws Exception {
+        HttpClientImpl client = newClient();
+        client.getText("/test");
+        client.getText("/test");
+        Assert.assertEquals("Only one connection should have been opened", 1, clientAddresses.size());
+
+        client.setSSLContext(SSLContext.getDefault());
+        client.getText("/test");
+        Assert.assertEquals("A new pool should have been used", 2, clientAddresses.size());
+
+        client.close();
+    }
+
+    @Test
+    public void testRebuildDoesNotCloseLiveRequests() throws Exception {
+        HttpClientImpl client = newClient();
+        CompletableFuture<HttpClientResponse<String>> slow = client.executeAsync(c -> c.getText("/slow"));
+        Assert.assertTrue("Slow request should have reached the server", slowRequestStarted.await(5, TimeUnit.SECONDS));
+
+        client.setSSLContext(SSLContext.getDefault());
+        client.build();
+        Assert.assertEquals("Request on the new pool should succeed", "hello", client.getText("/test").getContent());
+        Assert.assertEquals("Request on the replaced pool should complete", "slow", slow.get(10, TimeUnit.SECONDS).getContent());
+
+        client.close();
+    }
+
+    private HttpClientImpl newClient() {
+        HttpClientImpl client = new HttpClientImpl(10000, LogFactory.getLog(ConnectionPoolTest.class));
+        client.setURI(URI.create("http://127.0.0.1:" + server.getAddress().getPort()));
+        return client;
+    }
+
+}
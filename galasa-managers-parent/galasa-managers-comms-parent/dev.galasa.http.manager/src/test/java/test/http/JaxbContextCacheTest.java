@@ -0,0 +1,41 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.http.internal.JaxbContextCache;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+public class JaxbContextCacheTest {
+
+    @Test
+    public void testSameClassesReturnSameContext() throws Exception {
+        JAXBContext context = JaxbContextCache.getContext(Order.class, Item.class);
+        Assert.assertSame("The same classes should return the cached context", context, JaxbContextCache.getContext(Order.class, Item.class));
+        Assert.assertSame("The order of the classes should not matter", context, JaxbContextCache.getContext(Item.class, Order.class));
+        Assert.assertSame("Repeated classes should not matter", context, JaxbContextCache.getContext(Item.class, Order.class, Item.class));
+    }
+
+    @Test
+    public void testDifferentClassesReturnDifferentContexts() throws Exception {
+        JAXBContext context = JaxbContextCache.getContext(Order.class, Item.class);
+        Assert.assertNotSame("A different set of classes should have its own context", context, JaxbContextCache.getContext(Order.class));
+        Assert.assertNotSame("A different set of classes should have its own context", context, JaxbContextCache.getContext(Item.class));
+    }
+
+    @XmlRootElement
+    public static class Order {
+        public String id;
+    }
+
+    @XmlRootElement
+    public static class Item {
+        public String name;
+    }
+}
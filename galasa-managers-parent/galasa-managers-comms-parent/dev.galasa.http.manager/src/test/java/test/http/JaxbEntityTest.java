@@ -0,0 +1,67 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.http.internal.JaxbContextCache;
+import dev.galasa.http.internal.JaxbEntity;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+public class JaxbEntityTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        JAXBContext context = JaxbContextCache.getContext(Greeting.class);
+        JaxbEntity entity = new JaxbEntity(context, new Greeting("hello"));
+
+        try (InputStream content = entity.getContent()) {
+            Greeting greeting = (Greeting) context.createUnmarshaller().unmarshal(content);
+            Assert.assertEquals("The entity should unmarshal to the object it was created from", "hello", greeting.text);
+        }
+    }
+
+    @Test
+    public void testRepeatableWithLength() throws Exception {
+        JaxbEntity entity = new JaxbEntity(JaxbContextCache.getContext(Greeting.class), new Greeting("hello"));
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        entity.writeTo(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        entity.writeTo(second);
+
+        Assert.assertTrue("The entity should be repeatable, so a retry can resend it", entity.isRepeatable());
+        Assert.assertArrayEquals("Each write should send the same body", first.toByteArray(), second.toByteArray());
+        Assert.assertFalse("The entity should not be sent chunked", entity.isChunked());
+        Assert.assertEquals("The entity should be sent with its length", first.size(), entity.getContentLength());
+    }
+
+    @Test
+    public void testMarshalFailure() throws Exception {
+        JAXBContext context = JaxbContextCache.getContext(Greeting.class);
+        Assert.assertThrows("A marshalling failure should be thrown when the entity is created", JAXBException.class, ()->{
+            new JaxbEntity(context, "not a JAXB object");
+        });
+    }
+
+    @XmlRootElement
+    public static class Greeting {
+        public String text;
+
+        public Greeting() {
+        }
+
+        public Greeting(String text) {
+            this.text = text;
+        }
+    }
+}
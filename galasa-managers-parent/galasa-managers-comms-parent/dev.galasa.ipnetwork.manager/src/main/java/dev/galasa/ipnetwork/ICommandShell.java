@@ -1,10 +1,12 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2019,2020.
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.ipnetwork;
 
+import java.io.OutputStream;
+
 public interface ICommandShell {
 
     public String issueCommand(String command) throws IpNetworkManagerException;
@@ -44,6 +46,24 @@ public interface ICommandShell {
      */
     public String issueCommand(String command, boolean newShell, long timeout) throws IpNetworkManagerException;
 
+    /**
+     * Issue a command using SSH, passing the output on as it arrives. The streams
+     * are written to by the thread reading the connection, so must not block. With
+     * a stderr stream the command runs without a terminal, so its stderr is kept
+     * apart from its stdout
+     * 
+     * @param command - command to issue
+     * @param timeout - time (in milliseconds) to wait with no new output appearing
+     *                before timing out
+     * @param stdout  - stream to be passed the stdout of the command as it
+     *                arrives, or null
+     * @param stderr  - stream to be passed the stderr of the command as it
+     *                arrives, or null
+     * @return the output of the command (stdout and stderr)
+     * @throws IpNetworkManagerException
+     */
+    public String issueCommand(String command, long timeout, OutputStream stdout, OutputStream stderr) throws IpNetworkManagerException;
+
 //	public void changeUser(String userid, String password);
 
     public void connect() throws IpNetworkManagerException;
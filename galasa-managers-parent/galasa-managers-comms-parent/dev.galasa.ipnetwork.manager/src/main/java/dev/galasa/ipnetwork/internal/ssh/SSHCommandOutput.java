@@ -0,0 +1,248 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.ipnetwork.internal.ssh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.ipnetwork.SSHException;
+
+/**
+ * Collects the output of a channel as JSch delivers it, so a command completes as soon as its output ends or the
+ * response is found, rather than when the channel is next polled.
+ * <br>
+ * The streams are given to the channel with setOutputStream and setExtOutputStream, JSch writes to them from the
+ * session thread and closes the output stream at the end of the output. Both are passed on to the optional
+ * consumers as they arrive, which must not block as the other channels of the session wait for them.
+ * <br>
+ * A response pattern ends with a terminator, the shell prompt. Only the new output is searched for the terminator,
+ * and the pattern is matched against the whole output only when another terminator arrives.
+ */
+class SSHCommandOutput {
+
+    private static final Log    logger    = LogFactory.getLog(SSHCommandOutput.class);
+
+    private final OutputBuffer  output    = new OutputBuffer();
+
+    private final OutputStream  outStream = new ChannelStream(false);
+    private final OutputStream  errStream = new ChannelStream(true);
+
+    private Pattern             responsePattern;
+    private byte[]              terminator;
+    private int                 searched;
+    private OutputStream        outConsumer;
+    private OutputStream        errConsumer;
+
+    private String              response;
+    private boolean             ended;
+    private boolean             timedOut;
+    private long                lastReceived;
+    // Counts the waits, so the timeout of an earlier wait stops
+    private int                 waits;
+
+    /**
+     * @return the stream for the channel output
+     */
+    OutputStream getOutputStream() {
+        return outStream;
+    }
+
+    /**
+     * @return the stream for the channel extended output, stderr
+     */
+    OutputStream getErrStream() {
+        return errStream;
+    }
+
+    /**
+     * Discard the output so far and start collecting the output of the next command
+     *
+     * @param responsePattern the response is group 1 of the first match of the pattern in the output, or null if the
+     *                        response is all of the output to the end
+     * @param terminator      the text the response pattern ends with, or null if there is no response pattern
+     * @param outConsumer     the stream to be passed the stdout of the command as it arrives, or null
+     * @param errConsumer     the stream to be passed the stderr of the command as it arrives, or null
+     */
+    synchronized void start(Pattern responsePattern, String terminator, OutputStream outConsumer, OutputStream errConsumer) {
+        this.output.reset();
+        this.responsePattern = responsePattern;
+        this.terminator = (terminator == null) ? null : terminator.getBytes();
+        this.searched = 0;
+        this.outConsumer = outConsumer;
+        this.errConsumer = errConsumer;
+        this.response = null;
+        this.timedOut = false;
+        this.lastReceived = System.currentTimeMillis();
+    }
+
+    /**
+     * Wait for the response
+     *
+     * @param timeout the time in milliseconds to wait with no new output arriving
+     * @return the response
+     * @throws SSHException if the time runs out, or the output ends before the response pattern is found
+     */
+    String waitForResponse(long timeout) throws SSHException, InterruptedException {
+        synchronized (this) {
+            this.waits++;
+            scheduleTimeout(this.waits, timeout, timeout);
+            while (this.response == null) {
+                if (this.ended) {
+                    if (this.responsePattern == null) {
+                        this.response = this.output.toString();
+                        break;
+                    }
+                    throw new SSHException("Output ended waiting for response from ssh. Response so far: " + this.output);
+                }
+                if (this.timedOut) {
+                    throw new SSHException("Timed out waiting for response from ssh. Response so far: " + this.output);
+                }
+                wait();
+            }
+            this.outConsumer = null;
+            this.errConsumer = null;
+            return this.response;
+        }
+    }
+
+    /**
+     * The timeout restarts whenever output arrives. Rather than being rescheduled for each piece of output, when it
+     * runs it checks when the output last arrived and waits again for the rest of the time
+     */
+    private void scheduleTimeout(int wait, long timeout, long delay) {
+        SSHSessionPool.schedule(() -> checkTimeout(wait, timeout), delay);
+    }
+
+    private synchronized void checkTimeout(int wait, long timeout) {
+        if (wait != this.waits || this.response != null || this.ended) {
+            return;
+        }
+        long remaining = this.lastReceived + timeout - System.currentTimeMillis();
+        if (remaining > 0) {
+            scheduleTimeout(wait, timeout, remaining);
+            return;
+        }
+        this.timedOut = true;
+        notifyAll();
+    }
+
+    private synchronized void received(boolean err, byte[] b, int off, int len) {
+        this.output.write(b, off, len);
+        this.lastReceived = System.currentTimeMillis();
+
+        OutputStream consumer = err ? this.errConsumer : this.outConsumer;
+        if (consumer != null) {
+            try {
+                consumer.write(b, off, len);
+            } catch (IOException e) {
+                // The command goes on without the consumer
+                logger.warn("Unable to pass on the output of the ssh command", e);
+                dropConsumer(err);
+            }
+        }
+
+        if (this.responsePattern != null && this.response == null) {
+            findResponse();
+        }
+    }
+
+    /**
+     * Search the output since the last search, overlapping it by a terminator less one byte, for a new terminator,
+     * and only then try the response pattern
+     */
+    private void findResponse() {
+        int from = Math.max(0, this.searched - this.terminator.length + 1);
+        this.searched = this.output.size();
+        if (this.output.indexOf(this.terminator, from) < 0) {
+            return;
+        }
+
+        Matcher matcher = this.responsePattern.matcher(this.output.toString());
+        if (matcher.find()) {
+            this.response = matcher.group(1);
+            notifyAll();
+        }
+    }
+
+    private synchronized void flushConsumer(boolean err) {
+        OutputStream consumer = err ? this.errConsumer : this.outConsumer;
+        if (consumer != null) {
+            try {
+                consumer.flush();
+            } catch (IOException e) {
+                logger.warn("Unable to pass on the output of the ssh command", e);
+                dropConsumer(err);
+            }
+        }
+    }
+
+    private void dropConsumer(boolean err) {
+        if (err) {
+            this.errConsumer = null;
+        } else {
+            this.outConsumer = null;
+        }
+    }
+
+    private synchronized void end() {
+        this.ended = true;
+        notifyAll();
+    }
+
+    private static class OutputBuffer extends ByteArrayOutputStream {
+
+        private int indexOf(byte[] target, int from) {
+            int last = this.count - target.length;
+            for (int i = from; i <= last; i++) {
+                int j = 0;
+                while (j < target.length && this.buf[i + j] == target[j]) {
+                    j++;
+                }
+                if (j == target.length) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private class ChannelStream extends OutputStream {
+
+        private final boolean err;
+
+        private ChannelStream(boolean err) {
+            this.err = err;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            received(err, b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            flushConsumer(err);
+        }
+
+        @Override
+        public void close() {
+            if (!err) {
+                end();
+            }
+        }
+    }
+}
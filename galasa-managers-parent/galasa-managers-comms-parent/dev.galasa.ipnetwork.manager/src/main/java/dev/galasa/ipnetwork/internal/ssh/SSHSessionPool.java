@@ -0,0 +1,682 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.ipnetwork.internal.ssh;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.ChannelShell;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import dev.galasa.ICredentials;
+import dev.galasa.ICredentialsUsernamePassword;
+import dev.galasa.ICredentialsUsernameToken;
+import dev.galasa.ipnetwork.SSHAuthFailException;
+import dev.galasa.ipnetwork.SSHException;
+
+/**
+ * The SSH sessions to a host for a set of credentials, shared by all the command shells and file systems using them.
+ * <br>
+ * A bounded number of sessions is connected, each carrying several channels at once, so commands and file
+ * operations can run in parallel against the same host. SFTP channels are kept open between file operations and
+ * reused. A session is disconnected once it has had no channel in use for the idle timeout, a shell counts as in use
+ * until it is released. All the sessions are disconnected when the last command shell or file system using the pool
+ * disconnects, and the pool is forgotten once it has no sessions, until it connects again.
+ */
+public class SSHSessionPool {
+
+    private static final Log                         logger                   = LogFactory.getLog(SSHSessionPool.class);
+
+    private static final int                         MAX_SESSIONS             = 4;
+    // Below the OpenSSH default MaxSessions of 10
+    private static final int                         MAX_CHANNELS_PER_SESSION = 8;
+    private static final long                        IDLE_TIMEOUT             = 60000;
+    private static final long                        CHANNEL_WAIT_TIMEOUT     = 60000;
+    private static final int                         CONNECT_RETRIES          = 5;
+
+    private static final Map<String, SSHSessionPool> pools                    = new HashMap<>();
+    private static ScheduledExecutorService          scheduler;
+
+    private final String                             key;
+    private final String                             hostname;
+    private final int                                port;
+    private final String                             userid;
+    private final String                             password;
+    private final JSch                               sshClient;
+
+    private final int                                maxSessions;
+    private final int                                maxChannelsPerSession;
+    private final long                               idleTimeout;
+    private final long                               channelWaitTimeout;
+
+    private final List<PooledSession>                sessions                 = new ArrayList<>();
+    private final Map<Channel, PooledSession>        channels                 = new IdentityHashMap<>();
+    private final Set<Channel>                       leasedChannels           = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Deque<ChannelSftp>                 idleSftpChannels         = new ArrayDeque<>();
+    private final Set<Object>                        users                    = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int                                      connectingSessions;
+
+    private long                                     sessionsCreated;
+    private long                                     channelsOpened;
+    private long                                     sftpChannelsReused;
+    private long                                     channelWaits;
+
+    SSHSessionPool(String key, String hostname, int port, String userid, String password, JSch sshClient,
+            int maxSessions, int maxChannelsPerSession, long idleTimeout, long channelWaitTimeout) {
+        this.key = key;
+        this.hostname = hostname;
+        this.port = port;
+        this.userid = userid;
+        this.password = password;
+        this.sshClient = sshClient;
+        this.maxSessions = maxSessions;
+        this.maxChannelsPerSession = maxChannelsPerSession;
+        this.idleTimeout = idleTimeout;
+        this.channelWaitTimeout = channelWaitTimeout;
+    }
+
+    /**
+     * Find the pool for a host and credentials, creating it if this is the first use
+     *
+     * @throws SSHException if the credentials are not supported
+     */
+    public static SSHSessionPool getPool(String hostname, int port, ICredentials credentials) throws SSHException {
+        String userid;
+        String password = null;
+        byte[] token = null;
+        if (credentials instanceof ICredentialsUsernamePassword) {
+            ICredentialsUsernamePassword creds = (ICredentialsUsernamePassword) credentials;
+            userid = creds.getUsername();
+            password = creds.getPassword();
+        } else if (credentials instanceof ICredentialsUsernameToken) {
+            ICredentialsUsernameToken creds = (ICredentialsUsernameToken) credentials;
+            userid = creds.getUsername();
+            token = creds.getToken();
+        } else {
+            throw new SSHException("Unsupported credentials type - " + credentials.getClass().getName());
+        }
+
+        // The credentials are part of the key so a changed password gets new sessions
+        String secret = (token != null) ? DigestUtils.sha256Hex(token) : DigestUtils.sha256Hex(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+        String key = hostname + ":" + port + ":" + userid + ":" + secret;
+
+        synchronized (pools) {
+            SSHSessionPool pool = pools.get(key);
+            if (pool == null) {
+                JSch sshClient = new JSch();
+                if (token != null) {
+                    try {
+                        sshClient.addIdentity(userid, token, null, null);
+                    } catch (JSchException e) {
+                        throw new SSHException("Problem adding credentials to SSH", e);
+                    }
+                }
+                pool = new SSHSessionPool(key, hostname, port, userid, password, sshClient, MAX_SESSIONS,
+                        MAX_CHANNELS_PER_SESSION, IDLE_TIMEOUT, CHANNEL_WAIT_TIMEOUT);
+                pool.register();
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Run a task after a delay on the thread that monitors the sessions, for the timeouts of the commands using them.
+     * The task must not block
+     *
+     * @param task  the task to run
+     * @param delay the delay in milliseconds
+     * @return the future to cancel the task with
+     */
+    static ScheduledFuture<?> schedule(Runnable task, long delay) {
+        return getScheduler().schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledExecutorService getScheduler() {
+        synchronized (pools) {
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "GalasaSSHClient timeout thread");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                scheduler.scheduleWithFixedDelay(SSHSessionPool::disconnectIdleSessions, 1, 1, TimeUnit.SECONDS);
+            }
+            return scheduler;
+        }
+    }
+
+    /**
+     * @return the metrics of all the pools
+     */
+    public static List<Metrics> getAllMetrics() {
+        List<SSHSessionPool> allPools;
+        synchronized (pools) {
+            allPools = new ArrayList<>(pools.values());
+        }
+        List<Metrics> metrics = new ArrayList<>();
+        for (SSHSessionPool pool : allPools) {
+            metrics.add(pool.getMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Make sure there is a connected session, the user is counted as using the pool until it disconnects
+     *
+     * @param user the command shell or file system using the pool
+     * @throws SSHException if a session could not be connected
+     */
+    public void connect(Object user) throws SSHException {
+        synchronized (this) {
+            this.users.add(user);
+            removeDisconnectedSessions();
+            if (!this.sessions.isEmpty()) {
+                return;
+            }
+            this.connectingSessions++;
+        }
+
+        PooledSession created = null;
+        try {
+            created = new PooledSession(createSession());
+        } finally {
+            connected(created);
+        }
+    }
+
+    /**
+     * The user no longer needs the pool, the sessions are disconnected if nothing else is using them
+     *
+     * @param user the command shell or file system using the pool
+     */
+    public synchronized void disconnect(Object user) {
+        this.users.remove(user);
+        if (!this.users.isEmpty()) {
+            return;
+        }
+
+        for (PooledSession pooled : this.sessions) {
+            pooled.session.disconnect();
+        }
+        if (!this.sessions.isEmpty()) {
+            logger.trace("SSH Client disconnected from '" + hostname + ":" + port + "', " + getMetrics());
+        }
+        this.sessions.clear();
+        this.channels.clear();
+        this.leasedChannels.clear();
+        this.idleSftpChannels.clear();
+        unregisterIfUnused();
+        notifyAll();
+    }
+
+    /**
+     * Open an exec channel, which is in use until it is released
+     */
+    public ChannelExec openExecChannel() throws SSHException {
+        return (ChannelExec) openChannel("exec", true);
+    }
+
+    /**
+     * Open a shell channel, which is in use until it is released, so the session carrying it is not disconnected
+     * under it
+     */
+    public ChannelShell openShellChannel() throws SSHException {
+        return (ChannelShell) openChannel("shell", true);
+    }
+
+    /**
+     * Borrow a connected SFTP channel, reusing an idle one if there is one
+     */
+    public ChannelSftp borrowSftpChannel() throws SSHException {
+        synchronized (this) {
+            while (!this.idleSftpChannels.isEmpty()) {
+                ChannelSftp channel = this.idleSftpChannels.pop();
+                PooledSession pooled = this.channels.get(channel);
+                if (pooled != null && pooled.session.isConnected() && channel.isConnected() && !channel.isClosed()) {
+                    this.leasedChannels.add(channel);
+                    pooled.leases++;
+                    pooled.lastUsed = System.currentTimeMillis();
+                    this.sftpChannelsReused++;
+                    return channel;
+                }
+                forget(channel);
+            }
+        }
+
+        ChannelSftp channel = (ChannelSftp) openChannel("sftp", true);
+        try {
+            channel.connect();
+        } catch (JSchException e) {
+            releaseChannel(channel);
+            throw new SSHException("Unable to open a sftp channel to the server", e);
+        }
+        return channel;
+    }
+
+    /**
+     * Return a borrowed SFTP channel so it can be reused
+     */
+    public void returnSftpChannel(ChannelSftp channel) {
+        synchronized (this) {
+            PooledSession pooled = this.channels.get(channel);
+            if (pooled != null && pooled.session.isConnected() && channel.isConnected() && !channel.isClosed()) {
+                if (this.leasedChannels.remove(channel)) {
+                    pooled.leases--;
+                }
+                pooled.lastUsed = System.currentTimeMillis();
+                this.idleSftpChannels.push(channel);
+                notifyAll();
+                return;
+            }
+        }
+        releaseChannel(channel);
+    }
+
+    /**
+     * Disconnect a channel and free its place on the session
+     */
+    public void releaseChannel(Channel channel) {
+        channel.disconnect();
+        synchronized (this) {
+            forget(channel);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Record that a channel kept open has been used, so its session stays idle for the full timeout once the channel
+     * is released
+     */
+    public synchronized void touch(Channel channel) {
+        PooledSession pooled = this.channels.get(channel);
+        if (pooled != null) {
+            pooled.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized Metrics getMetrics() {
+        int connectedSessions = 0;
+        int channelsInUse = 0;
+        for (PooledSession pooled : this.sessions) {
+            if (pooled.session.isConnected()) {
+                connectedSessions++;
+            }
+            channelsInUse += pooled.leases;
+        }
+        return new Metrics(this.hostname, this.port, this.userid, connectedSessions, this.channels.size(), channelsInUse,
+                this.idleSftpChannels.size(), this.sessionsCreated, this.channelsOpened, this.sftpChannelsReused,
+                this.channelWaits);
+    }
+
+    private Channel openChannel(String type, boolean leased) throws SSHException {
+        while (true) {
+            PooledSession pooled = reserveChannel();
+            try {
+                Channel channel = pooled.session.openChannel(type);
+                synchronized (this) {
+                    this.channels.put(channel, pooled);
+                    if (leased) {
+                        this.leasedChannels.add(channel);
+                        pooled.leases++;
+                    }
+                    this.channelsOpened++;
+                }
+                return channel;
+            } catch (JSchException e) {
+                synchronized (this) {
+                    pooled.channels--;
+                    notifyAll();
+                }
+                // The session may have dropped since it was reserved, try the others
+                if (pooled.session.isConnected()) {
+                    throw new SSHException("Unable to open a " + type + " channel to '" + hostname + ":" + port + "'", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserve a place for a channel on the least used session, connecting another session if they are all full and
+     * there are fewer than the maximum, otherwise waiting for a channel to be released
+     */
+    private PooledSession reserveChannel() throws SSHException {
+        long deadline = System.currentTimeMillis() + this.channelWaitTimeout;
+        boolean waited = false;
+        synchronized (this) {
+            while (true) {
+                removeDisconnectedSessions();
+
+                PooledSession leastUsed = null;
+                for (PooledSession pooled : this.sessions) {
+                    if (pooled.channels < this.maxChannelsPerSession && (leastUsed == null || pooled.channels < leastUsed.channels)) {
+                        leastUsed = pooled;
+                    }
+                }
+                if (leastUsed != null) {
+                    leastUsed.channels++;
+                    leastUsed.lastUsed = System.currentTimeMillis();
+                    return leastUsed;
+                }
+
+                // An idle SFTP channel can make room
+                if (!this.idleSftpChannels.isEmpty()) {
+                    ChannelSftp channel = this.idleSftpChannels.removeLast();
+                    channel.disconnect();
+                    forget(channel);
+                    continue;
+                }
+
+                if (this.sessions.size() + this.connectingSessions < this.maxSessions) {
+                    this.connectingSessions++;
+                    break;
+                }
+
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    throw new SSHException("Timed out waiting for a free SSH channel to '" + hostname + ":" + port + "'");
+                }
+                if (!waited) {
+                    this.channelWaits++;
+                    waited = true;
+                }
+                try {
+                    wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SSHException("Interrupted waiting for a free SSH channel", e);
+                }
+            }
+        }
+
+        PooledSession created = null;
+        try {
+            created = new PooledSession(createSession());
+            created.channels++;
+            return created;
+        } finally {
+            connected(created);
+        }
+    }
+
+    /**
+     * Add a session once it has connected, or give up the place kept for it if it did not
+     */
+    private synchronized void connected(PooledSession created) {
+        this.connectingSessions--;
+        if (created != null) {
+            this.sessions.add(created);
+            register();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Connect a session, retrying if the connection fails for a reason other than authentication
+     */
+    private Session createSession() throws SSHException {
+        int retry = CONNECT_RETRIES;
+        while (true) {
+            Session session = null;
+            try {
+                session = sshClient.getSession(this.userid, hostname, port);
+                session.setIdentityRepository(sshClient.getIdentityRepository());
+                if (this.password != null) {
+                    session.setPassword(this.password);
+                }
+                session.setConfig("StrictHostKeyChecking", "no");
+
+                session.connect();
+
+                // Slight delay to allow the connection to stabilise
+                Thread.sleep(200); // NOSONAR - Sleep is sufficent
+
+                logger.trace("SSH Client connected to '" + hostname + ":" + port);
+                synchronized (this) {
+                    this.sessionsCreated++;
+                }
+
+                return session;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (session != null) {
+                    session.disconnect();
+                }
+                throw new SSHException("Interrupted trying to authenticate using SSH", e);
+            } catch (Exception e) {
+                if ("Auth fail".equals(e.getMessage())) {
+                    throw new SSHAuthFailException(e);
+                }
+
+                if (retry <= 0) {
+                    throw new SSHException("Unrecognised exception in connection", e);
+                }
+
+                logger.trace("Exception caught during SSH connection, will retry.", e);
+                if (session != null && session.isConnected()) {
+                    session.disconnect();
+                }
+                retry--;
+                try {
+                    Thread.sleep(5000); // NOSONAR - Sleep is sufficent
+                } catch (InterruptedException e1) {
+                    Thread.currentThread().interrupt();
+                    throw new SSHException("Interrupted while trying to retrieve output", e1);
+                }
+            }
+        }
+    }
+
+    private void forget(Channel channel) {
+        PooledSession pooled = this.channels.remove(channel);
+        if (pooled != null) {
+            pooled.channels--;
+            if (this.leasedChannels.remove(channel)) {
+                pooled.leases--;
+            }
+            pooled.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    private void removeDisconnectedSessions() {
+        Iterator<PooledSession> i = this.sessions.iterator();
+        while (i.hasNext()) {
+            PooledSession pooled = i.next();
+            if (!pooled.session.isConnected()) {
+                i.remove();
+                removeChannels(pooled);
+            }
+        }
+    }
+
+    private void removeChannels(PooledSession pooled) {
+        this.channels.values().removeIf(channelSession -> channelSession == pooled);
+        this.leasedChannels.removeIf(channel -> !this.channels.containsKey(channel));
+        this.idleSftpChannels.removeIf(channel -> !this.channels.containsKey(channel));
+    }
+
+    private static void disconnectIdleSessions() {
+        List<SSHSessionPool> allPools;
+        synchronized (pools) {
+            allPools = new ArrayList<>(pools.values());
+        }
+        for (SSHSessionPool pool : allPools) {
+            pool.disconnectIdle();
+        }
+    }
+
+    /**
+     * Disconnect the sessions with no channel in use for the idle timeout
+     */
+    synchronized void disconnectIdle() {
+        long idleSince = System.currentTimeMillis() - this.idleTimeout;
+        Iterator<PooledSession> i = this.sessions.iterator();
+        while (i.hasNext()) {
+            PooledSession pooled = i.next();
+            if (pooled.leases == 0 && pooled.lastUsed <= idleSince) {
+                logger.debug("No command issued after " + this.idleTimeout + " milliseconds, closing SSH session");
+                pooled.session.disconnect();
+                i.remove();
+                removeChannels(pooled);
+            }
+        }
+        unregisterIfUnused();
+    }
+
+    /**
+     * Make the pool the one found for its host and credentials, unless another has been created since it was
+     * forgotten
+     */
+    private void register() {
+        synchronized (pools) {
+            pools.putIfAbsent(this.key, this);
+
+            // Start monitoring the sessions for idleness
+            getScheduler();
+        }
+    }
+
+    private void unregisterIfUnused() {
+        if (this.sessions.isEmpty() && this.connectingSessions == 0) {
+            synchronized (pools) {
+                pools.remove(this.key, this);
+            }
+        }
+    }
+
+    /**
+     * A connected session and the channels open on it
+     */
+    private static class PooledSession {
+        private final Session session;
+        // The channels open on the session, and those of them in use by a command, shell or file operation
+        private int           channels;
+        private int           leases;
+        private long          lastUsed = System.currentTimeMillis();
+
+        private PooledSession(Session session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * A snapshot of the use of a pool
+     */
+    public static class Metrics {
+        private final String hostname;
+        private final int    port;
+        private final String userid;
+        private final int    sessions;
+        private final int    channels;
+        private final int    channelsInUse;
+        private final int    idleSftpChannels;
+        private final long   sessionsCreated;
+        private final long   channelsOpened;
+        private final long   sftpChannelsReused;
+        private final long   channelWaits;
+
+        private Metrics(String hostname, int port, String userid, int sessions, int channels, int channelsInUse,
+                int idleSftpChannels, long sessionsCreated, long channelsOpened, long sftpChannelsReused,
+                long channelWaits) {
+            this.hostname = hostname;
+            this.port = port;
+            this.userid = userid;
+            this.sessions = sessions;
+            this.channels = channels;
+            this.channelsInUse = channelsInUse;
+            this.idleSftpChannels = idleSftpChannels;
+            this.sessionsCreated = sessionsCreated;
+            this.channelsOpened = channelsOpened;
+            this.sftpChannelsReused = sftpChannelsReused;
+            this.channelWaits = channelWaits;
+        }
+
+        public String getHostname() {
+            return hostname;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public String getUserid() {
+            return userid;
+        }
+
+        /**
+         * @return the number of connected sessions
+         */
+        public int getSessions() {
+            return sessions;
+        }
+
+        /**
+         * @return the number of channels open, including idle SFTP channels
+         */
+        public int getChannels() {
+            return channels;
+        }
+
+        /**
+         * @return the number of channels in use by a command, shell or file operation
+         */
+        public int getChannelsInUse() {
+            return channelsInUse;
+        }
+
+        public int getIdleSftpChannels() {
+            return idleSftpChannels;
+        }
+
+        public long getSessionsCreated() {
+            return sessionsCreated;
+        }
+
+        public long getChannelsOpened() {
+            return channelsOpened;
+        }
+
+        public long getSftpChannelsReused() {
+            return sftpChannelsReused;
+        }
+
+        /**
+         * @return the number of times a channel had to wait for another to be released
+         */
+        public long getChannelWaits() {
+            return channelWaits;
+        }
+
+        @Override
+        public String toString() {
+            return "sessions=" + sessions + " channels=" + channels + " channelsInUse=" + channelsInUse
+                    + " idleSftpChannels=" + idleSftpChannels + " sessionsCreated=" + sessionsCreated
+                    + " channelsOpened=" + channelsOpened + " sftpChannelsReused=" + sftpChannelsReused
+                    + " channelWaits=" + channelWaits;
+        }
+    }
+}
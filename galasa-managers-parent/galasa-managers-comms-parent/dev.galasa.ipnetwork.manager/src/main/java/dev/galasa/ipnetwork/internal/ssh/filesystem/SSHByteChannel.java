@@ -41,6 +41,8 @@ public class SSHByteChannel implements SeekableByteChannel {
     private final InputStream   inputStream;
     private final OutputStream  outputStream;
 
+    private boolean             closed   = false;
+
     public SSHByteChannel(Path path, Set<? extends OpenOption> options, SSHFileSystem fileSystem) throws SSHException {
         this.fileSystem = fileSystem;
         this.path = path.toAbsolutePath();
@@ -64,6 +66,7 @@ public class SSHByteChannel implements SeekableByteChannel {
                 inputStream = this.channel.get(this.path.toString());
             }
         } catch (SftpException e) {
+            this.fileSystem.returnFileChannel(this.channel);
             throw new SSHException("Unable to open SSH file " + this.path, e);
         }
     }
@@ -75,7 +78,7 @@ public class SSHByteChannel implements SeekableByteChannel {
      */
     @Override
     public boolean isOpen() {
-        return this.channel.isConnected();
+        return !this.closed && this.channel.isConnected();
     }
 
     /*
@@ -85,13 +88,24 @@ public class SSHByteChannel implements SeekableByteChannel {
      */
     @Override
     public void close() throws IOException {
-        if (inputStream != null) {
-            inputStream.close();
+        if (this.closed) {
+            return;
         }
-        if (outputStream != null) {
-            outputStream.close();
+        this.closed = true;
+
+        try {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+            if (outputStream != null) {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            // The transfer may not have finished, so the sftp channel cannot be reused
+            this.fileSystem.releaseFileChannel(this.channel);
+            throw e;
         }
-        this.channel.disconnect();
+        this.fileSystem.returnFileChannel(this.channel);
     }
 
     /*
@@ -1,7 +1,7 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2019.
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.ipnetwork.internal.ssh.filesystem;
 
@@ -46,7 +46,7 @@ public class SSHDirectoryStream implements DirectoryStream<Path> {
             throw new IOException("Unable to get directory listing", e);
         } finally {
             if (channel != null) {
-                channel.disconnect();
+                fileSystem.returnFileChannel(channel);
             }
         }
 
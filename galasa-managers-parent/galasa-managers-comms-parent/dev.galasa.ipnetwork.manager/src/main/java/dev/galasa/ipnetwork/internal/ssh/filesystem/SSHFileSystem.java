@@ -1,7 +1,7 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2019,2020.
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.ipnetwork.internal.ssh.filesystem;
 
@@ -17,69 +17,25 @@ import java.util.ArrayList;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
-import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelSftp;
-import com.jcraft.jsch.JSch;
-import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
 
 import dev.galasa.ICredentials;
-import dev.galasa.ICredentialsUsernamePassword;
-import dev.galasa.ICredentialsUsernameToken;
 import dev.galasa.ipnetwork.SSHException;
+import dev.galasa.ipnetwork.internal.ssh.SSHSessionPool;
 
 public class SSHFileSystem extends FileSystem {
 
-    private final Log                   logger = LogFactory.getLog(SSHFileSystemProvider.class);
-
-    private final String                hostname;
-    private final int                   port;
-    private final String                userid;
-    private final String                password;
-
-    private JSch                        sshClient;
-    private Session                     session;
+    private final SSHSessionPool        pool;
 
     private final SSHFileStore          fileStore;
     private final SSHFileSystemProvider fileSystemProvider;
 
     public SSHFileSystem(String hostname, int port, ICredentials credentials) throws SSHException {
 
-        this.hostname = hostname;
-        this.port = port;
-
         this.fileStore = new SSHFileStore("sshfilestore-" + hostname);
         this.fileSystemProvider = new SSHFileSystemProvider(this);
 
-        this.sshClient = new JSch();
-        this.session = null;
-
-        try {
-            if (credentials instanceof ICredentialsUsernamePassword) {
-                ICredentialsUsernamePassword creds = (ICredentialsUsernamePassword) credentials;
-                this.userid = creds.getUsername();
-                this.password = creds.getPassword();
-            } else if (credentials instanceof ICredentialsUsernameToken) {
-                ICredentialsUsernameToken creds = (ICredentialsUsernameToken) credentials;
-                this.userid = creds.getUsername();
-                this.password = null;
-                this.sshClient.addIdentity(this.userid, creds.getToken(), null, null);
-            } else {
-                throw new SSHException("Unsupported credentials type - " + credentials.getClass().getName());
-            }
-        } catch (SSHException e) {
-            throw e;
-        } catch (JSchException e) {
-            throw new SSHException("Problem adding credentials to SSH", e);
-        }
-
-    }
-
-    public void connect() throws SSHException {
-        connect(5);
+        this.pool = SSHSessionPool.getPool(hostname, port, credentials);
     }
 
     /**
@@ -87,94 +43,49 @@ public class SSHFileSystem extends FileSystem {
      * 
      * @throws SSHException
      */
-    private synchronized void connect(int retry) throws SSHException {
-        // Do nothing if already connected
-        if (session != null && session.isConnected()) {
-            return;
-        }
-
-        try {
-
-            try {
-                session = sshClient.getSession(this.userid, hostname, port);
-                session.setIdentityRepository(sshClient.getIdentityRepository());
-                if (this.password != null) {
-                    session.setPassword(this.password);
-                }
-                session.setConfig("StrictHostKeyChecking", "no");
-
-                session.connect();
-
-                // Slight delay to allow the connection to stabilise
-                try {
-                    Thread.sleep(200); // NOSONAR - Sleep is sufficent
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new SSHException("Interrupted trying to authenticate using SSH", e);
-                }
-
-                logger.trace("SSH Client connected to '" + hostname + ":" + port);
-
-            } catch (Exception e) {
-                if (retry > 0) {
-                    logger.trace("Exception caught during SSH connection, will retry.", e);
-                    if (session != null && session.isConnected()) {
-                        session.disconnect();
-                        session = null;
-                    }
-                    Thread.sleep(5000); // NOSONAR - Sleep is sufficient
-                    connect(retry - 1);
-                } else {
-                    throw e;
-                }
-            }
-        } catch (SSHException e) {
-            throw e;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new SSHException("Interrupted while trying to retrieve output", e);
-        } catch (Exception e) {
-            throw new SSHException("Unrecognised exception in connection", e);
-        }
-
-        return;
+    public void connect() throws SSHException {
+        pool.connect(this);
     }
 
+    /**
+     * Borrow a sftp channel from the SSH sessions, it must be given back with
+     * {@link #returnFileChannel(ChannelSftp)}
+     */
     protected ChannelSftp getFileChannel() throws SSHException {
         connect();
 
-        try {
-            Channel channel = session.openChannel("sftp");
-            channel.connect();
+        return pool.borrowSftpChannel();
+    }
 
-            return (ChannelSftp) channel;
-        } catch (Exception e) {
-            throw new SSHException("Unable to open a sftp channel to the server", e);
-        }
+    /**
+     * Give back a sftp channel so it can be reused by the next file operation
+     */
+    protected void returnFileChannel(ChannelSftp channel) {
+        pool.returnSftpChannel(channel);
     }
 
     /**
-     * Disconnect the client
+     * Disconnect a sftp channel that may be left part way through a transfer
+     */
+    protected void releaseFileChannel(ChannelSftp channel) {
+        pool.releaseChannel(channel);
+    }
+
+    /**
+     * Disconnect the client, the SSH sessions are disconnected when nothing else
+     * is using them
      * 
      * @throws IOException
      */
-    public synchronized void disconnect() throws SSHException {
-        if (session == null) {
-            return;
-        }
-        synchronized (sshClient) {
-
-            if (!session.isConnected()) {
-                session = null;
-                return;
-            }
-
-            session.disconnect();
-            logger.trace("SSH Client disconnected");
+    public void disconnect() throws SSHException {
+        pool.disconnect(this);
+    }
 
-            session = null;
-        }
-        return;
+    /**
+     * @return the metrics of the SSH sessions this file system shares
+     */
+    public SSHSessionPool.Metrics getPoolMetrics() {
+        return pool.getMetrics();
     }
 
     @Override
@@ -72,7 +72,7 @@ public class SSHFileSystemProvider extends FileSystemProvider {
                         throw new IOException("Unable to check for read via SFTP", e);
                     } finally {
                         if (channel != null) {
-                            channel.disconnect();
+                            fileSystem.returnFileChannel(channel);
                         }
                     }
                     break;
@@ -103,7 +103,7 @@ public class SSHFileSystemProvider extends FileSystemProvider {
             throw new IOException("Unable to create directory via SFTP", e);
         } finally {
             if (channel != null) {
-                channel.disconnect();
+                fileSystem.returnFileChannel(channel);
             }
         }
     }
@@ -145,7 +145,7 @@ public class SSHFileSystemProvider extends FileSystemProvider {
             throw new IOException("Unable to delete via SFTP for path " + path, e);
         } finally {
             if (channel != null) {
-                channel.disconnect();
+                fileSystem.returnFileChannel(channel);
             }
         }
     }
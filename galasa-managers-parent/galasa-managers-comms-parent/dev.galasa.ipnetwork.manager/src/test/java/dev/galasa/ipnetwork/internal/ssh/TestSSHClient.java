@@ -0,0 +1,85 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.ipnetwork.internal.ssh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.powermock.reflect.Whitebox;
+
+import com.jcraft.jsch.ChannelExec;
+
+import dev.galasa.ICredentialsUsernamePassword;
+
+public class TestSSHClient {
+
+    private SSHClient sshClient;
+
+    private SSHSessionPool poolMock;
+
+    private ChannelExec channelMock;
+
+    @Before
+    public void setup() throws Exception {
+        ICredentialsUsernamePassword credentialsMock = Mockito.mock(ICredentialsUsernamePassword.class);
+        Mockito.when(credentialsMock.getUsername()).thenReturn("user");
+        Mockito.when(credentialsMock.getPassword()).thenReturn("password");
+        sshClient = new SSHClient("TestSSHClient", 22, credentialsMock, 5000);
+
+        poolMock = Mockito.mock(SSHSessionPool.class);
+        Whitebox.setInternalState(sshClient, "pool", poolMock);
+
+        //*** The channel writes to stdout and stderr when connected, then ends
+        channelMock = Mockito.mock(ChannelExec.class);
+        AtomicReference<OutputStream> stdout = new AtomicReference<>();
+        AtomicReference<OutputStream> stderr = new AtomicReference<>();
+        Mockito.doAnswer(invocation -> {
+            stdout.set(invocation.getArgument(0));
+            return null;
+        }).when(channelMock).setOutputStream(Mockito.any(OutputStream.class));
+        Mockito.doAnswer(invocation -> {
+            stderr.set(invocation.getArgument(0));
+            return null;
+        }).when(channelMock).setErrStream(Mockito.any(OutputStream.class));
+        Mockito.doAnswer(invocation -> {
+            stdout.get().write("stdout text\n".getBytes(StandardCharsets.UTF_8));
+            stderr.get().write("stderr text\n".getBytes(StandardCharsets.UTF_8));
+            stdout.get().close();
+            return null;
+        }).when(channelMock).connect();
+        Mockito.when(poolMock.openExecChannel()).thenReturn(channelMock);
+    }
+
+    @Test
+    public void testIssueCommand() throws Exception {
+        Assert.assertEquals("issueCommand() should return stdout and stderr", "stdout text\nstderr text\n", sshClient.issueCommand("command"));
+
+        Mockito.verify(channelMock).setCommand("command");
+        Mockito.verify(channelMock).setPty(true);
+        Mockito.verify(poolMock).connect(sshClient);
+        Mockito.verify(poolMock).releaseChannel(channelMock);
+    }
+
+    @Test
+    public void testIssueCommandWithSeparateStderr() throws Exception {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+        Assert.assertEquals("issueCommand() should return stdout and stderr", "stdout text\nstderr text\n", sshClient.issueCommand("command", 5000, stdout, stderr));
+        Assert.assertEquals("stdout stream should be passed only stdout", "stdout text\n", stdout.toString());
+        Assert.assertEquals("stderr stream should be passed only stderr", "stderr text\n", stderr.toString());
+
+        //*** A terminal would merge stderr into stdout
+        Mockito.verify(channelMock, Mockito.never()).setPty(true);
+        Mockito.verify(poolMock).releaseChannel(channelMock);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.ipnetwork.internal.ssh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.ipnetwork.SSHException;
+
+public class TestSSHCommandOutput {
+
+    private static final String PROMPT = "[GalasaPrompt]";
+
+    private static final Pattern RESPONSE_PATTERN = Pattern.compile("\\Qls\\E[\\r\\n]*(.*)\\Q" + PROMPT + "\\E", Pattern.DOTALL);
+
+    @Test
+    public void testEndOfOutput() throws Exception {
+        SSHCommandOutput output = new SSHCommandOutput();
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        output.start(null, null, stdout, stderr);
+
+        send(50, output.getOutputStream(), "out ", output.getErrStream(), "err ", output.getOutputStream(), "more");
+        close(200, output.getOutputStream());
+
+        Assert.assertEquals("Response should be all the output in the order it arrived", "out err more", output.waitForResponse(5000));
+        Assert.assertEquals("stdout consumer should be passed the stdout", "out more", stdout.toString());
+        Assert.assertEquals("stderr consumer should be passed the stderr", "err ", stderr.toString());
+    }
+
+    @Test
+    public void testResponsePattern() throws Exception {
+        SSHCommandOutput output = new SSHCommandOutput();
+        output.start(RESPONSE_PATTERN, PROMPT, null, null);
+
+        //*** The prompt before the command must not end the response, and the prompt after it is split across writes
+        send(50, output.getOutputStream(), PROMPT + "ls \r\n", output.getOutputStream(), "file1\r\n[Galasa", output.getOutputStream(), "Prompt]");
+
+        Assert.assertEquals("Response should be between the command and the prompt", " \r\nfile1\r\n", output.waitForResponse(5000));
+
+        //*** The output is discarded for the next command
+        output.start(RESPONSE_PATTERN, PROMPT, null, null);
+        send(50, output.getOutputStream(), "ls\r\nfile2\r\n" + PROMPT);
+        Assert.assertEquals("Response should be from the output of the next command", "file2\r\n", output.waitForResponse(5000));
+    }
+
+    @Test
+    public void testOutputEndsBeforeResponse() throws Exception {
+        SSHCommandOutput output = new SSHCommandOutput();
+        output.start(RESPONSE_PATTERN, PROMPT, null, null);
+
+        send(50, output.getOutputStream(), "ls\r\nfile1\r\n");
+        close(200, output.getOutputStream());
+
+        SSHException expectedException = Assert.assertThrows("expected exception should be thrown", SSHException.class, ()->{
+            output.waitForResponse(5000);
+        });
+        Assert.assertEquals("exception should contain expected message", "Output ended waiting for response from ssh. Response so far: ls\r\nfile1\r\n", expectedException.getMessage());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        SSHCommandOutput output = new SSHCommandOutput();
+        output.start(null, null, null, null);
+
+        send(50, output.getOutputStream(), "partial");
+
+        long start = System.currentTimeMillis();
+        SSHException expectedException = Assert.assertThrows("expected exception should be thrown", SSHException.class, ()->{
+            output.waitForResponse(300);
+        });
+        Assert.assertEquals("exception should contain expected message", "Timed out waiting for response from ssh. Response so far: partial", expectedException.getMessage());
+        Assert.assertTrue("Wait should last at least the timeout", System.currentTimeMillis() - start >= 300);
+    }
+
+    @Test
+    public void testTimeoutRestartsWhenOutputArrives() throws Exception {
+        SSHCommandOutput output = new SSHCommandOutput();
+        output.start(null, null, null, null);
+
+        //*** Output for longer than the timeout, never waiting as long as it
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 8; i++) {
+                    Thread.sleep(100);
+                    output.getOutputStream().write(("line" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                output.getOutputStream().close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+
+        String response = output.waitForResponse(400);
+        Assert.assertTrue("All the output should be returned", response.endsWith("line7\n"));
+    }
+
+    private void send(long delay, Object... streamsAndText) {
+        Thread writer = new Thread(() -> {
+            try {
+                Thread.sleep(delay);
+                for (int i = 0; i < streamsAndText.length; i += 2) {
+                    ((OutputStream) streamsAndText[i]).write(((String) streamsAndText[i + 1]).getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        writer.start();
+    }
+
+    private void close(long delay, OutputStream stream) {
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(delay);
+                stream.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        closer.start();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.ipnetwork.internal.ssh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.ChannelShell;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.Session;
+
+import dev.galasa.ipnetwork.SSHException;
+
+public class TestSSHSessionPool {
+
+    private final Object  user     = new Object();
+
+    private JSch          sshClientMock;
+
+    private List<Session> sessions = new ArrayList<>();
+
+    private String        hostname;
+
+    @Before
+    public void setup() throws Exception {
+        hostname = "host" + System.nanoTime();
+
+        //*** Each session and channel is connected until it is disconnected
+        sshClientMock = Mockito.mock(JSch.class);
+        Mockito.when(sshClientMock.getSession(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt())).thenAnswer(invocation -> {
+            Session session = Mockito.mock(Session.class);
+            connectable(session);
+            Mockito.when(session.openChannel(Mockito.anyString())).thenAnswer(openInvocation -> {
+                String type = openInvocation.getArgument(0);
+                Channel channel;
+                if ("exec".equals(type)) {
+                    channel = Mockito.mock(ChannelExec.class);
+                } else if ("shell".equals(type)) {
+                    channel = Mockito.mock(ChannelShell.class);
+                } else {
+                    channel = Mockito.mock(ChannelSftp.class);
+                }
+                connectable(channel);
+                return channel;
+            });
+            sessions.add(session);
+            return session;
+        });
+    }
+
+    @Test
+    public void testLeaseAndRelease() throws Exception {
+        SSHSessionPool pool = newPool(2, 2, 60000, 5000);
+        pool.connect(user);
+        Assert.assertEquals("connect() should connect a session", 1, pool.getMetrics().getSessions());
+
+        ChannelExec channel1 = pool.openExecChannel();
+        ChannelExec channel2 = pool.openExecChannel();
+        SSHSessionPool.Metrics metrics = pool.getMetrics();
+        Assert.assertEquals("Channels should share the connected session", 1, metrics.getSessions());
+        Assert.assertEquals("Both channels should be in use", 2, metrics.getChannelsInUse());
+
+        //*** A full session makes the pool connect another
+        pool.openExecChannel();
+        Assert.assertEquals("A third channel should need another session", 2, pool.getMetrics().getSessions());
+
+        pool.releaseChannel(channel1);
+        pool.releaseChannel(channel2);
+        metrics = pool.getMetrics();
+        Mockito.verify(channel1).disconnect();
+        Assert.assertEquals("Released channels should no longer be in use", 1, metrics.getChannelsInUse());
+        Assert.assertEquals("Released channels should no longer be open", 1, metrics.getChannels());
+        Assert.assertEquals("Channels opened should be counted", 3, metrics.getChannelsOpened());
+        Assert.assertEquals("Sessions created should be counted", 2, metrics.getSessionsCreated());
+
+        pool.disconnect(user);
+        Assert.assertEquals("disconnect() of the last user should close the sessions", 0, pool.getMetrics().getSessions());
+        for (Session session : sessions) {
+            Mockito.verify(session).disconnect();
+        }
+    }
+
+    @Test
+    public void testWaitWhenFull() throws Exception {
+        SSHSessionPool pool = newPool(1, 1, 60000, 5000);
+        pool.connect(user);
+        ChannelExec channel = pool.openExecChannel();
+
+        CompletableFuture<ChannelExec> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.openExecChannel();
+            } catch (SSHException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        Assert.assertFalse("A channel should wait while the pool is full", waiting.isDone());
+
+        pool.releaseChannel(channel);
+        Assert.assertNotNull("A released channel should let the waiting one open", waiting.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("The wait should be counted", 1, pool.getMetrics().getChannelWaits());
+        Assert.assertEquals("The waiting channel should use the same session", 1, pool.getMetrics().getSessionsCreated());
+    }
+
+    @Test
+    public void testWaitTimesOut() throws Exception {
+        SSHSessionPool pool = newPool(1, 1, 60000, 100);
+        pool.connect(user);
+        pool.openExecChannel();
+
+        SSHException expectedException = Assert.assertThrows("expected exception should be thrown", SSHException.class, ()->{
+            pool.openExecChannel();
+        });
+        Assert.assertEquals("exception should contain expected message", "Timed out waiting for a free SSH channel to '" + hostname + ":22'", expectedException.getMessage());
+    }
+
+    @Test
+    public void testIdleSessionDisconnected() throws Exception {
+        SSHSessionPool pool = newPool(1, 8, 0, 5000);
+        pool.connect(user);
+        Assert.assertTrue("A connected pool should be found for its host", isRegistered());
+
+        //*** A shell is in use until it is released however long it is idle
+        ChannelShell shell = pool.openShellChannel();
+        pool.disconnectIdle();
+        Assert.assertEquals("A session with a shell should not be disconnected", 1, pool.getMetrics().getSessions());
+
+        pool.releaseChannel(shell);
+        pool.disconnectIdle();
+        Assert.assertEquals("An idle session should be disconnected", 0, pool.getMetrics().getSessions());
+        Mockito.verify(sessions.get(0)).disconnect();
+        Assert.assertFalse("A pool with no sessions should be forgotten", isRegistered());
+
+        //*** The pool connects again when next used
+        pool.openExecChannel();
+        Assert.assertEquals("A channel should connect a new session", 1, pool.getMetrics().getSessions());
+        Assert.assertTrue("A connected pool should be found again", isRegistered());
+        pool.disconnect(user);
+    }
+
+    @Test
+    public void testSftpChannelReused() throws Exception {
+        SSHSessionPool pool = newPool(1, 8, 60000, 5000);
+        pool.connect(user);
+
+        ChannelSftp channel = pool.borrowSftpChannel();
+        Mockito.verify(channel).connect();
+        pool.returnSftpChannel(channel);
+        SSHSessionPool.Metrics metrics = pool.getMetrics();
+        Assert.assertEquals("A returned channel should not be in use", 0, metrics.getChannelsInUse());
+        Assert.assertEquals("A returned channel should be kept", 1, metrics.getIdleSftpChannels());
+
+        Assert.assertSame("The returned channel should be reused", channel, pool.borrowSftpChannel());
+        metrics = pool.getMetrics();
+        Assert.assertEquals("The reuse should be counted", 1, metrics.getSftpChannelsReused());
+        Assert.assertEquals("Only one channel should be opened", 1, metrics.getChannelsOpened());
+        Mockito.verify(channel, Mockito.never()).disconnect();
+
+        //*** A disconnected channel is not reused
+        pool.returnSftpChannel(channel);
+        channel.disconnect();
+        Assert.assertNotSame("A disconnected channel should not be reused", channel, pool.borrowSftpChannel());
+        pool.disconnect(user);
+    }
+
+    private SSHSessionPool newPool(int maxSessions, int maxChannelsPerSession, long idleTimeout, long channelWaitTimeout) {
+        return new SSHSessionPool(hostname + ":22:user", hostname, 22, "user", "password", sshClientMock, maxSessions, maxChannelsPerSession, idleTimeout, channelWaitTimeout);
+    }
+
+    private boolean isRegistered() {
+        return SSHSessionPool.getAllMetrics().stream().anyMatch(metrics -> hostname.equals(metrics.getHostname()));
+    }
+
+    private static void connectable(Object mock) throws Exception {
+        AtomicBoolean connected = new AtomicBoolean();
+        if (mock instanceof Session) {
+            Session session = (Session) mock;
+            Mockito.doAnswer(invocation -> { connected.set(true); return null; }).when(session).connect();
+            Mockito.doAnswer(invocation -> { connected.set(false); return null; }).when(session).disconnect();
+            Mockito.when(session.isConnected()).thenAnswer(invocation -> connected.get());
+        } else {
+            Channel channel = (Channel) mock;
+            Mockito.doAnswer(invocation -> { connected.set(true); return null; }).when(channel).connect();
+            Mockito.doAnswer(invocation -> { connected.set(false); return null; }).when(channel).disconnect();
+            Mockito.when(channel.isConnected()).thenAnswer(invocation -> connected.get());
+            Mockito.when(channel.isClosed()).thenAnswer(invocation -> !connected.get());
+        }
+    }
+}
@@ -1,12 +1,13 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2019.
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.artifact;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -121,7 +122,33 @@ public interface IBundleResources {
      */
     String streamAsString(InputStream file) throws IOException;
 
+    /**
+     * Zip the files in a directory, the zip is written as it is read. If the
+     * files are skeletons then any required substitutions will be performed
+     * using the default skeleton processor {@link SkeletonType#PLUSPLUS}
+     * 
+     * @param resourcesDirectory
+     * @param parameters
+     * @param encoding the encoding to convert the files to, or null to copy the files as binary
+     * @param gzip
+     * @return
+     * @throws TestBundleResourceException
+     */
     InputStream zipDirectoryContents(String resourcesDirectory, Map<String, Object> parameters, String encoding,
             boolean gzip) throws TestBundleResourceException;
 
+    /**
+     * Zip the files in a directory, writing the zip to an output stream. The
+     * output stream is flushed but not closed
+     * 
+     * @param resourcesDirectory
+     * @param parameters
+     * @param encoding the encoding to convert the files to, or null to copy the files as binary
+     * @param gzip
+     * @param outputStream
+     * @throws TestBundleResourceException
+     */
+    void zipDirectoryContents(String resourcesDirectory, Map<String, Object> parameters, String encoding,
+            boolean gzip, OutputStream outputStream) throws TestBundleResourceException;
+
 }
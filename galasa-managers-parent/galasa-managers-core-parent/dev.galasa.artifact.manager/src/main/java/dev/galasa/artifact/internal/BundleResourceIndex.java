@@ -0,0 +1,208 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.artifact.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.jar.Attributes;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
+
+import org.osgi.framework.Bundle;
+
+import dev.galasa.artifact.TestBundleResourceException;
+
+/**
+ * What has been found out about the resources of a bundle, so directories are listed and jars are opened once
+ * however many times the resources are retrieved.
+ * <br>
+ * The entries of a bundle do not change while it is installed, the indexes are keyed by the bundle and its last
+ * modified time so an updated bundle is indexed again.
+ */
+class BundleResourceIndex {
+
+    private static final String                           FILE_SEPARATOR = "/";
+
+    private static final int                              MAX_BUNDLES    = 64;
+
+    private static final Map<String, BundleResourceIndex> indexes        = new LinkedHashMap<String, BundleResourceIndex>(MAX_BUNDLES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BundleResourceIndex> eldest) {
+            return size() > MAX_BUNDLES;
+        }
+    };
+
+    private final Bundle                                  bundle;
+
+    private final Map<String, List<String>>               directories    = new HashMap<>();
+    private final Map<String, JarManifest>                manifests      = new HashMap<>();
+    private final Map<String, Boolean>                    jarContents    = new HashMap<>();
+
+    private BundleResourceIndex(Bundle bundle) {
+        this.bundle = bundle;
+    }
+
+    static synchronized BundleResourceIndex forBundle(Bundle bundle) {
+        String key = bundle.getBundleId() + ":" + bundle.getLastModified();
+        BundleResourceIndex index = indexes.get(key);
+        if (index == null) {
+            index = new BundleResourceIndex(bundle);
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * List the files in a directory and its subdirectories
+     * 
+     * @param directory     the normalised path of the directory
+     * @param fileExtension the extension of the files to list, starting with a dot and in lower case, or null for
+     *                      all the files
+     * @return the entry paths of the files
+     */
+    synchronized List<String> listDirectory(String directory, String fileExtension) {
+        String key = directory + "\u0000" + fileExtension;
+        List<String> directoryContents = this.directories.get(key);
+        if (directoryContents == null) {
+            directoryContents = new ArrayList<>();
+            listDirectory(directory, fileExtension, directoryContents);
+            directoryContents = Collections.unmodifiableList(directoryContents);
+            this.directories.put(key, directoryContents);
+        }
+        return directoryContents;
+    }
+
+    private void listDirectory(String directory, String fileExtension, List<String> directoryContents) {
+        Enumeration<String> entryPaths = this.bundle.getEntryPaths(directory);
+
+        if (entryPaths != null) {
+
+            while (entryPaths.hasMoreElements()) {
+                String entryPath = entryPaths.nextElement();
+
+                if (entryPath.endsWith(FILE_SEPARATOR)) {
+                    listDirectory(entryPath, fileExtension, directoryContents);
+                    continue;
+                }
+
+                if (fileExtension == null || entryPath.toLowerCase().endsWith(fileExtension)) {
+                    directoryContents.add(entryPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the main attributes of the manifest of a jar in the bundle
+     * 
+     * @param jar the entry path of the jar, starting with a file separator
+     */
+    synchronized JarManifest getJarManifest(String jar) throws TestBundleResourceException {
+        JarManifest jarManifest = this.manifests.get(jar);
+        if (jarManifest == null) {
+            Attributes attributes;
+            try (JarInputStream jaris = new JarInputStream(openEntry(jar))) {
+                Manifest manifest = jaris.getManifest();
+                attributes = (manifest == null) ? new Attributes() : manifest.getMainAttributes();
+            } catch (IOException e) {
+                throw new TestBundleResourceException("Unable to open a stream into " + jar, e);
+            }
+            jarManifest = new JarManifest(attributes);
+            this.manifests.put(jar, jarManifest);
+        }
+        return jarManifest;
+    }
+
+    /**
+     * Search the content of a jar in the bundle, read as UTF-8 text, without holding the whole jar in memory
+     * 
+     * @param jar  the entry path of the jar, starting with a file separator
+     * @param text the text to search for
+     */
+    synchronized boolean jarContains(String jar, String text) throws TestBundleResourceException {
+        String key = jar + "\u0000" + text;
+        Boolean contains = this.jarContents.get(key);
+        if (contains == null) {
+            contains = text.isEmpty();
+            char[] buffer = new char[8192];
+            String tail = "";
+            try (Reader reader = new InputStreamReader(openEntry(jar), StandardCharsets.UTF_8)) {
+                for (int read; (read = reader.read(buffer, 0, buffer.length)) > 0;) {
+                    String window = tail + new String(buffer, 0, read);
+                    if (window.contains(text)) {
+                        contains = Boolean.TRUE;
+                        break;
+                    }
+                    // Keep enough of the end to find the text across the reads
+                    tail = window.substring(Math.max(0, window.length() - text.length() + 1));
+                }
+            } catch (IOException e) {
+                throw new TestBundleResourceException("Unable to search the contents of " + jar, e);
+            }
+            this.jarContents.put(key, contains);
+        }
+        return contains;
+    }
+
+    private InputStream openEntry(String path) throws IOException {
+        URL url = this.bundle.getEntry(path);
+        if (url == null) {
+            throw new IOException("No such entry " + path + " in bundle " + this.bundle.getSymbolicName());
+        }
+        return url.openStream();
+    }
+
+    /**
+     * The attributes of a jar manifest used to select a jar
+     */
+    static class JarManifest {
+
+        private final String symbolicName;
+        private final String version;
+
+        private JarManifest(Attributes attributes) {
+            this.symbolicName = attributes.getValue("Bundle-SymbolicName");
+
+            // Use the first attribute that looks like a version
+            String foundVersion = null;
+            for (Entry<Object, Object> entry : attributes.entrySet()) {
+                if (entry.getKey().toString().toLowerCase().matches("(bundle-)?version")) {
+                    foundVersion = (String) entry.getValue();
+                    break;
+                }
+            }
+            this.version = foundVersion;
+        }
+
+        /**
+         * @return the Bundle-SymbolicName, or null if there is none
+         */
+        String getSymbolicName() {
+            return this.symbolicName;
+        }
+
+        /**
+         * @return the Bundle-Version or Version, or null if there is none
+         */
+        String getVersion() {
+            return this.version;
+        }
+    }
+}
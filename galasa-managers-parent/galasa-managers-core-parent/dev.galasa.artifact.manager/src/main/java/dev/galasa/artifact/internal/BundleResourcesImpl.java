@@ -1,29 +1,30 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2019.
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.artifact.internal;
 
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.io.Reader;
+import java.io.UnsupportedEncodingException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.jar.Attributes;
-import java.util.jar.JarInputStream;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
@@ -37,25 +38,52 @@ import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 
 import dev.galasa.artifact.IBundleResources;
-import dev.galasa.artifact.ISkeletonProcessor;
 import dev.galasa.artifact.SkeletonProcessorException;
 import dev.galasa.artifact.TestBundleResourceException;
 import dev.galasa.artifact.ISkeletonProcessor.SkeletonType;
+import dev.galasa.artifact.internal.BundleResourceIndex.JarManifest;
 import dev.galasa.framework.spi.IFramework;
 
 public class BundleResourcesImpl implements IBundleResources {
 
     private static final String      FILE_SEPARATOR = "/";
 
+    private static final int         PIPE_SIZE      = 65536;
+
+    private static final int         MAX_VERSION_RANGES = 1024;
+
+    /*
+     * Regex with 4 groups: ^([\\[\\(]) - beginning of string: '[' or '('
+     * ([\\d+\\.]+) - some quantity of numbers and '.'s. should be the lower bound
+     * (,[\\d+\\.]+)? - as above, prefixed with ',' and optional. should be the
+     * upper bound if there is one ([\\)\\]])$ - reverse of the first group: ']' or
+     * ')'
+     */
+    private static final Pattern     VERSION_RANGE  = Pattern.compile("^([\\[\\(])([\\d+\\.]+)(,[\\d+\\.]+)?([\\)\\]])$", Pattern.MULTILINE);
+
+    // The jars of a bundle are usually selected with the same few version ranges
+    private static final Map<String, Boolean> versionRanges = new LinkedHashMap<String, Boolean>(MAX_VERSION_RANGES, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_VERSION_RANGES;
+        }
+    };
+
     private final Bundle             bundle;
 
-    private final ISkeletonProcessor velocitySkeletonProcessor;
-    private final ISkeletonProcessor ppSkeletonProcessor;
+    private final SkeletonCompiler   velocitySkeletonProcessor;
+    private final SkeletonCompiler   ppSkeletonProcessor;
 
     private static final Log         logger         = LogFactory.getLog(BundleResourcesImpl.class);
 
     public BundleResourcesImpl(Class<?> owningClass, IFramework framework) {
-        this.bundle = FrameworkUtil.getBundle(owningClass);
+        this(FrameworkUtil.getBundle(owningClass), framework);
+    }
+
+    BundleResourcesImpl(Bundle bundle, IFramework framework) {
+        this.bundle = bundle;
 
         this.velocitySkeletonProcessor = new VelocitySkeletonProcessor(framework);
         this.ppSkeletonProcessor = new PlusPlusSkeletonProcessor(framework);
@@ -65,7 +93,7 @@ public class BundleResourcesImpl implements IBundleResources {
 
         HashMap<String, InputStream> directoryContents = new HashMap<>();
 
-        List<String> contentPaths = listDirectory(bundle, directory, null);
+        List<String> contentPaths = listDirectory(directory, null);
 
         for (String path : contentPaths) {
             directoryContents.put(path, retrieveFile(path));
@@ -140,7 +168,7 @@ public class BundleResourcesImpl implements IBundleResources {
 
         // If that didn't work we call listJars to find all the jars in the directory
         // and bundle given
-        List<String> foundJars = listDirectory(bundle, directory, "jar");
+        List<String> foundJars = listDirectory(directory, "jar");
         
         logger.info("Found Jars:" + foundJars);
 
@@ -154,76 +182,35 @@ public class BundleResourcesImpl implements IBundleResources {
                     jar = FILE_SEPARATOR + jar;
                 }
 
-                // Put the jar entry into a JarInputStream
-                JarInputStream jaris = null;
-                try {
-                    jaris = new JarInputStream(bundle.getEntry(jar).openStream());
-                } catch (IOException e) {
-                    throw new TestBundleResourceException("Unable to open a stream into " + jar, e);
-                }
-                
-                // Grab the attributes from the manifest
-                Attributes attributes = jaris.getManifest().getMainAttributes();
-                
-                try {
-                    jaris.close();
-                } catch (IOException e) {
-                    logger.warn("Unable to close jar input stream", e);
-                }
-                
-                // Convert JarInputStream to InputStream and store contents as string 
-                InputStream is = retrieveFile(jar);
-                
-				String jarContents = null;
-				try {
-					jarContents = streamAsString(is);
-				} catch (IOException e) {
-                    throw new TestBundleResourceException("Unable to store InputStream as string", e);
-				}
-							
-				Boolean matchingNames = false;
-				String bundleSymbolicName = attributes.getValue("Bundle-SymbolicName");
-				
-				//Checks if the symbolic name is listed in the manifest 
-				if (bundleSymbolicName != null) {
-					if (bundleSymbolicName.equals(symbolicName)) {
-					matchingNames = true;
-					}
-				}
+                // The manifest and contents of each jar are read once for the bundle
+                JarManifest manifest = index().getJarManifest(jar);
+
+                //Checks if the symbolic name is listed in the manifest 
+                boolean matchingNames = symbolicName.equals(manifest.getSymbolicName());
+
                 // We don't know exactly what type of jar this is, so we don't know the names of
                 // the exact contents,
                 // but if the contents contain the passed symbolic name it's a fair bet it's the
                 // right name
-                if (jarContents.contains(symbolicName) || matchingNames == true){
+                if (matchingNames || index().jarContains(jar, symbolicName)) {
 
-                    // If we were passed a version let's inspect all the attributes to see if one of
-                    // them looks like a version
-                    boolean hasVersion = false;
+                    // If something in the manifest looks like a version, check it matches the passed version
+                    String foundVersion = manifest.getVersion();
 
-                    for (Entry<Object, Object> entry : attributes.entrySet()) {
+                    if (foundVersion != null) {
 
-                        // If something looks like a version, check it matches the passed version
-                        if (entry.getKey().toString().toLowerCase().matches("(bundle-)?version")) {
-
-                            String foundVersion = (String) entry.getValue();
-
-                            // If we weren't passed a version then we'll assume this jar is the correct one
-                            if (isVersionInRange(foundVersion, version)) {
-                                logger.debug(jar + " has the correct symbolic name and version.");
-                                if (compareVersions(foundVersion, bestVersion) >= 0) {
-                                    bestJar = jar;
-                                    bestVersion = foundVersion;
-                                }
+                        // If we weren't passed a version then we'll assume this jar is the correct one
+                        if (isVersionInRange(foundVersion, version)) {
+                            logger.debug(jar + " has the correct symbolic name and version.");
+                            if (compareVersions(foundVersion, bestVersion) >= 0) {
+                                bestJar = jar;
+                                bestVersion = foundVersion;
                             }
-
-                            hasVersion = true;
-                            break;
                         }
-                    }
 
                     // If we found no attribute which looked like a version we'll just assume that
                     // this is the right one.
-                    if (!hasVersion) {
+                    } else {
                         logger.debug(jar + " has the correct symbolic name, but no version was found to inspect.");
                         if (bestJar == null) {
                             bestJar = jar;
@@ -298,6 +285,23 @@ public class BundleResourcesImpl implements IBundleResources {
      */
     private boolean isVersionInRange(String version, String range) {
 
+        String key = version + "\u0000" + range;
+        synchronized (versionRanges) {
+            Boolean inRange = versionRanges.get(key);
+            if (inRange != null) {
+                return inRange;
+            }
+        }
+
+        boolean inRange = checkVersionInRange(version, range);
+        synchronized (versionRanges) {
+            versionRanges.put(key, inRange);
+        }
+        return inRange;
+    }
+
+    private boolean checkVersionInRange(String version, String range) {
+
         if (range.isEmpty()) {
             return true;
         }
@@ -306,22 +310,14 @@ public class BundleResourcesImpl implements IBundleResources {
             return version.equals(range);
         }
 
-        /*
-         * Regex with 4 groups: ^([\\[\\(]) - beginning of string: '[' or '('
-         * ([\\d+\\.]+) - some quantity of numbers and '.'s. should be the lower bound
-         * (,[\\d+\\.]+)? - as above, prefixed with ',' and optional. should be the
-         * upper bound if there is one ([\\)\\]])$ - reverse of the first group: ']' or
-         * ')'
-         */
-        Pattern p = Pattern.compile("^([\\[\\(])([\\d+\\.]+)(,[\\d+\\.]+)?([\\)\\]])$", Pattern.MULTILINE);
-        Matcher m = p.matcher(range);
+        Matcher m = VERSION_RANGE.matcher(range);
 
         if (m.find()) {
             boolean exclusiveLower = "(".equals(m.group(1));
             boolean exclusiveUpper = ")".equals(m.group(4));
 
             String lower = m.group(2);
-            String upper = m.group(3).replaceFirst(",", "");
+            String upper = (m.group(3) == null) ? null : m.group(3).replaceFirst(",", "");
 
             int dLower = compareVersions(lower, version);
             if (dLower > 0 || (exclusiveLower && dLower == 0)) {
@@ -348,130 +344,143 @@ public class BundleResourcesImpl implements IBundleResources {
     @Override
     public InputStream zipDirectoryContents(String resourcesDirectory, Map<String, Object> parameters, String encoding,
             boolean gzip) throws TestBundleResourceException {
-        try {
 
-            resourcesDirectory = resourcesDirectory.replaceFirst("\\/*" + RESOURCES_DIRECTORY + "\\/*", "");
+        List<ZipSource> sources = zipSources(resourcesDirectory, parameters, encoding);
 
-            // Create a byte array output stream to write to
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ZipOutputStream zipos;
+        // The zip is written into a pipe by another thread as it is read, rather than
+        // being built in memory
+        ZipPipeInputStream zipis = new ZipPipeInputStream();
+        PipedOutputStream zipos;
+        try {
+            zipos = new PipedOutputStream(zipis);
+        } catch (IOException e) {
+            throw new TestBundleResourceException("Error attempting to create zip", e);
+        }
 
-            // If gzip compression is requested output via gzip and buffer, otherwise go
-            // straight to buffer
-            if (gzip) {
-                zipos = new ZipOutputStream(new GZIPOutputStream(new BufferedOutputStream(baos)));
-            } else {
-                zipos = new ZipOutputStream(new BufferedOutputStream(baos));
+        Thread writer = new Thread(() -> {
+            try {
+                writeZip(sources, encoding, gzip, zipos);
+            } catch (Exception e) {
+                zipis.failed(e);
+            } finally {
+                try {
+                    zipos.close();
+                } catch (IOException e) {
+                    logger.warn("Unable to close zip pipe", e);
+                }
             }
+        }, "BundleResourcesZip");
+        writer.setDaemon(true);
+        writer.start();
 
-            List<String> contents = listDirectory(bundle, resourcesDirectory, null);
-
-            // If there is no encoding required then this is a binary copy
-            // we just want to write the bytes straight into the tarball
-            // so we don't risk corrupting anything that is actually binary
-            if (encoding == null) {
+        return zipis;
+    }
 
-                // Create our tarball
-                for (String path : contents) {
+    @Override
+    public void zipDirectoryContents(String resourcesDirectory, Map<String, Object> parameters, String encoding,
+            boolean gzip, OutputStream outputStream) throws TestBundleResourceException {
 
-                    byte[] b = IOUtils.toByteArray(retrieveSkeletonFile(path, parameters));
+        List<ZipSource> sources = zipSources(resourcesDirectory, parameters, encoding);
 
-                    // TarEntry needs to be instantiated with a File - use a dummy and set the size
-                    // manually to avoid IOExceptions
-                    String zipEntryName = path
-                            .replaceFirst("\\/*" + RESOURCES_DIRECTORY + "\\/*" + resourcesDirectory + "\\/*", "");
-                    ZipEntry zipEntry = new ZipEntry(zipEntryName);
-                    zipEntry.setSize(b.length);
+        try {
+            writeZip(sources, encoding, gzip, outputStream);
+        } catch (IOException e) {
+            throw new TestBundleResourceException("Error attempting to create zip", e);
+        }
+    }
 
-                    // Start the new entry
-                    zipos.putNextEntry(zipEntry);
+    /**
+     * Find the files to be zipped. Skeletons are processed now so any errors are
+     * reported before the zip is written, other files are read as they are written
+     */
+    private List<ZipSource> zipSources(String resourcesDirectory, Map<String, Object> parameters, String encoding)
+            throws TestBundleResourceException {
 
-                    // Write the entry's content
-                    zipos.write(b);
+        try {
+            if (encoding != null && !Charset.isSupported(encoding)) {
+                throw new UnsupportedEncodingException(encoding);
+            }
+        } catch (IllegalCharsetNameException | UnsupportedEncodingException e) {
+            throw new TestBundleResourceException("Error attempting to create zip", e);
+        }
 
-                    zipos.flush();
-                }
+        resourcesDirectory = resourcesDirectory.replaceFirst("\\/*" + RESOURCES_DIRECTORY + "\\/*", "");
 
-                // If there is encoding required then we assume that everything
-                // we are given can be safely converted to a char[] without risk
-                // of corruption - if anyone wanted their actual binary re-encoded
-                // they are going to get nonsense anyway...
-            } else {
-                OutputStreamWriter osw = new OutputStreamWriter(zipos, encoding);
+        List<ZipSource> sources = new ArrayList<>();
+        for (String path : listDirectory(resourcesDirectory, null)) {
 
-                // Create our tarball
-                for (String path : contents) {
+            String zipEntryName = path
+                    .replaceFirst("\\/*" + RESOURCES_DIRECTORY + "\\/*" + resourcesDirectory + "\\/*", "");
 
-                    char[] c = IOUtils.toCharArray(retrieveSkeletonFile(path, parameters));
+            InputStream skeleton = null;
+            if (parameters != null && !parameters.isEmpty()) {
+                skeleton = retrieveSkeletonFile(path, parameters);
+            }
 
-                    // TarEntry needs to be instantiated with a File - use a dummy and set the size
-                    // manually to avoid IOExceptions
-                    String zipEntryName = path
-                            .replaceFirst("\\/*" + RESOURCES_DIRECTORY + "\\/*" + resourcesDirectory + "\\/*", "");
-                    ZipEntry zipEntry = new ZipEntry(zipEntryName);
-                    zipEntry.setSize(c.length);
+            sources.add(new ZipSource(path, zipEntryName, skeleton));
+        }
 
-                    // Start the new entry
-                    zipos.putNextEntry(zipEntry);
+        return sources;
+    }
 
+    /**
+     * Write the files to a zip, the output stream is flushed but not closed
+     */
+    private void writeZip(List<ZipSource> sources, String encoding, boolean gzip, OutputStream outputStream)
+            throws IOException, TestBundleResourceException {
+
+        // If gzip compression is requested output via gzip and buffer, otherwise go
+        // straight to buffer
+        BufferedOutputStream bos = new BufferedOutputStream(outputStream);
+        GZIPOutputStream gzipos = gzip ? new GZIPOutputStream(bos) : null;
+        ZipOutputStream zipos = new ZipOutputStream(gzip ? gzipos : bos);
+
+        // If there is no encoding required then this is a binary copy
+        // we just want to write the bytes straight into the zip
+        // so we don't risk corrupting anything that is actually binary.
+        // If there is encoding required then we assume that everything
+        // we are given can be safely converted to a char[] without risk
+        // of corruption - if anyone wanted their actual binary re-encoded
+        // they are going to get nonsense anyway...
+        OutputStreamWriter osw = (encoding == null) ? null : new OutputStreamWriter(zipos, encoding);
+
+        for (ZipSource source : sources) {
+
+            // The entries are deflated, so the size is recorded after the content
+            zipos.putNextEntry(new ZipEntry(source.zipEntryName));
+
+            try (InputStream is = (source.skeleton != null) ? source.skeleton : retrieveFile(source.path)) {
+                if (osw == null) {
+                    IOUtils.copy(is, zipos);
+                } else {
                     // Write the entry's content through the writer to convert
-                    osw.write(c);
-
+                    IOUtils.copy(new InputStreamReader(is), osw);
                     osw.flush();
-                    zipos.flush();
                 }
-
-                osw.close();
             }
 
-            zipos.close();
+            zipos.closeEntry();
+        }
 
-            return new ByteArrayInputStream(baos.toByteArray());
-        } catch (IOException e) {
-            throw new TestBundleResourceException("Error attempting to create zip", e);
+        zipos.finish();
+        if (gzipos != null) {
+            gzipos.finish();
         }
+        bos.flush();
     }
 
-    private List<String> listDirectory(Bundle bundle, String directory, String fileExtension) {
+    private List<String> listDirectory(String directory, String fileExtension) {
     	
     	if(fileExtension != null && !fileExtension.startsWith(".")){
     		fileExtension = "." + fileExtension.toLowerCase();
     	}
 
-        List<String> directoryContents = new ArrayList<>();
-
-        directory = normalisePath(directory);
-
-        Enumeration<String> entryPaths = bundle.getEntryPaths(directory);
-
-        if (entryPaths != null) {
-
-            while (entryPaths.hasMoreElements()) {
-                String entryPath = entryPaths.nextElement();
-
-                if (entryPath.endsWith(FILE_SEPARATOR)) {
-
-                    List<String> childDirectoryContents = listDirectory(bundle, entryPath, fileExtension);
-
-                    if (!childDirectoryContents.isEmpty()) {
-                        directoryContents.addAll(childDirectoryContents);
-                    }
-
-                    continue;
-                }
-
-                if (fileExtension != null) {
-                    if (entryPath.toLowerCase().endsWith(fileExtension)) {
-                        directoryContents.add(entryPath);
-                    }
-                } 
-                else {
-                    directoryContents.add(entryPath);
-                }
-            }
-        }
+        // The bundle is only searched the first time a directory is listed
+        return index().listDirectory(normalisePath(directory), fileExtension);
+    }
 
-        return directoryContents;
+    private BundleResourceIndex index() {
+        return BundleResourceIndex.forBundle(bundle);
     }
 
     private String normalisePath(String rawPath) {
@@ -503,44 +512,60 @@ public class BundleResourcesImpl implements IBundleResources {
     public InputStream retrieveSkeletonFile(String path, Map<String, Object> parameters, int skeletonType)
             throws TestBundleResourceException {
 
-        InputStream skeletonis = retrieveFile(path);
-
         if (parameters == null || parameters.isEmpty()) {
-            return skeletonis;
-        }
-
-        InputStream processedis;
-        try {
-            processedis = selectProcessor(skeletonType).processSkeleton(skeletonis, parameters);
-        } catch (Exception e) {
-            throw new TestBundleResourceException("Error whilst attempting to process skeleton from " + path, e);
+            return retrieveFile(path);
         }
 
-        return processedis;
+        return processSkeletonFile(path, parameters, skeletonType);
     }
 
     @Override
     public Map<String, InputStream> retrieveSkeletonDirectoryContents(String directory, Map<String, Object> parameters,
             int skeletonType) throws TestBundleResourceException {
 
-        Map<String, InputStream> skeletons = retrieveDirectoryContents(directory);
         if (parameters == null || parameters.isEmpty()) {
-            return skeletons;
+            return retrieveDirectoryContents(directory);
         }
         HashMap<String, InputStream> processedSkeletons = new HashMap<>();
 
-        for (Entry<String, InputStream> entry : skeletons.entrySet()) {
-            InputStream is;
+        for (String path : listDirectory(directory, null)) {
+            processedSkeletons.put(path, processSkeletonFile(path, parameters, skeletonType));
+        }
+
+        return processedSkeletons;
+    }
+
+    /**
+     * Render a skeleton from the bundle, the skeleton is read and compiled the first time it is used and cached
+     * for the later renders
+     */
+    private InputStream processSkeletonFile(String path, Map<String, Object> parameters, int skeletonType)
+            throws TestBundleResourceException {
+
+        String normalisedPath = normalisePath(path);
+
+        CompiledSkeleton skeleton = SkeletonTemplateCache.get(bundle, normalisedPath, skeletonType);
+        if (skeleton == null) {
+            InputStream skeletonis = retrieveFile(path);
             try {
-                is = selectProcessor(skeletonType).processSkeleton(entry.getValue(), parameters);
+                skeleton = selectProcessor(skeletonType).compile(skeletonis);
             } catch (Exception e) {
-                throw new TestBundleResourceException(
-                        "Error whilst attempting to process skeleton from " + entry.getKey(), e);
+                throw new TestBundleResourceException("Error whilst attempting to process skeleton from " + path, e);
+            } finally {
+                try {
+                    skeletonis.close();
+                } catch (IOException e) {
+                    logger.warn("Unable to close skeleton input stream", e);
+                }
             }
-            processedSkeletons.put(entry.getKey(), is);
+            skeleton = SkeletonTemplateCache.put(bundle, normalisedPath, skeletonType, skeleton);
         }
 
-        return processedSkeletons;
+        try {
+            return skeleton.render(parameters);
+        } catch (Exception e) {
+            throw new TestBundleResourceException("Error whilst attempting to process skeleton from " + path, e);
+        }
     }
 
     @Override
@@ -573,7 +598,7 @@ public class BundleResourcesImpl implements IBundleResources {
         return sb.toString();
     }
 
-    private ISkeletonProcessor selectProcessor(int skeletonType) throws SkeletonProcessorException {
+    private SkeletonCompiler selectProcessor(int skeletonType) throws SkeletonProcessorException {
 
         switch (skeletonType) {
 
@@ -597,4 +622,60 @@ public class BundleResourcesImpl implements IBundleResources {
         return this.streamAsString(this.retrieveSkeletonFile(path, parameters));
     }
 
+    /**
+     * A file to be written to a zip
+     */
+    private static class ZipSource {
+        private final String      path;
+        private final String      zipEntryName;
+        private final InputStream skeleton;
+
+        private ZipSource(String path, String zipEntryName, InputStream skeleton) {
+            this.path = path;
+            this.zipEntryName = zipEntryName;
+            this.skeleton = skeleton;
+        }
+    }
+
+    /**
+     * The read end of the pipe a zip is written into. If the zip could not be
+     * written the failure is reported when the part written has been read
+     */
+    private static class ZipPipeInputStream extends PipedInputStream {
+
+        private volatile Exception failure;
+
+        private ZipPipeInputStream() {
+            super(PIPE_SIZE);
+        }
+
+        private void failed(Exception e) {
+            this.failure = e;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                checkFailure();
+            }
+            return b;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read < 0) {
+                checkFailure();
+            }
+            return read;
+        }
+
+        private void checkFailure() throws IOException {
+            if (this.failure != null) {
+                throw new IOException("Error attempting to create zip", this.failure);
+            }
+        }
+    }
+
 }
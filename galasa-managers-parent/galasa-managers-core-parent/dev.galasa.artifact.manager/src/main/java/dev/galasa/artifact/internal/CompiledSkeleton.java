@@ -0,0 +1,21 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.artifact.internal;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import dev.galasa.artifact.SkeletonProcessorException;
+
+/**
+ * A skeleton that has been read and parsed by a skeleton processor, ready to be rendered with different parameters
+ * as many times as required. Implementations must be safe to render from more than one thread.
+ */
+interface CompiledSkeleton {
+
+    InputStream render(Map<String, Object> parameters) throws SkeletonProcessorException;
+
+}
@@ -1,7 +1,7 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2019.
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.artifact.internal;
 
@@ -10,28 +10,35 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
 
-import dev.galasa.artifact.ISkeletonProcessor;
 import dev.galasa.artifact.SkeletonProcessorException;
 import dev.galasa.framework.spi.IFramework;
 
 /**
  * A simple skeleton processor to replace velocity
+ * <br>
+ * A compiled skeleton whose ++ markers pair up is rendered from a {@link SubstitutionPlan} in a single pass when the
+ * parameters are all Strings or Integers, otherwise the substitutions are made a parameter at a time
  * 
  * @author James Bartlett
  * 
  */
-public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
+public class PlusPlusSkeletonProcessor implements SkeletonCompiler {
 
-    private CharsetEncoder encoder = Charset.defaultCharset().newEncoder();
+    private static final Pattern TRAILING_WHITESPACE = Pattern.compile("\\s*$");
 
     // Define all sets of delimiters handled
     private final Delimiter[] delimiters = { new Delimiter("++", true) // RTS style
@@ -53,6 +60,15 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
     public InputStream processSkeleton(InputStream skeleton, Map<String, Object> parameters)
             throws SkeletonProcessorException {
 
+        return compile(skeleton).render(parameters);
+    }
+
+    /**
+     * Read the skeleton and tokenize it into a substitution plan where possible
+     */
+    @Override
+    public CompiledSkeleton compile(InputStream skeleton) throws SkeletonProcessorException {
+
         byte[] skeletonBytes;
         try {
             skeletonBytes = IOUtils.toByteArray(skeleton);
@@ -64,10 +80,43 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
 
         // If the input is not text then do not bother to process as we
         // risk corrupting binary data if we do so
-        if (!encoder.canEncode(skeletonString) || parameters == null) {
-            return new ByteArrayInputStream(skeletonBytes);
+        CharsetEncoder encoder = Charset.defaultCharset().newEncoder();
+        if (!encoder.canEncode(skeletonString)) {
+            return parameters -> new ByteArrayInputStream(skeletonBytes);
         }
 
+        SubstitutionPlan plan = SubstitutionPlan.tokenize(skeletonString);
+
+        return parameters -> {
+            if (parameters == null) {
+                return new ByteArrayInputStream(skeletonBytes);
+            }
+
+            String output = (plan == null) ? null : plan.substitute(parameters);
+            if (output == null) {
+                output = substitute(skeletonString, parameters);
+            }
+
+            output = reAlign(output);
+
+            output = purgeUnusedMarkers(output);
+
+            return new ByteArrayInputStream(output.getBytes());
+        };
+    }
+
+    /**
+     * Substitute the parameters a parameter at a time, twice, so parameters may be used in the values of other
+     * parameters and in loops
+     * 
+     * @param skeletonString
+     * @param parameters
+     * @return
+     * @throws SkeletonProcessorException
+     */
+    private String substitute(String skeletonString, Map<String, Object> parameters)
+            throws SkeletonProcessorException {
+
         for (int i = 0; i < 2; i++) {
 
             for (Entry<String, Object> substitution : parameters.entrySet()) {
@@ -93,11 +142,7 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
             }
         }
 
-        skeletonString = reAlign(skeletonString);
-
-        skeletonString = purgeUnusedMarkers(skeletonString);
-
-        return new ByteArrayInputStream(skeletonString.getBytes());
+        return skeletonString;
     }
 
     /**
@@ -164,9 +209,8 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
     public String purgeUnusedMarkers(String skeletonContent) {
 
         for (LoopForm loopForm : loopForms) {
-            skeletonContent = skeletonContent.replaceAll(loopForm.getGeneralRegexPattern(), "");
-            Pattern p = Pattern.compile(loopForm.getGeneralRegexPattern(), Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
-            Matcher m = p.matcher(skeletonContent);
+            skeletonContent = loopForm.generalPattern.matcher(skeletonContent).replaceAll("");
+            Matcher m = loopForm.generalPatternAnyCase.matcher(skeletonContent);
 
             while (m.find()) {
                 skeletonContent = skeletonContent.replace(m.group(), "");
@@ -183,7 +227,7 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
                     continue;
                 }
 
-                if (line.matches(".*" + delimiter.getGeneralRegexPattern() + ".*")) {
+                if (delimiter.generalLinePattern.matcher(line).matches()) {
                     purge = true;
                     break;
                 }
@@ -207,6 +251,7 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
         private final String  start;
         private final String  end;
         private final boolean purgeSafe;
+        private final Pattern generalLinePattern;
 
         /**
          * Construct a Delimiter which has the same start and end delimiters e.g.
@@ -228,6 +273,7 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
             this.start = start;
             this.end = end;
             this.purgeSafe = purgeSafe;
+            this.generalLinePattern = Pattern.compile(".*" + getGeneralRegexPattern() + ".*");
         }
 
         public boolean safeToPurge() {
@@ -287,10 +333,14 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
 
         private final String          loopOpen;
         private final String          loopClose;
+        private final Pattern         generalPattern;
+        private final Pattern         generalPatternAnyCase;
 
         public LoopForm(String loopOpen, String loopClose) {
             this.loopOpen = loopOpen;
             this.loopClose = loopClose;
+            this.generalPattern = Pattern.compile(getGeneralRegexPattern());
+            this.generalPatternAnyCase = Pattern.compile(getGeneralRegexPattern(), Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
         }
 
         public String getGeneralRegexPattern() {
@@ -337,8 +387,7 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
                 int limit = 0;
 
                 for (LoopLimiter limiter : loopLimiters) {
-                    Pattern repeatLimiter = Pattern.compile(limiter.getRegexPattern());
-                    Matcher limitMatcher = repeatLimiter.matcher(phrase);
+                    Matcher limitMatcher = limiter.pattern.matcher(phrase);
 
                     if (limitMatcher.find()) {
                         if (limitMatcher.groupCount() != 2) {
@@ -390,9 +439,11 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
         protected static final String COLUMN = "COLUMN";
 
         private final String          anchorExpr;
+        private final Pattern         pattern;
 
         public Anchor(String anchorExpr) {
             this.anchorExpr = anchorExpr;
+            this.pattern = Pattern.compile(getRegexPattern(), Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
         }
 
         public String getRegexPattern() {
@@ -408,17 +459,18 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
 
         public String reAlign(String output) throws SkeletonProcessorException {
 
-            Pattern p = Pattern.compile(getRegexPattern(), Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-            Matcher m = p.matcher(output);
+            // Lines are aligned independently, so the search resumes at the start of the line just aligned
+            Matcher m = pattern.matcher(output);
+            int from = 0;
 
-            while (m.find()) {
+            while (m.find(from)) {
 
                 if (m.groupCount() != 3) {
                     throw new SkeletonProcessorException(
                             "The pattern matcher for this anchor has returned an " + "unexpected number of groups.");
                 }
 
-                String staticPhrase = m.group(1).replaceAll("\\s*$", "");
+                String staticPhrase = TRAILING_WHITESPACE.matcher(m.group(1)).replaceAll("");
                 int columnNumber = Integer.parseInt(m.group(2));
                 String alignedPhrase = m.group(3);
 
@@ -428,7 +480,8 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
 
                 output = output.substring(0, m.start()) + sb.toString() + output.substring(m.end());
 
-                m = p.matcher(output);
+                from = m.start();
+                m = pattern.matcher(output);
             }
 
             return output;
@@ -441,10 +494,12 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
 
         private final String          openLimit;
         private final String          closeLimit;
+        private final Pattern         pattern;
 
         private LoopLimiter(String openLimit, String closeLimit) {
             this.openLimit = openLimit;
             this.closeLimit = closeLimit;
+            this.pattern = Pattern.compile(getRegexPattern());
         }
 
         private String getRegexPattern() {
@@ -460,4 +515,133 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
             return sb.toString();
         }
     }
+
+    /**
+     * A skeleton split at its ++ markers, so the markers can be substituted in a single pass.
+     * <br>
+     * The substitutions are those made a parameter at a time, provided the markers of the skeleton pair up with no
+     * +++ and the parameters cannot create or join up markers, which is checked for each render. When that cannot be
+     * guaranteed {@link #substitute(Map)} returns null and the parameters are substituted a parameter at a time.
+     */
+    private static class SubstitutionPlan {
+
+        private static final String MARKER = "++";
+
+        // The text around the markers, there is one more literal than there are names
+        private final List<String>  literals   = new ArrayList<>();
+        private final List<String>  names      = new ArrayList<>();
+        private final List<String>  lowerNames = new ArrayList<>();
+
+        // The text between one marker and the next, which a parameter name could span
+        private final Set<String>   between    = new HashSet<>();
+
+        private SubstitutionPlan() {
+        }
+
+        /**
+         * @return the plan, or null if the markers in the skeleton do not pair up
+         */
+        private static SubstitutionPlan tokenize(String skeleton) {
+            if (skeleton.contains("+++")) {
+                return null;
+            }
+
+            SubstitutionPlan plan = new SubstitutionPlan();
+            int position = 0;
+            while (true) {
+                int open = skeleton.indexOf(MARKER, position);
+                if (open < 0) {
+                    plan.literals.add(skeleton.substring(position));
+                    break;
+                }
+                int close = skeleton.indexOf(MARKER, open + MARKER.length());
+                if (close < 0) {
+                    return null;
+                }
+                plan.literals.add(skeleton.substring(position, open));
+                String name = skeleton.substring(open + MARKER.length(), close);
+                plan.names.add(name);
+                plan.lowerNames.add(asciiLowerCase(name));
+                position = close + MARKER.length();
+            }
+
+            for (int i = 1; i < plan.names.size(); i++) {
+                plan.between.add(asciiLowerCase(plan.literals.get(i)));
+            }
+
+            return plan;
+        }
+
+        /**
+         * @return the skeleton with the parameters substituted, or null if they must be substituted a parameter at a
+         *         time
+         */
+        private String substitute(Map<String, Object> parameters) {
+            Map<String, String> values = new HashMap<>();
+            for (Entry<String, Object> substitution : parameters.entrySet()) {
+                Object value = substitution.getValue();
+                if (value == null) {
+                    continue;
+                }
+                String key = substitution.getKey();
+                String text;
+                if (value instanceof String) {
+                    text = (String) value;
+                } else if (value instanceof Integer) {
+                    text = ((Integer) value).toString();
+                } else {
+                    return null;
+                }
+                // A name containing \\E would not be quoted in the delimiter regex
+                if (key == null || key.contains(MARKER) || key.contains("\\E") || text.contains(MARKER)) {
+                    return null;
+                }
+
+                // The delimiters are matched ignoring the case of ASCII letters, the first parameter found is used
+                String lowerKey = asciiLowerCase(key);
+                if (spansMarkers(lowerKey)) {
+                    return null;
+                }
+                values.putIfAbsent(lowerKey, text);
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < names.size(); i++) {
+                sb.append(literals.get(i));
+                String value = values.get(lowerNames.get(i));
+                if (value != null) {
+                    sb.append(value);
+                } else {
+                    sb.append(MARKER).append(names.get(i)).append(MARKER);
+                }
+            }
+            sb.append(literals.get(names.size()));
+
+            return sb.toString();
+        }
+
+        /**
+         * A name that starts and ends with the text between markers may match from the end of one unused marker to
+         * the start of another once the markers in between have been substituted
+         */
+        private boolean spansMarkers(String lowerKey) {
+            boolean starts = false;
+            boolean ends = false;
+            for (String text : between) {
+                starts |= lowerKey.startsWith(text);
+                ends |= lowerKey.endsWith(text);
+            }
+            return starts && ends;
+        }
+
+        private static String asciiLowerCase(String text) {
+            char[] chars = text.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                    chars[i] += 'a' - 'A';
+                }
+            }
+            return new String(chars);
+        }
+    }
 }
@@ -0,0 +1,20 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.artifact.internal;
+
+import java.io.InputStream;
+
+import dev.galasa.artifact.ISkeletonProcessor;
+import dev.galasa.artifact.SkeletonProcessorException;
+
+/**
+ * A skeleton processor that can parse a skeleton once and render it many times
+ */
+interface SkeletonCompiler extends ISkeletonProcessor {
+
+    CompiledSkeleton compile(InputStream skeleton) throws SkeletonProcessorException;
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.artifact.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.osgi.framework.Bundle;
+
+/**
+ * The skeletons compiled from the test bundles, so a skeleton rendered many times is read and parsed once.
+ * <br>
+ * Skeletons are keyed by bundle, path and skeleton type. The entries of a bundle do not change while it is
+ * installed, the last modified time of the bundle is part of the key so an updated bundle is read again.
+ */
+class SkeletonTemplateCache {
+
+    private static final int                           MAX_SKELETONS = 256;
+
+    private static final Map<String, CompiledSkeleton> skeletons     = new LinkedHashMap<String, CompiledSkeleton>(MAX_SKELETONS, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledSkeleton> eldest) {
+            return size() > MAX_SKELETONS;
+        }
+    };
+
+    private SkeletonTemplateCache() {
+    }
+
+    /**
+     * @return the compiled skeleton, or null if it has not been compiled
+     */
+    static synchronized CompiledSkeleton get(Bundle bundle, String path, int skeletonType) {
+        return skeletons.get(key(bundle, path, skeletonType));
+    }
+
+    /**
+     * @return the compiled skeleton to use, which may have been compiled by another thread in the meantime
+     */
+    static synchronized CompiledSkeleton put(Bundle bundle, String path, int skeletonType, CompiledSkeleton skeleton) {
+        CompiledSkeleton existing = skeletons.putIfAbsent(key(bundle, path, skeletonType), skeleton);
+        return existing == null ? skeleton : existing;
+    }
+
+    private static String key(Bundle bundle, String path, int skeletonType) {
+        return bundle.getBundleId() + ":" + bundle.getLastModified() + ":" + skeletonType + ":" + path;
+    }
+}
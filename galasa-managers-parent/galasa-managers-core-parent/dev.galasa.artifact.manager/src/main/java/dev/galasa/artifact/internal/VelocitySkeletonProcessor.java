@@ -1,7 +1,7 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2019.
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.artifact.internal;
 
@@ -16,16 +16,21 @@ import java.util.Map.Entry;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
+import org.apache.velocity.runtime.RuntimeInstance;
 
-import dev.galasa.artifact.ISkeletonProcessor;
 import dev.galasa.artifact.SkeletonProcessorException;
 import dev.galasa.framework.spi.IFramework;
 
-public class VelocitySkeletonProcessor implements ISkeletonProcessor {
+public class VelocitySkeletonProcessor implements SkeletonCompiler {
 
-    private static final Log logger = LogFactory.getLog(VelocitySkeletonProcessor.class);
+    private static final Log       logger        = LogFactory.getLog(VelocitySkeletonProcessor.class);
+
+    private static final String    TEMPLATE_NAME = "VelocityRenderer";
+
+    // One engine is initialised and shared by all the processors
+    private static RuntimeInstance engine;
 
     public VelocitySkeletonProcessor(IFramework framework) {
     }
@@ -34,24 +39,39 @@ public class VelocitySkeletonProcessor implements ISkeletonProcessor {
     public InputStream processSkeleton(InputStream skeleton, Map<String, Object> parameters)
             throws SkeletonProcessorException {
 
-        return processVelocitySkeleton(skeleton, parameters);
+        return compile(skeleton).render(parameters);
     }
 
-    private InputStream processVelocitySkeleton(InputStream skeleton, Map<String, Object> parameters)
-            throws SkeletonProcessorException {
-
-        logger.info("Processing skeleton with Velocity");
+    /**
+     * Parse the skeleton into a velocity template that can be merged with different parameters
+     */
+    @Override
+    public CompiledSkeleton compile(InputStream skeleton) throws SkeletonProcessorException {
 
         InputStream safeEOF = new ByteArrayInputStream(" ".getBytes());
         InputStream streamPlus = new SequenceInputStream(skeleton, safeEOF);
         InputStreamReader ir = new InputStreamReader(streamPlus);
 
+        RuntimeInstance velocity = getEngine();
+
+        Template template = new Template();
         try {
-            Velocity.init();
+            template.setRuntimeServices(velocity);
+            template.setName(TEMPLATE_NAME);
+            template.setData(velocity.parse(ir, TEMPLATE_NAME));
+            template.initDocument();
         } catch (Exception e) {
-            throw new SkeletonProcessorException("Error attempting to initialise velocity", e);
+            throw new SkeletonProcessorException("Error attempting to process skeleton with velocity", e);
         }
 
+        return parameters -> processVelocitySkeleton(template, parameters);
+    }
+
+    private InputStream processVelocitySkeleton(Template template, Map<String, Object> parameters)
+            throws SkeletonProcessorException {
+
+        logger.info("Processing skeleton with Velocity");
+
         VelocityContext context = new VelocityContext();
 
         // Supplied parameters will override our defaults
@@ -63,7 +83,7 @@ public class VelocitySkeletonProcessor implements ISkeletonProcessor {
         OutputStreamWriter ow = new OutputStreamWriter(baos);
 
         try {
-            Velocity.evaluate(context, ow, "VelocityRenderer", ir);
+            template.merge(context, ow);
             ow.close();
         } catch (Exception e) {
             throw new SkeletonProcessorException("Error attempting to process skeleton with velocity", e);
@@ -71,4 +91,17 @@ public class VelocitySkeletonProcessor implements ISkeletonProcessor {
 
         return new ByteArrayInputStream(baos.toByteArray());
     }
+
+    private static synchronized RuntimeInstance getEngine() throws SkeletonProcessorException {
+        if (engine == null) {
+            RuntimeInstance velocity = new RuntimeInstance();
+            try {
+                velocity.init();
+            } catch (Exception e) {
+                throw new SkeletonProcessorException("Error attempting to initialise velocity", e);
+            }
+            engine = velocity;
+        }
+        return engine;
+    }
 }
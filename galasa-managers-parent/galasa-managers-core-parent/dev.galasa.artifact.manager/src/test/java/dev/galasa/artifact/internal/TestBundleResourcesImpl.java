@@ -0,0 +1,154 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.artifact.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.osgi.framework.Bundle;
+
+import dev.galasa.artifact.TestBundleResourceException;
+
+public class TestBundleResourcesImpl {
+
+    private static final AtomicLong bundleIds = new AtomicLong();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Bundle bundleMock;
+
+    private BundleResourcesImpl bundleResources;
+
+    @Before
+    public void setup() throws Exception {
+        write("resources/zip/a.txt", "Hello ++NAME++\n".getBytes(StandardCharsets.UTF_8));
+        write("resources/zip/sub/b.txt", "Goodbye\n".getBytes(StandardCharsets.UTF_8));
+        write("resources/jars/one.jar", jar("dev.galasa.app", "1.0.0"));
+        write("resources/jars/two.jar", jar("dev.galasa.app", "2.0.0"));
+        write("resources/jars/other.jar", jar("dev.galasa.other", "3.0.0"));
+
+        //*** A new bundle for each test, so nothing is found in the index from another test
+        bundleMock = Mockito.mock(Bundle.class);
+        Mockito.when(bundleMock.getBundleId()).thenReturn(bundleIds.incrementAndGet());
+        Mockito.when(bundleMock.getEntryPaths(Mockito.anyString())).thenAnswer(invocation -> {
+            String path = invocation.getArgument(0);
+            path = path.endsWith("/") ? path : path + "/";
+            File directory = new File(folder.getRoot(), path);
+            String[] names = directory.list();
+            if (names == null) {
+                return null;
+            }
+            Arrays.sort(names);
+            String[] paths = new String[names.length];
+            for (int i = 0; i < names.length; i++) {
+                paths[i] = path + names[i] + (new File(directory, names[i]).isDirectory() ? "/" : "");
+            }
+            return Collections.enumeration(Arrays.asList(paths));
+        });
+        Mockito.when(bundleMock.getEntry(Mockito.anyString())).thenAnswer(invocation -> {
+            File file = new File(folder.getRoot(), invocation.getArgument(0));
+            return file.exists() ? file.toURI().toURL() : null;
+        });
+
+        bundleResources = new BundleResourcesImpl(bundleMock, null);
+    }
+
+    @Test
+    public void testZipDirectoryContents() throws Exception {
+        Map<String, Object> parameters = Collections.singletonMap("NAME", "fred");
+
+        Map<String, String> entries = unzip(bundleResources.zipDirectoryContents("zip", parameters, null, false));
+        Assert.assertEquals("Zip should contain the processed files", "Hello fred\n", entries.get("a.txt"));
+        Assert.assertEquals("Zip should contain the files in subdirectories", "Goodbye\n", entries.get("sub/b.txt"));
+        Assert.assertEquals("Zip should contain only the files in the directory", 2, entries.size());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        bundleResources.zipDirectoryContents("zip", parameters, "UTF-8", true, baos);
+        entries = unzip(new GZIPInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        Assert.assertEquals("Gzipped zip should contain the processed files", "Hello fred\n", entries.get("a.txt"));
+
+        Mockito.verify(bundleMock, Mockito.times(1)).getEntryPaths("resources/zip");
+    }
+
+    @Test
+    public void testZipDirectoryContentsBadEncoding() throws Exception {
+        Assert.assertThrows("expected exception should be thrown", TestBundleResourceException.class, () -> {
+            bundleResources.zipDirectoryContents("zip", null, "NOT-AN-ENCODING", false);
+        });
+    }
+
+    @Test
+    public void testRetrieveJar() throws Exception {
+        byte[] two = Files.readAllBytes(new File(folder.getRoot(), "resources/jars/two.jar").toPath());
+        byte[] one = Files.readAllBytes(new File(folder.getRoot(), "resources/jars/one.jar").toPath());
+
+        Assert.assertArrayEquals("Highest version in range should be selected", two, IOUtils.toByteArray(bundleResources.retrieveJar("dev.galasa.app", "[1.0.0,3.0.0)", "jars/")));
+        Assert.assertArrayEquals("Version in range should be selected", one, IOUtils.toByteArray(bundleResources.retrieveJar("dev.galasa.app", "(0.9,1.5]", "jars/")));
+        Assert.assertArrayEquals("Exact version should be selected", one, IOUtils.toByteArray(bundleResources.retrieveJar("dev.galasa.app", "1.0.0", "jars/")));
+        Assert.assertThrows("expected exception should be thrown", TestBundleResourceException.class, () -> {
+            bundleResources.retrieveJar("dev.galasa.app", "[4.0.0,5.0.0]", "jars/");
+        });
+
+        //*** The other jar is read once for its manifest and once to search it, whichever jar is being looked for
+        Mockito.verify(bundleMock, Mockito.times(2)).getEntry("/resources/jars/other.jar");
+    }
+
+    private void write(String path, byte[] content) throws Exception {
+        File file = new File(folder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            fos.write(content);
+        }
+    }
+
+    private byte[] jar(String symbolicName, String version) throws Exception {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Bundle-SymbolicName", symbolicName);
+        manifest.getMainAttributes().putValue("Bundle-Version", version);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (JarOutputStream jaros = new JarOutputStream(baos, manifest)) {
+            jaros.putNextEntry(new ZipEntry("dummy.txt"));
+            jaros.write(version.getBytes(StandardCharsets.UTF_8));
+        }
+        return baos.toByteArray();
+    }
+
+    private Map<String, String> unzip(InputStream inputStream) throws Exception {
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zipis = new ZipInputStream(inputStream)) {
+            ZipEntry entry;
+            while ((entry = zipis.getNextEntry()) != null) {
+                entries.put(entry.getName(), IOUtils.toString(zipis, StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
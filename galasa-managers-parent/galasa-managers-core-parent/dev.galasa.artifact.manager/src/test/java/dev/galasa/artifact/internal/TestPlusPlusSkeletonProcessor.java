@@ -0,0 +1,72 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.artifact.internal;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPlusPlusSkeletonProcessor {
+
+    private final PlusPlusSkeletonProcessor processor = new PlusPlusSkeletonProcessor(null);
+
+    @Test
+    public void testRender() throws Exception {
+        String skeleton = "//++JOBNAME++ JOB\n//STEP1 EXEC PGM=++program++\n//DD1 DD DSN=++HLQ++.++missing++\n//  <a20>++comment++\n";
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("jobname", "TESTJOB");
+        parameters.put("PROGRAM", "IEFBR14");
+        parameters.put("hlq", "GALASA");
+        parameters.put("comment", 42);
+
+        Assert.assertEquals("Skeleton should be rendered", "//TESTJOB JOB\n//STEP1 EXEC PGM=IEFBR14\n//                 42\n", render(skeleton, parameters));
+    }
+
+    @Test
+    public void testSameAsParameterAtATime() throws Exception {
+        Random random = new Random(1);
+        String[] pieces = { "++a++", "++B++", "++c++", "++d.e++", "++unknown++", " ", "\n", "+", "x", "=", "<a12>", "a", "b", "++" };
+        //*** A value containing its own marker would never finish substituting a parameter at a time
+        String[] values = { "1", "value", "+", "++B++", "A B", "", "<a5>", "b" };
+        String[] keys = { "a", "A", "c", "d.e", " ", "a++", "x=" };
+
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder skeleton = new StringBuilder();
+            for (int j = random.nextInt(20); j > 0; j--) {
+                skeleton.append(pieces[random.nextInt(pieces.length)]);
+            }
+            Map<String, Object> parameters = new LinkedHashMap<>();
+            for (int j = random.nextInt(5); j > 0; j--) {
+                parameters.put(keys[random.nextInt(keys.length)], values[random.nextInt(values.length)]);
+            }
+
+            //*** An empty collection changes nothing, but the parameters are then substituted a parameter at a time
+            Map<String, Object> parameterAtATime = new LinkedHashMap<>(parameters);
+            parameterAtATime.put("list", Collections.emptyList());
+
+            Assert.assertEquals("Skeleton '" + skeleton + "' with " + parameters + " should render the same", render(skeleton.toString(), parameterAtATime), render(skeleton.toString(), parameters));
+        }
+    }
+
+    @Test
+    public void testCompiledSkeletonRenderedMoreThanOnce() throws Exception {
+        CompiledSkeleton skeleton = processor.compile(new ByteArrayInputStream("<for item in ++items++>++item++,</for>\n\n++name++".getBytes()));
+
+        Assert.assertEquals("Loop should be rendered", "x,y,\n", IOUtils.toString(skeleton.render(Collections.singletonMap("items", Arrays.asList("x", "y"))), "UTF-8"));
+        Assert.assertEquals("Marker should be rendered", "\nfred\n", IOUtils.toString(skeleton.render(Collections.singletonMap("name", "fred")), "UTF-8"));
+    }
+
+    private String render(String skeleton, Map<String, Object> parameters) throws Exception {
+        return IOUtils.toString(processor.processSkeleton(new ByteArrayInputStream(skeleton.getBytes()), parameters), "UTF-8");
+    }
+}
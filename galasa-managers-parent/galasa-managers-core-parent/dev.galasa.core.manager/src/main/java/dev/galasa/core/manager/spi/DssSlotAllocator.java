@@ -0,0 +1,372 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.core.manager.spi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+/**
+ * Allocates and frees slots counted by a single DSS property, e.g. <code>image.MV2A.current.slots</code>.
+ *
+ * Each change to the count is made in one DSS transaction together with the properties that record who holds the
+ * slot, so the count and the slot records can never disagree. If another run changes the count first the
+ * transaction fails and is retried, without recursion, after an exponential backoff with full jitter, so a burst of
+ * runs starting together spreads its retries out rather than hammering the DSS in lock step. Any other DSS failure
+ * is thrown at once.
+ *
+ * Threads in this JVM allocating against the same count in the same DSS namespace queue in turn for it, so only one
+ * of them at a time competes with other runs. Use {@link #forCount(IDynamicStatusStoreService, String, String)} to
+ * share one allocator, and its contention counts, between every user of a count.
+ */
+public class DssSlotAllocator {
+
+    private static final Log logger = LogFactory.getLog(DssSlotAllocator.class);
+
+    public static final int  DEFAULT_MAX_ATTEMPTS           = 50;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 50;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS     = 5000;
+
+    private static final Map<String, ReentrantLock>    queues     = new ConcurrentHashMap<>();
+    private static final Map<String, DssSlotAllocator> allocators = new ConcurrentHashMap<>();
+
+    private final IDynamicStatusStoreService dss;
+    private final String                     countKey;
+    private final String                     queueKey;
+    private final int                        maxAttempts;
+    private final long                       initialBackoffMillis;
+    private final long                       maxBackoffMillis;
+
+    private final LongAdder transactions  = new LongAdder();
+    private final LongAdder conflicts     = new LongAdder();
+    private final LongAdder backoffMillis = new LongAdder();
+
+    private volatile ContentionListener contentionListener;
+
+    /**
+     * Receives the contention on a count after each change to it, e.g. to publish it as metrics
+     */
+    @FunctionalInterface
+    public interface ContentionListener {
+        /**
+         * @param countKey the property holding the number of slots in use
+         * @param transactions the number of transactions attempted for the change
+         * @param conflicts the number of those transactions that failed because the values had changed, and were retried
+         * @param backoffMillis the time spent waiting between attempts
+         */
+        void contention(String countKey, int transactions, int conflicts, long backoffMillis);
+    }
+
+    /**
+     * @param dss the DSS holding the count
+     * @param namespace the DSS namespace of the count, e.g. <code>zos</code>
+     * @param countKey the property holding the number of slots in use
+     */
+    public DssSlotAllocator(@NotNull IDynamicStatusStoreService dss, @NotNull String namespace, @NotNull String countKey) {
+        this(dss, namespace, countKey, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * @param dss the DSS holding the count
+     * @param namespace the DSS namespace of the count, e.g. <code>zos</code>
+     * @param countKey the property holding the number of slots in use
+     * @param maxAttempts the number of times to try a change to the count before giving up
+     * @param initialBackoffMillis the longest wait after the first failed attempt
+     * @param maxBackoffMillis the longest wait after any failed attempt
+     */
+    public DssSlotAllocator(@NotNull IDynamicStatusStoreService dss, @NotNull String namespace, @NotNull String countKey, int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("The maximum number of attempts must be greater than 0");
+        }
+        this.dss = dss;
+        this.countKey = countKey;
+        this.queueKey = queueKey(namespace, countKey);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Returns the allocator for a count, creating it on first use, so the contention counts accumulate for the life of
+     * the JVM rather than for a single allocation
+     *
+     * @param dss the DSS holding the count
+     * @param namespace the DSS namespace of the count, e.g. <code>zos</code>
+     * @param countKey the property holding the number of slots in use
+     * @return the allocator
+     */
+    public static DssSlotAllocator forCount(@NotNull IDynamicStatusStoreService dss, @NotNull String namespace, @NotNull String countKey) {
+        return allocators.compute(queueKey(namespace, countKey),
+                (key, allocator) -> allocator != null && allocator.dss == dss ? allocator : new DssSlotAllocator(dss, namespace, countKey));
+    }
+
+    /**
+     * @param contentionListener the listener to tell about the contention after each change, or null
+     */
+    public void setContentionListener(ContentionListener contentionListener) {
+        this.contentionListener = contentionListener;
+    }
+
+    /**
+     * Allocate a slot if fewer than the maximum are in use
+     *
+     * @param maxSlots the maximum number of slots
+     * @param actions DSS actions to perform in the same transaction, e.g. to record the holder of the slot
+     * @return true if the slot was allocated, false if all the slots are in use
+     * @throws DynamicStatusStoreException if the slot could not be allocated within the maximum number of attempts
+     */
+    public boolean allocate(int maxSlots, IDssAction... actions) throws DynamicStatusStoreException {
+        return allocateNamedSlot(maxSlots, null, null, null, null, actions) != null;
+    }
+
+    /**
+     * Allocate a slot with a unique name if fewer than the maximum are in use. The names already in use are read
+     * once for each attempt and the first free name is reserved in the same transaction as the count, so the names
+     * are not probed one DSS request at a time.
+     *
+     * @param maxSlots the maximum number of slots
+     * @param slotKeyPrefix the prefix of the properties holding the slot names, e.g. <code>image.MV2A.slot.</code>
+     * @param slotNames the candidate names in order of preference
+     * @param slotValue the value of the slot name property, usually the run name
+     * @param slotProperties properties to set for a slot name in the same transaction, or null
+     * @param actions other DSS actions to perform in the same transaction
+     * @return the slot name, or null if all the slots are in use
+     * @throws DynamicStatusStoreException if the slot could not be allocated within the maximum number of attempts
+     */
+    public String allocateNamedSlot(int maxSlots, String slotKeyPrefix, IntFunction<String> slotNames, String slotValue,
+            Function<String, Map<String, String>> slotProperties, IDssAction... actions) throws DynamicStatusStoreException {
+        return inTurn(() -> {
+            String usedSlots = this.dss.get(this.countKey);
+            if (currentSlots(usedSlots) >= maxSlots) {
+                return null;
+            }
+
+            Transaction transaction = new Transaction("");
+            if (slotKeyPrefix != null) {
+                Map<String, String> usedNames = this.dss.getPrefix(slotKeyPrefix);
+                String slotName;
+                for (int i = 0; ; i++) {
+                    slotName = slotNames.apply(i);
+                    if (!usedNames.containsKey(slotKeyPrefix + slotName)) {
+                        break;
+                    }
+                }
+                transaction = new Transaction(slotName);
+                transaction.actions.add(new DssAdd(slotKeyPrefix + slotName, slotValue));
+                if (slotProperties != null) {
+                    for (Entry<String, String> property : slotProperties.apply(slotName).entrySet()) {
+                        transaction.actions.add(new DssUpdate(property.getKey(), property.getValue()));
+                    }
+                }
+            }
+            transaction.actions.add(changeCount(usedSlots, 1));
+            Collections.addAll(transaction.actions, actions);
+            return transaction;
+        });
+    }
+
+    /**
+     * Free a slot, never reducing the count below zero
+     *
+     * @param actions DSS actions to perform in the same transaction, e.g. to mark the slot record free
+     * @return false if there was no count to reduce
+     * @throws DynamicStatusStoreException if the slot could not be freed within the maximum number of attempts
+     */
+    public boolean free(IDssAction... actions) throws DynamicStatusStoreException {
+        return inTurn(() -> {
+            String usedSlots = this.dss.get(this.countKey);
+            if (usedSlots == null) {
+                return null;
+            }
+            Transaction transaction = new Transaction("");
+            transaction.actions.add(changeCount(usedSlots, -1));
+            Collections.addAll(transaction.actions, actions);
+            return transaction;
+        }) != null;
+    }
+
+    /**
+     * @return the number of transactions attempted
+     */
+    public long getTransactions() {
+        return this.transactions.sum();
+    }
+
+    /**
+     * @return the number of transactions that failed because the values had changed, and were retried
+     */
+    public long getConflicts() {
+        return this.conflicts.sum();
+    }
+
+    /**
+     * @return the total time spent waiting between attempts
+     */
+    public long getBackoffMillis() {
+        return this.backoffMillis.sum();
+    }
+
+    /**
+     * Returns how long to wait after a failed attempt, a random time up to a limit that doubles with each attempt
+     *
+     * @param attempt the number of the attempt that failed, from 1
+     * @return the wait in milliseconds
+     */
+    protected long backoff(int attempt) {
+        long limit = this.initialBackoffMillis << Math.min(attempt - 1, 30);
+        if (limit <= 0 || limit > this.maxBackoffMillis) {
+            limit = this.maxBackoffMillis;
+        }
+        return limit <= 0 ? 0 : ThreadLocalRandom.current().nextLong(limit + 1);
+    }
+
+    protected void sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+    }
+
+    /**
+     * The DSS actions for one attempt, and the slot name to return if they succeed
+     */
+    private static class Transaction {
+        private final String           slotName;
+        private final List<IDssAction> actions = new ArrayList<>();
+
+        private Transaction(String slotName) {
+            this.slotName = slotName;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Attempt {
+        /**
+         * Read the current values and build the transaction to change them
+         *
+         * @return the transaction, or null if there is nothing to do
+         */
+        Transaction prepare() throws DynamicStatusStoreException;
+    }
+
+    private String inTurn(Attempt attempt) throws DynamicStatusStoreException {
+        ReentrantLock queue = queues.computeIfAbsent(this.queueKey, k -> new ReentrantLock(true));
+        queue.lock();
+        int attempted = 0;
+        int conflicted = 0;
+        long waited = 0;
+        try {
+            DynamicStatusStoreException lastException = null;
+            for (int i = 1; i <= this.maxAttempts; i++) {
+                Transaction transaction = attempt.prepare();
+                if (transaction == null) {
+                    return null;
+                }
+                try {
+                    attempted++;
+                    this.transactions.increment();
+                    this.dss.performActions(transaction.actions.toArray(new IDssAction[transaction.actions.size()]));
+                    if (i > 1) {
+                        logger.debug("Updated " + this.countKey + " after " + i + " attempts, waited " + waited + "ms");
+                    }
+                    return transaction.slotName;
+                } catch (DynamicStatusStoreException e) {
+                    if (!isConflict(transaction, e)) {
+                        throw e;
+                    }
+                    //*** Another run changed the count or took the slot name, try again with the new values
+                    lastException = e;
+                    conflicted++;
+                    this.conflicts.increment();
+                }
+                if (i < this.maxAttempts) {
+                    long wait = backoff(i);
+                    logger.trace("Failed to update " + this.countKey + ", retrying in " + wait + "ms");
+                    try {
+                        sleep(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new DynamicStatusStoreException("Interrupted waiting to update " + this.countKey, e);
+                    }
+                    waited += wait;
+                    this.backoffMillis.add(wait);
+                }
+            }
+            throw new DynamicStatusStoreException("Unable to update " + this.countKey + " after " + this.maxAttempts + " attempts", lastException);
+        } finally {
+            queue.unlock();
+            notifyContention(attempted, conflicted, waited);
+        }
+    }
+
+    /**
+     * A failed transaction is a conflict if another run has changed a value it expected, otherwise the DSS itself
+     * failed and retrying would only hold up the other users of the count
+     */
+    private boolean isConflict(Transaction transaction, DynamicStatusStoreException failure) {
+        try {
+            for (IDssAction action : transaction.actions) {
+                if (action instanceof DssSwap) {
+                    DssSwap swap = (DssSwap) action;
+                    if (!Objects.equals(swap.getOldValue(), this.dss.get(swap.getKey()))) {
+                        return true;
+                    }
+                } else if (action instanceof DssAdd && this.dss.get(((DssAdd) action).getKey()) != null) {
+                    return true;
+                }
+            }
+        } catch (DynamicStatusStoreException e) {
+            failure.addSuppressed(e);
+        }
+        return false;
+    }
+
+    private void notifyContention(int attempted, int conflicted, long waited) {
+        ContentionListener listener = this.contentionListener;
+        if (listener == null || attempted == 0) {
+            return;
+        }
+        try {
+            listener.contention(this.countKey, attempted, conflicted, waited);
+        } catch (RuntimeException e) {
+            logger.warn("Contention listener failed for " + this.countKey, e);
+        }
+    }
+
+    private IDssAction changeCount(String usedSlots, int change) {
+        String newSlots = Integer.toString(Math.max(0, currentSlots(usedSlots) + change));
+        if (usedSlots == null) {
+            return new DssAdd(this.countKey, newSlots);
+        }
+        return new DssSwap(this.countKey, usedSlots, newSlots);
+    }
+
+    private static String queueKey(String namespace, String countKey) {
+        return "dss." + namespace + "." + countKey;
+    }
+
+    private static int currentSlots(String usedSlots) {
+        return usedSlots == null ? 0 : Integer.parseInt(usedSlots);
+    }
+}
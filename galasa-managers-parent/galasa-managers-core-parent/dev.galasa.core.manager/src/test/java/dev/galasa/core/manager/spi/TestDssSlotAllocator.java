@@ -0,0 +1,203 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.core.manager.spi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class TestDssSlotAllocator {
+
+    private static final String NAMESPACE = "zos";
+
+    private static final String COUNT_KEY = "image.IMAGE.current.slots";
+
+    private static final String SLOT_PREFIX = "image.IMAGE.slot.";
+
+    private static final String RUN_NAME = "RUN1";
+
+    @Mock
+    private IDynamicStatusStoreService dssMock;
+
+    private final List<List<IDssAction>> transactions = new ArrayList<>();
+
+    private DssSlotAllocator allocator;
+
+    @Before
+    public void setup() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            List<IDssAction> actions = new ArrayList<>();
+            for (Object action : invocation.getArguments()) {
+                actions.add((IDssAction) action);
+            }
+            transactions.add(actions);
+            return null;
+        }).when(dssMock).performActions(Mockito.any());
+        allocator = new DssSlotAllocator(dssMock, NAMESPACE, COUNT_KEY, 3, 0, 0);
+    }
+
+    @Test
+    public void testAllocateNamedSlot() throws Exception {
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn("1");
+        Map<String, String> usedNames = new HashMap<>();
+        usedNames.put(SLOT_PREFIX + "SLOT_" + RUN_NAME, RUN_NAME);
+        Mockito.when(dssMock.getPrefix(SLOT_PREFIX)).thenReturn(usedNames);
+
+        String slotName = allocator.allocateNamedSlot(2, SLOT_PREFIX, i -> i == 0 ? "SLOT_" + RUN_NAME : "SLOT_" + RUN_NAME + "_" + i, RUN_NAME,
+                name -> Collections.singletonMap("slot.run." + RUN_NAME + "." + SLOT_PREFIX + name, "active"));
+        Assert.assertEquals("allocateNamedSlot() should return the first free name", "SLOT_" + RUN_NAME + "_1", slotName);
+        Assert.assertEquals("allocateNamedSlot() should use a single transaction", 1, transactions.size());
+        List<IDssAction> actions = transactions.get(0);
+        Assert.assertEquals("Transaction should reserve the slot name", SLOT_PREFIX + slotName, ((DssAdd) actions.get(0)).getKey());
+        Assert.assertEquals("Transaction should reserve the slot name", RUN_NAME, ((DssAdd) actions.get(0)).getValue());
+        Assert.assertEquals("Transaction should set the slot properties", "slot.run." + RUN_NAME + "." + SLOT_PREFIX + slotName, ((DssUpdate) actions.get(1)).getKey());
+        DssSwap swap = (DssSwap) actions.get(2);
+        Assert.assertEquals("Transaction should increase the count", Arrays.asList(COUNT_KEY, "1", "2"), Arrays.asList(swap.getKey(), swap.getOldValue(), swap.getNewValue()));
+    }
+
+    @Test
+    public void testAllocate() throws Exception {
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn(null);
+        DssUpdate holder = new DssUpdate("holder", RUN_NAME);
+        Assert.assertTrue("allocate() should allocate a slot", allocator.allocate(1, holder));
+        List<IDssAction> actions = transactions.get(0);
+        DssAdd add = (DssAdd) actions.get(0);
+        Assert.assertEquals("Transaction should create the count", Arrays.asList(COUNT_KEY, "1"), Arrays.asList(add.getKey(), add.getValue()));
+        Assert.assertSame("Transaction should include the supplied actions", holder, actions.get(1));
+
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn("1");
+        Assert.assertFalse("allocate() should not allocate a slot when they are all in use", allocator.allocate(1, holder));
+        Assert.assertEquals("No transaction should be performed when the slots are all in use", 1, transactions.size());
+    }
+
+    @Test
+    public void testAllocateRetry() throws Exception {
+        //*** Read for the first attempt, read again to find the conflict, read for the retry
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn("0").thenReturn("1");
+        Mockito.doThrow(new DynamicStatusStoreException("changed")).doAnswer(invocation -> {
+            transactions.add(Arrays.asList((IDssAction) invocation.getArgument(0)));
+            return null;
+        }).when(dssMock).performActions(Mockito.any());
+        List<Object> contention = new ArrayList<>();
+        allocator.setContentionListener((countKey, attempts, conflicts, backoffMillis) -> contention.addAll(Arrays.asList(countKey, attempts, conflicts, backoffMillis)));
+
+        Assert.assertTrue("allocate() should allocate a slot", allocator.allocate(2));
+        DssSwap swap = (DssSwap) transactions.get(0).get(0);
+        Assert.assertEquals("Retry should use the new count", "1", swap.getOldValue());
+        Assert.assertEquals("getTransactions() should count every attempt", 2, allocator.getTransactions());
+        Assert.assertEquals("getConflicts() should count the failed attempts", 1, allocator.getConflicts());
+        Assert.assertEquals("The listener should be told about the contention for the change", Arrays.asList(COUNT_KEY, 2, 1, 0L), contention);
+    }
+
+    @Test
+    public void testAllocateExceptions() throws Exception {
+        //*** Another run changes the count after every read
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn("0", "1", "0", "1", "0", "1");
+        Mockito.doThrow(new DynamicStatusStoreException("changed")).when(dssMock).performActions(Mockito.any());
+        DynamicStatusStoreException expectedException = Assert.assertThrows("expected exception should be thrown", DynamicStatusStoreException.class, ()->{
+            allocator.allocate(2);
+        });
+        Assert.assertEquals("exception should contain expected message", "Unable to update " + COUNT_KEY + " after 3 attempts", expectedException.getMessage());
+        Assert.assertEquals("exception should contain expected cause", "changed", expectedException.getCause().getMessage());
+
+        Mockito.when(dssMock.get(COUNT_KEY)).thenThrow(new DynamicStatusStoreException("exception"));
+        expectedException = Assert.assertThrows("expected exception should be thrown", DynamicStatusStoreException.class, ()->{
+            allocator.allocate(2);
+        });
+        Assert.assertEquals("Read failures should not be retried", "exception", expectedException.getMessage());
+        Assert.assertEquals("Read failures should not be retried", 3, allocator.getTransactions());
+    }
+
+    @Test
+    public void testAllocateDssFailure() throws Exception {
+        //*** The count has not changed, so the transaction failed for another reason
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn("0");
+        Mockito.doThrow(new DynamicStatusStoreException("failed")).when(dssMock).performActions(Mockito.any());
+        DynamicStatusStoreException expectedException = Assert.assertThrows("expected exception should be thrown", DynamicStatusStoreException.class, ()->{
+            allocator.allocate(2);
+        });
+        Assert.assertEquals("DSS failures should be thrown at once", "failed", expectedException.getMessage());
+        Assert.assertEquals("DSS failures should not be retried", 1, allocator.getTransactions());
+        Assert.assertEquals("DSS failures should not be counted as conflicts", 0, allocator.getConflicts());
+
+        //*** The slot name was taken by another run
+        Mockito.when(dssMock.getPrefix(SLOT_PREFIX)).thenReturn(new HashMap<>());
+        Mockito.when(dssMock.get(SLOT_PREFIX + "SLOT_" + RUN_NAME)).thenReturn("RUN2");
+        expectedException = Assert.assertThrows("expected exception should be thrown", DynamicStatusStoreException.class, ()->{
+            allocator.allocateNamedSlot(2, SLOT_PREFIX, i -> "SLOT_" + RUN_NAME, RUN_NAME, null);
+        });
+        Assert.assertEquals("A taken slot name should be retried", "Unable to update " + COUNT_KEY + " after 3 attempts", expectedException.getMessage());
+        Assert.assertEquals("A taken slot name should be counted as a conflict", 3, allocator.getConflicts());
+    }
+
+    @Test
+    public void testFree() throws Exception {
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn("2").thenReturn("0").thenReturn(null);
+        DssUpdate free = new DssUpdate("holder", "free");
+        Assert.assertTrue("free() should free the slot", allocator.free(free));
+        DssSwap swap = (DssSwap) transactions.get(0).get(0);
+        Assert.assertEquals("Transaction should reduce the count", Arrays.asList("2", "1"), Arrays.asList(swap.getOldValue(), swap.getNewValue()));
+        Assert.assertSame("Transaction should include the supplied actions", free, transactions.get(0).get(1));
+
+        Assert.assertTrue("free() should free the slot", allocator.free());
+        swap = (DssSwap) transactions.get(1).get(0);
+        Assert.assertEquals("Count should not be reduced below zero", "0", swap.getNewValue());
+
+        Assert.assertFalse("free() should return false without a count", allocator.free(free));
+        Assert.assertEquals("No transaction should be performed without a count", 2, transactions.size());
+    }
+
+    @Test
+    public void testForCount() throws Exception {
+        DssSlotAllocator shared = DssSlotAllocator.forCount(dssMock, NAMESPACE, COUNT_KEY);
+        Assert.assertSame("forCount() should return the same allocator for a count", shared, DssSlotAllocator.forCount(dssMock, NAMESPACE, COUNT_KEY));
+        Assert.assertNotSame("forCount() should return a different allocator for another count", shared, DssSlotAllocator.forCount(dssMock, NAMESPACE, "image.OTHER.current.slots"));
+        IDynamicStatusStoreService otherNamespaceDss = Mockito.mock(IDynamicStatusStoreService.class);
+        Assert.assertNotSame("forCount() should return a different allocator for a count in another namespace", shared, DssSlotAllocator.forCount(otherNamespaceDss, "docker", COUNT_KEY));
+        Assert.assertSame("forCount() should keep the allocator for a count in another namespace", shared, DssSlotAllocator.forCount(dssMock, NAMESPACE, COUNT_KEY));
+
+        Mockito.when(dssMock.get(COUNT_KEY)).thenReturn("0");
+        long before = shared.getTransactions();
+        DssSlotAllocator.forCount(dssMock, NAMESPACE, COUNT_KEY).allocate(2);
+        Assert.assertEquals("The counts should accumulate across users of the count", before + 1, shared.getTransactions());
+
+        IDynamicStatusStoreService otherDss = Mockito.mock(IDynamicStatusStoreService.class);
+        Assert.assertNotSame("forCount() should replace the allocator for a different DSS", shared, DssSlotAllocator.forCount(otherDss, NAMESPACE, COUNT_KEY));
+    }
+
+    @Test
+    public void testBackoff() throws Exception {
+        DssSlotAllocator backoffAllocator = new DssSlotAllocator(dssMock, NAMESPACE, COUNT_KEY, 3, 50, 200);
+        for (int i = 0; i < 20; i++) {
+            long wait = backoffAllocator.backoff(1);
+            Assert.assertTrue("backoff() should wait up to the initial backoff after the first attempt", wait >= 0 && wait <= 50);
+            Assert.assertTrue("backoff() should wait no longer than the maximum backoff", backoffAllocator.backoff(40) <= 200);
+        }
+
+        Assert.assertThrows("expected exception should be thrown", IllegalArgumentException.class, ()->{
+            new DssSlotAllocator(dssMock, NAMESPACE, COUNT_KEY, 0, 50, 200);
+        });
+    }
+}
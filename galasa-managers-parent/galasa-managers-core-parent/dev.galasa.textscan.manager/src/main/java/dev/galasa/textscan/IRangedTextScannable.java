@@ -0,0 +1,36 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.textscan;
+
+import java.io.InputStream;
+
+/**
+ * A scannable that can report the size of its text and fetch the text from an offset, so the {@link ILogScanner}
+ * can checkpoint it without reading the text, and scan it since the checkpoint without reading the text before.
+ * <br>
+ * Sizes and offsets are in bytes for an InputStream scannable and characters for a String scannable, as with
+ * {@link ILogScanner#getCheckpoint()}.
+ *
+ */
+public interface IRangedTextScannable extends ITextScannable {
+
+    /**
+     * Fetch the current size of the scannable text
+     *
+     * @return the size, or -1 if it is not known and the text must be read to find it
+     * @throws TextScanException If there is an error fetching the size
+     */
+    public long getScannableSize() throws TextScanException;
+
+    /**
+     * Fetch the InputStream for the scannable, starting at an offset
+     *
+     * @param offset The offset of the first byte to be returned
+     * @return The latest inputstream, from the offset
+     * @throws TextScanException If there is an error fetching the inputstream, it is not an inputstream or the text is shorter than the offset
+     */
+    public InputStream getScannableInputStream(long offset) throws TextScanException;
+}
@@ -6,6 +6,7 @@
 package dev.galasa.textscan;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.regex.Pattern;
 
 
@@ -106,6 +107,24 @@ public interface ITextScanner {
      */
     ITextScanner scan(InputStream inputStream, Pattern searchPattern, Pattern failPattern, int count) throws FailTextFoundException, MissingTextException, IncorrectOccurrencesException, TextScanException;
     
+    /**
+     * Search an InputStream for several regex patterns in a single pass.  The search will find at least "count" occurrences of every searchPattern
+     * and none of the failPatterns.  Patterns compiled with Pattern.LITERAL are matched as exact text, which is faster than a regex when there are many of them.
+     * <br>
+     * NOTE: as with the other InputStream scans, the text is read a line at a time, so a match cannot span more than 10 lines.
+     * 
+     * @param inputStream The inputStream to be searched
+     * @param searchPatterns The regexes to search for, at least one is required
+     * @param failPatterns Failure regexes to search for, can be null or empty meaning no fail search
+     * @param count At least how many occurrences of each searchPattern must exist
+     * @return This text scanner for fluent calls
+     * @throws FailTextFoundException If any of the failPatterns was found
+     * @throws MissingTextException If no occurrences of one of the searchPatterns were found
+     * @throws IncorrectOccurrencesException If incorrect number of occurrences of one of the searchPatterns were found
+     * @throws TextScanException If any other problem found
+     */
+    ITextScanner scan(InputStream inputStream, List<Pattern> searchPatterns, List<Pattern> failPatterns, int count) throws FailTextFoundException, MissingTextException, IncorrectOccurrencesException, TextScanException;
+    
     /**
      * Convenience method for scan(inputStream, Pattern.Compile("\Q" + searchString + "\E"), Pattern.Compile("\Q" + failString + "\E"), count)
      * 
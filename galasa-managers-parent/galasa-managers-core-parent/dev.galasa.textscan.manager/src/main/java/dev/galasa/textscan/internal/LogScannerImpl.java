@@ -6,12 +6,14 @@
 package dev.galasa.textscan.internal;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
 
 import dev.galasa.textscan.FailTextFoundException;
 import dev.galasa.textscan.ILogScanner;
+import dev.galasa.textscan.IRangedTextScannable;
 import dev.galasa.textscan.ITextScannable;
 import dev.galasa.textscan.ITextScanner;
 import dev.galasa.textscan.IncorrectOccurrencesException;
@@ -27,6 +29,7 @@ public class LogScannerImpl implements ILogScanner {
 	private static final String QUOTE = "'";
 	
 	private ITextScanner textScanner = new TextScannerImpl();
+	private ResumableTextScanner checkpointScanner = new ResumableTextScanner();
     private ITextScannable scannable;
 	private String scannableName;
 	protected long checkpoint = -1;
@@ -48,6 +51,7 @@ public class LogScannerImpl implements ILogScanner {
     public ILogScanner reset() {
     	this.scannable = null;
     	this.scannableName = null;
+    	this.checkpointScanner.restart(this.checkpoint);
     	
         return this;
     }
@@ -55,10 +59,16 @@ public class LogScannerImpl implements ILogScanner {
     @Override
     public ILogScanner checkpoint() throws TextScanException {
     	checkScannableNoNull();
-    	if (this.scannable.isScannableInputStream()) {
-    		try {
-				byte[] bytes = IOUtils.toByteArray(this.scannable.getScannableInputStream());
-				this.checkpoint = bytes.length;
+    	long size = -1;
+    	if (this.scannable instanceof IRangedTextScannable) {
+    		size = ((IRangedTextScannable) this.scannable).getScannableSize();
+    	}
+    	if (size >= 0) {
+    		this.checkpoint = size;
+    	} else if (this.scannable.isScannableInputStream()) {
+    		//*** Count the bytes rather than reading the whole log into memory
+    		try (InputStream inputStream = this.scannable.getScannableInputStream()) {
+				this.checkpoint = IOUtils.consume(inputStream);
 			} catch (IOException e) {
 	    		throw new TextScanException("Unable to checkpoint scannable '" + this.scannableName + QUOTE, e);
 			}
@@ -67,6 +77,7 @@ public class LogScannerImpl implements ILogScanner {
     	} else {
     		throw new TextScanException("Unable to checkpoint scannable '" + this.scannableName + QUOTE +", unknown scannable type");
     	}
+    	this.checkpointScanner.restart(this.checkpoint);
 
         return this;
     }
@@ -74,12 +85,14 @@ public class LogScannerImpl implements ILogScanner {
     @Override
 	public ILogScanner setCheckpoint(long checkpoint) throws TextScanException {
     	this.checkpoint = checkpoint;
+    	this.checkpointScanner.restart(this.checkpoint);
 		return this;
 	}
 
 	@Override
     public ILogScanner resetCheckpoint() {
     	this.checkpoint = -1;
+    	this.checkpointScanner.restart(this.checkpoint);
         return this;
     }
 
@@ -93,8 +106,7 @@ public class LogScannerImpl implements ILogScanner {
     	checkIsCheckpointed();
     	try {
     		if (this.scannable.isScannableInputStream()) {
-    			skipToCheckpoint();
-    			this.textScanner.scan(this.scannable.getScannableInputStream(), searchPattern, failPattern, count);
+    			this.checkpointScanner.scan(getInputStreamSinceCheckpoint(searchPattern, failPattern), searchPattern, failPattern, count);
     		} else if (this.scannable.isScannableString()) {
     			this.textScanner.scan(this.scannable.getScannableString().substring((int) this.checkpoint), searchPattern, failPattern, count);
     		} else {
@@ -117,8 +129,7 @@ public class LogScannerImpl implements ILogScanner {
     	checkIsCheckpointed();
     	try {
     		if (this.scannable.isScannableInputStream()) {
-    			skipToCheckpoint();
-    			this.textScanner.scan(this.scannable.getScannableInputStream(), searchString, failString, count);
+    			this.checkpointScanner.scan(getInputStreamSinceCheckpoint(searchString, failString), searchString, failString, count);
     		} else if (this.scannable.isScannableString()) {
     			this.textScanner.scan(this.scannable.getScannableString().substring((int) this.checkpoint), searchString, failString, count);
     		} else {
@@ -141,8 +152,7 @@ public class LogScannerImpl implements ILogScanner {
     	checkIsCheckpointed();
     	try {
     		if (this.scannable.isScannableInputStream()) {
-    			skipToCheckpoint();
-    			return this.textScanner.scanForMatch(this.scannable.getScannableInputStream(), searchPattern, failPattern, occurrance);
+    			return this.checkpointScanner.scanForMatch(getInputStreamSinceCheckpoint(searchPattern, failPattern), searchPattern, failPattern, occurrance);
     		} else if (this.scannable.isScannableString()) {
     			return this.textScanner.scanForMatch(this.scannable.getScannableString().substring((int) this.checkpoint), searchPattern, failPattern, occurrance);
     		} else {
@@ -162,8 +172,7 @@ public class LogScannerImpl implements ILogScanner {
     	checkIsCheckpointed();
     	try {
     		if (this.scannable.isScannableInputStream()) {
-    			skipToCheckpoint();
-    			return this.textScanner.scanForMatch(this.scannable.getScannableInputStream(), searchString, failString, occurrance);
+    			return this.checkpointScanner.scanForMatch(getInputStreamSinceCheckpoint(searchString, failString), searchString, failString, occurrance);
     		} else if (this.scannable.isScannableString()) {
     			return this.textScanner.scanForMatch(this.scannable.getScannableString().substring((int) this.checkpoint), searchString, failString, occurrance);
     		} else {
@@ -295,4 +304,41 @@ public class LogScannerImpl implements ILogScanner {
 		}
 	}
 
+	protected InputStream getInputStreamSinceCheckpoint(String searchString, String failString) throws TextScanException {
+		return getInputStreamSinceCheckpoint(TextScannerImpl.literalPattern(searchString), failString == null ? null : TextScannerImpl.literalPattern(failString));
+	}
+
+	/**
+	 * Fetch the InputStream from where the last scan for the patterns since the checkpoint reached, so only the text
+	 * appended since is read. If the log is now shorter the scan starts again from the checkpoint
+	 */
+	protected InputStream getInputStreamSinceCheckpoint(Pattern searchPattern, Pattern failPattern) throws TextScanException {
+		long position = this.checkpointScanner.getPosition(searchPattern, failPattern);
+		if (this.scannable instanceof IRangedTextScannable) {
+			IRangedTextScannable rangedScannable = (IRangedTextScannable) this.scannable;
+			rangedScannable.updateScannable();
+			long size = rangedScannable.getScannableSize();
+			if (size >= 0 && size < position) {
+				this.checkpointScanner.restart(this.checkpoint);
+				position = this.checkpoint;
+			}
+			return rangedScannable.getScannableInputStream(position);
+		}
+
+		if (position != this.checkpoint) {
+			try {
+				this.scannable.updateScannable();
+				InputStream inputStream = this.scannable.getScannableInputStream();
+				if (IOUtils.skip(inputStream, position) == position) {
+					return inputStream;
+				}
+			} catch (IOException e) {
+				throw new TextScanException("Unable to skip to last scan of scannable '" + this.scannableName + QUOTE, e);
+			}
+			this.checkpointScanner.restart(this.checkpoint);
+		}
+		skipToCheckpoint();
+		return this.scannable.getScannableInputStream();
+	}
+
 }
@@ -0,0 +1,166 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.textscan.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.input.CountingInputStream;
+
+import dev.galasa.textscan.TextScanException;
+import dev.galasa.textscan.internal.StreamingTextScanner.MatchListener;
+
+/**
+ * A {@link TextScannerImpl} that remembers where its InputStream scans reached, so the {@link LogScannerImpl} can scan
+ * a growing log since the checkpoint reading only the text appended since the last scan.
+ * <br>
+ * The streams passed to the scan methods must start at {@link #getPosition(Pattern, Pattern)} for the patterns. The
+ * matching state of each combination of patterns is kept with the matches that can no longer change. A scan reads
+ * the new text into that state, replays the kept matches to the caller, then finishes a copy of the state as if the
+ * text ended there, so the matches in the last lines are counted without losing those that continue into text not yet written.
+ */
+class ResumableTextScanner extends TextScannerImpl {
+
+	private static final int MAX_SCANS = 16;
+
+	private final Map<String, ResumableScan> scans = new LinkedHashMap<String, ResumableScan>(MAX_SCANS, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ResumableScan> eldest) {
+			return size() > MAX_SCANS;
+		}
+	};
+
+	private long start;
+
+	/**
+	 * Discard the scans, the next scans will start at a new position
+	 *
+	 * @param start the position of the first byte to be scanned
+	 */
+	void restart(long start) {
+		this.scans.clear();
+		this.start = start;
+	}
+
+	/**
+	 * @return the position of the next byte to be scanned for the patterns
+	 */
+	long getPosition(Pattern searchPattern, Pattern failPattern) {
+		ResumableScan scan = this.scans.get(key(Collections.singletonList(searchPattern), failPattern == null ? Collections.emptyList() : Collections.singletonList(failPattern)));
+		return scan == null ? this.start : scan.position;
+	}
+
+	@Override
+	void streamScan(InputStream inputStream, List<Pattern> searchPatterns, List<Pattern> failPatterns, boolean failFast, MatchListener listener) throws TextScanException {
+		String key = key(searchPatterns, failPatterns);
+		ResumableScan scan = this.scans.get(key);
+		if (scan == null) {
+			scan = new ResumableScan(new StreamingTextScanner(searchPatterns, failPatterns, false), this.start);
+			this.scans.put(key, scan);
+		}
+
+		CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+		try (Reader reader = new InputStreamReader(countingInputStream)) {
+			scan.scanner.read(reader, scan);
+		} catch (IOException e) {
+			//*** The state may be part way through the new text
+			this.scans.remove(key);
+			throw new TextScanException("Problem in InputStream scan", e);
+		}
+		scan.position += countingInputStream.getByteCount();
+
+		if (!scan.replay(listener)) {
+			scan.scanner.copy().finish(listener);
+		}
+	}
+
+	private static String key(List<Pattern> searchPatterns, List<Pattern> failPatterns) {
+		StringBuilder key = new StringBuilder();
+		for (Pattern pattern : searchPatterns) {
+			key.append(pattern.flags()).append(':').append(pattern.pattern()).append('\u0000');
+		}
+		key.append('\u0001');
+		for (Pattern pattern : failPatterns) {
+			key.append(pattern.flags()).append(':').append(pattern.pattern()).append('\u0000');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * The state of the scan for a combination of patterns, with the matches found so far. Repeated matches of the
+	 * same text are kept as a count
+	 */
+	private static class ResumableScan implements MatchListener {
+		private final StreamingTextScanner scanner;
+		private final List<KeptMatch>      matches = new ArrayList<>();
+		private long                       position;
+
+		private ResumableScan(StreamingTextScanner scanner, long position) {
+			this.scanner = scanner;
+			this.position = position;
+		}
+
+		@Override
+		public boolean searchMatched(int index, String text) {
+			keep(index, false, text);
+			return false;
+		}
+
+		@Override
+		public boolean failMatched(int index, String text) {
+			keep(index, true, text);
+			return false;
+		}
+
+		private void keep(int index, boolean fail, String text) {
+			if (!this.matches.isEmpty()) {
+				KeptMatch last = this.matches.get(this.matches.size() - 1);
+				if (last.index == index && last.fail == fail && last.text.equals(text)) {
+					last.times++;
+					return;
+				}
+			}
+			this.matches.add(new KeptMatch(index, fail, text));
+		}
+
+		/**
+		 * @return true if the listener ended the scan
+		 */
+		private boolean replay(MatchListener listener) {
+			for (KeptMatch match : this.matches) {
+				for (int i = 0; i < match.times; i++) {
+					if (match.fail ? listener.failMatched(match.index, match.text) : listener.searchMatched(match.index, match.text)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	private static class KeptMatch {
+		private final int     index;
+		private final boolean fail;
+		private final String  text;
+		private int           times = 1;
+
+		private KeptMatch(int index, boolean fail, String text) {
+			this.index = index;
+			this.fail = fail;
+			this.text = text;
+		}
+	}
+}
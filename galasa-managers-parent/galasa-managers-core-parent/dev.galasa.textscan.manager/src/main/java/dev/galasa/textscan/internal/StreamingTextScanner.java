@@ -0,0 +1,477 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.textscan.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scans a stream of text once for any number of search and fail patterns.
+ * <br>
+ * Lines are read into a sliding window of {@link #WINDOW_LINES} lines, so a match may span that many lines as it
+ * could with the original line buffer. Each position is tested by each regex exactly once, when the line containing
+ * it becomes the oldest in the window, so matches never need de-duplicating. Literal patterns, those compiled with
+ * {@link Pattern#LITERAL} or quoted with \Q..\E, are found together by a single Aho-Corasick automaton as the text is read.
+ * <br>
+ * Matches are reported a line at a time in the order of the text, the fail matches of a line before its search matches.
+ * If failFast is set, literal fail matches are reported as soon as they are read.
+ * <br>
+ * The scanner can be resumed, {@link #read(Reader, MatchListener)} can be called again with text appended to the
+ * stream. {@link #copy()} provides a scanner to {@link #finish(MatchListener)} with, so the matches in the last lines
+ * can be reported without ending the scan.
+ */
+class StreamingTextScanner {
+
+	static final int WINDOW_LINES = 10;
+
+	private static final int READ_SIZE = 8192;
+
+	/**
+	 * Receives the matches, return true to end the scan
+	 */
+	interface MatchListener {
+		boolean searchMatched(int index, String text);
+		boolean failMatched(int index, String text);
+	}
+
+	private final List<RegexTerm>    regexTerms = new ArrayList<>();
+	private final LiteralAutomaton   literals;
+	private final List<LiteralTerm>  literalTerms = new ArrayList<>();
+	private final boolean            failFast;
+
+	private final List<Match>        pending = new ArrayList<>();
+	private final List<Match>        committed = new ArrayList<>();
+	private final ArrayDeque<Long>   lineEnds = new ArrayDeque<>();
+
+	private char[]  buffer;
+	private int     bufferStart;
+	private int     bufferEnd;
+	private long    windowStart;
+	private int     literalState;
+	private boolean skipLineFeed;
+	private boolean lineStarted;
+	private boolean stopped;
+
+	private final Window window = new Window();
+
+	StreamingTextScanner(List<Pattern> searchPatterns, List<Pattern> failPatterns, boolean failFast) {
+		this.failFast = failFast;
+		List<String> literalStrings = new ArrayList<>();
+		addTerms(failPatterns, true, literalStrings);
+		addTerms(searchPatterns, false, literalStrings);
+		this.literals = literalStrings.isEmpty() ? null : new LiteralAutomaton(literalStrings);
+		this.buffer = new char[READ_SIZE * 2];
+	}
+
+	private StreamingTextScanner(StreamingTextScanner original) {
+		this.failFast = original.failFast;
+		this.literals = original.literals;
+		for (RegexTerm term : original.regexTerms) {
+			RegexTerm copy = new RegexTerm(term.index, term.fail, term.matcher.pattern());
+			copy.nextStart = term.nextStart;
+			this.regexTerms.add(copy);
+		}
+		for (LiteralTerm term : original.literalTerms) {
+			LiteralTerm copy = new LiteralTerm(term.index, term.fail, term.literal);
+			copy.nextStart = term.nextStart;
+			this.literalTerms.add(copy);
+		}
+		this.pending.addAll(original.pending);
+		this.lineEnds.addAll(original.lineEnds);
+
+		int length = original.bufferEnd - original.bufferStart;
+		this.buffer = Arrays.copyOfRange(original.buffer, original.bufferStart, original.bufferStart + Math.max(READ_SIZE, length * 2));
+		this.bufferEnd = length;
+		this.windowStart = original.windowStart;
+		this.literalState = original.literalState;
+		this.skipLineFeed = original.skipLineFeed;
+		this.lineStarted = original.lineStarted;
+	}
+
+	private void addTerms(List<Pattern> patterns, boolean fail, List<String> literalStrings) {
+		for (int i = 0; i < patterns.size(); i++) {
+			Pattern pattern = patterns.get(i);
+			String literal = literal(pattern);
+			if (literal != null) {
+				literalStrings.add(literal);
+				this.literalTerms.add(new LiteralTerm(i, fail, literal));
+			} else {
+				this.regexTerms.add(new RegexTerm(i, fail, pattern));
+			}
+		}
+	}
+
+	/**
+	 * @return the text a pattern matches exactly, or null if it is a regex
+	 */
+	static String literal(Pattern pattern) {
+		String regex = pattern.pattern();
+		if (pattern.flags() == Pattern.LITERAL) {
+			return regex.isEmpty() ? null : regex;
+		}
+		if (pattern.flags() == 0 && regex.length() > 4 && regex.startsWith("\\Q") && regex.indexOf("\\E") == regex.length() - 2) {
+			return regex.substring(2, regex.length() - 2);
+		}
+		return null;
+	}
+
+	/**
+	 * Scan the text until the end of the stream or the listener ends the scan
+	 */
+	void scan(Reader reader, MatchListener listener) throws IOException {
+		read(reader, listener);
+		if (!this.stopped) {
+			finish(listener);
+		}
+	}
+
+	/**
+	 * Read the text to the end of the stream, reporting the matches that can no longer change. Line ends are read
+	 * as '\n', as {@link java.io.BufferedReader#readLine()} would split them
+	 */
+	void read(Reader reader, MatchListener listener) throws IOException {
+		char[] chars = new char[READ_SIZE];
+		int read;
+		while (!this.stopped && (read = reader.read(chars)) != -1) {
+			for (int i = 0; i < read && !this.stopped; i++) {
+				char c = chars[i];
+				if (c == '\r') {
+					c = '\n';
+					this.skipLineFeed = true;
+				} else if (c == '\n' && this.skipLineFeed) {
+					this.skipLineFeed = false;
+					continue;
+				} else {
+					this.skipLineFeed = false;
+				}
+				append(c, listener);
+				this.lineStarted = c != '\n';
+			}
+		}
+	}
+
+	/**
+	 * End the text, reporting the matches in the lines still in the window
+	 */
+	void finish(MatchListener listener) {
+		//*** The last line is terminated as if it had a line end, then everything left in the window is committed
+		if (this.lineStarted) {
+			append('\n', listener);
+			this.lineStarted = false;
+		}
+		while (!this.stopped && !this.lineEnds.isEmpty()) {
+			commitOldestLine(listener);
+		}
+	}
+
+	/**
+	 * @return a scanner in the same state, which can be finished without ending this scan
+	 */
+	StreamingTextScanner copy() {
+		return new StreamingTextScanner(this);
+	}
+
+	private void append(char c, MatchListener listener) {
+		if (this.bufferEnd == this.buffer.length) {
+			makeRoom();
+		}
+		this.buffer[this.bufferEnd++] = c;
+		long end = this.windowStart + (this.bufferEnd - this.bufferStart);
+
+		if (this.literals != null) {
+			this.literalState = this.literals.next(this.literalState, c);
+			for (int literal : this.literals.outputs(this.literalState)) {
+				LiteralTerm term = this.literalTerms.get(literal);
+				long start = end - term.length;
+				if (start < term.nextStart) {
+					continue;
+				}
+				term.nextStart = end;
+				if (term.fail && this.failFast) {
+					this.stopped = listener.failMatched(term.index, term.literal);
+					if (this.stopped) {
+						return;
+					}
+				} else {
+					this.pending.add(new Match(start, term.index, term.fail, term.literal));
+				}
+			}
+		}
+
+		if (c == '\n') {
+			this.lineEnds.add(end);
+			if (this.lineEnds.size() == WINDOW_LINES) {
+				commitOldestLine(listener);
+			}
+		}
+	}
+
+	/**
+	 * Report the matches that start in the oldest line, which can see the whole window, then drop the line
+	 */
+	private void commitOldestLine(MatchListener listener) {
+		long lineEnd = this.lineEnds.remove();
+
+		for (RegexTerm term : this.regexTerms) {
+			term.find(lineEnd);
+		}
+		for (int i = this.pending.size() - 1; i >= 0; i--) {
+			if (this.pending.get(i).start < lineEnd) {
+				this.committed.add(this.pending.remove(i));
+			}
+		}
+		Collections.sort(this.committed, Match.ORDER);
+		for (Match match : this.committed) {
+			this.stopped = match.fail ? listener.failMatched(match.index, match.text) : listener.searchMatched(match.index, match.text);
+			if (this.stopped) {
+				break;
+			}
+		}
+		this.committed.clear();
+
+		this.bufferStart += (int) (lineEnd - this.windowStart);
+		this.windowStart = lineEnd;
+	}
+
+	/**
+	 * Move the window to the start of the buffer, growing the buffer if the window fills more than half of it
+	 */
+	private void makeRoom() {
+		int length = this.bufferEnd - this.bufferStart;
+		char[] target = length > this.buffer.length / 2 ? new char[this.buffer.length * 2] : this.buffer;
+		System.arraycopy(this.buffer, this.bufferStart, target, 0, length);
+		this.buffer = target;
+		this.bufferStart = 0;
+		this.bufferEnd = length;
+	}
+
+	/**
+	 * The text in the window, read by the regex matchers without copying it
+	 */
+	private class Window implements CharSequence {
+
+		@Override
+		public int length() {
+			return bufferEnd - bufferStart;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return buffer[bufferStart + index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(buffer, bufferStart + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(buffer, bufferStart, length());
+		}
+	}
+
+	private class RegexTerm {
+		private final int     index;
+		private final boolean fail;
+		private final Matcher matcher;
+		private long          nextStart;
+
+		private RegexTerm(int index, boolean fail, Pattern pattern) {
+			this.index = index;
+			this.fail = fail;
+			this.matcher = pattern.matcher("");
+		}
+
+		/**
+		 * Find the matches starting before the end of the oldest line, continuing after the end of the last match
+		 */
+		private void find(long lineEnd) {
+			long from = Math.max(windowStart, this.nextStart);
+			if (from >= lineEnd) {
+				return;
+			}
+			this.matcher.reset(window);
+			this.matcher.useTransparentBounds(true);
+			this.matcher.useAnchoringBounds(false);
+			this.matcher.region((int) (from - windowStart), window.length());
+			while (this.matcher.find()) {
+				long start = windowStart + this.matcher.start();
+				if (start >= lineEnd) {
+					break;
+				}
+				committed.add(new Match(start, this.index, this.fail, this.matcher.group()));
+				this.nextStart = windowStart + this.matcher.end();
+			}
+		}
+	}
+
+	private static class LiteralTerm {
+		private final int     index;
+		private final boolean fail;
+		private final String  literal;
+		private final int     length;
+		private long          nextStart;
+
+		private LiteralTerm(int index, boolean fail, String literal) {
+			this.index = index;
+			this.fail = fail;
+			this.literal = literal;
+			this.length = literal.length();
+		}
+	}
+
+	private static class Match {
+		private static final Comparator<Match> ORDER = (a, b) -> {
+			if (a.fail != b.fail) {
+				return a.fail ? -1 : 1;
+			}
+			return Long.compare(a.start, b.start);
+		};
+
+		private final long    start;
+		private final int     index;
+		private final boolean fail;
+		private final String  text;
+
+		private Match(long start, int index, boolean fail, String text) {
+			this.start = start;
+			this.index = index;
+			this.fail = fail;
+			this.text = text;
+		}
+	}
+
+	/**
+	 * Aho-Corasick automaton over the literals. Transitions for ASCII characters are precomputed, other characters
+	 * follow the failure links
+	 */
+	static class LiteralAutomaton {
+		private static final int   ASCII = 128;
+		private static final int[] NONE = new int[0];
+
+		private final List<int[]>                   ascii = new ArrayList<>();
+		private final List<Map<Character, Integer>> wide = new ArrayList<>();
+		private final List<int[]>                   outputs = new ArrayList<>();
+		private int[]                               failure;
+
+		LiteralAutomaton(List<String> literals) {
+			addNode();
+			for (int literal = 0; literal < literals.size(); literal++) {
+				int node = 0;
+				for (char c : literals.get(literal).toCharArray()) {
+					int child = child(node, c);
+					if (child < 0) {
+						child = addNode();
+						if (c < ASCII) {
+							this.ascii.get(node)[c] = child;
+						} else {
+							this.wide.get(node).put(c, child);
+						}
+					}
+					node = child;
+				}
+				int[] output = this.outputs.get(node);
+				output = Arrays.copyOf(output, output.length + 1);
+				output[output.length - 1] = literal;
+				this.outputs.set(node, output);
+			}
+			build();
+		}
+
+		/**
+		 * @return the state after a character
+		 */
+		int next(int state, char c) {
+			if (c < ASCII) {
+				return this.ascii.get(state)[c];
+			}
+			return wideNext(state, c);
+		}
+
+		/**
+		 * @return the literals ending at a state
+		 */
+		int[] outputs(int state) {
+			return this.outputs.get(state);
+		}
+
+		private int addNode() {
+			int[] transitions = new int[ASCII];
+			Arrays.fill(transitions, -1);
+			this.ascii.add(transitions);
+			this.wide.add(new HashMap<>());
+			this.outputs.add(NONE);
+			return this.ascii.size() - 1;
+		}
+
+		private int child(int node, char c) {
+			if (c < ASCII) {
+				return this.ascii.get(node)[c];
+			}
+			Integer child = this.wide.get(node).get(c);
+			return child == null ? -1 : child;
+		}
+
+		/**
+		 * Set the failure links breadth first, so the links and transitions of shorter prefixes are complete
+		 * before they are used, and fill in the ASCII transitions
+		 */
+		private void build() {
+			this.failure = new int[this.ascii.size()];
+			ArrayDeque<Integer> queue = new ArrayDeque<>();
+			queue.add(0);
+			while (!queue.isEmpty()) {
+				int node = queue.remove();
+				int[] transitions = this.ascii.get(node);
+				for (char c = 0; c < ASCII; c++) {
+					int child = transitions[c];
+					if (child < 0) {
+						transitions[c] = node == 0 ? 0 : this.ascii.get(this.failure[node])[c];
+					} else {
+						this.failure[child] = node == 0 ? 0 : this.ascii.get(this.failure[node])[c];
+						addOutputs(child);
+						queue.add(child);
+					}
+				}
+				for (Map.Entry<Character, Integer> entry : this.wide.get(node).entrySet()) {
+					int child = entry.getValue();
+					this.failure[child] = node == 0 ? 0 : wideNext(this.failure[node], entry.getKey());
+					addOutputs(child);
+					queue.add(child);
+				}
+			}
+		}
+
+		private int wideNext(int node, char c) {
+			Integer child;
+			while ((child = this.wide.get(node).get(c)) == null && node != 0) {
+				node = this.failure[node];
+			}
+			return child == null ? 0 : child;
+		}
+
+		private void addOutputs(int node) {
+			int[] suffixOutputs = this.outputs.get(this.failure[node]);
+			if (suffixOutputs.length > 0) {
+				int[] output = this.outputs.get(node);
+				int[] merged = Arrays.copyOf(output, output.length + suffixOutputs.length);
+				System.arraycopy(suffixOutputs, 0, merged, output.length, suffixOutputs.length);
+				this.outputs.set(node, merged);
+			}
+		}
+	}
+}
@@ -5,12 +5,12 @@
  */
 package dev.galasa.textscan.internal;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,10 +20,12 @@ import dev.galasa.textscan.ITextScanner;
 import dev.galasa.textscan.IncorrectOccurrencesException;
 import dev.galasa.textscan.MissingTextException;
 import dev.galasa.textscan.TextScanException;
+import dev.galasa.textscan.internal.StreamingTextScanner.MatchListener;
 
 public class TextScannerImpl implements ITextScanner {	
 
 	private static final String MSG_INVALID_COUNT = "Count must be greater than or equal to 1";
+	private static final String MSG_NO_SEARCH_PATTERNS = "At least one search Pattern is required";
 	private static final String MSG_INCORRECT_SCANNABLE_TYPE = "Incorrect scannable type, must be String or InputStream";
 	private static final String MSG_FAIL_FOUND = "Fail %s '%s' found";
 	private static final String MSG_SEARCH_NOT_FOUND = "Search %s '%s' not found";
@@ -67,9 +69,9 @@ public class TextScannerImpl implements ITextScanner {
 
 		Pattern fp = null;
 		if (failString != null) {
-			fp = Pattern.compile("\\Q" + failString + "\\E");
+			fp = literalPattern(failString);
 		}
-		Pattern p = Pattern.compile("\\Q" + searchString + "\\E");
+		Pattern p = literalPattern(searchString);
 		
 		ITextScanner textScanner;
 		try {
@@ -110,67 +112,61 @@ public class TextScannerImpl implements ITextScanner {
 
 	@Override
 	public ITextScanner scan(InputStream inputStream, Pattern searchPattern, Pattern failPattern, int count) throws FailTextFoundException, MissingTextException, IncorrectOccurrencesException, TextScanException {
+		return scan(inputStream, Collections.singletonList(searchPattern), failPattern == null ? Collections.emptyList() : Collections.singletonList(failPattern), count);
+	}
+
+	@Override
+	public ITextScanner scan(InputStream inputStream, List<Pattern> searchPatterns, List<Pattern> failPatterns, int count) throws FailTextFoundException, MissingTextException, IncorrectOccurrencesException, TextScanException {
 
 		if (count < 1) {
 			throw new TextScanException(MSG_INVALID_COUNT);
 		}
+		if (searchPatterns == null || searchPatterns.isEmpty()) {
+			throw new TextScanException(MSG_NO_SEARCH_PATTERNS);
+		}
+		List<Pattern> fails = failPatterns == null ? Collections.emptyList() : failPatterns;
 
-		ArrayList<Integer> foundPatternStartPositions = new ArrayList<>();
-		LinkedList<String> buffer = new LinkedList<>();
-
-		int offset = 0;
-
-		try (BufferedReader reader = new BufferedReader (new InputStreamReader(inputStream))){
-			String line = "";
-			while ((line = reader.readLine()) != null) {
-				buffer.add(line);
-				if (buffer.size() > 10) {
-					offset = offset + buffer.remove(0).length() + 1;
-				}
-
-				// Build a String from the current buffer
-				StringBuilder sb = new StringBuilder();
-				for (String queueLine : buffer) {
-					sb.append(queueLine);
-					sb.append("\n");
-				}
-
-				String currentBuffer = sb.toString();
-
-				if (failPattern != null && failPattern.matcher(currentBuffer).find()) {
-					throw new FailTextFoundException(String.format(MSG_FAIL_FOUND, PATTERN, failPattern));
-				}
-
-				Matcher m = searchPattern.matcher(currentBuffer);
-				while (m.find()) {
-
-					int stp = m.start() + offset;
-					if (!foundPatternStartPositions.contains(stp)) {
-						foundPatternStartPositions.add(stp);
+		int[] found = new int[searchPatterns.size()];
+		int[] failFound = {-1};
+		streamScan(inputStream, searchPatterns, fails, true, new MatchListener() {
+			private int remaining = searchPatterns.size();
 
-					}
+			@Override
+			public boolean searchMatched(int index, String text) {
+				if (++found[index] == count) {
+					remaining--;
 				}
+				// Without fail patterns there is nothing more to look for once every search pattern has been counted
+				return remaining == 0 && fails.isEmpty();
 			}
-			if (foundPatternStartPositions.size() >= count) {
-				return this;
+
+			@Override
+			public boolean failMatched(int index, String text) {
+				failFound[0] = index;
+				return true;
 			}
-		} catch (IOException e) {
-			throw new TextScanException("Problem in InputStream scan", e);
-		}
+		});
 
-		if(foundPatternStartPositions.isEmpty()) {
-			throw new MissingTextException(String.format(MSG_SEARCH_NOT_FOUND, PATTERN, searchPattern));
+		if (failFound[0] >= 0) {
+			throw new FailTextFoundException(String.format(MSG_FAIL_FOUND, PATTERN, fails.get(failFound[0])));
 		}
-		throw new IncorrectOccurrencesException(String.format(MSG_EXPECTING_BUT_FOUND, count, PATTERN, searchPattern, foundPatternStartPositions.size()));
+		for (int i = 0; i < found.length; i++) {
+			if (found[i] == 0) {
+				throw new MissingTextException(String.format(MSG_SEARCH_NOT_FOUND, PATTERN, searchPatterns.get(i)));
+			} else if (found[i] < count) {
+				throw new IncorrectOccurrencesException(String.format(MSG_EXPECTING_BUT_FOUND, count, PATTERN, searchPatterns.get(i), found[i]));
+			}
+		}
+		return this;
 	}
 
 	@Override
 	public ITextScanner scan(InputStream inputStream, String searchString, String failString, int count) throws FailTextFoundException, MissingTextException, IncorrectOccurrencesException, TextScanException {
 
-		Pattern p = Pattern.compile("\\Q" + searchString + "\\E");
+		Pattern p = literalPattern(searchString);
 		Pattern fp = null;
 		if (failString != null) {
-			fp = Pattern.compile("\\Q" + failString + "\\E");
+			fp = literalPattern(failString);
 		}
 		ITextScanner textScanner;
 		try {
@@ -221,10 +217,10 @@ public class TextScannerImpl implements ITextScanner {
 	@Override
 	public String scanForMatch(String text, String searchString, String failString, int occurrence) throws MissingTextException, IncorrectOccurrencesException, TextScanException {
 
-		Pattern p = Pattern.compile("\\Q" + searchString + "\\E");
+		Pattern p = literalPattern(searchString);
 		Pattern fp = null;
 		if (failString != null) {
-			fp = Pattern.compile("\\Q" + failString + "\\E");
+			fp = literalPattern(failString);
 		}
 		String match;
 		try {
@@ -267,66 +263,40 @@ public class TextScannerImpl implements ITextScanner {
 			throw new TextScanException(MSG_INVALID_COUNT);
 		}
 
-		ArrayList<Integer> foundPatternStartPositions = new ArrayList<>();
-		LinkedList<String> buffer = new LinkedList<>();
-
-		int offset = 0;
-		String foundString = "";
-
-		try (BufferedReader  reader = new BufferedReader (new InputStreamReader(inputStream))) {
-			String line = "";
-			while ((line =reader.readLine()) != null) {
-				buffer.add(line);
-				if (buffer.size() > 10) {
-					offset = offset + buffer.remove(0).length() + 1;
-				}
-
-				// Build a String from the current buffer
-				StringBuilder sb = new StringBuilder();
-				for (String queueLine : buffer) {
-					sb.append(queueLine);
-					sb.append("\n");
+		int[] found = {0};
+		String[] foundString = {null};
+		streamScan(inputStream, Collections.singletonList(searchPattern), failPattern == null ? Collections.emptyList() : Collections.singletonList(failPattern), false, new MatchListener() {
+			@Override
+			public boolean searchMatched(int index, String text) {
+				if (++found[0] < occurrence) {
+					return false;
 				}
+				foundString[0] = text;
+				return true;
+			}
 
-				String currentBuffer = sb.toString();
-
-				if (failPattern != null) {
-					Matcher fm = failPattern.matcher(currentBuffer);
-					if (fm.find()) {
-						return fm.group(); 
-					}
-				}
-				
-				Matcher m = searchPattern.matcher(currentBuffer);
-
-				while (m.find()) {
-
-					int stp = m.start() + offset;
-					if (!foundPatternStartPositions.contains(stp)) {
-						foundPatternStartPositions.add(stp);
-						foundString = m.group();
-					} 
-					if (foundPatternStartPositions.size() >= occurrence) {
-						return foundString;
-					}
-				}
+			@Override
+			public boolean failMatched(int index, String text) {
+				foundString[0] = text;
+				return true;
 			}
+		});
 
-		} catch (IOException e) {
-			throw new TextScanException("Problem in InputStream scan", e);
+		if (foundString[0] != null) {
+			return foundString[0];
 		}
-		if(foundPatternStartPositions.isEmpty()) {
+		if (found[0] == 0) {
 			throw new MissingTextException(String.format(MSG_SEARCH_NOT_FOUND, PATTERN, searchPattern));
 		}
-		throw new IncorrectOccurrencesException(String.format(MSG_UNABLE_TO_FIND_OCCURRENCE, occurrence, searchPattern, foundPatternStartPositions.size()));
+		throw new IncorrectOccurrencesException(String.format(MSG_UNABLE_TO_FIND_OCCURRENCE, occurrence, searchPattern, found[0]));
 	}
 
 	@Override
 	public String scanForMatch(InputStream inputStream, String searchString, String failString, int occurrence) throws MissingTextException, IncorrectOccurrencesException, TextScanException {
-		Pattern p = Pattern.compile("\\Q" + searchString + "\\E");
+		Pattern p = literalPattern(searchString);
 		Pattern fp = null;
 		if (failString != null) {
-			fp = Pattern.compile("\\Q" + failString + "\\E");
+			fp = literalPattern(failString);
 		}
 		String match;
 		try {
@@ -340,4 +310,22 @@ public class TextScannerImpl implements ITextScanner {
 		return match;
 	}
 
+	/**
+	 * Scan the stream once with the {@link StreamingTextScanner}, literal patterns are matched together
+	 */
+	void streamScan(InputStream inputStream, List<Pattern> searchPatterns, List<Pattern> failPatterns, boolean failFast, MatchListener listener) throws TextScanException {
+		try (Reader reader = new InputStreamReader(inputStream)) {
+			new StreamingTextScanner(searchPatterns, failPatterns, failFast).scan(reader, listener);
+		} catch (IOException e) {
+			throw new TextScanException("Problem in InputStream scan", e);
+		}
+	}
+
+	/**
+	 * @return a Pattern matching the exact text
+	 */
+	static Pattern literalPattern(String literal) {
+		return Pattern.compile("\\Q" + literal + "\\E");
+	}
+
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.textscan.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import dev.galasa.textscan.IRangedTextScannable;
+import dev.galasa.textscan.ITextScannable;
+import dev.galasa.textscan.TextScanException;
+
+/**
+ * A growing log that records how much of it has been read
+ */
+class DummyRangedScannable implements IRangedTextScannable {
+
+	private StringBuilder log = new StringBuilder();
+
+	private long bytesRead;
+
+	void append(String text) {
+		this.log.append(text);
+	}
+
+	void replace(String text) {
+		this.log = new StringBuilder(text);
+	}
+
+	long getBytesRead() {
+		return this.bytesRead;
+	}
+
+	@Override
+	public boolean isScannableInputStream() {
+		return true;
+	}
+
+	@Override
+	public boolean isScannableString() {
+		return false;
+	}
+
+	@Override
+	public String getScannableName() {
+		return "RangedDummy";
+	}
+
+	@Override
+	public ITextScannable updateScannable() throws TextScanException {
+		return this;
+	}
+
+	@Override
+	public InputStream getScannableInputStream() throws TextScanException {
+		return getScannableInputStream(0);
+	}
+
+	@Override
+	public String getScannableString() throws TextScanException {
+		return this.log.toString();
+	}
+
+	@Override
+	public long getScannableSize() throws TextScanException {
+		return this.log.toString().getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	@Override
+	public InputStream getScannableInputStream(long offset) throws TextScanException {
+		byte[] bytes = this.log.toString().getBytes(StandardCharsets.UTF_8);
+		if (offset > bytes.length) {
+			throw new TextScanException("Offset beyond end of log");
+		}
+		this.bytesRead += bytes.length - offset;
+		return new ByteArrayInputStream(bytes, (int) offset, bytes.length - (int) offset);
+	}
+}
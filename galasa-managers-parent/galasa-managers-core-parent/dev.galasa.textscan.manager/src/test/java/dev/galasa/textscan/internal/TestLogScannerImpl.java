@@ -123,7 +123,7 @@ public class TestLogScannerImpl {
 		assertEquals((long) TEXT_STRING.length(), logScannerSpy.getCheckpoint());
 		
 		PowerMockito.mockStatic(IOUtils.class);
-		when(IOUtils.toByteArray((InputStream) any())).thenThrow(new IOException());
+		when(IOUtils.consume((InputStream) any())).thenThrow(new IOException());
 		TextScanException expectedException = assertThrows("expected exception should be thrown", TextScanException.class, ()->{
 			logScannerSpy.checkpoint();
         });
@@ -132,7 +132,7 @@ public class TestLogScannerImpl {
         reset(textScannableMock);
 		when(textScannableMock.getScannableName()).thenReturn(SCANNABLE_NAME);
 		PowerMockito.mockStatic(IOUtils.class);
-		when(IOUtils.toByteArray((InputStream) any())).thenThrow(new IOException());
+		when(IOUtils.consume((InputStream) any())).thenThrow(new IOException());
 		expectedException = assertThrows("expected exception should be thrown", TextScanException.class, ()->{
 			logScannerSpy.checkpoint();
         });
@@ -820,4 +820,57 @@ public class TestLogScannerImpl {
         assertTrue(expectedTextScanException.getCause() instanceof IOException);
         assertEquals("EXCEPTION", expectedTextScanException.getCause().getMessage());
 	}
+	
+	@Test
+	public void testCheckpointRangedScannable() throws TextScanException {
+		DummyRangedScannable rangedScannable = new DummyRangedScannable();
+		rangedScannable.append(TEXT_STRING);
+		logScanner.setScannable(rangedScannable);
+		logScanner.checkpoint();
+		assertEquals((long) TEXT_STRING.length(), logScanner.getCheckpoint());
+		assertEquals("checkpoint() should not read the log", 0, rangedScannable.getBytesRead());
+	}
+	
+	@Test
+	public void testScanSinceCheckpointReadsAppendedText() throws TextScanException, FailTextFoundException, MissingTextException, IncorrectOccurrencesException {
+		DummyRangedScannable rangedScannable = new DummyRangedScannable();
+		rangedScannable.append("start\n");
+		logScanner.setScannable(rangedScannable);
+		logScanner.checkpoint();
+
+		rangedScannable.append("four\nfo");
+		logScanner.scanSinceCheckpoint(SEARCH_PATTERN, null, 1);
+		assertEquals("scan should read the text since the checkpoint", 7, rangedScannable.getBytesRead());
+		
+		rangedScannable.append("ur\n");
+		logScanner.scanSinceCheckpoint(SEARCH_PATTERN, null, 2);
+		assertEquals("scan should only read the appended text", 10, rangedScannable.getBytesRead());
+		assertEquals("scanForMatch should find a match split between scans", SEARCH_STRING, logScanner.scanForMatchSinceCheckpoint(SEARCH_PATTERN, null, 2));
+		
+		IncorrectOccurrencesException expectedIncorrectOccurrencesException = assertThrows("expected exception should be thrown", IncorrectOccurrencesException.class, ()->{
+			logScanner.scanSinceCheckpoint(SEARCH_STRING, null, 3);
+        });
+        assertEquals("Expecting 3 instances of Pattern '\\Q" + SEARCH_STRING + "\\E' but found 2 occurrence(s)", expectedIncorrectOccurrencesException.getCause().getCause().getMessage());
+		
+		rangedScannable.append(FAIL_STRING);
+		FailTextFoundException expectedFailTextFoundException = assertThrows("expected exception should be thrown", FailTextFoundException.class, ()->{
+			logScanner.scanSinceCheckpoint(SEARCH_PATTERN, null, 1);
+			logScanner.scanSinceCheckpoint(SEARCH_PATTERN, FAIL_PATTERN, 1);
+        });
+        assertEquals("Fail Pattern '" + FAIL_STRING + "' found", expectedFailTextFoundException.getCause().getMessage());
+		
+		// Log replaced by a shorter one
+		rangedScannable.replace("start\nfour\n");
+		logScanner.scanSinceCheckpoint(SEARCH_PATTERN, null, 1);
+		expectedIncorrectOccurrencesException = assertThrows("expected exception should be thrown", IncorrectOccurrencesException.class, ()->{
+			logScanner.scanSinceCheckpoint(SEARCH_PATTERN, null, 2);
+        });
+        assertEquals("Expecting 2 instances of Pattern '" + SEARCH_PATTERN + "' but found 1 occurrence(s)", expectedIncorrectOccurrencesException.getCause().getMessage());
+
+		logScanner.checkpoint();
+		MissingTextException expectedMissingTextException = assertThrows("expected exception should be thrown", MissingTextException.class, ()->{
+			logScanner.scanSinceCheckpoint(SEARCH_PATTERN, null, 1);
+        });
+        assertEquals("Search Pattern '" + SEARCH_PATTERN + "' not found", expectedMissingTextException.getCause().getMessage());
+	}
 }
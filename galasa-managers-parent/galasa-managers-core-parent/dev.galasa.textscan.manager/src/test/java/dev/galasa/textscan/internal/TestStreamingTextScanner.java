@@ -0,0 +1,151 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.textscan.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.textscan.FailTextFoundException;
+import dev.galasa.textscan.IncorrectOccurrencesException;
+import dev.galasa.textscan.MissingTextException;
+import dev.galasa.textscan.internal.StreamingTextScanner.LiteralAutomaton;
+import dev.galasa.textscan.internal.StreamingTextScanner.MatchListener;
+
+public class TestStreamingTextScanner {
+
+    @Test
+    public void testLiteral() {
+        Assert.assertEquals("Quoted pattern should be a literal", "a.b", StreamingTextScanner.literal(Pattern.compile("\\Qa.b\\E")));
+        Assert.assertEquals("LITERAL pattern should be a literal", "a.b", StreamingTextScanner.literal(Pattern.compile("a.b", Pattern.LITERAL)));
+        Assert.assertNull("Regex should not be a literal", StreamingTextScanner.literal(Pattern.compile("a.b")));
+        Assert.assertNull("Quoted pattern with flags should not be a literal", StreamingTextScanner.literal(Pattern.compile("\\Qa.b\\E", Pattern.CASE_INSENSITIVE)));
+        Assert.assertNull("Partly quoted pattern should not be a literal", StreamingTextScanner.literal(Pattern.compile("\\Qa\\E.\\Qb\\E")));
+        Assert.assertNull("Empty pattern should not be a literal", StreamingTextScanner.literal(Pattern.compile("", Pattern.LITERAL)));
+    }
+
+    @Test
+    public void testLiteralAutomaton() {
+        LiteralAutomaton automaton = new LiteralAutomaton(Arrays.asList("he", "she", "hers", "été"));
+        List<String> found = new ArrayList<>();
+        String text = "ushers été";
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = automaton.next(state, text.charAt(i));
+            for (int literal : automaton.outputs(state)) {
+                found.add(literal + "@" + i);
+            }
+        }
+        Assert.assertEquals("Automaton should find overlapping literals at their ends", Arrays.asList("1@3", "0@3", "2@5", "3@9"), found);
+    }
+
+    @Test
+    public void testMatchesInTextOrder() throws Exception {
+        String text = "one two\r\nthree two\rtwo four\nlast";
+        List<String> matches = scan(text, Arrays.asList(Pattern.compile("two"), Pattern.compile("\\Qtwo\\E"), Pattern.compile("th.*\ntwo")), Arrays.asList(Pattern.compile("four", Pattern.LITERAL), Pattern.compile("l.st")), false);
+        Assert.assertEquals("Matches should be reported a line at a time, fails first", Arrays.asList(
+                "search0:two", "search1:two",
+                "search2:three two\ntwo", "search0:two", "search1:two",
+                "fail0:four", "search0:two", "search1:two",
+                "fail1:last"), matches);
+
+        matches = scan(text, Arrays.asList(Pattern.compile("two")), Arrays.asList(Pattern.compile("\\Qfour\\E")), true);
+        Assert.assertEquals("Literal fail matches should be reported as soon as they are read", "fail0:four", matches.get(0));
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            text.append("Line ").append(i).append("\n");
+        }
+        List<String> matches = scan(text.toString(), Arrays.asList(Pattern.compile("Line 3\n(.*\n){8}Line 12"), Pattern.compile("Line 3\n(.*\n){9}Line 13")), Collections.emptyList(), false);
+        Assert.assertEquals("Matches should span no more than the window", Collections.singletonList("search0:Line 3\nLine 4\nLine 5\nLine 6\nLine 7\nLine 8\nLine 9\nLine 10\nLine 11\nLine 12"), matches);
+
+        matches = scan("a\nb\na\nb\na\n", Arrays.asList(Pattern.compile("a\nb\na")), Collections.emptyList(), false);
+        Assert.assertEquals("Matches should not overlap", 1, matches.size());
+    }
+
+    @Test
+    public void testSameCountsAsStringScan() throws Exception {
+        Random random = new Random(1);
+        String[] words = {"alpha", "beta", "gamma", "ERROR", "alphabet", "été", "beta gamma"};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append(words[random.nextInt(words.length)]);
+            text.append(random.nextInt(8) == 0 ? "\n" : " ");
+        }
+        text.append("\n");
+        List<Pattern> patterns = new ArrayList<>();
+        for (String word : words) {
+            patterns.add(Pattern.compile("\\Q" + word + "\\E"));
+        }
+        patterns.add(Pattern.compile("gamma\\s+alpha"));
+        patterns.add(Pattern.compile("b[a-z]+a"));
+
+        List<String> matches = scan(text.toString(), patterns, Collections.emptyList(), false);
+        for (int i = 0; i < patterns.size(); i++) {
+            Matcher matcher = patterns.get(i).matcher(text);
+            int expected = 0;
+            while (matcher.find()) {
+                expected++;
+            }
+            String prefix = "search" + i + ":";
+            Assert.assertEquals("Pattern " + patterns.get(i) + " should be found as often as in the String", expected, matches.stream().filter(match -> match.startsWith(prefix)).count());
+        }
+    }
+
+    @Test
+    public void testMultiplePatternScan() throws Exception {
+        TextScannerImpl scanner = new TextScannerImpl();
+        List<Pattern> search = Arrays.asList(Pattern.compile("one", Pattern.LITERAL), Pattern.compile("t.o"));
+        scanner.scan(stream("one two\none two\n"), search, null, 2);
+
+        Assert.assertThrows("expected exception should be thrown", FailTextFoundException.class, () -> {
+            scanner.scan(stream("one two\none two\nthree\n"), search, Arrays.asList(Pattern.compile("four"), Pattern.compile("three", Pattern.LITERAL)), 1);
+        });
+        MissingTextException missing = Assert.assertThrows("expected exception should be thrown", MissingTextException.class, () -> {
+            scanner.scan(stream("one one\n"), search, Collections.emptyList(), 1);
+        });
+        Assert.assertEquals("exception should contain expected message", "Search Pattern 't.o' not found", missing.getMessage());
+        IncorrectOccurrencesException incorrect = Assert.assertThrows("expected exception should be thrown", IncorrectOccurrencesException.class, () -> {
+            scanner.scan(stream("one two\ntwo\n"), search, Collections.emptyList(), 2);
+        });
+        Assert.assertEquals("exception should contain expected message", "Expecting 2 instances of Pattern 'one' but found 1 occurrence(s)", incorrect.getMessage());
+    }
+
+    private ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> scan(String text, List<Pattern> searchPatterns, List<Pattern> failPatterns, boolean failFast) throws Exception {
+        List<String> matches = new ArrayList<>();
+        new StreamingTextScanner(searchPatterns, failPatterns, failFast).scan(new StringReader(text), new MatchListener() {
+            @Override
+            public boolean searchMatched(int index, String text) {
+                matches.add("search" + index + ":" + text);
+                return false;
+            }
+
+            @Override
+            public boolean failMatched(int index, String text) {
+                matches.add("fail" + index + ":" + text);
+                return false;
+            }
+        });
+        return matches;
+    }
+}
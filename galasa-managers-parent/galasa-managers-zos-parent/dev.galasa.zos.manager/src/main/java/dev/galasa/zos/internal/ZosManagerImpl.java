@@ -6,6 +6,8 @@
 package dev.galasa.zos.internal;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.nio.file.Files;
@@ -66,6 +68,7 @@ import dev.galasa.zos.internal.properties.UNIXCommandExtraBundle;
 import dev.galasa.zos.internal.properties.ZosPropertiesSingleton;
 import dev.galasa.zos.spi.IZosManagerSpi;
 import dev.galasa.zos.spi.ZosImageDependencyField;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
 import dev.galasa.zosbatch.IZosBatchJob;
 import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
 import dev.galasa.zosbatch.IZosBatchJobname;
@@ -75,6 +78,7 @@ import dev.galasa.zosbatch.internal.ZosBatchJobOutputImpl;
 import dev.galasa.zosbatch.internal.ZosBatchJobOutputSpoolFileImpl;
 import dev.galasa.zosbatch.internal.ZosBatchJobnameImpl;
 import dev.galasa.zosbatch.internal.properties.JobWaitTimeout;
+import dev.galasa.zosbatch.internal.properties.SpoolFileThreads;
 import dev.galasa.zosbatch.internal.properties.BatchRestrictToImage;
 import dev.galasa.zosbatch.internal.properties.TruncateJCLRecords;
 import dev.galasa.zosbatch.internal.properties.UseSysaff;
@@ -84,9 +88,13 @@ import dev.galasa.zosconsole.ZosConsoleManagerException;
 import dev.galasa.zosconsole.internal.properties.ConsoleRestrictToImage;
 import dev.galasa.zosconsole.internal.properties.ZosConsolePropertiesSingleton;
 import dev.galasa.zosfile.ZosFileManagerException;
+import dev.galasa.zosfile.internal.properties.DatasetRetrieveRangeRecords;
+import dev.galasa.zosfile.internal.properties.DatasetRetrieveThreads;
 import dev.galasa.zosfile.internal.properties.DirectoryListMaxItems;
+import dev.galasa.zosfile.internal.properties.DirectoryListThreads;
 import dev.galasa.zosfile.internal.properties.FileRestrictToImage;
 import dev.galasa.zosfile.internal.properties.UnixFilePermissions;
+import dev.galasa.zosfile.internal.properties.VSAMRetrievePageRecords;
 import dev.galasa.zosfile.internal.properties.ZosFilePropertiesSingleton;
 
 @Component(service = { IManager.class })
@@ -100,6 +108,8 @@ public class ZosManagerImpl extends AbstractManager implements IZosManagerSpi {
 
     private static final String PRIMARY_TAG = "PRIMARY";
 
+    private static final int ARTIFACT_BUFFER_SIZE = 8192;
+
     private static final String LOG_SELECTED_FOR_ZOS_TAG = " selected for zosTag '";
     private static final String LOG_ZOS_IMAGE = "zOS Image ";
 
@@ -251,6 +261,9 @@ public class ZosManagerImpl extends AbstractManager implements IZosManagerSpi {
                 ((ZosProvisionedImageImpl)image).freeImage();
             }
         }
+
+        //*** Publish the metrics recorded during the run
+        ZosMetricsRecorder.flush(this.dss);
     }
 
     //*** We do not allow auto generate of the zos image fields as they need
@@ -565,6 +578,11 @@ public class ZosManagerImpl extends AbstractManager implements IZosManagerSpi {
 		return TruncateJCLRecords.get(imageId);
 	}
 
+	@Override
+	public int getZosBatchPropertySpoolFileThreads(String imageId) throws ZosBatchManagerException {
+		return SpoolFileThreads.get(imageId);
+	}
+
 	@Override
 	public IZosBatchJobname newZosBatchJobname(IZosImage image) throws ZosBatchException {
 		return new ZosBatchJobnameImpl(image);
@@ -600,6 +618,26 @@ public class ZosManagerImpl extends AbstractManager implements IZosManagerSpi {
 		return UnixFilePermissions.get(imageId);
 	}
 
+	@Override
+	public int getZosFilePropertyDatasetRetrieveThreads(String imageId) throws ZosFileManagerException {
+		return DatasetRetrieveThreads.get(imageId);
+	}
+
+	@Override
+	public int getZosFilePropertyDatasetRetrieveRangeRecords(String imageId) throws ZosFileManagerException {
+		return DatasetRetrieveRangeRecords.get(imageId);
+	}
+
+	@Override
+	public int getZosFilePropertyDirectoryListThreads(String imageId) throws ZosFileManagerException {
+		return DirectoryListThreads.get(imageId);
+	}
+
+	@Override
+	public int getZosFilePropertyVSAMRetrievePageRecords(String imageId) throws ZosFileManagerException {
+		return VSAMRetrievePageRecords.get(imageId);
+	}
+
 	@Override
 	public boolean getZosConsolePropertyConsoleRestrictToImage(String imageId) throws ZosConsoleManagerException {
 		return ConsoleRestrictToImage.get(imageId);
@@ -635,6 +673,22 @@ public class ZosManagerImpl extends AbstractManager implements IZosManagerSpi {
 		}
 	}
 
+	@Override
+	public void storeArtifactFromStream(Path artifactPath, InputStream content, ResultArchiveStoreContentType type) throws ZosManagerException {
+		try {
+			Files.createFile(artifactPath, type);
+			try (OutputStream outputStream = Files.newOutputStream(artifactPath)) {
+				byte[] buffer = new byte[ARTIFACT_BUFFER_SIZE];
+				int length;
+				while ((length = content.read(buffer)) != -1) {
+					outputStream.write(buffer, 0, length);
+				}
+			}
+		} catch (IOException e) {
+			throw new ZosManagerException("Unable to store artifact", e);
+		}
+	}
+
 	@Override
 	public void createArtifactDirectory(Path artifactPath) throws ZosManagerException {
 		try {
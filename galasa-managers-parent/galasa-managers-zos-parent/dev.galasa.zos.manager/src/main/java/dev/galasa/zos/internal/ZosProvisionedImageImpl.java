@@ -6,16 +6,21 @@
 package dev.galasa.zos.internal;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import dev.galasa.core.manager.spi.DssSlotAllocator;
+import dev.galasa.framework.spi.DssUpdate;
 import dev.galasa.framework.spi.IDynamicResource;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.zos.ZosManagerException;
 import dev.galasa.zos.internal.properties.ImageMaxSlots;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
+import dev.galasa.zos.spi.ZosMetricsRecorder.Metric;
 
 public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
 
@@ -23,6 +28,7 @@ public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
 
     private final IDynamicStatusStoreService dss;
     private final IDynamicResource dynamicResource;
+    private final DssSlotAllocator slotAllocator;
 
     private String allocatedSlotName;
 
@@ -30,6 +36,7 @@ public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
         super(zosManager, imageId, clusterId);
         this.dss = zosManager.getDSS();
         this.dynamicResource = this.dss.getDynamicResource("image." + getImageID());
+        this.slotAllocator = slotAllocator(this.dss, getImageID());
     }
 
     public boolean hasCapacity() throws ZosManagerException {
@@ -61,52 +68,29 @@ public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
         String runName = getZosManager().getFramework().getTestRunName();
 
         int maxSlots = ImageMaxSlots.get(getImageID());
+        long start = System.nanoTime();
         try {
-            int usedSlots = 0;
-            String currentSlots = dss.get("image." + getImageID() + ".current.slots");
-            if (currentSlots != null) {
-                usedSlots = Integer.parseInt(currentSlots);
-            }
-
-            if (usedSlots >= maxSlots) {
-                return false;
-            }
-
-            //*** allocate a slot
-            usedSlots++;        
-            if (!dss.putSwap("image." + getImageID() + ".current.slots", currentSlots, Integer.toString(usedSlots))) {
-                //*** The value of the current slots changed whilst this was running,  so we need to try again with the updated value
-                Thread.sleep(200); //*** To avoid race conditions
-                return allocateImage();
-            }
-
-            //*** Now generate a slot name so that we can track who is using all the slots
+            //*** Allocate a slot and generate a slot name so that we can track who is using all the slots, in one DSS transaction
             //*** As we dont actually care what the slotname is, to make it relevant add the runname as the slotname
             //*** Need to becareful with immediate reruns of the same run name so generate a unique slotname for each runname instance
-            String slotName = "SLOT_" + runName;
-            for(int i = 0; ;i++) {
-                String actualSlotname = slotName;
-                if (i > 0) {
-                    actualSlotname += "_" + i;
-                }
-
-                //*** Try setting the control properties
-                String allocated = Instant.now().toString();
-                String prefix = "image." + getImageID() + ".slot." + actualSlotname;
-                HashMap<String, String> otherProps = new HashMap<>();
-                otherProps.put("slot.run." + runName + "." + prefix, "active");
-                if (dss.putSwap(prefix, null, runName, otherProps)) {
-                    allocatedSlotName = actualSlotname;
-
-                    String resPrefix = "slot." + this.allocatedSlotName;
-                    //*** Set the user view properties
-                    HashMap<String, String> resProps = new HashMap<>();
-                    resProps.put(resPrefix + ".run", runName);
-                    resProps.put(resPrefix + ".allocated", allocated);
-                    dynamicResource.put(resProps);
-                    break;
-                }
+            String allocated = Instant.now().toString();
+            String slotKeyPrefix = "image." + getImageID() + ".slot.";
+            String slotName = this.slotAllocator.allocateNamedSlot(maxSlots, slotKeyPrefix,
+                    i -> i == 0 ? "SLOT_" + runName : "SLOT_" + runName + "_" + i, runName,
+                    name -> Collections.singletonMap("slot.run." + runName + "." + slotKeyPrefix + name, "active"));
+            if (slotName == null) {
+                return false;
             }
+            //*** Only successful allocations, a full image returns quickly and would hide slow allocations
+            ZosMetricsRecorder.recordSince(Metric.SLOT_ALLOCATION, start, getImageID());
+            allocatedSlotName = slotName;
+
+            String resPrefix = "slot." + this.allocatedSlotName;
+            //*** Set the user view properties
+            HashMap<String, String> resProps = new HashMap<>();
+            resProps.put(resPrefix + ".run", runName);
+            resProps.put(resPrefix + ".allocated", allocated);
+            dynamicResource.put(resProps);
         } catch (Exception e) {
             throw new ZosManagerException("Problem finding used slots for zOS Image " + getImageID(), e);
         }
@@ -120,20 +104,14 @@ public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
 
     public void freeImage() {
         try {
-            String currentSlots = dss.get("image." + getImageID() + ".current.slots");
+            String runName = getZosManager().getFramework().getTestRunName();
 
-            if (currentSlots == null) {
+            //*** Free the slot and mark the control set free in one DSS transaction
+            String prefix = "image." + getImageID() + ".slot." + this.allocatedSlotName;
+            if (!this.slotAllocator.free(new DssUpdate("slot.run." + runName + "." + prefix, "free"))) {
                 return; // Missing value, no need to update
             }
 
-            int usedSlots = Integer.parseInt(currentSlots);
-            usedSlots--;
-            if (usedSlots < 0) {
-                usedSlots = 0;
-            }
-
-            String runName = getZosManager().getFramework().getTestRunName();
-
             //*** Remove the userview set
             String resPrefix = "slot." + this.allocatedSlotName;
             //*** delete the user view properties
@@ -143,15 +121,6 @@ public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
             dynamicResource.delete(resProps);
 
             //*** Remove the control set
-            String prefix = "image." + getImageID() + ".slot." + this.allocatedSlotName;
-            HashMap<String, String> otherProps = new HashMap<>();
-            otherProps.put("slot.run." + getZosManager().getFramework().getTestRunName() + "." + prefix, "free");
-            if (!dss.putSwap("image." + getImageID() + ".current.slots", currentSlots, Integer.toString(usedSlots), otherProps)) {
-                //*** The value of the current slots changed whilst this was running,  so we need to try again with the updated value
-                Thread.sleep(200); //*** To avoid race conditions
-                freeImage();
-                return;
-            }
 
             HashSet<String> delProps = new HashSet<>();
             delProps.add("slot.run." + runName + "." + prefix);
@@ -166,6 +135,19 @@ public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
         }
     }
 
+    /**
+     * Returns the shared allocator for the slots of an image, publishing its contention as zOS metrics
+     */
+    private static DssSlotAllocator slotAllocator(IDynamicStatusStoreService dss, String imageId) {
+        DssSlotAllocator allocator = DssSlotAllocator.forCount(dss, ZosManagerImpl.NAMESPACE, "image." + imageId + ".current.slots");
+        allocator.setContentionListener((countKey, transactions, conflicts, backoffMillis) -> {
+            ZosMetricsRecorder.increment(Metric.SLOT_TRANSACTIONS, transactions, imageId);
+            ZosMetricsRecorder.increment(Metric.SLOT_CONFLICTS, conflicts, imageId);
+            ZosMetricsRecorder.increment(Metric.SLOT_BACKOFF, backoffMillis, imageId);
+        });
+        return allocator;
+    }
+
     public static void deleteDss(String runName, String imageId, String slot, IDynamicStatusStoreService dss) {
         //*** Have to be careful with the delete as we need to keep the current.slots count correct
 
@@ -186,20 +168,7 @@ public class ZosProvisionedImageImpl extends ZosBaseImageImpl {
             if ("active".equals(runSlot)) {  //*** The slot is still active so try and free it
                 if (dss.putSwap("slot.run." + runName + "." + prefix, "active", "free")) {
                     //*** Managed it,   decrement the current slots by 1,  may need a couple attempts as someone else may be updating
-                    while(true) {
-                        String sCurrentSlots = dss.get("image." + imageId + ".current.slots");
-                        int currentSlots = Integer.parseInt(sCurrentSlots);
-                        currentSlots--;
-                        if (currentSlots < 0) {
-                            currentSlots = 0;
-                        }
-
-                        if (dss.putSwap("image." + imageId + ".current.slots", sCurrentSlots, Integer.toString(currentSlots))) {
-                            break;
-                        }
-
-                        Thread.sleep(100);
-                    }
+                    slotAllocator(dss, imageId).free();
                 }
             }
 
@@ -1,10 +1,17 @@
 /*
  * Licensed Materials - Property of IBM
- * 
- * (c) Copyright IBM Corp. 2019.
+ *
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.zos.internal.metrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -12,21 +19,37 @@ import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.annotations.Component;
 
 import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IMetricsProvider;
 import dev.galasa.framework.spi.IMetricsServer;
 import dev.galasa.framework.spi.MetricsServerException;
+import dev.galasa.zos.ZosManagerException;
+import dev.galasa.zos.internal.properties.ImageMaxSlots;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
+import dev.galasa.zos.spi.ZosMetricsRecorder.Metric;
+import io.prometheus.client.Collector;
 import io.prometheus.client.Gauge;
 
+/**
+ * Publishes the zOS metrics held in the DSS. Slot utilisation is read from the slot counts of each image, the
+ * latencies, sizes and error counts are the totals recorded by the test runs with {@link ZosMetricsRecorder}
+ */
 @Component(service= {IMetricsProvider.class})
 public class ZosMetrics implements IMetricsProvider, Runnable {
-    private final Log                          logger = LogFactory.getLog(getClass());    
+    private final Log                          logger = LogFactory.getLog(getClass());
     private IFramework                         framework;
     private IMetricsServer                     metricsServer;
     private IDynamicStatusStoreService         dss;
+    private IConfigurationPropertyStoreService cps;
+
+    private static final String                METRIC_PREFIX = "galasa_zos_";
+    private static final List<String>          IMAGE_LABEL   = Collections.singletonList("image");
+    private static final String                CURRENT_SLOTS = ".current.slots";
 
     private Gauge                              noSlots;
+    private DssCollector                       dssCollector;
 
     @Override
     public boolean initialise(IFramework framework, IMetricsServer metricsServer) throws MetricsServerException {
@@ -34,6 +57,7 @@ public class ZosMetrics implements IMetricsProvider, Runnable {
         this.metricsServer = metricsServer;
         try {
             this.dss = this.framework.getDynamicStatusStoreService("zos");
+            this.cps = this.framework.getConfigurationPropertyService("zos");
         } catch (Exception e) {
             throw new MetricsServerException("Unable to initialise zOS Metrics", e);
         }
@@ -43,15 +67,17 @@ public class ZosMetrics implements IMetricsProvider, Runnable {
                 .help("How many times insufficent slots has occurred")
                 .register();
 
+        this.dssCollector = new DssCollector().register();
+
         return true;
     }
 
     @Override
     public void start() {
 
-        this.metricsServer.getScheduledExecutorService().scheduleWithFixedDelay(this, 
-                1, 
-                10, 
+        this.metricsServer.getScheduledExecutorService().scheduleWithFixedDelay(this,
+                1,
+                10,
                 TimeUnit.SECONDS);
     }
 
@@ -72,6 +98,11 @@ public class ZosMetrics implements IMetricsProvider, Runnable {
                 this.noSlots.set(Double.parseDouble(sNoSlots));
             }
 
+            //*** Slot utilisation and the series recorded by the runs
+            List<Collector.MetricFamilySamples> families = new ArrayList<>();
+            families.addAll(slotFamilies(dss.getPrefix("image.")));
+            families.addAll(seriesFamilies(dss.getPrefix(ZosMetricsRecorder.DSS_PREFIX)));
+            this.dssCollector.families = families;
 
             this.metricsServer.metricsPollSuccessful();
         } catch(Exception e) {
@@ -80,5 +111,100 @@ public class ZosMetrics implements IMetricsProvider, Runnable {
 
     }
 
+    /**
+     * Build the used, maximum and utilisation gauges for each image with a slot count
+     */
+    protected List<Collector.MetricFamilySamples> slotFamilies(Map<String, String> imageProperties) throws ZosManagerException {
+        List<Collector.MetricFamilySamples.Sample> used = new ArrayList<>();
+        List<Collector.MetricFamilySamples.Sample> max = new ArrayList<>();
+        List<Collector.MetricFamilySamples.Sample> utilisation = new ArrayList<>();
+        for (Entry<String, String> entry : new TreeMap<>(imageProperties).entrySet()) {
+            String key = entry.getKey();
+            if (!key.endsWith(CURRENT_SLOTS)) {
+                continue;
+            }
+            String imageId = key.substring("image.".length(), key.length() - CURRENT_SLOTS.length());
+            double usedSlots;
+            try {
+                usedSlots = Double.parseDouble(entry.getValue());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            int maxSlots = ImageMaxSlots.get(this.cps, imageId);
+            List<String> labelValues = Collections.singletonList(imageId);
+            used.add(new Collector.MetricFamilySamples.Sample(METRIC_PREFIX + "image_slots_used", IMAGE_LABEL, labelValues, usedSlots));
+            max.add(new Collector.MetricFamilySamples.Sample(METRIC_PREFIX + "image_slots_max", IMAGE_LABEL, labelValues, maxSlots));
+            utilisation.add(new Collector.MetricFamilySamples.Sample(METRIC_PREFIX + "image_slot_utilisation", IMAGE_LABEL, labelValues, maxSlots <= 0 ? 1.0 : usedSlots / maxSlots));
+        }
+
+        return Arrays.asList(
+                new Collector.MetricFamilySamples(METRIC_PREFIX + "image_slots_used", Collector.Type.GAUGE, "Slots in use on the zOS image", used),
+                new Collector.MetricFamilySamples(METRIC_PREFIX + "image_slots_max", Collector.Type.GAUGE, "Maximum slots on the zOS image", max),
+                new Collector.MetricFamilySamples(METRIC_PREFIX + "image_slot_utilisation", Collector.Type.GAUGE, "Fraction of the slots on the zOS image in use", utilisation));
+    }
+
+    /**
+     * Build a histogram or counter for each metric from the series totals in the DSS
+     */
+    protected List<Collector.MetricFamilySamples> seriesFamilies(Map<String, String> seriesProperties) {
+        Map<Metric, List<Collector.MetricFamilySamples.Sample>> samples = new TreeMap<>();
+        for (Metric metric : Metric.values()) {
+            samples.put(metric, new ArrayList<>());
+        }
+
+        for (Entry<String, String> entry : new TreeMap<>(seriesProperties).entrySet()) {
+            String key = entry.getKey().substring(ZosMetricsRecorder.DSS_PREFIX.length());
+            Metric metric = ZosMetricsRecorder.metricForKey(key);
+            if (metric == null) {
+                continue;
+            }
+            List<String> labelNames = metric.getLabelNames();
+            String[] labels = key.substring(metric.getKey().length() + 1).split("\\.", -1);
+            if (labels.length != labelNames.size()) {
+                continue;
+            }
+            List<String> labelValues = Arrays.asList(labels);
+            String name = METRIC_PREFIX + metric.getKey();
 
+            if (metric.isCounter()) {
+                long[] values = ZosMetricsRecorder.parse(entry.getValue(), 1);
+                samples.get(metric).add(new Collector.MetricFamilySamples.Sample(name, labelNames, labelValues, values[0] * metric.getScale()));
+                continue;
+            }
+
+            long[] bounds = metric.getBounds();
+            long[] values = ZosMetricsRecorder.parse(entry.getValue(), bounds.length + 3);
+            List<String> bucketLabelNames = new ArrayList<>(labelNames);
+            bucketLabelNames.add("le");
+            long cumulative = 0;
+            for (int i = 0; i <= bounds.length; i++) {
+                cumulative += values[i + 2];
+                List<String> bucketLabelValues = new ArrayList<>(labelValues);
+                bucketLabelValues.add(i < bounds.length ? Collector.doubleToGoString(bounds[i] * metric.getScale()) : "+Inf");
+                samples.get(metric).add(new Collector.MetricFamilySamples.Sample(name + "_bucket", bucketLabelNames, bucketLabelValues, cumulative));
+            }
+            samples.get(metric).add(new Collector.MetricFamilySamples.Sample(name + "_count", labelNames, labelValues, values[0]));
+            samples.get(metric).add(new Collector.MetricFamilySamples.Sample(name + "_sum", labelNames, labelValues, values[1] * metric.getScale()));
+        }
+
+        List<Collector.MetricFamilySamples> families = new ArrayList<>();
+        for (Entry<Metric, List<Collector.MetricFamilySamples.Sample>> entry : samples.entrySet()) {
+            Metric metric = entry.getKey();
+            families.add(new Collector.MetricFamilySamples(METRIC_PREFIX + metric.getKey(), metric.isCounter() ? Collector.Type.COUNTER : Collector.Type.HISTOGRAM, metric.getHelp(), entry.getValue()));
+        }
+        return families;
+    }
+
+    /**
+     * Returns the metrics built by the last poll of the DSS
+     */
+    private static class DssCollector extends Collector {
+
+        private volatile List<MetricFamilySamples> families = Collections.emptyList();
+
+        @Override
+        public List<MetricFamilySamples> collect() {
+            return this.families;
+        }
+    }
 }
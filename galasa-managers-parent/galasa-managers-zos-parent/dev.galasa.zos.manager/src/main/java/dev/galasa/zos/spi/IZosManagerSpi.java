@@ -5,6 +5,7 @@
  */
 package dev.galasa.zos.spi;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 
 import javax.validation.constraints.NotNull;
@@ -111,6 +112,14 @@ public interface IZosManagerSpi extends IZosManager {
 	 */
 	boolean getZosBatchPropertyTruncateJCLRecords(String imageId) throws ZosBatchManagerException;
 
+	/**
+	 * Provides other managers to the zOS Batch {@code zosbatch.batchjob.[imageid].spool.threads} property
+	 * @param imageId
+	 * @return
+	 * @throws ZosBatchManagerException
+	 */
+	int getZosBatchPropertySpoolFileThreads(String imageId) throws ZosBatchManagerException;
+
 	/**
 	 * Provides other managers a {@link IZosBatchJobname} with a prefix defined by the zOS Batch {@code zosbatch.jobname.[imageid].prefix} property
 	 * @param imageId
@@ -167,6 +176,16 @@ public interface IZosManagerSpi extends IZosManager {
 	 */
 	void storeArtifact(Path artifactPath, String content, ResultArchiveStoreContentType type) throws ZosManagerException;
 
+	/**
+	 * Store an artifact in the results archive on behalf of another manager, copying the content from a stream
+	 * rather than holding it in memory. The stream is not closed
+	 * @param artifactPath
+	 * @param content
+	 * @param type
+	 * @throws ZosManagerException
+	 */
+	void storeArtifactFromStream(Path artifactPath, InputStream content, ResultArchiveStoreContentType type) throws ZosManagerException;
+
 	/**
 	 * Create an empty dirictory in the results archive on behalf of another manager
 	 * @param artifactPath
@@ -198,6 +217,38 @@ public interface IZosManagerSpi extends IZosManager {
      */
 	String getZosFilePropertyUnixFilePermissions(String imageId) throws ZosFileManagerException;
 	
+    /**
+     * Provides other managers to the zOS File {@code zosfile.dataset.[imageid].retrieve.threads} property
+     * @param imageId
+     * @return
+     * @throws ZosFileManagerException
+     */
+	int getZosFilePropertyDatasetRetrieveThreads(String imageId) throws ZosFileManagerException;
+	
+    /**
+     * Provides other managers to the zOS File {@code zosfile.dataset.[imageid].retrieve.range.records} property
+     * @param imageId
+     * @return
+     * @throws ZosFileManagerException
+     */
+	int getZosFilePropertyDatasetRetrieveRangeRecords(String imageId) throws ZosFileManagerException;
+	
+    /**
+     * Provides other managers to the zOS File {@code zosfile.unix.[imageid].directory.list.threads} property
+     * @param imageId
+     * @return
+     * @throws ZosFileManagerException
+     */
+	int getZosFilePropertyDirectoryListThreads(String imageId) throws ZosFileManagerException;
+	
+    /**
+     * Provides other managers to the zOS File {@code zosfile.vsam.[imageid].retrieve.page.records} property
+     * @param imageId
+     * @return
+     * @throws ZosFileManagerException
+     */
+	int getZosFilePropertyVSAMRetrievePageRecords(String imageId) throws ZosFileManagerException;
+	
     /**
      * Provides other managers to the zOS Console {@code zosconsole.console.[imageid].restrict.to.image} property
      * @param imageId
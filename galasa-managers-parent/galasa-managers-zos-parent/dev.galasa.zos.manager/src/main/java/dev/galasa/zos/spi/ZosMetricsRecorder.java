@@ -0,0 +1,353 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos.spi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+
+/**
+ * Records zOS operational metrics in the test run and publishes them to the DSS for the zOS metrics provider.
+ *
+ * Recording a value only updates in-memory counters for its series, so it can be done on the hot paths, e.g. every
+ * zOSMF request or 3270 screen. The totals since the last flush are added to the DSS in a single transaction by
+ * {@link #flush(IDynamicStatusStoreService)} when the run discards its resources. The DSS holds one property per series,
+ * <code>metrics.series.[metric].[label values]</code>, with the value <code>count,sum,bucket counts...</code>,
+ * all cumulative, so the metrics server can publish them as Prometheus histograms and counters.
+ */
+public class ZosMetricsRecorder {
+
+    private static final Log logger = LogFactory.getLog(ZosMetricsRecorder.class);
+
+    public static final String DSS_PREFIX = "metrics.series.";
+
+    private static final int FLUSH_ATTEMPTS = 10;
+    private static final long FLUSH_BACKOFF_MILLIS = 50;
+
+    private static final long[] LATENCY_BOUNDS = nanos(10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000);
+    private static final long[] ALLOCATION_BOUNDS = nanos(50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000);
+    private static final long[] JOB_WAIT_BOUNDS = nanos(1000, 5000, 10000, 30000, 60000, 120000, 300000, 600000, 1800000, 3600000);
+    private static final long[] SPOOL_BOUNDS = {1024, 10240, 102400, 1048576, 10485760, 104857600};
+
+    private static final double NANOS_TO_SECONDS = 1e-9;
+    private static final double MILLIS_TO_SECONDS = 1e-3;
+
+    /**
+     * The metrics recorded. A metric without bucket bounds is a counter
+     */
+    public enum Metric {
+        SLOT_ALLOCATION("slot_allocation_seconds", "Time taken to allocate a slot on a zOS image", ALLOCATION_BOUNDS, NANOS_TO_SECONDS, "image"),
+        SLOT_TRANSACTIONS("slot_transactions_total", "DSS transactions attempted to change the slot count of a zOS image", null, 1, "image"),
+        SLOT_CONFLICTS("slot_conflicts_total", "Slot count transactions on a zOS image that failed because another run changed the count first", null, 1, "image"),
+        SLOT_BACKOFF("slot_backoff_seconds_total", "Time spent waiting to retry slot count transactions on a zOS image", null, MILLIS_TO_SECONDS, "image"),
+        REST_REQUEST("rest_request_seconds", "Latency of requests to zOSMF and RSE API servers", LATENCY_BOUNDS, NANOS_TO_SECONDS, "server", "api"),
+        REST_ERROR("rest_request_errors_total", "Requests to zOSMF and RSE API servers that failed or returned an unexpected status code", null, 1, "server", "api"),
+        JOB_WAIT("job_wait_seconds", "Time waited for batch jobs to complete", JOB_WAIT_BOUNDS, NANOS_TO_SECONDS, "image"),
+        SPOOL_FILE_SIZE("spool_file_size_bytes", "Size of the batch job spool files retrieved", SPOOL_BOUNDS, 1, "image"),
+        TERMINAL_ROUND_TRIP("terminal_round_trip_seconds", "Time from sending a 3270 attention key to the screen update that follows", LATENCY_BOUNDS, NANOS_TO_SECONDS, "image");
+
+        private final String       key;
+        private final String       help;
+        private final long[]       bounds;
+        private final double       scale;
+        private final List<String> labelNames;
+
+        private Metric(String key, String help, long[] bounds, double scale, String... labelNames) {
+            this.key = key;
+            this.help = help;
+            this.bounds = bounds;
+            this.scale = scale;
+            this.labelNames = Collections.unmodifiableList(Arrays.asList(labelNames));
+        }
+
+        /**
+         * @return the name of the metric, used in the DSS property and the Prometheus metric name
+         */
+        public String getKey() {
+            return this.key;
+        }
+
+        public String getHelp() {
+            return this.help;
+        }
+
+        /**
+         * @return the upper bounds of the buckets in recorded units, or null for a counter
+         */
+        public long[] getBounds() {
+            return this.bounds == null ? null : this.bounds.clone();
+        }
+
+        /**
+         * @return the factor converting recorded units to the published unit, e.g. nanoseconds to seconds
+         */
+        public double getScale() {
+            return this.scale;
+        }
+
+        public List<String> getLabelNames() {
+            return this.labelNames;
+        }
+
+        public boolean isCounter() {
+            return this.bounds == null;
+        }
+    }
+
+    private static final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    private ZosMetricsRecorder() {
+    }
+
+    /**
+     * Record a value, e.g. a latency in nanoseconds or a size in bytes, in the histogram for a series
+     *
+     * @param metric the metric
+     * @param value the value in recorded units
+     * @param labelValues the values of the labels of the metric, in order
+     */
+    public static void record(@NotNull Metric metric, long value, String... labelValues) {
+        getSeries(metric, labelValues).record(value);
+    }
+
+    /**
+     * Record the time since a start time from {@link System#nanoTime()}
+     *
+     * @param metric the metric
+     * @param startNanos the start time
+     * @param labelValues the values of the labels of the metric, in order
+     */
+    public static void recordSince(@NotNull Metric metric, long startNanos, String... labelValues) {
+        record(metric, System.nanoTime() - startNanos, labelValues);
+    }
+
+    /**
+     * Add one to a counter
+     *
+     * @param metric the metric
+     * @param labelValues the values of the labels of the metric, in order
+     */
+    public static void increment(@NotNull Metric metric, String... labelValues) {
+        getSeries(metric, labelValues).record(1);
+    }
+
+    /**
+     * Add an amount to a counter
+     *
+     * @param metric the metric
+     * @param amount the amount in recorded units
+     * @param labelValues the values of the labels of the metric, in order
+     */
+    public static void increment(@NotNull Metric metric, long amount, String... labelValues) {
+        getSeries(metric, labelValues).add(amount);
+    }
+
+    /**
+     * Add the values recorded since the last flush to the totals in the DSS. Failures are logged rather than thrown,
+     * metrics must not fail a run, and the values are kept for the next flush
+     *
+     * @param dss the zOS DSS
+     */
+    public static void flush(@NotNull IDynamicStatusStoreService dss) {
+        Map<String, long[]> deltas = new HashMap<>();
+        for (Entry<String, Series> entry : series.entrySet()) {
+            long[] delta = entry.getValue().drain();
+            if (delta[0] > 0) {
+                deltas.put(entry.getKey(), delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (int attempt = 1; ; attempt++) {
+                Map<String, String> current = dss.getPrefix(DSS_PREFIX);
+                List<IDssAction> actions = new ArrayList<>();
+                for (Entry<String, long[]> delta : deltas.entrySet()) {
+                    String key = DSS_PREFIX + delta.getKey();
+                    String oldValue = current.get(key);
+                    String newValue = format(add(parse(oldValue, delta.getValue().length), delta.getValue()));
+                    actions.add(oldValue == null ? new DssAdd(key, newValue) : new DssSwap(key, oldValue, newValue));
+                }
+                try {
+                    dss.performActions(actions.toArray(new IDssAction[actions.size()]));
+                    return;
+                } catch (DynamicStatusStoreException e) {
+                    //*** Another run updated the same series, try again with the new totals
+                    if (attempt >= FLUSH_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+                Thread.sleep(ThreadLocalRandom.current().nextLong(FLUSH_BACKOFF_MILLIS * attempt + 1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            restore(deltas);
+            logger.warn("Interrupted updating zOS metrics");
+        } catch (Exception e) {
+            restore(deltas);
+            logger.warn("Failed to update zOS metrics", e);
+        }
+    }
+
+    private static void restore(Map<String, long[]> deltas) {
+        for (Entry<String, long[]> delta : deltas.entrySet()) {
+            series.get(delta.getKey()).restore(delta.getValue());
+        }
+    }
+
+    /**
+     * Parse a DSS series property
+     *
+     * @param value the property value, <code>count,sum,bucket counts...</code>
+     * @param length the number of values expected
+     * @return the values, zero if the property is missing or invalid
+     */
+    public static long[] parse(String value, int length) {
+        long[] values = new long[length];
+        if (value == null) {
+            return values;
+        }
+        String[] parts = value.split(",");
+        if (parts.length != length) {
+            return values;
+        }
+        try {
+            for (int i = 0; i < length; i++) {
+                values[i] = Long.parseLong(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return new long[length];
+        }
+        return values;
+    }
+
+    /**
+     * @param metric the metric
+     * @param labelValues the values of the labels of the metric, in order
+     * @return the DSS property name for the series, after {@link #DSS_PREFIX}
+     */
+    public static String seriesKey(@NotNull Metric metric, String... labelValues) {
+        StringBuilder key = new StringBuilder(metric.getKey());
+        for (int i = 0; i < metric.getLabelNames().size(); i++) {
+            key.append(".");
+            String labelValue = i < labelValues.length ? labelValues[i] : null;
+            //*** Dots separate the labels in the property name
+            key.append(labelValue == null || labelValue.isEmpty() ? "unknown" : labelValue.replace('.', '_'));
+        }
+        return key.toString();
+    }
+
+    /**
+     * @param key the DSS property name for the series, after {@link #DSS_PREFIX}
+     * @return the metric, or null if it is not a known metric
+     */
+    public static Metric metricForKey(@NotNull String key) {
+        for (Metric metric : Metric.values()) {
+            if (key.startsWith(metric.getKey() + ".")) {
+                return metric;
+            }
+        }
+        return null;
+    }
+
+    private static Series getSeries(Metric metric, String... labelValues) {
+        return series.computeIfAbsent(seriesKey(metric, labelValues), k -> new Series(metric));
+    }
+
+    private static long[] add(long[] total, long[] delta) {
+        for (int i = 0; i < total.length; i++) {
+            total[i] += delta[i];
+        }
+        return total;
+    }
+
+    private static String format(long[] values) {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                value.append(",");
+            }
+            value.append(values[i]);
+        }
+        return value.toString();
+    }
+
+    private static long[] nanos(long... millis) {
+        long[] bounds = new long[millis.length];
+        for (int i = 0; i < millis.length; i++) {
+            bounds[i] = TimeUnit.MILLISECONDS.toNanos(millis[i]);
+        }
+        return bounds;
+    }
+
+    /**
+     * The count, sum and bucket counts of one series since the last flush
+     */
+    private static class Series {
+        private final long[]          bounds;
+        private final AtomicLongArray values;
+
+        private Series(Metric metric) {
+            this.bounds = metric.bounds;
+            this.values = new AtomicLongArray(this.bounds == null ? 1 : this.bounds.length + 3);
+        }
+
+        private void record(long value) {
+            this.values.incrementAndGet(0);
+            if (this.bounds == null) {
+                return;
+            }
+            this.values.addAndGet(1, value);
+            int bucket = 0;
+            while (bucket < this.bounds.length && value > this.bounds[bucket]) {
+                bucket++;
+            }
+            this.values.incrementAndGet(bucket + 2);
+        }
+
+        private void add(long amount) {
+            if (this.bounds != null) {
+                throw new IllegalStateException("Only a counter can be added to");
+            }
+            this.values.addAndGet(0, amount);
+        }
+
+        private void restore(long[] delta) {
+            for (int i = 0; i < delta.length; i++) {
+                this.values.addAndGet(i, delta[i]);
+            }
+        }
+
+        private long[] drain() {
+            long[] drained = new long[this.values.length()];
+            for (int i = 0; i < drained.length; i++) {
+                drained[i] = this.values.getAndSet(i, 0);
+            }
+            return drained;
+        }
+    }
+}
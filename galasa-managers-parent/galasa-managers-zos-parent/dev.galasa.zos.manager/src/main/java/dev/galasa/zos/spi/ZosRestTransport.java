@@ -0,0 +1,619 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos.spi;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.methods.CloseableHttpResponse;
+
+import com.google.gson.JsonObject;
+
+import dev.galasa.ICredentials;
+import dev.galasa.ICredentialsUsernamePassword;
+import dev.galasa.framework.spi.IFramework;
+import dev.galasa.framework.spi.creds.CredentialsException;
+import dev.galasa.http.ContentType;
+import dev.galasa.http.HttpClientException;
+import dev.galasa.http.HttpClientResponse;
+import dev.galasa.http.IHttpClient;
+import dev.galasa.zos.IZosImage;
+import dev.galasa.zos.ZosManagerException;
+
+/**
+ * Sends, controls and measures the requests sent to a single zOS REST server, e.g. zOSMF or RSE API. One instance is
+ * shared by every request to the server, whichever thread sends it.
+ *
+ * The transport owns the HTTP client for the server. Headers are merged for each request from the common headers
+ * and those supplied with the request, rather than set on the shared HTTP client, so that requests from different
+ * threads do not see each other's headers. The response is converted to a {@link Response} for the manager to
+ * wrap in its own response type.
+ *
+ * The number of requests outstanding at once is limited to the maximum supplied, so a busy test cannot queue more
+ * work on a server than it has been tuned to accept. Requests over the limit wait for an earlier one to complete.
+ *
+ * The time taken by each request is recorded in a latency histogram for its endpoint. The endpoint is the method and
+ * the leading segments of the path that name the service, e.g. <code>GET /zosmf/restfiles/ds</code>, so requests for
+ * different data sets, jobs or files are measured together. A file is measured, and keeps its place in the limit,
+ * until its content has been read and closed.
+ *
+ * When a server id is supplied, each request and each failed request is also recorded by the
+ * {@link ZosMetricsRecorder} against the server and the API named by one of the endpoint segments, e.g.
+ * <code>restfiles</code>, for the zOS metrics provider.
+ */
+public class ZosRestTransport {
+
+    private static final Log logger = LogFactory.getLog(ZosRestTransport.class);
+
+    private final String serverName;
+    private final int maxConcurrentRequests;
+    private final int endpointSegments;
+    private final Semaphore permits;
+    private final String metricsServerId;
+    private final int apiSegment;
+
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, String> commonHeaders = new ConcurrentHashMap<>();
+
+    private IHttpClient httpClient;
+
+    /**
+     * The requests the transport sends, by HTTP method and the type of the request body or response content
+     */
+    public enum RequestType {
+        /**
+         * GET, returning the content as a String
+         */
+        GET_TEXT("GET"),
+        /**
+         * GET, returning the content as a {@link JsonObject}
+         */
+        GET_JSON("GET"),
+        /**
+         * GET, returning the content as an {@link InputStream} that is not read into memory
+         */
+        GET_FILE("GET"),
+        /**
+         * POST with a {@link JsonObject} request body
+         */
+        POST_JSON("POST"),
+        /**
+         * PUT with a String request body
+         */
+        PUT_TEXT("PUT"),
+        /**
+         * PUT with a {@link JsonObject} request body
+         */
+        PUT_JSON("PUT"),
+        /**
+         * PUT with a byte[] request body
+         */
+        PUT_BINARY("PUT"),
+        /**
+         * PUT with an {@link InputStream} request body, sent without being read into memory
+         */
+        PUT_STREAM("PUT"),
+        /**
+         * DELETE with no request body
+         */
+        DELETE("DELETE");
+
+        private final String method;
+
+        RequestType(String method) {
+            this.method = method;
+        }
+
+        public String getMethod() {
+            return this.method;
+        }
+    }
+
+    /**
+     * The status and content of a response from the server
+     */
+    public static class Response {
+        private final Object content;
+        private final int statusCode;
+        private final String statusLine;
+
+        public Response(Object content, int statusCode, String statusLine) {
+            this.content = content;
+            this.statusCode = statusCode;
+            this.statusLine = statusLine;
+        }
+
+        /**
+         * @return the content, a String, {@link JsonObject}, byte[] or, for {@link RequestType#GET_FILE}, an
+         * {@link InputStream} that must be closed to release the connection
+         */
+        public Object getContent() {
+            return this.content;
+        }
+
+        public int getStatusCode() {
+            return this.statusCode;
+        }
+
+        public String getStatusLine() {
+            return this.statusLine;
+        }
+    }
+
+    /**
+     * A request to the server
+     *
+     * @param <T> the response
+     * @param <E> the exception thrown when the request fails
+     */
+    @FunctionalInterface
+    public interface RestCall<T, E extends Exception> {
+        public T call() throws E;
+    }
+
+    /**
+     * @param serverName the server, used in the latency summary
+     * @param maxConcurrentRequests the maximum number of requests outstanding at once, or 0 for no limit
+     * @param endpointSegments the maximum number of path segments that name an endpoint
+     */
+    public ZosRestTransport(@NotNull String serverName, int maxConcurrentRequests, int endpointSegments) {
+        this(serverName, maxConcurrentRequests, endpointSegments, null, 0);
+    }
+
+    /**
+     * @param serverName the server, used in the latency summary
+     * @param maxConcurrentRequests the maximum number of requests outstanding at once, or 0 for no limit
+     * @param endpointSegments the maximum number of path segments that name an endpoint
+     * @param metricsServerId the server id the requests are recorded against in the zOS metrics, or null to not record them
+     * @param apiSegment the index of the endpoint segment that names the API, e.g. 1 for <code>/zosmf/restfiles/ds</code>
+     */
+    public ZosRestTransport(@NotNull String serverName, int maxConcurrentRequests, int endpointSegments, String metricsServerId, int apiSegment) {
+        this.serverName = serverName;
+        this.maxConcurrentRequests = Math.max(0, maxConcurrentRequests);
+        this.endpointSegments = endpointSegments;
+        this.permits = this.maxConcurrentRequests > 0 ? new Semaphore(this.maxConcurrentRequests, true) : null;
+        this.metricsServerId = metricsServerId;
+        this.apiSegment = apiSegment;
+    }
+
+    /**
+     * Send a request once there is room for it on the server, recording how long it takes
+     *
+     * @param method the HTTP method
+     * @param path the request path
+     * @param call sends the request
+     * @return the response
+     * @throws E if the request fails
+     */
+    public <T, E extends Exception> T execute(@NotNull String method, @NotNull String path, @NotNull RestCall<T, E> call) throws E {
+        return execute(method, path, call, null);
+    }
+
+    /**
+     * Send a request once there is room for it on the server, recording how long it takes and whether it failed
+     *
+     * @param method the HTTP method
+     * @param path the request path
+     * @param call sends the request
+     * @param failed tests whether a response is a failure, e.g. has an unexpected status code, or null if only exceptions are failures
+     * @return the response
+     * @throws E if the request fails
+     */
+    public <T, E extends Exception> T execute(@NotNull String method, @NotNull String path, @NotNull RestCall<T, E> call, Predicate<T> failed) throws E {
+        acquire();
+        long start = System.nanoTime();
+        boolean error = true;
+        try {
+            T response = call.call();
+            error = failed != null && failed.test(response);
+            return response;
+        } finally {
+            complete(method, path, start, error);
+        }
+    }
+
+    private void acquire() {
+        if (this.permits != null) {
+            this.permits.acquireUninterruptibly();
+        }
+    }
+
+    /**
+     * Release the permit of a request and record how long it took
+     */
+    private void complete(String method, String path, long start, boolean error) {
+        long elapsed = System.nanoTime() - start;
+        if (this.permits != null) {
+            this.permits.release();
+        }
+        String endpoint = getEndpoint(method, path);
+        this.latencies.computeIfAbsent(endpoint, k -> new LatencyHistogram()).record(elapsed);
+        if (this.metricsServerId != null) {
+            String api = getApi(endpoint);
+            ZosMetricsRecorder.record(ZosMetricsRecorder.Metric.REST_REQUEST, elapsed, this.metricsServerId, api);
+            if (error) {
+                ZosMetricsRecorder.increment(ZosMetricsRecorder.Metric.REST_ERROR, this.metricsServerId, api);
+            }
+        }
+    }
+
+    /**
+     * Set up the HTTP client requests are sent on. The credentials are those with the id supplied, or the default
+     * credentials of the image if no id is supplied
+     *
+     * @param httpClient a new HTTP client
+     * @param url the server URL, e.g. <code>https://host:port</code>
+     * @param credentialsId the id of the server credentials, or null to use the image default
+     * @param framework the framework, for the credentials service
+     * @param image the image the server runs on
+     * @param trustingSSLContext true to trust the server certificate without checking it
+     * @throws ZosManagerException if the credentials are not available or the HTTP client cannot be built
+     */
+    public void initialiseHttpClient(@NotNull IHttpClient httpClient, @NotNull String url, String credentialsId, @NotNull IFramework framework, @NotNull IZosImage image, boolean trustingSSLContext) throws ZosManagerException {
+        ICredentials creds = null;
+        if (credentialsId != null) {
+            try {
+                creds = framework.getCredentialsService().getCredentials(credentialsId);
+            } catch (CredentialsException e) {
+                throw new ZosManagerException("Problem accessing credentials store", e);
+            }
+        }
+        if (creds == null) {
+            creds = image.getDefaultCredentials();
+        }
+
+        try {
+            httpClient.setURI(new URI(url));
+            if (creds instanceof ICredentialsUsernamePassword) {
+                httpClient.setAuthorisation(((ICredentialsUsernamePassword) creds).getUsername(), ((ICredentialsUsernamePassword) creds).getPassword());
+            }
+            if (trustingSSLContext) {
+                httpClient.setTrustingSSLContext();
+            }
+            httpClient.build();
+        } catch (HttpClientException | URISyntaxException e) {
+            throw new ZosManagerException("Unable to build HTTP client for " + url, e);
+        }
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Set a header sent with every request
+     *
+     * @param key the header name
+     * @param value the header value
+     */
+    public void setHeader(@NotNull String key, @NotNull String value) {
+        this.commonHeaders.put(key, value);
+    }
+
+    /**
+     * Clear the headers sent with every request
+     */
+    public void clearHeaders() {
+        this.commonHeaders.clear();
+        if (this.httpClient != null) {
+            this.httpClient.clearCommonHeaders();
+        }
+    }
+
+    /**
+     * @return the headers sent with every request
+     */
+    public Map<String, String> getCommonHeaders() {
+        return new HashMap<>(this.commonHeaders);
+    }
+
+    /**
+     * Returns the headers for a single request, the common headers overridden by those supplied
+     *
+     * @param headers the headers for the request, or null
+     * @return the headers to send
+     */
+    public Map<String, String> requestHeaders(Map<String, String> headers) {
+        HashMap<String, String> requestHeaders = new HashMap<>(this.commonHeaders);
+        if (headers != null) {
+            requestHeaders.putAll(headers);
+        }
+        if (logger.isTraceEnabled()) {
+            for (Entry<String, String> entry : requestHeaders.entrySet()) {
+                logger.trace("Adding HTTP header: " + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+        return requestHeaders;
+    }
+
+    /**
+     * Send a request on the HTTP client once there is room for it on the server, recording how long it takes and
+     * counting a response with a status code that is not expected as a failure.
+     *
+     * The content of a {@link RequestType#GET_FILE} response is read after this method returns, so the request keeps
+     * its permit, and is measured, until the returned stream is closed.
+     *
+     * @param requestType the request
+     * @param path the request path, starting with a slash
+     * @param headers the headers for the request, added to the common headers, or null
+     * @param requestBody the request body of the type required by the request type, or null
+     * @param validStatusCodes the expected status codes
+     * @return the response
+     * @throws HttpClientException if the request fails or the response cannot be read
+     */
+    public Response send(@NotNull RequestType requestType, @NotNull String path, Map<String, String> headers, Object requestBody, @NotNull List<Integer> validStatusCodes) throws HttpClientException {
+        Map<String, String> requestHeaders = requestHeaders(headers);
+        if (requestType != RequestType.GET_FILE) {
+            return execute(requestType.getMethod(), path, () -> convert(sendRequest(requestType, path, requestHeaders, requestBody)),
+                    r -> !validStatusCodes.contains(r.getStatusCode()));
+        }
+
+        acquire();
+        long start = System.nanoTime();
+        boolean streaming = false;
+        try {
+            Response response = convert(sendRequest(requestType, path, requestHeaders, requestBody));
+            boolean error = !validStatusCodes.contains(response.getStatusCode());
+            InputStream content = new CompletingInputStream((InputStream) response.getContent(), () -> complete(requestType.getMethod(), path, start, error));
+            streaming = true;
+            return new Response(content, response.getStatusCode(), response.getStatusLine());
+        } finally {
+            if (!streaming) {
+                complete(requestType.getMethod(), path, start, true);
+            }
+        }
+    }
+
+    protected Object sendRequest(RequestType requestType, String path, Map<String, String> requestHeaders, Object requestBody) throws HttpClientException {
+        switch (requestType) {
+            case GET_TEXT:
+                return this.httpClient.getText(path, requestHeaders);
+            case GET_JSON:
+                return this.httpClient.getJson(path, requestHeaders);
+            case GET_FILE:
+                return this.httpClient.getFile(path, requestHeaders);
+            case POST_JSON:
+                return this.httpClient.postJson(path, (JsonObject) requestBody, requestHeaders);
+            case PUT_TEXT:
+                return this.httpClient.putText(path, (String) requestBody, requestHeaders);
+            case PUT_JSON:
+                return this.httpClient.putJson(path, (JsonObject) requestBody, requestHeaders);
+            case PUT_BINARY:
+                return this.httpClient.putBinary(path, (byte[]) requestBody, requestHeaders);
+            case PUT_STREAM:
+                return this.httpClient.putStream(path, (InputStream) requestBody, ContentType.TEXT_PLAIN, requestHeaders);
+            case DELETE:
+            default:
+                return this.httpClient.deleteJson(path, requestHeaders);
+        }
+    }
+
+    protected Response convert(Object httpClientResponse) throws HttpClientException {
+        if (httpClientResponse instanceof CloseableHttpResponse) {
+            CloseableHttpResponse fileResponse = (CloseableHttpResponse) httpClientResponse;
+            try {
+                return new Response(fileResponse.getEntity().getContent(), fileResponse.getStatusLine().getStatusCode(), fileResponse.getStatusLine().getReasonPhrase());
+            } catch (IOException e) {
+                throw new HttpClientException("Could not retrieve response", e);
+            }
+        }
+        HttpClientResponse<?> response = (HttpClientResponse<?>) httpClientResponse;
+        return new Response(response.getContent(), response.getStatusCode(), response.getStatusLine());
+    }
+
+    /**
+     * Returns the endpoint a request is measured against. Segments are taken from the start of the path while they
+     * begin with a lower case letter, as zOS names in the path, e.g. data set names and job ids, are upper case.
+     *
+     * @param method the HTTP method
+     * @param path the request path
+     * @return the endpoint
+     */
+    public String getEndpoint(@NotNull String method, @NotNull String path) {
+        int queryStart = path.indexOf('?');
+        String[] segments = (queryStart >= 0 ? path.substring(0, queryStart) : path).split("/");
+        StringBuilder endpoint = new StringBuilder(method);
+        endpoint.append(" ");
+        int used = 0;
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (used >= this.endpointSegments || !Character.isLowerCase(segment.charAt(0))) {
+                break;
+            }
+            endpoint.append("/");
+            endpoint.append(segment);
+            used++;
+        }
+        if (used == 0) {
+            endpoint.append("/");
+        }
+        return endpoint.toString();
+    }
+
+    /**
+     * Returns the API an endpoint belongs to, the endpoint segment at the API index supplied to the constructor
+     *
+     * @param endpoint the endpoint from {@link #getEndpoint(String, String)}
+     * @return the API, or <code>other</code> if the endpoint is too short to name one
+     */
+    public String getApi(@NotNull String endpoint) {
+        String[] segments = endpoint.substring(endpoint.indexOf(' ') + 1).split("/");
+        //*** The path starts with a slash so the first segment is empty
+        int index = this.apiSegment + 1;
+        if (index < segments.length && !segments[index].isEmpty()) {
+            return segments[index];
+        }
+        return "other";
+    }
+
+    /**
+     * @return the latency histograms, by endpoint
+     */
+    public SortedMap<String, LatencyHistogram> getLatencies() {
+        return new TreeMap<>(this.latencies);
+    }
+
+    /**
+     * @return the maximum number of requests outstanding at once, or 0 for no limit
+     */
+    public int getMaxConcurrentRequests() {
+        return this.maxConcurrentRequests;
+    }
+
+    /**
+     * @return a line per endpoint with the number of requests and their latencies, or null if no requests have
+     * been sent
+     */
+    public String getLatencySummary() {
+        if (this.latencies.isEmpty()) {
+            return null;
+        }
+        StringBuilder summary = new StringBuilder();
+        summary.append("Request latencies for ");
+        summary.append(this.serverName);
+        for (Entry<String, LatencyHistogram> entry : getLatencies().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            summary.append("\n    ");
+            summary.append(entry.getKey());
+            summary.append(" count=");
+            summary.append(histogram.getCount());
+            summary.append(" mean=");
+            summary.append(histogram.getMeanMillis());
+            summary.append("ms p50<=");
+            summary.append(histogram.getPercentileMillis(50));
+            summary.append("ms p95<=");
+            summary.append(histogram.getPercentileMillis(95));
+            summary.append("ms max=");
+            summary.append(histogram.getMaxMillis());
+            summary.append("ms");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * The content of a file response, completing the request the first time it is closed
+     */
+    private static class CompletingInputStream extends FilterInputStream {
+
+        private final Runnable onClose;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        CompletingInputStream(InputStream in, Runnable onClose) {
+            super(in);
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (this.closed.compareAndSet(false, true)) {
+                    this.onClose.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts request latencies in fixed buckets
+     */
+    public static class LatencyHistogram {
+
+        /**
+         * The upper bounds of the buckets in milliseconds. A final bucket holds anything slower
+         */
+        public static final long[] BUCKET_BOUNDS_MILLIS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        protected void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            this.buckets.incrementAndGet(bucket);
+            this.count.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return this.count.sum();
+        }
+
+        public long getMeanMillis() {
+            long requests = getCount();
+            return requests == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(this.totalNanos.sum() / requests);
+        }
+
+        public long getMaxMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.maxNanos.get());
+        }
+
+        /**
+         * @return the number of requests in each bucket, the last being those slower than every bound
+         */
+        public long[] getBucketCounts() {
+            long[] counts = new long[this.buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = this.buckets.get(i);
+            }
+            return counts;
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding a percentile of the requests. For the final bucket this
+         * is the slowest request
+         *
+         * @param percentile 0 to 100
+         * @return the latency in milliseconds
+         */
+        public long getPercentileMillis(double percentile) {
+            long[] counts = getBucketCounts();
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return BUCKET_BOUNDS_MILLIS[i];
+                }
+            }
+            return getMaxMillis();
+        }
+    }
+}
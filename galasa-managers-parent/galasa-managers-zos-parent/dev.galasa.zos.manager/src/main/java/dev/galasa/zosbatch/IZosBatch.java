@@ -5,7 +5,9 @@
  */
 package dev.galasa.zosbatch;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import javax.validation.constraints.NotNull;
 
@@ -49,4 +51,13 @@ public interface IZosBatch {
      * @throws ZosBatchException 
      */
     public List<IZosBatchJob> getJobs(String jobname, String owner) throws ZosBatchException;
+
+    /**
+     * Wait for all of the jobs to complete. The status of the jobs is checked together rather than one job at a time, 
+     * and each job waits for up to the default resource wait time.
+     * @param jobs - The submitted jobs
+     * @return a {@link Map} of each job to its highest CC, in the order supplied. See {@link IZosBatchJob#waitForJob()}
+     * @throws ZosBatchException
+     */
+    public Map<IZosBatchJob, Integer> waitForJobs(@NotNull Collection<IZosBatchJob> jobs) throws ZosBatchException;
 }
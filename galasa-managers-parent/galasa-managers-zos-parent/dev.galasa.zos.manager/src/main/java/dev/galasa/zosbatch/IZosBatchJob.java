@@ -5,6 +5,8 @@
  */
 package dev.galasa.zosbatch;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * <p>Represents a zOS Batch Job.</p>
  * 
@@ -109,6 +111,16 @@ public interface IZosBatchJob {
      */
     public int waitForJob() throws ZosBatchException;
 
+    /**
+     * Wait for a job to complete without blocking the caller. The future completes with the value that would be returned by 
+     * {@link #waitForJob()}, or exceptionally with a {@link ZosBatchException}. The status of every job being waited on for 
+     * the same image is checked together.
+     * 
+     * @return a future for the highest CC
+     * @throws ZosBatchException if the job has not been submitted
+     */
+    public CompletableFuture<Integer> waitForJobAsync() throws ZosBatchException;
+
     /**
      * Provides a list of the batch job spool files as an {@link IZosBatchJobOutput} object without retrieving spool file content
      * 
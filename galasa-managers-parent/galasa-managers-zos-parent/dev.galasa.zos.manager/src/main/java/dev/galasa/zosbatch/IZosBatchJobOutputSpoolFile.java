@@ -62,8 +62,9 @@ public interface IZosBatchJobOutputSpoolFile {
     public long retrieve() throws ZosBatchException;
     
     /**
-     * Return the content of this zOS batch job spool file
+     * Return the content of this zOS batch job spool file, retrieving it from zOS if it has not been retrieved yet
      * @return the zOS batch job spool file content
+     * @throws IllegalStateException if the content could not be retrieved, wrapping the {@link ZosBatchException}
      */
     public String getRecords();
     
@@ -8,6 +8,7 @@ package dev.galasa.zosbatch.internal;
 import dev.galasa.zosbatch.IZosBatchJob;
 import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
 import dev.galasa.zosbatch.ZosBatchException;
+import dev.galasa.zosbatch.spi.IZosBatchJobSpi;
 
 /**
  * Implementation of {@link IZosBatchJobOutputSpoolFile}
@@ -24,6 +25,8 @@ public class ZosBatchJobOutputSpoolFileImpl implements IZosBatchJobOutputSpoolFi
     private String id;
     private long size;
     private String records;
+    private boolean retrieved;
+    private ZosBatchException retrieveException;
     
     /**
      * Constructor for creating spool file
@@ -44,6 +47,7 @@ public class ZosBatchJobOutputSpoolFileImpl implements IZosBatchJobOutputSpoolFi
         this.records = records;
         if (this.records != null) {
         	this.size = this.records.length();
+        	this.retrieved = true;
         } else {
         	this.size = 0;
         }
@@ -81,14 +85,26 @@ public class ZosBatchJobOutputSpoolFileImpl implements IZosBatchJobOutputSpoolFi
 
     @Override
 	public long getSize() throws ZosBatchException {
-    	if (this.records == null) {
+    	if (!this.retrieved) {
     		return retrieve();
     	}
 		return this.size;
 	}
 
 	@Override
-    public String getRecords() {
+    public synchronized String getRecords() {
+		// *** Spool files listed without their content are loaded the first time they are used, a failure is kept so
+		// *** later calls report it again rather than retrying or returning no records
+		if (!this.retrieved && this.retrieveException == null) {
+			try {
+				retrieve();
+			} catch (ZosBatchException e) {
+				this.retrieveException = e;
+			}
+		}
+		if (this.retrieveException != null) {
+			throw new IllegalStateException("Unable to retrieve spool file " + this.toString(), this.retrieveException);
+		}
         return this.records;        
     }
 
@@ -98,8 +114,14 @@ public class ZosBatchJobOutputSpoolFileImpl implements IZosBatchJobOutputSpoolFi
     }
 
 	@Override
-	public long retrieve() throws ZosBatchException {
-		this.records = this.batchJob.getSpoolFile(this.ddname).getRecords();
+	public synchronized long retrieve() throws ZosBatchException {
+		if (this.batchJob instanceof IZosBatchJobSpi) {
+			this.records = ((IZosBatchJobSpi) this.batchJob).retrieveSpoolFileRecords(this);
+		} else {
+			this.records = this.batchJob.getSpoolFile(this.ddname).getRecords();
+		}
+		this.retrieved = true;
+		this.retrieveException = null;
         if (this.records != null) {
         	this.size = this.records.length();
         } else {
@@ -0,0 +1,54 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.internal.properties;
+
+import dev.galasa.zosbatch.ZosBatchManagerException;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.cps.CpsProperties;
+
+/**
+ * zOS Batch job spool file threads
+ * 
+ * @galasa.cps.property
+ * 
+ * @galasa.name zosbatch.batchjob.[imageid].spool.threads
+ * 
+ * @galasa.description The maximum number of spool files to retrieve or archive at the same time for zOS Batch jobs on an image when using zOSMF
+ * 
+ * @galasa.required No
+ * 
+ * @galasa.default 4
+ * 
+ * @galasa.valid_values 1 to {@link Integer#MAX_VALUE}
+ * 
+ * @galasa.examples 
+ * <code>zosbatch.batchjob.MVSA.spool.threads=8</code><br>
+ * <code>zosbatch.batchjob.default.spool.threads=1</code>
+ *
+ */
+public class SpoolFileThreads extends CpsProperties {
+
+    private static final int DEFAULT_SPOOL_FILE_THREADS = 4;
+
+    public static int get(String imageId) throws ZosBatchManagerException {
+        try {
+            String threadsString = getStringNulled(ZosBatchPropertiesSingleton.cps(), "batchjob", "spool.threads", imageId);
+
+            if (threadsString == null) {
+                return DEFAULT_SPOOL_FILE_THREADS;
+            } else {
+                int threads = Integer.parseInt(threadsString);
+                if (threads < 1) {
+                    throw new ZosBatchManagerException("Batch job spool file threads property must be greater than 0");
+                }
+                return threads;
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            throw new ZosBatchManagerException("Problem asking the CPS for the batch job spool file threads property for zOS image "  + imageId, e);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.spi;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zosbatch.IZosBatchJob;
+import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
+import dev.galasa.zosbatch.ZosBatchException;
+
+/**
+ * SPI to zOS Batch Job, allowing the spool files in its output to be loaded when they are first used
+ *
+ */
+public interface IZosBatchJobSpi extends IZosBatchJob {
+
+    /**
+     * Retrieve the content of one of the spool files of this job. The spool file is identified by its id, so
+     * spool files with the same DD name in different steps each get their own content
+     *
+     * @param spoolFile the spool file
+     * @return the spool file content, or null if the spool file no longer exists
+     * @throws ZosBatchException
+     */
+    public String retrieveSpoolFileRecords(@NotNull IZosBatchJobOutputSpoolFile spoolFile) throws ZosBatchException;
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.spi;
+
+import java.util.Collection;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zosbatch.IZosBatchJob;
+import dev.galasa.zosbatch.ZosBatchException;
+
+/**
+ * Status queries for the jobs being waited on by a {@link ZosBatchJobMonitor}, provided by each zOS Batch Manager implementation
+ *
+ * @param <J> the job implementation class
+ */
+public interface IZosBatchJobStatusQuery<J extends IZosBatchJob> {
+
+    /**
+     * Refresh the status of all the supplied jobs, using as few requests to the image as possible
+     *
+     * @param jobs the jobs still being waited on
+     * @throws ZosBatchException
+     */
+    public void updateJobStatus(@NotNull Collection<J> jobs) throws ZosBatchException;
+
+    /**
+     * The result of the job as last refreshed
+     *
+     * @param job the job
+     * @return the highest return code of the job, {@link Integer#MIN_VALUE} if it is non numeric or the job cannot
+     * be found, or null if the job has not completed
+     */
+    public Integer completionCode(@NotNull J job);
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.spi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.zos.spi.ZosMetricsRecorder;
+import dev.galasa.zos.spi.ZosMetricsRecorder.Metric;
+import dev.galasa.zosbatch.IZosBatchJob;
+import dev.galasa.zosbatch.ZosBatchException;
+
+/**
+ * Waits for the completion of batch jobs on a zOS image.
+ *
+ * All the jobs being waited on are checked together on a single thread, using one call to
+ * {@link IZosBatchJobStatusQuery#updateJobStatus(Collection)} per poll. The poll interval starts at
+ * {@link #MIN_POLL_MILLIS} and doubles each time no job completes, up to {@link #MAX_POLL_MILLIS}. It drops back
+ * to the minimum when a job completes or another job is added. A failed poll is logged and backed off in the same
+ * way, the jobs are only failed with the error if they are still waiting when their own timeouts pass.
+ *
+ * The time from the first wait for a job to its completion is recorded in the zOS metrics for the image.
+ *
+ * @param <J> the job implementation class
+ */
+public class ZosBatchJobMonitor<J extends IZosBatchJob> {
+
+    protected static final long MIN_POLL_MILLIS = 250;
+    protected static final long MAX_POLL_MILLIS = 5000;
+
+    private final String imageId;
+    private final IZosBatchJobStatusQuery<J> query;
+
+    private final Map<J, Watch> watches = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> nextPoll;
+    private boolean polling;
+    private boolean reset;
+    private boolean shutdown;
+    private long pollDelay = MIN_POLL_MILLIS;
+
+    private static final Log logger = LogFactory.getLog(ZosBatchJobMonitor.class);
+
+    public ZosBatchJobMonitor(@NotNull String imageId, @NotNull IZosBatchJobStatusQuery<J> query) {
+        this.imageId = imageId;
+        this.query = query;
+    }
+
+    /**
+     * Start waiting for a job to complete. If the job is already being waited on, the existing future is returned
+     *
+     * @param job the submitted job
+     * @param timeoutSeconds how long to wait before completing with {@link Integer#MIN_VALUE}
+     * @return a future that completes with the highest return code for the job
+     */
+    public synchronized CompletableFuture<Integer> waitForJob(@NotNull J job, int timeoutSeconds) {
+        long deadline = System.currentTimeMillis() + (timeoutSeconds * 1000L);
+        Watch watch = this.watches.get(job);
+        if (watch != null) {
+            watch.deadline = Math.max(watch.deadline, deadline);
+            return watch.future;
+        }
+
+        watch = new Watch(deadline);
+        if (this.shutdown) {
+            watch.future.completeExceptionally(new ZosBatchException("The job monitor for image " + this.imageId + " has been shut down"));
+            return watch.future;
+        }
+        this.watches.put(job, watch);
+
+        // *** Check the new job straight away and start the backoff again
+        this.pollDelay = MIN_POLL_MILLIS;
+        if (this.polling) {
+            this.reset = true;
+        } else {
+            schedule(0);
+        }
+        return watch.future;
+    }
+
+    /**
+     * Stop polling and fail any outstanding waits
+     */
+    public void shutdown() {
+        List<Watch> outstanding;
+        synchronized (this) {
+            this.shutdown = true;
+            if (this.scheduler != null) {
+                this.scheduler.shutdownNow();
+            }
+            outstanding = new ArrayList<>(this.watches.values());
+            this.watches.clear();
+        }
+        for (Watch watch : outstanding) {
+            watch.future.completeExceptionally(new ZosBatchException("The job monitor for image " + this.imageId + " has been shut down"));
+        }
+    }
+
+    /**
+     * @return the number of jobs being waited on
+     */
+    public synchronized int getWaitingJobCount() {
+        return this.watches.size();
+    }
+
+    protected void poll() {
+        List<J> jobs;
+        synchronized (this) {
+            this.nextPoll = null;
+            this.polling = true;
+            this.reset = false;
+            jobs = new ArrayList<>(this.watches.keySet());
+        }
+
+        ZosBatchException failure = null;
+        try {
+            if (!jobs.isEmpty()) {
+                this.query.updateJobStatus(jobs);
+            }
+        } catch (ZosBatchException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new ZosBatchException("Unable to update the status of jobs on image " + this.imageId, e);
+        }
+        if (failure != null) {
+            logger.warn("Unable to update the status of jobs on image " + this.imageId + ", will retry", failure);
+        }
+
+        long now = System.currentTimeMillis();
+        Map<Watch, Integer> completed = new LinkedHashMap<>();
+        Map<Watch, ZosBatchException> failed = new LinkedHashMap<>();
+        synchronized (this) {
+            for (J job : jobs) {
+                Watch watch = this.watches.get(job);
+                if (watch == null) {
+                    continue;
+                }
+                Integer completionCode = failure == null ? this.query.completionCode(job) : null;
+                if (completionCode != null) {
+                    completed.put(watch, completionCode);
+                } else if (now < watch.deadline) {
+                    continue;
+                } else if (failure != null) {
+                    failed.put(watch, failure);
+                } else {
+                    logger.info("Timed out waiting for " + job.getJobId() + " " + job.getJobname().getName() + " to complete");
+                    completed.put(watch, Integer.MIN_VALUE);
+                }
+                this.watches.remove(job);
+            }
+
+            this.polling = false;
+            if (this.reset || !completed.isEmpty() || !failed.isEmpty()) {
+                this.pollDelay = MIN_POLL_MILLIS;
+            } else {
+                this.pollDelay = Math.min(this.pollDelay * 2, MAX_POLL_MILLIS);
+            }
+            if (!this.watches.isEmpty() && !this.shutdown) {
+                long delay = this.pollDelay;
+                for (Watch watch : this.watches.values()) {
+                    delay = Math.min(delay, Math.max(0, watch.deadline - now));
+                }
+                logger.trace("Waiting for " + this.watches.size() + " job(s) on image " + this.imageId + ", next poll in " + delay + "ms");
+                schedule(delay);
+            }
+        }
+
+        // *** Complete outside the lock, dependent actions run on this thread
+        for (Entry<Watch, Integer> entry : completed.entrySet()) {
+            ZosMetricsRecorder.recordSince(Metric.JOB_WAIT, entry.getKey().start, this.imageId);
+            entry.getKey().future.complete(entry.getValue());
+        }
+        for (Entry<Watch, ZosBatchException> entry : failed.entrySet()) {
+            entry.getKey().future.completeExceptionally(entry.getValue());
+        }
+    }
+
+    private void schedule(long delay) {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "galasa-zosbatch-monitor-" + this.imageId);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (this.nextPoll != null) {
+            this.nextPoll.cancel(false);
+        }
+        this.nextPoll = this.scheduler.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Wait for the result of {@link IZosBatchJob#waitForJobAsync()}
+     *
+     * @param future the future for the job
+     * @return the highest return code for the job
+     * @throws ZosBatchException
+     */
+    public static int getResult(@NotNull CompletableFuture<Integer> future) throws ZosBatchException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            logger.error("waitForJob Interrupted", e);
+            Thread.currentThread().interrupt();
+            throw new ZosBatchException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ZosBatchException) {
+                throw (ZosBatchException) e.getCause();
+            }
+            throw new ZosBatchException(e.getCause());
+        }
+    }
+
+    /**
+     * Wait for all of the jobs to complete. The jobs are waited on together, so the total wait is that of the longest job
+     *
+     * @param jobs the submitted jobs
+     * @return the highest return code for each job, in the order supplied
+     * @throws ZosBatchException
+     */
+    public static Map<IZosBatchJob, Integer> waitForJobs(@NotNull Collection<IZosBatchJob> jobs) throws ZosBatchException {
+        Map<IZosBatchJob, CompletableFuture<Integer>> futures = new LinkedHashMap<>();
+        for (IZosBatchJob job : jobs) {
+            futures.put(job, job.waitForJobAsync());
+        }
+        Map<IZosBatchJob, Integer> results = new LinkedHashMap<>();
+        for (Entry<IZosBatchJob, CompletableFuture<Integer>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), getResult(entry.getValue()));
+        }
+        return results;
+    }
+
+    private static class Watch {
+
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private final long start = System.nanoTime();
+        private long deadline;
+
+        private Watch(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.spi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
+import dev.galasa.zosbatch.ZosBatchException;
+
+/**
+ * Runs an action, such as retrieving or archiving, against each of the spool files of a job, using a bounded
+ * pool of threads shared by all the jobs on a zOS image. The pool is only created when there is more than
+ * one spool file to process
+ *
+ */
+public class ZosBatchSpoolFileExecutor {
+
+    private final String imageId;
+    private final int threads;
+
+    private ExecutorService executor;
+    private boolean shutdown;
+
+    public ZosBatchSpoolFileExecutor(@NotNull String imageId, int threads) {
+        this.imageId = imageId;
+        this.threads = threads;
+    }
+
+    /**
+     * An action against a single spool file
+     */
+    @FunctionalInterface
+    public interface SpoolFileAction {
+        public void run(IZosBatchJobOutputSpoolFile spoolFile) throws ZosBatchException;
+    }
+
+    /**
+     * Run the action against each of the spool files and wait for all of them to finish
+     *
+     * @param spoolFiles the spool files
+     * @param action the action
+     * @throws ZosBatchException the first failure, once all the actions have finished
+     */
+    public void execute(@NotNull Collection<IZosBatchJobOutputSpoolFile> spoolFiles, @NotNull SpoolFileAction action) throws ZosBatchException {
+        ExecutorService spoolFileExecutor = spoolFiles.size() > 1 ? getExecutor() : null;
+        if (spoolFileExecutor == null) {
+            for (IZosBatchJobOutputSpoolFile spoolFile : spoolFiles) {
+                action.run(spoolFile);
+            }
+            return;
+        }
+
+        List<Future<Void>> futures = new ArrayList<>();
+        for (IZosBatchJobOutputSpoolFile spoolFile : spoolFiles) {
+            futures.add(spoolFileExecutor.submit(() -> {
+                action.run(spoolFile);
+                return null;
+            }));
+        }
+
+        ZosBatchException failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                futures.forEach(remaining -> remaining.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new ZosBatchException("Interrupted processing spool files on image " + this.imageId, e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof ZosBatchException ? (ZosBatchException) e.getCause() : new ZosBatchException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stop the threads. Spool files are processed on the calling thread after shutdown
+     */
+    public synchronized void shutdown() {
+        this.shutdown = true;
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    protected synchronized ExecutorService getExecutor() {
+        if (this.shutdown || this.threads <= 1) {
+            return null;
+        }
+        if (this.executor == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, "galasa-zosbatch-spool-" + this.imageId + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.executor;
+    }
+}
@@ -5,6 +5,7 @@
  */
 package dev.galasa.zosfile;
 
+import java.io.InputStream;
 import java.util.Collection;
 
 import javax.validation.constraints.NotNull;
@@ -257,6 +258,34 @@ public interface IZosDataset {
      */
     public byte[] retrieveAsBinary() throws ZosDatasetException;
 
+    /**
+     * Write content to the data set from a stream, without reading it all into memory first. The stream is not closed
+     * <p>See {@link #setDataType(DatasetDataType)}
+     * @param content
+     * @throws ZosDatasetException
+     */
+    public void storeFromStream(@NotNull InputStream content) throws ZosDatasetException;
+
+    /**
+     * Retrieve content of the data set as a stream, rather than reading it all into memory. The stream must be closed
+     * by the caller
+     * <p>See {@link #setDataType(DatasetDataType)}
+     * @return data set content
+     * @throws ZosDatasetException
+     */
+    public InputStream retrieveAsStream() throws ZosDatasetException;
+
+    /**
+     * Retrieve content of the data set one record at a time. Records are split according to the data type: by line
+     * for {@link DatasetDataType#TEXT}, by the record length prefix for {@link DatasetDataType#RECORD} and by the
+     * record length (LRECL) for {@link DatasetDataType#BINARY}, which is only valid for fixed length record formats.
+     * The iterator must be closed by the caller
+     * <p>See {@link #setDataType(DatasetDataType)}
+     * @return an iterator over the records of the data set
+     * @throws ZosDatasetException
+     */
+    public IZosDatasetRecordIterator retrieveRecords() throws ZosDatasetException;
+
     /**
      * Store the content of the data set to the Results Archive Store
      * @param rasPath path in Results Archive Store
@@ -325,6 +354,31 @@ public interface IZosDataset {
      */
     public  byte[] memberRetrieveAsBinary(@NotNull String memberName) throws ZosDatasetException;
 
+    /**
+     * Write content to the partitioned data set member from a stream. The stream is not closed
+     * @param memberName
+     * @param content
+     * @throws ZosDatasetException
+     */
+    public void memberStoreFromStream(@NotNull String memberName, @NotNull InputStream content) throws ZosDatasetException;
+
+    /**
+     * Retrieve content from the partitioned data set member as a stream. The stream must be closed by the caller
+     * @param memberName
+     * @return
+     * @throws ZosDatasetException
+     */
+    public InputStream memberRetrieveAsStream(@NotNull String memberName) throws ZosDatasetException;
+
+    /**
+     * Retrieve content from the partitioned data set member one record at a time. The iterator must be closed by the caller
+     * <p>See {@link #retrieveRecords()}
+     * @param memberName
+     * @return
+     * @throws ZosDatasetException
+     */
+    public IZosDatasetRecordIterator memberRetrieveRecords(@NotNull String memberName) throws ZosDatasetException;
+
     /**
      * List the members of the partitioned data set
      * @return
@@ -0,0 +1,23 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile;
+
+import java.util.Iterator;
+
+/**
+ * Iterates over the records of a data set as they are read from the server. Each record is returned without its
+ * line end or record length prefix. A failure reading the content is thrown from {@link #hasNext()} or
+ * {@link #next()} as an {@link java.io.UncheckedIOException}
+ */
+public interface IZosDatasetRecordIterator extends Iterator<byte[]>, AutoCloseable {
+
+    /**
+     * Close the content stream. This is done automatically once the last record has been read
+     * @throws ZosDatasetException
+     */
+    @Override
+    public void close() throws ZosDatasetException;
+}
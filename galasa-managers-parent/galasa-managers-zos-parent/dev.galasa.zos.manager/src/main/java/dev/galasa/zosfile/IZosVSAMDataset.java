@@ -5,6 +5,8 @@
  */
 package dev.galasa.zosfile;
 
+import java.util.List;
+
 import javax.validation.constraints.NotNull;
 
 import dev.galasa.zosfile.IZosDataset.DatasetDataType;
@@ -196,6 +198,58 @@ public interface IZosVSAMDataset {
      */
     public byte[] retrieveAsBinary() throws ZosVSAMDatasetException;
     
+    /**
+     * Iterate over the records of the VSAM data set. The records are read directly from the VSAM data set a page at a
+     * time, without copying the data set. In text mode each record is converted from EBCDIC, in binary mode the
+     * records are returned as stored
+     * <p>See {@link #setDataType(DatasetDataType)}
+     * @return the records
+     * @throws ZosVSAMDatasetException
+     */
+    public IZosVSAMRecordIterator retrieveRecords() throws ZosVSAMDatasetException;
+    
+    /**
+     * Retrieve the first records of the VSAM data set, without copying the data set
+     * <p>See {@link #retrieveRecords()}
+     * @param count the maximum number of records
+     * @return the records
+     * @throws ZosVSAMDatasetException
+     */
+    public List<byte[]> retrieveRecords(int count) throws ZosVSAMDatasetException;
+    
+    /**
+     * Iterate over the records of a KSDS from a key, without copying the data set. The records are read a page at
+     * a time until the end of the data set, or in a single request up to and including the end key if one is supplied
+     * <p>See {@link #retrieveRecords()}
+     * @param fromKey the key, or the leading characters of the key, of the first record
+     * @param toKey the key, or the leading characters of the key, of the last record, or null
+     * @return the records
+     * @throws ZosVSAMDatasetException
+     */
+    public IZosVSAMRecordIterator retrieveRecordsByKey(@NotNull String fromKey, String toKey) throws ZosVSAMDatasetException;
+    
+    /**
+     * Iterate over the records of a KSDS from a key supplied in bytes, without copying the data set
+     * <p>See {@link #retrieveRecordsByKey(String, String)}
+     * @param fromKey the key, or the leading bytes of the key, of the first record
+     * @param toKey the key, or the leading bytes of the key, of the last record, or null
+     * @return the records
+     * @throws ZosVSAMDatasetException
+     */
+    public IZosVSAMRecordIterator retrieveRecordsByKey(@NotNull byte[] fromKey, byte[] toKey) throws ZosVSAMDatasetException;
+    
+    /**
+     * Iterate over the records of a KSDS or ESDS from a relative byte address, without copying the data set. The
+     * records are read a page at a time until the end of the data set, or in a single request up to the end RBA if
+     * one is supplied
+     * <p>See {@link #retrieveRecords()}
+     * @param fromRba the RBA of the first record
+     * @param toRba the RBA of the last record, or -1 for the end of the data set
+     * @return the records
+     * @throws ZosVSAMDatasetException
+     */
+    public IZosVSAMRecordIterator retrieveRecordsByRBA(long fromRba, long toRba) throws ZosVSAMDatasetException;
+    
     /**
      * Store the content of the VSAM data set to the Results Archive Store
      * @param rasPath path in Results Archive Store
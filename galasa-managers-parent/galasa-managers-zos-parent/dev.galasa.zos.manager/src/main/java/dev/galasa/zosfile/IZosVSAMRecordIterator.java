@@ -0,0 +1,34 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile;
+
+/**
+ * Iterates over records of a VSAM data set. The records are retrieved from the server a page at a time as they
+ * are needed, so only the records that are read are transferred
+ */
+public interface IZosVSAMRecordIterator extends AutoCloseable {
+
+    /**
+     * Returns true if there is another record, retrieving the next page of records from the server if required
+     * @return true if there is another record
+     * @throws ZosVSAMDatasetException
+     */
+    public boolean hasNext() throws ZosVSAMDatasetException;
+
+    /**
+     * Returns the next record
+     * @return the content of the record
+     * @throws ZosVSAMDatasetException
+     * @throws java.util.NoSuchElementException if there are no more records
+     */
+    public byte[] next() throws ZosVSAMDatasetException;
+
+    /**
+     * Stop retrieving records
+     */
+    @Override
+    public void close();
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.internal.properties;
+
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zosfile.ZosFileManagerException;
+
+/**
+ * zOS File the number of records in each range when retrieving a data set by record range
+ * 
+ * @galasa.cps.property
+ * 
+ * @galasa.name zosfile.dataset.[imageid].retrieve.range.records
+ * 
+ * @galasa.description The number of records retrieved by each request when a data set is retrieved by record range, see <code>zosfile.dataset.[imageid].retrieve.threads</code>
+ * 
+ * @galasa.required No
+ * 
+ * @galasa.default 10000
+ * 
+ * @galasa.valid_values 
+ * 
+ * @galasa.examples 
+ * <code>zosfile.dataset.[imageid].retrieve.range.records=10000</code><br>
+ *
+ */
+public class DatasetRetrieveRangeRecords extends CpsProperties {
+
+    private static final int RANGE_RECORDS = 10000;
+
+    public static int get(String imageId) throws ZosFileManagerException {
+        try {
+            String valueString = getStringNulled(ZosFilePropertiesSingleton.cps(), "dataset", "retrieve.range.records", imageId);
+
+            if (valueString == null) {
+                return RANGE_RECORDS;
+            } else {
+                int value = Integer.parseInt(valueString);
+                if (value <= 0) {
+                    throw new ZosFileManagerException("Data set retrieve range records property must be greater than 0");
+                }
+                return value;
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            throw new ZosFileManagerException("Problem asking the CPS for the data set retrieve range records property for zOS image "  + imageId, e);
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.internal.properties;
+
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zosfile.ZosFileManagerException;
+
+/**
+ * zOS File the number of threads used to retrieve a data set by record range
+ * 
+ * @galasa.cps.property
+ * 
+ * @galasa.name zosfile.dataset.[imageid].retrieve.threads
+ * 
+ * @galasa.description The number of record ranges of a data set retrieved at once when streaming its content in text or record mode. When set to 1 the data set is retrieved with a single request
+ * 
+ * @galasa.required No
+ * 
+ * @galasa.default 1
+ * 
+ * @galasa.valid_values 
+ * 
+ * @galasa.examples 
+ * <code>zosfile.dataset.[imageid].retrieve.threads=1</code><br>
+ *
+ */
+public class DatasetRetrieveThreads extends CpsProperties {
+
+    private static final int THREADS = 1;
+
+    public static int get(String imageId) throws ZosFileManagerException {
+        try {
+            String valueString = getStringNulled(ZosFilePropertiesSingleton.cps(), "dataset", "retrieve.threads", imageId);
+
+            if (valueString == null) {
+                return THREADS;
+            } else {
+                int value = Integer.parseInt(valueString);
+                if (value <= 0) {
+                    throw new ZosFileManagerException("Data set retrieve threads property must be greater than 0");
+                }
+                return value;
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            throw new ZosFileManagerException("Problem asking the CPS for the data set retrieve threads property for zOS image "  + imageId, e);
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.internal.properties;
+
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zosfile.ZosFileManagerException;
+
+/**
+ * zOS File the number of threads used to walk a UNIX directory tree
+ * 
+ * @galasa.cps.property
+ * 
+ * @galasa.name zosfile.unix.[imageid].directory.list.threads
+ * 
+ * @galasa.description The number of UNIX directories listed, and files archived, at once when recursively listing or archiving a UNIX directory. When set to 1 the directory tree is walked one request at a time
+ * 
+ * @galasa.required No
+ * 
+ * @galasa.default 1
+ * 
+ * @galasa.valid_values 
+ * 
+ * @galasa.examples 
+ * <code>zosfile.unix.[imageid].directory.list.threads=1</code><br>
+ *
+ */
+public class DirectoryListThreads extends CpsProperties {
+
+    private static final int THREADS = 1;
+
+    public static int get(String imageId) throws ZosFileManagerException {
+        try {
+            String valueString = getStringNulled(ZosFilePropertiesSingleton.cps(), "unix", "directory.list.threads", imageId);
+
+            if (valueString == null) {
+                return THREADS;
+            } else {
+                int value = Integer.parseInt(valueString);
+                if (value <= 0) {
+                    throw new ZosFileManagerException("Directory list threads property must be greater than 0");
+                }
+                return value;
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            throw new ZosFileManagerException("Problem asking the CPS for the directory list threads property for zOS image "  + imageId, e);
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.internal.properties;
+
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zosfile.ZosFileManagerException;
+
+/**
+ * zOS File the number of records in each page when retrieving VSAM data set records
+ * 
+ * @galasa.cps.property
+ * 
+ * @galasa.name zosfile.vsam.[imageid].retrieve.page.records
+ * 
+ * @galasa.description The maximum number of records retrieved by each IDCAMS PRINT request when VSAM data set records are retrieved by key, RBA or count
+ * 
+ * @galasa.required No
+ * 
+ * @galasa.default 1000
+ * 
+ * @galasa.valid_values 
+ * 
+ * @galasa.examples 
+ * <code>zosfile.vsam.[imageid].retrieve.page.records=1000</code><br>
+ *
+ */
+public class VSAMRetrievePageRecords extends CpsProperties {
+
+    private static final int PAGE_RECORDS = 1000;
+
+    public static int get(String imageId) throws ZosFileManagerException {
+        try {
+            String valueString = getStringNulled(ZosFilePropertiesSingleton.cps(), "vsam", "retrieve.page.records", imageId);
+
+            if (valueString == null) {
+                return PAGE_RECORDS;
+            } else {
+                int value = Integer.parseInt(valueString);
+                if (value <= 0) {
+                    throw new ZosFileManagerException("VSAM retrieve page records property must be greater than 0");
+                }
+                return value;
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            throw new ZosFileManagerException("Problem asking the CPS for the VSAM retrieve page records property for zOS image "  + imageId, e);
+        }
+    }
+
+}
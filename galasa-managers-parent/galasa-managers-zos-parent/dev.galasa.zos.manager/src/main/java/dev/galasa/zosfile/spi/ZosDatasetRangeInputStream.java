@@ -0,0 +1,214 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zosfile.IZosDataset.DatasetDataType;
+import dev.galasa.zosfile.ZosDatasetException;
+
+/**
+ * Reads the content of a data set as a sequence of record ranges, with several ranges being retrieved at once. The
+ * ranges are returned in order, so the stream has the same content as a single retrieve. At most one range per
+ * thread is held in memory.
+ *
+ * Only {@link DatasetDataType#TEXT} and {@link DatasetDataType#RECORD} content can be read by range, as the number
+ * of records in a range is needed to find the end of the data set.
+ */
+public class ZosDatasetRangeInputStream extends InputStream {
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private final String dsname;
+    private final DatasetDataType dataType;
+    private final int recordsPerRange;
+    private final int threads;
+    private final RangeReader reader;
+
+    private final Deque<CompletableFuture<byte[]>> ranges = new ArrayDeque<>();
+    private ExecutorService executor;
+    private int nextRecord;
+    private boolean lastRangeRequested;
+    private boolean finished;
+    private boolean closed;
+
+    private byte[] buffer = new byte[0];
+    private int position;
+
+    /**
+     * Retrieves a range of records from the server
+     */
+    @FunctionalInterface
+    public interface RangeReader {
+        /**
+         * @param firstRecord the zero based number of the first record
+         * @param recordCount the number of records
+         * @return the content of the records, empty if the first record is past the end of the data set
+         * @throws ZosDatasetException
+         */
+        public byte[] read(int firstRecord, int recordCount) throws ZosDatasetException;
+    }
+
+    public ZosDatasetRangeInputStream(@NotNull String dsname, @NotNull DatasetDataType dataType, int recordsPerRange, int threads, @NotNull RangeReader reader) {
+        if (dataType == DatasetDataType.BINARY) {
+            throw new IllegalArgumentException("Binary content of data set " + dsname + " cannot be read by record range");
+        }
+        this.dsname = dsname;
+        this.dataType = dataType;
+        this.recordsPerRange = recordsPerRange;
+        this.threads = threads;
+        this.reader = reader;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fillBuffer()) {
+            return -1;
+        }
+        return this.buffer[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fillBuffer()) {
+            return -1;
+        }
+        int count = Math.min(len, this.buffer.length - this.position);
+        System.arraycopy(this.buffer, this.position, b, off, count);
+        this.position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.length - this.position;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        for (CompletableFuture<byte[]> range : this.ranges) {
+            range.cancel(true);
+        }
+        this.ranges.clear();
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+        this.buffer = new byte[0];
+        this.position = 0;
+    }
+
+    /**
+     * Move on to the next range when the current one has been read
+     * @return false at the end of the data set
+     */
+    protected synchronized boolean fillBuffer() throws IOException {
+        while (this.position >= this.buffer.length) {
+            if (this.closed) {
+                throw new IOException("Stream closed");
+            }
+            if (this.finished) {
+                return false;
+            }
+            requestRanges();
+            CompletableFuture<byte[]> range = this.ranges.poll();
+            if (range == null) {
+                // *** End of the data set, the threads are no longer needed
+                this.finished = true;
+                if (this.executor != null) {
+                    this.executor.shutdown();
+                }
+                return false;
+            }
+            byte[] content;
+            try {
+                content = range.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IOException("Interrupted reading data set " + this.dsname, e);
+            } catch (ExecutionException e) {
+                close();
+                throw new IOException("Unable to read data set " + this.dsname, e.getCause());
+            }
+            if (countRecords(content) < this.recordsPerRange) {
+                // *** Short range, so the ranges requested after it are past the end of the data set
+                this.lastRangeRequested = true;
+                for (CompletableFuture<byte[]> unwanted : this.ranges) {
+                    unwanted.cancel(true);
+                }
+                this.ranges.clear();
+            }
+            this.buffer = content;
+            this.position = 0;
+        }
+        return true;
+    }
+
+    protected void requestRanges() {
+        while (!this.lastRangeRequested && this.ranges.size() < this.threads) {
+            int firstRecord = this.nextRecord;
+            this.nextRecord += this.recordsPerRange;
+            this.ranges.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return this.reader.read(firstRecord, this.recordsPerRange);
+                } catch (ZosDatasetException e) {
+                    throw new CompletionException(e);
+                }
+            }, getExecutor()));
+        }
+    }
+
+    protected int countRecords(byte[] content) {
+        int count = 0;
+        if (this.dataType == DatasetDataType.RECORD) {
+            int offset = 0;
+            while (offset + 4 <= content.length) {
+                int length = ((content[offset] & 0xFF) << 24) | ((content[offset + 1] & 0xFF) << 16) | ((content[offset + 2] & 0xFF) << 8) | (content[offset + 3] & 0xFF);
+                offset += 4 + length;
+                count++;
+            }
+        } else {
+            for (byte b : content) {
+                if (b == '\n') {
+                    count++;
+                }
+            }
+            if (content.length > 0 && content[content.length - 1] != '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private ExecutorService getExecutor() {
+        if (this.executor == null) {
+            this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, "galasa-zosfile-range-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.executor;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zosfile.IZosDataset.DatasetDataType;
+import dev.galasa.zosfile.IZosDataset.RecordFormat;
+import dev.galasa.zosfile.IZosDatasetRecordIterator;
+import dev.galasa.zosfile.ZosDatasetException;
+
+/**
+ * Splits the content stream of a data set into records, reading only one record ahead
+ */
+public class ZosDatasetRecordIterator implements IZosDatasetRecordIterator {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int LINE_SIZE = 256;
+
+    private final DataInputStream content;
+    private final DatasetDataType dataType;
+    private final int recordLength;
+
+    private byte[] nextRecord;
+    private boolean closed;
+
+    // *** Text lines are scanned for in bulk, the buffers are reused for every line
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private byte[] line;
+
+    /**
+     * @param content the data set content, read in the data type supplied
+     * @param dataType the data type the content was retrieved with
+     * @param recordFormat the record format of the data set, only needed for {@link DatasetDataType#BINARY}
+     * @param recordLength the record length of the data set, only needed for {@link DatasetDataType#BINARY}
+     * @throws ZosDatasetException if the records cannot be split from the content
+     */
+    public ZosDatasetRecordIterator(@NotNull InputStream content, @NotNull DatasetDataType dataType, RecordFormat recordFormat, int recordLength) throws ZosDatasetException {
+        if (dataType == DatasetDataType.BINARY) {
+            if (recordFormat != RecordFormat.FIXED && recordFormat != RecordFormat.FIXED_BLOCKED) {
+                closeQuietly(content);
+                throw new ZosDatasetException("Unable to split binary content into records for record format " + recordFormat + ". Use DatasetDataType.RECORD for variable length records");
+            }
+            if (recordLength <= 0) {
+                closeQuietly(content);
+                throw new ZosDatasetException("Unable to split binary content into records, the record length is " + recordLength);
+            }
+        }
+        this.content = new DataInputStream(new BufferedInputStream(content, BUFFER_SIZE));
+        this.dataType = dataType;
+        this.recordLength = recordLength;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.nextRecord == null && !this.closed) {
+            try {
+                this.nextRecord = readRecord();
+            } catch (IOException e) {
+                closeQuietly(this.content);
+                this.closed = true;
+                throw new UncheckedIOException("Unable to read data set record", e);
+            }
+            if (this.nextRecord == null) {
+                closeQuietly(this.content);
+                this.closed = true;
+            }
+        }
+        return this.nextRecord != null;
+    }
+
+    @Override
+    public byte[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        byte[] rec = this.nextRecord;
+        this.nextRecord = null;
+        return rec;
+    }
+
+    @Override
+    public void close() throws ZosDatasetException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.nextRecord = null;
+        try {
+            this.content.close();
+        } catch (IOException e) {
+            throw new ZosDatasetException("Unable to close data set content", e);
+        }
+    }
+
+    protected byte[] readRecord() throws IOException {
+        switch (this.dataType) {
+            case RECORD:
+                return readPrefixedRecord();
+            case BINARY:
+                return readFixedRecord();
+            case TEXT:
+            default:
+                return readLine();
+        }
+    }
+
+    protected byte[] readLine() throws IOException {
+        if (this.buffer == null) {
+            this.buffer = new byte[BUFFER_SIZE];
+            this.line = new byte[LINE_SIZE];
+        }
+        int length = 0;
+        while (true) {
+            if (this.position == this.limit && !fillBuffer()) {
+                return length == 0 ? null : copyLine(length);
+            }
+            int end = this.position;
+            while (end < this.limit && this.buffer[end] != '\n') {
+                end++;
+            }
+            int count = end - this.position;
+            if (length + count > this.line.length) {
+                this.line = Arrays.copyOf(this.line, Math.max(this.line.length * 2, length + count));
+            }
+            System.arraycopy(this.buffer, this.position, this.line, length, count);
+            length += count;
+            if (end < this.limit) {
+                this.position = end + 1;
+                return copyLine(length);
+            }
+            this.position = this.limit;
+        }
+    }
+
+    private boolean fillBuffer() throws IOException {
+        int read = this.content.read(this.buffer, 0, this.buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        this.position = 0;
+        this.limit = read;
+        return true;
+    }
+
+    private byte[] copyLine(int length) {
+        if (length > 0 && this.line[length - 1] == '\r') {
+            length--;
+        }
+        return Arrays.copyOf(this.line, length);
+    }
+
+    protected byte[] readPrefixedRecord() throws IOException {
+        int length;
+        try {
+            length = this.content.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid record length " + length);
+        }
+        byte[] rec = new byte[length];
+        this.content.readFully(rec);
+        return rec;
+    }
+
+    protected byte[] readFixedRecord() throws IOException {
+        byte[] rec = new byte[this.recordLength];
+        int count = 0;
+        int read;
+        while (count < rec.length && (read = this.content.read(rec, count, rec.length - count)) != -1) {
+            count += read;
+        }
+        if (count == 0) {
+            return null;
+        }
+        if (count < rec.length) {
+            // *** Short final record
+            byte[] shortRecord = new byte[count];
+            System.arraycopy(rec, 0, shortRecord, 0, count);
+            return shortRecord;
+        }
+        return rec;
+    }
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // *** Nothing more can be done
+        }
+    }
+}
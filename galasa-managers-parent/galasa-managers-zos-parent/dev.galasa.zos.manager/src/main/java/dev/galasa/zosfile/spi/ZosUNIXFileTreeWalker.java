@@ -0,0 +1,218 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zosfile.IZosUNIXFile;
+import dev.galasa.zosfile.IZosUNIXFile.UNIXFileType;
+import dev.galasa.zosfile.ZosUNIXFileException;
+
+/**
+ * Walks zOS UNIX directory trees, listing several directories at once. Each directory is listed once and the
+ * files and directories found keep the attributes returned by the listing, so the walk makes no further requests
+ * to find out which paths are directories.
+ *
+ * The directories are listed by a work-stealing pool limited to the number of threads supplied, so a thread that
+ * has finished a small directory goes on to help with a large one. When the number of threads is 1 the walk is
+ * made on the calling thread.
+ */
+public class ZosUNIXFileTreeWalker {
+
+    private static final AtomicInteger threadNumber = new AtomicInteger();
+
+    private final int threads;
+    private final DirectoryLister lister;
+
+    /**
+     * Lists the content of a single zOS UNIX directory
+     */
+    @FunctionalInterface
+    public interface DirectoryLister {
+        /**
+         * @param directoryPath the directory
+         * @return the files and directories in the directory, but not the content of its sub directories
+         * @throws ZosUNIXFileException
+         */
+        public SortedMap<String, IZosUNIXFile> list(String directoryPath) throws ZosUNIXFileException;
+    }
+
+    /**
+     * An operation on a single zOS UNIX file or directory
+     */
+    @FunctionalInterface
+    public interface UNIXFileAction {
+        public void apply(IZosUNIXFile unixFile) throws ZosUNIXFileException;
+    }
+
+    public ZosUNIXFileTreeWalker(int threads, @NotNull DirectoryLister lister) {
+        this.threads = threads;
+        this.lister = lister;
+    }
+
+    /**
+     * Walk the directory trees below the supplied directories
+     * @param directories the directories to walk
+     * @return everything below the directories, not including the directories themselves
+     * @throws ZosUNIXFileException if any directory cannot be listed
+     */
+    public SortedMap<String, IZosUNIXFile> walk(@NotNull Collection<IZosUNIXFile> directories) throws ZosUNIXFileException {
+        if (this.threads <= 1) {
+            SortedMap<String, IZosUNIXFile> paths = new TreeMap<>();
+            for (IZosUNIXFile directory : directories) {
+                walk(directory.getUnixPath(), paths);
+            }
+            return paths;
+        }
+
+        ConcurrentSkipListMap<String, IZosUNIXFile> paths = new ConcurrentSkipListMap<>();
+        AtomicReference<ZosUNIXFileException> failure = new AtomicReference<>();
+        List<DirectoryTask> tasks = new ArrayList<>();
+        for (IZosUNIXFile directory : directories) {
+            tasks.add(new DirectoryTask(directory.getUnixPath(), paths, failure));
+        }
+        ForkJoinPool pool = newPool(this.threads);
+        try {
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new TreeMap<>(paths);
+    }
+
+    /**
+     * Apply an operation to each of the supplied files or directories, with up to the supplied number of
+     * operations running at once. After an operation fails no more are started
+     * @param threads the maximum number of operations running at once
+     * @param unixFiles the files or directories
+     * @param action the operation
+     * @throws ZosUNIXFileException the first failure
+     */
+    public static void forEach(int threads, @NotNull Collection<IZosUNIXFile> unixFiles, @NotNull UNIXFileAction action) throws ZosUNIXFileException {
+        if (threads <= 1 || unixFiles.size() <= 1) {
+            for (IZosUNIXFile unixFile : unixFiles) {
+                action.apply(unixFile);
+            }
+            return;
+        }
+
+        AtomicReference<ZosUNIXFileException> failure = new AtomicReference<>();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (IZosUNIXFile unixFile : unixFiles) {
+            tasks.add(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    try {
+                        action.apply(unixFile);
+                    } catch (ZosUNIXFileException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        ForkJoinPool pool = newPool(threads);
+        try {
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    protected void walk(String directoryPath, Map<String, IZosUNIXFile> paths) throws ZosUNIXFileException {
+        SortedMap<String, IZosUNIXFile> content = this.lister.list(directoryPath);
+        paths.putAll(content);
+        for (IZosUNIXFile unixFile : content.values()) {
+            if (UNIXFileType.DIRECTORY.equals(unixFile.getFileType())) {
+                walk(unixFile.getUnixPath(), paths);
+            }
+        }
+    }
+
+    protected static ForkJoinPool newPool(int threads) {
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("galasa-zosfile-walk-" + threadNumber.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Lists one directory, then its sub directories as further tasks that idle threads can take
+     */
+    private class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String directoryPath;
+        private final transient Map<String, IZosUNIXFile> paths;
+        private final transient AtomicReference<ZosUNIXFileException> failure;
+
+        private DirectoryTask(String directoryPath, Map<String, IZosUNIXFile> paths, AtomicReference<ZosUNIXFileException> failure) {
+            this.directoryPath = directoryPath;
+            this.paths = paths;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.failure.get() != null) {
+                return;
+            }
+            SortedMap<String, IZosUNIXFile> content;
+            try {
+                content = lister.list(this.directoryPath);
+            } catch (ZosUNIXFileException e) {
+                this.failure.compareAndSet(null, e);
+                return;
+            }
+            this.paths.putAll(content);
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            for (IZosUNIXFile unixFile : content.values()) {
+                if (UNIXFileType.DIRECTORY.equals(unixFile.getFileType())) {
+                    subdirectories.add(new DirectoryTask(unixFile.getUnixPath(), this.paths, this.failure));
+                }
+            }
+            invokeAll(subdirectories);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zosfile.IZosDataset.DatasetDataType;
+import dev.galasa.zosfile.IZosVSAMRecordIterator;
+import dev.galasa.zosfile.ZosVSAMDatasetException;
+
+/**
+ * Reads records of a VSAM data set with the IDCAMS PRINT command in HEX format. The records are returned in the
+ * command output, so no temporary data set is needed to hold a copy of the VSAM data set.
+ *
+ * When no end of the range is supplied, the records are requested a page at a time with the PRINT COUNT parameter.
+ * Each page after the first starts from the key, RBA or relative record number of the last record of the previous
+ * page. As COUNT cannot be used with an end delimiter, a range with an end is requested with a single command.
+ */
+public class ZosVSAMPrintRecordIterator implements IZosVSAMRecordIterator {
+
+    public static final Charset EBCDIC = Charset.forName("Cp037");
+
+    private static final Pattern KEY_HEADER = Pattern.compile("KEY OF RECORD\\s*-\\s*([0-9A-F]*)");
+    private static final Pattern RBA_HEADER = Pattern.compile("RBA OF RECORD\\s*-\\s*(\\d+)");
+    private static final Pattern NUMBER_HEADER = Pattern.compile("(?:RELATIVE RECORD NUMBER|RRN OF RECORD|RECORD NUMBER)\\s*-\\s*(\\d+)");
+    // *** A data line is groups of hex digits, optionally after the offset of the line in the record and before the
+    // *** characters of the data between asterisks, e.g. "0000  C1C2C3C4 C5C6C7C8  *ABCDEFGH*"
+    private static final Pattern HEX_LINE = Pattern.compile("([0-9A-F]+(?:\\s+[0-9A-F]+)*)(?:\\s+\\*.*\\*)?");
+    private static final int HEX_GROUP_LENGTH = 8;
+    private static final String RECORDS_PROCESSED = "IDC0005I";
+
+    private final String dsname;
+    private final DatasetDataType dataType;
+    private final int pageRecords;
+    private final String fromParameter;
+    private final String toParameter;
+    private final int maxRecords;
+    private final PrintRunner runner;
+
+    private final Deque<byte[]> page = new ArrayDeque<>();
+    private PrintedRecord lastRecord;
+    private boolean lastPage;
+    private boolean closed;
+    private int returnedRecords;
+
+    /**
+     * Runs an IDCAMS command and returns the lines of its output
+     */
+    @FunctionalInterface
+    public interface PrintRunner {
+        /**
+         * @param command the IDCAMS PRINT command
+         * @return the lines of the IDCAMS output
+         * @throws ZosVSAMDatasetException
+         */
+        public List<String> print(String command) throws ZosVSAMDatasetException;
+    }
+
+    /**
+     * @param dsname the VSAM data set
+     * @param dataType {@link DatasetDataType#TEXT} to convert the records from EBCDIC to ISO8859-1, otherwise the records are
+     * returned as they are stored
+     * @param pageRecords the number of records to request at a time
+     * @param fromParameter the PRINT starting delimiter, e.g. <code>FROMKEY(X'C1')</code>, or null for the first record
+     * @param toParameter the PRINT ending delimiter, e.g. <code>TOKEY(X'C9')</code>, or null for the last record
+     * @param maxRecords the maximum number of records to return, or -1 for no limit
+     * @param runner runs the PRINT commands
+     */
+    public ZosVSAMPrintRecordIterator(@NotNull String dsname, @NotNull DatasetDataType dataType, int pageRecords, String fromParameter, String toParameter, int maxRecords, @NotNull PrintRunner runner) {
+        if (pageRecords < 1) {
+            throw new IllegalArgumentException("The number of records in a page must be greater than 0");
+        }
+        this.dsname = dsname;
+        this.dataType = dataType;
+        this.pageRecords = pageRecords;
+        this.fromParameter = fromParameter;
+        this.toParameter = toParameter;
+        this.maxRecords = maxRecords;
+        this.runner = runner;
+        this.lastPage = maxRecords == 0;
+    }
+
+    @Override
+    public boolean hasNext() throws ZosVSAMDatasetException {
+        if (this.closed || (this.maxRecords >= 0 && this.returnedRecords >= this.maxRecords)) {
+            return false;
+        }
+        while (this.page.isEmpty() && !this.lastPage) {
+            requestPage();
+        }
+        return !this.page.isEmpty();
+    }
+
+    @Override
+    public byte[] next() throws ZosVSAMDatasetException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        this.returnedRecords++;
+        return this.page.poll();
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.page.clear();
+    }
+
+    /**
+     * Read the remaining records
+     * @return the records
+     * @throws ZosVSAMDatasetException
+     */
+    public List<byte[]> toList() throws ZosVSAMDatasetException {
+        List<byte[]> records = new ArrayList<>();
+        while (hasNext()) {
+            records.add(next());
+        }
+        return records;
+    }
+
+    protected void requestPage() throws ZosVSAMDatasetException {
+        boolean continuation = this.lastRecord != null;
+        int count = -1;
+        if (this.toParameter == null) {
+            count = this.pageRecords;
+            if (this.maxRecords >= 0) {
+                count = Math.min(count, this.maxRecords - this.returnedRecords);
+            }
+            if (continuation) {
+                // *** The page starts with the last record of the previous page
+                count++;
+            }
+        }
+        String from = continuation ? this.lastRecord.continueFrom() : this.fromParameter;
+        List<PrintedRecord> records = parsePrintOutput(this.runner.print(getPrintCommand(from, count)));
+        int printed = records.size();
+        if (printed > 0) {
+            PrintedRecord last = records.get(printed - 1);
+            if (continuation && records.get(0).sameRecord(this.lastRecord)) {
+                records.remove(0);
+            }
+            this.lastRecord = last;
+        }
+        if (count < 0 || printed < count || records.isEmpty()) {
+            this.lastPage = true;
+        }
+        for (PrintedRecord printedRecord : records) {
+            this.page.add(printedRecord.getContent(this.dataType));
+        }
+    }
+
+    protected String getPrintCommand(String from, int count) {
+        StringBuilder command = new StringBuilder();
+        command.append("PRINT -\n  INDATASET('");
+        command.append(this.dsname);
+        command.append("') -\n  HEX");
+        if (from != null) {
+            command.append(" -\n  ");
+            command.append(from);
+        }
+        if (this.toParameter != null) {
+            command.append(" -\n  ");
+            command.append(this.toParameter);
+        } else if (count >= 0) {
+            command.append(" -\n  COUNT(");
+            command.append(count);
+            command.append(")");
+        }
+        return command.toString();
+    }
+
+    /**
+     * Returns a PRINT key parameter for a key in characters. The key is converted to EBCDIC by IDCAMS
+     * @param parameter FROMKEY or TOKEY
+     * @param key the key
+     * @return the parameter
+     */
+    public static String characterKeyParameter(String parameter, String key) {
+        return parameter + "('" + key.replace("'", "''") + "')";
+    }
+
+    /**
+     * Returns a PRINT key parameter for a key in bytes
+     * @param parameter FROMKEY or TOKEY
+     * @param key the key
+     * @return the parameter
+     */
+    public static String hexKeyParameter(String parameter, byte[] key) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : key) {
+            hex.append(String.format("%02X", b & 0xFF));
+        }
+        return parameter + "(X'" + hex.toString() + "')";
+    }
+
+    /**
+     * Find the records in the output of an IDCAMS PRINT command in HEX format
+     * @param lines the lines of the output, which may themselves contain line ends
+     * @return the records
+     */
+    protected static List<PrintedRecord> parsePrintOutput(List<String> lines) {
+        List<String> splitLines = new ArrayList<>();
+        for (String line : lines) {
+            splitLines.addAll(Arrays.asList(line.split("\\r?\\n")));
+        }
+        List<PrintedRecord> records = new ArrayList<>();
+        PrintedRecord current = null;
+        for (String line : splitLines) {
+            String trimmed = line.trim();
+            if (trimmed.contains(RECORDS_PROCESSED)) {
+                break;
+            }
+            PrintedRecord header = parseHeader(trimmed);
+            if (header != null) {
+                current = header;
+                records.add(current);
+            } else if (current != null) {
+                String hex = parseHexLine(trimmed, current.length());
+                if (hex != null) {
+                    current.appendHex(hex);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Find the hex data in a line of the PRINT output
+     * @param line the trimmed line
+     * @param offset the number of bytes of the record already read
+     * @return the hex digits of the data, or null if the line is not a data line
+     */
+    protected static String parseHexLine(String line, int offset) {
+        Matcher matcher = HEX_LINE.matcher(line);
+        if (!matcher.matches()) {
+            return null;
+        }
+        List<String> groups = new ArrayList<>(Arrays.asList(matcher.group(1).split("\\s+")));
+        if (groups.get(0).length() % 2 != 0) {
+            // *** Carriage control character in front of the line
+            groups.set(0, groups.get(0).substring(1));
+            if (groups.get(0).isEmpty()) {
+                groups.remove(0);
+            }
+        }
+        if (groups.size() > 1 && groups.get(0).length() < HEX_GROUP_LENGTH && Long.parseLong(groups.get(0), 16) == offset) {
+            // *** Only the last group of data can be shorter than a full group, so a short first group is the offset
+            groups.remove(0);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (String group : groups) {
+            if (group.length() % 2 != 0) {
+                return null;
+            }
+            hex.append(group);
+        }
+        return hex.toString();
+    }
+
+    private static PrintedRecord parseHeader(String line) {
+        Matcher matcher = KEY_HEADER.matcher(line);
+        if (matcher.find()) {
+            return new PrintedRecord("FROMKEY(X'" + matcher.group(1) + "')");
+        }
+        matcher = RBA_HEADER.matcher(line);
+        if (matcher.find()) {
+            return new PrintedRecord("FROMADDRESS(" + matcher.group(1) + ")");
+        }
+        matcher = NUMBER_HEADER.matcher(line);
+        if (matcher.find()) {
+            return new PrintedRecord("FROMNUMBER(" + matcher.group(1) + ")");
+        }
+        return null;
+    }
+
+    /**
+     * A record found in the PRINT output, with the starting delimiter that finds it again
+     */
+    protected static class PrintedRecord {
+
+        private final String fromParameter;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        protected PrintedRecord(String fromParameter) {
+            this.fromParameter = fromParameter;
+        }
+
+        protected String continueFrom() {
+            return this.fromParameter;
+        }
+
+        protected boolean sameRecord(PrintedRecord other) {
+            return this.fromParameter.equals(other.fromParameter);
+        }
+
+        protected int length() {
+            return this.content.size();
+        }
+
+        protected void appendHex(String hex) {
+            for (int i = 0; i < hex.length(); i += 2) {
+                this.content.write(Integer.parseInt(hex.substring(i, i + 2), 16));
+            }
+        }
+
+        protected byte[] getContent(DatasetDataType dataType) {
+            byte[] bytes = this.content.toByteArray();
+            if (dataType == DatasetDataType.TEXT) {
+                return new String(bytes, EBCDIC).getBytes(StandardCharsets.ISO_8859_1);
+            }
+            return bytes;
+        }
+    }
+}
@@ -82,16 +82,21 @@ import dev.galasa.zosbatch.internal.properties.UseSysaff;
 import dev.galasa.zosbatch.internal.properties.ZosBatchPropertiesSingleton;
 import dev.galasa.zosconsole.internal.properties.ConsoleRestrictToImage;
 import dev.galasa.zosconsole.internal.properties.ZosConsolePropertiesSingleton;
+import dev.galasa.zosfile.internal.properties.DatasetRetrieveRangeRecords;
+import dev.galasa.zosfile.internal.properties.DatasetRetrieveThreads;
 import dev.galasa.zosfile.internal.properties.DirectoryListMaxItems;
+import dev.galasa.zosfile.internal.properties.DirectoryListThreads;
 import dev.galasa.zosfile.internal.properties.FileRestrictToImage;
 import dev.galasa.zosfile.internal.properties.UnixFilePermissions;
+import dev.galasa.zosfile.internal.properties.VSAMRetrievePageRecords;
 import dev.galasa.zosfile.internal.properties.ZosFilePropertiesSingleton;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({LogFactory.class, BatchExtraBundle.class, ConsoleExtraBundle.class, FileExtraBundle.class, TSOCommandExtraBundle.class, UNIXCommandExtraBundle.class, 
                  DseImageIdForTag.class, ImageIdForTag.class, ImageSysname.class, DseClusterIdForTag.class, AbstractManager.class, ImageMaxSlots.class, DssUtils.class, 
                  ClusterIdForTag.class, ClusterImages.class, RunDatasetHLQ.class, RunUNIXPathPrefix.class, BatchRestrictToImage.class, UseSysaff.class, JobWaitTimeout.class, TruncateJCLRecords.class, 
-                 JobnamePrefix.class, DirectoryListMaxItems.class, FileRestrictToImage.class, ConsoleRestrictToImage.class, UnixFilePermissions.class})
+                 JobnamePrefix.class, DirectoryListMaxItems.class, FileRestrictToImage.class, ConsoleRestrictToImage.class, UnixFilePermissions.class,
+                 DatasetRetrieveThreads.class, DatasetRetrieveRangeRecords.class, DirectoryListThreads.class, VSAMRetrievePageRecords.class})
 public class TestZosManagerImpl {
 
     private ZosManagerImpl zosManager;
@@ -836,6 +841,34 @@ public class TestZosManagerImpl {
         Assert.assertEquals("UnixFilePermissions() should return the expected value", "---------", zosManagerSpy.getZosFilePropertyUnixFilePermissions(IMAGE_ID));        
     }
 
+    @Test
+    public void testGetZosFilePropertyDatasetRetrieveThreads() throws Exception {
+        PowerMockito.mockStatic(DatasetRetrieveThreads.class);
+        PowerMockito.doReturn(4).when(DatasetRetrieveThreads.class, "get", Mockito.any());
+        Assert.assertEquals("DatasetRetrieveThreads() should return the expected value", 4, zosManagerSpy.getZosFilePropertyDatasetRetrieveThreads(IMAGE_ID));
+    }
+
+    @Test
+    public void testGetZosFilePropertyDatasetRetrieveRangeRecords() throws Exception {
+        PowerMockito.mockStatic(DatasetRetrieveRangeRecords.class);
+        PowerMockito.doReturn(500).when(DatasetRetrieveRangeRecords.class, "get", Mockito.any());
+        Assert.assertEquals("DatasetRetrieveRangeRecords() should return the expected value", 500, zosManagerSpy.getZosFilePropertyDatasetRetrieveRangeRecords(IMAGE_ID));
+    }
+
+    @Test
+    public void testGetZosFilePropertyDirectoryListThreads() throws Exception {
+        PowerMockito.mockStatic(DirectoryListThreads.class);
+        PowerMockito.doReturn(4).when(DirectoryListThreads.class, "get", Mockito.any());
+        Assert.assertEquals("DirectoryListThreads() should return the expected value", 4, zosManagerSpy.getZosFilePropertyDirectoryListThreads(IMAGE_ID));
+    }
+
+    @Test
+    public void testGetZosFilePropertyVSAMRetrievePageRecords() throws Exception {
+        PowerMockito.mockStatic(VSAMRetrievePageRecords.class);
+        PowerMockito.doReturn(500).when(VSAMRetrievePageRecords.class, "get", Mockito.any());
+        Assert.assertEquals("VSAMRetrievePageRecords() should return the expected value", 500, zosManagerSpy.getZosFilePropertyVSAMRetrievePageRecords(IMAGE_ID));
+    }
+
     @Test
     public void testGetZosConsolePropertyConsoleRestrictToImage() throws Exception {
         PowerMockito.mockStatic(ConsoleRestrictToImage.class);
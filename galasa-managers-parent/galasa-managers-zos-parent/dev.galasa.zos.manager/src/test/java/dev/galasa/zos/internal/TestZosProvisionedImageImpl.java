@@ -5,6 +5,10 @@
  */
 package dev.galasa.zos.internal;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.junit.Assert;
@@ -22,6 +26,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 import org.powermock.reflect.Whitebox;
 
 import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.DssAdd;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicResource;
@@ -32,6 +37,7 @@ import dev.galasa.framework.spi.creds.ICredentialsService;
 import dev.galasa.zos.ZosManagerException;
 import dev.galasa.zos.internal.properties.ImageMaxSlots;
 import dev.galasa.zos.internal.properties.ZosPropertiesSingleton;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest({AbstractManager.class, ZosIpHostImpl.class, ImageMaxSlots.class, LogFactory.class, ZosPropertiesSingleton.class, CpsProperties.class})
@@ -169,6 +175,7 @@ public class TestZosProvisionedImageImpl {
     
     @Test
     public void testAllocateImage() throws Exception {
+        flushMetrics();
         PowerMockito.when(ImageMaxSlots.get(Mockito.anyString())).thenReturn(0);
         Assert.assertFalse("allocateImage() should return the false", zosProvisionedImageSpy.allocateImage());
         
@@ -177,15 +184,20 @@ public class TestZosProvisionedImageImpl {
         Assert.assertFalse("allocateImage() should return the false", zosProvisionedImageSpy.allocateImage());
         
         PowerMockito.when(ImageMaxSlots.get(Mockito.anyString())).thenReturn(2);
-        PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("1").thenReturn("2");
-        PowerMockito.when(dssMock.putSwap(ArgumentMatchers.contains(".current.slots"), Mockito.anyString(), Mockito.anyString())).thenReturn(false);
+        PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("2");
         Assert.assertFalse("allocateImage() should return the false", zosProvisionedImageSpy.allocateImage());
+        Mockito.verify(dssMock, Mockito.never()).performActions(Mockito.any());
+        String allocationKey = ZosMetricsRecorder.DSS_PREFIX + "slot_allocation_seconds." + IMAGE_ID;
+        Assert.assertFalse("allocateImage() should not record a failed allocation", flushMetrics().contains(allocationKey));
         
         PowerMockito.when(ImageMaxSlots.get(Mockito.anyString())).thenReturn(2);
-        PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("1");
-        PowerMockito.when(dssMock.putSwap(ArgumentMatchers.contains(".current.slots"), Mockito.anyString(), Mockito.anyString())).thenReturn(true);
-        PowerMockito.when(dssMock.putSwap(Mockito.anyString(), Mockito.any(), ArgumentMatchers.contains(RUN_NAME), Mockito.any())).thenReturn(false).thenReturn(true);
+        PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("0").thenReturn("1");
+        PowerMockito.when(dssMock.getPrefix(Mockito.anyString())).thenReturn(new HashMap<>());
+        Mockito.doThrow(new DynamicStatusStoreException()).doNothing().when(dssMock).performActions(Mockito.any());
         Assert.assertTrue("allocateImage() should return the true", zosProvisionedImageSpy.allocateImage());
+        Mockito.verify(dssMock, Mockito.times(2)).performActions(Mockito.any());
+        Assert.assertEquals("getSlotName() should return the expected value", "SLOT_" + RUN_NAME, zosProvisionedImageSpy.getSlotName());
+        Assert.assertTrue("allocateImage() should record a successful allocation", flushMetrics().contains(allocationKey));
     }
     
     @Test
@@ -202,8 +214,9 @@ public class TestZosProvisionedImageImpl {
     public void testGetSlotName() throws Exception {        
         PowerMockito.when(ImageMaxSlots.get(Mockito.anyString())).thenReturn(2);
         PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("1");
-        PowerMockito.when(dssMock.putSwap(ArgumentMatchers.contains(".current.slots"), Mockito.anyString(), Mockito.anyString())).thenReturn(true);
-        PowerMockito.when(dssMock.putSwap(Mockito.anyString(), Mockito.any(), ArgumentMatchers.contains(RUN_NAME), Mockito.any())).thenReturn(false).thenReturn(true);
+        HashMap<String, String> usedSlotNames = new HashMap<>();
+        usedSlotNames.put("image." + IMAGE_ID + ".slot.SLOT_" + RUN_NAME, RUN_NAME);
+        PowerMockito.when(dssMock.getPrefix("image." + IMAGE_ID + ".slot.")).thenReturn(usedSlotNames);
         zosProvisionedImageSpy.allocateImage();
         
         Assert.assertEquals("getSlotName() should return the expected value", "SLOT_" + RUN_NAME + "_1", zosProvisionedImageSpy.getSlotName());
@@ -214,8 +227,10 @@ public class TestZosProvisionedImageImpl {
         PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn(null);
         zosProvisionedImage.freeImage();
         
+        Mockito.verify(dssMock, Mockito.never()).performActions(Mockito.any());
+        
         PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("1").thenReturn("0");
-        PowerMockito.when(dssMock.putSwap(ArgumentMatchers.contains(".current.slots"), Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(false).thenReturn(true);
+        Mockito.doThrow(new DynamicStatusStoreException()).doNothing().when(dssMock).performActions(Mockito.any());
         Whitebox.setInternalState(zosProvisionedImage, "allocatedSlotName", SLOT_NAME);
         zosProvisionedImage.freeImage();
         Assert.assertEquals("freeImage() should log specified message", "Discard slot name " + SLOT_NAME + " for zOS Image " + IMAGE_ID, logMessage);
@@ -236,12 +251,25 @@ public class TestZosProvisionedImageImpl {
         
         PowerMockito.when(dssMock.get(ArgumentMatchers.contains("slot.run."))).thenReturn("active");        
         PowerMockito.when(dssMock.putSwap(ArgumentMatchers.contains("slot.run."), Mockito.anyString(), Mockito.anyString())).thenReturn(true);
-        PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("0").thenReturn("1").thenReturn("0");
-        PowerMockito.when(dssMock.putSwap(ArgumentMatchers.contains(".current.slots"), Mockito.anyString(), Mockito.anyString())).thenReturn(false).thenReturn(true);
+        PowerMockito.when(dssMock.get(ArgumentMatchers.contains(".current.slots"))).thenReturn("1").thenReturn("0");
+        Mockito.doThrow(new DynamicStatusStoreException()).doNothing().when(dssMock).performActions(Mockito.any());
         ZosProvisionedImageImpl.deleteDss(RUN_NAME, IMAGE_ID, SLOT_NAME, dssMock);
         
         PowerMockito.when(dssMock.get(Mockito.anyString())).thenThrow(new DynamicStatusStoreException());
         ZosProvisionedImageImpl.deleteDss(RUN_NAME, IMAGE_ID, SLOT_NAME, dssMock);
         Assert.assertEquals("deleteDss() should log specified message", "Failed to discard slot " + SLOT_NAME + " on image " + IMAGE_ID, logMessage);        
     }
+    
+    private List<String> flushMetrics() throws Exception {
+        IDynamicStatusStoreService metricsDssMock = Mockito.mock(IDynamicStatusStoreService.class);
+        List<String> keys = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            for (Object action : invocation.getArguments()) {
+                keys.add(((DssAdd) action).getKey());
+            }
+            return null;
+        }).when(metricsDssMock).performActions(Mockito.any());
+        ZosMetricsRecorder.flush(metricsDssMock);
+        return keys;
+    }
 }
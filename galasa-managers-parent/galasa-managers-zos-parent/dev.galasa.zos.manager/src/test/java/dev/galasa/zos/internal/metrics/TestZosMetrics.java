@@ -5,6 +5,9 @@
  */
 package dev.galasa.zos.internal.metrics;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -21,12 +24,18 @@ import org.mockito.stubbing.Answer;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IMetricsServer;
 import dev.galasa.framework.spi.MetricsServerException;
+import dev.galasa.zos.ZosManagerException;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
+import io.prometheus.client.Collector;
 
 @RunWith(PowerMockRunner.class)
 @PrepareForTest(LogFactory.class)
@@ -50,6 +59,9 @@ public class TestZosMetrics {
 
     @Mock
     private IDynamicStatusStoreService dssMock;
+
+    @Mock
+    private IConfigurationPropertyStoreService cpsMock;
     
     @Mock
     private Log logMock;
@@ -100,6 +112,58 @@ public class TestZosMetrics {
         Assert.assertEquals("run() should log specified message", "Problem with zOS poll", logMessage);
     }
     
+    @Test
+    public void testSlotFamilies() throws ConfigurationPropertyStoreException, ZosManagerException {
+        Whitebox.setInternalState(zosMetrics, "cps", cpsMock);
+        Mockito.when(cpsMock.getProperty("image", "max.slots", "IMAGE1")).thenReturn("4");
+        Map<String, String> imageProperties = new HashMap<>();
+        imageProperties.put("image.IMAGE1.current.slots", "3");
+        imageProperties.put("image.IMAGE1.slot.SLOT_RUN1", "RUN1");
+        imageProperties.put("image.IMAGE2.current.slots", "x");
+
+        List<Collector.MetricFamilySamples> families = zosMetrics.slotFamilies(imageProperties);
+        Assert.assertEquals("slotFamilies() should return the used, maximum and utilisation gauges", 3, families.size());
+        Assert.assertEquals("slotFamilies() should ignore invalid slot counts", 1, families.get(0).samples.size());
+        Assert.assertEquals("slotFamilies() should return the slots used", 3.0, families.get(0).samples.get(0).value, 0);
+        Assert.assertEquals("slotFamilies() should label the image", "IMAGE1", families.get(0).samples.get(0).labelValues.get(0));
+        Assert.assertEquals("slotFamilies() should return the maximum slots", 4.0, families.get(1).samples.get(0).value, 0);
+        Assert.assertEquals("slotFamilies() should return the utilisation", 0.75, families.get(2).samples.get(0).value, 0);
+    }
+
+    @Test
+    public void testSeriesFamilies() {
+        Map<String, String> seriesProperties = new HashMap<>();
+        seriesProperties.put(ZosMetricsRecorder.DSS_PREFIX + "spool_file_size_bytes.IMAGE1", "2,3000,1,1,0,0,0,0,0");
+        seriesProperties.put(ZosMetricsRecorder.DSS_PREFIX + "rest_request_errors_total.SERVER.restjobs", "5");
+        seriesProperties.put(ZosMetricsRecorder.DSS_PREFIX + "rest_request_errors_total.SERVER", "5");
+        seriesProperties.put(ZosMetricsRecorder.DSS_PREFIX + "unknown.SERVER", "5");
+        seriesProperties.put(ZosMetricsRecorder.DSS_PREFIX + "slot_backoff_seconds_total.IMAGE1", "1500");
+
+        Map<String, Collector.MetricFamilySamples> families = new HashMap<>();
+        for (Collector.MetricFamilySamples family : zosMetrics.seriesFamilies(seriesProperties)) {
+            families.put(family.name, family);
+        }
+        Assert.assertEquals("seriesFamilies() should return a family for each metric", ZosMetricsRecorder.Metric.values().length, families.size());
+
+        Collector.MetricFamilySamples errors = families.get("galasa_zos_rest_request_errors_total");
+        Assert.assertEquals("Errors should be a counter", Collector.Type.COUNTER, errors.type);
+        Assert.assertEquals("seriesFamilies() should ignore series with the wrong labels", 1, errors.samples.size());
+        Assert.assertEquals("Counter should have the total", 5.0, errors.samples.get(0).value, 0);
+        Assert.assertEquals("Counter should be labelled", "restjobs", errors.samples.get(0).labelValues.get(1));
+
+        Collector.MetricFamilySamples backoff = families.get("galasa_zos_slot_backoff_seconds_total");
+        Assert.assertEquals("Counter should be scaled to the published unit", 1.5, backoff.samples.get(0).value, 0);
+
+        Collector.MetricFamilySamples spool = families.get("galasa_zos_spool_file_size_bytes");
+        Assert.assertEquals("Spool size should be a histogram", Collector.Type.HISTOGRAM, spool.type);
+        Assert.assertEquals("Histogram should have each bucket, the count and the sum", 9, spool.samples.size());
+        Assert.assertEquals("Buckets should be cumulative", 2.0, spool.samples.get(1).value, 0);
+        Assert.assertEquals("Bucket should have an upper bound", "10240.0", spool.samples.get(1).labelValues.get(1));
+        Assert.assertEquals("Last bucket should be unbounded", "+Inf", spool.samples.get(6).labelValues.get(1));
+        Assert.assertEquals("Histogram should have the count", "galasa_zos_spool_file_size_bytes_count", spool.samples.get(7).name);
+        Assert.assertEquals("Histogram should have the sum", 3000.0, spool.samples.get(8).value, 0);
+    }
+
     @Test
     public void testInitialiseException() throws DynamicStatusStoreException, MetricsServerException {
         Mockito.when(frameworkMock.getDynamicStatusStoreService(Mockito.any())).thenThrow(new DynamicStatusStoreException());
@@ -0,0 +1,133 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos.spi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssSwap;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.zos.spi.ZosMetricsRecorder.Metric;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class TestZosMetricsRecorder {
+
+    private static final String IMAGE_ID = "RECORDER";
+
+    @Mock
+    private IDynamicStatusStoreService dssMock;
+
+    private final List<IDssAction> actions = new ArrayList<>();
+
+    @Before
+    public void setup() throws Exception {
+        //*** Discard anything recorded by other tests
+        ZosMetricsRecorder.flush(dssMock);
+        Mockito.doAnswer(invocation -> {
+            for (Object action : invocation.getArguments()) {
+                actions.add((IDssAction) action);
+            }
+            return null;
+        }).when(dssMock).performActions(Mockito.any());
+    }
+
+    @Test
+    public void testFlush() throws Exception {
+        ZosMetricsRecorder.record(Metric.JOB_WAIT, TimeUnit.MILLISECONDS.toNanos(500), IMAGE_ID);
+        ZosMetricsRecorder.record(Metric.JOB_WAIT, TimeUnit.MILLISECONDS.toNanos(7000), IMAGE_ID);
+        ZosMetricsRecorder.increment(Metric.REST_ERROR, "SERVER", "restfiles");
+        String jobWaitKey = ZosMetricsRecorder.DSS_PREFIX + "job_wait_seconds." + IMAGE_ID;
+        String errorKey = ZosMetricsRecorder.DSS_PREFIX + "rest_request_errors_total.SERVER.restfiles";
+        Mockito.when(dssMock.getPrefix(ZosMetricsRecorder.DSS_PREFIX)).thenReturn(Collections.singletonMap(errorKey, "4"));
+
+        ZosMetricsRecorder.flush(dssMock);
+        Assert.assertEquals("flush() should update each series in one transaction", 2, actions.size());
+        Map<String, IDssAction> byKey = new HashMap<>();
+        for (IDssAction action : actions) {
+            byKey.put(action instanceof DssAdd ? ((DssAdd) action).getKey() : ((DssSwap) action).getKey(), action);
+        }
+        DssAdd add = (DssAdd) byKey.get(jobWaitKey);
+        Assert.assertEquals("flush() should add the count, sum and buckets of a new series", "2,7500000000,1,0,1,0,0,0,0,0,0,0,0", add.getValue());
+        DssSwap swap = (DssSwap) byKey.get(errorKey);
+        Assert.assertEquals("flush() should add to the existing total", "5", swap.getNewValue());
+
+        actions.clear();
+        ZosMetricsRecorder.flush(dssMock);
+        Assert.assertTrue("flush() should not update the DSS when nothing has been recorded", actions.isEmpty());
+    }
+
+    @Test
+    public void testFlushRetry() throws Exception {
+        ZosMetricsRecorder.increment(Metric.REST_ERROR, "SERVER", "restjobs");
+        String errorKey = ZosMetricsRecorder.DSS_PREFIX + "rest_request_errors_total.SERVER.restjobs";
+        Mockito.when(dssMock.getPrefix(ZosMetricsRecorder.DSS_PREFIX)).thenReturn(Collections.emptyMap()).thenReturn(Collections.singletonMap(errorKey, "1"));
+        Mockito.doThrow(new DynamicStatusStoreException("changed")).doAnswer(invocation -> {
+            actions.add(invocation.getArgument(0));
+            return null;
+        }).when(dssMock).performActions(Mockito.any());
+
+        ZosMetricsRecorder.flush(dssMock);
+        DssSwap swap = (DssSwap) actions.get(0);
+        Assert.assertEquals("Retry should use the new total", "2", swap.getNewValue());
+
+        ZosMetricsRecorder.increment(Metric.REST_ERROR, "SERVER", "restjobs");
+        Mockito.when(dssMock.getPrefix(ZosMetricsRecorder.DSS_PREFIX)).thenThrow(new DynamicStatusStoreException("exception"));
+        ZosMetricsRecorder.flush(dssMock);
+        Assert.assertEquals("flush() should not throw when the DSS fails", 1, actions.size());
+
+        ZosMetricsRecorder.increment(Metric.REST_ERROR, "SERVER", "restjobs");
+        Mockito.doReturn(Collections.singletonMap(errorKey, "2")).when(dssMock).getPrefix(ZosMetricsRecorder.DSS_PREFIX);
+        ZosMetricsRecorder.flush(dssMock);
+        swap = (DssSwap) actions.get(1);
+        Assert.assertEquals("flush() should keep the values of a failed flush for the next flush", "4", swap.getNewValue());
+    }
+
+    @Test
+    public void testIncrementAmount() throws Exception {
+        ZosMetricsRecorder.increment(Metric.SLOT_CONFLICTS, 3, IMAGE_ID);
+        ZosMetricsRecorder.increment(Metric.SLOT_CONFLICTS, 2, IMAGE_ID);
+        Mockito.when(dssMock.getPrefix(ZosMetricsRecorder.DSS_PREFIX)).thenReturn(Collections.emptyMap());
+
+        ZosMetricsRecorder.flush(dssMock);
+        DssAdd add = (DssAdd) actions.get(0);
+        Assert.assertEquals("increment() should add the amounts to the counter", "5", add.getValue());
+
+        Assert.assertThrows("expected exception should be thrown", IllegalStateException.class, ()->{
+            ZosMetricsRecorder.increment(Metric.JOB_WAIT, 2, IMAGE_ID);
+        });
+    }
+
+    @Test
+    public void testSeriesKey() {
+        Assert.assertEquals("seriesKey() should join the label values", "rest_request_seconds.SERVER.restfiles", ZosMetricsRecorder.seriesKey(Metric.REST_REQUEST, "SERVER", "restfiles"));
+        Assert.assertEquals("seriesKey() should replace dots and missing labels", "rest_request_seconds.SERVER_1.unknown", ZosMetricsRecorder.seriesKey(Metric.REST_REQUEST, "SERVER.1"));
+        Assert.assertEquals("metricForKey() should return the metric", Metric.REST_REQUEST, ZosMetricsRecorder.metricForKey("rest_request_seconds.SERVER.restfiles"));
+        Assert.assertNull("metricForKey() should return null for an unknown metric", ZosMetricsRecorder.metricForKey("unknown.SERVER"));
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertArrayEquals("parse() should return the values", new long[] {1, 2, 3}, ZosMetricsRecorder.parse("1,2,3", 3));
+        Assert.assertArrayEquals("parse() should return zeros for a missing value", new long[3], ZosMetricsRecorder.parse(null, 3));
+        Assert.assertArrayEquals("parse() should return zeros for the wrong number of values", new long[3], ZosMetricsRecorder.parse("1,2", 3));
+        Assert.assertArrayEquals("parse() should return zeros for an invalid value", new long[3], ZosMetricsRecorder.parse("1,x,3", 3));
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos.spi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import dev.galasa.ICredentialsUsernamePassword;
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.IFramework;
+import dev.galasa.framework.spi.IDssAction;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.framework.spi.creds.CredentialsException;
+import dev.galasa.framework.spi.creds.ICredentialsService;
+import dev.galasa.http.HttpClientException;
+import dev.galasa.http.HttpClientResponse;
+import dev.galasa.http.IHttpClient;
+import dev.galasa.zos.IZosImage;
+import dev.galasa.zos.ZosManagerException;
+import dev.galasa.zos.spi.ZosRestTransport.LatencyHistogram;
+import dev.galasa.zos.spi.ZosRestTransport.RequestType;
+import dev.galasa.zos.spi.ZosRestTransport.Response;
+
+public class TestZosRestTransport {
+
+    @Test
+    public void testGetEndpoint() {
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 0, 3);
+        Assert.assertEquals("getEndpoint() should stop at an upper case segment", "GET /zosmf/restfiles/ds", transport.getEndpoint("GET", "/zosmf/restfiles/ds/HLQ.DS(MEMBER)"));
+        Assert.assertEquals("getEndpoint() should stop at the maximum number of segments", "GET /zosmf/restfiles/fs", transport.getEndpoint("GET", "/zosmf/restfiles/fs/u/user/file"));
+        Assert.assertEquals("getEndpoint() should ignore the query", "PUT /zosmf/restjobs/jobs", transport.getEndpoint("PUT", "zosmf/restjobs/jobs?owner=USER"));
+        Assert.assertEquals("getEndpoint() should return the root for an upper case path", "DELETE /", transport.getEndpoint("DELETE", "/JOB"));
+    }
+
+    @Test
+    public void testExecute() throws Exception {
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 2, 4);
+        Assert.assertNull("getLatencySummary() should return null before any requests", transport.getLatencySummary());
+        Assert.assertEquals("execute() should return the response", "response", transport.execute("GET", "/rseapi/api/v1/datasets/HLQ.DS", () -> "response"));
+        transport.execute("GET", "/rseapi/api/v1/datasets/HLQ.DS2", () -> "response");
+        transport.execute("POST", "/rseapi/api/v1/unixcommand", () -> "response");
+
+        ZosManagerException expectedException = Assert.assertThrows("expected exception should be thrown", ZosManagerException.class, ()->{
+            transport.execute("POST", "/rseapi/api/v1/unixcommand", () -> {
+                throw new ZosManagerException("exception");
+            });
+        });
+        Assert.assertEquals("exception should contain expected message", "exception", expectedException.getMessage());
+
+        Assert.assertEquals("Requests should be measured by endpoint", 2, transport.getLatencies().size());
+        Assert.assertEquals("Requests should be measured by endpoint", 2, transport.getLatencies().get("GET /rseapi/api/v1/datasets").getCount());
+        Assert.assertEquals("Failed requests should be measured", 2, transport.getLatencies().get("POST /rseapi/api/v1/unixcommand").getCount());
+        String summary = transport.getLatencySummary();
+        Assert.assertTrue("getLatencySummary() should name the server", summary.startsWith("Request latencies for SERVER"));
+        Assert.assertTrue("getLatencySummary() should contain each endpoint", summary.contains("\n    GET /rseapi/api/v1/datasets count=2 "));
+        Assert.assertEquals("getMaxConcurrentRequests() should return the limit", 2, transport.getMaxConcurrentRequests());
+    }
+
+    @Test
+    public void testExecuteMetrics() throws Exception {
+        IDynamicStatusStoreService dssMock = Mockito.mock(IDynamicStatusStoreService.class);
+        ZosMetricsRecorder.flush(dssMock);
+        List<IDssAction> actions = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            for (Object action : invocation.getArguments()) {
+                actions.add((IDssAction) action);
+            }
+            return null;
+        }).when(dssMock).performActions(Mockito.any());
+
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 0, 3, "METRICS", 1);
+        Assert.assertEquals("getApi() should return the API segment", "restfiles", transport.getApi("GET /zosmf/restfiles/ds"));
+        Assert.assertEquals("getApi() should return other for a short endpoint", "other", transport.getApi("GET /zosmf"));
+        transport.execute("GET", "/zosmf/restfiles/ds/HLQ.DS", () -> 200, status -> status != 200);
+        transport.execute("GET", "/zosmf/restfiles/ds/HLQ.DS", () -> 404, status -> status != 200);
+        Assert.assertThrows("expected exception should be thrown", ZosManagerException.class, ()->{
+            transport.execute("PUT", "/zosmf/restjobs/jobs", () -> {
+                throw new ZosManagerException("exception");
+            });
+        });
+
+        ZosMetricsRecorder.flush(dssMock);
+        Map<String, String> values = new HashMap<>();
+        for (IDssAction action : actions) {
+            values.put(((DssAdd) action).getKey(), ((DssAdd) action).getValue());
+        }
+        Assert.assertTrue("Requests should be recorded by server and API", values.get(ZosMetricsRecorder.DSS_PREFIX + "rest_request_seconds.METRICS.restfiles").startsWith("2,"));
+        Assert.assertEquals("Unexpected responses should be recorded as errors", "1", values.get(ZosMetricsRecorder.DSS_PREFIX + "rest_request_errors_total.METRICS.restfiles"));
+        Assert.assertEquals("Exceptions should be recorded as errors", "1", values.get(ZosMetricsRecorder.DSS_PREFIX + "rest_request_errors_total.METRICS.restjobs"));
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 2, 3);
+        AtomicInteger outstanding = new AtomicInteger();
+        AtomicInteger highest = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(executor.submit(() -> transport.execute("GET", "/zosmf/info", () -> {
+                    highest.accumulateAndGet(outstanding.incrementAndGet(), Math::max);
+                    started.countDown();
+                    started.await(10, TimeUnit.SECONDS);
+                    Thread.sleep(20);
+                    return outstanding.decrementAndGet();
+                })));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals("No more than the maximum requests should be outstanding at once", 2, highest.get());
+        Assert.assertEquals("Every request should be measured", 6, transport.getLatencies().get("GET /zosmf/info").getCount());
+    }
+
+    @Test
+    public void testInitialiseHttpClient() throws Exception {
+        IHttpClient httpClientMock = Mockito.mock(IHttpClient.class);
+        IFramework frameworkMock = Mockito.mock(IFramework.class);
+        ICredentialsService credentialsServiceMock = Mockito.mock(ICredentialsService.class);
+        IZosImage imageMock = Mockito.mock(IZosImage.class);
+        ICredentialsUsernamePassword credentialsMock = Mockito.mock(ICredentialsUsernamePassword.class);
+        Mockito.when(credentialsMock.getUsername()).thenReturn("userid");
+        Mockito.when(credentialsMock.getPassword()).thenReturn("password");
+        Mockito.when(frameworkMock.getCredentialsService()).thenReturn(credentialsServiceMock);
+        Mockito.when(credentialsServiceMock.getCredentials("CREDS")).thenReturn(credentialsMock);
+
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 0, 3);
+        transport.initialiseHttpClient(httpClientMock, "https://host:443", "CREDS", frameworkMock, imageMock, true);
+        Mockito.verify(httpClientMock).setURI(new URI("https://host:443"));
+        Mockito.verify(httpClientMock).setAuthorisation("userid", "password");
+        Mockito.verify(httpClientMock).setTrustingSSLContext();
+        Mockito.verify(httpClientMock).build();
+        Mockito.verify(imageMock, Mockito.never()).getDefaultCredentials();
+
+        IHttpClient httpClientMock2 = Mockito.mock(IHttpClient.class);
+        Mockito.when(imageMock.getDefaultCredentials()).thenReturn(credentialsMock);
+        transport.initialiseHttpClient(httpClientMock2, "http://host:80", null, frameworkMock, imageMock, false);
+        Mockito.verify(httpClientMock2).setAuthorisation("userid", "password");
+        Mockito.verify(httpClientMock2, Mockito.never()).setTrustingSSLContext();
+
+        Mockito.when(frameworkMock.getCredentialsService()).thenThrow(new CredentialsException("exception"));
+        ZosManagerException expectedException = Assert.assertThrows("expected exception should be thrown", ZosManagerException.class, ()->{
+            transport.initialiseHttpClient(httpClientMock, "https://host:443", "CREDS", frameworkMock, imageMock, true);
+        });
+        Assert.assertEquals("exception should contain expected message", "Problem accessing credentials store", expectedException.getMessage());
+    }
+
+    @Test
+    public void testRequestHeaders() {
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 0, 3);
+        Assert.assertTrue("requestHeaders() should return no headers", transport.requestHeaders(null).isEmpty());
+
+        transport.setHeader("key", "value");
+        transport.setHeader("common", "value");
+        Map<String, String> headers = new HashMap<>();
+        headers.put("key", "request");
+        Map<String, String> requestHeaders = transport.requestHeaders(headers);
+        Assert.assertEquals("requestHeaders() should include the common headers", "value", requestHeaders.get("common"));
+        Assert.assertEquals("requestHeaders() should prefer the request headers", "request", requestHeaders.get("key"));
+        Assert.assertEquals("requestHeaders() should not change the common headers", "value", transport.getCommonHeaders().get("key"));
+
+        transport.clearHeaders();
+        Assert.assertTrue("clearHeaders() should clear the common headers", transport.getCommonHeaders().isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSend() throws Exception {
+        IHttpClient httpClientMock = Mockito.mock(IHttpClient.class);
+        IZosImage imageMock = Mockito.mock(IZosImage.class);
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 0, 3);
+        transport.initialiseHttpClient(httpClientMock, "http://host:80", null, Mockito.mock(IFramework.class), imageMock, false);
+        transport.setHeader("common", "value");
+
+        HttpClientResponse<String> textResponseMock = Mockito.mock(HttpClientResponse.class);
+        Mockito.when(textResponseMock.getContent()).thenReturn("content");
+        Mockito.when(textResponseMock.getStatusCode()).thenReturn(200);
+        Mockito.when(textResponseMock.getStatusLine()).thenReturn("OK");
+        Mockito.when(httpClientMock.getText(Mockito.eq("/zosmf/info"), Mockito.anyMap())).thenReturn(textResponseMock);
+        Response response = transport.send(RequestType.GET_TEXT, "/zosmf/info", null, null, Arrays.asList(200));
+        Assert.assertEquals("send() should return the content", "content", response.getContent());
+        Assert.assertEquals("send() should return the status code", 200, response.getStatusCode());
+        Assert.assertEquals("send() should return the status line", "OK", response.getStatusLine());
+        Map<String, String> expectedHeaders = new HashMap<>();
+        expectedHeaders.put("common", "value");
+        Mockito.verify(httpClientMock).getText("/zosmf/info", expectedHeaders);
+
+        CloseableHttpResponse fileResponseMock = Mockito.mock(CloseableHttpResponse.class);
+        HttpEntity entityMock = Mockito.mock(HttpEntity.class);
+        StatusLine statusLineMock = Mockito.mock(StatusLine.class);
+        Mockito.when(fileResponseMock.getEntity()).thenReturn(entityMock);
+        Mockito.when(fileResponseMock.getStatusLine()).thenReturn(statusLineMock);
+        Mockito.when(statusLineMock.getStatusCode()).thenReturn(200);
+        Mockito.when(statusLineMock.getReasonPhrase()).thenReturn("OK");
+        ByteArrayInputStream content = new ByteArrayInputStream("content".getBytes());
+        Mockito.when(entityMock.getContent()).thenReturn(content);
+        Mockito.when(httpClientMock.getFile(Mockito.eq("/zosmf/restfiles/ds/HLQ.DS"), Mockito.anyMap())).thenReturn(fileResponseMock);
+        response = transport.send(RequestType.GET_FILE, "/zosmf/restfiles/ds/HLQ.DS", null, null, Arrays.asList(200));
+        Assert.assertNull("The file request should not be measured until its content is closed", transport.getLatencies().get("GET /zosmf/restfiles/ds"));
+        try (InputStream responseStream = (InputStream) response.getContent()) {
+            byte[] read = new byte[7];
+            Assert.assertEquals("send() should return the response stream", 7, responseStream.read(read));
+            Assert.assertEquals("send() should return the response stream", "content", new String(read));
+        }
+        ((InputStream) response.getContent()).close();
+        Assert.assertEquals("The file request should be measured once when its content is closed", 1, transport.getLatencies().get("GET /zosmf/restfiles/ds").getCount());
+
+        Mockito.when(entityMock.getContent()).thenThrow(new IOException());
+        HttpClientException expectedException = Assert.assertThrows("expected exception should be thrown", HttpClientException.class, ()->{
+            transport.send(RequestType.GET_FILE, "/zosmf/restfiles/ds/HLQ.DS", null, null, Arrays.asList(200));
+        });
+        Assert.assertEquals("exception should contain expected message", "Could not retrieve response", expectedException.getMessage());
+        Assert.assertEquals("Every request should be measured", 2, transport.getLatencies().get("GET /zosmf/restfiles/ds").getCount());
+    }
+
+    @Test
+    public void testSendFileHoldsPermitUntilClosed() throws Exception {
+        IHttpClient httpClientMock = Mockito.mock(IHttpClient.class);
+        ZosRestTransport transport = new ZosRestTransport("SERVER", 1, 3);
+        transport.initialiseHttpClient(httpClientMock, "http://host:80", null, Mockito.mock(IFramework.class), Mockito.mock(IZosImage.class), false);
+
+        CloseableHttpResponse fileResponseMock = Mockito.mock(CloseableHttpResponse.class);
+        HttpEntity entityMock = Mockito.mock(HttpEntity.class);
+        StatusLine statusLineMock = Mockito.mock(StatusLine.class);
+        Mockito.when(fileResponseMock.getEntity()).thenReturn(entityMock);
+        Mockito.when(fileResponseMock.getStatusLine()).thenReturn(statusLineMock);
+        Mockito.when(statusLineMock.getStatusCode()).thenReturn(200);
+        Mockito.when(entityMock.getContent()).thenAnswer(invocation -> new ByteArrayInputStream("content".getBytes()));
+        Mockito.when(httpClientMock.getFile(Mockito.anyString(), Mockito.anyMap())).thenReturn(fileResponseMock);
+
+        Response first = transport.send(RequestType.GET_FILE, "/zosmf/restfiles/ds/HLQ.DS", null, null, Arrays.asList(200));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response> second = executor.submit(() -> transport.send(RequestType.GET_FILE, "/zosmf/restfiles/ds/HLQ.DS2", null, null, Arrays.asList(200)));
+            Thread.sleep(100);
+            Assert.assertFalse("The second file request should wait for the first to be closed", second.isDone());
+
+            ((InputStream) first.getContent()).close();
+            ((InputStream) second.get(10, TimeUnit.SECONDS).getContent()).close();
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals("Both file requests should be measured", 2, transport.getLatencies().get("GET /zosmf/restfiles/ds").getCount());
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals("Empty histogram should have no percentile", 0, histogram.getPercentileMillis(50));
+        Assert.assertEquals("Empty histogram should have no mean", 0, histogram.getMeanMillis());
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(200));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(45000));
+        long[] counts = histogram.getBucketCounts();
+        Assert.assertEquals("Requests up to the bound should be in the first bucket", 2, counts[0]);
+        Assert.assertEquals("Request should be in the bucket for its latency", 1, counts[4]);
+        Assert.assertEquals("Slow request should be in the last bucket", 1, counts[counts.length - 1]);
+        Assert.assertEquals("getCount() should return the number of requests", 4, histogram.getCount());
+        Assert.assertEquals("getPercentileMillis() should return the bucket bound", 10, histogram.getPercentileMillis(50));
+        Assert.assertEquals("getPercentileMillis() should return the bucket bound", 250, histogram.getPercentileMillis(75));
+        Assert.assertEquals("getPercentileMillis() should return the maximum for the last bucket", 45000, histogram.getPercentileMillis(100));
+        Assert.assertEquals("getMaxMillis() should return the slowest request", 45000, histogram.getMaxMillis());
+        Assert.assertEquals("getMeanMillis() should return the mean", 11303, histogram.getMeanMillis());
+    }
+}
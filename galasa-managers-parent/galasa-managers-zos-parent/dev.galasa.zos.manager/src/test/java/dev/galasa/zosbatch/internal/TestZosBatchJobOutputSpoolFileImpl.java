@@ -15,6 +15,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import dev.galasa.zosbatch.IZosBatchJob;
 import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
 import dev.galasa.zosbatch.ZosBatchException;
+import dev.galasa.zosbatch.spi.IZosBatchJobSpi;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TestZosBatchJobOutputSpoolFileImpl { 
@@ -22,6 +23,9 @@ public class TestZosBatchJobOutputSpoolFileImpl {
     @Mock
     private IZosBatchJob zosBatchJobMock;
     
+    @Mock
+    private IZosBatchJobSpi zosBatchJobSpiMock;
+    
     @Mock
     private IZosBatchJobOutputSpoolFile zosBatchJobOutputSpoolFileMock;
 
@@ -78,6 +82,32 @@ public class TestZosBatchJobOutputSpoolFileImpl {
         Assert.assertNull("getRecords() should return the supplied value", zosBatchJobOutputSpoolFile.getRecords());
     }
     
+    @Test
+    public void testGetRecordsLazy() throws ZosBatchException {
+    	ZosBatchJobOutputSpoolFileImpl zosBatchJobOutputSpoolFile = new ZosBatchJobOutputSpoolFileImpl(zosBatchJobSpiMock, JOBNAME, JOBID, STEPNAME, PROCSTEP, DDNAME, ID, null);
+    	Mockito.when(zosBatchJobSpiMock.retrieveSpoolFileRecords(zosBatchJobOutputSpoolFile)).thenReturn(RECORDS);
+        Assert.assertEquals("getRecords() should return the retrieved value", RECORDS, zosBatchJobOutputSpoolFile.getRecords());
+        Assert.assertEquals("getSize() should return the expected value", RECORDS.length(), zosBatchJobOutputSpoolFile.getSize());
+        Assert.assertEquals("getRecords() should return the retrieved value", RECORDS, zosBatchJobOutputSpoolFile.getRecords());
+        Mockito.verify(zosBatchJobSpiMock, Mockito.times(1)).retrieveSpoolFileRecords(zosBatchJobOutputSpoolFile);
+        Mockito.verify(zosBatchJobSpiMock, Mockito.never()).getSpoolFile(Mockito.any());
+    	
+    	zosBatchJobOutputSpoolFile = new ZosBatchJobOutputSpoolFileImpl(zosBatchJobSpiMock, JOBNAME, JOBID, STEPNAME, PROCSTEP, DDNAME, ID, null);
+    	ZosBatchException retrieveException = new ZosBatchException("exception");
+    	Mockito.when(zosBatchJobSpiMock.retrieveSpoolFileRecords(zosBatchJobOutputSpoolFile)).thenThrow(retrieveException);
+    	ZosBatchJobOutputSpoolFileImpl failedSpoolFile = zosBatchJobOutputSpoolFile;
+        IllegalStateException expectedException = Assert.assertThrows("expected exception should be thrown", IllegalStateException.class, ()->{
+        	failedSpoolFile.getRecords();
+        });
+        Assert.assertEquals("exception should contain expected message", "Unable to retrieve spool file " + failedSpoolFile.toString(), expectedException.getMessage());
+        Assert.assertSame("exception should wrap the retrieve failure", retrieveException, expectedException.getCause());
+        expectedException = Assert.assertThrows("expected exception should be thrown", IllegalStateException.class, ()->{
+        	failedSpoolFile.getRecords();
+        });
+        Assert.assertSame("the failure should be reported again", retrieveException, expectedException.getCause());
+        Mockito.verify(zosBatchJobSpiMock, Mockito.times(1)).retrieveSpoolFileRecords(failedSpoolFile);
+    }
+    
     @Test
     public void testSaveToResultsArchive() throws ZosBatchException {
     	ZosBatchJobOutputSpoolFileImpl zosBatchJobOutputSpoolFile = new ZosBatchJobOutputSpoolFileImpl(zosBatchJobMock, JOBNAME, JOBID, STEPNAME, PROCSTEP, DDNAME, ID, RECORDS);
@@ -0,0 +1,175 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.spi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import dev.galasa.zosbatch.IZosBatchJob;
+import dev.galasa.zosbatch.IZosBatchJobname;
+import dev.galasa.zosbatch.ZosBatchException;
+
+public class TestZosBatchJobMonitor {
+
+    private final TestQuery query = new TestQuery();
+
+    private final ZosBatchJobMonitor<IZosBatchJob> jobMonitor = new ZosBatchJobMonitor<>("IMAGE", query);
+
+    @After
+    public void tearDown() {
+        jobMonitor.shutdown();
+    }
+
+    @Test
+    public void testJobsAreQueriedTogether() throws Exception {
+        IZosBatchJob job1 = newJobMock("JOB00001");
+        IZosBatchJob job2 = newJobMock("JOB00002");
+        IZosBatchJob job3 = newJobMock("JOB00003");
+
+        CompletableFuture<Integer> future1 = jobMonitor.waitForJob(job1, 10);
+        CompletableFuture<Integer> future2 = jobMonitor.waitForJob(job2, 10);
+        CompletableFuture<Integer> future3 = jobMonitor.waitForJob(job3, 10);
+        Assert.assertSame("waitForJob() should return the existing future", future1, jobMonitor.waitForJob(job1, 10));
+
+        query.completionCodes.put(job2, 4);
+        Assert.assertEquals("Job should complete with its return code", Integer.valueOf(4), future2.get(5, TimeUnit.SECONDS));
+        Assert.assertFalse("Job should still be waiting", future1.isDone());
+
+        query.completionCodes.put(job1, 0);
+        query.completionCodes.put(job3, Integer.MIN_VALUE);
+        Assert.assertEquals("Job should complete with its return code", Integer.valueOf(0), future1.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("Job should complete with its return code", Integer.valueOf(Integer.MIN_VALUE), future3.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("No jobs should be waiting", 0, jobMonitor.getWaitingJobCount());
+
+        for (List<IZosBatchJob> queried : query.queries) {
+            Assert.assertTrue("Each poll should query all the waiting jobs at once", queried.size() >= 1 && queried.size() <= 3);
+        }
+        Assert.assertTrue("Jobs should have been queried together", query.queries.stream().anyMatch(queried -> queried.size() == 3));
+    }
+
+    @Test
+    public void testPollingBacksOff() throws Exception {
+        IZosBatchJob job = newJobMock("JOB00001");
+        CompletableFuture<Integer> future = jobMonitor.waitForJob(job, 2);
+
+        Assert.assertEquals("Job should time out", Integer.valueOf(Integer.MIN_VALUE), future.get(5, TimeUnit.SECONDS));
+        // *** 250, 500 and 1000ms, then the timeout, rather than a poll every 250ms
+        Assert.assertTrue("Polling should back off, polled " + query.queries.size() + " times", query.queries.size() <= 6);
+    }
+
+    @Test
+    public void testQueryException() throws Exception {
+        IZosBatchJob job = newJobMock("JOB00001");
+        query.exception = new ZosBatchException("exception");
+        CompletableFuture<Integer> future = jobMonitor.waitForJob(job, 2);
+
+        waitForQueries(2);
+        Assert.assertFalse("A failed poll should not fail the wait before its timeout", future.isDone());
+
+        ExecutionException expectedException = Assert.assertThrows("expected exception should be thrown", ExecutionException.class, ()->{
+            future.get(5, TimeUnit.SECONDS);
+        });
+        Assert.assertSame("exception should be the query exception", query.exception, expectedException.getCause());
+
+        ZosBatchException resultException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+            ZosBatchJobMonitor.getResult(future);
+        });
+        Assert.assertEquals("exception should contain expected message", "exception", resultException.getMessage());
+    }
+
+    @Test
+    public void testQueryRecovers() throws Exception {
+        IZosBatchJob job1 = newJobMock("JOB00001");
+        IZosBatchJob job2 = newJobMock("JOB00002");
+        query.exception = new ZosBatchException("exception");
+        CompletableFuture<Integer> future1 = jobMonitor.waitForJob(job1, 10);
+        CompletableFuture<Integer> future2 = jobMonitor.waitForJob(job2, 10);
+
+        waitForQueries(2);
+        query.completionCodes.put(job1, 0);
+        query.exception = null;
+        Assert.assertEquals("Job should complete once the query succeeds", Integer.valueOf(0), future1.get(10, TimeUnit.SECONDS));
+        Assert.assertFalse("Other jobs should still be waiting", future2.isDone());
+        Assert.assertEquals("Other jobs should still be waiting", 1, jobMonitor.getWaitingJobCount());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        IZosBatchJob job = newJobMock("JOB00001");
+        CompletableFuture<Integer> future = jobMonitor.waitForJob(job, 10);
+        jobMonitor.shutdown();
+
+        ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+            ZosBatchJobMonitor.getResult(future);
+        });
+        Assert.assertEquals("exception should contain expected message", "The job monitor for image IMAGE has been shut down", expectedException.getMessage());
+        Assert.assertTrue("Waits after shutdown should fail", jobMonitor.waitForJob(job, 10).isCompletedExceptionally());
+    }
+
+    @Test
+    public void testWaitForJobs() throws Exception {
+        IZosBatchJob job1 = newJobMock("JOB00001");
+        IZosBatchJob job2 = newJobMock("JOB00002");
+        query.completionCodes.put(job1, 8);
+        query.completionCodes.put(job2, 0);
+        Mockito.when(job1.waitForJobAsync()).thenAnswer(invocation -> jobMonitor.waitForJob(job1, 10));
+        Mockito.when(job2.waitForJobAsync()).thenAnswer(invocation -> jobMonitor.waitForJob(job2, 10));
+
+        Map<IZosBatchJob, Integer> results = ZosBatchJobMonitor.waitForJobs(Arrays.asList(job2, job1));
+        Assert.assertEquals("waitForJobs() should return the jobs in the order supplied", Arrays.asList(job2, job1), new ArrayList<>(results.keySet()));
+        Assert.assertEquals("waitForJobs() should return the return codes", Arrays.asList(0, 8), new ArrayList<>(results.values()));
+    }
+
+    private void waitForQueries(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (query.queries.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue("Polling should continue after a failure, polled " + query.queries.size() + " times", query.queries.size() >= count);
+    }
+
+    private IZosBatchJob newJobMock(String jobid) {
+        IZosBatchJob job = Mockito.mock(IZosBatchJob.class);
+        IZosBatchJobname jobname = Mockito.mock(IZosBatchJobname.class);
+        Mockito.when(jobname.getName()).thenReturn("GAL00001");
+        Mockito.when(job.getJobname()).thenReturn(jobname);
+        Mockito.when(job.getJobId()).thenReturn(jobid);
+        return job;
+    }
+
+    private static class TestQuery implements IZosBatchJobStatusQuery<IZosBatchJob> {
+
+        private final Map<IZosBatchJob, Integer> completionCodes = new ConcurrentHashMap<>();
+        private final List<List<IZosBatchJob>> queries = new CopyOnWriteArrayList<>();
+        private volatile ZosBatchException exception;
+
+        @Override
+        public synchronized void updateJobStatus(Collection<IZosBatchJob> jobs) throws ZosBatchException {
+            queries.add(new ArrayList<>(jobs));
+            if (exception != null) {
+                throw exception;
+            }
+        }
+
+        @Override
+        public Integer completionCode(IZosBatchJob job) {
+            return completionCodes.get(job);
+        }
+    }
+}
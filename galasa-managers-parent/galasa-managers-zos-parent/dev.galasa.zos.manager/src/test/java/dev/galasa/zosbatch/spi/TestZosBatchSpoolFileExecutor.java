@@ -0,0 +1,96 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.spi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
+import dev.galasa.zosbatch.ZosBatchException;
+
+public class TestZosBatchSpoolFileExecutor {
+
+    private final ZosBatchSpoolFileExecutor spoolFileExecutor = new ZosBatchSpoolFileExecutor("IMAGE", 3);
+
+    @After
+    public void tearDown() {
+        spoolFileExecutor.shutdown();
+    }
+
+    @Test
+    public void testSpoolFilesProcessedTogether() throws Exception {
+        List<IZosBatchJobOutputSpoolFile> spoolFiles = newSpoolFileMocks(3);
+        CountDownLatch started = new CountDownLatch(3);
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<IZosBatchJobOutputSpoolFile> processed = Collections.synchronizedList(new ArrayList<>());
+
+        spoolFileExecutor.execute(spoolFiles, spoolFile -> {
+            started.countDown();
+            try {
+                // *** Only completes if all three spool files are in progress at once
+                Assert.assertTrue("Spool files should be processed together", started.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new ZosBatchException(e);
+            }
+            threads.add(Thread.currentThread().getName());
+            processed.add(spoolFile);
+        });
+
+        Assert.assertEquals("All the spool files should be processed", 3, processed.size());
+        Assert.assertTrue("Spool files should be processed on the pool threads", threads.stream().allMatch(name -> name.startsWith("galasa-zosbatch-spool-IMAGE-")));
+    }
+
+    @Test
+    public void testSingleSpoolFile() throws Exception {
+        List<IZosBatchJobOutputSpoolFile> spoolFiles = newSpoolFileMocks(1);
+        List<String> threads = new ArrayList<>();
+        spoolFileExecutor.execute(spoolFiles, spoolFile -> threads.add(Thread.currentThread().getName()));
+        Assert.assertEquals("A single spool file should be processed on the calling thread", Collections.singletonList(Thread.currentThread().getName()), threads);
+    }
+
+    @Test
+    public void testException() throws Exception {
+        List<IZosBatchJobOutputSpoolFile> spoolFiles = newSpoolFileMocks(4);
+        List<IZosBatchJobOutputSpoolFile> processed = Collections.synchronizedList(new ArrayList<>());
+        ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+            spoolFileExecutor.execute(spoolFiles, spoolFile -> {
+                if (spoolFile == spoolFiles.get(1)) {
+                    throw new ZosBatchException("exception");
+                }
+                processed.add(spoolFile);
+            });
+        });
+        Assert.assertEquals("exception should contain expected message", "exception", expectedException.getMessage());
+        Assert.assertEquals("The other spool files should still be processed", 3, processed.size());
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        spoolFileExecutor.shutdown();
+        List<IZosBatchJobOutputSpoolFile> spoolFiles = newSpoolFileMocks(2);
+        List<String> threads = new ArrayList<>();
+        spoolFileExecutor.execute(spoolFiles, spoolFile -> threads.add(Thread.currentThread().getName()));
+        Assert.assertEquals("Spool files should be processed on the calling thread after shutdown", 2, threads.stream().filter(name -> name.equals(Thread.currentThread().getName())).count());
+    }
+
+    private List<IZosBatchJobOutputSpoolFile> newSpoolFileMocks(int count) {
+        List<IZosBatchJobOutputSpoolFile> spoolFiles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            spoolFiles.add(Mockito.mock(IZosBatchJobOutputSpoolFile.class));
+        }
+        return spoolFiles;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.zosfile.IZosDataset.DatasetDataType;
+import dev.galasa.zosfile.ZosDatasetException;
+
+public class TestZosDatasetRangeInputStream {
+
+    private final List<Integer> requestedRanges = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testTextRanges() throws Exception {
+        // *** 25 records read 10 at a time by 3 threads
+        ZosDatasetRangeInputStream stream = new ZosDatasetRangeInputStream("DSNAME", DatasetDataType.TEXT, 10, 3, this::range25);
+        Assert.assertEquals("Stream should contain all the records in order", textRange(0, 25), readAll(stream));
+        Assert.assertEquals("Stream should be at the end", -1, stream.read());
+        Assert.assertTrue("The first three ranges should be requested", requestedRanges.containsAll(Arrays.asList(0, 10, 20)));
+        // *** Each range read before the short range one requests another, so no more than two can be past the end
+        Assert.assertFalse("No further ranges should be requested after the short range", requestedRanges.stream().anyMatch(first -> first > 40));
+        stream.close();
+    }
+
+    @Test
+    public void testExactRanges() throws Exception {
+        ZosDatasetRangeInputStream stream = new ZosDatasetRangeInputStream("DSNAME", DatasetDataType.TEXT, 10, 2, this::range20);
+        Assert.assertEquals("Stream should contain all the records in order", textRange(0, 20), readAll(stream));
+        stream.close();
+    }
+
+    @Test
+    public void testRecordRanges() throws Exception {
+        ZosDatasetRangeInputStream stream = new ZosDatasetRangeInputStream("DSNAME", DatasetDataType.RECORD, 2, 2, (first, count) -> {
+            requestedRanges.add(first);
+            if (first == 0) {
+                return new byte[] {0, 0, 0, 1, 'A', 0, 0, 0, 2, 'B', 'B'};
+            } else if (first == 2) {
+                return new byte[] {0, 0, 0, 1, 'C'};
+            }
+            return new byte[0];
+        });
+        Assert.assertEquals("Stream should contain all the records in order", new String(new byte[] {0, 0, 0, 1, 'A', 0, 0, 0, 2, 'B', 'B', 0, 0, 0, 1, 'C'}), readAll(stream));
+        stream.close();
+    }
+
+    @Test
+    public void testRangeException() throws Exception {
+        ZosDatasetRangeInputStream stream = new ZosDatasetRangeInputStream("DSNAME", DatasetDataType.TEXT, 10, 2, (first, count) -> {
+            if (first == 10) {
+                throw new ZosDatasetException("exception");
+            }
+            return range25(first, count);
+        });
+        IOException expectedException = Assert.assertThrows("expected exception should be thrown", IOException.class, ()->{
+            readAll(stream);
+        });
+        Assert.assertEquals("exception should contain expected message", "Unable to read data set DSNAME", expectedException.getMessage());
+        Assert.assertEquals("exception should contain the range exception", "exception", expectedException.getCause().getMessage());
+    }
+
+    @Test
+    public void testBinary() throws Exception {
+        Assert.assertThrows("expected exception should be thrown", IllegalArgumentException.class, ()->{
+            new ZosDatasetRangeInputStream("DSNAME", DatasetDataType.BINARY, 10, 2, this::range25);
+        });
+    }
+
+    private byte[] range25(int first, int count) {
+        return range(first, count, 25);
+    }
+
+    private byte[] range20(int first, int count) {
+        return range(first, count, 20);
+    }
+
+    private byte[] range(int first, int count, int records) {
+        requestedRanges.add(first);
+        return textRange(first, Math.max(0, Math.min(count, records - first))).getBytes();
+    }
+
+    private String textRange(int first, int count) {
+        StringBuilder content = new StringBuilder();
+        for (int i = first; i < first + count; i++) {
+            content.append("RECORD").append(i).append('\n');
+        }
+        return content.toString();
+    }
+
+    private String readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[7];
+        int count;
+        while ((count = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return new String(out.toByteArray());
+    }
+}
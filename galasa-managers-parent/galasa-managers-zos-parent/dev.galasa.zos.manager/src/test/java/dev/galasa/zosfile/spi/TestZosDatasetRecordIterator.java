@@ -0,0 +1,139 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.zosfile.IZosDataset.DatasetDataType;
+import dev.galasa.zosfile.IZosDataset.RecordFormat;
+import dev.galasa.zosfile.ZosDatasetException;
+
+public class TestZosDatasetRecordIterator {
+
+    @Test
+    public void testTextRecords() throws Exception {
+        ZosDatasetRecordIterator iterator = new ZosDatasetRecordIterator(stream("LINE1\nLINE2\r\n\nLINE4"), DatasetDataType.TEXT, null, 0);
+        Assert.assertEquals("Records should be split by line", Arrays.asList("LINE1", "LINE2", "", "LINE4"), records(iterator));
+        Assert.assertFalse("Iterator should be at the end", iterator.hasNext());
+        Assert.assertThrows("expected exception should be thrown", NoSuchElementException.class, ()->{
+            iterator.next();
+        });
+    }
+
+    @Test
+    public void testTextRecordsTrailingNewLine() throws Exception {
+        ZosDatasetRecordIterator iterator = new ZosDatasetRecordIterator(stream("LINE1\nLINE2\n"), DatasetDataType.TEXT, null, 0);
+        Assert.assertEquals("Records should be split by line", Arrays.asList("LINE1", "LINE2"), records(iterator));
+    }
+
+    @Test
+    public void testPrefixedRecords() throws Exception {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(content);
+        for (String rec : Arrays.asList("ONE", "", "THREE")) {
+            out.writeInt(rec.length());
+            out.write(rec.getBytes());
+        }
+        ZosDatasetRecordIterator iterator = new ZosDatasetRecordIterator(new ByteArrayInputStream(content.toByteArray()), DatasetDataType.RECORD, RecordFormat.VARIABLE_BLOCKED, 80);
+        Assert.assertEquals("Records should be split by length prefix", Arrays.asList("ONE", "", "THREE"), records(iterator));
+    }
+
+    @Test
+    public void testPrefixedRecordsTruncated() throws Exception {
+        byte[] content = new byte[] {0, 0, 0, 10, 'A', 'B'};
+        ZosDatasetRecordIterator iterator = new ZosDatasetRecordIterator(new ByteArrayInputStream(content), DatasetDataType.RECORD, null, 0);
+        Assert.assertThrows("expected exception should be thrown", UncheckedIOException.class, ()->{
+            iterator.hasNext();
+        });
+        Assert.assertFalse("Iterator should be closed", iterator.hasNext());
+    }
+
+    @Test
+    public void testLongLines() throws Exception {
+        // *** Lines longer than the line buffer and lines split across reads of the content
+        char[] chars = new char[20000];
+        Arrays.fill(chars, 'X');
+        String longLine = new String(chars);
+        ZosDatasetRecordIterator iterator = new ZosDatasetRecordIterator(stream("A\n" + longLine + "\r\nB"), DatasetDataType.TEXT, null, 0);
+        Assert.assertEquals("Records should be split by new line", Arrays.asList("A", longLine, "B"), records(iterator));
+    }
+
+    @Test
+    public void testFixedRecords() throws Exception {
+        ZosDatasetRecordIterator iterator = new ZosDatasetRecordIterator(stream("AAAABBBBCC"), DatasetDataType.BINARY, RecordFormat.FIXED_BLOCKED, 4);
+        Assert.assertEquals("Records should be split by record length", Arrays.asList("AAAA", "BBBB", "CC"), records(iterator));
+    }
+
+    @Test
+    public void testBinaryVariableRecords() throws Exception {
+        String expectedMessage = "Unable to split binary content into records for record format VB. Use DatasetDataType.RECORD for variable length records";
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+            new ZosDatasetRecordIterator(stream("AAAA"), DatasetDataType.BINARY, RecordFormat.VARIABLE_BLOCKED, 80);
+        });
+        Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+
+        expectedMessage = "Unable to split binary content into records, the record length is 0";
+        expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+            new ZosDatasetRecordIterator(stream("AAAA"), DatasetDataType.BINARY, RecordFormat.FIXED, 0);
+        });
+        Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        CloseCountingStream content = new CloseCountingStream("LINE1\nLINE2\n");
+        ZosDatasetRecordIterator iterator = new ZosDatasetRecordIterator(content, DatasetDataType.TEXT, null, 0);
+        Assert.assertEquals("First record should be returned", "LINE1", new String(iterator.next()));
+        iterator.close();
+        iterator.close();
+        Assert.assertEquals("Stream should be closed once", 1, content.closeCount);
+        Assert.assertFalse("Closed iterator should have no more records", iterator.hasNext());
+
+        content = new CloseCountingStream("LINE1\n");
+        ZosDatasetRecordIterator consumed = new ZosDatasetRecordIterator(content, DatasetDataType.TEXT, null, 0);
+        records(consumed);
+        Assert.assertEquals("Stream should be closed at the end of the records", 1, content.closeCount);
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes());
+    }
+
+    private List<String> records(ZosDatasetRecordIterator iterator) {
+        List<String> records = new ArrayList<>();
+        while (iterator.hasNext()) {
+            records.add(new String(iterator.next()));
+        }
+        return records;
+    }
+
+    private static class CloseCountingStream extends ByteArrayInputStream {
+
+        private int closeCount;
+
+        private CloseCountingStream(String content) {
+            super(content.getBytes());
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.closeCount++;
+            super.close();
+        }
+    }
+}
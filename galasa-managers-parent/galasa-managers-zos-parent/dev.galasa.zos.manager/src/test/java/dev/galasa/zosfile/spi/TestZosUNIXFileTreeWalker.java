@@ -0,0 +1,127 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import dev.galasa.zosfile.IZosUNIXFile;
+import dev.galasa.zosfile.IZosUNIXFile.UNIXFileType;
+import dev.galasa.zosfile.ZosUNIXFileException;
+
+public class TestZosUNIXFileTreeWalker {
+
+    private final List<String> listedDirectories = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void testWalkSequential() throws Exception {
+        ZosUNIXFileTreeWalker walker = new ZosUNIXFileTreeWalker(1, this::tree);
+        SortedMap<String, IZosUNIXFile> paths = walker.walk(Arrays.asList(unixFile("/root", UNIXFileType.DIRECTORY)));
+        Assert.assertEquals("walk() should return everything below the directory", expectedPaths(), new ArrayList<>(paths.keySet()));
+        Assert.assertEquals("walk() should list each directory once", Arrays.asList("/root", "/root/dir1", "/root/dir1/dir3", "/root/dir2"), listedDirectories);
+    }
+
+    @Test
+    public void testWalkParallel() throws Exception {
+        ZosUNIXFileTreeWalker walker = new ZosUNIXFileTreeWalker(3, this::tree);
+        SortedMap<String, IZosUNIXFile> paths = walker.walk(Arrays.asList(unixFile("/root", UNIXFileType.DIRECTORY)));
+        Assert.assertEquals("walk() should return everything below the directory", expectedPaths(), new ArrayList<>(paths.keySet()));
+        Assert.assertEquals("walk() should list each directory once", 4, listedDirectories.size());
+        Assert.assertTrue("walk() should list each directory once", listedDirectories.containsAll(Arrays.asList("/root", "/root/dir1", "/root/dir1/dir3", "/root/dir2")));
+    }
+
+    @Test
+    public void testWalkException() throws Exception {
+        ZosUNIXFileTreeWalker walker = new ZosUNIXFileTreeWalker(2, path -> {
+            if (path.equals("/root/dir1/dir3")) {
+                throw new ZosUNIXFileException("exception");
+            }
+            return tree(path);
+        });
+        ZosUNIXFileException expectedException = Assert.assertThrows("expected exception should be thrown", ZosUNIXFileException.class, ()->{
+            walker.walk(Arrays.asList(unixFile("/root", UNIXFileType.DIRECTORY)));
+        });
+        Assert.assertEquals("exception should contain expected message", "exception", expectedException.getMessage());
+
+        ZosUNIXFileTreeWalker sequentialWalker = new ZosUNIXFileTreeWalker(1, path -> {
+            throw new ZosUNIXFileException("exception");
+        });
+        expectedException = Assert.assertThrows("expected exception should be thrown", ZosUNIXFileException.class, ()->{
+            sequentialWalker.walk(Arrays.asList(unixFile("/root", UNIXFileType.DIRECTORY)));
+        });
+        Assert.assertEquals("exception should contain expected message", "exception", expectedException.getMessage());
+    }
+
+    @Test
+    public void testForEach() throws Exception {
+        List<IZosUNIXFile> unixFiles = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            unixFiles.add(unixFile("/root/file" + i, UNIXFileType.FILE));
+        }
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        ZosUNIXFileTreeWalker.forEach(4, unixFiles, unixFile -> applied.add(unixFile.getUnixPath()));
+        Assert.assertEquals("forEach() should apply the action to each file", 10, applied.size());
+
+        applied.clear();
+        ZosUNIXFileTreeWalker.forEach(1, unixFiles, unixFile -> applied.add(unixFile.getUnixPath()));
+        Assert.assertEquals("forEach() should apply the action to each file in order", "/root/file0", applied.get(0));
+        Assert.assertEquals("forEach() should apply the action to each file in order", "/root/file9", applied.get(9));
+
+        ZosUNIXFileException expectedException = Assert.assertThrows("expected exception should be thrown", ZosUNIXFileException.class, ()->{
+            ZosUNIXFileTreeWalker.forEach(4, unixFiles, unixFile -> {
+                if (unixFile.getUnixPath().equals("/root/file5")) {
+                    throw new ZosUNIXFileException("exception");
+                }
+            });
+        });
+        Assert.assertEquals("exception should contain expected message", "exception", expectedException.getMessage());
+    }
+
+    private SortedMap<String, IZosUNIXFile> tree(String path) {
+        listedDirectories.add(path);
+        SortedMap<String, IZosUNIXFile> content = new TreeMap<>();
+        switch (path) {
+            case "/root":
+                add(content, "/root/dir1", UNIXFileType.DIRECTORY);
+                add(content, "/root/dir2", UNIXFileType.DIRECTORY);
+                add(content, "/root/file1", UNIXFileType.FILE);
+                break;
+            case "/root/dir1":
+                add(content, "/root/dir1/dir3", UNIXFileType.DIRECTORY);
+                add(content, "/root/dir1/file2", UNIXFileType.FILE);
+                break;
+            case "/root/dir1/dir3":
+                add(content, "/root/dir1/dir3/file3", UNIXFileType.FILE);
+                break;
+            default:
+                break;
+        }
+        return content;
+    }
+
+    private List<String> expectedPaths() {
+        return Arrays.asList("/root/dir1", "/root/dir1/dir3", "/root/dir1/dir3/file3", "/root/dir1/file2", "/root/dir2", "/root/file1");
+    }
+
+    private void add(SortedMap<String, IZosUNIXFile> content, String path, UNIXFileType fileType) {
+        content.put(path, unixFile(path, fileType));
+    }
+
+    private IZosUNIXFile unixFile(String path, UNIXFileType fileType) {
+        IZosUNIXFile unixFile = Mockito.mock(IZosUNIXFile.class);
+        Mockito.when(unixFile.getUnixPath()).thenReturn(path);
+        Mockito.when(unixFile.getFileType()).thenReturn(fileType);
+        return unixFile;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosfile.spi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.zosfile.IZosDataset.DatasetDataType;
+import dev.galasa.zosfile.ZosVSAMDatasetException;
+
+public class TestZosVSAMPrintRecordIterator {
+
+    private static final String DSNAME = "HLQ.KSDS";
+
+    private final List<String> commands = new ArrayList<>();
+
+    @Test
+    public void testPagedKeys() throws Exception {
+        // *** 5 records read 2 at a time
+        ZosVSAMPrintRecordIterator iterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 2, null, null, -1, this::ksds);
+        Assert.assertEquals("Iterator should return all the records in order", Arrays.asList("A0001DATA1", "A0002DATA2", "A0003DATA3", "A0004DATA4", "A0005DATA5"), text(iterator.toList()));
+        Assert.assertFalse("Iterator should be at the end", iterator.hasNext());
+        Assert.assertEquals("First page should start at the first record", "PRINT -\n  INDATASET('HLQ.KSDS') -\n  HEX -\n  COUNT(2)", commands.get(0));
+        Assert.assertEquals("Next page should start at the last record of the previous page", "PRINT -\n  INDATASET('HLQ.KSDS') -\n  HEX -\n  FROMKEY(X'C1F0F0F0F2') -\n  COUNT(3)", commands.get(1));
+        Assert.assertEquals("Pages should be requested until a short page", 3, commands.size());
+    }
+
+    @Test
+    public void testFromKey() throws Exception {
+        ZosVSAMPrintRecordIterator iterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.BINARY, 10, ZosVSAMPrintRecordIterator.characterKeyParameter("FROMKEY", "A0004"), null, -1, this::ksds);
+        List<byte[]> records = iterator.toList();
+        Assert.assertEquals("Iterator should return the records from the key", 2, records.size());
+        Assert.assertArrayEquals("Binary records should be returned as stored", "A0004DATA4".getBytes(ZosVSAMPrintRecordIterator.EBCDIC), records.get(0));
+        Assert.assertEquals("Command should contain the key", "PRINT -\n  INDATASET('HLQ.KSDS') -\n  HEX -\n  FROMKEY('A0004') -\n  COUNT(10)", commands.get(0));
+        Assert.assertEquals("A short first page should be the only request", 1, commands.size());
+    }
+
+    @Test
+    public void testKeyRange() throws Exception {
+        ZosVSAMPrintRecordIterator iterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 1,
+                ZosVSAMPrintRecordIterator.hexKeyParameter("FROMKEY", "A0002".getBytes(ZosVSAMPrintRecordIterator.EBCDIC)),
+                ZosVSAMPrintRecordIterator.hexKeyParameter("TOKEY", "A0003".getBytes(ZosVSAMPrintRecordIterator.EBCDIC)), -1, this::ksds);
+        Assert.assertEquals("Iterator should return the records in the range", Arrays.asList("A0002DATA2", "A0003DATA3"), text(iterator.toList()));
+        Assert.assertEquals("A range should be requested with a single command", Arrays.asList("PRINT -\n  INDATASET('HLQ.KSDS') -\n  HEX -\n  FROMKEY(X'C1F0F0F0F2') -\n  TOKEY(X'C1F0F0F0F3')"), commands);
+    }
+
+    @Test
+    public void testMaxRecords() throws Exception {
+        ZosVSAMPrintRecordIterator iterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 2, null, null, 3, this::ksds);
+        Assert.assertEquals("Iterator should return the first records", Arrays.asList("A0001DATA1", "A0002DATA2", "A0003DATA3"), text(iterator.toList()));
+        Assert.assertEquals("Last page should only request the remaining records", "PRINT -\n  INDATASET('HLQ.KSDS') -\n  HEX -\n  FROMKEY(X'C1F0F0F0F2') -\n  COUNT(2)", commands.get(1));
+        Assert.assertEquals("No more pages should be requested", 2, commands.size());
+
+        commands.clear();
+        iterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 2, null, null, 0, this::ksds);
+        Assert.assertFalse("Iterator should have no records", iterator.hasNext());
+        Assert.assertTrue("No pages should be requested", commands.isEmpty());
+    }
+
+    @Test
+    public void testRbaRecords() throws Exception {
+        ZosVSAMPrintRecordIterator iterator = new ZosVSAMPrintRecordIterator("HLQ.ESDS", DatasetDataType.TEXT, 1, "FROMADDRESS(0)", null, -1, command -> {
+            commands.add(command);
+            if (command.contains("FROMADDRESS(0) -\n  COUNT(1)")) {
+                return Arrays.asList("RBA OF RECORD - 0", "C1C2", "IDC0005I NUMBER OF RECORDS PROCESSED WAS 1");
+            } else if (command.contains("FROMADDRESS(0)")) {
+                return Arrays.asList("RBA OF RECORD - 0\nC1C2\nRBA OF RECORD - 80\nC3C4\nIDC0005I NUMBER OF RECORDS PROCESSED WAS 2");
+            }
+            return Arrays.asList("RBA OF RECORD - 80\nC3C4\nIDC0005I NUMBER OF RECORDS PROCESSED WAS 1");
+        });
+        Assert.assertEquals("Iterator should return the records", Arrays.asList("AB", "CD"), text(iterator.toList()));
+        Assert.assertEquals("Next page should start at the RBA of the last record", "PRINT -\n  INDATASET('HLQ.ESDS') -\n  HEX -\n  FROMADDRESS(0) -\n  COUNT(2)", commands.get(1));
+        Assert.assertEquals("Next page should start at the RBA of the last record", "PRINT -\n  INDATASET('HLQ.ESDS') -\n  HEX -\n  FROMADDRESS(80) -\n  COUNT(2)", commands.get(2));
+    }
+
+    @Test
+    public void testParsePrintOutput() throws Exception {
+        List<String> output = Arrays.asList(
+                "1IDCAMS  SYSTEM SERVICES                                           TIME: 10:11:12        10/18/26     PAGE      1",
+                "0  PRINT INDATASET('HLQ.RRDS') HEX",
+                "0LISTING OF DATA SET -HLQ.RRDS",
+                "0RELATIVE RECORD NUMBER - 1",
+                " C1C2C3",
+                " C4C5",
+                "0RELATIVE RECORD NUMBER - 2",
+                "0IDC0005I NUMBER OF RECORDS PROCESSED WAS 2",
+                " C6C7");
+        List<ZosVSAMPrintRecordIterator.PrintedRecord> records = ZosVSAMPrintRecordIterator.parsePrintOutput(output);
+        Assert.assertEquals("Output should contain 2 records", 2, records.size());
+        Assert.assertEquals("Record should continue from its number", "FROMNUMBER(1)", records.get(0).continueFrom());
+        Assert.assertEquals("Record should contain all its data lines", "ABCDE", new String(records.get(0).getContent(DatasetDataType.TEXT)));
+        Assert.assertEquals("Empty record should have no content", 0, records.get(1).getContent(DatasetDataType.BINARY).length);
+    }
+
+    @Test
+    public void testParseGroupedHexLines() throws Exception {
+        List<String> output = Arrays.asList(
+                "0KEY OF RECORD - C1F0F0F0F1",
+                " 0000  C1F0F0F0 F1C4C1E3  C1F140E6 C9E3C840  *A0001DATA1 WITH *",
+                " 0010  4A5A5F4F  *\u00A2!\u00AC|*",
+                "0KEY OF RECORD - F0F0F0F0F2",
+                " 0000  00000000 F2  *.....*",
+                "0IDC0005I NUMBER OF RECORDS PROCESSED WAS 2");
+        List<ZosVSAMPrintRecordIterator.PrintedRecord> records = ZosVSAMPrintRecordIterator.parsePrintOutput(output);
+        Assert.assertEquals("Output should contain 2 records", 2, records.size());
+        Assert.assertEquals("Offsets and characters should not be part of the record", "A0001DATA1 WITH \u00A2!\u00AC|", new String(records.get(0).getContent(DatasetDataType.TEXT), StandardCharsets.ISO_8859_1));
+        Assert.assertArrayEquals("Data that looks like an offset should be part of the record", new byte[] {0, 0, 0, 0, (byte) 0xF2}, records.get(1).getContent(DatasetDataType.BINARY));
+
+        Assert.assertEquals("Contiguous hex should be returned as it is", "C1C2C3", ZosVSAMPrintRecordIterator.parseHexLine("C1C2C3", 0));
+        Assert.assertEquals("Carriage control should be removed", "C1C2C3", ZosVSAMPrintRecordIterator.parseHexLine("0 0000 C1C2C3", 0));
+        Assert.assertEquals("Only an offset matching the record length should be removed", "0000C1C2", ZosVSAMPrintRecordIterator.parseHexLine("0000 C1C2", 4));
+        Assert.assertNull("Text should not be a data line", ZosVSAMPrintRecordIterator.parseHexLine("IDCAMS  SYSTEM SERVICES", 0));
+        Assert.assertNull("Odd groups of digits should not be a data line", ZosVSAMPrintRecordIterator.parseHexLine("10/18/26 ABC", 0));
+    }
+
+    @Test
+    public void testExceptions() throws Exception {
+        ZosVSAMPrintRecordIterator iterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 2, null, null, -1, command -> {
+            throw new ZosVSAMDatasetException("exception");
+        });
+        ZosVSAMDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosVSAMDatasetException.class, ()->{
+            iterator.hasNext();
+        });
+        Assert.assertEquals("exception should contain expected message", "exception", expectedException.getMessage());
+
+        ZosVSAMPrintRecordIterator emptyIterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 2, null, null, -1, command -> new ArrayList<>());
+        Assert.assertThrows("expected exception should be thrown", NoSuchElementException.class, ()->{
+            emptyIterator.next();
+        });
+
+        Assert.assertThrows("expected exception should be thrown", IllegalArgumentException.class, ()->{
+            new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 0, null, null, -1, this::ksds);
+        });
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        ZosVSAMPrintRecordIterator iterator = new ZosVSAMPrintRecordIterator(DSNAME, DatasetDataType.TEXT, 2, null, null, -1, this::ksds);
+        Assert.assertEquals("First record should be returned", "A0001DATA1", new String(iterator.next()));
+        iterator.close();
+        Assert.assertFalse("Closed iterator should have no more records", iterator.hasNext());
+        Assert.assertEquals("No more pages should be requested", 1, commands.size());
+    }
+
+    @Test
+    public void testKeyParameters() {
+        Assert.assertEquals("Character key should be quoted", "FROMKEY('O''NEIL')", ZosVSAMPrintRecordIterator.characterKeyParameter("FROMKEY", "O'NEIL"));
+        Assert.assertEquals("Byte key should be in hex", "TOKEY(X'00FF10')", ZosVSAMPrintRecordIterator.hexKeyParameter("TOKEY", new byte[] {0x00, (byte) 0xFF, 0x10}));
+    }
+
+    /**
+     * A KSDS of 5 records with keys A0001 to A0005
+     */
+    private List<String> ksds(String command) {
+        commands.add(command);
+        int first = 1;
+        int last = 5;
+        int keyStart = command.indexOf("FROMKEY(");
+        if (keyStart >= 0) {
+            String key = command.substring(keyStart + 8, command.indexOf(')', keyStart));
+            first = Integer.parseInt(key.startsWith("X'") ? new String(hexToBytes(key.substring(2, key.length() - 1)), ZosVSAMPrintRecordIterator.EBCDIC).substring(1) : key.substring(2, key.length() - 1));
+        }
+        int toKeyStart = command.indexOf("TOKEY(X'");
+        if (toKeyStart >= 0) {
+            last = Integer.parseInt(new String(hexToBytes(command.substring(toKeyStart + 8, command.indexOf('\'', toKeyStart + 8))), ZosVSAMPrintRecordIterator.EBCDIC).substring(1));
+        }
+        int countStart = command.indexOf("COUNT(");
+        if (countStart >= 0) {
+            last = Math.min(last, first + Integer.parseInt(command.substring(countStart + 6, command.indexOf(')', countStart))) - 1);
+        }
+        List<String> output = new ArrayList<>();
+        output.add("IDCAMS  SYSTEM SERVICES");
+        output.add("LISTING OF DATA SET -" + DSNAME);
+        for (int i = first; i <= last; i++) {
+            output.add("KEY OF RECORD - " + hex(String.format("A%04d", i)));
+            output.add(hex(String.format("A%04dDATA%d", i, i)));
+        }
+        output.add("IDC0005I NUMBER OF RECORDS PROCESSED WAS " + (last - first + 1));
+        return output;
+    }
+
+    private String hex(String text) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : text.getBytes(ZosVSAMPrintRecordIterator.EBCDIC)) {
+            hex.append(String.format("%02X", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    private byte[] hexToBytes(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private List<String> text(List<byte[]> records) {
+        List<String> text = new ArrayList<>();
+        for (byte[] rec : records) {
+            text.add(new String(rec, StandardCharsets.ISO_8859_1));
+        }
+        return text;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.common.screens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A delta encoded set of terminal images.  The first image is held in full as the keyframe
+ * and each following image is held as the changes from the image before it.
+ *
+ * Use {@link DeltaTerminalBuilder} to create one and {@link DeltaTerminalReader} to
+ * reconstruct the images.
+ */
+public class DeltaTerminal {
+
+    public static final String             CONTENT_TYPE = "application/zos3270terminaldelta";
+
+    private final String                   id;
+    private final String                   runId;
+    private final int                      sequence;
+    private final TerminalSize             defaultSize;
+    private TerminalImage                  keyframe;
+    private final List<TerminalImageDelta> deltas       = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param id          Terminal ID
+     * @param runId       The run the terminal belongs to
+     * @param sequence    Sequence number of this pojo for this terminal
+     * @param defaultSize Default size of the terminal
+     */
+    public DeltaTerminal(@NotNull String id, @NotNull String runId, int sequence, @NotNull TerminalSize defaultSize) {
+        this.id = id;
+        this.runId = runId;
+        this.sequence = sequence;
+        this.defaultSize = defaultSize;
+    }
+
+    public @NotNull String getId() {
+        return id;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public @NotNull TerminalSize getDefaultSize() {
+        return defaultSize;
+    }
+
+    /**
+     * Fetch the first image, held in full
+     *
+     * @return the keyframe, null if there are no images
+     */
+    public TerminalImage getKeyframe() {
+        return keyframe;
+    }
+
+    protected void setKeyframe(TerminalImage keyframe) {
+        this.keyframe = keyframe;
+    }
+
+    /**
+     * Fetch the changes for the images after the keyframe
+     *
+     * @return deltas
+     */
+    public @NotNull List<TerminalImageDelta> getDeltas() {
+        return deltas;
+    }
+
+    /**
+     * The position of a field on the screen, used to match fields between images
+     *
+     * @param field the field
+     * @param size  the size of the screen the field is on
+     * @return the position, -1 for the field wrapped from the end of the screen
+     */
+    public static int fieldPosition(@NotNull TerminalField field, @NotNull TerminalSize size) {
+        return (field.getRow() * size.getColumns()) + field.getColumn();
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.common.screens;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Builds a {@link DeltaTerminal} from a sequence of full terminal images
+ */
+public class DeltaTerminalBuilder {
+
+    private final DeltaTerminal                   terminal;
+
+    private TerminalSize                          previousSize;
+    private final HashMap<Integer, TerminalField> previousFields = new HashMap<>();
+
+    public DeltaTerminalBuilder(@NotNull String id, @NotNull String runId, int sequence, @NotNull TerminalSize defaultSize) {
+        this.terminal = new DeltaTerminal(id, runId, sequence, defaultSize);
+    }
+
+    /**
+     * Add the next image, the image must not be altered afterwards
+     *
+     * @param image the full image
+     */
+    public void addImage(@NotNull TerminalImage image) {
+        TerminalSize size = sizeOf(image);
+
+        if (this.terminal.getKeyframe() == null) {
+            this.terminal.setKeyframe(image);
+        } else {
+            boolean replaceFields = !sameSize(size, this.previousSize);
+
+            TerminalImageDelta delta = new TerminalImageDelta(image.getSequence(), image.getId(), image.isInbound(),
+                    image.getType(), image.getAid(), image.getImageSize(), image.getCursorColumn(), image.getCursorRow(),
+                    replaceFields);
+
+            if (replaceFields) {
+                delta.getFields().addAll(image.getFields());
+            } else {
+                HashMap<Integer, TerminalField> remaining = new HashMap<>(this.previousFields);
+                for (TerminalField field : image.getFields()) {
+                    TerminalField previous = remaining.remove(DeltaTerminal.fieldPosition(field, size));
+                    if (previous == null || !sameField(previous, field)) {
+                        delta.getFields().add(field);
+                    }
+                }
+                for (Map.Entry<Integer, TerminalField> removed : remaining.entrySet()) {
+                    delta.getRemovedFields().add(removed.getKey());
+                }
+                delta.getRemovedFields().sort(null);
+            }
+
+            this.terminal.getDeltas().add(delta);
+        }
+
+        this.previousSize = size;
+        this.previousFields.clear();
+        for (TerminalField field : image.getFields()) {
+            this.previousFields.put(DeltaTerminal.fieldPosition(field, size), field);
+        }
+    }
+
+    /**
+     * @return the number of images added so far
+     */
+    public int getImageCount() {
+        if (this.terminal.getKeyframe() == null) {
+            return 0;
+        }
+        return this.terminal.getDeltas().size() + 1;
+    }
+
+    public @NotNull DeltaTerminal build() {
+        return this.terminal;
+    }
+
+    private TerminalSize sizeOf(TerminalImage image) {
+        if (image.getImageSize() != null) {
+            return image.getImageSize();
+        }
+        return this.terminal.getDefaultSize();
+    }
+
+    private static boolean sameSize(TerminalSize a, TerminalSize b) {
+        return a.getColumns() == b.getColumns() && a.getRows() == b.getRows();
+    }
+
+    private static boolean sameField(TerminalField a, TerminalField b) {
+        if (a.isUnformatted() != b.isUnformatted()
+                || a.isFieldProtected() != b.isFieldProtected()
+                || a.isFieldNumeric() != b.isFieldNumeric()
+                || a.isFieldDisplay() != b.isFieldDisplay()
+                || a.isFieldIntenseDisplay() != b.isFieldIntenseDisplay()
+                || a.isFieldSelectorPen() != b.isFieldSelectorPen()
+                || a.isFieldModifed() != b.isFieldModifed()) {
+            return false;
+        }
+
+        List<FieldContents> aContents = a.getContents();
+        List<FieldContents> bContents = b.getContents();
+        if (aContents.size() != bContents.size()) {
+            return false;
+        }
+        for (int i = 0; i < aContents.size(); i++) {
+            if (!Arrays.equals(aContents.get(i).getChars(), bContents.get(i).getChars())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
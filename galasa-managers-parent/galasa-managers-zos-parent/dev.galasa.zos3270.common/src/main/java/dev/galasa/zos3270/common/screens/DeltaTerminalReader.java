@@ -0,0 +1,136 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.common.screens;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Reconstructs the full terminal images from a {@link DeltaTerminal}.
+ *
+ * The fields of the last image reconstructed are kept, so reading the images in order
+ * only applies each delta once.  The reconstructed images share the unchanged
+ * {@link TerminalField}s with each other and must be treated as read only.
+ */
+public class DeltaTerminalReader {
+
+    private final DeltaTerminal                   terminal;
+
+    private int                                   currentIndex  = -1;
+    private TerminalSize                          currentSize;
+    private final TreeMap<Integer, TerminalField> currentFields = new TreeMap<>();
+
+    public DeltaTerminalReader(@NotNull DeltaTerminal terminal) {
+        this.terminal = terminal;
+    }
+
+    /**
+     * @return the number of images held
+     */
+    public int getImageCount() {
+        if (this.terminal.getKeyframe() == null) {
+            return 0;
+        }
+        return deltas().size() + 1;
+    }
+
+    /**
+     * Reconstruct an image
+     *
+     * @param index the index of the image, 0 is the keyframe
+     * @return the full image
+     */
+    public synchronized @NotNull TerminalImage getImage(int index) {
+        if (index < 0 || index >= getImageCount()) {
+            throw new IndexOutOfBoundsException("Image " + index + " requested, the terminal has " + getImageCount() + " images");
+        }
+
+        if (index < this.currentIndex || this.currentIndex < 0) {
+            TerminalImage keyframe = this.terminal.getKeyframe();
+            this.currentIndex = 0;
+            this.currentSize = sizeOf(keyframe.getImageSize());
+            this.currentFields.clear();
+            putFields(keyframe.getFields());
+        }
+
+        while (this.currentIndex < index) {
+            this.currentIndex++;
+            applyDelta(deltas().get(this.currentIndex - 1));
+        }
+
+        if (index == 0) {
+            TerminalImage keyframe = this.terminal.getKeyframe();
+            return buildImage(keyframe.getSequence(), keyframe.getId(), keyframe.isInbound(), keyframe.getType(),
+                    keyframe.getAid(), keyframe.getImageSize(), keyframe.getCursorColumn(), keyframe.getCursorRow());
+        }
+
+        TerminalImageDelta delta = deltas().get(index - 1);
+        return buildImage(delta.getSequence(), delta.getId(), delta.isInbound(), delta.getType(), delta.getAid(),
+                delta.getImageSize(), delta.getCursorColumn(), delta.getCursorRow());
+    }
+
+    /**
+     * Reconstruct all the images as a full {@link Terminal}
+     *
+     * @return the terminal
+     */
+    public @NotNull Terminal toTerminal() {
+        Terminal fullTerminal = new Terminal(this.terminal.getId(), this.terminal.getRunId(), this.terminal.getSequence(),
+                this.terminal.getDefaultSize());
+        int count = getImageCount();
+        for (int i = 0; i < count; i++) {
+            fullTerminal.addImage(getImage(i));
+        }
+        return fullTerminal;
+    }
+
+    private void applyDelta(TerminalImageDelta delta) {
+        if (delta.isReplaceFields()) {
+            this.currentFields.clear();
+        } else if (delta.getRemovedFields() != null) {
+            for (Integer removed : delta.getRemovedFields()) {
+                this.currentFields.remove(removed);
+            }
+        }
+
+        this.currentSize = sizeOf(delta.getImageSize());
+        putFields(delta.getFields());
+    }
+
+    private void putFields(List<TerminalField> fields) {
+        if (fields == null) {
+            return;
+        }
+        for (TerminalField field : fields) {
+            this.currentFields.put(DeltaTerminal.fieldPosition(field, this.currentSize), field);
+        }
+    }
+
+    private TerminalImage buildImage(int sequence, String id, boolean inbound, String type, String aid,
+            TerminalSize imageSize, int cursorColumn, int cursorRow) {
+        TerminalImage image = new TerminalImage(sequence, id, inbound, type, aid, imageSize, cursorColumn, cursorRow);
+        image.getFields().addAll(this.currentFields.values());
+        return image;
+    }
+
+    private TerminalSize sizeOf(TerminalSize imageSize) {
+        if (imageSize != null) {
+            return imageSize;
+        }
+        return this.terminal.getDefaultSize();
+    }
+
+    private List<TerminalImageDelta> deltas() {
+        if (this.terminal.getDeltas() == null) {
+            return Collections.emptyList();
+        }
+        return this.terminal.getDeltas();
+    }
+
+}
@@ -47,6 +47,33 @@ public class FieldContents {
         }
     }
 
+    /**
+     * Constructor, only boxes the characters if the field contains nulls
+     * 
+     * @param chars the chars in the relevant places, 0 for a null
+     */
+    public FieldContents(@NotNull char[] chars) {
+        boolean containsNulls = false;
+        for (char c : chars) {
+            if (c == 0) {
+                containsNulls = true;
+                break;
+            }
+        }
+
+        if (containsNulls) {
+            Character[] boxedChars = new Character[chars.length];
+            for (int i = 0; i < chars.length; i++) {
+                boxedChars[i] = (chars[i] == 0) ? null : chars[i];
+            }
+            this.chars = boxedChars;
+            this.text = null;
+        } else {
+            this.chars = null;
+            this.text = new String(chars);
+        }
+    }
+
     /**
      * Get the field characters
      * 
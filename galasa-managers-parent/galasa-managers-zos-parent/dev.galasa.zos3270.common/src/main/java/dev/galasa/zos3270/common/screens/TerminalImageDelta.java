@@ -0,0 +1,124 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.common.screens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * The changes to a terminal image since the previous image in a {@link DeltaTerminal}.
+ *
+ * Fields are identified by their position on the screen. Only the fields that have been
+ * added or changed are held, along with the positions of the fields that have been removed.
+ * If the screen size changed the delta holds every field and replaces the previous image.
+ */
+public class TerminalImageDelta {
+
+    private final int                 sequence;
+    private final String              id;
+    private final boolean             inbound;
+    private final String              type;
+
+    private final TerminalSize        imageSize;
+
+    private final int                 cursorColumn;
+    private final int                 cursorRow;
+
+    private final String              aid;
+
+    private final boolean             replaceFields;
+    private final List<TerminalField> fields        = new ArrayList<>();
+    private final List<Integer>       removedFields = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param sequence      The sequence of the image, for the whole terminal
+     *                      interaction
+     * @param id            Id of this image
+     * @param inbound       inbound = true if received by the client
+     * @param type          Type of interaction
+     * @param aid           The AttentionID for outbound messages
+     * @param imageSize     The size of the image
+     * @param cursorColumn  The position of the cursor on the screen
+     * @param cursorRow     The position of the cursor on the screen
+     * @param replaceFields true if the fields replace all the fields of the previous
+     *                      image
+     */
+    public TerminalImageDelta(int sequence, @NotNull String id, boolean inbound, String type, String aid,
+            TerminalSize imageSize, int cursorColumn, int cursorRow, boolean replaceFields) {
+        this.sequence = sequence;
+        this.id = id;
+        this.inbound = inbound;
+        this.type = type;
+        this.aid = aid;
+        this.imageSize = imageSize;
+        this.cursorColumn = cursorColumn;
+        this.cursorRow = cursorRow;
+        this.replaceFields = replaceFields;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public @NotNull String getId() {
+        return id;
+    }
+
+    public boolean isInbound() {
+        return inbound;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getAid() {
+        return aid;
+    }
+
+    public TerminalSize getImageSize() {
+        return imageSize;
+    }
+
+    public int getCursorColumn() {
+        return cursorColumn;
+    }
+
+    public int getCursorRow() {
+        return cursorRow;
+    }
+
+    /**
+     * @return true if the fields replace all the fields of the previous image
+     */
+    public boolean isReplaceFields() {
+        return replaceFields;
+    }
+
+    /**
+     * Fetch the fields that have been added or changed
+     *
+     * @return fields
+     */
+    public List<TerminalField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Fetch the positions of the fields that have been removed, as returned by
+     * {@link DeltaTerminal#fieldPosition(TerminalField, TerminalSize)}
+     *
+     * @return positions
+     */
+    public List<Integer> getRemovedFields() {
+        return removedFields;
+    }
+
+}
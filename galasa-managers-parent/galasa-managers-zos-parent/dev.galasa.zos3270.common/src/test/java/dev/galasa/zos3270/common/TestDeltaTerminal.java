@@ -0,0 +1,141 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import dev.galasa.zos3270.common.screens.DeltaTerminal;
+import dev.galasa.zos3270.common.screens.DeltaTerminalBuilder;
+import dev.galasa.zos3270.common.screens.DeltaTerminalReader;
+import dev.galasa.zos3270.common.screens.FieldContents;
+import dev.galasa.zos3270.common.screens.Terminal;
+import dev.galasa.zos3270.common.screens.TerminalField;
+import dev.galasa.zos3270.common.screens.TerminalImage;
+import dev.galasa.zos3270.common.screens.TerminalImageDelta;
+import dev.galasa.zos3270.common.screens.TerminalSize;
+
+public class TestDeltaTerminal {
+
+    private final Gson         gson        = new Gson();
+
+    private final TerminalSize defaultSize = new TerminalSize(80, 24);
+
+    /**
+     * Check that the images can be delta encoded, serialised to json and reconstructed
+     */
+    @Test
+    public void testEncodeAndReconstruct() {
+        ArrayList<TerminalImage> images = new ArrayList<>();
+
+        // *** Keyframe, with the field wrapped from the end of the screen
+        TerminalImage image = image(1, defaultSize, 0, 0);
+        image.getFields().add(field(0, -1, false, "    "));
+        image.getFields().add(field(0, 5, true, "Userid"));
+        image.getFields().add(field(0, 20, false, "        "));
+        images.add(image);
+
+        // *** Only the cursor moves
+        image = image(2, defaultSize, 21, 0);
+        image.getFields().add(field(0, -1, false, "    "));
+        image.getFields().add(field(0, 5, true, "Userid"));
+        image.getFields().add(field(0, 20, false, "        "));
+        images.add(image);
+
+        // *** One field changes
+        image = image(3, defaultSize, 25, 0);
+        image.getFields().add(field(0, -1, false, "    "));
+        image.getFields().add(field(0, 5, true, "Userid"));
+        image.getFields().add(field(0, 20, false, "BOB     "));
+        images.add(image);
+
+        // *** A field is removed and another added
+        image = image(4, defaultSize, 0, 1);
+        image.getFields().add(field(0, -1, false, "    "));
+        image.getFields().add(field(0, 20, false, "BOB     "));
+        image.getFields().add(field(1, 0, true, "Ready"));
+        images.add(image);
+
+        // *** The screen size changes
+        TerminalSize altSize = new TerminalSize(132, 27);
+        image = image(5, altSize, 0, 0);
+        image.getFields().add(field(0, 0, true, "Wide"));
+        images.add(image);
+
+        DeltaTerminalBuilder builder = new DeltaTerminalBuilder("bob", "eeek", 7, defaultSize);
+        for (TerminalImage i : images) {
+            builder.addImage(i);
+        }
+        assertThat(builder.getImageCount()).isEqualTo(5);
+
+        DeltaTerminal deltaTerminal = builder.build();
+        TerminalImageDelta cursorDelta = deltaTerminal.getDeltas().get(0);
+        assertThat(cursorDelta.getFields()).isEmpty();
+        assertThat(cursorDelta.getRemovedFields()).isEmpty();
+        assertThat(cursorDelta.getCursorColumn()).isEqualTo(21);
+
+        TerminalImageDelta fieldDelta = deltaTerminal.getDeltas().get(1);
+        assertThat(fieldDelta.getFields().size()).isEqualTo(1);
+        assertThat(fieldDelta.getFields().get(0).getColumn()).isEqualTo(20);
+
+        TerminalImageDelta splitDelta = deltaTerminal.getDeltas().get(2);
+        assertThat(splitDelta.getFields().size()).isEqualTo(1);
+        assertThat(splitDelta.getRemovedFields()).containsExactly(5);
+
+        assertThat(deltaTerminal.getDeltas().get(3).isReplaceFields()).isTrue();
+
+        // *** Read back from json
+        DeltaTerminal readTerminal = gson.fromJson(gson.toJson(deltaTerminal), DeltaTerminal.class);
+        DeltaTerminalReader reader = new DeltaTerminalReader(readTerminal);
+        assertThat(reader.getImageCount()).isEqualTo(5);
+
+        // *** Out of order to check the reader rewinds to the keyframe
+        assertThat(gson.toJson(reader.getImage(3))).isEqualTo(gson.toJson(images.get(3)));
+        assertThat(gson.toJson(reader.getImage(1))).isEqualTo(gson.toJson(images.get(1)));
+
+        Terminal fullTerminal = reader.toTerminal();
+        assertThat(fullTerminal.getId()).isEqualTo("bob");
+        assertThat(fullTerminal.getRunId()).isEqualTo("eeek");
+        assertThat(fullTerminal.getSequence()).isEqualTo(7);
+        assertThat(fullTerminal.getImages().size()).isEqualTo(5);
+        for (int i = 0; i < images.size(); i++) {
+            assertThat(gson.toJson(fullTerminal.getImages().get(i))).isEqualTo(gson.toJson(images.get(i)));
+        }
+    }
+
+    /**
+     * Check an empty terminal can be read
+     */
+    @Test
+    public void testEmpty() {
+        DeltaTerminal deltaTerminal = new DeltaTerminalBuilder("bob", "eeek", 1, defaultSize).build();
+        DeltaTerminalReader reader = new DeltaTerminalReader(gson.fromJson(gson.toJson(deltaTerminal), DeltaTerminal.class));
+
+        assertThat(reader.getImageCount()).isEqualTo(0);
+        assertThat(reader.toTerminal().getImages()).isEmpty();
+    }
+
+    private static TerminalImage image(int sequence, TerminalSize size, int cursorColumn, int cursorRow) {
+        return new TerminalImage(sequence, "bob-" + sequence, true, null, null, size, cursorColumn, cursorRow);
+    }
+
+    private static TerminalField field(int row, int column, boolean fieldProtected, String text) {
+        TerminalField field = new TerminalField(row, column, false, fieldProtected, false, true, false, false, false);
+
+        Character[] chars = new Character[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        field.getContents().add(new FieldContents(chars));
+        return field;
+    }
+
+}
@@ -109,4 +109,20 @@ public class TestJson {
         assertThat(testContents.getChars()).isEqualTo(data);
     }
 
+    /**
+     * Check that a char array is stored as text unless it contains nulls
+     */
+    @Test
+    public void testFieldContentsFromCharArray() {
+        Gson gson = new Gson();
+
+        FieldContents text = new FieldContents(new char[] { 'a', 'b', 'c' });
+        assertThat(gson.toJson(text)).isEqualTo("{\"text\":\"abc\"}");
+        assertThat(text.getChars()).isEqualTo(new Character[] { 'a', 'b', 'c' });
+
+        FieldContents withNulls = new FieldContents(new char[] { 'a', 0, 'c' });
+        assertThat(gson.toJson(withNulls)).isEqualTo("{\"chars\":[\"a\",null,\"c\"]}");
+        assertThat(withNulls.getChars()).isEqualTo(new Character[] { 'a', null, 'c' });
+    }
+
 }
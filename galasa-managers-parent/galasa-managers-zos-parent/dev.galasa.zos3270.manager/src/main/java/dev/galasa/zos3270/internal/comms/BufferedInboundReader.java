@@ -0,0 +1,225 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.comms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.commons.codec.binary.Hex;
+
+import dev.galasa.zos3270.spi.NetworkException;
+
+/**
+ * Inbound framing layer for the telnet connection.  The socket is read in large chunks
+ * into a reusable buffer and the IAC EOR / IAC SE boundaries are located by scanning that buffer,
+ * so a full screen refresh costs a handful of reads rather than one per byte.
+ *
+ * The {@link ByteBuffer} returned from {@link #readTerminatedMessage(byte)} and {@link #readTerminatedSB()}
+ * wraps a record array that is reused for the next record, so it must be fully processed before
+ * the next read is issued.
+ *
+ * Not thread safe, there should only ever be a single reader of the inbound stream.
+ */
+public class BufferedInboundReader {
+
+    public static final int   DEFAULT_BUFFER_SIZE = 32768;
+
+    private static final int  INITIAL_RECORD_SIZE = 4096;
+
+    private final InputStream inputStream;
+    private final ByteBuffer  readBuffer;
+    private final byte[]      readArray;
+
+    private byte[]            record              = new byte[INITIAL_RECORD_SIZE];
+    private int               recordLength;
+
+    private byte[]            command             = new byte[64];
+    private int               commandLength;
+
+    private boolean           endOfStream         = false;
+
+    public BufferedInboundReader(InputStream inputStream) {
+        this(inputStream, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedInboundReader(InputStream inputStream, int bufferSize) {
+        this.inputStream = inputStream;
+        this.readBuffer  = ByteBuffer.allocate(bufferSize);
+        this.readArray   = this.readBuffer.array();
+        this.readBuffer.flip(); // start empty, in read mode
+    }
+
+    public InputStream getInputStream() {
+        return this.inputStream;
+    }
+
+    public boolean isEndOfStream() {
+        return this.endOfStream;
+    }
+
+    /**
+     * @return the number of bytes read from the socket but not yet consumed
+     */
+    public int buffered() {
+        return this.readBuffer.remaining();
+    }
+
+    /**
+     * Reset the record of the current telnet command used for error reporting
+     */
+    public void startCommand() {
+        this.commandLength = 0;
+    }
+
+    public String reportCommandSoFar() {
+        return Hex.encodeHexString(Arrays.copyOf(this.command, this.commandLength));
+    }
+
+    /**
+     * Read the next byte of the inbound stream
+     *
+     * @return the byte, or null if the end of the stream has been reached
+     * @throws IOException
+     */
+    public Byte readByte() throws IOException {
+        if (!this.readBuffer.hasRemaining() && !fill()) {
+            return null;
+        }
+
+        byte b = this.readBuffer.get();
+        appendCommand(this.readArray, this.readBuffer.position() - 1, 1);
+        return b; // Byte.valueOf is cached for all byte values, so no allocation here
+    }
+
+    /**
+     * Read a 3270 record terminated by IAC EOR, with IAC IAC escapes removed
+     *
+     * @param header the byte that has already been read for this record
+     * @return a buffer over the reused record array, containing the header and the record without the terminator
+     * @throws IOException
+     * @throws NetworkException if the stream ends before the IAC EOR
+     */
+    public ByteBuffer readTerminatedMessage(byte header) throws IOException, NetworkException {
+        this.recordLength = 0;
+        appendRecord(header);
+
+        if (!readUntil(NetworkThread.EOR, false)) {
+            throw new NetworkException("3270 message did not terminate with IAC EOR");
+        }
+
+        return ByteBuffer.wrap(this.record, 0, this.recordLength);
+    }
+
+    /**
+     * Read the remainder of an IAC SB command up to IAC SE, with IAC IAC escapes removed
+     *
+     * @return a buffer over the reused record array, without the terminator
+     * @throws IOException
+     * @throws NetworkException if the stream ends before the IAC SE
+     */
+    public ByteBuffer readTerminatedSB() throws IOException, NetworkException {
+        this.recordLength = 0;
+
+        if (!readUntil(NetworkThread.SE, true)) {
+            throw new NetworkException("IAC SB message did not terminate with IAC SE");
+        }
+
+        return ByteBuffer.wrap(this.record, 0, this.recordLength);
+    }
+
+    /**
+     * Copy bytes into the record until IAC terminator is found.  Runs of non IAC bytes
+     * are located by scanning the read buffer and copied in bulk.
+     */
+    private boolean readUntil(byte terminator, boolean traceCommand) throws IOException {
+        boolean lastByteFF = false;
+        while (true) {
+            if (!this.readBuffer.hasRemaining() && !fill()) {
+                return false;
+            }
+
+            int start = this.readBuffer.position();
+            int end   = this.readBuffer.limit();
+
+            if (lastByteFF) {
+                byte b = this.readArray[start];
+                this.readBuffer.position(start + 1);
+                if (traceCommand) {
+                    appendCommand(this.readArray, start, 1);
+                }
+                lastByteFF = false;
+
+                if (b == terminator) {
+                    return true;
+                }
+                appendRecord(b); // IAC IAC is an escaped 0xff, anything else is passed through without the IAC
+                continue;
+            }
+
+            int pos = start;
+            while (pos < end && this.readArray[pos] != NetworkThread.IAC) {
+                pos++;
+            }
+
+            appendRecord(this.readArray, start, pos - start);
+            if (pos < end) {
+                lastByteFF = true;
+                pos++;
+            }
+            if (traceCommand) {
+                appendCommand(this.readArray, start, pos - start);
+            }
+            this.readBuffer.position(pos);
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (this.endOfStream) {
+            return false;
+        }
+
+        this.readBuffer.clear();
+        int length;
+        do {
+            length = this.inputStream.read(this.readArray, 0, this.readArray.length);
+        } while (length == 0);
+
+        if (length == -1) {
+            this.readBuffer.limit(0);
+            this.endOfStream = true;
+            return false;
+        }
+
+        this.readBuffer.limit(length);
+        return true;
+    }
+
+    private void appendRecord(byte b) {
+        if (this.recordLength == this.record.length) {
+            this.record = Arrays.copyOf(this.record, this.record.length * 2);
+        }
+        this.record[this.recordLength++] = b;
+    }
+
+    private void appendRecord(byte[] source, int offset, int length) {
+        if (this.recordLength + length > this.record.length) {
+            this.record = Arrays.copyOf(this.record, Math.max(this.record.length * 2, this.recordLength + length));
+        }
+        System.arraycopy(source, offset, this.record, this.recordLength, length);
+        this.recordLength += length;
+    }
+
+    private void appendCommand(byte[] source, int offset, int length) {
+        if (this.commandLength + length > this.command.length) {
+            this.command = Arrays.copyOf(this.command, Math.max(this.command.length * 2, this.commandLength + length));
+        }
+        System.arraycopy(source, offset, this.command, this.commandLength, length);
+        this.commandLength += length;
+    }
+
+}
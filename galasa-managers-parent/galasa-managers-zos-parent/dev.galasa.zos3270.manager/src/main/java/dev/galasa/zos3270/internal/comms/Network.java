@@ -113,14 +113,7 @@ public class Network {
         if (!ssl) {
             newSocket = new Socket(this.host, this.port);
         } else {
-            boolean ibmJdk = System.getProperty("java.vendor").contains("IBM");
-            SSLContext sslContext;
-            if (ibmJdk) {
-                sslContext = SSLContext.getInstance("SSL_TLSv2");
-            } else {
-                sslContext = SSLContext.getInstance("TLSv1.2");
-            }
-            sslContext.init(null, new TrustManager[] { new TrustAllCerts() }, new java.security.SecureRandom());
+            SSLContext sslContext = createSslContext();
             newSocket = sslContext.getSocketFactory().createSocket(this.host, this.port);
             ((SSLSocket) newSocket).startHandshake();
         }
@@ -130,6 +123,27 @@ public class Network {
         return newSocket;
     }
 
+    protected SSLContext createSslContext() throws NoSuchAlgorithmException, KeyManagementException {
+        boolean ibmJdk = System.getProperty("java.vendor").contains("IBM");
+        SSLContext sslContext;
+        if (ibmJdk) {
+            sslContext = SSLContext.getInstance("SSL_TLSv2");
+        } else {
+            sslContext = SSLContext.getInstance("TLSv1.2");
+        }
+        sslContext.init(null, new TrustManager[] { new TrustAllCerts() }, new java.security.SecureRandom());
+        return sslContext;
+    }
+
+    /**
+     * Start processing the inbound datastream for the connected terminal
+     * 
+     * @param networkThread the protocol handler for the terminal
+     */
+    public void startInbound(NetworkThread networkThread) {
+        networkThread.start();
+    }
+
     public void close() {
         if (socket != null) {
             try {
@@ -153,14 +167,7 @@ public class Network {
 
     public Socket startTls() throws NetworkException {
         try {
-            boolean ibmJdk = System.getProperty("java.vendor").contains("IBM");
-            SSLContext sslContext;
-            if (ibmJdk) {
-                sslContext = SSLContext.getInstance("SSL_TLSv2");
-            } else {
-                sslContext = SSLContext.getInstance("TLSv1.2");
-            }
-            sslContext.init(null, new TrustManager[] { new TrustAllCerts() }, new java.security.SecureRandom());
+            SSLContext sslContext = createSslContext();
             Socket tlsSocket = sslContext.getSocketFactory().createSocket(socket, this.host, this.port, false);
             ((SSLSocket) tlsSocket).startHandshake();
             tlsSocket.setTcpNoDelay(true);
@@ -191,16 +198,7 @@ public class Network {
         
         synchronized(outputStream) {
             try {
-                byte[] header = new byte[] { 0, 0, 0, 0, 0 };
-                byte[] trailer = new byte[] { (byte) 0xff, (byte) 0xef };
-
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                if (!this.basicTelnet) {
-                    baos.write(header);
-                }
-                baos.write(outboundDatastream);
-                baos.write(trailer);
-                outputStream.write(baos.toByteArray());
+                outputStream.write(frameDatastream(outboundDatastream));
                 outputStream.flush();
 
                 this.lastSend = Instant.now();
@@ -210,6 +208,22 @@ public class Network {
         }
     }
 
+    /**
+     * Add the TN3270E header, if negotiated, and the IAC EOR trailer to an outbound datastream
+     */
+    protected byte[] frameDatastream(byte[] outboundDatastream) throws IOException {
+        byte[] header = new byte[] { 0, 0, 0, 0, 0 };
+        byte[] trailer = new byte[] { (byte) 0xff, (byte) 0xef };
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if (!this.basicTelnet) {
+            baos.write(header);
+        }
+        baos.write(outboundDatastream);
+        baos.write(trailer);
+        return baos.toByteArray();
+    }
+
     public void sendIac(byte[] outboundIac) throws NetworkException {
         synchronized(outputStream) {
             try {
@@ -251,6 +265,18 @@ public class Network {
         }
     }
 
+    public String getHost() {
+        return this.host;
+    }
+
+    public int getPort() {
+        return this.port;
+    }
+
+    public String getTerminalId() {
+        return this.terminalId;
+    }
+
     public String getHostPort() {
         return this.host + ":" + Integer.toString(this.port);
     }
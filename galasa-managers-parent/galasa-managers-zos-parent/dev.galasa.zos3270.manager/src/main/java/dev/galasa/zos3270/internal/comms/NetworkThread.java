@@ -8,10 +8,10 @@ package dev.galasa.zos3270.internal.comms;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.codec.binary.Hex;
@@ -113,7 +113,7 @@ public class NetworkThread extends Thread {
     private final ArrayList<String>  possibleDeviceTypes = new ArrayList<>();
     private String                   selectedDeviceType;
 
-    private ByteArrayOutputStream    commandSoFar;
+    private BufferedInboundReader    reader;
 
     public NetworkThread(Terminal terminal, Screen screen, Network network, InputStream inputStream) {
         this(terminal, screen, network, inputStream, null);
@@ -151,6 +151,14 @@ public class NetworkThread extends Thread {
                 break;
             }
         }
+
+        inboundClosed();
+    }
+
+    /**
+     * Lock the screen and inform the terminal that the inbound datastream has ended
+     */
+    void inboundClosed() {
         try {
             screen.networkClosed();
         } catch (TerminalInterruptedException e) {
@@ -162,22 +170,26 @@ public class NetworkThread extends Thread {
     }
 
     public void processMessage(InputStream messageStream) throws IOException, NetworkException {
-        this.commandSoFar = new ByteArrayOutputStream();
+        if (this.reader == null || this.reader.getInputStream() != messageStream) {
+            this.reader = new BufferedInboundReader(messageStream);
+        }
+        BufferedInboundReader reader = this.reader;
+        reader.startCommand();
 
-        Byte header = readByte(messageStream);
+        Byte header = readByte(reader);
         if (header == null) {
             return;
         }
 
         if (header == IAC) {
-            doIac(messageStream);
+            doIac(reader);
             return;
         }
 
         if (basicTelnetDatastream) {
             this.telnetSessionStarted = true;  // must be started if receiving 3270
 
-            ByteBuffer buffer = readTerminatedMessage(header, messageStream);
+            ByteBuffer buffer = reader.readTerminatedMessage(header);
 
 
             Inbound3270Message inbound3270Message = process3270Data(buffer);
@@ -186,7 +198,7 @@ public class NetworkThread extends Thread {
         } else {
             this.telnetSessionStarted = true;  // must be started if receiving 3270
 
-            ByteBuffer buffer = readTerminatedMessage(header, messageStream);
+            ByteBuffer buffer = reader.readTerminatedMessage(header);
 
             if (buffer.remaining() < 5) {
                 throw new NetworkException("Missing 5 bytes of the TN3270E datastream header");
@@ -203,7 +215,7 @@ public class NetworkThread extends Thread {
                 throw new NetworkException("Was expecting a TN3270E datastream header of zeros - " + reportCommandSoFar());
             }
 
-            buffer.get(new byte[4]);
+            buffer.position(buffer.position() + 4);
 
             Inbound3270Message inbound3270Message = process3270Data(buffer);
             this.screen.processInboundMessage(inbound3270Message);
@@ -211,30 +223,30 @@ public class NetworkThread extends Thread {
         }
     }
 
-    private void doIac(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIac(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC terminated early - " + reportCommandSoFar());
         }
 
         if (iac == DO) {
-            doIacDo(messageStream);
+            doIacDo(reader);
             return;
         }
         if (iac == DONT) {
-            doIacDont(messageStream);
+            doIacDont(reader);
             return;
         }
         if (iac == SB) {
-            doIacSb(messageStream);
+            doIacSb(reader);
             return;
         }
         if (iac == WILL) {
-            doIacWill(messageStream);
+            doIacWill(reader);
             return;
         }
         if (iac == WONT) {
-            doIacWont(messageStream);
+            doIacWont(reader);
             return;
         }
 
@@ -242,9 +254,9 @@ public class NetworkThread extends Thread {
         throw new NetworkException("Unrecognised IAC Command - " + reportCommandSoFar());
     }
 
-    private void doIacSb(InputStream messageStream) throws NetworkException, IOException {
+    private void doIacSb(BufferedInboundReader reader) throws NetworkException, IOException {
         // Read the whole SB SE command
-        ByteBuffer remainingSb = readTerminatedSB(messageStream);
+        ByteBuffer remainingSb = reader.readTerminatedSB();
 
         byte sb = remainingSb.get();
 
@@ -264,8 +276,8 @@ public class NetworkThread extends Thread {
         throw new NetworkException("Unrecognised IAC SB Command - " + reportCommandSoFar());
     }
 
-    private void doIacWill(InputStream messageStream) throws NetworkException, IOException {
-        Byte will = readByte(messageStream);
+    private void doIacWill(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte will = readByte(reader);
         if (will == null) {
             throw new NetworkException("Unrecognised IAC WILL terminated early - " + reportCommandSoFar());
         }
@@ -273,8 +285,8 @@ public class NetworkThread extends Thread {
         throw new NetworkException("Unrecognised IAC WILL Command - " + reportCommandSoFar());
     }
 
-    private void doIacWont(InputStream messageStream) throws NetworkException, IOException {
-        Byte will = readByte(messageStream);
+    private void doIacWont(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte will = readByte(reader);
         if (will == null) {
             throw new NetworkException("Unrecognised IAC WONT terminated early - " + reportCommandSoFar());
         }
@@ -320,8 +332,13 @@ public class NetworkThread extends Thread {
     private void doIacSbStartTlsFollows(ByteBuffer remainingSb) throws NetworkException, IOException {
         logger.trace("TN3270E switching to TLS");
 
-        Socket newSocket = this.network.startTls();
-        this.inputStream = newSocket.getInputStream();
+        if (this.reader != null && this.reader.buffered() > 0) {
+            throw new NetworkException("Unexpected data received from the server before the TLS handshake");
+        }
+
+        this.network.startTls();
+        this.inputStream = this.network.getInputStream();
+        this.reader = new BufferedInboundReader(this.inputStream);
         this.network.switchedSSL(true);
 
 
@@ -608,34 +625,34 @@ public class NetworkThread extends Thread {
         }
     }
 
-    private void doIacDo(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDo(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO terminated early - " + reportCommandSoFar());
         }
 
         if (iac == TIMING_MARK) {
-            doIacDoTimingMark(messageStream);
+            doIacDoTimingMark(reader);
             return;
         }
         if (iac == TN3270E) {
-            doIacDoTn3270e(messageStream);
+            doIacDoTn3270e(reader);
             return;
         }
         if (iac == START_TLS) {
-            doIacDoStartTls(messageStream);
+            doIacDoStartTls(reader);
             return;
         }
         if (iac == TERMINAL_TYPE) {
-            doIacDoTerminalType(messageStream);
+            doIacDoTerminalType(reader);
             return;
         }
         if (iac == TELNET_EOR) {
-            doIacDoTelnetEor(messageStream);
+            doIacDoTelnetEor(reader);
             return;
         }
         if (iac == TELNET_BINARY) {
-            doIacDoTelnetBinary(messageStream);
+            doIacDoTelnetBinary(reader);
             return;
         }
 
@@ -643,8 +660,8 @@ public class NetworkThread extends Thread {
 
     }
 
-    private void doIacDont(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDont(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO terminated early - " + reportCommandSoFar());
         }
@@ -664,19 +681,19 @@ public class NetworkThread extends Thread {
         throw new NetworkException("Unrecognised IAC DONT Command - " + reportCommandSoFar());
     }
 
-    private void doIacDoTimingMark(InputStream messageStream) throws NetworkException {
+    private void doIacDoTimingMark(BufferedInboundReader reader) throws NetworkException {
         logger.trace("timing received");
         this.network.sendIac(new byte[] {IAC, WILL, TIMING_MARK});
     }
 
-    private void doIacDoTelnetEor(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDoTelnetEor(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO EOR terminated early - " + reportCommandSoFar());
         }
 
         if (iac == IAC) {
-            doIacDoTelnetEorIac(messageStream);
+            doIacDoTelnetEorIac(reader);
             return;
         }
 
@@ -684,14 +701,14 @@ public class NetworkThread extends Thread {
     }
 
 
-    private void doIacDoTelnetEorIac(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDoTelnetEorIac(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO EOR IAC terminated early - " + reportCommandSoFar());
         }
 
         if (iac == WILL) {
-            doIacDoTelnetEorIacWill(messageStream);
+            doIacDoTelnetEorIacWill(reader);
             return;
         }
 
@@ -699,21 +716,21 @@ public class NetworkThread extends Thread {
     }
 
 
-    private void doIacDoTelnetEorIacWill(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDoTelnetEorIacWill(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO EOR IAC WILL terminated early - " + reportCommandSoFar());
         }
 
         if (iac == TELNET_EOR) {
-            doIacDoTelnetEorIacWillEor(messageStream);
+            doIacDoTelnetEorIacWillEor(reader);
             return;
         }
 
         throw new NetworkException("Unrecognised IAC DO EOR WILL Command - " + reportCommandSoFar());
     }
 
-    private void doIacDoTelnetEorIacWillEor(InputStream messageStream) throws NetworkException, IOException {
+    private void doIacDoTelnetEorIacWillEor(BufferedInboundReader reader) throws NetworkException, IOException {
         logger.trace("IAC DO EOR WILL EOR received from server");
         this.network.sendIac(new byte[] {IAC, WILL, TELNET_EOR, IAC, DO, TELNET_EOR});
         this.basicTelnetDatastream = true;
@@ -723,14 +740,14 @@ public class NetworkThread extends Thread {
     }
 
 
-    private void doIacDoTelnetBinary(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDoTelnetBinary(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO BINARY terminated early - " + reportCommandSoFar());
         }
 
         if (iac == IAC) {
-            doIacDoTelnetBinaryIac(messageStream);
+            doIacDoTelnetBinaryIac(reader);
             return;
         }
 
@@ -738,14 +755,14 @@ public class NetworkThread extends Thread {
     }
 
 
-    private void doIacDoTelnetBinaryIac(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDoTelnetBinaryIac(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO BINARY IAC terminated early - " + reportCommandSoFar());
         }
 
         if (iac == WILL) {
-            doIacDoTelnetBinaryWill(messageStream);
+            doIacDoTelnetBinaryWill(reader);
             return;
         }
 
@@ -753,32 +770,32 @@ public class NetworkThread extends Thread {
     }
 
 
-    private void doIacDoTelnetBinaryWill(InputStream messageStream) throws NetworkException, IOException {
-        Byte iac = readByte(messageStream);
+    private void doIacDoTelnetBinaryWill(BufferedInboundReader reader) throws NetworkException, IOException {
+        Byte iac = readByte(reader);
         if (iac == null) {
             throw new NetworkException("Unrecognised IAC DO BINARY IAC WILL terminated early - " + reportCommandSoFar());
         }
 
         if (iac == TELNET_BINARY) {
-            doIacDoTelnetBinaryWillBinary(messageStream);
+            doIacDoTelnetBinaryWillBinary(reader);
             return;
         }
 
         throw new NetworkException("Unrecognised IAC DO BINARY WILL Command - " + reportCommandSoFar());
     }
 
-    private void doIacDoTelnetBinaryWillBinary(InputStream messageStream) throws NetworkException, IOException {
+    private void doIacDoTelnetBinaryWillBinary(BufferedInboundReader reader) throws NetworkException, IOException {
         logger.trace("IAC DO BINARY WILL BINARY received from server");
         this.network.sendIac(new byte[] {IAC, WILL, TELNET_BINARY, IAC, DO, TELNET_BINARY});
     }
 
 
-    private void doIacDoTerminalType(InputStream messageStream) throws NetworkException {
+    private void doIacDoTerminalType(BufferedInboundReader reader) throws NetworkException {
         logger.trace("IAC DO TERMINAL-TYPE received from server");
         this.network.sendIac(new byte[] {IAC, WILL, TERMINAL_TYPE});
     }
 
-    private void doIacDoTn3270e(InputStream messageStream) throws NetworkException {
+    private void doIacDoTn3270e(BufferedInboundReader reader) throws NetworkException {
         logger.trace("IAC DO TN3270E received from server, responding with IAC WILL TN3270E");
 
         this.network.sendIac(new byte[] {IAC, WILL, TN3270E});
@@ -786,7 +803,7 @@ public class NetworkThread extends Thread {
         this.network.setBasicTelnet(false);
     }
 
-    private void doIacDoStartTls(InputStream messageStream) throws NetworkException, IOException {
+    private void doIacDoStartTls(BufferedInboundReader reader) throws NetworkException, IOException {
         if (this.network.isDoStartTls()) {
             logger.trace("IAC DO START_TLS received from server, agreeing to switch to TLS");
             this.network.sendIac(new byte[] {IAC, WILL, START_TLS, IAC, SB, START_TLS, FOLLOWS, IAC, SE});
@@ -796,32 +813,31 @@ public class NetworkThread extends Thread {
         }
     }
 
-    private Byte readByte(InputStream messageStream) throws IOException {
-        byte[] b = new byte[1];
-        int length = messageStream.read(b);
+    private Byte readByte(BufferedInboundReader reader) throws IOException {
+        Byte b = reader.readByte();
 
-        if (length == -1) {
-            endOfStream = true;
-            logger.trace("Terminal has been disconnected");
-            return null;
-        }
-        if (length == 0) {
+        if (b == null && reader.isEndOfStream()) {
+            if (!endOfStream) {
+                endOfStream = true;
+                logger.trace("Terminal has been disconnected");
+            }
             return null;
         }
 
-        this.commandSoFar.write(b);
-
-        return b[0];
+        return b;
     }
 
     private String reportCommandSoFar() {
-        return Hex.encodeHexString(this.commandSoFar.toByteArray());
+        if (this.reader == null) {
+            return "";
+        }
+        return this.reader.reportCommandSoFar();
     }
 
     public Inbound3270Message process3270Data(ByteBuffer buffer) throws NetworkException {
 
         if (logger.isTraceEnabled() || !this.screen.getDatastreamListeners().isEmpty()) {
-            String hex = new String(Hex.encodeHex(buffer.array()));
+            String hex = Hex.encodeHexString(Arrays.copyOfRange(buffer.array(), buffer.arrayOffset(), buffer.arrayOffset() + buffer.limit()));
             if (logger.isTraceEnabled()) {
                 logger.trace("inbound=" + hex);
             }
@@ -940,72 +956,18 @@ public class NetworkThread extends Thread {
         return new Inbound3270Message(commandCode, structuredFields);
     }
 
+    /**
+     * Read a single IAC EOR terminated message without reading ahead of the terminator
+     */
     public static ByteBuffer readTerminatedMessage(byte header, InputStream messageStream) throws IOException, NetworkException {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-
-        byteArrayOutputStream.write(header);
-
-        byte[] b = new byte[1];
-        boolean lastByteFF = false;
-        boolean terminated = false;
-        while (messageStream.read(b) == 1) {
-            if (b[0] == IAC) {
-                if (lastByteFF) {
-                    byteArrayOutputStream.write(b);
-                    lastByteFF = false;
-                } else {
-                    lastByteFF = true;
-                }
-            } else {
-                if (b[0] == EOR && lastByteFF) {
-                    terminated = true;
-                    break;
-                }
-
-                byteArrayOutputStream.write(b);
-            }
-        }
-
-        if (!terminated) {
-            throw new NetworkException("3270 message did not terminate with IAC EOR");
-        }
-
-        byte[] bytes = byteArrayOutputStream.toByteArray();
-
-        return ByteBuffer.wrap(bytes);
+        return new BufferedInboundReader(messageStream, 1).readTerminatedMessage(header);
     }
 
     public ByteBuffer readTerminatedSB(InputStream messageStream) throws IOException, NetworkException {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-
-        boolean lastByteFF = false;
-        boolean terminated = false;
-        Byte b;
-        while ((b = readByte(messageStream)) != null) {
-            if (b == IAC) {
-                if (lastByteFF) {
-                    byteArrayOutputStream.write(b);
-                    lastByteFF = false;
-                } else {
-                    lastByteFF = true;
-                }
-            } else {
-                if (b == SE && lastByteFF) {
-                    terminated = true;
-                    break;
-                }
-
-                byteArrayOutputStream.write(b);
-            }
+        if (this.reader == null || this.reader.getInputStream() != messageStream) {
+            this.reader = new BufferedInboundReader(messageStream);
         }
-
-        if (!terminated) {
-            throw new NetworkException("IAC SB message did not terminate with IAC SE");
-        }
-
-        byte[] bytes = byteArrayOutputStream.toByteArray();
-
-        return ByteBuffer.wrap(bytes);
+        return this.reader.readTerminatedSB();
     }
 
     public boolean isStarted() {
@@ -0,0 +1,569 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.comms;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.zos3270.spi.NetworkException;
+
+/**
+ * A non-blocking telnet connection driven by a shared {@link SelectorNetworkEngine} event loop instead of
+ * a network thread and keep alive thread per terminal.
+ *
+ * Inbound bytes are decrypted if required and split into complete telnet commands or 3270 records, each of which
+ * is passed to the terminal's {@link NetworkThread} protocol handler on the event loop, so telnet negotiation,
+ * STARTTLS and {@link dev.galasa.zos3270.spi.Screen#processInboundMessage} behave exactly as with the socket transport.
+ */
+public class SelectorNetwork extends Network {
+
+    private static final int                      BUFFER_SIZE         = 32768;
+    private static final ByteBuffer               EMPTY               = ByteBuffer.allocate(0);
+
+    private final Log                             logger              = LogFactory.getLog(getClass());
+
+    private final SelectorNetworkEngine           engine;
+    private volatile SelectorNetworkEngine.EventLoop eventLoop;
+
+    private volatile SocketChannel                channel;
+    private SelectionKey                          key;
+    private NetworkThread                         protocol;
+    private SSLEngine                             sslEngine;
+
+    private ByteBuffer                            netIn               = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer                            appIn               = ByteBuffer.allocate(BUFFER_SIZE);
+    private ByteBuffer                            netOut              = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ConcurrentLinkedQueue<ByteBuffer> outbound          = new ConcurrentLinkedQueue<>();
+    private final FrameInputStream                frameStream         = new FrameInputStream();
+
+    private final AtomicBoolean                   closed              = new AtomicBoolean(true);
+    private volatile Instant                      lastSend            = Instant.now();
+
+    public SelectorNetwork(String host, int port, boolean ssl, String terminalId, SelectorNetworkEngine engine) {
+        super(host, port, ssl, terminalId);
+        this.engine = engine;
+    }
+
+    @Override
+    public boolean connectClient() throws NetworkException {
+        if (this.channel != null) {
+            if (this.channel.isConnected()) {
+                return true;
+            }
+
+            close();
+        }
+
+        SocketChannel newChannel = null;
+        try {
+            newChannel = SocketChannel.open();
+            newChannel.socket().setTcpNoDelay(true);
+            newChannel.socket().setKeepAlive(true);
+            newChannel.connect(new InetSocketAddress(getHost(), getPort()));
+            newChannel.configureBlocking(false);
+
+            this.netIn.clear();
+            this.appIn.clear();
+            this.netOut.clear();
+            this.outbound.clear();
+            this.sslEngine = null;
+            if (isTls()) {
+                createSslEngine();
+            }
+
+            this.channel = newChannel;
+            this.lastSend = Instant.now();
+            this.closed.set(false);
+            newChannel = null;
+
+            return true;
+        } catch (Exception e) {
+            throw new NetworkException("Unable to connect to Telnet server", e);
+        } finally {
+            if (newChannel != null) {
+                try {
+                    newChannel.close();
+                } catch (IOException e) {
+                    logger.error("Failed to close the socket channel", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void startInbound(NetworkThread networkThread) {
+        this.protocol = networkThread;
+
+        // *** The event loop must be known before registering, the server may send as soon as the channel is selected
+        SelectorNetworkEngine.EventLoop newEventLoop = this.engine.nextEventLoop();
+        this.eventLoop = newEventLoop;
+        newEventLoop.execute(() -> registered(newEventLoop.selector));
+    }
+
+    /**
+     * Called on the event loop once the terminal has been assigned to it
+     */
+    private void registered(Selector selector) {
+        SocketChannel currentChannel = this.channel;
+        if (currentChannel == null) {
+            return;
+        }
+
+        try {
+            this.key = currentChannel.register(selector, SelectionKey.OP_READ, this);
+            flush();
+        } catch (IOException e) {
+            logger.error("Unable to register terminal " + getTerminalId() + " with the 3270 selector", e);
+            connectionClosed(true);
+        }
+    }
+
+    /**
+     * Called on the event loop when the channel is ready
+     */
+    void selected(SelectionKey selectedKey) {
+        try {
+            if (selectedKey.isReadable()) {
+                read();
+            }
+            if (selectedKey.isValid() && selectedKey.isWritable()) {
+                flush();
+            }
+        } catch (Exception e) {
+            if (!this.closed.get()) {
+                logger.error("Problem with the network connection for terminal " + getTerminalId(), e);
+            }
+            connectionClosed(true);
+        }
+    }
+
+    /**
+     * Called on the event loop periodically, sends a DO TIMING MARK if nothing has been sent for a while
+     */
+    void checkKeepAlive(Instant now) {
+        if (this.lastSend.plus(10, ChronoUnit.MINUTES).isAfter(now)) {
+            return;
+        }
+
+        try {
+            queue(new byte[] { NetworkThread.IAC, NetworkThread.DO, NetworkThread.TIMING_MARK });
+        } catch (Exception e) {
+            logger.error("Failed to write DO TIMING MARK", e);
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return (this.channel != null);
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return this.frameStream;
+    }
+
+    @Override
+    public Socket startTls() throws NetworkException {
+        // Called by the protocol handler on the event loop after IAC SB START_TLS FOLLOWS IAC SE
+        try {
+            flush();
+            createSslEngine();
+            flush();
+        } catch (IOException e) {
+            throw new NetworkException("Problem negotiating TLS on plain socket", e);
+        }
+        return null;
+    }
+
+    @Override
+    public void sendDatastream(byte[] outboundDatastream) throws NetworkException {
+        if (this.channel == null) {
+            throw new NetworkException("Attempt to send data to a disconnected terminal " + getTerminalId());
+        }
+
+        try {
+            queue(frameDatastream(outboundDatastream));
+        } catch (IOException e) {
+            throw new NetworkException("Unable to write outbound datastream", e);
+        }
+    }
+
+    @Override
+    public void sendIac(byte[] outboundIac) throws NetworkException {
+        try {
+            queue(outboundIac);
+        } catch (IOException e) {
+            throw new NetworkException("Unable to write outbound iac", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        connectionClosed(false);
+    }
+
+    private void createSslEngine() throws IOException {
+        try {
+            this.sslEngine = createSslContext().createSSLEngine(getHost(), getPort());
+        } catch (Exception e) {
+            throw new SSLException("Unable to create the TLS engine", e);
+        }
+        this.sslEngine.setUseClientMode(true);
+
+        int packetSize = this.sslEngine.getSession().getPacketBufferSize();
+        this.netIn = enlarge(this.netIn, packetSize);
+        this.netOut = enlarge(this.netOut, packetSize);
+
+        this.sslEngine.beginHandshake();
+    }
+
+    private void queue(byte[] data) throws IOException {
+        SocketChannel currentChannel = this.channel;
+        SelectorNetworkEngine.EventLoop currentEventLoop = this.eventLoop;
+        if (currentChannel == null || currentEventLoop == null) {
+            throw new ClosedChannelException();
+        }
+
+        this.outbound.add(ByteBuffer.wrap(data));
+        this.lastSend = Instant.now();
+
+        if (currentEventLoop.inEventLoop()) {
+            flush();
+        } else {
+            currentEventLoop.execute(this::flushOnEventLoop);
+        }
+    }
+
+    private void flushOnEventLoop() {
+        if (this.key == null || !this.key.isValid()) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Problem writing to the network connection for terminal " + getTerminalId(), e);
+            connectionClosed(true);
+        }
+    }
+
+    private void read() throws IOException, NetworkException {
+        int length = this.channel.read(this.netIn);
+        if (length == -1) {
+            logger.trace("Terminal has been disconnected");
+            connectionClosed(true);
+            return;
+        }
+
+        if (this.sslEngine == null) {
+            this.netIn.flip();
+            this.appIn = enlarge(this.appIn, this.appIn.position() + this.netIn.remaining());
+            this.appIn.put(this.netIn);
+            this.netIn.clear();
+        } else {
+            unwrap();
+        }
+
+        processFrames();
+        flush();
+    }
+
+    private void unwrap() throws IOException {
+        this.netIn.flip();
+        try {
+            while (this.netIn.hasRemaining()) {
+                SSLEngineResult result = this.sslEngine.unwrap(this.netIn, this.appIn);
+                switch (result.getStatus()) {
+                    case BUFFER_OVERFLOW:
+                        this.appIn = enlarge(this.appIn, this.appIn.capacity() * 2);
+                        continue;
+                    case BUFFER_UNDERFLOW:
+                        return;
+                    case CLOSED:
+                        throw new ClosedChannelException();
+                    default:
+                        break;
+                }
+
+                runHandshake();
+                if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                    return;
+                }
+            }
+        } finally {
+            this.netIn.compact();
+        }
+    }
+
+    private void runHandshake() throws IOException {
+        while (true) {
+            HandshakeStatus status = this.sslEngine.getHandshakeStatus();
+            if (status == HandshakeStatus.NEED_TASK) {
+                Runnable task;
+                while ((task = this.sslEngine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+            } else if (status == HandshakeStatus.NEED_WRAP) {
+                wrap(EMPTY);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean isHandshaking() {
+        HandshakeStatus status = this.sslEngine.getHandshakeStatus();
+        return status != HandshakeStatus.NOT_HANDSHAKING && status != HandshakeStatus.FINISHED;
+    }
+
+    private void wrap(ByteBuffer source) throws IOException {
+        do {
+            SSLEngineResult result = this.sslEngine.wrap(source, this.netOut);
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                this.netOut = enlarge(this.netOut, this.netOut.capacity() * 2);
+                continue;
+            }
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                throw new ClosedChannelException();
+            }
+            if (result.bytesConsumed() == 0 && source.hasRemaining()) {
+                return;
+            }
+        } while (source.hasRemaining());
+    }
+
+    /**
+     * Split the plain inbound bytes into complete telnet commands and 3270 records and pass them to the protocol handler
+     */
+    private void processFrames() throws IOException, NetworkException {
+        this.appIn.flip();
+        try {
+            while (this.appIn.hasRemaining() && !this.closed.get()) {
+                int length = frameLength(this.appIn.array(), this.appIn.arrayOffset() + this.appIn.position(), this.appIn.remaining());
+                if (length < 0) {
+                    return;
+                }
+
+                this.frameStream.setFrame(this.appIn.array(), this.appIn.arrayOffset() + this.appIn.position(), length);
+                this.appIn.position(this.appIn.position() + length);
+
+                boolean wasPlain = (this.sslEngine == null);
+                this.protocol.processMessage(this.frameStream);
+                if (wasPlain && this.sslEngine != null) {
+                    // Switched to TLS, anything received after the FOLLOWS is the start of the handshake
+                    this.netIn = enlarge(this.netIn, this.netIn.position() + this.appIn.remaining());
+                    this.netIn.put(this.appIn);
+                    this.appIn.clear();
+                    unwrap();
+                    this.appIn.flip();
+                }
+            }
+        } finally {
+            this.appIn.compact();
+        }
+    }
+
+    private void flush() throws IOException {
+        SocketChannel currentChannel = this.channel;
+        if (currentChannel == null) {
+            return;
+        }
+
+        if (this.sslEngine == null) {
+            ByteBuffer buffer;
+            while ((buffer = this.outbound.peek()) != null) {
+                currentChannel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    break;
+                }
+                this.outbound.poll();
+            }
+        } else {
+            runHandshake();
+            if (!isHandshaking()) {
+                ByteBuffer buffer;
+                while ((buffer = this.outbound.peek()) != null) {
+                    wrap(buffer);
+                    if (buffer.hasRemaining()) {
+                        break;
+                    }
+                    this.outbound.poll();
+                }
+            }
+
+            this.netOut.flip();
+            currentChannel.write(this.netOut);
+            this.netOut.compact();
+        }
+
+        if (this.key != null && this.key.isValid()) {
+            boolean pending = (this.netOut.position() > 0)
+                    || (!this.outbound.isEmpty() && (this.sslEngine == null || !isHandshaking()));
+            this.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Close the channel and tell the protocol handler, only the first call has any effect.
+     *
+     * @param fromEventLoop true if the close was detected by the event loop, in which case the protocol handler is informed
+     *                      on another thread as the terminal may try to reconnect
+     */
+    private void connectionClosed(boolean fromEventLoop) {
+        if (this.closed.getAndSet(true)) {
+            return;
+        }
+
+        SocketChannel oldChannel = this.channel;
+        this.channel = null;
+
+        if (this.key != null) {
+            this.key.cancel();
+        }
+        if (oldChannel != null) {
+            try {
+                oldChannel.close();
+            } catch (IOException e) {
+                logger.error("Failed to close the socket channel", e);
+            }
+        }
+
+        NetworkThread oldProtocol = this.protocol;
+        if (oldProtocol == null) {
+            return;
+        }
+        if (fromEventLoop) {
+            CompletableFuture.runAsync(oldProtocol::inboundClosed);
+        } else {
+            oldProtocol.inboundClosed();
+        }
+    }
+
+    private static ByteBuffer enlarge(ByteBuffer buffer, int capacity) {
+        if (buffer.capacity() >= capacity) {
+            return buffer;
+        }
+
+        ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        return newBuffer;
+    }
+
+    /**
+     * Find the length of the first complete unit in the inbound telnet stream, in the same units that
+     * {@link NetworkThread#processMessage(InputStream)} consumes
+     *
+     * @return the length of the unit including its terminator, or -1 if more data is required
+     */
+    public static int frameLength(byte[] buffer, int offset, int length) {
+        if (length < 1) {
+            return -1;
+        }
+
+        if (buffer[offset] != NetworkThread.IAC) {
+            return terminatedLength(buffer, offset, length, 1, NetworkThread.EOR);
+        }
+
+        if (length < 2) {
+            return -1;
+        }
+
+        byte command = buffer[offset + 1];
+        if (command == NetworkThread.SB) {
+            return terminatedLength(buffer, offset, length, 2, NetworkThread.SE);
+        }
+        if (command == NetworkThread.DO) {
+            if (length < 3) {
+                return -1;
+            }
+            byte option = buffer[offset + 2];
+            if (option == NetworkThread.TELNET_EOR || option == NetworkThread.TELNET_BINARY) {
+                // Negotiated as IAC DO x IAC WILL x
+                return (length < 6) ? -1 : 6;
+            }
+            return 3;
+        }
+        if (command == NetworkThread.DONT || command == NetworkThread.WILL || command == NetworkThread.WONT) {
+            return (length < 3) ? -1 : 3;
+        }
+
+        return 2;
+    }
+
+    private static int terminatedLength(byte[] buffer, int offset, int length, int start, byte terminator) {
+        int end = offset + length;
+        for (int pos = offset + start; pos < end - 1; pos++) {
+            if (buffer[pos] == NetworkThread.IAC) {
+                pos++;
+                if (buffer[pos] == terminator) {
+                    return pos + 1 - offset;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Presents a single inbound frame to the protocol handler, reused for every frame
+     */
+    private static class FrameInputStream extends InputStream {
+
+        private byte[] frame;
+        private int    position;
+        private int    end;
+
+        void setFrame(byte[] frame, int offset, int length) {
+            this.frame = frame;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() {
+            if (this.position >= this.end) {
+                return -1;
+            }
+            return this.frame[this.position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (this.position >= this.end) {
+                return -1;
+            }
+            int length = Math.min(len, this.end - this.position);
+            System.arraycopy(this.frame, this.position, b, off, length);
+            this.position += length;
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return this.end - this.position;
+        }
+    }
+
+}
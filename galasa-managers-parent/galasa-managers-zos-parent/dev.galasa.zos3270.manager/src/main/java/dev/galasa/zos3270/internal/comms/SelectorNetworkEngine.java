@@ -0,0 +1,142 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.comms;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.zos3270.spi.NetworkException;
+
+/**
+ * A small pool of selector threads shared by all the {@link SelectorNetwork} terminals in the JVM.
+ * Each terminal is pinned to one event loop, which performs all the reads, writes, TLS work, telnet negotiation,
+ * inbound datastream parsing and timing mark keep alives for that terminal.
+ */
+public class SelectorNetworkEngine {
+
+    private static final Log             logger            = LogFactory.getLog(SelectorNetworkEngine.class);
+
+    private static SelectorNetworkEngine instance;
+
+    private final EventLoop[]            eventLoops;
+    private final AtomicInteger          nextEventLoop     = new AtomicInteger();
+
+    private SelectorNetworkEngine(int threads) throws NetworkException {
+        this.eventLoops = new EventLoop[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                this.eventLoops[i] = new EventLoop(i);
+            }
+        } catch (IOException e) {
+            throw new NetworkException("Unable to open the 3270 selector", e);
+        }
+
+        for (EventLoop eventLoop : this.eventLoops) {
+            eventLoop.start();
+        }
+        logger.debug("Started " + threads + " shared 3270 selector threads");
+    }
+
+    /**
+     * Get the shared engine, starting it on first use
+     *
+     * @param threads the number of selector threads to start if the engine is not running yet
+     * @return the shared engine
+     * @throws NetworkException if the selectors could not be opened
+     */
+    public static synchronized SelectorNetworkEngine getInstance(int threads) throws NetworkException {
+        if (instance == null) {
+            instance = new SelectorNetworkEngine(threads);
+        }
+        return instance;
+    }
+
+    /**
+     * Assign a terminal to the next event loop, round robin
+     */
+    EventLoop nextEventLoop() {
+        int index = Math.floorMod(this.nextEventLoop.getAndIncrement(), this.eventLoops.length);
+        return this.eventLoops[index];
+    }
+
+    static class EventLoop extends Thread {
+
+        private static final long                     KEEP_ALIVE_CHECK_SECONDS = 5;
+
+        final Selector                                selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks                    = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int number) throws IOException {
+            this.selector = Selector.open();
+            setName("3270 selector " + number);
+            setDaemon(true);
+        }
+
+        void execute(Runnable task) {
+            this.tasks.add(task);
+            if (Thread.currentThread() != this) {
+                this.selector.wakeup();
+            }
+        }
+
+        boolean inEventLoop() {
+            return Thread.currentThread() == this;
+        }
+
+        @Override
+        public void run() {
+            Instant nextKeepAliveCheck = Instant.now().plusSeconds(KEEP_ALIVE_CHECK_SECONDS);
+            while (true) {
+                try {
+                    this.selector.select(1000);
+
+                    Runnable task;
+                    while ((task = this.tasks.poll()) != null) {
+                        runTask(task);
+                    }
+
+                    Iterator<SelectionKey> selectedKeys = this.selector.selectedKeys().iterator();
+                    while (selectedKeys.hasNext()) {
+                        SelectionKey key = selectedKeys.next();
+                        selectedKeys.remove();
+                        if (key.isValid()) {
+                            ((SelectorNetwork) key.attachment()).selected(key);
+                        }
+                    }
+
+                    Instant now = Instant.now();
+                    if (now.isAfter(nextKeepAliveCheck)) {
+                        nextKeepAliveCheck = now.plusSeconds(KEEP_ALIVE_CHECK_SECONDS);
+                        for (SelectionKey key : this.selector.keys()) {
+                            if (key.isValid()) {
+                                ((SelectorNetwork) key.attachment()).checkKeepAlive(now);
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    logger.error("Problem in the 3270 selector loop", e);
+                }
+            }
+        }
+
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Problem running 3270 selector task", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.properties;
+
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zos3270.Zos3270ManagerException;
+
+/**
+ * The number of shared selector threads when zos3270.network.transport=selector
+ * </p>
+ * <p>
+ * The property is:-<br>
+ * <br>
+ * zos3270.network.selector.threads=2
+ * </p>
+ * <p>
+ * default is 2
+ * </p>
+ * 
+ */
+public class NetworkSelectorThreads extends CpsProperties {
+
+    public static int get() throws Zos3270ManagerException {
+        int threads = getIntWithDefault(Zos3270PropertiesSingleton.cps(), 2, "network", "selector.threads");
+        if (threads < 1) {
+            throw new Zos3270ManagerException("Invalid value " + threads + " for property zos3270.network.selector.threads, must be at least 1");
+        }
+        return threads;
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.properties;
+
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zos3270.Zos3270ManagerException;
+
+/**
+ * The network transport used by the 3270 terminals
+ * </p>
+ * <p>
+ * The property is:-<br>
+ * <br>
+ * zos3270.network.transport=socket|selector
+ * </p>
+ * <p>
+ * socket runs a network thread and a keep alive thread per terminal, selector multiplexes all the
+ * terminals in the JVM over a small pool of shared selector threads
+ * </p>
+ * <p>
+ * default is socket
+ * </p>
+ * 
+ */
+public class NetworkTransport extends CpsProperties {
+
+    public static boolean isSelector() throws Zos3270ManagerException {
+        String transport = getStringWithDefault(Zos3270PropertiesSingleton.cps(), "socket", "network", "transport").trim();
+        if ("selector".equalsIgnoreCase(transport)) {
+            return true;
+        }
+        if ("socket".equalsIgnoreCase(transport)) {
+            return false;
+        }
+
+        throw new Zos3270ManagerException("Invalid value '" + transport + "' for property zos3270.network.transport, must be socket or selector");
+    }
+
+}
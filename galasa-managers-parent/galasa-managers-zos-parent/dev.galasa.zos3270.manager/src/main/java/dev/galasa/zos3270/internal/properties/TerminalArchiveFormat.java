@@ -0,0 +1,43 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.properties;
+
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zos3270.Zos3270ManagerException;
+
+/**
+ * The format the terminal images are archived to the RAS in
+ * </p>
+ * <p>
+ * The property is:-<br>
+ * <br>
+ * zos3270.terminal.archive.format=full|delta
+ * </p>
+ * <p>
+ * full writes every field of every image, delta writes the first image of each file in full
+ * followed by the fields and cursor changes of the images after it, as content type
+ * application/zos3270terminaldelta
+ * </p>
+ * <p>
+ * default is full
+ * </p>
+ * 
+ */
+public class TerminalArchiveFormat extends CpsProperties {
+
+    public static boolean isDelta() throws Zos3270ManagerException {
+        String format = getStringWithDefault(Zos3270PropertiesSingleton.cps(), "full", "terminal", "archive.format").trim();
+        if ("delta".equalsIgnoreCase(format)) {
+            return true;
+        }
+        if ("full".equalsIgnoreCase(format)) {
+            return false;
+        }
+
+        throw new Zos3270ManagerException("Invalid value '" + format + "' for property zos3270.terminal.archive.format, must be full or delta");
+    }
+
+}
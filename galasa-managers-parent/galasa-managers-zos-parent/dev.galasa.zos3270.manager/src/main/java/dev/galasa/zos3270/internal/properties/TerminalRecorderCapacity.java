@@ -0,0 +1,35 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.properties;
+
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zos3270.Zos3270ManagerException;
+
+/**
+ * The number of terminal images that can be waiting to be recorded to the RAS and live terminal
+ * before further images are dropped
+ * </p>
+ * <p>
+ * The property is:-<br>
+ * <br>
+ * zos3270.terminal.recorder.capacity=1000
+ * </p>
+ * <p>
+ * default is 1000
+ * </p>
+ *
+ */
+public class TerminalRecorderCapacity extends CpsProperties {
+
+    public static int get() throws Zos3270ManagerException {
+        int capacity = getIntWithDefault(Zos3270PropertiesSingleton.cps(), 1000, "terminal", "recorder.capacity");
+        if (capacity < 1) {
+            throw new Zos3270ManagerException("Invalid value " + capacity + " for property zos3270.terminal.recorder.capacity, must be at least 1");
+        }
+        return capacity;
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.terminal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick matcher over a set of ok and error texts, so that all the texts
+ * a wait is interested in can be located with a single pass over the screen fields.
+ *
+ * The automaton is immutable once built, so a matcher can be built once
+ * and reused for every screen update.
+ */
+public class FieldTextMatcher {
+
+    private static final int ROOT = 0;
+
+    private final String[]   okText;
+    private final String[]   errorText;
+    private final int        patternCount;
+
+    private final char[][]   keys;
+    private final int[][]    targets;
+    private final int[]      fail;
+    private final int[][]    outputs;
+    private final int[]      outputLink;
+
+    public FieldTextMatcher(String[] okText, String[] errorText) {
+        this.okText = (okText == null) ? new String[0] : okText;
+        this.errorText = (errorText == null) ? new String[0] : errorText;
+        this.patternCount = this.errorText.length + this.okText.length;
+
+        // *** Build the trie, error texts first so the pattern index doubles as the priority
+        ArrayList<TreeMap<Character, Integer>> children = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> nodeOutputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        for (int p = 0; p < this.patternCount; p++) {
+            String pattern = getPattern(p);
+            int node = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = children.get(node).get(pattern.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    children.get(node).put(pattern.charAt(i), next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(p);
+        }
+
+        int nodeCount = children.size();
+        this.keys = new char[nodeCount][];
+        this.targets = new int[nodeCount][];
+        this.outputs = new int[nodeCount][];
+        this.fail = new int[nodeCount];
+        this.outputLink = new int[nodeCount];
+
+        for (int n = 0; n < nodeCount; n++) {
+            TreeMap<Character, Integer> nodeChildren = children.get(n);
+            this.keys[n] = new char[nodeChildren.size()];
+            this.targets[n] = new int[nodeChildren.size()];
+            int i = 0;
+            for (Entry<Character, Integer> entry : nodeChildren.entrySet()) {
+                this.keys[n][i] = entry.getKey();
+                this.targets[n][i] = entry.getValue();
+                i++;
+            }
+
+            ArrayList<Integer> nodeOutput = nodeOutputs.get(n);
+            this.outputs[n] = new int[nodeOutput.size()];
+            for (i = 0; i < nodeOutput.size(); i++) {
+                this.outputs[n][i] = nodeOutput.get(i);
+            }
+        }
+
+        // *** Breadth first to set the failure links and the links to the nearest node with output
+        this.outputLink[ROOT] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : this.targets[ROOT]) {
+            this.fail[child] = ROOT;
+            this.outputLink[child] = -1;
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < this.keys[node].length; i++) {
+                char c = this.keys[node][i];
+                int child = this.targets[node][i];
+
+                int f = this.fail[node];
+                int next = transition(f, c);
+                while (next < 0 && f != ROOT) {
+                    f = this.fail[f];
+                    next = transition(f, c);
+                }
+                this.fail[child] = (next < 0) ? ROOT : next;
+
+                int failNode = this.fail[child];
+                this.outputLink[child] = (this.outputs[failNode].length > 0 && failNode != ROOT) ? failNode : this.outputLink[failNode];
+                queue.add(child);
+            }
+        }
+    }
+
+    public String[] getOkText() {
+        return this.okText;
+    }
+
+    public String[] getErrorText() {
+        return this.errorText;
+    }
+
+    /**
+     * @return an empty result array to be passed to {@link #scan(char[], boolean[])}
+     */
+    public boolean[] newResult() {
+        return new boolean[this.patternCount];
+    }
+
+    /**
+     * Scan the text of one field, marking in found any of the texts that the field contains
+     *
+     * @param text the field text
+     * @param found the results so far
+     */
+    public void scan(char[] text, boolean[] found) {
+        markOutputs(ROOT, found); // empty texts are contained in every field
+
+        int node = ROOT;
+        for (char c : text) {
+            int next = transition(node, c);
+            while (next < 0 && node != ROOT) {
+                node = this.fail[node];
+                next = transition(node, c);
+            }
+            node = (next < 0) ? ROOT : next;
+
+            for (int out = node; out > 0; out = this.outputLink[out]) {
+                markOutputs(out, found);
+            }
+        }
+    }
+
+    /**
+     * @return the index of the first error text found, or -1 if none were
+     */
+    public int firstErrorFound(boolean[] found) {
+        for (int i = 0; i < this.errorText.length; i++) {
+            if (found[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index of the first ok text found, or -1 if none were
+     */
+    public int firstOkFound(boolean[] found) {
+        for (int i = 0; i < this.okText.length; i++) {
+            if (found[this.errorText.length + i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void markOutputs(int node, boolean[] found) {
+        for (int p : this.outputs[node]) {
+            found[p] = true;
+        }
+    }
+
+    private int transition(int node, char c) {
+        int i = Arrays.binarySearch(this.keys[node], c);
+        if (i < 0) {
+            return -1;
+        }
+        return this.targets[node][i];
+    }
+
+    private String getPattern(int p) {
+        if (p < this.errorText.length) {
+            return this.errorText[p];
+        }
+        return this.okText[p - this.errorText.length];
+    }
+
+}
@@ -0,0 +1,408 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.internal.terminal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import dev.galasa.ResultArchiveStoreContentType;
+import dev.galasa.SetContentType;
+import dev.galasa.framework.spi.IConfidentialTextService;
+import dev.galasa.zos3270.common.screens.DeltaTerminal;
+import dev.galasa.zos3270.common.screens.DeltaTerminalBuilder;
+import dev.galasa.zos3270.common.screens.Terminal;
+import dev.galasa.zos3270.common.screens.TerminalImage;
+import dev.galasa.zos3270.common.screens.TerminalSize;
+
+/**
+ * Records terminal images to the RAS and the live terminal view away from the network thread.
+ *
+ * Images are placed on a bounded queue per terminal and drained by a small shared pool of
+ * background threads, which write them to the RAS in batches and send only the most recent
+ * image to the live terminal.  A slow RAS or live terminal only holds up one pool thread, not
+ * every terminal.  If the queue is full the image is dropped and counted rather than holding
+ * up the terminal.
+ */
+public class TerminalImageRecorder {
+
+    public static final int                  BATCH_SIZE       = 10;
+    public static final int                  DELTA_BATCH_SIZE = 50;
+
+    private static final String              CONTENT_TYPE     = "application/zos3270terminal";
+    private static final int                 LIVE_TIMEOUT     = 10000;
+    private static final int                 DROP_LOG_EVERY   = 100;
+    private static final int                 RECORDER_THREADS = 4;
+
+    private static final AtomicInteger       threadNumber     = new AtomicInteger();
+
+    private static ExecutorService           sharedExecutor;
+
+    private final Log                        logger         = LogFactory.getLog(getClass());
+
+    private final Gson                       gson           = new Gson();
+
+    private final String                     terminalId;
+    private final String                     runId;
+    private final Path                       terminalRasDirectory;
+    private final IConfidentialTextService   cts;
+    private final Executor                   executor;
+    private final boolean                    deltaArchive;
+    private final int                        batchSize;
+
+    private final ArrayBlockingQueue<Record> queue;
+    private final AtomicBoolean              drainScheduled = new AtomicBoolean();
+    private final AtomicLong                 recorded       = new AtomicLong();
+    private final AtomicLong                 dropped        = new AtomicLong();
+    private volatile int                     highWaterMark;
+
+    private final ArrayList<TerminalImage>   cachedImages   = new ArrayList<>();
+    private TerminalSize                     cachedSize;
+    private int                              rasTerminalSequence;
+    private volatile URL                     liveTerminalUrl;
+    private int                              liveTerminalSequence;
+
+    /**
+     * @param cts the confidential text service, or null if filtering is not required
+     * @param liveTerminalUrl the url of the live terminal, or null if there isn't one
+     * @param deltaArchive true to write the RAS files as a {@link DeltaTerminal}
+     */
+    public TerminalImageRecorder(String terminalId, String runId, Path terminalRasDirectory, IConfidentialTextService cts,
+            URL liveTerminalUrl, boolean deltaArchive, int capacity) {
+        this(terminalId, runId, terminalRasDirectory, cts, liveTerminalUrl, deltaArchive, capacity, getSharedExecutor());
+    }
+
+    public TerminalImageRecorder(String terminalId, String runId, Path terminalRasDirectory, IConfidentialTextService cts,
+            URL liveTerminalUrl, boolean deltaArchive, int capacity, Executor executor) {
+        this.terminalId = terminalId;
+        this.runId = runId;
+        this.terminalRasDirectory = terminalRasDirectory;
+        this.cts = cts;
+        this.liveTerminalUrl = liveTerminalUrl;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = executor;
+        this.deltaArchive = deltaArchive;
+        this.batchSize = deltaArchive ? DELTA_BATCH_SIZE : BATCH_SIZE;
+    }
+
+    private static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            // *** Each recorder drains on one thread at a time, idle threads time out
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(RECORDER_THREADS, RECORDER_THREADS, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "zos3270-terminal-recorder-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            sharedExecutor = executor;
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Queue an image to be recorded, never blocks
+     *
+     * @param image the image, must not be altered after it is recorded
+     * @param terminalSize the size of the terminal when the image was taken
+     * @return false if the queue was full and the image has been dropped
+     */
+    public boolean record(TerminalImage image, TerminalSize terminalSize) {
+        if (!this.queue.offer(new Record(image, terminalSize))) {
+            long drops = this.dropped.incrementAndGet();
+            if (drops == 1 || drops % DROP_LOG_EVERY == 0) {
+                logger.warn("Terminal " + this.terminalId + " recorder is full, " + drops + " images have been dropped");
+            }
+            return false;
+        }
+
+        this.recorded.incrementAndGet();
+        int depth = this.queue.size();
+        if (depth > this.highWaterMark) {
+            this.highWaterMark = depth;
+        }
+
+        if (this.drainScheduled.compareAndSet(false, true)) {
+            this.executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * Record everything that is waiting and write any partial batch to the RAS, returns once
+     * the images have been written
+     */
+    public synchronized void flush() {
+        processQueue();
+        writeRasBatch();
+
+        if (this.dropped.get() > 0) {
+            logger.warn("Terminal " + this.terminalId + " recorder dropped " + this.dropped.get() + " of "
+                    + (this.recorded.get() + this.dropped.get()) + " images, maximum queue depth was " + this.highWaterMark);
+        }
+    }
+
+    public long getRecordedCount() {
+        return this.recorded.get();
+    }
+
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    public int getHighWaterMark() {
+        return this.highWaterMark;
+    }
+
+    public boolean isLiveTerminalActive() {
+        return this.liveTerminalUrl != null;
+    }
+
+    private void drain() {
+        this.drainScheduled.set(false);
+        synchronized (this) {
+            processQueue();
+        }
+    }
+
+    private void processQueue() {
+        Record latest = null;
+        Record next;
+        while ((next = this.queue.poll()) != null) {
+            latest = next;
+            this.cachedImages.add(next.image);
+            this.cachedSize = next.terminalSize;
+            if (this.cachedImages.size() >= this.batchSize) {
+                writeRasBatch();
+            }
+        }
+
+        // *** The live terminal only shows the latest screen, so the images in between are skipped
+        if (latest != null && this.liveTerminalUrl != null) {
+            writeLiveTerminal(latest);
+        }
+    }
+
+    private void writeRasBatch() {
+        if (this.cachedImages.isEmpty()) {
+            return;
+        }
+
+        rasTerminalSequence++;
+
+        try {
+            Object rasTerminal;
+            String contentType;
+            if (this.deltaArchive) {
+                DeltaTerminalBuilder builder = new DeltaTerminalBuilder(this.terminalId, this.runId, rasTerminalSequence, this.cachedSize);
+                for (TerminalImage image : this.cachedImages) {
+                    builder.addImage(image);
+                }
+                rasTerminal = builder.build();
+                contentType = DeltaTerminal.CONTENT_TYPE;
+            } else {
+                Terminal terminal = new Terminal(this.terminalId, this.runId, rasTerminalSequence, this.cachedSize);
+                terminal.getImages().addAll(this.cachedImages);
+                rasTerminal = terminal;
+                contentType = CONTENT_TYPE;
+            }
+
+            String terminalFilename = this.terminalId + "-" + String.format("%05d", rasTerminalSequence) + ".gz";
+            Path terminalPath = terminalRasDirectory.resolve(terminalFilename);
+
+            try (GZIPOutputStream gos = new GZIPOutputStream(openRasFile(terminalPath, contentType))) {
+                writeJson(rasTerminal, gos);
+            }
+        } catch (Exception e) {
+            logger.error("Unable to write terminal cache to the RAS", e);
+            rasTerminalSequence--;
+            if (this.cachedImages.size() < this.batchSize * 10) {
+                return; // *** Try again with the next batch
+            }
+            this.dropped.addAndGet(this.cachedImages.size());
+        }
+
+        this.cachedImages.clear();
+    }
+
+    private void writeLiveTerminal(Record latest) {
+        try {
+            liveTerminalSequence++;
+            Terminal liveTerminal = new Terminal(this.terminalId, this.runId, liveTerminalSequence, latest.terminalSize);
+            liveTerminal.getImages().add(latest.image);
+
+            HttpURLConnection connection = (HttpURLConnection) this.liveTerminalUrl.openConnection();
+            connection.setRequestMethod("PUT");
+            connection.addRequestProperty("Content-Type", "application/json");
+            connection.setConnectTimeout(LIVE_TIMEOUT);
+            connection.setReadTimeout(LIVE_TIMEOUT);
+            connection.setDoInput(true);
+            connection.setDoOutput(true);
+            connection.connect();
+            try (OutputStream os = connection.getOutputStream()) {
+                writeJson(liveTerminal, os);
+            }
+            if (connection.getResponseCode() != 200) {
+                logger.warn("Unable to write live terminal due to " + connection.getResponseCode() + " - "
+                        + connection.getResponseMessage());
+                this.liveTerminalUrl = null;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to write live terminal image, image lost", e);
+            this.liveTerminalUrl = null;
+        }
+    }
+
+    /**
+     * Write the terminal as compact json streamed straight to the output, without false
+     * booleans and with the confidential text removed from each string
+     */
+    private void writeJson(Object terminal, OutputStream os) throws IOException {
+        Writer writer = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+        TerminalJsonWriter jsonWriter = new TerminalJsonWriter(writer, this.cts);
+        gson.toJson(terminal, terminal.getClass(), jsonWriter);
+        jsonWriter.flush();
+    }
+
+    protected OutputStream openRasFile(Path terminalPath, String contentType) throws IOException {
+        return Files.newOutputStream(terminalPath, new SetContentType(new ResultArchiveStoreContentType(contentType)),
+                StandardOpenOption.CREATE);
+    }
+
+    /**
+     * Holds back each property name until its value is known, so that false booleans can be
+     * left out as {@link dev.galasa.zos3270.spi.Zos3270TerminalImpl#stripFalseBooleans} does for a json tree
+     */
+    private static class TerminalJsonWriter extends JsonWriter {
+
+        private final IConfidentialTextService cts;
+        private String                         pendingName;
+
+        private TerminalJsonWriter(Writer writer, IConfidentialTextService cts) {
+            super(writer);
+            this.cts = cts;
+        }
+
+        @Override
+        public JsonWriter name(String name) throws IOException {
+            if (this.pendingName != null) {
+                throw new IllegalStateException("Property " + this.pendingName + " has no value");
+            }
+            this.pendingName = name;
+            return this;
+        }
+
+        @Override
+        public JsonWriter value(boolean value) throws IOException {
+            if (!value && this.pendingName != null) {
+                this.pendingName = null;
+                return this;
+            }
+            writePendingName();
+            return super.value(value);
+        }
+
+        @Override
+        public JsonWriter value(Boolean value) throws IOException {
+            if (value == null) {
+                return nullValue();
+            }
+            return value(value.booleanValue());
+        }
+
+        @Override
+        public JsonWriter value(String value) throws IOException {
+            writePendingName();
+            if (value != null && this.cts != null) {
+                value = this.cts.removeConfidentialText(value);
+            }
+            return super.value(value);
+        }
+
+        @Override
+        public JsonWriter nullValue() throws IOException {
+            if (this.pendingName != null && !getSerializeNulls()) {
+                this.pendingName = null;
+                return this;
+            }
+            writePendingName();
+            return super.nullValue();
+        }
+
+        @Override
+        public JsonWriter value(long value) throws IOException {
+            writePendingName();
+            return super.value(value);
+        }
+
+        @Override
+        public JsonWriter value(double value) throws IOException {
+            writePendingName();
+            return super.value(value);
+        }
+
+        @Override
+        public JsonWriter value(Number value) throws IOException {
+            writePendingName();
+            return super.value(value);
+        }
+
+        @Override
+        public JsonWriter beginArray() throws IOException {
+            writePendingName();
+            return super.beginArray();
+        }
+
+        @Override
+        public JsonWriter beginObject() throws IOException {
+            writePendingName();
+            return super.beginObject();
+        }
+
+        private void writePendingName() throws IOException {
+            if (this.pendingName != null) {
+                String name = this.pendingName;
+                this.pendingName = null;
+                super.name(name);
+            }
+        }
+    }
+
+    private static class Record {
+        private final TerminalImage image;
+        private final TerminalSize  terminalSize;
+
+        private Record(TerminalImage image, TerminalSize terminalSize) {
+            this.image = image;
+            this.terminalSize = terminalSize;
+        }
+    }
+
+}
@@ -34,6 +34,11 @@ public class Field {
         this.text = new char[0];
     }
 
+    protected Field(int start, BufferStartOfField sf, char[] text) {
+        this(start, sf);
+        this.text = text;
+    }
+
     public Field() {
         this.start = -1;
         this.fieldProtected = false;
@@ -45,6 +50,11 @@ public class Field {
         this.text = new char[0];
     }
 
+    protected Field(char[] text) {
+        this();
+        this.text = text;
+    }
+
     protected void appendChar(char newChar) {
         char[] newText = Arrays.copyOf(this.text, this.text.length + 1);
         newText[newText.length - 1] = newChar;
@@ -82,6 +92,10 @@ public class Field {
         return new String(this.text).contains(searchText);
     }
 
+    protected char[] getText() {
+        return this.text;
+    }
+
     public int getStart() {
         if (this.start == -1) {
             return 0;
@@ -140,16 +154,11 @@ public class Field {
         return otext.getBytes(ebcdic);
     }
 
-    public Character[] getFieldCharsWithNulls() {
-        Character[] newChars = new Character[text.length];
-        for (int i = 0; i < text.length; i++) {
-            if (text[i] == 0) {
-                newChars[i] = null;
-            } else {
-                newChars[i] = text[i];
-            }
-        }
-        return newChars;
+    /**
+     * @return a copy of the field characters, with 0 for the nulls
+     */
+    public char[] getFieldCharsWithNulls() {
+        return text.clone();
     }
 
     public boolean isDummyField() {
@@ -8,9 +8,11 @@ package dev.galasa.zos3270.spi;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
@@ -69,7 +71,7 @@ import dev.galasa.zos3270.internal.datastream.StructuredField;
 import dev.galasa.zos3270.internal.datastream.StructuredField3270DS;
 import dev.galasa.zos3270.internal.datastream.StructuredFieldReadPartition;
 import dev.galasa.zos3270.internal.datastream.WriteControlCharacter;
-import dev.galasa.zos3270.internal.terminal.ScreenUpdateTextListener;
+import dev.galasa.zos3270.internal.terminal.FieldTextMatcher;
 
 /**
  * Screen representation of the 3270 terminal
@@ -86,7 +88,7 @@ public class Screen {
     private final Network                           network;
 
     private boolean                                 usingAlternate;
-    private IBufferHolder[]                         buffer;
+    private ScreenBuffer                            buffer;
     private int                                     screenSize;
     private int                                     columns;
     private int                                     rows;
@@ -109,6 +111,12 @@ public class Screen {
 
     private AttentionIdentification                 lastAid = AttentionIdentification.NONE;
 
+    private final ArrayList<ConditionWaiter>        conditionWaiters = new ArrayList<>();
+
+    private Field[]                                 fieldIndex;
+    private String                                  flatScreen;
+    private int                                     flatScreenVersion;
+
     public Screen() throws TerminalInterruptedException {
         this(80, 24, null);
     }
@@ -193,12 +201,8 @@ public class Screen {
     }
 
     private void resetMdt() {
-        for(int i = 0; i < this.screenSize; i++) {
-            IBufferHolder bh = this.buffer[i];
-            if (bh instanceof BufferStartOfField) {
-                BufferStartOfField sof = (BufferStartOfField) bh;
-                sof.clearFieldModified();
-            }
+        for (int i = this.buffer.nextFieldStart(0); i >= 0; i = this.buffer.nextFieldStart(i + 1)) {
+            this.buffer.setFieldModified(i, false);
         }
     }
 
@@ -211,22 +215,18 @@ public class Screen {
             BufferAddress cursor = new BufferAddress(this.screenCursor);
             outboundBuffer.write(cursor.getCharRepresentation());
 
-            for(IBufferHolder bh : this.buffer) {
-                if (bh == null) {
+            for(int i = 0; i < this.screenSize; i++) {
+                if (this.buffer.isEmpty(i)) {
                     outboundBuffer.write(0);
-                } else if (bh instanceof BufferGraphicsEscape) {
-                    BufferGraphicsEscape bc = (BufferGraphicsEscape) bh;
+                } else if (this.buffer.isGraphicsEscape(i)) {
                     outboundBuffer.write(OrderGraphicsEscape.ID);
-                    outboundBuffer.write(bc.getFieldEbcdic());
-                } else if (bh instanceof BufferChar) {
-                    BufferChar bc = (BufferChar) bh;
-                    outboundBuffer.write(bc.getFieldEbcdic());
-                } else if (bh instanceof BufferStartOfField) {
-                    BufferStartOfField sf = (BufferStartOfField) bh;
-                    OrderStartField osf = new OrderStartField(sf.isProtected(), sf.isNumeric(), sf.isDisplay(), sf.isIntenseDisplay(), sf.isSelectorPen(), sf.isFieldModifed());
+                    outboundBuffer.write(this.buffer.getEbcdic(i));
+                } else if (this.buffer.isFieldStart(i)) {
+                    OrderStartField osf = new OrderStartField(this.buffer.isProtected(i), this.buffer.isNumeric(i), this.buffer.isDisplay(i),
+                            this.buffer.isIntenseDisplay(i), this.buffer.isSelectorPen(i), this.buffer.isFieldModified(i));
                     outboundBuffer.write(osf.getBytes());
                 } else {
-                    throw new DatastreamException("Unrecognised Buffer Holder - " + bh.getClass().getName());
+                    outboundBuffer.write(this.buffer.getEbcdic(i));
                 }
             }
             writeTrace(outboundBuffer);
@@ -281,17 +281,12 @@ public class Screen {
         // *** Locate the first StartOfField in the buffer, if absent, then unformatted,
         // send everything back.
 
-        int start = 0;
+        int start = this.buffer.firstFieldStart();
         int end = 0;
-        for (; start < buffer.length; start++) {
-            if (buffer[start] instanceof BufferStartOfField) {
-                break;
-            }
-        }
 
-        if (start >= buffer.length) { // indicates unfromatted, send it all
+        if (start < 0) { // indicates unfromatted, send it all
             start = 0;
-            end = buffer.length - 1;
+            end = this.screenSize - 1;
 
             // OrderSetBufferAddress sba = new OrderSetBufferAddress(new BufferAddress(0));
             // outboundBuffer.write(sba.getCharRepresentation());
@@ -299,32 +294,28 @@ public class Screen {
         } else { // formatted
             end = start - 1;
             if (end < 0) {
-                end = buffer.length - 1;
+                end = this.screenSize - 1;
             }
         }
 
         int pos = start;
         while (true) {
-            IBufferHolder bh = buffer[pos];
-            if (bh instanceof BufferStartOfField) {
-                BufferStartOfField bsf = (BufferStartOfField) bh;
-                fieldModified = bsf.isFieldModifed();
+            if (this.buffer.isFieldStart(pos)) {
+                fieldModified = this.buffer.isFieldModified(pos);
 
                 if (fieldModified) { // Send whether unprotected or not
                     OrderSetBufferAddress sba = new OrderSetBufferAddress(new BufferAddress(pos + 1));
                     outboundBuffer.write(sba.getCharRepresentation());
                 }
-            } else if (bh instanceof BufferGraphicsEscape) {
-                BufferGraphicsEscape bc = (BufferGraphicsEscape) bh;
+            } else if (this.buffer.isGraphicsEscape(pos)) {
                 if (fieldModified) {
                     outboundBuffer.write(OrderGraphicsEscape.ID);
-                    byte value = bc.getFieldEbcdic();
+                    byte value = this.buffer.getEbcdic(pos);
                     outboundBuffer.write(value);
                 }
-            } else if (bh instanceof BufferChar) {
-                BufferChar bc = (BufferChar) bh;
+            } else if (this.buffer.isCharacter(pos)) {
                 if (fieldModified) {
-                    byte value = bc.getFieldEbcdic();
+                    byte value = this.buffer.getEbcdic(pos);
                     if (value != 0) {
                         outboundBuffer.write(value);
                     }
@@ -336,7 +327,7 @@ public class Screen {
             }
 
             pos++;
-            if (pos >= buffer.length) {
+            if (pos >= this.screenSize) {
                 pos = 0;
             }
         }
@@ -493,6 +484,8 @@ public class Screen {
                 listener.screenUpdated(Direction.RECEIVED, null);
             }
         }
+
+        signalConditions();
     }
 
     public synchronized void erase() {
@@ -505,9 +498,7 @@ public class Screen {
             this.usingAlternate = false;
         }
 
-        for (int i = 0; i < buffer.length; i++) {
-            buffer[i] = null;
-        }
+        this.buffer.clear();
 
         this.screenCursor  = 0;
         this.workingCursor = 0;
@@ -528,9 +519,7 @@ public class Screen {
             this.usingAlternate = true;
         }
 
-        for (int i = 0; i < buffer.length; i++) {
-            buffer[i] = null;
-        }
+        this.buffer.clear();
 
         this.screenCursor  = 0;
         this.workingCursor = 0;
@@ -538,7 +527,8 @@ public class Screen {
 
     private void allocateBuffer() {
         this.screenSize = this.columns * this.rows;
-        this.buffer = new IBufferHolder[this.screenSize];        
+        this.buffer = new ScreenBuffer(this.screenSize);
+        this.flatScreen = null;
     }
 
     /**
@@ -567,9 +557,10 @@ public class Screen {
                     "Impossible RA end address " + endOfRepeat + ", screen size is " + screenSize);
         }
 
+        char repeatChar = order.getChar();
         boolean firstPosition = true;
         while (firstPosition || this.workingCursor != endOfRepeat) {
-            this.buffer[this.workingCursor] = new BufferChar(order.getChar());
+            this.buffer.setChar(this.workingCursor, repeatChar);
             if (endOfRepeat == this.screenSize && this.workingCursor == (this.screenSize - 1)) {
                 endOfRepeat = 0;
                 break;
@@ -589,7 +580,7 @@ public class Screen {
     }
 
     private void processSF(OrderStartField order) {
-        this.buffer[this.workingCursor] = new BufferStartOfField(this.workingCursor, order.isFieldProtected(),
+        this.buffer.setFieldStart(this.workingCursor, order.isFieldProtected(),
                 order.isFieldNumeric(), order.isFieldDisplay(), order.isFieldIntenseDisplay(),
                 order.isFieldSelectorPen(), order.isFieldModifed());
         incrementWorkingCursor();
@@ -598,53 +589,34 @@ public class Screen {
     private void processSFE(OrderStartFieldExtended order) {
         List<IAttribute> attributes = order.getAttributes();
 
-        BufferStartOfField bsf = null;
+        OrderStartField sf = null;
         for (IAttribute attr : attributes) {
             if (attr instanceof OrderStartField) {
-                OrderStartField sf = (OrderStartField) attr;
-                bsf = new BufferStartOfField(this.workingCursor, sf.isFieldProtected(), sf.isFieldNumeric(),
-                        sf.isFieldDisplay(), sf.isFieldIntenseDisplay(), sf.isFieldSelectorPen(), sf.isFieldModifed());
+                sf = (OrderStartField) attr;
             }
             // TODO add processing for character attributes
         }
 
-        if (bsf == null) {
-            bsf = new BufferStartOfField(this.workingCursor, false, false, true, false, false, false);
+        if (sf == null) {
+            this.buffer.setFieldStart(this.workingCursor, false, false, true, false, false, false);
+        } else {
+            this.buffer.setFieldStart(this.workingCursor, sf.isFieldProtected(), sf.isFieldNumeric(),
+                    sf.isFieldDisplay(), sf.isFieldIntenseDisplay(), sf.isFieldSelectorPen(), sf.isFieldModifed());
         }
-
-        this.buffer[this.workingCursor] = bsf;
         incrementWorkingCursor();
     }
 
     private void processEUA(OrderEraseUnprotectedToAddress order) {
         boolean charProtected = true;
-        IBufferHolder bh = this.buffer[this.workingCursor];
         // are we on a SF, if so take the protected setting
-        if (bh instanceof BufferStartOfField) {
-            charProtected = ((BufferStartOfField)bh).isProtected();
+        if (this.buffer.isFieldStart(this.workingCursor)) {
+            charProtected = this.buffer.isProtected(this.workingCursor);
         } else {
             // we have to go looking backwards for it
-            int searchCursor = this.workingCursor - 1;
-            if (searchCursor < 0) {
-                searchCursor = this.screenSize - 1;
-            }
-            boolean found = false;
-            while(searchCursor != this.workingCursor) {
-                bh = this.buffer[searchCursor];
-
-                if (bh instanceof BufferStartOfField) {
-                    charProtected = ((BufferStartOfField)bh).isProtected();
-                    found = true;
-                    break;
-                }
-
-                searchCursor--;
-                if (searchCursor < 0) {
-                    searchCursor = this.screenSize - 1;
-                }
-            }
-
-            if (!found) {
+            int searchCursor = this.buffer.owningFieldStart(this.workingCursor);
+            if (searchCursor >= 0) {
+                charProtected = this.buffer.isProtected(searchCursor);
+            } else {
                 // assume no fields, so unprotected;
                 charProtected = false;
             }
@@ -661,12 +633,11 @@ public class Screen {
 
         int eraseCursor = this.workingCursor;
         while(true) {
-            bh = this.buffer[eraseCursor];
-            if (bh instanceof BufferStartOfField) {
-                charProtected = ((BufferStartOfField)bh).isProtected();
+            if (this.buffer.isFieldStart(eraseCursor)) {
+                charProtected = this.buffer.isProtected(eraseCursor);
             } else {
                 if (!charProtected) {
-                    this.buffer[eraseCursor] = null;
+                    this.buffer.setEmpty(eraseCursor);
                 }
             }
 
@@ -689,51 +660,42 @@ public class Screen {
     }
 
     private void processNewLine() {
-        this.buffer[this.workingCursor] = new BufferNewLine();
+        this.buffer.setControl(this.workingCursor, ScreenBuffer.NEW_LINE, OrderNewLine.ID);
         incrementWorkingCursor();
     }
 
     private void processFormFeed() {
-        this.buffer[this.workingCursor] = new BufferFormFeed();
+        this.buffer.setControl(this.workingCursor, ScreenBuffer.FORM_FEED, OrderFormFeed.ID);
         incrementWorkingCursor();
     }
 
     private void processCarrageReturn() {
-        this.buffer[this.workingCursor] = new BufferCarrageReturn();
+        this.buffer.setControl(this.workingCursor, ScreenBuffer.CARRIAGE_RETURN, OrderCarrageReturn.ID);
         incrementWorkingCursor();
     }
 
     private void processEndOfMedium() {
-        this.buffer[this.workingCursor] = new BufferEndOfMedium();
+        this.buffer.setControl(this.workingCursor, ScreenBuffer.END_OF_MEDIUM, OrderEndOfMedium.ID);
         incrementWorkingCursor();
     }
 
     private void processGraphicsEscape(OrderGraphicsEscape order) {
-        this.buffer[this.workingCursor] = new BufferGraphicsEscape(order.getByte());
+        this.buffer.setGraphicsEscape(this.workingCursor, order.getByte());
         incrementWorkingCursor();
     }
 
     private void processText(OrderText order) {
         String text = order.getText();
         for (int i = 0; i < text.length(); i++) {
-            this.buffer[this.workingCursor] = new BufferChar(text.charAt(i));
+            this.buffer.setChar(this.workingCursor, text.charAt(i));
             incrementWorkingCursor();
         }
 
     }
 
     public String printScreen() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < this.buffer.length; i++) {
-            if (this.buffer[i] == null) {
-                sb.append(" ");
-            } else {
-                sb.append(this.buffer[i].getStringWithoutNulls());
-            }
-        }
-
         StringBuilder screenSB = new StringBuilder();
-        String screenString = sb.toString();
+        String screenString = retrieveFlatScreen();
         for (int i = 0; i < this.screenSize; i += this.columns) {
             screenSB.append(screenString.substring(i, i + this.columns));
             screenSB.append('\n');
@@ -745,17 +707,8 @@ public class Screen {
         int cursorRow = screenCursor / columns;
         int cursorCol = screenCursor % columns;
 
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < this.buffer.length; i++) {
-            if (this.buffer[i] == null) {
-                sb.append(" ");
-            } else {
-                sb.append(this.buffer[i].getStringWithoutNulls());
-            }
-        }
-
         StringBuilder screenSB = new StringBuilder();
-        String screenString = sb.toString();
+        String screenString = retrieveFlatScreen();
         int row = 0;
         for (int i = 0; i < this.screenSize; i += this.columns) {
             screenSB.append("=|");
@@ -811,60 +764,55 @@ public class Screen {
         return operator.toString();
     }
 
-    public String retrieveFlatScreen() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < this.buffer.length; i++) {
-            if (this.buffer[i] == null) {
-                sb.append(" ");
-            } else {
-                sb.append(this.buffer[i].getStringWithoutNulls());
-            }
+    public synchronized String retrieveFlatScreen() {
+        if (this.flatScreen == null || this.flatScreenVersion != this.buffer.getVersion()) {
+            this.flatScreen = this.buffer.getFlatText();
+            this.flatScreenVersion = this.buffer.getVersion();
         }
-        return sb.toString();
+        return this.flatScreen;
     }
 
 
 
+    /**
+     * Return the fields on the screen.  The field index is maintained between calls,
+     * only the fields covering buffer positions that have changed are rebuilt, unless
+     * fields have been added or removed, in which case the index is rebuilt in full
+     * 
+     * @return the fields
+     */
     public synchronized @NotNull Field[] calculateFields() {
-        ArrayList<Field> fields = new ArrayList<>();
+        return fieldIndex().clone();
+    }
 
-        Field currentField = null;
+    private Field[] fieldIndex() {
+        if (this.fieldIndex == null || this.buffer.isRestructured()) {
+            this.fieldIndex = buildFieldIndex();
+        } else if (this.buffer.getDirtyEnd() >= 0) {
+            updateFieldIndex();
+        }
 
-        // *** Check to see if the screen is wrapped or unformatted
-        if (!(this.buffer[0] instanceof BufferStartOfField)) {
-            BufferStartOfField wrapSoField = null;
-            for (int i = this.buffer.length - 1; i >= 0; i--) {
-                IBufferHolder bh = this.buffer[i];
-                if (bh instanceof BufferStartOfField) {
-                    wrapSoField = (BufferStartOfField) bh;
-                    break;
-                }
-            }
+        this.buffer.resetChanges();
+        return this.fieldIndex;
+    }
 
-            if (wrapSoField == null) {
-                currentField = new Field();
-            } else {
-                currentField = new Field(-1, wrapSoField);
-            }
-        }
+    private Field[] buildFieldIndex() {
+        ArrayList<Field> fields = new ArrayList<>();
 
-        for (int i = 0; i < this.buffer.length; i++) {
-            IBufferHolder bh = this.buffer[i];
-            if (bh == null) {
-                currentField.appendChar((char) 0x00); // NOSONAR, can't be null
-            } else if (bh instanceof BufferStartOfField) {
-                if (currentField != null) {
-                    fields.add(currentField);
-                }
-                currentField = new Field(i, (BufferStartOfField) bh);
-            } else if (bh instanceof BufferChar) {
-                currentField.appendChar(((BufferChar) bh).getChar());// NOSONAR, can't be null
-            } else {
-                throw new UnsupportedOperationException("Unrecognised buffer type " + bh.getClass().getName());
-            }
+        // *** Check to see if the screen is wrapped or unformatted
+        int firstSoField = this.buffer.firstFieldStart();
+        if (firstSoField < 0) {
+            fields.add(buildField(-1, -1, 0, this.screenSize));
+        } else if (firstSoField > 0) {
+            fields.add(buildField(-1, this.buffer.lastFieldStart(), 0, firstSoField));
         }
-        if (currentField != null) {
-            fields.add(currentField);
+
+        int fieldStart = firstSoField;
+        while (fieldStart >= 0) {
+            int nextFieldStart = this.buffer.nextFieldStart(fieldStart + 1);
+            int fieldEnd = (nextFieldStart < 0) ? this.screenSize : nextFieldStart;
+            fields.add(buildField(fieldStart, fieldStart, fieldStart + 1, fieldEnd));
+            fieldStart = nextFieldStart;
         }
 
         // *** If the SBA were not in order, possibility that the safeguard first field
@@ -878,6 +826,43 @@ public class Screen {
         return fields.toArray(new Field[fields.size()]);
     }
 
+    /**
+     * Only characters have changed since the index was built, so the field boundaries
+     * are unchanged, just rebuild the fields that overlap the dirty region
+     */
+    private void updateFieldIndex() {
+        int dirtyStart = this.buffer.getDirtyStart();
+        int dirtyEnd = this.buffer.getDirtyEnd();
+        for (int i = 0; i < this.fieldIndex.length; i++) {
+            Field field = this.fieldIndex[i];
+            int fieldEnd = (i + 1 < this.fieldIndex.length) ? this.fieldIndex[i + 1].getStart() : this.screenSize;
+            if (field.getStart() > dirtyEnd) {
+                break;
+            }
+            if (fieldEnd <= dirtyStart) {
+                continue;
+            }
+
+            if (!field.isDummyField()) {
+                this.fieldIndex[i] = buildField(field.getStart(), field.getStart(), field.getStart() + 1, fieldEnd);
+            } else {
+                this.fieldIndex[i] = buildField(-1, this.buffer.lastFieldStart(), 0, fieldEnd);
+            }
+        }
+    }
+
+    /**
+     * @param start - the field start, -1 for the field wrapped from the end of the screen or an unformatted screen
+     * @param sfPos - the start of field the attributes are taken from, -1 if unformatted
+     */
+    private Field buildField(int start, int sfPos, int from, int to) {
+        char[] text = this.buffer.getFieldText(from, to);
+        if (sfPos < 0) {
+            return new Field(text);
+        }
+        return new Field(start, this.buffer.getStartOfField(sfPos), text);
+    }
+
     public void searchFieldContaining(String text) throws TextNotFoundException {
         for (Field field : calculateFields()) {
             if (field.containsText(text)) {
@@ -889,29 +874,47 @@ public class Screen {
     }
 
     public int searchFieldContaining(@NotNull String[] okText, String[] errorText) throws TextNotFoundException, ErrorTextFoundException {
-        if (errorText != null) {
-            for(int i = 0; i < errorText.length; i++) {
-                for (Field field : calculateFields()) {
-                    if (field.containsText(errorText[i])) {
-                        throw new ErrorTextFoundException("Found error text '" + errorText[i] + "' on screen", i);
-                    }
-                }
-            }
+        return searchFieldContaining(new FieldTextMatcher(okText, errorText));
+    }
+
+    /**
+     * Search all the fields for the ok and error texts of the matcher in a single pass
+     * 
+     * @param matcher - the prebuilt matcher
+     * @return the index of the first ok text found
+     * @throws TextNotFoundException if none of the ok texts are on the screen
+     * @throws ErrorTextFoundException if any of the error texts are on the screen
+     */
+    public synchronized int searchFieldContaining(@NotNull FieldTextMatcher matcher) throws TextNotFoundException, ErrorTextFoundException {
+        boolean[] found = scanFields(matcher);
+
+        int error = matcher.firstErrorFound(found);
+        if (error >= 0) {
+            throw errorTextFound(matcher, error);
         }
 
-        for(int i = 0; i < okText.length; i++) {
-            for (Field field : calculateFields()) {
-                if (field.containsText(okText[i])) {
-                    return i;
-                }
-            }
+        int ok = matcher.firstOkFound(found);
+        if (ok >= 0) {
+            return ok;
         }
 
         throw new TextNotFoundException("Unable to locate text on sreen");
     }
 
-    public boolean isTextInField(String text) {
-        for (Field field : calculateFields()) {
+    synchronized boolean[] scanFields(FieldTextMatcher matcher) {
+        boolean[] found = matcher.newResult();
+        for (Field field : fieldIndex()) {
+            matcher.scan(field.getText(), found);
+        }
+        return found;
+    }
+
+    private static ErrorTextFoundException errorTextFound(FieldTextMatcher matcher, int error) {
+        return new ErrorTextFoundException("Found error text '" + matcher.getErrorText()[error] + "' on screen", error);
+    }
+
+    public synchronized boolean isTextInField(String text) {
+        for (Field field : fieldIndex()) {
             if (field.containsText(text)) {
                 return true;
             }
@@ -920,6 +923,77 @@ public class Screen {
         return false;
     }
 
+    public synchronized boolean isKeyboardLocked() {
+        return this.keyboardLockSet;
+    }
+
+    /**
+     * The fields the {@link ScreenCondition}s are evaluated against, not to be altered
+     */
+    Field[] currentFields() {
+        return fieldIndex();
+    }
+
+    /**
+     * Wait for a condition to be met by the screen.  The condition is evaluated now and
+     * then once after each update from the host, the waiting thread is only woken when
+     * the condition is met or the wait times out.
+     * 
+     * @param condition - the condition to wait for
+     * @param timeoutInMilliseconds - the maximum time to wait
+     * @return true if the condition was met, false if the wait timed out
+     * @throws TerminalInterruptedException
+     */
+    public boolean waitForCondition(@NotNull ScreenCondition condition, long timeoutInMilliseconds) throws TerminalInterruptedException {
+        ConditionWaiter waiter = new ConditionWaiter(condition);
+        synchronized (this) {
+            if (condition.isSatisfied(this)) {
+                return true;
+            }
+            this.conditionWaiters.add(waiter);
+        }
+
+        try {
+            waiter.latch.await(timeoutInMilliseconds, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TerminalInterruptedException("Wait for condition was interrupted", e);
+        } finally {
+            synchronized (this) {
+                this.conditionWaiters.remove(waiter);
+            }
+        }
+
+        if (waiter.failure != null) {
+            throw waiter.failure;
+        }
+
+        synchronized (this) {
+            // *** Evaluate again under the lock, in case of an update between the wake up and the timeout
+            return waiter.satisfied || condition.isSatisfied(this);
+        }
+    }
+
+    private void signalConditions() {
+        if (this.conditionWaiters.isEmpty()) {
+            return;
+        }
+
+        Iterator<ConditionWaiter> waiters = this.conditionWaiters.iterator();
+        while (waiters.hasNext()) {
+            ConditionWaiter waiter = waiters.next();
+            try {
+                waiter.satisfied = waiter.condition.isSatisfied(this);
+            } catch (RuntimeException e) {
+                waiter.failure = e;
+            }
+            if (waiter.satisfied || waiter.failure != null) {
+                waiters.remove();
+                waiter.latch.countDown();
+            }
+        }
+    }
+
     /**
      * Wait on the keyboard being free
      * 
@@ -943,19 +1017,20 @@ public class Screen {
     }
 
     public int waitForTextInField(String[] ok, String[] error, long timeoutInMilliseconds) throws TerminalInterruptedException, TextNotFoundException, ErrorTextFoundException, Zos3270Exception {
-        int foundIndex = -1;
-    	try {
-        	foundIndex = ScreenUpdateTextListener.waitForText(this, ok, error, timeoutInMilliseconds);
-            if (foundIndex < 0) {
-                if (ok != null && ok.length == 1 && error == null) {
-                    throw new TextNotFoundException(CANT_FIND_TEXT + ok[0] + "'");
-                }
-                throw new TextNotFoundException("Unable to find a field containing any of the request text");
+        ScreenCondition.FieldText condition = new ScreenCondition.FieldText(new FieldTextMatcher(ok, error));
+        waitForCondition(condition, timeoutInMilliseconds);
+
+        if (condition.getErrorFound() >= 0) {
+            throw errorTextFound(condition.getMatcher(), condition.getErrorFound());
+        }
+
+        if (condition.getOkFound() < 0) {
+            if (ok != null && ok.length == 1 && error == null) {
+                throw new TextNotFoundException(CANT_FIND_TEXT + ok[0] + "'");
             }
-        } catch(InterruptedException e) {
-            throw new TerminalInterruptedException("Wait for text was interrupted", e);
+            throw new TextNotFoundException("Unable to find a field containing any of the request text");
         }
-        return foundIndex;
+        return condition.getOkFound();
     }
 
 
@@ -981,40 +1056,25 @@ public class Screen {
             throw new KeyboardLockedException("Unable to move cursor as keyboard is locked");
         }
 
-        if (buffer[screenCursor] != null && !(buffer[screenCursor] instanceof BufferChar)) {
+        if (this.buffer.isFieldStart(screenCursor)) {
             throw new FieldNotFoundException("Unable to type where the cursor is pointing to - " + this.screenCursor);
         }
 
-        BufferStartOfField sf = null;
-        int sfPos = screenCursor - 1;
-        if (sfPos < 0) {
-            sfPos = buffer.length - 1;
-        }
-        while(sfPos != screenCursor) {
-            if (buffer[sfPos] instanceof BufferStartOfField) {
-                sf = (BufferStartOfField) buffer[sfPos];
-                break;
-            }
-
-            sfPos--;
-            if (sfPos < 0) {
-                sfPos = buffer.length - 1;
-            }
-        }
+        int sfPos = this.buffer.owningFieldStart(screenCursor);
 
         // *** if no field found, assume unprotected
-        if (sf != null && sf.isProtected()) {
+        if (sfPos >= 0 && this.buffer.isProtected(sfPos)) {
             throw new FieldNotFoundException("Unable to type where the cursor is pointing to - " + screenCursor);
         }
 
         //*** Set this and following characters to null
         int pos = this.screenCursor;
         while(true) {
-            if (!(buffer[pos] instanceof BufferChar)) {
+            if (!this.buffer.isCharacter(pos)) {
                 break;
             }
 
-            buffer[pos] = new BufferChar((char) 0);
+            this.buffer.setChar(pos, (char) 0);
             pos++;
             if (pos >= this.screenSize) {
                 pos = 0;
@@ -1025,8 +1085,8 @@ public class Screen {
             }
         }
 
-        if (sf != null) {
-            sf.setFieldModified();
+        if (sfPos >= 0) {
+            this.buffer.setFieldModified(sfPos, true);
         }
     }
 
@@ -1037,23 +1097,16 @@ public class Screen {
         }
 
         boolean unprotected = false;
-        BufferStartOfField startOfFieldUnprotected = null;
+        int startOfFieldUnprotected = -1;
 
         // *** Check to see if the screen is wrapped or unformatted
-        if (!(this.buffer[0] instanceof BufferStartOfField)) {
-            BufferStartOfField wrapSoField = null;
-            for (int i = this.buffer.length - 1; i >= 0; i--) {
-                IBufferHolder bh = this.buffer[i];
-                if (bh instanceof BufferStartOfField) {
-                    wrapSoField = (BufferStartOfField) bh;
-                    break;
-                }
-            }
+        if (!this.buffer.isFieldStart(0)) {
+            int wrapSoField = this.buffer.lastFieldStart();
 
-            if (wrapSoField == null) {
+            if (wrapSoField < 0) {
                 unprotected = true;  // unformatted, screen, so all unprotected
             } else {
-                unprotected = !wrapSoField.isProtected();
+                unprotected = !this.buffer.isProtected(wrapSoField);
                 startOfFieldUnprotected = wrapSoField;
             }
         }
@@ -1061,21 +1114,18 @@ public class Screen {
 
 
         for(int i = 0; i < this.screenSize; i++) {
-            IBufferHolder bh = this.buffer[i];
-
-            if (bh instanceof BufferStartOfField) {
-                BufferStartOfField sof = (BufferStartOfField) bh;
-                unprotected = !sof.isProtected();
+            if (this.buffer.isFieldStart(i)) {
+                unprotected = !this.buffer.isProtected(i);
                 if (unprotected) {
-                    startOfFieldUnprotected = sof;
+                    startOfFieldUnprotected = i;
                 } else {
-                    startOfFieldUnprotected = null;
+                    startOfFieldUnprotected = -1;
                 }
             } else {
                 if (unprotected) {
-                    this.buffer[i] = null;
-                    if (startOfFieldUnprotected != null) {
-                        startOfFieldUnprotected.setFieldModified();
+                    this.buffer.setEmpty(i);
+                    if (startOfFieldUnprotected >= 0) {
+                        this.buffer.setFieldModified(startOfFieldUnprotected, true);
                     }
                 }
             }
@@ -1092,9 +1142,8 @@ public class Screen {
         int startPosition = this.screenCursor;
         boolean foundUnprotectedField = false;
 
-        IBufferHolder sfCheck = this.buffer[this.screenCursor];    
-        if (sfCheck instanceof BufferStartOfField) {
-            foundUnprotectedField = !((BufferStartOfField)sfCheck).isProtected();
+        if (this.buffer.isFieldStart(this.screenCursor)) {
+            foundUnprotectedField = !this.buffer.isProtected(this.screenCursor);
         }
         while(true) {
             // advance the cursor
@@ -1104,19 +1153,14 @@ public class Screen {
             }
 
             // Get the entry at this position
-            IBufferHolder previousBuffer = this.buffer[this.screenCursor];
-            if (previousBuffer == null || previousBuffer instanceof BufferChar) {
+            if (!this.buffer.isFieldStart(this.screenCursor)) {
                 // if this is a character and we are in an unprotected field, use it
                 if (foundUnprotectedField) {
                     return;
                 }
-            } else  if (previousBuffer instanceof BufferStartOfField) {
-                // we have a start of field
-                BufferStartOfField sof = (BufferStartOfField) previousBuffer;
-                // record if it is unprotected or not
-                foundUnprotectedField = !sof.isProtected();
             } else {
-                throw new FieldNotFoundException("Unrecognised buffer type at pos " + this.screenCursor);
+                // we have a start of field, record if it is unprotected or not
+                foundUnprotectedField = !this.buffer.isProtected(this.screenCursor);
             }
 
             if (this.screenCursor == startPosition) {
@@ -1144,15 +1188,13 @@ public class Screen {
             }
 
             // Get the entry in the previous position
-            IBufferHolder previousBuffer = this.buffer[previousPositionInBuffer];
-            if (previousBuffer == null || previousBuffer instanceof BufferChar) {
+            if (!this.buffer.isFieldStart(previousPositionInBuffer)) {
                 // if it is null or a character, mark position as the last valid position whether unprotected or not
                 lastCharField = previousPositionInBuffer;
-            } else  if (previousBuffer instanceof BufferStartOfField) {
+            } else {
                 // we have a start of field
-                BufferStartOfField sof = (BufferStartOfField) previousBuffer;
                 //if it is protected, invalidate the last valid char position
-                if (sof.isProtected()) {
+                if (this.buffer.isProtected(previousPositionInBuffer)) {
                     lastCharField = -1;
                 } else {
                     // as unprotected field,  indicate that there is atleast one on the screen
@@ -1163,8 +1205,6 @@ public class Screen {
                         return;
                     }
                 }
-            } else {
-                throw new FieldNotFoundException("Unrecognised buffer type at pos " + previousPositionInBuffer);
             }
 
             this.screenCursor = previousPositionInBuffer;
@@ -1324,29 +1364,14 @@ public class Screen {
 
         int position = this.screenCursor;
 
-        if (buffer[position] != null && !(buffer[position] instanceof BufferChar)) {
+        if (this.buffer.isFieldStart(position)) {
             throw new FieldNotFoundException("Unable to type where the cursor is pointing to - " + this.screenCursor);
         }
 
-        BufferStartOfField sf = null;
-        int sfPos = position - 1;
-        if (sfPos < 0) {
-            sfPos = buffer.length - 1;
-        }
-        while(sfPos != position) {
-            if (buffer[sfPos] instanceof BufferStartOfField) {
-                sf = (BufferStartOfField) buffer[sfPos];
-                break;
-            }
-
-            sfPos--;
-            if (sfPos < 0) {
-                sfPos = buffer.length - 1;
-            }
-        }
+        int sfPos = this.buffer.owningFieldStart(position);
 
         // *** if no field found, assume unprotected
-        if (sf != null && sf.isProtected()) {
+        if (sfPos >= 0 && this.buffer.isProtected(sfPos)) {
             throw new FieldNotFoundException("Unable to type where the cursor is pointing to - " + position);
         }
 
@@ -1359,15 +1384,15 @@ public class Screen {
         }
 
         while(true) {
-            this.buffer[position - 1] = this.buffer[position];
-            this.buffer[position] = null;
+            this.buffer.copy(position, position - 1);
+            this.buffer.setEmpty(position);
 
             position++;
             if (position >= this.screenSize) {
                 break;
             }
 
-            if (buffer[position] != null && !(buffer[position] instanceof BufferChar)) {
+            if (this.buffer.isFieldStart(position)) {
                 break;
             }
         }
@@ -1447,29 +1472,14 @@ public class Screen {
             throw new KeyboardLockedException("Unable to type as keyboard is locked");
         }
 
-        if (buffer[position] != null && !(buffer[position] instanceof BufferChar)) {
+        if (this.buffer.isFieldStart(position)) {
             throw new FieldNotFoundException("Unable to type where the cursor is pointing to - " + position);
         }
 
-        BufferStartOfField sf = null;
-        int sfPos = position - 1;
-        if (sfPos < 0) {
-            sfPos = buffer.length - 1;
-        }
-        while(sfPos != position) {
-            if (buffer[sfPos] instanceof BufferStartOfField) {
-                sf = (BufferStartOfField) buffer[sfPos];
-                break;
-            }
-
-            sfPos--;
-            if (sfPos < 0) {
-                sfPos = buffer.length - 1;
-            }
-        }
+        int sfPos = this.buffer.owningFieldStart(position);
 
         // *** if no field found, assume unprotected
-        if (sf != null && sf.isProtected()) {
+        if (sfPos >= 0 && this.buffer.isProtected(sfPos)) {
             throw new FieldNotFoundException("Unable to type where the cursor is pointing to - " + position);
         }
 
@@ -1478,16 +1488,15 @@ public class Screen {
         }
 
         for (int i = 0; i < text.length(); i++) {
-            IBufferHolder bh = buffer[position];
-            if (bh != null && !(bh instanceof BufferChar)) {
+            if (this.buffer.isFieldStart(position)) {
                 throw new FieldNotFoundException(
                         "Unable to type where the cursor is pointing to - " + position);
             }
 
-            buffer[position] = new BufferChar(text.charAt(i));
+            this.buffer.setChar(position, text.charAt(i));
 
-            if (sf != null) {
-                sf.setFieldModified();
+            if (sfPos >= 0) {
+                this.buffer.setFieldModified(sfPos, true);
             }
 
             // We have successfully typed a character, so make sure the cursor is positioned
@@ -1501,17 +1510,15 @@ public class Screen {
                 }
 
                 this.screenCursor = position;
-                bh = buffer[position];
 
-                if (unprotected && (bh == null || (bh instanceof BufferChar))) {
+                if (unprotected && !this.buffer.isFieldStart(position)) {
                     break;
                 }
 
-                if (bh != null && (bh instanceof BufferStartOfField)) {
-                    BufferStartOfField sof = (BufferStartOfField) bh;
-                    unprotected = !sof.isProtected();
+                if (this.buffer.isFieldStart(position)) {
+                    unprotected = !this.buffer.isProtected(position);
                     if (unprotected) {
-                        sf = sof;
+                        sfPos = position;
                     }
                 }
             }
@@ -1547,6 +1554,8 @@ public class Screen {
 
             this.lastAid = aid;
 
+            signalConditions();
+
             return outboundBuffer.toByteArray();
         } catch (IOException e) {
             throw new DatastreamException("Unable to generate outbound datastream", e);
@@ -1570,15 +1579,15 @@ public class Screen {
     }
 
     public void setBuffer(IBufferHolder[] newBuffer) {
-        for (int i = 0; i < this.buffer.length && i < newBuffer.length; i++) {
-            this.buffer[i] = newBuffer[i];
+        for (int i = 0; i < this.screenSize && i < newBuffer.length; i++) {
+            this.buffer.setHolder(i, newBuffer[i]);
         }
     }
 
     public void setBuffer(int col, int row, String text) {
         int pos = (row * columns) + col;
         for (int i = 0; i < text.length(); i++) {
-            buffer[pos] = new BufferChar(text.charAt(i));
+            this.buffer.setChar(pos, text.charAt(i));
             pos++;
         }
     }
@@ -1586,7 +1595,7 @@ public class Screen {
     public void nullify(int col, int row, int len) {
         int pos = (row * columns) + col;
         for (int i = 0; i < len; i++) {
-            buffer[pos] = null;
+            this.buffer.setEmpty(pos);
             pos++;
         }
     }
@@ -1653,8 +1662,8 @@ public class Screen {
     }
 
     public synchronized boolean isClearScreen() {
-        for(IBufferHolder bh : buffer) {
-            if (bh != null) {
+        for(int i = 0; i < this.screenSize; i++) {
+            if (!this.buffer.isEmpty(i)) {
                 return false;
             }
         }
@@ -1662,4 +1671,15 @@ public class Screen {
         return true;
     }
 
+    private static class ConditionWaiter {
+        private final ScreenCondition     condition;
+        private final CountDownLatch      latch = new CountDownLatch(1);
+        private volatile boolean          satisfied;
+        private volatile RuntimeException failure;
+
+        private ConditionWaiter(ScreenCondition condition) {
+            this.condition = condition;
+        }
+    }
+
 }
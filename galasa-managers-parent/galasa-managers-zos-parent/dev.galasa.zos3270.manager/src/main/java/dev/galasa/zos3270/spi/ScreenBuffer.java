@@ -0,0 +1,369 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.spi;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The presentation space of the {@link Screen}, held as parallel primitive arrays rather than
+ * an object per buffer position.  Each position has a type, the decoded character and an
+ * attribute byte, which holds the field attributes for a start of field and the EBCDIC code
+ * for graphics escapes and control characters.  Field starts are also kept in a bitmap so
+ * the owning field of a position can be located without walking the buffer.
+ *
+ * Changes are tracked as a dirty range so the {@link Screen} can rebuild only the fields
+ * that have changed.
+ *
+ * Not thread safe, access is controlled by the {@link Screen}.
+ */
+class ScreenBuffer {
+
+    static final byte            EMPTY           = 0;
+    static final byte            CHARACTER       = 1;
+    static final byte            FIELD_START     = 2;
+    static final byte            GRAPHICS_ESCAPE = 3;
+    static final byte            NEW_LINE        = 4;
+    static final byte            FORM_FEED       = 5;
+    static final byte            CARRIAGE_RETURN = 6;
+    static final byte            END_OF_MEDIUM   = 7;
+
+    private static final byte    PROTECTED       = 0x01;
+    private static final byte    NUMERIC         = 0x02;
+    private static final byte    DISPLAY         = 0x04;
+    private static final byte    INTENSE         = 0x08;
+    private static final byte    SELECTOR_PEN    = 0x10;
+    private static final byte    MODIFIED        = 0x20;
+
+    private static final Charset ebcdic          = Charset.forName("Cp037");
+    private static final byte[]  ebcdicLatin     = new byte[256];
+
+    static {
+        byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        String decoded = new String(all, ebcdic);
+        for (int i = 0; i < decoded.length(); i++) {
+            char c = decoded.charAt(i);
+            if (c < ebcdicLatin.length) {
+                ebcdicLatin[c] = (byte) i;
+            }
+        }
+    }
+
+    private final int            size;
+    private final byte[]         type;
+    private final char[]         text;
+    private final byte[]         attribute;
+    private final BitSet         fieldStarts;
+
+    private int                  version;
+    private boolean              restructured    = true;
+    private int                  dirtyStart      = Integer.MAX_VALUE;
+    private int                  dirtyEnd        = -1;
+
+    ScreenBuffer(int size) {
+        this.size = size;
+        this.type = new byte[size];
+        this.text = new char[size];
+        this.attribute = new byte[size];
+        this.fieldStarts = new BitSet(size);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    void clear() {
+        Arrays.fill(this.type, EMPTY);
+        Arrays.fill(this.text, (char) 0);
+        Arrays.fill(this.attribute, (byte) 0);
+        this.fieldStarts.clear();
+        restructured();
+    }
+
+    boolean isEmpty(int pos) {
+        return this.type[pos] == EMPTY;
+    }
+
+    boolean isFieldStart(int pos) {
+        return this.type[pos] == FIELD_START;
+    }
+
+    /**
+     * @return true if the position holds a character, graphics escape or control character
+     */
+    boolean isCharacter(int pos) {
+        return this.type[pos] != EMPTY && this.type[pos] != FIELD_START;
+    }
+
+    boolean isGraphicsEscape(int pos) {
+        return this.type[pos] == GRAPHICS_ESCAPE;
+    }
+
+    /**
+     * @return the character as it appears in a field, 0 for an empty position
+     */
+    char getChar(int pos) {
+        return this.text[pos];
+    }
+
+    /**
+     * @return the EBCDIC code for the character, graphics escape or control character
+     */
+    byte getEbcdic(int pos) {
+        if (this.type[pos] != CHARACTER) {
+            return this.attribute[pos];
+        }
+        return encode(this.text[pos]);
+    }
+
+    boolean isProtected(int pos) {
+        return (this.attribute[pos] & PROTECTED) != 0;
+    }
+
+    boolean isNumeric(int pos) {
+        return (this.attribute[pos] & NUMERIC) != 0;
+    }
+
+    boolean isDisplay(int pos) {
+        return (this.attribute[pos] & DISPLAY) != 0;
+    }
+
+    boolean isIntenseDisplay(int pos) {
+        return (this.attribute[pos] & INTENSE) != 0;
+    }
+
+    boolean isSelectorPen(int pos) {
+        return (this.attribute[pos] & SELECTOR_PEN) != 0;
+    }
+
+    boolean isFieldModified(int pos) {
+        return (this.attribute[pos] & MODIFIED) != 0;
+    }
+
+    void setEmpty(int pos) {
+        set(pos, EMPTY, (char) 0, (byte) 0);
+    }
+
+    void setChar(int pos, char c) {
+        set(pos, CHARACTER, c, (byte) 0);
+    }
+
+    void setGraphicsEscape(int pos, byte code) {
+        set(pos, GRAPHICS_ESCAPE, ' ', code);
+    }
+
+    void setControl(int pos, byte controlType, byte code) {
+        set(pos, controlType, ' ', code);
+    }
+
+    void setFieldStart(int pos, boolean fieldProtected, boolean fieldNumeric, boolean fieldDisplay,
+            boolean fieldIntenseDisplay, boolean fieldSelectorPen, boolean fieldModified) {
+        byte attributes = 0;
+        attributes |= fieldProtected ? PROTECTED : 0;
+        attributes |= fieldNumeric ? NUMERIC : 0;
+        attributes |= fieldDisplay ? DISPLAY : 0;
+        attributes |= fieldIntenseDisplay ? INTENSE : 0;
+        attributes |= fieldSelectorPen ? SELECTOR_PEN : 0;
+        attributes |= fieldModified ? MODIFIED : 0;
+        set(pos, FIELD_START, ' ', attributes);
+    }
+
+    /**
+     * @return true if the modified flag of the field has changed
+     */
+    boolean setFieldModified(int pos, boolean modified) {
+        if (isFieldModified(pos) == modified) {
+            return false;
+        }
+
+        if (modified) {
+            this.attribute[pos] |= MODIFIED;
+        } else {
+            this.attribute[pos] &= ~MODIFIED;
+        }
+        restructured(); // the flag is shared with the field wrapped from the end of the screen
+        return true;
+    }
+
+    /**
+     * Copy the contents of one position to another
+     */
+    void copy(int from, int to) {
+        set(to, this.type[from], this.text[from], this.attribute[from]);
+    }
+
+    private void set(int pos, byte newType, char c, byte newAttribute) {
+        boolean fieldChange = (this.type[pos] == FIELD_START || newType == FIELD_START);
+
+        this.type[pos] = newType;
+        this.text[pos] = c;
+        this.attribute[pos] = newAttribute;
+
+        if (fieldChange) {
+            this.fieldStarts.set(pos, newType == FIELD_START);
+            restructured();
+            return;
+        }
+
+        this.version++;
+        if (pos < this.dirtyStart) {
+            this.dirtyStart = pos;
+        }
+        if (pos > this.dirtyEnd) {
+            this.dirtyEnd = pos;
+        }
+    }
+
+    private void restructured() {
+        this.version++;
+        this.restructured = true;
+    }
+
+    int firstFieldStart() {
+        return this.fieldStarts.nextSetBit(0);
+    }
+
+    int lastFieldStart() {
+        return this.fieldStarts.previousSetBit(this.size - 1);
+    }
+
+    /**
+     * @return the next field start at or after pos, -1 if there are none
+     */
+    int nextFieldStart(int pos) {
+        return this.fieldStarts.nextSetBit(pos);
+    }
+
+    /**
+     * Search backwards from the position before pos, wrapping around the screen, for
+     * the start of the field pos belongs to.
+     *
+     * @return the position of the start of field, or -1 if there is no field other than at pos
+     */
+    int owningFieldStart(int pos) {
+        int found = this.fieldStarts.previousSetBit(pos - 1);
+        if (found < 0) {
+            found = this.fieldStarts.previousSetBit(this.size - 1);
+        }
+        if (found == pos) {
+            return -1;
+        }
+        return found;
+    }
+
+    /**
+     * @return the field text between from and to, with nulls for empty positions
+     */
+    char[] getFieldText(int from, int to) {
+        return Arrays.copyOfRange(this.text, from, to);
+    }
+
+    BufferStartOfField getStartOfField(int pos) {
+        return new BufferStartOfField(pos, isProtected(pos), isNumeric(pos), isDisplay(pos), isIntenseDisplay(pos),
+                isSelectorPen(pos), isFieldModified(pos));
+    }
+
+    /**
+     * @return the screen text, with spaces for empty positions, field starts and nulls
+     */
+    String getFlatText() {
+        char[] flat = Arrays.copyOf(this.text, this.size);
+        for (int i = 0; i < flat.length; i++) {
+            if (flat[i] == 0) {
+                flat[i] = ' ';
+            }
+        }
+        return new String(flat);
+    }
+
+    /**
+     * Build a buffer holder for a position, for callers of the object based SPI
+     *
+     * @return the holder, or null if the position is empty
+     */
+    IBufferHolder getHolder(int pos) {
+        switch (this.type[pos]) {
+            case CHARACTER:
+                return new BufferChar(this.text[pos]);
+            case FIELD_START:
+                return getStartOfField(pos);
+            case GRAPHICS_ESCAPE:
+                return new BufferGraphicsEscape(this.attribute[pos]);
+            case NEW_LINE:
+                return new BufferNewLine();
+            case FORM_FEED:
+                return new BufferFormFeed();
+            case CARRIAGE_RETURN:
+                return new BufferCarrageReturn();
+            case END_OF_MEDIUM:
+                return new BufferEndOfMedium();
+            default:
+                return null;
+        }
+    }
+
+    void setHolder(int pos, IBufferHolder holder) {
+        if (holder == null) {
+            setEmpty(pos);
+        } else if (holder instanceof BufferStartOfField) {
+            BufferStartOfField sf = (BufferStartOfField) holder;
+            setFieldStart(pos, sf.isProtected(), sf.isNumeric(), sf.isDisplay(), sf.isIntenseDisplay(), sf.isSelectorPen(),
+                    sf.isFieldModifed());
+        } else if (holder instanceof BufferGraphicsEscape) {
+            setGraphicsEscape(pos, ((BufferGraphicsEscape) holder).getFieldEbcdic());
+        } else if (holder instanceof BufferNewLine) {
+            setControl(pos, NEW_LINE, ((BufferChar) holder).getFieldEbcdic());
+        } else if (holder instanceof BufferFormFeed) {
+            setControl(pos, FORM_FEED, ((BufferChar) holder).getFieldEbcdic());
+        } else if (holder instanceof BufferCarrageReturn) {
+            setControl(pos, CARRIAGE_RETURN, ((BufferChar) holder).getFieldEbcdic());
+        } else if (holder instanceof BufferEndOfMedium) {
+            setControl(pos, END_OF_MEDIUM, ((BufferChar) holder).getFieldEbcdic());
+        } else {
+            setChar(pos, holder.getChar());
+        }
+    }
+
+    int getVersion() {
+        return this.version;
+    }
+
+    boolean isRestructured() {
+        return this.restructured;
+    }
+
+    int getDirtyStart() {
+        return this.dirtyStart;
+    }
+
+    int getDirtyEnd() {
+        return this.dirtyEnd;
+    }
+
+    /**
+     * Called once the changes have been applied to the field index
+     */
+    void resetChanges() {
+        this.restructured = false;
+        this.dirtyStart = Integer.MAX_VALUE;
+        this.dirtyEnd = -1;
+    }
+
+    private static byte encode(char c) {
+        if (c == 0) {
+            return 0;
+        }
+        if (c < ebcdicLatin.length && (ebcdicLatin[c] != 0)) {
+            return ebcdicLatin[c];
+        }
+        return String.valueOf(c).getBytes(ebcdic)[0];
+    }
+
+}
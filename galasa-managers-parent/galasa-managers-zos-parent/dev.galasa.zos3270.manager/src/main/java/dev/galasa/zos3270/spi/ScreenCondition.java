@@ -0,0 +1,169 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zos3270.spi;
+
+import java.util.regex.Pattern;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.zos3270.internal.terminal.FieldTextMatcher;
+
+/**
+ * A condition on the state of a {@link Screen} that can be waited on with
+ * {@link Screen#waitForCondition(ScreenCondition, long)}.
+ *
+ * Conditions are evaluated against the current fields of the screen, with the screen
+ * locked, once when the wait starts and once after each update received from the host.
+ * They can be combined with {@link #allOf(ScreenCondition...)},
+ * {@link #anyOf(ScreenCondition...)} and {@link #not(ScreenCondition)}, which are
+ * evaluated in the same pass.
+ */
+public abstract class ScreenCondition {
+
+    /**
+     * @return true if the condition is met by the screen as it is now
+     */
+    protected abstract boolean isSatisfied(@NotNull Screen screen);
+
+    /**
+     * @return a condition met when the keyboard is unlocked
+     */
+    public static ScreenCondition keyboardUnlocked() {
+        return new ScreenCondition() {
+            @Override
+            protected boolean isSatisfied(Screen screen) {
+                return !screen.isKeyboardLocked();
+            }
+        };
+    }
+
+    /**
+     * @param text the text to look for
+     * @return a condition met when a field contains the text
+     */
+    public static ScreenCondition textInField(@NotNull String text) {
+        return new FieldText(new FieldTextMatcher(new String[] { text }, null));
+    }
+
+    /**
+     * @param text the text to look for
+     * @return a condition met when none of the fields contain the text
+     */
+    public static ScreenCondition textNotInField(@NotNull String text) {
+        return not(textInField(text));
+    }
+
+    /**
+     * @param text the text to look for
+     * @return a condition met when the cursor is in a field that contains the text
+     */
+    public static ScreenCondition cursorInFieldContaining(@NotNull String text) {
+        return new ScreenCondition() {
+            @Override
+            protected boolean isSatisfied(Screen screen) {
+                int cursor = screen.getCursor();
+                for (Field field : screen.currentFields()) {
+                    if (field.containsPosition(cursor)) {
+                        return field.containsText(text);
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param regex the regular expression the whole of the field text must match
+     * @return a condition met when the text of a field, without nulls, matches the expression
+     */
+    public static ScreenCondition fieldMatches(@NotNull String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return new ScreenCondition() {
+            @Override
+            protected boolean isSatisfied(Screen screen) {
+                for (Field field : screen.currentFields()) {
+                    if (pattern.matcher(field.getFieldWithoutNulls()).matches()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+    }
+
+    public static ScreenCondition allOf(@NotNull ScreenCondition... conditions) {
+        return new ScreenCondition() {
+            @Override
+            protected boolean isSatisfied(Screen screen) {
+                for (ScreenCondition condition : conditions) {
+                    if (!condition.isSatisfied(screen)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    public static ScreenCondition anyOf(@NotNull ScreenCondition... conditions) {
+        return new ScreenCondition() {
+            @Override
+            protected boolean isSatisfied(Screen screen) {
+                boolean satisfied = false;
+                for (ScreenCondition condition : conditions) {
+                    // *** Evaluate them all so any text conditions record what they found
+                    satisfied |= condition.isSatisfied(screen);
+                }
+                return satisfied;
+            }
+        };
+    }
+
+    public static ScreenCondition not(@NotNull ScreenCondition condition) {
+        return new ScreenCondition() {
+            @Override
+            protected boolean isSatisfied(Screen screen) {
+                return !condition.isSatisfied(screen);
+            }
+        };
+    }
+
+    /**
+     * Met when a field contains one of the ok or error texts, remembering which was found
+     */
+    static class FieldText extends ScreenCondition {
+
+        private final FieldTextMatcher matcher;
+
+        private int                    okFound    = -1;
+        private int                    errorFound = -1;
+
+        FieldText(FieldTextMatcher matcher) {
+            this.matcher = matcher;
+        }
+
+        @Override
+        protected boolean isSatisfied(Screen screen) {
+            boolean[] found = screen.scanFields(this.matcher);
+            this.errorFound = this.matcher.firstErrorFound(found);
+            this.okFound = this.matcher.firstOkFound(found);
+            return this.errorFound >= 0 || this.okFound >= 0;
+        }
+
+        FieldTextMatcher getMatcher() {
+            return this.matcher;
+        }
+
+        int getOkFound() {
+            return this.okFound;
+        }
+
+        int getErrorFound() {
+            return this.errorFound;
+        }
+    }
+
+}
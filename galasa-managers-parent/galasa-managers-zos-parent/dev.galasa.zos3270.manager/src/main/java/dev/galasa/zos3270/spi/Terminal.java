@@ -52,7 +52,11 @@ public class Terminal implements ITerminal {
     }
 
     public Terminal(String id, String host, int port, boolean ssl, int primaryColumns, int primaryRows, int alternateColumns, int alternateRows) throws TerminalInterruptedException {
-        network = new Network(host, port, ssl, id);
+        this(id, new Network(host, port, ssl, id), primaryColumns, primaryRows, alternateColumns, alternateRows);
+    }
+
+    public Terminal(String id, Network network, int primaryColumns, int primaryRows, int alternateColumns, int alternateRows) throws TerminalInterruptedException {
+        this.network = network;
         screen = new Screen(primaryColumns, primaryRows, alternateColumns, alternateRows, this.network);
         this.id = id;
     }
@@ -69,7 +73,7 @@ public class Terminal implements ITerminal {
     public synchronized void connect() throws NetworkException {
         connected = network.connectClient();
         networkThread = new NetworkThread(this, screen, network, network.getInputStream(), this.deviceTypes);
-        networkThread.start();
+        network.startInbound(networkThread);
         
         Instant expire = Instant.now().plus(60, ChronoUnit.SECONDS);
         boolean started = false;
@@ -184,25 +188,19 @@ public class Terminal implements ITerminal {
     
     @Override
     public boolean isTextInField(String text, long timeoutInMilliseconds) throws TerminalInterruptedException {
-        if (isTextInField(text)) {
-            return true;
-        }
-        
-        Instant expire = Instant.now().plus(timeoutInMilliseconds, ChronoUnit.MILLIS);
-        while(expire.isAfter(Instant.now())) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new TerminalInterruptedException("Wait for text was interrupted",e);
-            }
-            
-            if (isTextInField(text)) {
-                return true;
-            }
-        }
-        
-        return false;
+        return screen.waitForCondition(ScreenCondition.textInField(text), timeoutInMilliseconds);
+    }
+
+    /**
+     * Wait for a condition to be met by the screen
+     * 
+     * @param condition - the condition, see {@link ScreenCondition}
+     * @param timeoutInMilliseconds - the maximum time to wait
+     * @return true if the condition was met, false if the wait timed out
+     * @throws TerminalInterruptedException
+     */
+    public boolean waitForCondition(@NotNull ScreenCondition condition, long timeoutInMilliseconds) throws TerminalInterruptedException {
+        return screen.waitForCondition(condition, timeoutInMilliseconds);
     }
 
 
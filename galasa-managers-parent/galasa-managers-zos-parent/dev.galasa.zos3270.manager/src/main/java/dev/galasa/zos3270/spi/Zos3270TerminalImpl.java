@@ -5,34 +5,26 @@
  */
 package dev.galasa.zos3270.spi;
 
-import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
-import java.util.zip.GZIPOutputStream;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 
-import dev.galasa.ResultArchiveStoreContentType;
-import dev.galasa.SetContentType;
 import dev.galasa.framework.spi.IConfidentialTextService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.zos.IZosImage;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
+import dev.galasa.zos.spi.ZosMetricsRecorder.Metric;
 import dev.galasa.zos3270.AttentionIdentification;
 import dev.galasa.zos3270.IScreenUpdateListener;
 import dev.galasa.zos3270.TerminalInterruptedException;
@@ -41,30 +33,35 @@ import dev.galasa.zos3270.common.screens.FieldContents;
 import dev.galasa.zos3270.common.screens.TerminalField;
 import dev.galasa.zos3270.common.screens.TerminalImage;
 import dev.galasa.zos3270.common.screens.TerminalSize;
+import dev.galasa.zos3270.internal.comms.Network;
+import dev.galasa.zos3270.internal.comms.SelectorNetwork;
+import dev.galasa.zos3270.internal.comms.SelectorNetworkEngine;
 import dev.galasa.zos3270.internal.properties.ApplyConfidentialTextFiltering;
 import dev.galasa.zos3270.internal.properties.LiveTerminalUrl;
 import dev.galasa.zos3270.internal.properties.LogConsoleTerminals;
+import dev.galasa.zos3270.internal.properties.NetworkSelectorThreads;
+import dev.galasa.zos3270.internal.properties.NetworkTransport;
+import dev.galasa.zos3270.internal.properties.TerminalArchiveFormat;
 import dev.galasa.zos3270.internal.properties.TerminalDeviceTypes;
+import dev.galasa.zos3270.internal.properties.TerminalRecorderCapacity;
+import dev.galasa.zos3270.internal.terminal.TerminalImageRecorder;
 
 public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListener {
 
     private Log                            logger       = LogFactory.getLog(getClass());
 
-    private final Gson                     gson         = new GsonBuilder().setPrettyPrinting().create();
-
     private final String                   terminalId;
     private int                            updateId;
     private final String                   runId;
+    private final String                   imageId;
+
+    private long                           aidSentNanos;
 
     private final IConfidentialTextService cts;
     private final boolean                  applyCtf;
 
-    private final ArrayList<TerminalImage> cachedImages = new ArrayList<>();
+    private final TerminalImageRecorder    recorder;
 
-    private final Path                     terminalRasDirectory;
-    private int                            rasTerminalSequence;
-    private URL                            liveTerminalUrl;
-    private int                            liveTerminalSequence;
     private boolean                        logConsoleTerminals;
     private boolean                        autoConnect;
 
@@ -77,9 +74,10 @@ public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListen
     public Zos3270TerminalImpl(String id, String host, int port, boolean tls, IFramework framework, boolean autoConnect, IZosImage image,
             int primaryColumns, int primaryRows, int alternateColumns, int alternateRows)
             throws Zos3270ManagerException, TerminalInterruptedException {
-        super(id, host, port, tls, primaryColumns, primaryRows, alternateColumns, alternateRows);
+        super(id, createNetwork(id, host, port, tls), primaryColumns, primaryRows, alternateColumns, alternateRows);
         this.terminalId = id;
         this.runId = framework.getTestRunName();
+        this.imageId = image != null ? image.getImageID() : null;
         this.autoConnect = autoConnect;
 
         this.cts = framework.getConfidentialTextService();
@@ -88,12 +86,11 @@ public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListen
         getScreen().registerScreenUpdateListener(this);
 
         Path storedArtifactsRoot = framework.getResultArchiveStore().getStoredArtifactsRoot();
-        terminalRasDirectory = storedArtifactsRoot.resolve("zos3270").resolve("terminals").resolve(this.terminalId);
+        Path terminalRasDirectory = storedArtifactsRoot.resolve("zos3270").resolve("terminals").resolve(this.terminalId);
 
+        URL liveTerminalUrl = null;
         URL propLiveTerminalUrl = LiveTerminalUrl.get();
-        if (propLiveTerminalUrl == null) {
-            liveTerminalUrl = null;
-        } else {
+        if (propLiveTerminalUrl != null) {
             try {
                 // *** Register the terminal to the UI which will own the terminal view
                 HttpURLConnection connection = (HttpURLConnection) propLiveTerminalUrl.openConnection();
@@ -107,7 +104,7 @@ public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListen
                     logger.warn("Unable to activate live terminal due to " + connection.getResponseCode() + " - "
                             + connection.getResponseMessage());
                 } else {
-                    this.liveTerminalUrl = new URL(
+                    liveTerminalUrl = new URL(
                             propLiveTerminalUrl.toString() + "/" + this.runId + "/" + this.terminalId);
                 }
             } catch (Exception e) {
@@ -115,17 +112,40 @@ public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListen
             }
         }
         
+        this.recorder = new TerminalImageRecorder(this.terminalId, this.runId, terminalRasDirectory,
+                this.applyCtf ? this.cts : null, liveTerminalUrl, TerminalArchiveFormat.isDelta(), TerminalRecorderCapacity.get());
+
         setDeviceTypes(TerminalDeviceTypes.get(image));
 
         logConsoleTerminals = LogConsoleTerminals.get();
     }
 
+    private static Network createNetwork(String id, String host, int port, boolean tls) throws Zos3270ManagerException {
+        if (!NetworkTransport.isSelector()) {
+            return new Network(host, port, tls, id);
+        }
+
+        try {
+            return new SelectorNetwork(host, port, tls, id, SelectorNetworkEngine.getInstance(NetworkSelectorThreads.get()));
+        } catch (NetworkException e) {
+            throw new Zos3270ManagerException("Unable to start the 3270 selector network engine", e);
+        }
+    }
+
     public boolean doAutoConnect() {
         return this.autoConnect;
     }
 
     @Override
     public synchronized void screenUpdated(Direction direction, AttentionIdentification aid) {
+        //*** Time the round trip from an attention key to the first screen update received after it
+        if (direction == Direction.SENDING) {
+            this.aidSentNanos = System.nanoTime();
+        } else if (this.aidSentNanos != 0) {
+            ZosMetricsRecorder.recordSince(Metric.TERMINAL_ROUND_TRIP, this.aidSentNanos, this.imageId);
+            this.aidSentNanos = 0;
+        }
+
         updateId++;
         String update = terminalId + "-" + (updateId);
 
@@ -153,45 +173,7 @@ public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListen
         TerminalImage terminalImage = new TerminalImage(updateId, update, direction == Direction.RECEIVED, null,
                 aidText, terminalSize, cursorCol, cursorRow);
         terminalImage.getFields().addAll(buildTerminalFields(getScreen()));
-        cachedImages.add(terminalImage);
-        if (cachedImages.size() >= 10) {
-            flushTerminalCache();
-        }
-
-        if (liveTerminalUrl != null) {
-            try {
-                liveTerminalSequence++;
-                dev.galasa.zos3270.common.screens.Terminal liveTerminal = new dev.galasa.zos3270.common.screens.Terminal(
-                        this.terminalId, this.runId, liveTerminalSequence, terminalSize);
-                liveTerminal.getImages().add(terminalImage);
-
-                JsonObject intermediateJson = (JsonObject) gson.toJsonTree(liveTerminal);
-                stripFalseBooleans(intermediateJson);
-                String tempJson = gson.toJson(intermediateJson);
-
-                if (applyCtf) {
-                    tempJson = cts.removeConfidentialText(tempJson);
-                }
-
-                HttpURLConnection connection = (HttpURLConnection) this.liveTerminalUrl.openConnection();
-                connection.setRequestMethod("PUT");
-                connection.addRequestProperty("Content-Type", "application/json");
-                connection.setDoInput(true);
-                connection.setDoOutput(true);
-                connection.connect();
-                try (OutputStream os = connection.getOutputStream()) {
-                    IOUtils.write(tempJson, os, StandardCharsets.UTF_8);
-                }
-                if (connection.getResponseCode() != 200) {
-                    logger.warn("Unable to write live terminal due to " + connection.getResponseCode() + " - "
-                            + connection.getResponseMessage());
-                    this.liveTerminalUrl = null;
-                }
-            } catch (Exception e) {
-                logger.error("Failed to write live terminal image, image lost", e);
-                this.liveTerminalUrl = null;
-            }
-        }
+        recorder.record(terminalImage, terminalSize);
 
         if (logConsoleTerminals) {
             String screenData = getScreen().printScreenTextWithCursor();
@@ -206,46 +188,15 @@ public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListen
         }
     }
 
-    public synchronized void flushTerminalCache() {
-        if (cachedImages.isEmpty()) {
-            return;
-        }
-
-        rasTerminalSequence++;
-
-        try {
-            TerminalSize terminalSize = new TerminalSize(getScreen().getNoOfColumns(), getScreen().getNoOfRows()); // TODO
-            // sort
-            // out
-            // alt
-            // sizes
-            dev.galasa.zos3270.common.screens.Terminal rasTerminal = new dev.galasa.zos3270.common.screens.Terminal(
-                    this.terminalId, this.runId, rasTerminalSequence, terminalSize);
-            rasTerminal.getImages().addAll(this.cachedImages);
-
-            JsonObject intermediateJson = (JsonObject) gson.toJsonTree(rasTerminal);
-            stripFalseBooleans(intermediateJson);
-            String tempJson = gson.toJson(intermediateJson);
-
-            if (applyCtf) {
-                tempJson = cts.removeConfidentialText(tempJson);
-            }
-
-            String terminalFilename = this.terminalId + "-" + String.format("%05d", rasTerminalSequence) + ".gz";
-            Path terminalPath = terminalRasDirectory.resolve(terminalFilename);
-
-            try (GZIPOutputStream gos = new GZIPOutputStream(Files.newOutputStream(terminalPath,
-                    new SetContentType(new ResultArchiveStoreContentType("application/zos3270terminal")),
-                    StandardOpenOption.CREATE))) {
-                IOUtils.write(tempJson, gos, "utf-8");
-            }
-        } catch (Exception e) {
-            logger.error("Unable to write terminal cache to the RAS", e);
-            rasTerminalSequence--;
-            return;
-        }
+    /**
+     * Write all the images recorded so far to the RAS, returns once they have been written
+     */
+    public void flushTerminalCache() {
+        recorder.flush();
+    }
 
-        this.cachedImages.clear();
+    public TerminalImageRecorder getRecorder() {
+        return this.recorder;
     }
 
     private static List<TerminalField> buildTerminalFields(Screen screen) {
@@ -260,7 +211,7 @@ public class Zos3270TerminalImpl extends Terminal implements IScreenUpdateListen
                     screenField.isProtected(), screenField.isNumeric(), screenField.isDisplay(),
                     screenField.isIntenseDisplay(), screenField.isSelectorPen(), screenField.isFieldModifed());
 
-            Character[] chars = screenField.getFieldCharsWithNulls();
+            char[] chars = screenField.getFieldCharsWithNulls();
             terminalField.getContents().add(new FieldContents(chars)); // TODO needs to be expanded when we record
             // extended attributes
             terminalFields.add(terminalField);
@@ -0,0 +1,139 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.zos3270.network;
+
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.zos3270.internal.comms.BufferedInboundReader;
+import dev.galasa.zos3270.internal.comms.NetworkThread;
+import dev.galasa.zos3270.spi.NetworkException;
+import dev.galasa.zos3270.spi.Screen;
+
+public class BufferedInboundReaderTest {
+
+    @Test
+    public void testReplayRecordedDatastreamInSmallChunks() throws Exception {
+        byte[] vamp = loadVampStream();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            writeEscaped(baos, vamp);
+            baos.write(NetworkThread.IAC);
+            baos.write(NetworkThread.EOR);
+        }
+
+        BufferedInboundReader reader = new BufferedInboundReader(new ChunkedInputStream(baos.toByteArray(), 7), 16);
+        NetworkThread networkThread = new NetworkThread(null, new Screen(), null, null);
+
+        for (int i = 0; i < 3; i++) {
+            Byte header = reader.readByte();
+            ByteBuffer buffer = reader.readTerminatedMessage(header);
+
+            byte[] record = Arrays.copyOfRange(buffer.array(), buffer.position(), buffer.limit());
+            Assert.assertArrayEquals("Record " + i + " does not match the recorded datastream", vamp, record);
+
+            Assert.assertEquals("Count of orders is incorrect", 225, networkThread.process3270Data(buffer).getOrders().size());
+        }
+
+        Assert.assertNull("Should be at end of stream", reader.readByte());
+        Assert.assertTrue("Should be at end of stream", reader.isEndOfStream());
+    }
+
+    @Test
+    public void testEscapedFFSplitAcrossReads() throws Exception {
+        byte[] stream = new byte[] { 1, NetworkThread.IAC, NetworkThread.IAC, 2, NetworkThread.IAC, NetworkThread.EOR, 9 };
+
+        BufferedInboundReader reader = new BufferedInboundReader(new ChunkedInputStream(stream, 2), 2);
+
+        ByteBuffer buffer = reader.readTerminatedMessage((byte) 0);
+        Assert.assertEquals("Should contain 4 bytes", 4, buffer.remaining());
+        Assert.assertEquals("Should be 00 01 FF 02", 0, buffer.get());
+        Assert.assertEquals("Should be 00 01 FF 02", 1, buffer.get());
+        Assert.assertEquals("Should be 00 01 FF 02", -1, buffer.get());
+        Assert.assertEquals("Should be 00 01 FF 02", 2, buffer.get());
+
+        Assert.assertEquals("Next message byte should be available", Byte.valueOf((byte) 9), reader.readByte());
+    }
+
+    @Test
+    public void testTerminatedSB() throws Exception {
+        byte[] stream = new byte[] { NetworkThread.TN3270E, NetworkThread.SEND, NetworkThread.DEVICE_TYPE, NetworkThread.IAC, NetworkThread.SE };
+
+        BufferedInboundReader reader = new BufferedInboundReader(new ByteArrayInputStream(stream));
+        reader.startCommand();
+
+        ByteBuffer buffer = reader.readTerminatedSB();
+        Assert.assertEquals("Should contain 3 bytes", 3, buffer.remaining());
+        Assert.assertEquals("Command so far is incorrect", "280802fff0", reader.reportCommandSoFar());
+    }
+
+    @Test
+    public void testShortenedMessage() throws Exception {
+        BufferedInboundReader reader = new BufferedInboundReader(new ByteArrayInputStream(new byte[] { 0, 0, NetworkThread.IAC }));
+
+        try {
+            reader.readTerminatedMessage((byte) 0);
+            fail("Should have thrown an exception saying terminated early");
+        } catch (NetworkException e) {
+            Assert.assertEquals("Exception thrown is not correct", "3270 message did not terminate with IAC EOR",
+                    e.getMessage());
+        }
+        Assert.assertTrue("Should be at end of stream", reader.isEndOfStream());
+    }
+
+    private byte[] loadVampStream() throws Exception {
+        URL vampFile = getClass().getClassLoader().getResource("vampstream.txt");
+        String vampHex = IOUtils.toString(vampFile.openStream(), "utf-8");
+        return Hex.decodeHex(vampHex);
+    }
+
+    private void writeEscaped(ByteArrayOutputStream baos, byte[] data) {
+        for (byte b : data) {
+            if (b == NetworkThread.IAC) {
+                baos.write(b);
+            }
+            baos.write(b);
+        }
+    }
+
+    /**
+     * Returns no more than chunkSize bytes on each read, as a socket would with a slow server
+     */
+    private static class ChunkedInputStream extends InputStream {
+
+        private final ByteArrayInputStream bais;
+        private final int                  chunkSize;
+
+        public ChunkedInputStream(byte[] data, int chunkSize) {
+            this.bais = new ByteArrayInputStream(data);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.bais.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return this.bais.read(b, off, Math.min(len, this.chunkSize));
+        }
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.zos3270.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.KeyStore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.zos3270.internal.comms.NetworkServer;
+import dev.galasa.zos3270.internal.comms.NetworkThread;
+import dev.galasa.zos3270.internal.comms.SelectorNetwork;
+import dev.galasa.zos3270.internal.comms.SelectorNetworkEngine;
+import dev.galasa.zos3270.internal.datastream.AbstractCommandCode;
+import dev.galasa.zos3270.internal.datastream.BufferAddress;
+import dev.galasa.zos3270.internal.datastream.OrderSetBufferAddress;
+import dev.galasa.zos3270.internal.datastream.OrderStartField;
+import dev.galasa.zos3270.internal.datastream.OrderText;
+import dev.galasa.zos3270.internal.datastream.WriteControlCharacter;
+import dev.galasa.zos3270.spi.Terminal;
+
+public class SelectorNetworkTest {
+
+    private static final char[] KEYSTORE_PASSWORD = "password".toCharArray();
+
+    @Test
+    public void testFrameLength() {
+        byte[] record = new byte[] { 1, 2, NetworkThread.IAC, NetworkThread.IAC, 3, NetworkThread.IAC, NetworkThread.EOR, 9 };
+        Assert.assertEquals("Record length incorrect", 7, SelectorNetwork.frameLength(record, 0, record.length));
+        Assert.assertEquals("Incomplete record should need more data", -1, SelectorNetwork.frameLength(record, 0, 6));
+
+        byte[] sb = new byte[] { NetworkThread.IAC, NetworkThread.SB, NetworkThread.TN3270E, NetworkThread.SEND, NetworkThread.DEVICE_TYPE, NetworkThread.IAC, NetworkThread.SE };
+        Assert.assertEquals("SB length incorrect", 7, SelectorNetwork.frameLength(sb, 0, sb.length));
+        Assert.assertEquals("Incomplete SB should need more data", -1, SelectorNetwork.frameLength(sb, 0, 6));
+
+        byte[] doTn3270e = new byte[] { NetworkThread.IAC, NetworkThread.DO, NetworkThread.TN3270E, NetworkThread.IAC };
+        Assert.assertEquals("DO length incorrect", 3, SelectorNetwork.frameLength(doTn3270e, 0, doTn3270e.length));
+        Assert.assertEquals("Incomplete DO should need more data", -1, SelectorNetwork.frameLength(doTn3270e, 0, 2));
+
+        byte[] doEor = new byte[] { NetworkThread.IAC, NetworkThread.DO, NetworkThread.TELNET_EOR, NetworkThread.IAC, NetworkThread.WILL, NetworkThread.TELNET_EOR };
+        Assert.assertEquals("DO EOR length incorrect", 6, SelectorNetwork.frameLength(doEor, 0, doEor.length));
+        Assert.assertEquals("Incomplete DO EOR should need more data", -1, SelectorNetwork.frameLength(doEor, 0, 5));
+    }
+
+    @Test
+    public void testNegotiateAndReceiveScreen() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<NetworkServer> server = CompletableFuture.supplyAsync(() -> {
+                try {
+                    Socket socket = serverSocket.accept();
+                    NetworkServer networkServer = new NetworkServer(socket);
+                    networkServer.sendDatastream(helloScreen());
+                    return networkServer;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            SelectorNetwork network = new SelectorNetwork(InetAddress.getLoopbackAddress().getHostAddress(), serverSocket.getLocalPort(), false, "sel1",
+                    SelectorNetworkEngine.getInstance(1));
+            assertScreenReceived(network, server);
+        }
+    }
+
+    @Test
+    public void testTlsHandshake() throws Exception {
+        SSLContext sslContext = serverSslContext();
+        try (ServerSocket serverSocket = sslContext.getServerSocketFactory().createServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<NetworkServer> server = CompletableFuture.supplyAsync(() -> {
+                try {
+                    // *** The handshake is completed by the first read of the negotiation
+                    Socket socket = serverSocket.accept();
+                    NetworkServer networkServer = new NetworkServer(socket);
+                    networkServer.sendDatastream(helloScreen());
+                    return networkServer;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            SelectorNetwork network = new SelectorNetwork(InetAddress.getLoopbackAddress().getHostAddress(), serverSocket.getLocalPort(), true, "sel2",
+                    SelectorNetworkEngine.getInstance(1));
+            assertScreenReceived(network, server);
+        }
+    }
+
+    @Test
+    public void testStartTls() throws Exception {
+        SSLContext sslContext = serverSslContext();
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<NetworkServer> server = CompletableFuture.supplyAsync(() -> {
+                try {
+                    Socket socket = serverSocket.accept();
+                    OutputStream outputStream = socket.getOutputStream();
+                    outputStream.write(new byte[] { NetworkThread.IAC, NetworkThread.DO, NetworkThread.START_TLS });
+                    outputStream.flush();
+                    NetworkServer.expect(socket.getInputStream(), NetworkThread.IAC, NetworkThread.WILL, NetworkThread.START_TLS,
+                            NetworkThread.IAC, NetworkThread.SB, NetworkThread.START_TLS, NetworkThread.FOLLOWS, NetworkThread.IAC, NetworkThread.SE);
+                    outputStream.write(new byte[] { NetworkThread.IAC, NetworkThread.SB, NetworkThread.START_TLS, NetworkThread.FOLLOWS, NetworkThread.IAC, NetworkThread.SE });
+                    outputStream.flush();
+
+                    SSLSocket tlsSocket = (SSLSocket) sslContext.getSocketFactory().createSocket(socket,
+                            socket.getInetAddress().getHostAddress(), socket.getPort(), true);
+                    tlsSocket.setUseClientMode(false);
+                    NetworkServer networkServer = new NetworkServer(tlsSocket);
+                    networkServer.sendDatastream(helloScreen());
+                    return networkServer;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            SelectorNetwork network = new SelectorNetwork(InetAddress.getLoopbackAddress().getHostAddress(), serverSocket.getLocalPort(), false, "sel3",
+                    SelectorNetworkEngine.getInstance(1));
+            network.setDoStartTls(true);
+            assertScreenReceived(network, server);
+            Assert.assertTrue("Connection should have switched to TLS", network.isSwitchedSSL());
+        }
+    }
+
+    @Test
+    public void testStartTlsHandshakeInSameReadAsFollows() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<Integer> server = CompletableFuture.supplyAsync(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    OutputStream outputStream = socket.getOutputStream();
+                    outputStream.write(new byte[] { NetworkThread.IAC, NetworkThread.DO, NetworkThread.START_TLS });
+                    outputStream.flush();
+                    NetworkServer.expect(socket.getInputStream(), NetworkThread.IAC, NetworkThread.WILL, NetworkThread.START_TLS,
+                            NetworkThread.IAC, NetworkThread.SB, NetworkThread.START_TLS, NetworkThread.FOLLOWS, NetworkThread.IAC, NetworkThread.SE);
+
+                    // *** The FOLLOWS and the first TLS record arrive in one read, the record is a fatal handshake_failure alert
+                    // *** so the terminal only drops the connection if the bytes after the FOLLOWS reached the TLS engine
+                    outputStream.write(new byte[] { NetworkThread.IAC, NetworkThread.SB, NetworkThread.START_TLS, NetworkThread.FOLLOWS, NetworkThread.IAC, NetworkThread.SE,
+                            0x15, 0x03, 0x03, 0x00, 0x02, 0x02, 0x28 });
+                    outputStream.flush();
+
+                    socket.setSoTimeout(10000);
+                    InputStream inputStream = socket.getInputStream();
+                    int clientHello = 0;
+                    while (inputStream.read() != -1) {
+                        clientHello++;
+                    }
+                    return clientHello;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            SelectorNetwork network = new SelectorNetwork(InetAddress.getLoopbackAddress().getHostAddress(), serverSocket.getLocalPort(), false, "sel4",
+                    SelectorNetworkEngine.getInstance(1));
+            network.setDoStartTls(true);
+            Terminal terminal = new Terminal(network.getTerminalId(), network, 80, 24, 0, 0);
+            CompletableFuture<Void> connect = CompletableFuture.runAsync(() -> {
+                try {
+                    terminal.connect();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Assert.assertTrue("The terminal should have started the TLS handshake", server.get(15, TimeUnit.SECONDS) > 0);
+            try {
+                connect.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                // *** Expected, the session never started
+            }
+            Assert.assertFalse("Terminal should have dropped the connection on the alert", network.isConnected());
+            terminal.disconnect();
+        }
+    }
+
+    private static void assertScreenReceived(SelectorNetwork network, CompletableFuture<NetworkServer> server) throws Exception {
+        Terminal terminal = new Terminal(network.getTerminalId(), network, 80, 24, 0, 0);
+        terminal.connect();
+
+        Assert.assertTrue("Terminal should be connected", terminal.isConnected());
+        Assert.assertTrue("Screen was not received over the selector", terminal.isTextInField("HELLO SELECTOR", 10000));
+
+        terminal.disconnect();
+        Assert.assertFalse("Terminal should be disconnected", terminal.isConnected());
+
+        server.get(10, TimeUnit.SECONDS).close();
+    }
+
+    /**
+     * The test key store holds a self signed certificate for localhost, the terminal trusts any certificate
+     */
+    private static SSLContext serverSslContext() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream inputStream = SelectorNetworkTest.class.getClassLoader().getResourceAsStream("selector-network.p12")) {
+            keyStore.load(inputStream, KEYSTORE_PASSWORD);
+        }
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, KEYSTORE_PASSWORD);
+
+        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        return sslContext;
+    }
+
+    private static byte[] helloScreen() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(AbstractCommandCode.ERASE_WRITE);
+        baos.write(new WriteControlCharacter(false, false, false, false, false, false, true, true).getBytes());
+        baos.write(new OrderSetBufferAddress(new BufferAddress(0)).getBytes());
+        baos.write(new OrderStartField(true, false, true, false, false, false).getBytes());
+        baos.write("HELLO SELECTOR".getBytes(OrderText.ebcdic));
+        return baos.toByteArray();
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.zos3270.terminal;
+
+import java.util.ArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.zos3270.ErrorTextFoundException;
+import dev.galasa.zos3270.TextNotFoundException;
+import dev.galasa.zos3270.internal.comms.Inbound3270Message;
+import dev.galasa.zos3270.internal.datastream.AbstractOrder;
+import dev.galasa.zos3270.internal.datastream.BufferAddress;
+import dev.galasa.zos3270.internal.datastream.CommandEraseWrite;
+import dev.galasa.zos3270.internal.datastream.CommandWrite;
+import dev.galasa.zos3270.internal.datastream.OrderRepeatToAddress;
+import dev.galasa.zos3270.internal.datastream.OrderSetBufferAddress;
+import dev.galasa.zos3270.internal.datastream.OrderStartField;
+import dev.galasa.zos3270.internal.datastream.OrderText;
+import dev.galasa.zos3270.internal.datastream.WriteControlCharacter;
+import dev.galasa.zos3270.internal.terminal.FieldTextMatcher;
+import dev.galasa.zos3270.spi.Screen;
+
+public class FieldIndexTest {
+
+    @Test
+    public void testIndexFollowsTextUpdates() throws Exception {
+        Screen screen = formattedScreen();
+        Assert.assertEquals("Initial fields are incorrect",
+                "Field(pos=-1,p=false,n=false,d=true,i=false,s=false,m=false,     )\n" +
+                "Field(pos=5,p=true,n=false,d=true,i=false,s=false,m=false,Name)\n" +
+                "Field(pos=10,p=false,n=false,d=true,i=false,s=false,m=false,         )\n",
+                screen.printFields());
+
+        // *** Only characters change, the index is patched in place
+        write(screen, new OrderSetBufferAddress(new BufferAddress(11)), new OrderText("Fred"));
+        Assert.assertEquals("Fields after write are incorrect",
+                "Field(pos=-1,p=false,n=false,d=true,i=false,s=false,m=false,     )\n" +
+                "Field(pos=5,p=true,n=false,d=true,i=false,s=false,m=false,Name)\n" +
+                "Field(pos=10,p=false,n=false,d=true,i=false,s=false,m=false,Fred     )\n",
+                screen.printFields());
+
+        // *** Typing sets the modified flag on the field
+        screen.type("Jo", 16);
+        Assert.assertEquals("Fields after type are incorrect",
+                "Field(pos=-1,p=false,n=false,d=true,i=false,s=false,m=true,     )\n" +
+                "Field(pos=5,p=true,n=false,d=true,i=false,s=false,m=false,Name)\n" +
+                "Field(pos=10,p=false,n=false,d=true,i=false,s=false,m=true,Fred Jo  )\n",
+                screen.printFields());
+
+        // *** The leading text is part of the field wrapped from the end of the screen
+        write(screen, new OrderSetBufferAddress(new BufferAddress(0)), new OrderRepeatToAddress('X', new BufferAddress(3)));
+        Assert.assertEquals("Fields after repeat are incorrect",
+                "Field(pos=-1,p=false,n=false,d=true,i=false,s=false,m=false,XXX  )\n" +
+                "Field(pos=5,p=true,n=false,d=true,i=false,s=false,m=false,Name)\n" +
+                "Field(pos=10,p=false,n=false,d=true,i=false,s=false,m=false,Fred Jo  )\n",
+                screen.printFields());
+        Assert.assertEquals("Flat screen is incorrect", "XXX   Name Fred Jo  ", screen.retrieveFlatScreen());
+
+        // *** A new field splits an existing one
+        write(screen, new OrderSetBufferAddress(new BufferAddress(15)), new OrderStartField(true, false, true, false, false, false));
+        Assert.assertEquals("Fields after new field are incorrect",
+                "Field(pos=-1,p=true,n=false,d=true,i=false,s=false,m=false,XXX  )\n" +
+                "Field(pos=5,p=true,n=false,d=true,i=false,s=false,m=false,Name)\n" +
+                "Field(pos=10,p=false,n=false,d=true,i=false,s=false,m=false,Fred)\n" +
+                "Field(pos=15,p=true,n=false,d=true,i=false,s=false,m=false,Jo  )\n",
+                screen.printFields());
+    }
+
+    @Test
+    public void testSearchUsesUpdatedIndex() throws Exception {
+        Screen screen = formattedScreen();
+
+        Assert.assertFalse("Should not find text yet", screen.isTextInField("Fred"));
+        write(screen, new OrderSetBufferAddress(new BufferAddress(11)), new OrderText("Fred"));
+        Assert.assertTrue("Should find the new text", screen.isTextInField("Fred"));
+        Assert.assertFalse("Text must not match across fields", screen.isTextInField("NameFred"));
+
+        Assert.assertEquals("Should match the second ok text", 1, screen.searchFieldContaining(new String[] {"Bill", "red"}, null));
+        try {
+            screen.searchFieldContaining(new String[] {"Fred"}, new String[] {"Joe", "ame"});
+            Assert.fail("Should have thrown ErrorTextFoundException");
+        } catch (ErrorTextFoundException e) {
+            Assert.assertEquals("Error text index is incorrect", 1, e.getErrorId());
+        }
+    }
+
+    @Test
+    public void testMatcher() throws Exception {
+        FieldTextMatcher matcher = new FieldTextMatcher(new String[] {"she", "hers", "his", "he", ""}, new String[] {"xyz"});
+
+        boolean[] found = matcher.newResult();
+        matcher.scan("ushers".toCharArray(), found);
+        Assert.assertEquals("No error text should be found", -1, matcher.firstErrorFound(found));
+        Assert.assertEquals("First ok text should be found", 0, matcher.firstOkFound(found));
+        Assert.assertArrayEquals("Matched texts are incorrect", new boolean[] {false, true, true, false, true, true}, found);
+
+        found = matcher.newResult();
+        matcher.scan("sh".toCharArray(), found);
+        matcher.scan("ex".toCharArray(), found);
+        Assert.assertArrayEquals("Texts must not match across fields", new boolean[] {false, false, false, false, false, true}, found);
+
+        Screen screen = formattedScreen();
+        try {
+            screen.searchFieldContaining(new FieldTextMatcher(new String[] {"Bill"}, null));
+            Assert.fail("Should have thrown TextNotFoundException");
+        } catch (TextNotFoundException e) {
+        }
+    }
+
+    private Screen formattedScreen() throws Exception {
+        Screen screen = new Screen(10, 2, null);
+        ArrayList<AbstractOrder> orders = new ArrayList<>();
+        orders.add(new OrderSetBufferAddress(new BufferAddress(5)));
+        orders.add(new OrderStartField(true, false, true, false, false, false));
+        orders.add(new OrderText("Name"));
+        orders.add(new OrderStartField(false, false, true, false, false, false));
+
+        screen.processInboundMessage(new Inbound3270Message(new CommandEraseWrite(),
+                new WriteControlCharacter(false, false, false, false, false, false, true, true), orders));
+        return screen;
+    }
+
+    private void write(Screen screen, AbstractOrder... newOrders) throws Exception {
+        ArrayList<AbstractOrder> orders = new ArrayList<>();
+        for (AbstractOrder order : newOrders) {
+            orders.add(order);
+        }
+
+        screen.processInboundMessage(new Inbound3270Message(new CommandWrite(),
+                new WriteControlCharacter(false, false, false, false, false, false, true, true), orders));
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.zos3270.terminal;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import dev.galasa.zos3270.ErrorTextFoundException;
+import dev.galasa.zos3270.internal.comms.Inbound3270Message;
+import dev.galasa.zos3270.internal.datastream.AbstractOrder;
+import dev.galasa.zos3270.internal.datastream.BufferAddress;
+import dev.galasa.zos3270.internal.datastream.CommandEraseWrite;
+import dev.galasa.zos3270.internal.datastream.CommandWrite;
+import dev.galasa.zos3270.internal.datastream.OrderInsertCursor;
+import dev.galasa.zos3270.internal.datastream.OrderSetBufferAddress;
+import dev.galasa.zos3270.internal.datastream.OrderStartField;
+import dev.galasa.zos3270.internal.datastream.OrderText;
+import dev.galasa.zos3270.internal.datastream.WriteControlCharacter;
+import dev.galasa.zos3270.spi.Screen;
+import dev.galasa.zos3270.spi.ScreenCondition;
+
+public class ScreenConditionTest {
+
+    @Test
+    public void testConditionsOnCurrentScreen() throws Exception {
+        Screen screen = formattedScreen(false);
+
+        Assert.assertTrue("Text should be found", screen.waitForCondition(ScreenCondition.textInField("Name"), 0));
+        Assert.assertTrue("Text should be absent", screen.waitForCondition(ScreenCondition.textNotInField("Fred"), 0));
+        Assert.assertTrue("Field should match", screen.waitForCondition(ScreenCondition.fieldMatches("N.me"), 0));
+        Assert.assertFalse("Whole field must match", screen.waitForCondition(ScreenCondition.fieldMatches("N"), 0));
+        Assert.assertTrue("Cursor should be in the input field", screen.waitForCondition(ScreenCondition.cursorInFieldContaining(""), 0));
+        Assert.assertFalse("Cursor should not be in the name field", screen.waitForCondition(ScreenCondition.cursorInFieldContaining("Name"), 0));
+        Assert.assertFalse("Keyboard should be locked", screen.waitForCondition(ScreenCondition.keyboardUnlocked(), 10));
+    }
+
+    @Test
+    public void testCompositeConditionWokenByUpdate() throws Exception {
+        Screen screen = formattedScreen(false);
+
+        ScreenCondition condition = ScreenCondition.allOf(ScreenCondition.keyboardUnlocked(), ScreenCondition.textInField("Fred"),
+                ScreenCondition.not(ScreenCondition.textInField("Bill")));
+        CompletableFuture<Boolean> wait = CompletableFuture.supplyAsync(() -> {
+            try {
+                return screen.waitForCondition(condition, 10000);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // *** Text arrives without the keyboard being unlocked, so the wait continues
+        write(screen, false, new OrderSetBufferAddress(new BufferAddress(11)), new OrderText("Fred"));
+        Thread.sleep(100);
+        Assert.assertFalse("Wait should not have completed", wait.isDone());
+
+        write(screen, true);
+        Assert.assertTrue("Condition should have been met", wait.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWaitForTextInFieldFindsErrorText() throws Exception {
+        Screen screen = formattedScreen(true);
+
+        CompletableFuture<Integer> wait = CompletableFuture.supplyAsync(() -> {
+            try {
+                return screen.waitForTextInField(new String[] { "Welcome" }, new String[] { "Invalid" }, 10000);
+            } catch (ErrorTextFoundException e) {
+                return -100 - e.getErrorId();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        write(screen, true, new OrderSetBufferAddress(new BufferAddress(11)), new OrderText("Invalid"));
+        Assert.assertEquals("Error text should have been found", Integer.valueOf(-100), wait.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWaitTimesOut() throws Exception {
+        Screen screen = formattedScreen(true);
+
+        long start = System.currentTimeMillis();
+        Assert.assertFalse("Wait should time out", screen.waitForCondition(ScreenCondition.textInField("Fred"), 200));
+        Assert.assertTrue("Wait returned too early", System.currentTimeMillis() - start >= 190);
+    }
+
+    private Screen formattedScreen(boolean keyboardReset) throws Exception {
+        Screen screen = new Screen(10, 2, null);
+        ArrayList<AbstractOrder> orders = new ArrayList<>();
+        orders.add(new OrderSetBufferAddress(new BufferAddress(5)));
+        orders.add(new OrderStartField(true, false, true, false, false, false));
+        orders.add(new OrderText("Name"));
+        orders.add(new OrderStartField(false, false, true, false, false, false));
+        orders.add(new OrderInsertCursor());
+
+        screen.processInboundMessage(new Inbound3270Message(new CommandEraseWrite(),
+                new WriteControlCharacter(false, false, false, false, false, false, keyboardReset, true), orders));
+        return screen;
+    }
+
+    private void write(Screen screen, boolean keyboardReset, AbstractOrder... newOrders) throws Exception {
+        ArrayList<AbstractOrder> orders = new ArrayList<>();
+        for (AbstractOrder order : newOrders) {
+            orders.add(order);
+        }
+
+        screen.processInboundMessage(new Inbound3270Message(new CommandWrite(),
+                new WriteControlCharacter(false, false, false, false, false, false, keyboardReset, true), orders));
+    }
+
+}
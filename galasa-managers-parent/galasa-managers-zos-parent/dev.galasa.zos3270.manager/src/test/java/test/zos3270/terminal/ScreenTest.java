@@ -13,9 +13,11 @@ import static org.mockito.Mockito.verify;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
+import org.apache.commons.codec.binary.Hex;
 import org.junit.Assert;
 import org.junit.Test;
 
+import dev.galasa.zos3270.AttentionIdentification;
 import dev.galasa.zos3270.TerminalInterruptedException;
 import dev.galasa.zos3270.internal.comms.Inbound3270Message;
 import dev.galasa.zos3270.internal.comms.Network;
@@ -32,7 +34,12 @@ import dev.galasa.zos3270.internal.datastream.OrderText;
 import dev.galasa.zos3270.internal.datastream.StructuredField;
 import dev.galasa.zos3270.internal.datastream.StructuredFieldReadPartition;
 import dev.galasa.zos3270.internal.datastream.WriteControlCharacter;
+import dev.galasa.zos3270.spi.BufferChar;
+import dev.galasa.zos3270.spi.BufferGraphicsEscape;
+import dev.galasa.zos3270.spi.BufferNewLine;
+import dev.galasa.zos3270.spi.BufferStartOfField;
 import dev.galasa.zos3270.spi.DatastreamException;
+import dev.galasa.zos3270.spi.IBufferHolder;
 import dev.galasa.zos3270.spi.NetworkException;
 import dev.galasa.zos3270.spi.Screen;
 
@@ -55,6 +62,27 @@ public class ScreenTest {
 
     }
 
+    @Test
+    public void testSetBufferHolders() throws Exception {
+        Screen screen = new Screen(10, 2, null);
+        screen.setBuffer(new IBufferHolder[] {
+                new BufferStartOfField(0, false, false, true, false, false, true),
+                new BufferChar('A'),
+                new BufferGraphicsEscape((byte) 0xad),
+                new BufferNewLine(),
+                null,
+                new BufferChar('b')
+        });
+
+        Assert.assertEquals("Flat screen is incorrect", " A   b              ", screen.retrieveFlatScreen());
+        Assert.assertEquals("Fields are incorrect",
+                "Field(pos=0,p=false,n=false,d=true,i=false,s=false,m=true,A   b              )\n",
+                screen.printFields());
+
+        Assert.assertEquals("Outbound datastream is incorrect", "7d40401140c1c108ad1582",
+                Hex.encodeHexString(screen.aid(AttentionIdentification.ENTER)));
+    }
+
     @Test
     public void testEraseUsingRA() throws DatastreamException, TerminalInterruptedException {
         Screen screen = new Screen(10, 2, null);
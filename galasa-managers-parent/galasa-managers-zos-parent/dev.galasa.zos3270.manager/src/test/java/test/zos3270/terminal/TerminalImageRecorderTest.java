@@ -0,0 +1,192 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package test.zos3270.terminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import dev.galasa.framework.spi.IConfidentialTextService;
+import dev.galasa.zos3270.common.screens.DeltaTerminal;
+import dev.galasa.zos3270.common.screens.DeltaTerminalReader;
+import dev.galasa.zos3270.common.screens.FieldContents;
+import dev.galasa.zos3270.common.screens.Terminal;
+import dev.galasa.zos3270.common.screens.TerminalField;
+import dev.galasa.zos3270.common.screens.TerminalImage;
+import dev.galasa.zos3270.common.screens.TerminalSize;
+import dev.galasa.zos3270.internal.terminal.TerminalImageRecorder;
+import dev.galasa.zos3270.spi.Zos3270TerminalImpl;
+
+public class TerminalImageRecorderTest {
+
+    private final TerminalSize terminalSize = new TerminalSize(80, 24);
+
+    @Test
+    public void testImagesAreBatchedOffThread() throws Exception {
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        TestRecorder recorder = new TestRecorder(100, tasks);
+
+        for (int i = 1; i <= 25; i++) {
+            Assert.assertTrue("Image should have been queued", recorder.record(image(i), terminalSize));
+        }
+        Assert.assertTrue("Nothing should be written on the recording thread", recorder.files.isEmpty());
+        Assert.assertEquals("Only one drain should be scheduled", 1, tasks.size());
+
+        tasks.remove(0).run();
+        Assert.assertEquals("Full batches should be written by the drain", 2, recorder.files.size());
+
+        recorder.flush();
+        Assert.assertEquals("Flush should write the partial batch", 3, recorder.files.size());
+
+        Terminal last = recorder.read("term1-00003.gz");
+        Assert.assertEquals("Sequence is incorrect", 3, last.getSequence());
+        Assert.assertEquals("Partial batch size is incorrect", 5, last.getImages().size());
+        Assert.assertEquals("Image order is incorrect", 21, last.getImages().get(0).getSequence());
+        Assert.assertEquals("Field text is incorrect", "Screen 25",
+                new String(toChars(last.getImages().get(4).getFields().get(0).getContents().get(0).getChars())));
+
+        String json = recorder.json("term1-00001.gz");
+        Assert.assertFalse("Json should be compact", json.contains("\n"));
+        Assert.assertFalse("False booleans should be stripped", json.contains("false"));
+        Assert.assertEquals("Drops are incorrect", 0, recorder.getDroppedCount());
+    }
+
+    @Test
+    public void testFullQueueDropsImages() throws Exception {
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        TestRecorder recorder = new TestRecorder(5, tasks);
+
+        for (int i = 1; i <= 8; i++) {
+            recorder.record(image(i), terminalSize);
+        }
+        Assert.assertEquals("Recorded count is incorrect", 5, recorder.getRecordedCount());
+        Assert.assertEquals("Dropped count is incorrect", 3, recorder.getDroppedCount());
+        Assert.assertEquals("High water mark is incorrect", 5, recorder.getHighWaterMark());
+
+        tasks.remove(0).run();
+        Assert.assertTrue("Image should be queued once there is space", recorder.record(image(9), terminalSize));
+        Assert.assertEquals("A new drain should be scheduled", 1, tasks.size());
+
+        recorder.flush();
+        Terminal terminal = recorder.read("term1-00001.gz");
+        Assert.assertEquals("Images recorded are incorrect", 6, terminal.getImages().size());
+        Assert.assertEquals("Last image is incorrect", 9, terminal.getImages().get(5).getSequence());
+    }
+
+    @Test
+    public void testDeltaArchive() throws Exception {
+        ArrayList<Runnable> tasks = new ArrayList<>();
+        TestRecorder recorder = new TestRecorder(true, 100, tasks);
+
+        for (int i = 1; i <= TerminalImageRecorder.DELTA_BATCH_SIZE + 3; i++) {
+            recorder.record(image(i), terminalSize);
+        }
+        recorder.flush();
+
+        Assert.assertEquals("Delta batches are incorrect", 2, recorder.files.size());
+        Assert.assertEquals("Content type is incorrect", DeltaTerminal.CONTENT_TYPE, recorder.contentTypes.get(0));
+
+        DeltaTerminal delta = new Gson().fromJson(recorder.json("term1-00002.gz"), DeltaTerminal.class);
+        DeltaTerminalReader reader = new DeltaTerminalReader(delta);
+        Assert.assertEquals("Image count is incorrect", 3, reader.getImageCount());
+
+        TerminalImage image = reader.getImage(2);
+        Assert.assertEquals("Image sequence is incorrect", TerminalImageRecorder.DELTA_BATCH_SIZE + 3, image.getSequence());
+        Assert.assertEquals("Field text is incorrect", "Screen " + (TerminalImageRecorder.DELTA_BATCH_SIZE + 3),
+                new String(toChars(image.getFields().get(0).getContents().get(0).getChars())));
+    }
+
+    @Test
+    public void testStreamedJson() throws Exception {
+        IConfidentialTextService cts = Mockito.mock(IConfidentialTextService.class);
+        Mockito.when(cts.removeConfidentialText(Mockito.anyString()))
+                .thenAnswer(invocation -> ((String) invocation.getArgument(0)).replace("Screen", "******"));
+        TestRecorder recorder = new TestRecorder(false, 100, new ArrayList<>(), cts);
+        recorder.record(image(1), terminalSize);
+        recorder.flush();
+
+        Terminal expected = new Terminal("term1", "run1", 1, terminalSize);
+        expected.getImages().add(image(1));
+        JsonObject tree = (JsonObject) new Gson().toJsonTree(expected);
+        Zos3270TerminalImpl.stripFalseBooleans(tree);
+        Assert.assertEquals("Streamed json should match the stripped json tree with the confidential text removed",
+                new Gson().toJson(tree).replace("Screen", "******"), recorder.json("term1-00001.gz"));
+    }
+
+    private TerminalImage image(int sequence) {
+        TerminalImage image = new TerminalImage(sequence, "term1-" + sequence, true, null, null, terminalSize, 0, 0);
+        TerminalField field = new TerminalField(0, 0, false, false, false, true, false, false, false);
+        String text = "Screen " + sequence;
+        Character[] chars = new Character[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        field.getContents().add(new FieldContents(chars));
+        image.getFields().add(field);
+        return image;
+    }
+
+    private static char[] toChars(Character[] chars) {
+        char[] result = new char[chars.length];
+        for (int i = 0; i < chars.length; i++) {
+            result[i] = chars[i];
+        }
+        return result;
+    }
+
+    private static class TestRecorder extends TerminalImageRecorder {
+
+        private final LinkedHashMap<String, ByteArrayOutputStream> files        = new LinkedHashMap<>();
+
+        private final ArrayList<String>                            contentTypes = new ArrayList<>();
+
+        TestRecorder(int capacity, ArrayList<Runnable> tasks) {
+            this(false, capacity, tasks);
+        }
+
+        TestRecorder(boolean deltaArchive, int capacity, ArrayList<Runnable> tasks) {
+            this(deltaArchive, capacity, tasks, null);
+        }
+
+        TestRecorder(boolean deltaArchive, int capacity, ArrayList<Runnable> tasks, IConfidentialTextService cts) {
+            super("term1", "run1", Paths.get("terminals"), cts, null, deltaArchive, capacity, tasks::add);
+        }
+
+        @Override
+        protected OutputStream openRasFile(Path terminalPath, String contentType) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            files.put(terminalPath.getFileName().toString(), baos);
+            contentTypes.add(contentType);
+            return baos;
+        }
+
+        String json(String name) throws IOException {
+            try (GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(files.get(name).toByteArray()))) {
+                return IOUtils.toString(gis, StandardCharsets.UTF_8);
+            }
+        }
+
+        Terminal read(String name) throws IOException {
+            return new Gson().fromJson(json(name), Terminal.class);
+        }
+    }
+
+}
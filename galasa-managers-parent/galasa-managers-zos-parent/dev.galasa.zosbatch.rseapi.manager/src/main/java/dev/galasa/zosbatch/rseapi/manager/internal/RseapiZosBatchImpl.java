@@ -6,9 +6,11 @@
 package dev.galasa.zosbatch.rseapi.manager.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.validation.constraints.NotNull;
 
@@ -28,6 +30,7 @@ import dev.galasa.zosbatch.IZosBatchJobname;
 import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosbatch.ZosBatchJobcard;
 import dev.galasa.zosbatch.ZosBatchManagerException;
+import dev.galasa.zosbatch.spi.ZosBatchJobMonitor;
 import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
@@ -93,6 +96,11 @@ public class RseapiZosBatchImpl implements IZosBatch {
         return getBatchJobs(jobname, owner);
     }
 
+    @Override
+    public Map<IZosBatchJob, Integer> waitForJobs(@NotNull Collection<IZosBatchJob> jobs) throws ZosBatchException {
+        return ZosBatchJobMonitor.waitForJobs(jobs);
+    }
+
     /**
      * Clean up any existing batch jobs
      * @throws ZosBatchException
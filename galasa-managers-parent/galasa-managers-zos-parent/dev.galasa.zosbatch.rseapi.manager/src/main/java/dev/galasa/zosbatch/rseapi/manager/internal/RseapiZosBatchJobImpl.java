@@ -6,12 +6,16 @@
 package dev.galasa.zosbatch.rseapi.manager.internal;
 
 import java.nio.file.Path;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -25,6 +29,8 @@ import com.google.gson.JsonObject;
 import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
+import dev.galasa.zos.spi.ZosMetricsRecorder.Metric;
 import dev.galasa.zosbatch.IZosBatchJob;
 import dev.galasa.zosbatch.IZosBatchJobOutput;
 import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
@@ -33,6 +39,8 @@ import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosbatch.ZosBatchJobcard;
 import dev.galasa.zosbatch.ZosBatchManagerException;
 import dev.galasa.zosbatch.spi.IZosBatchJobOutputSpi;
+import dev.galasa.zosbatch.spi.IZosBatchJobSpi;
+import dev.galasa.zosbatch.spi.ZosBatchJobMonitor;
 import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
@@ -43,7 +51,7 @@ import dev.galasa.zosrseapi.RseapiManagerException;
  * Implementation of {@link IZosBatchJob} using zOS/MF
  *
  */
-public class RseapiZosBatchJobImpl implements IZosBatchJob {
+public class RseapiZosBatchJobImpl implements IZosBatchJobSpi {
     
     private IRseapiRestApiProcessor rseapiApiProcessor;    
     private RseapiZosBatchManagerImpl zosBatchManager;
@@ -54,14 +62,14 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
     private String jcl;
     private int jobWaitTimeout;
     
-    private String jobid;         
-    private String owner;         
-    private String type;         
-    private JobStatus status;         
-    private String statusString;
-    private boolean jobNotFound;
-    private String retcode;
-    private boolean jobComplete;
+    private volatile String jobid;         
+    private volatile String owner;         
+    private volatile String type;         
+    private volatile JobStatus status;         
+    private volatile String statusString;
+    private volatile boolean jobNotFound;
+    private volatile String retcode;
+    private volatile boolean jobComplete;
     private boolean outputComplete;
     private boolean jobArchived;
     private boolean jobPurged;
@@ -249,34 +257,17 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
 
     @Override
     public int waitForJob() throws ZosBatchException {
+        return ZosBatchJobMonitor.getResult(waitForJobAsync());
+    }
+    
+    @Override
+    public CompletableFuture<Integer> waitForJobAsync() throws ZosBatchException {
         if (!submitted()) {
             throw new ZosBatchException(LOG_JOB_NOT_SUBMITTED);
         }
         logger.info("Waiting up to " + jobWaitTimeout + " second(s) for "+ this.jobid + " " + this.jobname.getName() + " to complete");
         
-        LocalDateTime timeoutTime = LocalDateTime.now().plusSeconds(jobWaitTimeout);
-        while (LocalDateTime.now().isBefore(timeoutTime)) {
-            updateJobStatus();
-            if (this.jobNotFound) {
-                return Integer.MIN_VALUE;
-            }
-            try {
-                if (isComplete()) {
-                    String[] rc = this.retcode.split(" ");
-                    if (rc.length == 2) {
-                        return StringUtils.isNumeric(rc[1]) ? Integer.parseInt(rc[1]) : Integer.MIN_VALUE;
-                    }
-                    return Integer.MIN_VALUE;
-                }
-                
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                logger.error("waitForJob Interrupted", e);
-                Thread.currentThread().interrupt();
-                throw new ZosBatchException(e);
-            }
-        }
-        return Integer.MIN_VALUE;
+        return this.zosBatchManager.getJobMonitor(this.jobImage).waitForJob(this, this.jobWaitTimeout);
     }
     
     @Override
@@ -336,16 +327,24 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
 
     @Override
     public void saveOutputToResultsArchive(String rasPath) throws ZosBatchException {
-        if (jobOutput() == null) {
-            retrieveOutput();
+        if (jobOutput().isEmpty()) {
+            listSpoolFiles();
         }
         Path artifactPath = this.zosBatchManager.getArtifactsRoot().resolve(rasPath);
 		logger.info("Archiving batch job " + this.toString() + " to " + artifactPath.toString());
         
-		Iterator<IZosBatchJobOutputSpoolFile> iterator = jobOutput().iterator();
-        while (iterator.hasNext()) {
-            saveSpoolFile(iterator.next(), artifactPath);
+        // *** Name the files first, so spool files with the same name are numbered in order, then store them together
+        Map<IZosBatchJobOutputSpoolFile, Path> artifactFiles = new LinkedHashMap<>();
+        Set<String> fileNames = new HashSet<>();
+        for (IZosBatchJobOutputSpoolFile spoolFile : jobOutput()) {
+            String name = spoolFileName(spoolFile);
+            String fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, name);
+            for (int uniqueId = 1; !fileNames.add(fileName); uniqueId++) {
+                fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, name + "_" + uniqueId);
+            }
+            artifactFiles.put(spoolFile, artifactPath.resolve(fileName));
         }
+        this.zosBatchManager.getSpoolFileExecutor(this.jobImage).execute(artifactFiles.keySet(), spoolFile -> storeSpoolFile(spoolFile, artifactFiles.get(spoolFile)));
         if (isComplete()) {
         	this.jobArchived = true;
         }
@@ -378,7 +377,25 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
 		saveSpoolFile(spoolFile, artifactPath);
 	}
 
+	@Override
+	public String retrieveSpoolFileRecords(IZosBatchJobOutputSpoolFile spoolFile) throws ZosBatchException {
+		String records = getOutputFileContent(this.jobFilesPath + "/" + spoolFile.getId() + "/content");
+		if (records != null) {
+			ZosMetricsRecorder.record(Metric.SPOOL_FILE_SIZE, records.length(), this.jobImage.getImageID());
+		}
+		return records;
+	}
+
 	protected void saveSpoolFile(IZosBatchJobOutputSpoolFile spoolFile, Path artifactPath) throws ZosBatchException {
+        String fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, spoolFileName(spoolFile));
+        try {
+			this.zosBatchManager.getZosManager().storeArtifact(artifactPath.resolve(fileName), spoolFile.getRecords(), ResultArchiveStoreContentType.TEXT);
+		} catch (ZosManagerException e) {
+			throw new ZosBatchException(e);
+		}
+	}
+
+	protected String spoolFileName(IZosBatchJobOutputSpoolFile spoolFile) {
         StringBuilder name = new StringBuilder();
         name.append(spoolFile.getJobname());
         name.append("_");
@@ -393,9 +410,24 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
         }
         name.append("_");
         name.append(spoolFile.getDdname());
-        String fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, name.toString());
+        return name.toString();
+	}
+
+	/**
+	 * Store the content of a spool file in the results archive. The content is fetched for the archive only, so the
+	 * job output does not hold on to it
+	 * @param spoolFile the spool file
+	 * @param artifactFile the file to create
+	 * @throws ZosBatchException
+	 */
+	protected void storeSpoolFile(IZosBatchJobOutputSpoolFile spoolFile, Path artifactFile) throws ZosBatchException {
+		String records = retrieveSpoolFileRecords(spoolFile);
+		if (records == null) {
+			logger.trace("Spool file " + spoolFile.getDdname() + " for " + this.toString() + " not found, not archived");
+			return;
+		}
         try {
-			this.zosBatchManager.getZosManager().storeArtifact(artifactPath.resolve(fileName), spoolFile.getRecords(), ResultArchiveStoreContentType.TEXT);
+			this.zosBatchManager.getZosManager().storeArtifact(artifactFile, records, ResultArchiveStoreContentType.TEXT);
 		} catch (ZosManagerException e) {
 			throw new ZosBatchException(e);
 		}
@@ -413,6 +445,7 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
         
         // First, get a list of spool files
         this.jobFilesPath = RESTJOBS_PATH + SLASH + this.jobname.getName() + SLASH + this.jobid + "/files";
+        int listedSpoolFiles = jobOutput().size();
         HashMap<String, String> headers = new HashMap<>();
         IRseapiResponse response;
         try {
@@ -438,11 +471,7 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
                 String stepname = jsonNull(responseBody, "step name");
                 String procstep = jsonNull(responseBody, "proc step");
                 String ddname = responseBody.get("ddName").getAsString();
-                String records = null;
-                if (retrieveRecords) {
-                	records = getOutputFileContent(this.jobFilesPath + "/" + id + "/content");
-                }
-            	((IZosBatchJobOutputSpi) jobOutput()).addSpoolFile(stepname, procstep, ddname, id, records);
+            	((IZosBatchJobOutputSpi) jobOutput()).addSpoolFile(stepname, procstep, ddname, id, null);
             }
         } else {            
             // Error case
@@ -451,6 +480,12 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
             throw new ZosBatchException(displayMessage);
         }
         
+        // Then get the content of the spool files
+        if (retrieveRecords) {
+            List<IZosBatchJobOutputSpoolFile> spoolFiles = jobOutput().getSpoolFiles();
+            this.zosBatchManager.getSpoolFileExecutor(this.jobImage).execute(spoolFiles.subList(listedSpoolFiles, spoolFiles.size()), IZosBatchJobOutputSpoolFile::retrieve);
+        }
+        
         if (this.jobComplete) {
             this.outputComplete = true;
         }
@@ -535,6 +570,24 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
         return this.jobArchived;
     }
 
+    /**
+     * The result of the job from the last status update
+     * @return the highest CC, {@link Integer#MIN_VALUE} if it is non numeric or the job was not found, or null if the job is still running
+     */
+    protected Integer completionCode() {
+        if (this.jobNotFound) {
+            return Integer.MIN_VALUE;
+        }
+        if (isComplete()) {
+            String[] rc = this.retcode.split(" ");
+            if (rc.length == 2) {
+                return StringUtils.isNumeric(rc[1]) ? Integer.parseInt(rc[1]) : Integer.MIN_VALUE;
+            }
+            return Integer.MIN_VALUE;
+        }
+        return null;
+    }
+
     protected boolean isPurged() {
         return this.jobPurged;
     }
@@ -583,10 +636,9 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
             this.owner = jsonNull(responseBody, PROP_OWNER);
             this.type = jsonNull(responseBody, PROP_TYPE);
             this.statusString = jsonNull(responseBody, PROP_STATUS);
-            if (this.statusString != null && "COMPLETION".equals(this.statusString) ||
-            	this.statusString != null && "ABEND".equals(this.statusString)) {
-                this.jobComplete = true;
-            } else if (this.statusString != null && "NOT_FOUND".equals(this.statusString)) {
+            boolean complete = this.statusString != null && "COMPLETION".equals(this.statusString) ||
+            	this.statusString != null && "ABEND".equals(this.statusString);
+            if (!complete && this.statusString != null && "NOT_FOUND".equals(this.statusString)) {
         		logger.trace("JOBID=" + this.jobid + " JOBNAME=" + this.jobname.getName() + " NOT FOUND");
                 this.jobNotFound = true;
                 this.status = JobStatus.NOTFOUND;
@@ -598,6 +650,10 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
             } else {
                 this.retcode = StringUtils.repeat(QUERY, 4);
             }
+            if (complete) {
+                //*** Set last, so a test thread that sees the job complete also sees its return code
+                this.jobComplete = true;
+            }
             logger.trace(jobStatus());
         } else {
             // Error case
@@ -695,7 +751,7 @@ public class RseapiZosBatchJobImpl implements IZosBatchJob {
 
     protected void archiveJobOutput() throws ZosBatchException {
         if (shouldArchive() && getStatus() != JobStatus.NOTFOUND && (!isArchived() || !this.jobComplete)) {
-        	retrieveOutput();
+        	listSpoolFiles();
             Path rasPath = this.zosBatchManager.getCurrentTestMethodArchiveFolder();
             String folderName = this.jobname.getName() + "_" + this.jobid + "_" + this.retcode.replace(" ", "-").replace(StringUtils.repeat(QUERY, 4), "UNKNOWN");
             rasPath = rasPath.resolve(this.zosBatchManager.getZosManager().buildUniquePathName(rasPath, folderName));
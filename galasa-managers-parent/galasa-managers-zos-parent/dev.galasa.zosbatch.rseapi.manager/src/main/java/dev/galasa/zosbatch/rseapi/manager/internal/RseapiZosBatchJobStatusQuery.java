@@ -0,0 +1,140 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.rseapi.manager.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import dev.galasa.zos.IZosImage;
+import dev.galasa.zosbatch.ZosBatchException;
+import dev.galasa.zosbatch.ZosBatchManagerException;
+import dev.galasa.zosbatch.spi.IZosBatchJobStatusQuery;
+import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
+import dev.galasa.zosrseapi.IRseapiResponse;
+import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
+import dev.galasa.zosrseapi.RseapiException;
+import dev.galasa.zosrseapi.RseapiManagerException;
+
+/**
+ * Updates the status of the jobs being waited on for an image using RSE API. Jobs with the same owner are
+ * checked with a single list jobs request, filtered by the common prefix of their jobnames. Only the jobs
+ * that list jobs shows have finished are then retrieved individually, for their return code
+ *
+ */
+public class RseapiZosBatchJobStatusQuery implements IZosBatchJobStatusQuery<RseapiZosBatchJobImpl> {
+
+    private final RseapiZosBatchManagerImpl zosBatchManager;
+    private final IZosImage image;
+
+    private static final int JOBNAME_LENGTH = 8;
+    private static final List<String> RUNNING_STATUSES = Arrays.asList("HOLD", "ACTIVE");
+
+    private static final Log logger = LogFactory.getLog(RseapiZosBatchJobStatusQuery.class);
+
+    public RseapiZosBatchJobStatusQuery(RseapiZosBatchManagerImpl zosBatchManager, IZosImage image) {
+        this.zosBatchManager = zosBatchManager;
+        this.image = image;
+    }
+
+    @Override
+    public void updateJobStatus(Collection<RseapiZosBatchJobImpl> jobs) throws ZosBatchException {
+        Map<String, List<RseapiZosBatchJobImpl>> jobsByOwner = new LinkedHashMap<>();
+        for (RseapiZosBatchJobImpl job : jobs) {
+            String owner = job.getOwner();
+            if (owner.contains("?")) {
+                job.updateJobStatus();
+            } else {
+                jobsByOwner.computeIfAbsent(owner, k -> new ArrayList<>()).add(job);
+            }
+        }
+
+        for (Entry<String, List<RseapiZosBatchJobImpl>> entry : jobsByOwner.entrySet()) {
+            List<RseapiZosBatchJobImpl> ownerJobs = entry.getValue();
+            if (ownerJobs.size() == 1) {
+                ownerJobs.get(0).updateJobStatus();
+                continue;
+            }
+            Map<String, String> listedJobs = listJobs(entry.getKey(), jobnamePrefix(ownerJobs));
+            for (RseapiZosBatchJobImpl job : ownerJobs) {
+                String status = listedJobs.get(job.getJobId());
+                if (status != null && RUNNING_STATUSES.contains(status)) {
+                    job.setStatusString(status);
+                } else {
+                    // *** Finished or no longer listed, so get the full status
+                    job.updateJobStatus();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Integer completionCode(RseapiZosBatchJobImpl job) {
+        return job.completionCode();
+    }
+
+    protected String jobnamePrefix(List<RseapiZosBatchJobImpl> jobs) {
+        String prefix = null;
+        for (RseapiZosBatchJobImpl job : jobs) {
+            String name = job.getJobname().getName();
+            prefix = prefix == null ? name : StringUtils.getCommonPrefix(prefix, name);
+        }
+        if (prefix == null || prefix.length() >= JOBNAME_LENGTH) {
+            return prefix;
+        }
+        return prefix + "*";
+    }
+
+    protected Map<String, String> listJobs(String owner, String prefix) throws ZosBatchException {
+        IRseapiRestApiProcessor rseapiApiProcessor;
+        try {
+            rseapiApiProcessor = this.zosBatchManager.getRseapiManager().newRseapiRestApiProcessor(this.image, this.zosBatchManager.getZosManager().getZosBatchPropertyBatchRestrictToImage(this.image.getImageID()));
+        } catch (RseapiManagerException | ZosBatchManagerException e) {
+            throw new ZosBatchException(e);
+        }
+        String listJobsPath = RseapiZosBatchJobImpl.RESTJOBS_PATH + "?prefix=" + prefix + "&owner=" + owner;
+        IRseapiResponse response;
+        try {
+            response = rseapiApiProcessor.sendRequest(RseapiRequestType.GET, listJobsPath, new HashMap<>(), null, RseapiZosBatchJobImpl.VALID_STATUS_CODES, true);
+        } catch (RseapiException e) {
+            throw new ZosBatchException(e);
+        }
+
+        Map<String, String> listedJobs = new HashMap<>();
+        if (response.getStatusCode() == HttpStatus.SC_OK) {
+            JsonObject responseBody;
+            try {
+                responseBody = response.getJsonContent();
+            } catch (RseapiException e) {
+                throw new ZosBatchException(e);
+            }
+            logger.trace(responseBody);
+            for (JsonElement jsonElement : responseBody.get("items").getAsJsonArray()) {
+                JsonObject jobStatus = jsonElement.getAsJsonObject();
+                listedJobs.put(jobStatus.get("jobId").getAsString(), jobStatus.get("status").getAsString());
+            }
+        } else {
+            // Error case
+            String displayMessage = RseapiZosBatchJobImpl.buildErrorString("List jobs", response);
+            logger.error(displayMessage);
+            throw new ZosBatchException(displayMessage);
+        }
+        return listedJobs;
+    }
+}
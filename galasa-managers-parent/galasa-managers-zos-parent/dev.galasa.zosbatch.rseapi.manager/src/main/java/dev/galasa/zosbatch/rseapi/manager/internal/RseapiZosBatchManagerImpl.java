@@ -38,6 +38,8 @@ import dev.galasa.zosbatch.ZosBatchField;
 import dev.galasa.zosbatch.ZosBatchJobname;
 import dev.galasa.zosbatch.ZosBatchManagerException;
 import dev.galasa.zosbatch.spi.IZosBatchSpi;
+import dev.galasa.zosbatch.spi.ZosBatchJobMonitor;
+import dev.galasa.zosbatch.spi.ZosBatchSpoolFileExecutor;
 import dev.galasa.zosrseapi.spi.IRseapiManagerSpi;
 
 /**
@@ -65,6 +67,8 @@ public class RseapiZosBatchManagerImpl extends AbstractManager implements IZosBa
 
     private final HashMap<String, RseapiZosBatchImpl> taggedZosBatches = new HashMap<>();
     private final HashMap<String, RseapiZosBatchImpl> zosBatches = new HashMap<>();
+    private final HashMap<String, ZosBatchJobMonitor<RseapiZosBatchJobImpl>> jobMonitors = new HashMap<>();
+    private final HashMap<String, ZosBatchSpoolFileExecutor> spoolFileExecutors = new HashMap<>();
 
     private Path artifactsRoot;
     public Path getArtifactsRoot() {
@@ -200,6 +204,8 @@ public class RseapiZosBatchManagerImpl extends AbstractManager implements IZosBa
         } catch (ZosBatchException e) {
             logger.error("Problem in endOfTestRun()", e);
         }
+        shutdownJobMonitors();
+        shutdownSpoolFileExecutors();
     }
     
     protected void cleanup(boolean endOfTest) throws ZosBatchException {
@@ -211,6 +217,50 @@ public class RseapiZosBatchManagerImpl extends AbstractManager implements IZosBa
         }
     }
     
+    /**
+     * Returns the monitor shared by all the jobs being waited on for an image
+     * @param image zOS Image
+     * @return the job monitor
+     */
+    protected synchronized ZosBatchJobMonitor<RseapiZosBatchJobImpl> getJobMonitor(IZosImage image) {
+        return this.jobMonitors.computeIfAbsent(image.getImageID(), imageId -> new ZosBatchJobMonitor<>(imageId, new RseapiZosBatchJobStatusQuery(this, image)));
+    }
+    
+    protected synchronized void shutdownJobMonitors() {
+        for (ZosBatchJobMonitor<RseapiZosBatchJobImpl> jobMonitor : this.jobMonitors.values()) {
+            jobMonitor.shutdown();
+        }
+        this.jobMonitors.clear();
+    }
+    
+    /**
+     * Returns the executor shared by all the jobs on an image for retrieving and archiving spool files
+     * @param image zOS Image
+     * @return the spool file executor
+     * @throws ZosBatchException
+     */
+    protected synchronized ZosBatchSpoolFileExecutor getSpoolFileExecutor(IZosImage image) throws ZosBatchException {
+        ZosBatchSpoolFileExecutor spoolFileExecutor = this.spoolFileExecutors.get(image.getImageID());
+        if (spoolFileExecutor == null) {
+            int threads;
+            try {
+                threads = getZosManager().getZosBatchPropertySpoolFileThreads(image.getImageID());
+            } catch (ZosBatchManagerException e) {
+                throw new ZosBatchException("Unable to get spool file threads property value", e);
+            }
+            spoolFileExecutor = new ZosBatchSpoolFileExecutor(image.getImageID(), threads);
+            this.spoolFileExecutors.put(image.getImageID(), spoolFileExecutor);
+        }
+        return spoolFileExecutor;
+    }
+    
+    protected synchronized void shutdownSpoolFileExecutors() {
+        for (ZosBatchSpoolFileExecutor spoolFileExecutor : this.spoolFileExecutors.values()) {
+            spoolFileExecutor.shutdown();
+        }
+        this.spoolFileExecutors.clear();
+    }
+    
     @GenerateAnnotatedField(annotation=ZosBatch.class)
     public IZosBatch generateZosBatch(Field field, List<Annotation> annotations) throws ZosManagerException {
         ZosBatch annotationZosBatch = field.getAnnotation(ZosBatch.class);
@@ -12,8 +12,10 @@ import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.nio.file.spi.FileSystemProvider;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +37,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 
+import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.framework.spi.ras.ResultArchiveStorePath;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
@@ -46,6 +49,8 @@ import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosbatch.ZosBatchJobcard;
 import dev.galasa.zosbatch.ZosBatchManagerException;
 import dev.galasa.zosbatch.spi.IZosBatchJobOutputSpi;
+import dev.galasa.zosbatch.spi.ZosBatchJobMonitor;
+import dev.galasa.zosbatch.spi.ZosBatchSpoolFileExecutor;
 import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
@@ -193,6 +198,7 @@ public class TestRseapiZosBatchJobImpl {
         Mockito.when(zosBatchManagerMock.getRseapiManager()).thenReturn(rseapiManagerMock);
         Mockito.when(zosBatchManagerMock.getZosManager()).thenReturn(zosManagerMock);
         Mockito.when(zosManagerMock.buildUniquePathName(Mockito.any(), Mockito.any())).thenReturn(FIXED_PATH_NAME);
+        Mockito.when(zosBatchManagerMock.getSpoolFileExecutor(Mockito.any())).thenReturn(new ZosBatchSpoolFileExecutor(FIXED_IMAGE_ID, 1));
         
         Mockito.when(zosBatchJobcardMock.getJobcard(Mockito.any(), Mockito.any())).thenReturn(FIXED_JOBCARD);
         
@@ -394,6 +400,8 @@ public class TestRseapiZosBatchJobImpl {
     @Test
     public void testWaitForJob() throws RseapiException, ZosBatchManagerException {
         Mockito.doReturn(true).when(zosBatchJobSpy).submitted();
+        ZosBatchJobMonitor<RseapiZosBatchJobImpl> jobMonitor = new ZosBatchJobMonitor<>(FIXED_IMAGE_ID, new RseapiZosBatchJobStatusQuery(zosBatchManagerMock, zosImageMock));
+        Mockito.when(zosBatchManagerMock.getJobMonitor(Mockito.any())).thenReturn(jobMonitor);
         
         Mockito.when(rseapiApiProcessorMock.sendRequest(Mockito.eq(RseapiRequestType.GET), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMockStatus);
 
@@ -423,6 +431,25 @@ public class TestRseapiZosBatchJobImpl {
         Assert.assertEquals("waitForJob() should return the Integer.MIN_VALUE", Integer.MIN_VALUE, zosBatchJobSpy.waitForJob());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWaitForJobAsync() throws Exception {
+        Mockito.doReturn(true).when(zosBatchJobSpy).submitted();
+        ZosBatchJobMonitor<RseapiZosBatchJobImpl> jobMonitorMock = Mockito.mock(ZosBatchJobMonitor.class);
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Mockito.when(jobMonitorMock.waitForJob(zosBatchJobSpy, 2)).thenReturn(future);
+        Mockito.when(zosBatchManagerMock.getJobMonitor(zosImageMock)).thenReturn(jobMonitorMock);
+        
+        Assert.assertEquals("waitForJobAsync() should return the future from the job monitor", future, zosBatchJobSpy.waitForJobAsync());
+        
+        Mockito.doReturn(false).when(zosBatchJobSpy).submitted();
+        String expectedMessage = "Job has not been submitted by manager";
+        ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+            zosBatchJobSpy.waitForJobAsync();
+        });
+        Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+
     @Test
     public void testWaitForJobNotSubmittedException() throws ZosBatchException {
     	Mockito.doReturn("????????").when(zosBatchJobSpy).getJobId();
@@ -608,24 +635,26 @@ public class TestRseapiZosBatchJobImpl {
         Mockito.doReturn("").when(zosBatchJobOutputSpoolFileMock).getStepname();
         Mockito.doReturn("").when(zosBatchJobOutputSpoolFileMock).getProcstep();
         Mockito.doReturn(FIXED_DDNAME).when(zosBatchJobOutputSpoolFileMock).getDdname();
-        Mockito.doReturn("content").when(zosBatchJobOutputSpoolFileMock).getRecords();
+        PowerMockito.doReturn(FIXED_CONTENT).when(zosBatchJobSpy).retrieveSpoolFileRecords(Mockito.any());
         Whitebox.setInternalState(zosBatchJobSpy, "jobComplete", false);
 
         String expectedMessage = "Archiving batch job " + FIXED_JOBNAME + "(" + FIXED_JOBID + ") to "+ FIXED_PATH_NAME;
     	zosBatchJobSpy.saveOutputToResultsArchive(FIXED_PATH_NAME);
         Assert.assertEquals("saveOutputToTestResultsArchive() should log expected message", expectedMessage, logMessage);
+        Mockito.verify(zosManagerMock, Mockito.times(1)).storeArtifact(Mockito.any(), Mockito.eq(FIXED_CONTENT), Mockito.any());
+        Mockito.verify(zosBatchJobOutputSpoolFileMock, Mockito.never()).getRecords();
 
         Whitebox.setInternalState(zosBatchJobSpy, "jobComplete", true);
-    	Mockito.doReturn(null, zosBatchJobOutputMock).when(zosBatchJobSpy).jobOutput();
-    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).retrieveOutput();
+    	Mockito.doReturn(true, false).when(zosBatchJobOutputMock).isEmpty();
+    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).listSpoolFiles();
         Mockito.doReturn(FIXED_STEPNAME).when(zosBatchJobOutputSpoolFileMock).getStepname();
         Mockito.doReturn(FIXED_PROCSTEP).when(zosBatchJobOutputSpoolFileMock).getProcstep();
         Mockito.doReturn(true, false).when(zosBatchJobOutputSpoolFileIteratorMock).hasNext();
 		
     	zosBatchJobSpy.saveOutputToResultsArchive(FIXED_PATH_NAME);
         Assert.assertEquals("saveOutputToTestResultsArchive() should log expected message", expectedMessage, logMessage);
+        Mockito.verify(zosBatchJobSpy, Mockito.times(1)).listSpoolFiles();
 
-    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).jobOutput();
         Mockito.doReturn(true, false).when(zosBatchJobOutputSpoolFileIteratorMock).hasNext();
         PowerMockito.doThrow(new ZosManagerException(EXCEPTION)).when(zosManagerMock).storeArtifact(Mockito.any(), Mockito.any(), Mockito.any());
         ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
@@ -634,6 +663,29 @@ public class TestRseapiZosBatchJobImpl {
     	Assert.assertEquals("exception should contain expected message", EXCEPTION, expectedException.getCause().getMessage());
     }
     
+    @Test
+    public void testStoreSpoolFile() throws ZosBatchException, ZosManagerException, IOException {
+    	Path artifactFileMock = newMockedPath(false);
+        Whitebox.setInternalState(zosBatchJobSpy, "jobid", FIXED_JOBID);
+        Mockito.doReturn(FIXED_DDNAME).when(zosBatchJobOutputSpoolFileMock).getDdname();
+        PowerMockito.doReturn(FIXED_CONTENT).when(zosBatchJobSpy).retrieveSpoolFileRecords(zosBatchJobOutputSpoolFileMock);
+        zosBatchJobSpy.storeSpoolFile(zosBatchJobOutputSpoolFileMock, artifactFileMock);
+        Mockito.verify(zosManagerMock, Mockito.times(1)).storeArtifact(artifactFileMock, FIXED_CONTENT, ResultArchiveStoreContentType.TEXT);
+        
+        Mockito.clearInvocations(zosManagerMock);
+        PowerMockito.doReturn(null).when(zosBatchJobSpy).retrieveSpoolFileRecords(zosBatchJobOutputSpoolFileMock);
+        zosBatchJobSpy.storeSpoolFile(zosBatchJobOutputSpoolFileMock, artifactFileMock);
+        Mockito.verify(zosManagerMock, Mockito.never()).storeArtifact(Mockito.any(), Mockito.anyString(), Mockito.any());
+    }
+    
+    @Test
+    public void testRetrieveSpoolFileRecords() throws ZosBatchException {
+        Mockito.doReturn(FIXED_STEPNAME).when(zosBatchJobOutputSpoolFileMock).getId();
+        Whitebox.setInternalState(zosBatchJobSpy, "jobFilesPath", FIXED_PATH);
+        PowerMockito.doReturn(FIXED_CONTENT).when(zosBatchJobSpy).getOutputFileContent(FIXED_PATH + "/" + FIXED_STEPNAME + "/content");
+        Assert.assertEquals("retrieveSpoolFileRecords() should return the spool file content", FIXED_CONTENT, zosBatchJobSpy.retrieveSpoolFileRecords(zosBatchJobOutputSpoolFileMock));
+    }
+    
     @Test
     public void testGetOutput() throws ZosBatchException, RseapiException {
     	PowerMockito.doReturn(true).when(zosBatchJobSpy).submitted();
@@ -655,6 +707,12 @@ public class TestRseapiZosBatchJobImpl {
 
     	zosBatchJobSpy.getOutput(false);
     	Assert.assertEquals("getOutput() should set jobOutput", zosBatchJobOutputMock, zosBatchJobSpy.jobOutput());
+    	
+    	Mockito.doReturn(Arrays.asList(zosBatchJobOutputSpoolFileMock)).when(zosBatchJobOutputMock).getSpoolFiles();
+    	zosBatchJobSpy.getOutput(false);
+    	Mockito.verify(zosBatchJobOutputSpoolFileMock, Mockito.never()).retrieve();
+    	zosBatchJobSpy.getOutput(true);
+    	Mockito.verify(zosBatchJobOutputSpoolFileMock, Mockito.times(1)).retrieve();
     }
     
     @Test
@@ -880,7 +938,7 @@ public class TestRseapiZosBatchJobImpl {
     
     @Test
     public void testArchiveJobOutput() throws Exception {
-    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).retrieveOutput();
+    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).listSpoolFiles();
     	Whitebox.setInternalState(zosBatchJobSpy, "jobid", FIXED_JOBID);
     	Whitebox.setInternalState(zosBatchJobSpy, "retcode", FIXED_RETCODE_0000);
     	Mockito.doNothing().when(zosBatchJobSpy).saveOutputToResultsArchive(Mockito.any());
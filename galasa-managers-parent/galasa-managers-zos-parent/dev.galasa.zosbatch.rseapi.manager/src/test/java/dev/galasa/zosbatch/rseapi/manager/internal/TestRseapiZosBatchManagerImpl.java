@@ -39,6 +39,7 @@ import dev.galasa.zosbatch.IZosBatch;
 import dev.galasa.zosbatch.IZosBatchJobname;
 import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosbatch.ZosBatchManagerException;
+import dev.galasa.zosbatch.spi.ZosBatchSpoolFileExecutor;
 import dev.galasa.zosrseapi.internal.RseapiManagerImpl;
 
 @RunWith(PowerMockRunner.class)
@@ -314,6 +315,23 @@ public class TestRseapiZosBatchManagerImpl {
         Assert.assertEquals("getZosBatch() should return the existing IZosBatch instance", zosBatch, zosBatch2);
     }
     
+    @Test
+    public void testGetSpoolFileExecutor() throws Exception {
+        Mockito.when(zosManagerMock.getZosBatchPropertySpoolFileThreads(Mockito.any())).thenReturn(4);
+        ZosBatchSpoolFileExecutor spoolFileExecutor = zosBatchManagerSpy.getSpoolFileExecutor(zosImageMock);
+        Assert.assertEquals("getSpoolFileExecutor() should use the spool threads property", 4, (int) Whitebox.getInternalState(spoolFileExecutor, "threads"));
+        Assert.assertSame("getSpoolFileExecutor() should return the existing executor for the image", spoolFileExecutor, zosBatchManagerSpy.getSpoolFileExecutor(zosImageMock));
+        Mockito.verify(zosManagerMock, Mockito.times(1)).getZosBatchPropertySpoolFileThreads("image");
+        zosBatchManagerSpy.shutdownSpoolFileExecutors();
+        
+        Mockito.when(zosManagerMock.getZosBatchPropertySpoolFileThreads(Mockito.any())).thenThrow(new ZosBatchManagerException(EXCEPTION));
+        String expectedMessage = "Unable to get spool file threads property value";
+        ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+        	zosBatchManagerSpy.getSpoolFileExecutor(zosImageMock);
+        });
+        Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+    
     class DummyTestClass {
         @dev.galasa.zosbatch.ZosBatch(imageTag="TAG")
         public dev.galasa.zosbatch.IZosBatch zosBatch;
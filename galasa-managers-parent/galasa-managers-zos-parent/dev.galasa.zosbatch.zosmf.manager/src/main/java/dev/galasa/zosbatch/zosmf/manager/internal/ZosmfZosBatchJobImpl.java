@@ -5,14 +5,20 @@
  */
 package dev.galasa.zosbatch.zosmf.manager.internal;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -26,6 +32,8 @@ import com.google.gson.JsonObject;
 import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
+import dev.galasa.zos.spi.ZosMetricsRecorder;
+import dev.galasa.zos.spi.ZosMetricsRecorder.Metric;
 import dev.galasa.zosbatch.IZosBatchJob;
 import dev.galasa.zosbatch.IZosBatchJobOutput;
 import dev.galasa.zosbatch.IZosBatchJobOutputSpoolFile;
@@ -34,6 +42,8 @@ import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosbatch.ZosBatchJobcard;
 import dev.galasa.zosbatch.ZosBatchManagerException;
 import dev.galasa.zosbatch.spi.IZosBatchJobOutputSpi;
+import dev.galasa.zosbatch.spi.IZosBatchJobSpi;
+import dev.galasa.zosbatch.spi.ZosBatchJobMonitor;
 import dev.galasa.zosmf.IZosmf.ZosmfCustomHeaders;
 import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
 import dev.galasa.zosmf.IZosmfResponse;
@@ -45,7 +55,7 @@ import dev.galasa.zosmf.ZosmfManagerException;
  * Implementation of {@link IZosBatchJob} using zOS/MF
  *
  */
-public class ZosmfZosBatchJobImpl implements IZosBatchJob {
+public class ZosmfZosBatchJobImpl implements IZosBatchJobSpi {
     
     private IZosmfRestApiProcessor zosmfApiProcessor;
 	private ZosmfZosBatchManagerImpl zosBatchManager;
@@ -58,14 +68,14 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
     private String intdrRecfm = "F";    
     private int jobWaitTimeout;
     
-    private String jobid;         
-    private String owner;         
-    private String type;         
-    private JobStatus status;         
-    private String statusString;
-    private boolean jobNotFound;
-    private String retcode;
-    private boolean jobComplete;
+    private volatile String jobid;         
+    private volatile String owner;         
+    private volatile String type;         
+    private volatile JobStatus status;         
+    private volatile String statusString;
+    private volatile boolean jobNotFound;
+    private volatile String retcode;
+    private volatile boolean jobComplete;
     private boolean outputComplete;
     private boolean jobArchived;
     private boolean jobPurged;
@@ -248,34 +258,17 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
 
     @Override
     public int waitForJob() throws ZosBatchException {
+        return ZosBatchJobMonitor.getResult(waitForJobAsync());
+    }
+    
+    @Override
+    public CompletableFuture<Integer> waitForJobAsync() throws ZosBatchException {
         if (!submitted()) {
             throw new ZosBatchException(LOG_JOB_NOT_SUBMITTED);
         }
         logger.info("Waiting up to " + jobWaitTimeout + " second(s) for "+ this.jobid + " " + this.jobname.getName() + " to complete");
         
-        LocalDateTime timeoutTime = LocalDateTime.now().plusSeconds(jobWaitTimeout);
-        while (LocalDateTime.now().isBefore(timeoutTime)) {
-            updateJobStatus();
-            if (this.jobNotFound) {
-                return Integer.MIN_VALUE;
-            }
-            try {
-                if (isComplete()) {
-                    String[] rc = this.retcode.split(" ");
-                    if (rc.length == 2) {
-                        return StringUtils.isNumeric(rc[1]) ? Integer.parseInt(rc[1]) : Integer.MIN_VALUE;
-                    }
-                    return Integer.MIN_VALUE;
-                }
-                
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                logger.error("waitForJob Interrupted", e);
-                Thread.currentThread().interrupt();
-                throw new ZosBatchException(e);
-            }
-        }
-        return Integer.MIN_VALUE;
+        return this.zosBatchManager.getJobMonitor(this.jobImage).waitForJob(this, this.jobWaitTimeout);
     }    
     
     @Override
@@ -335,16 +328,24 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
 
     @Override
     public void saveOutputToResultsArchive(String rasPath) throws ZosBatchException {
-        if (jobOutput() == null) {
-            retrieveOutput();
+        if (jobOutput().isEmpty()) {
+            listSpoolFiles();
         }
         Path artifactPath = this.zosBatchManager.getArtifactsRoot().resolve(rasPath);
 		logger.info("Archiving batch job " + this.toString() + " to " + artifactPath.toString());
         
-        Iterator<IZosBatchJobOutputSpoolFile> iterator = jobOutput().iterator();
-        while (iterator.hasNext()) {
-            saveSpoolFile(iterator.next(), artifactPath);
+        // *** Name the files first, so spool files with the same name are numbered in order, then stream them into the archive
+        Map<IZosBatchJobOutputSpoolFile, Path> artifactFiles = new LinkedHashMap<>();
+        Set<String> fileNames = new HashSet<>();
+        for (IZosBatchJobOutputSpoolFile spoolFile : jobOutput()) {
+            String name = spoolFileName(spoolFile);
+            String fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, name);
+            for (int uniqueId = 1; !fileNames.add(fileName); uniqueId++) {
+                fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, name + "_" + uniqueId);
+            }
+            artifactFiles.put(spoolFile, artifactPath.resolve(fileName));
         }
+        this.zosBatchManager.getSpoolFileExecutor(this.jobImage).execute(artifactFiles.keySet(), spoolFile -> storeSpoolFile(spoolFile, artifactFiles.get(spoolFile)));
         if (isComplete()) {
         	this.jobArchived = true;
         }
@@ -377,7 +378,25 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
 		saveSpoolFile(spoolFile, artifactPath);
 	}
 
+	@Override
+	public String retrieveSpoolFileRecords(IZosBatchJobOutputSpoolFile spoolFile) throws ZosBatchException {
+		String records = getSpoolFileContent(spoolFile.getId(), spoolFile.getStepname(), spoolFile.getProcstep(), spoolFile.getDdname());
+		if (records != null) {
+			ZosMetricsRecorder.record(Metric.SPOOL_FILE_SIZE, records.length(), this.jobImage.getImageID());
+		}
+		return records;
+	}
+
 	protected void saveSpoolFile(IZosBatchJobOutputSpoolFile spoolFile, Path artifactPath) throws ZosBatchException {
+        String fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, spoolFileName(spoolFile));
+        try {
+			this.zosBatchManager.getZosManager().storeArtifact(artifactPath.resolve(fileName), spoolFile.getRecords(), ResultArchiveStoreContentType.TEXT);
+		} catch (ZosManagerException e) {
+			throw new ZosBatchException(e);
+		}
+	}
+
+	protected String spoolFileName(IZosBatchJobOutputSpoolFile spoolFile) {
         StringBuilder name = new StringBuilder();
         name.append(spoolFile.getJobname());
         name.append("_");
@@ -392,12 +411,48 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
         }
         name.append("_");
         name.append(spoolFile.getDdname());
-        String fileName = this.zosBatchManager.getZosManager().buildUniquePathName(artifactPath, name.toString());
+        return name.toString();
+	}
+
+	/**
+	 * Copy the content of a spool file straight from zOS/MF into the results archive, without holding it in memory
+	 * @param spoolFile the spool file
+	 * @param artifactFile the file to create
+	 * @throws ZosBatchException
+	 */
+	protected void storeSpoolFile(IZosBatchJobOutputSpoolFile spoolFile, Path artifactFile) throws ZosBatchException {
+    	String path = this.jobFilesPath + "/" + spoolFile.getId() + "/records";
+        HashMap<String, String> headers = new HashMap<>();
+        headers.put(ZosmfCustomHeaders.X_CSRF_ZOSMF_HEADER.toString(), "");
+        IZosmfResponse response;
         try {
-			this.zosBatchManager.getZosManager().storeArtifact(artifactPath.resolve(fileName), spoolFile.getRecords(), ResultArchiveStoreContentType.TEXT);
-		} catch (ZosManagerException e) {
-			throw new ZosBatchException(e);
-		}
+            response = this.zosmfApiProcessor.sendRequest(ZosmfRequestType.GET, path, headers, null, new ArrayList<>(Arrays.asList(HttpStatus.SC_OK, HttpStatus.SC_BAD_REQUEST, HttpStatus.SC_INTERNAL_SERVER_ERROR)), false);
+        } catch (ZosmfException e) {
+            throw new ZosBatchException(e);
+        }
+    
+        if (response.getStatusCode() == HttpStatus.SC_OK) {
+            try (InputStream content = (InputStream) response.getContent()) {
+                this.zosBatchManager.getZosManager().storeArtifactFromStream(artifactFile, content, ResultArchiveStoreContentType.TEXT);
+            } catch (ZosManagerException | IOException e) {
+                throw new ZosBatchException(e);
+            }
+        } else {            
+            // Error case
+            JsonObject errorResponseBody;
+            try {
+                errorResponseBody = response.getJsonContent();
+            } catch (ZosmfException e) {
+                throw new ZosBatchException(e);
+            }
+            if (this.jobComplete && spoolFileNotFound(errorResponseBody)) {
+                logger.trace("Spool file " + spoolFile.getDdname() + " for " + this.toString() + " not found, not archived");
+            } else {
+                String displayMessage = buildErrorString("Archive job output", errorResponseBody);
+                logger.error(displayMessage);
+                throw new ZosBatchException(displayMessage);
+            }
+        }
 	}
 
 	protected void getOutput(boolean retrieveRecords) throws ZosBatchException {
@@ -412,6 +467,7 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
         
         // First, get a list of spool files
         this.jobFilesPath = RESTJOBS_PATH + SLASH + this.jobname.getName() + SLASH + this.jobid + "/files";
+        int listedSpoolFiles = 0;
         HashMap<String, String> headers = new HashMap<>();
         headers.put(ZosmfCustomHeaders.X_CSRF_ZOSMF_HEADER.toString(), "");
         IZosmfResponse response;
@@ -437,17 +493,14 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
             } catch (ZosmfException e) {
                 throw new ZosBatchException(e);
             }
+            listedSpoolFiles = jobOutput().size();
             for (JsonElement jsonElement : jsonArray) {
                 JsonObject responseBody = jsonElement.getAsJsonObject();
                 String id = jsonNull(responseBody, PROP_ID);
                 String stepname = jsonNull(responseBody, "stepname");
                 String procstep = jsonNull(responseBody, "procstep");
                 String ddname = responseBody.get("ddname").getAsString();
-                String records = null;
-                if (retrieveRecords) {
-                	records = getSpoolFileContent(id, stepname, procstep, ddname);
-                }
-                ((IZosBatchJobOutputSpi) jobOutput()).addSpoolFile(stepname, procstep, ddname, id, records);
+                ((IZosBatchJobOutputSpi) jobOutput()).addSpoolFile(stepname, procstep, ddname, id, null);
             }
         } else if (response.getStatusCode() == HttpStatus.SC_NOT_FOUND && getStatus().equals(JobStatus.ACTIVE)) {
         	return;
@@ -458,6 +511,12 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
             throw new ZosBatchException(displayMessage);
         }
         
+        // Then get the content of the spool files together
+        if (retrieveRecords) {
+            List<IZosBatchJobOutputSpoolFile> spoolFiles = jobOutput().getSpoolFiles();
+            this.zosBatchManager.getSpoolFileExecutor(this.jobImage).execute(spoolFiles.subList(listedSpoolFiles, spoolFiles.size()), IZosBatchJobOutputSpoolFile::retrieve);
+        }
+        
         // Get the JCLIN
         if (retrieveRecords) {
         	getSpoolFileContent("JCL", null, null, null);
@@ -548,6 +607,24 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
         return this.jobArchived;
     }
 
+    /**
+     * The result of the job from the last status update
+     * @return the highest CC, {@link Integer#MIN_VALUE} if it is non numeric or the job was not found, or null if the job is still running
+     */
+    protected Integer completionCode() {
+        if (this.jobNotFound) {
+            return Integer.MIN_VALUE;
+        }
+        if (isComplete()) {
+            String[] rc = this.retcode.split(" ");
+            if (rc.length == 2) {
+                return StringUtils.isNumeric(rc[1]) ? Integer.parseInt(rc[1]) : Integer.MIN_VALUE;
+            }
+            return Integer.MIN_VALUE;
+        }
+        return null;
+    }
+
     protected boolean isPurged() {
         return this.jobPurged;
     }
@@ -593,21 +670,7 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
             
         logger.trace(responseBody);
         if (response.getStatusCode() == HttpStatus.SC_OK) {
-            this.jobNotFound = false;
-            this.owner = jsonNull(responseBody, PROP_OWNER);
-            this.type = jsonNull(responseBody, PROP_TYPE);
-            this.statusString = jsonNull(responseBody, PROP_STATUS);
-            if (this.statusString != null && "OUTPUT".equals(this.statusString)) {
-                this.jobComplete = true;
-            }
-            this.status = JobStatus.valueOfLabel(statusString);
-            String retcodeProperty = jsonNull(responseBody, PROP_RETCODE);
-            if (retcodeProperty != null) {
-                this.retcode = retcodeProperty;
-            } else {
-                this.retcode = StringUtils.repeat(QUERY, 4);
-            }
-            logger.trace(jobStatus());
+            setJobStatus(responseBody);
         } else {
             if (response.getStatusCode() == HttpStatus.SC_BAD_REQUEST &&
                     jsonZero(responseBody, PROP_RC) == 4 &&
@@ -624,6 +687,29 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
         }            
     }
 
+    /**
+     * Set the job status from a job document, as returned by a get job status or list jobs request
+     * @param responseBody the job document
+     */
+    protected void setJobStatus(JsonObject responseBody) {
+        this.jobNotFound = false;
+        this.owner = jsonNull(responseBody, PROP_OWNER);
+        this.type = jsonNull(responseBody, PROP_TYPE);
+        this.statusString = jsonNull(responseBody, PROP_STATUS);
+        this.status = JobStatus.valueOfLabel(statusString);
+        String retcodeProperty = jsonNull(responseBody, PROP_RETCODE);
+        if (retcodeProperty != null) {
+            this.retcode = retcodeProperty;
+        } else {
+            this.retcode = StringUtils.repeat(QUERY, 4);
+        }
+        if (this.statusString != null && "OUTPUT".equals(this.statusString)) {
+            //*** Set last, so a test thread that sees the job complete also sees its return code
+            this.jobComplete = true;
+        }
+        logger.trace(jobStatus());
+    }
+
     protected String getSpoolFileContent(String id, String stepname, String procstep, String ddname) throws ZosBatchException {
     
     	String path = this.jobFilesPath + "/" + id + "/records";
@@ -808,7 +894,7 @@ public class ZosmfZosBatchJobImpl implements IZosBatchJob {
 
     protected void archiveJobOutput() throws ZosBatchException {
     	if (shouldArchive() && getStatus() != JobStatus.NOTFOUND && (!isArchived() || !this.jobComplete)) {
-    		retrieveOutput();
+    		listSpoolFiles();
             String folderName = this.jobname.getName() + "_" + this.jobid + "_" + getRetcode().replace(" ", "-");
             Path rasPath = this.testMethodArchiveFolder.resolve(this.zosBatchManager.getZosManager().buildUniquePathName(testMethodArchiveFolder, folderName));
             saveOutputToResultsArchive(rasPath.toString());
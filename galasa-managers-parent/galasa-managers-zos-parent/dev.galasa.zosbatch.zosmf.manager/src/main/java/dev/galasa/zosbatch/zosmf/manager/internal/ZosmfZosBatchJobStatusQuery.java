@@ -0,0 +1,144 @@
+/*
+ * Licensed Materials - Property of IBM
+ *
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosbatch.zosmf.manager.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpStatus;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import dev.galasa.zos.IZosImage;
+import dev.galasa.zosbatch.ZosBatchException;
+import dev.galasa.zosbatch.ZosBatchManagerException;
+import dev.galasa.zosbatch.spi.IZosBatchJobStatusQuery;
+import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
+import dev.galasa.zosmf.IZosmfResponse;
+import dev.galasa.zosmf.IZosmfRestApiProcessor;
+import dev.galasa.zosmf.ZosmfException;
+import dev.galasa.zosmf.ZosmfManagerException;
+
+/**
+ * Updates the status of the jobs being waited on for an image using zOS/MF. Jobs with the same owner are
+ * updated from a single list jobs request, filtered by the common prefix of their jobnames
+ *
+ */
+public class ZosmfZosBatchJobStatusQuery implements IZosBatchJobStatusQuery<ZosmfZosBatchJobImpl> {
+
+    private final ZosmfZosBatchManagerImpl zosBatchManager;
+    private final IZosImage image;
+
+    private static final int JOBNAME_LENGTH = 8;
+
+    private static final Log logger = LogFactory.getLog(ZosmfZosBatchJobStatusQuery.class);
+
+    public ZosmfZosBatchJobStatusQuery(ZosmfZosBatchManagerImpl zosBatchManager, IZosImage image) {
+        this.zosBatchManager = zosBatchManager;
+        this.image = image;
+    }
+
+    @Override
+    public void updateJobStatus(Collection<ZosmfZosBatchJobImpl> jobs) throws ZosBatchException {
+        Map<String, List<ZosmfZosBatchJobImpl>> jobsByOwner = new LinkedHashMap<>();
+        for (ZosmfZosBatchJobImpl job : jobs) {
+            String owner = job.getOwner();
+            if (owner.contains("?")) {
+                job.updateJobStatus();
+            } else {
+                jobsByOwner.computeIfAbsent(owner, k -> new ArrayList<>()).add(job);
+            }
+        }
+
+        for (Entry<String, List<ZosmfZosBatchJobImpl>> entry : jobsByOwner.entrySet()) {
+            List<ZosmfZosBatchJobImpl> ownerJobs = entry.getValue();
+            if (ownerJobs.size() == 1) {
+                ownerJobs.get(0).updateJobStatus();
+                continue;
+            }
+            Map<String, JsonObject> listedJobs = listJobs(entry.getKey(), jobnamePrefix(ownerJobs));
+            for (ZosmfZosBatchJobImpl job : ownerJobs) {
+                JsonObject jobStatus = listedJobs.get(job.getJobId());
+                if (jobStatus != null) {
+                    job.setJobStatus(jobStatus);
+                } else {
+                    // *** No longer listed, e.g. purged, so check it directly
+                    job.updateJobStatus();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Integer completionCode(ZosmfZosBatchJobImpl job) {
+        return job.completionCode();
+    }
+
+    protected String jobnamePrefix(List<ZosmfZosBatchJobImpl> jobs) {
+        String prefix = null;
+        for (ZosmfZosBatchJobImpl job : jobs) {
+            String name = job.getJobname().getName();
+            prefix = prefix == null ? name : StringUtils.getCommonPrefix(prefix, name);
+        }
+        if (prefix == null || prefix.length() >= JOBNAME_LENGTH) {
+            return prefix;
+        }
+        return prefix + "*";
+    }
+
+    protected Map<String, JsonObject> listJobs(String owner, String prefix) throws ZosBatchException {
+        IZosmfRestApiProcessor zosmfApiProcessor;
+        try {
+            zosmfApiProcessor = this.zosBatchManager.getZosmfManager().newZosmfRestApiProcessor(this.image, this.zosBatchManager.getZosManager().getZosBatchPropertyBatchRestrictToImage(this.image.getImageID()));
+        } catch (ZosmfManagerException | ZosBatchManagerException e) {
+            throw new ZosBatchException(e);
+        }
+        String listJobsPath = ZosmfZosBatchJobImpl.RESTJOBS_PATH + "?owner=" + owner + "&prefix=" + prefix;
+        IZosmfResponse response;
+        try {
+            response = zosmfApiProcessor.sendRequest(ZosmfRequestType.GET, listJobsPath, new HashMap<>(), null, new ArrayList<>(Arrays.asList(HttpStatus.SC_OK, HttpStatus.SC_BAD_REQUEST, HttpStatus.SC_INTERNAL_SERVER_ERROR)), true);
+        } catch (ZosmfException e) {
+            throw new ZosBatchException(e);
+        }
+
+        Map<String, JsonObject> listedJobs = new HashMap<>();
+        if (response.getStatusCode() == HttpStatus.SC_OK) {
+            JsonArray jsonArray;
+            try {
+                jsonArray = response.getJsonArrayContent();
+            } catch (ZosmfException e) {
+                throw new ZosBatchException(e);
+            }
+            logger.trace(jsonArray);
+            for (JsonElement jsonElement : jsonArray) {
+                JsonObject jobStatus = jsonElement.getAsJsonObject();
+                listedJobs.put(jobStatus.get("jobid").getAsString(), jobStatus);
+            }
+        } else {
+            // Error case - BAD_REQUEST or INTERNAL_SERVER_ERROR
+            String displayMessage;
+            try {
+                displayMessage = ZosmfZosBatchJobImpl.buildErrorString("List jobs", response.getJsonContent());
+            } catch (ZosmfException e) {
+                displayMessage = "Error with List jobs";
+            }
+            logger.error(displayMessage);
+            throw new ZosBatchException(displayMessage);
+        }
+        return listedJobs;
+    }
+}
@@ -5,15 +5,19 @@
  */
 package dev.galasa.zosbatch.zosmf.manager.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.nio.file.spi.FileSystemProvider;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +40,7 @@ import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 
+import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.framework.spi.ras.ResultArchiveStorePath;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
@@ -47,6 +52,8 @@ import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosbatch.ZosBatchJobcard;
 import dev.galasa.zosbatch.ZosBatchManagerException;
 import dev.galasa.zosbatch.spi.IZosBatchJobOutputSpi;
+import dev.galasa.zosbatch.spi.ZosBatchJobMonitor;
+import dev.galasa.zosbatch.spi.ZosBatchSpoolFileExecutor;
 import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
 import dev.galasa.zosmf.IZosmfResponse;
 import dev.galasa.zosmf.IZosmfRestApiProcessor;
@@ -187,6 +194,7 @@ public class TestZosmfZosBatchJobImpl {
         Mockito.when(zosBatchManagerMock.getZosmfManager()).thenReturn(zosmfManagerMock);
         Mockito.when(zosBatchManagerMock.getZosManager()).thenReturn(zosManagerMock);
         Mockito.when(zosManagerMock.buildUniquePathName(Mockito.any(), Mockito.any())).thenReturn(FIXED_PATH_NAME);
+        Mockito.when(zosBatchManagerMock.getSpoolFileExecutor(Mockito.any())).thenReturn(new ZosBatchSpoolFileExecutor(FIXED_IMAGE_ID, 1));
         
         Mockito.when(zosBatchJobcardMock.getJobcard(Mockito.any(), Mockito.any())).thenReturn(FIXED_JOBCARD);
         
@@ -385,6 +393,8 @@ public class TestZosmfZosBatchJobImpl {
     @Test
     public void testWaitForJob() throws ZosmfException, ZosBatchManagerException {
         Mockito.doReturn(true).when(zosBatchJobSpy).submitted();
+        ZosBatchJobMonitor<ZosmfZosBatchJobImpl> jobMonitor = new ZosBatchJobMonitor<>(FIXED_IMAGE_ID, new ZosmfZosBatchJobStatusQuery(zosBatchManagerMock, zosImageMock));
+        Mockito.when(zosBatchManagerMock.getJobMonitor(Mockito.any())).thenReturn(jobMonitor);
         
         Mockito.when(zosmfApiProcessorMock.sendRequest(Mockito.eq(ZosmfRequestType.GET), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(zosmfResponseMockStatus);
 
@@ -413,6 +423,25 @@ public class TestZosmfZosBatchJobImpl {
         Assert.assertEquals("waitForJob() should return the Integer.MIN_VALUE", Integer.MIN_VALUE, zosBatchJobSpy.waitForJob());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testWaitForJobAsync() throws Exception {
+        Mockito.doReturn(true).when(zosBatchJobSpy).submitted();
+        ZosBatchJobMonitor<ZosmfZosBatchJobImpl> jobMonitorMock = Mockito.mock(ZosBatchJobMonitor.class);
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Mockito.when(jobMonitorMock.waitForJob(zosBatchJobSpy, 2)).thenReturn(future);
+        Mockito.when(zosBatchManagerMock.getJobMonitor(zosImageMock)).thenReturn(jobMonitorMock);
+        
+        Assert.assertEquals("waitForJobAsync() should return the future from the job monitor", future, zosBatchJobSpy.waitForJobAsync());
+        
+        Mockito.doReturn(false).when(zosBatchJobSpy).submitted();
+        String expectedMessage = "Job has not been submitted by manager";
+        ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+            zosBatchJobSpy.waitForJobAsync();
+        });
+        Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+
     @Test
     public void testWaitForJobNotSubmittedException() throws ZosBatchException {
     	Mockito.doReturn("????????").when(zosBatchJobSpy).getJobId();
@@ -661,7 +690,7 @@ public class TestZosmfZosBatchJobImpl {
     @Test
     public void testSaveOutputToTestResultsArchive() throws ZosManagerException {
     	Mockito.when(zosBatchManagerMock.getZosManager()).thenReturn(zosManagerMock);
-        PowerMockito.doNothing().when(zosManagerMock).storeArtifact(Mockito.any(), Mockito.any(), Mockito.any());
+        PowerMockito.doNothing().when(zosBatchJobSpy).storeSpoolFile(Mockito.any(), Mockito.any());
         PowerMockito.doReturn("PATH_NAME").when(zosManagerMock).buildUniquePathName(Mockito.any(), Mockito.any());
     	Whitebox.setInternalState(zosBatchJobSpy, "jobid", FIXED_JOBID);
     	Whitebox.setInternalState(zosBatchJobSpy, "retcode", FIXED_RETCODE_0000);
@@ -681,22 +710,67 @@ public class TestZosmfZosBatchJobImpl {
     	zosBatchJobSpy.saveOutputToResultsArchive(FIXED_PATH_NAME);
         Assert.assertEquals("saveOutputToTestResultsArchive() should log expected message", expectedMessage, logMessage);
 
+        Mockito.verify(zosBatchJobSpy, Mockito.times(1)).storeSpoolFile(Mockito.eq(zosBatchJobOutputSpoolFileMock), Mockito.any());
+        Mockito.verify(zosBatchJobSpy, Mockito.never()).listSpoolFiles();
+
         Whitebox.setInternalState(zosBatchJobSpy, "jobComplete", true);
-    	Mockito.doReturn(null, zosBatchJobOutputMock).when(zosBatchJobSpy).jobOutput();
-    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).retrieveOutput();
+    	Mockito.doReturn(true, false).when(zosBatchJobOutputMock).isEmpty();
+    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).listSpoolFiles();
         Mockito.doReturn(FIXED_STEPNAME).when(zosBatchJobOutputSpoolFileMock).getStepname();
         Mockito.doReturn(FIXED_PROCSTEP).when(zosBatchJobOutputSpoolFileMock).getProcstep();
         Mockito.doReturn(true, false).when(zosBatchJobOutputSpoolFileIteratorMock).hasNext();
 		
     	zosBatchJobSpy.saveOutputToResultsArchive(FIXED_PATH_NAME);
         Assert.assertEquals("saveOutputToTestResultsArchive() should log expected message", expectedMessage, logMessage);
+        Mockito.verify(zosBatchJobSpy, Mockito.times(1)).listSpoolFiles();
+        Assert.assertTrue("saveOutputToTestResultsArchive() should set jobArchived to true", zosBatchJobSpy.isArchived());
 
-    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).jobOutput();
         Mockito.doReturn(true, false).when(zosBatchJobOutputSpoolFileIteratorMock).hasNext();
-        PowerMockito.doThrow(new ZosManagerException(EXCEPTION)).when(zosManagerMock).storeArtifact(Mockito.any(), Mockito.any(), Mockito.any());
+        PowerMockito.doThrow(new ZosBatchException(EXCEPTION)).when(zosBatchJobSpy).storeSpoolFile(Mockito.any(), Mockito.any());
         ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
     		zosBatchJobSpy.saveOutputToResultsArchive(FIXED_PATH_NAME);
     	});
+    	Assert.assertEquals("exception should contain expected message", EXCEPTION, expectedException.getMessage());
+    }
+    
+    @Test
+    public void testStoreSpoolFile() throws ZosBatchException, ZosmfException, ZosManagerException, IOException {
+    	Path artifactFileMock = newMockedPath(false);
+        Whitebox.setInternalState(zosBatchJobSpy, "jobid", FIXED_JOBID);
+    	InputStream content = new ByteArrayInputStream(FIXED_CONTENT.getBytes());
+        Mockito.doReturn(FIXED_ID).when(zosBatchJobOutputSpoolFileMock).getId();
+        Mockito.doReturn(FIXED_DDNAME).when(zosBatchJobOutputSpoolFileMock).getDdname();
+        Mockito.when(zosmfApiProcessorMock.sendRequest(Mockito.eq(ZosmfRequestType.GET), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.eq(false))).thenReturn(zosmfResponseMockStatus);
+        Mockito.when(zosmfResponseMockStatus.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        Mockito.when(zosmfResponseMockStatus.getContent()).thenReturn(content);
+        zosBatchJobSpy.storeSpoolFile(zosBatchJobOutputSpoolFileMock, artifactFileMock);
+        Mockito.verify(zosManagerMock, Mockito.times(1)).storeArtifactFromStream(artifactFileMock, content, ResultArchiveStoreContentType.TEXT);
+        Mockito.verify(zosBatchJobOutputSpoolFileMock, Mockito.never()).getRecords();
+        
+        Mockito.clearInvocations(zosManagerMock);
+        JsonObject responseBody = new JsonObject();
+        responseBody.addProperty("category", 6);
+        responseBody.addProperty("rc", 4);
+        responseBody.addProperty("reason", 12);
+        responseBody.addProperty("message", EXCEPTION);
+        Mockito.when(zosmfResponseMockStatus.getStatusCode()).thenReturn(HttpStatus.SC_BAD_REQUEST);
+        Mockito.when(zosmfResponseMockStatus.getJsonContent()).thenReturn(responseBody);
+        Whitebox.setInternalState(zosBatchJobSpy, "jobComplete", true);
+        zosBatchJobSpy.storeSpoolFile(zosBatchJobOutputSpoolFileMock, artifactFileMock);
+        Mockito.verify(zosManagerMock, Mockito.never()).storeArtifactFromStream(Mockito.any(), Mockito.any(), Mockito.any());
+        
+        Whitebox.setInternalState(zosBatchJobSpy, "jobComplete", false);
+        ZosBatchException expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+        	zosBatchJobSpy.storeSpoolFile(zosBatchJobOutputSpoolFileMock, artifactFileMock);
+        });
+    	Assert.assertEquals("exception should contain expected message", "Error Archive job output, category:6, rc:4, reason:12, message:" + EXCEPTION, expectedException.getMessage());
+        
+        Mockito.when(zosmfResponseMockStatus.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        Mockito.when(zosmfResponseMockStatus.getContent()).thenReturn(new ByteArrayInputStream(FIXED_CONTENT.getBytes()));
+        PowerMockito.doThrow(new ZosManagerException(EXCEPTION)).when(zosManagerMock).storeArtifactFromStream(Mockito.any(), Mockito.any(), Mockito.any());
+        expectedException = Assert.assertThrows("expected exception should be thrown", ZosBatchException.class, ()->{
+        	zosBatchJobSpy.storeSpoolFile(zosBatchJobOutputSpoolFileMock, artifactFileMock);
+        });
     	Assert.assertEquals("exception should contain expected message", EXCEPTION, expectedException.getCause().getMessage());
     }
     
@@ -729,6 +803,22 @@ public class TestZosmfZosBatchJobImpl {
     	Whitebox.setInternalState(zosBatchJobSpy, "jobOutput", zosBatchJobOutputMock);
     	zosBatchJobSpy.getOutput(false);
     	Assert.assertEquals("getOutput() should set jobOutput", zosBatchJobOutputMock, zosBatchJobSpy.jobOutput());
+    	
+    	Mockito.doReturn(Arrays.asList(zosBatchJobOutputSpoolFileMock)).when(zosBatchJobOutputMock).getSpoolFiles();
+    	zosBatchJobSpy.getOutput(false);
+    	Mockito.verify(zosBatchJobOutputSpoolFileMock, Mockito.never()).retrieve();
+    	zosBatchJobSpy.getOutput(true);
+    	Mockito.verify(zosBatchJobOutputSpoolFileMock, Mockito.times(1)).retrieve();
+    }
+    
+    @Test
+    public void testRetrieveSpoolFileRecords() throws ZosBatchException {
+        Mockito.doReturn(FIXED_ID).when(zosBatchJobOutputSpoolFileMock).getId();
+        Mockito.doReturn(FIXED_STEPNAME).when(zosBatchJobOutputSpoolFileMock).getStepname();
+        Mockito.doReturn(FIXED_PROCSTEP).when(zosBatchJobOutputSpoolFileMock).getProcstep();
+        Mockito.doReturn(FIXED_DDNAME).when(zosBatchJobOutputSpoolFileMock).getDdname();
+        PowerMockito.doReturn(FIXED_CONTENT).when(zosBatchJobSpy).getSpoolFileContent(FIXED_ID, FIXED_STEPNAME, FIXED_PROCSTEP, FIXED_DDNAME);
+        Assert.assertEquals("retrieveSpoolFileRecords() should return the spool file content", FIXED_CONTENT, zosBatchJobSpy.retrieveSpoolFileRecords(zosBatchJobOutputSpoolFileMock));
     }
 
     @Test
@@ -1000,7 +1090,7 @@ public class TestZosmfZosBatchJobImpl {
     
     @Test
     public void testArchiveJobOutput() throws Exception {
-    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).retrieveOutput();
+    	Mockito.doReturn(zosBatchJobOutputMock).when(zosBatchJobSpy).listSpoolFiles();
     	Whitebox.setInternalState(zosBatchJobSpy, "jobid", FIXED_JOBID);
     	Whitebox.setInternalState(zosBatchJobSpy, "retcode", FIXED_RETCODE_0000);
     	Mockito.doNothing().when(zosBatchJobSpy).saveOutputToResultsArchive(Mockito.any());
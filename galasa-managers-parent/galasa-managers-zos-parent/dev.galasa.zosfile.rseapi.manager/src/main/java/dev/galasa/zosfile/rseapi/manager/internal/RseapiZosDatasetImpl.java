@@ -5,6 +5,7 @@
  */
 package dev.galasa.zosfile.rseapi.manager.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,9 +31,11 @@ import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
 import dev.galasa.zosfile.IZosDataset;
+import dev.galasa.zosfile.IZosDatasetRecordIterator;
 import dev.galasa.zosfile.IZosUNIXFile;
 import dev.galasa.zosfile.ZosDatasetException;
 import dev.galasa.zosfile.ZosFileManagerException;
+import dev.galasa.zosfile.spi.ZosDatasetRecordIterator;
 import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
@@ -301,6 +304,31 @@ public class RseapiZosDatasetImpl implements IZosDataset {
         }
         return (byte[]) content;
     }
+
+    @Override
+    public void storeFromStream(@NotNull InputStream content) throws ZosDatasetException {
+        Objects.requireNonNull(content, LOG_CONTENT_MUST_NOT_BE_NULL);
+        if (isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + " is a partitioned data set. Use memberStoreFromStream(String memberName, InputStream content) method instead");
+        }
+        storeStream(content, null);
+    }
+
+    @Override
+    public InputStream retrieveAsStream() throws ZosDatasetException {
+        if (isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + " is a partitioned data set. Use memberRetrieveAsStream(String memberName) method instead");
+        }
+        return retrieveStream(null);
+    }
+
+    @Override
+    public IZosDatasetRecordIterator retrieveRecords() throws ZosDatasetException {
+        if (isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + " is a partitioned data set. Use memberRetrieveRecords(String memberName) method instead");
+        }
+        return recordIterator(null);
+    }
     
     @Override
     public void saveToResultsArchive(String rasPath) throws ZosDatasetException {
@@ -455,6 +483,34 @@ public class RseapiZosDatasetImpl implements IZosDataset {
         return (byte[]) content;
     }
 
+    @Override
+    public void memberStoreFromStream(@NotNull String memberName, @NotNull InputStream content) throws ZosDatasetException {
+        Objects.requireNonNull(memberName, LOG_MEMBER_NAME_MUST_NOT_BE_NULL);
+        Objects.requireNonNull(content, LOG_CONTENT_MUST_NOT_BE_NULL);
+        if (!isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_NOT_PDS);
+        }
+        storeStream(content, memberName);
+    }
+
+    @Override
+    public InputStream memberRetrieveAsStream(@NotNull String memberName) throws ZosDatasetException {
+        Objects.requireNonNull(memberName, LOG_MEMBER_NAME_MUST_NOT_BE_NULL);
+        if (!isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_NOT_PDS);
+        }
+        return retrieveStream(memberName);
+    }
+
+    @Override
+    public IZosDatasetRecordIterator memberRetrieveRecords(@NotNull String memberName) throws ZosDatasetException {
+        Objects.requireNonNull(memberName, LOG_MEMBER_NAME_MUST_NOT_BE_NULL);
+        if (!isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_NOT_PDS);
+        }
+        return recordIterator(memberName);
+    }
+
     @Override
     public Collection<String> memberList() throws ZosDatasetException {
         if (!isPDS()) {
@@ -1013,6 +1069,90 @@ public class RseapiZosDatasetImpl implements IZosDataset {
 
         return out.toByteArray();
     }
+
+    /**
+     * Retrieve the raw content as a stream. RSE API has no record mode or record ranges, so record content is
+     * retrieved in binary and the whole data set is retrieved with a single request
+     * @param memberName the member, or null for the data set
+     * @return the content
+     * @throws ZosDatasetException
+     */
+    protected InputStream retrieveStream(String memberName) throws ZosDatasetException {
+        Map<String, String> headers = new HashMap<>();
+        if (!this.dataType.equals(DatasetDataType.TEXT)) {
+            headers.put(BINARY_HEADER, "true");
+        }
+        String urlPath = RESTFILES_DATASET_PATH + SLASH + joinDSN(memberName) + RESTFILES_DATASET_PATH_RAW_CONTENT;
+        IRseapiResponse response;
+        try {
+            response = this.rseapiApiProcessor.sendRequest(RseapiRequestType.GET, urlPath, headers, null, RseapiZosFileHandlerImpl.VALID_STATUS_CODES, false);
+        } catch (RseapiException e) {
+            throw new ZosDatasetException(e);
+        }
+        
+        if (response.getStatusCode() != HttpStatus.SC_OK) {
+            // Error case
+            String displayMessage = this.zosFileHandler.buildErrorString("retrieve content of data set", response); 
+            logger.error(displayMessage);
+            throw new ZosDatasetException(displayMessage);
+        }
+
+        Object content;
+        try {
+            content = response.getContent();
+        } catch (RseapiException e) {
+            throw new ZosDatasetException("Unable to retrieve content of data set " + quoted(joinDSN(memberName)) + logOnImage(), e);
+        }
+        logger.trace("Content of data set " + quoted(joinDSN(memberName)) + " retrieved from  image " + this.image.getImageID());
+        if (content instanceof InputStream) {
+            return (InputStream) content;
+        } else if (content instanceof String) {
+            return new ByteArrayInputStream(((String) content).getBytes());
+        }
+        return new ByteArrayInputStream((byte[]) content);
+    }
+
+    protected IZosDatasetRecordIterator recordIterator(String memberName) throws ZosDatasetException {
+        if (this.dataType.equals(DatasetDataType.TEXT)) {
+            return new ZosDatasetRecordIterator(retrieveStream(memberName), this.dataType, this.recfm, this.lrecl);
+        }
+        if (this.recfm == null) {
+            // *** The record format is needed to split binary content
+            retrieveAttibutes();
+        }
+        if (this.recfm != RecordFormat.FIXED && this.recfm != RecordFormat.FIXED_BLOCKED) {
+            // *** The RSE API returns binary content without the record lengths, only fixed length records can be split
+            throw new ZosDatasetException("Unable to retrieve records of data set " + quoted(joinDSN(memberName)) + logOnImage() + ". The RSE API can only split " + this.dataType + " content into records for fixed length record formats, the record format is " + this.recfm + ". Use DatasetDataType.TEXT to retrieve the records as lines");
+        }
+        return new ZosDatasetRecordIterator(retrieveStream(memberName), DatasetDataType.BINARY, this.recfm, this.lrecl);
+    }
+    
+    protected void storeStream(InputStream content, String memberName) throws ZosDatasetException {
+        if (!exists()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_DOES_NOT_EXIST + logOnImage());
+        }
+        Map<String, String> headers = new HashMap<>();
+        if (!this.dataType.equals(DatasetDataType.TEXT)) {
+            headers.put(BINARY_HEADER, "true");
+        }
+    
+        String urlPath = RESTFILES_DATASET_PATH + SLASH + joinDSN(memberName) + RESTFILES_DATASET_PATH_RAW_CONTENT;
+        IRseapiResponse response;
+        try {
+            response = this.rseapiApiProcessor.sendRequest(RseapiRequestType.PUT_STREAM, urlPath, headers, content, RseapiZosFileHandlerImpl.VALID_STATUS_CODES, false);
+        } catch (RseapiException e) {
+            throw new ZosDatasetException(e);
+        }
+        
+        if (response.getStatusCode() != HttpStatus.SC_OK && response.getStatusCode() != HttpStatus.SC_CREATED) {
+            // Error case
+            String displayMessage = this.zosFileHandler.buildErrorString("write to data set", response); 
+            logger.error(displayMessage);
+            throw new ZosDatasetException(displayMessage);
+        }
+    
+        logger.trace(LOG_DATA_SET + quoted(joinDSN(memberName)) + " updated" + logOnImage());
+    }
     
     protected void storeText(String content, String memberName, boolean convert) throws ZosDatasetException {
         if (!exists()) {
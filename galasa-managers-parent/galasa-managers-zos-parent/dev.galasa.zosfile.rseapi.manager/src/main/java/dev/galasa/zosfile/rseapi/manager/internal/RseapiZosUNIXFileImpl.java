@@ -10,7 +10,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -31,6 +33,7 @@ import dev.galasa.zos.IZosImage;
 import dev.galasa.zosfile.IZosUNIXFile;
 import dev.galasa.zosfile.ZosFileManagerException;
 import dev.galasa.zosfile.ZosUNIXFileException;
+import dev.galasa.zosfile.spi.ZosUNIXFileTreeWalker;
 import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
@@ -75,6 +78,8 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
     private boolean shouldArchive = false;
 
     private boolean shouldCleanup = true;
+
+    private int listThreads;
     
 	private static final String PROP_PERMISSIONS_SYMBOLIC = "permissionsSymbolic";
 	private static final String PROP_SIZE = "size";
@@ -111,11 +116,28 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
         try {
             this.rseapiApiProcessor = this.zosFileHandler.getZosFileManager().getRseapiManager().newRseapiRestApiProcessor(this.image, this.zosFileHandler.getZosManager().getZosFilePropertyFileRestrictToImage(image.getImageID()));
             this.createMode = this.zosFileHandler.getZosManager().getZosFilePropertyUnixFilePermissions(this.image.getImageID());
+            this.listThreads = this.zosFileHandler.getZosManager().getZosFilePropertyDirectoryListThreads(image.getImageID());
         } catch (ZosFileManagerException | RseapiManagerException e) {
             throw new ZosUNIXFileException(e);
         }
     }
 
+    /**
+     * A path found by listing a directory, which shares the request processor and properties of the directory
+     * @param directory the directory that was listed
+     * @param unixPath the path
+     */
+    protected RseapiZosUNIXFileImpl(RseapiZosUNIXFileImpl directory, String unixPath) {
+        this.image = directory.image;
+        this.unixPath = FilenameUtils.normalize(unixPath, true);
+        this.zosFileHandler = directory.zosFileHandler;
+        this.testMethodArchiveFolder = directory.testMethodArchiveFolder;
+        this.rseapiApiProcessor = directory.rseapiApiProcessor;
+        this.createMode = directory.createMode;
+        this.listThreads = directory.listThreads;
+        splitUnixPath();
+    }
+
 
     @Override
     public IZosUNIXFile create() throws ZosUNIXFileException {
@@ -645,6 +667,7 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
         }
         if (isDirectory(path)) {
             Map<String, IZosUNIXFile> paths = listDirectory(path, true);
+            List<IZosUNIXFile> files = new ArrayList<>();
             for (Map.Entry<String, IZosUNIXFile> entry : paths.entrySet()) {
             	IZosUNIXFile entryUnixFile = entry.getValue();
 	            String entryPath = entryUnixFile.getUnixPath();
@@ -652,20 +675,15 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
 	                String directoryName = entryPath.substring(path.length());
 	                UNIXFileType entryFileType = entryUnixFile.getFileType();
 	                if (entryFileType.equals(UNIXFileType.FILE)) {
-	                	String fileName = entry.getValue().getFileName();
-	                	if (directoryName.contains(SLASH)) {
-	                		directoryName = SLASH + directoryName.substring(0,directoryName.length()-fileName.length()-1);
-	                	} else {
-	                		directoryName = SLASH;
-	                	}
-	                    String archiveLocation = storeArtifact(rasPath + directoryName, retrieve(entryPath), false, fileName);
-	                    logger.info(quoted(entryPath) + LOG_ARCHIVED_TO + archiveLocation);
+	                	files.add(entryUnixFile);
 	                } else if (entryFileType.equals(UNIXFileType.DIRECTORY)) {
 	                    String archiveLocation = storeArtifact(rasPath, null, true, directoryName);
 	                    logger.info(quoted(entryPath) + LOG_ARCHIVED_TO + archiveLocation);
 	                }
             	}
             }
+            // *** The directories now exist in the RAS, so the files can be retrieved in any order
+            ZosUNIXFileTreeWalker.forEach(this.listThreads, files, file -> saveFileToResultsArchive(path, rasPath, file));
         } else {
             String archiveLocation = storeArtifact(rasPath, retrieve(path), false, this.fileName);
             logger.info(quoted(this.unixPath) + LOG_ARCHIVED_TO + archiveLocation);
@@ -673,6 +691,20 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
     }
 
 
+    protected void saveFileToResultsArchive(String path, String rasPath, IZosUNIXFile unixFile) throws ZosUNIXFileException {
+        String entryPath = unixFile.getUnixPath();
+        String directoryName = entryPath.substring(path.length());
+        String fileName = unixFile.getFileName();
+        if (directoryName.contains(SLASH)) {
+            directoryName = SLASH + directoryName.substring(0,directoryName.length()-fileName.length()-1);
+        } else {
+            directoryName = SLASH;
+        }
+        String archiveLocation = storeArtifact(rasPath + directoryName, retrieve(entryPath), false, fileName);
+        logger.info(quoted(entryPath) + LOG_ARCHIVED_TO + archiveLocation);
+    }
+
+
     protected boolean isDirectory(String path) throws ZosUNIXFileException {
         if (path.equals(this.unixPath) && !exists(path)) {
             return this.fileType.equals(UNIXFileType.DIRECTORY);
@@ -687,6 +719,22 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
         }
 
         path.replaceAll("/[\\/\\/]+", "/").replaceAll("\\/$", "");
+        return getPaths(path, sendListRequest(path), recursive);
+    }
+
+
+    /**
+     * List a directory that is already known to be a directory, e.g. from the listing of its parent
+     * @param path the directory
+     * @return the content of the directory, not including the content of its sub directories
+     * @throws ZosUNIXFileException
+     */
+    protected SortedMap<String, IZosUNIXFile> listDirectoryContent(String path) throws ZosUNIXFileException {
+        return getPaths(path, sendListRequest(path), false);
+    }
+
+
+    protected JsonObject sendListRequest(String path) throws ZosUNIXFileException {
         Map<String, String> headers = new HashMap<>();
         String urlPath = RESTFILES_FILE_PATH + PATH_EQUALS + path;
         IRseapiResponse response;
@@ -705,7 +753,7 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
         
         logger.trace(responseBody);
         if (response.getStatusCode() == HttpStatus.SC_OK) {
-            return getPaths(path, responseBody, recursive);
+            return responseBody;
         } else {
             // Error case
         	String displayMessage = this.zosFileHandler.buildErrorString("listing path " + quoted(path), response);
@@ -719,6 +767,7 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
     		root = root + SLASH;
     	}
 		SortedMap<String, IZosUNIXFile> paths = new TreeMap<>();
+		List<IZosUNIXFile> directories = new ArrayList<>();
 		JsonArray children = responseBody.getAsJsonArray(PROP_CHILDREN);
 		if (children != null) {
 			for (JsonElement childElement : children) {
@@ -728,16 +777,37 @@ public class RseapiZosUNIXFileImpl implements IZosUNIXFile {
 				   	IZosUNIXFile unixFile = newUnixFile(path);
 					paths.put(path, unixFile);
 					if (recursive && unixFile.getFileType().equals(UNIXFileType.DIRECTORY)) {
-						paths.putAll(listDirectory(path, recursive));
+						directories.add(unixFile);
 					}
 				}
 			}
 		}
+        if (!directories.isEmpty()) {
+            paths.putAll(listDirectories(directories));
+        }
         return paths;
-    } 
+    }
+
+
+    /**
+     * Recursively list directories found by listing their parent
+     * @param directories the directories
+     * @return everything below the directories
+     * @throws ZosUNIXFileException
+     */
+    protected SortedMap<String, IZosUNIXFile> listDirectories(List<IZosUNIXFile> directories) throws ZosUNIXFileException {
+        if (this.listThreads <= 1) {
+            SortedMap<String, IZosUNIXFile> paths = new TreeMap<>();
+            for (IZosUNIXFile directory : directories) {
+                paths.putAll(listDirectory(directory.getUnixPath(), true));
+            }
+            return paths;
+        }
+        return new ZosUNIXFileTreeWalker(this.listThreads, this::listDirectoryContent).walk(directories);
+    }
 
     protected IZosUNIXFile newUnixFile(String path) throws ZosUNIXFileException {
-    	RseapiZosUNIXFileImpl unixFile = new RseapiZosUNIXFileImpl(this.zosFileHandler, this.image, path);
+    	RseapiZosUNIXFileImpl unixFile = new RseapiZosUNIXFileImpl(this, path);
     	unixFile.setAttributeValues(unixFile.getAttributes(path));
     	return unixFile;
 	}
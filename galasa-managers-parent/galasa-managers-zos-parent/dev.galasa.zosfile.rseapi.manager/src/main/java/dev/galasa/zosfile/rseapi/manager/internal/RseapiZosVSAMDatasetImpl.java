@@ -6,6 +6,9 @@
 package dev.galasa.zosfile.rseapi.manager.internal;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -24,9 +27,11 @@ import dev.galasa.zosfile.IZosDataset.DatasetOrganization;
 import dev.galasa.zosfile.IZosDataset.RecordFormat;
 import dev.galasa.zosfile.IZosDataset.SpaceUnit;
 import dev.galasa.zosfile.IZosVSAMDataset;
+import dev.galasa.zosfile.IZosVSAMRecordIterator;
 import dev.galasa.zosfile.ZosDatasetException;
 import dev.galasa.zosfile.ZosFileManagerException;
 import dev.galasa.zosfile.ZosVSAMDatasetException;
+import dev.galasa.zosfile.spi.ZosVSAMPrintRecordIterator;
 import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
@@ -173,6 +178,8 @@ public class RseapiZosVSAMDatasetImpl implements IZosVSAMDataset {
     private static final String PARM_RECORDSIZE = "RECSZ";
     private static final String PARM_SHAREOPTIONS = "SHR";
     private static final String PARM_STORAGECLASS = "STORCLAS";
+    private static final String PARM_FROMKEY = "FROMKEY";
+    private static final String PARM_TOKEY = "TOKEY";
     
     private static final String PROP_INVOCATION = "invocation";
     private static final String PROP_PATH = "path";
@@ -338,6 +345,33 @@ public class RseapiZosVSAMDatasetImpl implements IZosVSAMDataset {
         return content;
     }
 
+    @Override
+    public IZosVSAMRecordIterator retrieveRecords() throws ZosVSAMDatasetException {
+        return newRecordIterator(null, null, -1);
+    }
+
+    @Override
+    public List<byte[]> retrieveRecords(int count) throws ZosVSAMDatasetException {
+        return newRecordIterator(null, null, count).toList();
+    }
+
+    @Override
+    public IZosVSAMRecordIterator retrieveRecordsByKey(String fromKey, String toKey) throws ZosVSAMDatasetException {
+        // *** The command is sent in a shell command line, so character keys are sent in hex
+        return retrieveRecordsByKey(fromKey.getBytes(ZosVSAMPrintRecordIterator.EBCDIC), toKey == null ? null : toKey.getBytes(ZosVSAMPrintRecordIterator.EBCDIC));
+    }
+
+    @Override
+    public IZosVSAMRecordIterator retrieveRecordsByKey(byte[] fromKey, byte[] toKey) throws ZosVSAMDatasetException {
+        return newRecordIterator(ZosVSAMPrintRecordIterator.hexKeyParameter(PARM_FROMKEY, fromKey), 
+                toKey == null ? null : ZosVSAMPrintRecordIterator.hexKeyParameter(PARM_TOKEY, toKey), -1);
+    }
+
+    @Override
+    public IZosVSAMRecordIterator retrieveRecordsByRBA(long fromRba, long toRba) throws ZosVSAMDatasetException {
+        return newRecordIterator("FROMADDRESS(" + fromRba + ")", toRba < 0 ? null : "TOADDRESS(" + toRba + ")", -1);
+    }
+
     @Override
     public void saveToResultsArchive(String rasPath) throws ZosVSAMDatasetException {
         try {
@@ -849,6 +883,32 @@ public class RseapiZosVSAMDatasetImpl implements IZosVSAMDataset {
         return reproDataset;
     }
 
+    protected ZosVSAMPrintRecordIterator newRecordIterator(String fromParameter, String toParameter, int maxRecords) throws ZosVSAMDatasetException {
+        if (!exists()) {
+            throw new ZosVSAMDatasetException(LOG_VSAM_DATA_SET + quoted(this.name) + LOG_DOES_NOT_EXIST + logOnImage());
+        }
+        int pageRecords;
+        try {
+            pageRecords = this.zosFileHandler.getZosManager().getZosFilePropertyVSAMRetrievePageRecords(this.image.getImageID());
+        } catch (ZosFileManagerException e) {
+            throw new ZosVSAMDatasetException(e);
+        }
+        return new ZosVSAMPrintRecordIterator(this.name, this.dataType, pageRecords, fromParameter, toParameter, maxRecords, this::printRecords);
+    }
+
+    protected List<String> printRecords(String command) throws ZosVSAMDatasetException {
+        try {
+            idcamsRequest(command);
+        } catch (ZosVSAMDatasetException e) {
+            // *** An empty data set cannot be opened for input
+            if (getTotalRecords() == 0) {
+                return new ArrayList<>();
+            }
+            throw e;
+        }
+        return Arrays.asList(this.idcamsOutput.split("\n"));
+    }
+
     protected String temporaryLLQ() {
         return this.zosFileHandler.getZosFileManager().getRunId() + ".T" + StringUtils.leftPad(String.valueOf(++temporaryQualifierCounter), 4, "0");
     }
@@ -43,6 +43,7 @@ import dev.galasa.zosfile.IZosDataset.DatasetDataType;
 import dev.galasa.zosfile.IZosDataset.DatasetOrganization;
 import dev.galasa.zosfile.IZosDataset.RecordFormat;
 import dev.galasa.zosfile.IZosDataset.SpaceUnit;
+import dev.galasa.zosfile.IZosDatasetRecordIterator;
 import dev.galasa.zosfile.IZosUNIXFile;
 import dev.galasa.zosfile.ZosDatasetException;
 import dev.galasa.zosfile.ZosFileManagerException;
@@ -369,6 +370,43 @@ public class TestRseapiZosDatasetImpl {
         });
     	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
     }
+
+    @Test
+    public void testRetrieveAsStream() throws ZosDatasetException {
+        PowerMockito.doReturn(false).when(zosDatasetSpy).isPDS();
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        PowerMockito.doReturn(content).when(zosDatasetSpy).retrieveStream(Mockito.any());
+        Assert.assertSame("retrieveAsStream() should return the supplied value", content, zosDatasetSpy.retrieveAsStream());
+        
+        PowerMockito.doReturn(true).when(zosDatasetSpy).isPDS(); 
+        String expectedMessage = "Data set \"" + DATASET_NAME + "\" is a partitioned data set. Use memberRetrieveAsStream(String memberName) method instead";
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+        	zosDatasetSpy.retrieveAsStream();
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+    
+    @Test
+    public void testRetrieveRecords() throws Exception {
+        PowerMockito.doReturn(false).when(zosDatasetSpy).isPDS();
+        Whitebox.setInternalState(zosDatasetSpy, "dataType", DatasetDataType.RECORD);
+        Whitebox.setInternalState(zosDatasetSpy, "recfm", RecordFormat.FIXED_BLOCKED);
+        Whitebox.setInternalState(zosDatasetSpy, "lrecl", 4);
+        PowerMockito.doReturn(new ByteArrayInputStream("REC1REC2".getBytes())).when(zosDatasetSpy).retrieveStream(Mockito.any());
+        try (IZosDatasetRecordIterator records = zosDatasetSpy.retrieveRecords()) {
+            Assert.assertEquals("retrieveRecords() should return the first record", "REC1", new String(records.next()));
+            Assert.assertEquals("retrieveRecords() should return the second record", "REC2", new String(records.next()));
+            Assert.assertFalse("retrieveRecords() should return two records", records.hasNext());
+        }
+        
+        Whitebox.setInternalState(zosDatasetSpy, "recfm", RecordFormat.VARIABLE_BLOCKED);
+        String expectedMessage = "Unable to retrieve records of data set \"" + DATASET_NAME + "\" on image " + IMAGE + ". The RSE API can only split record content into records for fixed length record formats, the record format is VB. Use DatasetDataType.TEXT to retrieve the records as lines";
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+        	zosDatasetSpy.retrieveRecords();
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+        Mockito.verify(zosDatasetSpy, Mockito.times(1)).retrieveStream(Mockito.any());
+    }
     
     @Test
     public void testSaveToResultsArchive() throws IOException, ZosManagerException {
@@ -1409,6 +1447,35 @@ public class TestRseapiZosDatasetImpl {
         Mockito.clearInvocations(zosDatasetSpy);
     }
     
+    @Test
+    public void testInternalStoreStream() throws ZosDatasetException, RseapiException {
+        PowerMockito.doReturn(true).when(zosDatasetSpy).exists();
+        Mockito.when(rseapiApiProcessorMock.sendRequest(Mockito.eq(RseapiRequestType.PUT_STREAM), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
+        Mockito.when(rseapiResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_CREATED);
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        zosDatasetSpy.storeStream(content, MEMBER_NAME);
+        Mockito.verify(rseapiApiProcessorMock).sendRequest(Mockito.eq(RseapiRequestType.PUT_STREAM), Mockito.any(), Mockito.any(), Mockito.same(content), Mockito.any(), Mockito.anyBoolean());
+        
+        PowerMockito.doReturn(false).when(zosDatasetSpy).exists();
+        String expectedMessage = "Data set \"" + DATASET_NAME + "\" does not exist on image " + IMAGE;
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+        	zosDatasetSpy.storeStream(content, MEMBER_NAME);
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+
+    @Test
+    public void testInternalRetrieveStream() throws ZosDatasetException, RseapiException {
+        Mockito.when(rseapiApiProcessorMock.sendRequest(Mockito.eq(RseapiRequestType.GET), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
+        Mockito.when(rseapiResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        Mockito.when(rseapiResponseMock.getContent()).thenReturn(content);
+        Assert.assertSame("retrieveStream() should return the response stream", content, zosDatasetSpy.retrieveStream(MEMBER_NAME));
+        
+        Mockito.when(rseapiResponseMock.getContent()).thenReturn(CONTENT);
+        Assert.assertEquals("retrieveStream() should return the response content", CONTENT, new String(zosDatasetSpy.inputStreamToByteArray(zosDatasetSpy.retrieveStream(MEMBER_NAME))));
+    }
+    
     @Test
     public void testInternalStoreBinaryNotExist() throws ZosDatasetException, RseapiException {  
         PowerMockito.doReturn(false).when(zosDatasetSpy).exists();
@@ -5,6 +5,7 @@
  */
 package dev.galasa.zosfile.zosmf.manager.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,8 +32,11 @@ import dev.galasa.ResultArchiveStoreContentType;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
 import dev.galasa.zosfile.IZosDataset;
+import dev.galasa.zosfile.IZosDatasetRecordIterator;
 import dev.galasa.zosfile.ZosDatasetException;
 import dev.galasa.zosfile.ZosFileManagerException;
+import dev.galasa.zosfile.spi.ZosDatasetRangeInputStream;
+import dev.galasa.zosfile.spi.ZosDatasetRecordIterator;
 import dev.galasa.zosmf.IZosmf.ZosmfCustomHeaders;
 import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
 import dev.galasa.zosmf.IZosmfResponse;
@@ -342,6 +346,31 @@ public class ZosmfZosDatasetImpl implements IZosDataset {
         }
         return (byte[]) content;
     }
+
+    @Override
+    public void storeFromStream(@NotNull InputStream content) throws ZosDatasetException {
+        Objects.requireNonNull(content, LOG_CONTENT_MUST_NOT_BE_NULL);
+        if (isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + " is a partitioned data set. Use memberStoreFromStream(String memberName, InputStream content) method instead");
+        }
+        storeStream(content, null);
+    }
+
+    @Override
+    public InputStream retrieveAsStream() throws ZosDatasetException {
+        if (isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + " is a partitioned data set. Use memberRetrieveAsStream(String memberName) method instead");
+        }
+        return retrieveStream(null);
+    }
+
+    @Override
+    public IZosDatasetRecordIterator retrieveRecords() throws ZosDatasetException {
+        if (isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + " is a partitioned data set. Use memberRetrieveRecords(String memberName) method instead");
+        }
+        return recordIterator(null);
+    }
     
     @Override
     public void saveToResultsArchive(String rasPath) throws ZosDatasetException {
@@ -526,6 +555,34 @@ public class ZosmfZosDatasetImpl implements IZosDataset {
         return (byte[]) content;
     }
 
+    @Override
+    public void memberStoreFromStream(@NotNull String memberName, @NotNull InputStream content) throws ZosDatasetException {
+        Objects.requireNonNull(memberName, LOG_MEMBER_NAME_MUST_NOT_BE_NULL);
+        Objects.requireNonNull(content, LOG_CONTENT_MUST_NOT_BE_NULL);
+        if (!isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_NOT_PDS);
+        }
+        storeStream(content, memberName);
+    }
+
+    @Override
+    public InputStream memberRetrieveAsStream(@NotNull String memberName) throws ZosDatasetException {
+        Objects.requireNonNull(memberName, LOG_MEMBER_NAME_MUST_NOT_BE_NULL);
+        if (!isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_NOT_PDS);
+        }
+        return retrieveStream(memberName);
+    }
+
+    @Override
+    public IZosDatasetRecordIterator memberRetrieveRecords(@NotNull String memberName) throws ZosDatasetException {
+        Objects.requireNonNull(memberName, LOG_MEMBER_NAME_MUST_NOT_BE_NULL);
+        if (!isPDS()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_NOT_PDS);
+        }
+        return recordIterator(memberName);
+    }
+
     @Override
     public Collection<String> memberList() throws ZosDatasetException {
         if (!isPDS()) {
@@ -1028,17 +1085,32 @@ public class ZosmfZosDatasetImpl implements IZosDataset {
     }
 
     protected Object retrieve(String memberName) throws ZosDatasetException {
+        if ("binary".equals(this.dataType.toString())) {
+            this.convert = false;
+        }
+        return retrieve(memberName, null, this.convert);
+    }
+
+    /**
+     * Retrieve the content of the data set or member
+     * @param memberName the member, or null for the data set
+     * @param recordRange the {@code X-IBM-Record-Range} to retrieve, or null for all the records
+     * @param convert false to return the content as a stream
+     * @return the content
+     * @throws ZosDatasetException
+     */
+    protected Object retrieve(String memberName, String recordRange, boolean convert) throws ZosDatasetException {
       Map<String, String> headers = new HashMap<>();
       String dType = this.dataType.toString();
       headers.put(ZosmfCustomHeaders.X_IBM_DATA_TYPE.toString(), dType);
+      if (recordRange != null) {
+          headers.put(ZosmfCustomHeaders.X_IBM_RECORD_RANGE.toString(), recordRange);
+      }
       String urlPath = RESTFILES_DATASET_PATH + SLASH + joinDSN(memberName);
       IZosmfResponse response;
-      if ("binary".equals(dType)) {
-            this.convert = false;
-        }
         try {
             response = this.zosmfApiProcessor.sendRequest(ZosmfRequestType.GET, urlPath, headers, null,
-                    new ArrayList<>(Arrays.asList(HttpStatus.SC_OK, HttpStatus.SC_BAD_REQUEST, HttpStatus.SC_NOT_FOUND, HttpStatus.SC_INTERNAL_SERVER_ERROR)), this.convert);
+                    new ArrayList<>(Arrays.asList(HttpStatus.SC_OK, HttpStatus.SC_BAD_REQUEST, HttpStatus.SC_NOT_FOUND, HttpStatus.SC_INTERNAL_SERVER_ERROR)), convert);
         } catch (ZosmfException e) {
             throw new ZosDatasetException(e);
         }
@@ -1083,6 +1155,89 @@ public class ZosmfZosDatasetImpl implements IZosDataset {
 
         return out.toByteArray();
     }
+
+    /**
+     * Retrieve the content as a stream. Text and record content is retrieved by record range on several threads when
+     * {@code zosfile.dataset.[imageid].retrieve.threads} is greater than 1
+     * @param memberName the member, or null for the data set
+     * @return the content
+     * @throws ZosDatasetException
+     */
+    protected InputStream retrieveStream(String memberName) throws ZosDatasetException {
+        if (!this.dataType.equals(DatasetDataType.BINARY)) {
+            int threads;
+            int rangeRecords;
+            try {
+                threads = this.zosFileHandler.getZosManager().getZosFilePropertyDatasetRetrieveThreads(this.image.getImageID());
+                rangeRecords = this.zosFileHandler.getZosManager().getZosFilePropertyDatasetRetrieveRangeRecords(this.image.getImageID());
+            } catch (ZosFileManagerException e) {
+                throw new ZosDatasetException(e);
+            }
+            if (threads > 1) {
+                return new ZosDatasetRangeInputStream(joinDSN(memberName), this.dataType, rangeRecords, threads,
+                        (firstRecord, recordCount) -> contentToByteArray(retrieve(memberName, firstRecord + COMMA + recordCount, false)));
+            }
+        }
+        Object content = retrieve(memberName, null, false);
+        if (content instanceof InputStream) {
+            return (InputStream) content;
+        }
+        return new ByteArrayInputStream(contentToByteArray(content));
+    }
+
+    protected byte[] contentToByteArray(Object content) throws ZosDatasetException {
+        if (content instanceof String) {
+            return ((String) content).getBytes();
+        } else if (content instanceof InputStream) {
+            try (InputStream in = (InputStream) content) {
+                return inputStreamToByteArray(in);
+            } catch (IOException e) {
+                throw new ZosDatasetException("Failed to close content stream", e);
+            }
+        }
+        return (byte[]) content;
+    }
+
+    protected IZosDatasetRecordIterator recordIterator(String memberName) throws ZosDatasetException {
+        if (this.dataType.equals(DatasetDataType.BINARY) && this.recfm == null) {
+            // *** The record format is needed to split binary content
+            retrieveAttibutes();
+        }
+        return new ZosDatasetRecordIterator(retrieveStream(memberName), this.dataType, this.recfm, this.lrecl);
+    }
+    
+    protected void storeStream(InputStream content, String memberName) throws ZosDatasetException {
+        if (!exists()) {
+            throw new ZosDatasetException(LOG_DATA_SET + quoted(this.dsname) + LOG_DOES_NOT_EXIST + logOnImage());
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put(ZosmfCustomHeaders.X_IBM_DATA_TYPE.toString(), getDataType().toString());
+    
+        String urlPath = RESTFILES_DATASET_PATH + SLASH + joinDSN(memberName);
+        IZosmfResponse response;
+        try {
+            response = this.zosmfApiProcessor.sendRequest(ZosmfRequestType.PUT_STREAM, urlPath, headers, content, 
+                    new ArrayList<>(Arrays.asList(HttpStatus.SC_NO_CONTENT, HttpStatus.SC_CREATED, HttpStatus.SC_BAD_REQUEST, HttpStatus.SC_INTERNAL_SERVER_ERROR)), false);
+        } catch (ZosmfException e) {
+            throw new ZosDatasetException(e);
+        }
+        
+        if (response.getStatusCode() != HttpStatus.SC_NO_CONTENT && response.getStatusCode() != HttpStatus.SC_CREATED) {
+            // Error case - BAD_REQUEST or INTERNAL_SERVER_ERROR            
+            JsonObject responseBody;
+            try {
+                responseBody = response.getJsonContent();
+            } catch (ZosmfException e) {
+                throw new ZosDatasetException("Unable to write to data set " + quoted(joinDSN(memberName)) + logOnImage(), e);
+            }
+            logger.trace(responseBody);
+            String displayMessage = buildErrorString(LOG_WRITING_TO, responseBody); 
+            logger.error(displayMessage);
+            throw new ZosDatasetException(displayMessage);
+        }
+    
+        logger.trace(LOG_DATA_SET + quoted(joinDSN(memberName)) + " updated" + logOnImage());
+    }
     
     protected void storeText(String content, String memberName, boolean convert) throws ZosDatasetException {
         if (!exists()) {
@@ -13,6 +13,7 @@ import java.nio.file.attribute.PosixFilePermissions;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -33,6 +34,7 @@ import dev.galasa.zos.IZosImage;
 import dev.galasa.zosfile.IZosUNIXFile;
 import dev.galasa.zosfile.ZosFileManagerException;
 import dev.galasa.zosfile.ZosUNIXFileException;
+import dev.galasa.zosfile.spi.ZosUNIXFileTreeWalker;
 import dev.galasa.zosmf.IZosmf.ZosmfCustomHeaders;
 import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
 import dev.galasa.zosmf.IZosmfResponse;
@@ -81,6 +83,8 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
 
     private int maxItems;
 
+    private int listThreads;
+
     private static final String PROP_TYPE = "type";
     private static final String PROP_MODE = "mode";
     private static final String PROP_RETURNED_ROWS = "returnedRows";
@@ -123,11 +127,29 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
             this.zosmfApiProcessor = this.zosFileHandler.getZosmfManager().newZosmfRestApiProcessor(this.image, this.zosFileHandler.getZosManager().getZosFilePropertyFileRestrictToImage(image.getImageID()));
             this.maxItems = this.zosFileHandler.getZosManager().getZosFilePropertyDirectoryListMaxItems(image.getImageID());
             this.createMode = this.zosFileHandler.getZosManager().getZosFilePropertyUnixFilePermissions(this.image.getImageID());
+            this.listThreads = this.zosFileHandler.getZosManager().getZosFilePropertyDirectoryListThreads(image.getImageID());
         } catch (ZosFileManagerException | ZosmfManagerException e) {
             throw new ZosUNIXFileException(e);
         }
     }
 
+    /**
+     * A path found by listing a directory, which shares the request processor and properties of the directory
+     * @param directory the directory that was listed
+     * @param unixPath the path
+     */
+    protected ZosmfZosUNIXFileImpl(ZosmfZosUNIXFileImpl directory, String unixPath) {
+        this.image = directory.image;
+        this.unixPath = FilenameUtils.normalize(unixPath, true);
+        this.zosFileHandler = directory.zosFileHandler;
+        this.testMethodArchiveFolder = directory.testMethodArchiveFolder;
+        this.zosmfApiProcessor = directory.zosmfApiProcessor;
+        this.maxItems = directory.maxItems;
+        this.createMode = directory.createMode;
+        this.listThreads = directory.listThreads;
+        splitUnixPath();
+    }
+
 
     @Override
     public IZosUNIXFile create() throws ZosUNIXFileException {
@@ -690,25 +712,21 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
         }
         if (isDirectory(path)) {
             Map<String, IZosUNIXFile> paths = listDirectory(path, true);
+            List<IZosUNIXFile> files = new ArrayList<>();
             for (Map.Entry<String, IZosUNIXFile> entry : paths.entrySet()) {
             	IZosUNIXFile entryUnixFile = entry.getValue();
                 String entryPath = entryUnixFile.getUnixPath();
                 String directoryName = entryPath.substring(path.length());
                 UNIXFileType entryFileType = entryUnixFile.getFileType();
                 if (entryFileType.equals(UNIXFileType.FILE)) {
-                	String fileName = entry.getValue().getFileName();
-                	if (directoryName.contains(SLASH)) {
-                		directoryName = SLASH + directoryName.substring(0,directoryName.length()-fileName.length()-1);
-                	} else {
-                		directoryName = SLASH;
-                	}
-                    String archiveLocation = storeArtifact(rasPath + directoryName, retrieve(entryPath), false, fileName);
-                    logger.info(quoted(entryPath) + LOG_ARCHIVED_TO + archiveLocation);
+                    files.add(entryUnixFile);
                 } else if (entryFileType.equals(UNIXFileType.DIRECTORY)) {
                     String archiveLocation = storeArtifact(rasPath, null, true, directoryName);
                     logger.info(quoted(entryPath) + LOG_ARCHIVED_TO + archiveLocation);
                 }
             }
+            // *** The directories now exist in the RAS, so the files can be retrieved in any order
+            ZosUNIXFileTreeWalker.forEach(this.listThreads, files, file -> saveFileToResultsArchive(path, rasPath, file));
         } else {
             String archiveLocation = storeArtifact(rasPath, retrieve(path), false, this.fileName);
             logger.info(quoted(this.unixPath) + LOG_ARCHIVED_TO + archiveLocation);
@@ -716,6 +734,20 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
     }
 
 
+    protected void saveFileToResultsArchive(String path, String rasPath, IZosUNIXFile unixFile) throws ZosUNIXFileException {
+        String entryPath = unixFile.getUnixPath();
+        String directoryName = entryPath.substring(path.length());
+        String fileName = unixFile.getFileName();
+        if (directoryName.contains(SLASH)) {
+            directoryName = SLASH + directoryName.substring(0,directoryName.length()-fileName.length()-1);
+        } else {
+            directoryName = SLASH;
+        }
+        String archiveLocation = storeArtifact(rasPath + directoryName, retrieve(entryPath), false, fileName);
+        logger.info(quoted(entryPath) + LOG_ARCHIVED_TO + archiveLocation);
+    }
+
+
     protected boolean isDirectory(String path) throws ZosUNIXFileException {
         if (path.equals(this.unixPath) && !exists(path)) {
             return this.fileType.equals(UNIXFileType.DIRECTORY);
@@ -731,6 +763,22 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
         }
 
         path = path.replaceAll("/[\\/\\/]+", "/").replaceAll("\\/$", "");
+        return getPaths(path, sendListRequest(path), recursive);
+    }
+
+
+    /**
+     * List a directory that is already known to be a directory, e.g. from the listing of its parent
+     * @param path the directory
+     * @return the content of the directory, not including the content of its sub directories
+     * @throws ZosUNIXFileException
+     */
+    protected SortedMap<String, IZosUNIXFile> listDirectoryContent(String path) throws ZosUNIXFileException {
+        return getPaths(path, sendListRequest(path), false);
+    }
+
+
+    protected JsonObject sendListRequest(String path) throws ZosUNIXFileException {
         Map<String, String> headers = new HashMap<>();
         headers.put(ZosmfCustomHeaders.X_IBM_LSTAT.toString(), "false");
         headers.put(ZosmfCustomHeaders.X_IBM_MAX_ITEMS.toString(), Integer.toString(this.maxItems));
@@ -752,7 +800,7 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
         
         logger.trace(responseBody);
         if (response.getStatusCode() == HttpStatus.SC_OK) {
-            return getPaths(path, responseBody, recursive);
+            return responseBody;
         } else {
             // Error case - BAD_REQUEST or INTERNAL_SERVER_ERROR
             String displayMessage = buildErrorString(LOG_LISTING, responseBody, path); 
@@ -772,6 +820,7 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
             throw new ZosUNIXFileException("The number of files and directories (" + totalRowsValue  + ") in UNIX path " + quoted(root) + " is greater than the maximum allowed rows (" + Integer.toString(this.maxItems) + ")");
         }
         SortedMap<String, IZosUNIXFile> paths = new TreeMap<>();
+        List<IZosUNIXFile> directories = new ArrayList<>();
         if (returnedRowsValue > 0) {
             JsonArray items = responseBody.getAsJsonArray(PROP_ITEMS);            
             for (int i = 0; i < returnedRowsValue; i++) {
@@ -779,7 +828,7 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
                 String path = root + item.get(PROP_NAME).getAsString();
                 UNIXFileType pathType = determineType(item.get(PROP_MODE).getAsString());
                 if (!(path.endsWith("/.") || path.endsWith("/.."))) {
-                	ZosmfZosUNIXFileImpl unixFile = new ZosmfZosUNIXFileImpl(this.zosFileHandler, this.image, path);
+                	ZosmfZosUNIXFileImpl unixFile = new ZosmfZosUNIXFileImpl(this, path);
                 	unixFile.setFileType(pathType);
                 	unixFile.setFilePermissions(item.get(PROP_MODE).getAsString().substring(1));
                 	unixFile.setFileSize(item.get(PROP_SIZE).getAsInt());
@@ -788,13 +837,34 @@ public class ZosmfZosUNIXFileImpl implements IZosUNIXFile {
                 	unixFile.setGroup(item.get(PROP_GROUP).getAsString());
                     paths.put(path, unixFile);
                     if (pathType.equals(UNIXFileType.DIRECTORY) && recursive) {
-                        paths.putAll(listDirectory(path, recursive));
+                        directories.add(unixFile);
                     }
                 }
             }
         }
+        if (!directories.isEmpty()) {
+            paths.putAll(listDirectories(directories));
+        }
         return paths;
     }
+
+
+    /**
+     * Recursively list directories found by listing their parent
+     * @param directories the directories
+     * @return everything below the directories
+     * @throws ZosUNIXFileException
+     */
+    protected SortedMap<String, IZosUNIXFile> listDirectories(List<IZosUNIXFile> directories) throws ZosUNIXFileException {
+        if (this.listThreads <= 1) {
+            SortedMap<String, IZosUNIXFile> paths = new TreeMap<>();
+            for (IZosUNIXFile directory : directories) {
+                paths.putAll(listDirectory(directory.getUnixPath(), true));
+            }
+            return paths;
+        }
+        return new ZosUNIXFileTreeWalker(this.listThreads, this::listDirectoryContent).walk(directories);
+    }
     
     protected void setFileType(UNIXFileType type) {
         this.fileType = type;
@@ -8,6 +8,7 @@ package dev.galasa.zosfile.zosmf.manager.internal;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -27,9 +28,11 @@ import dev.galasa.zosfile.IZosDataset.DatasetOrganization;
 import dev.galasa.zosfile.IZosDataset.RecordFormat;
 import dev.galasa.zosfile.IZosDataset.SpaceUnit;
 import dev.galasa.zosfile.IZosVSAMDataset;
+import dev.galasa.zosfile.IZosVSAMRecordIterator;
 import dev.galasa.zosfile.ZosDatasetException;
 import dev.galasa.zosfile.ZosFileManagerException;
 import dev.galasa.zosfile.ZosVSAMDatasetException;
+import dev.galasa.zosfile.spi.ZosVSAMPrintRecordIterator;
 import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
 import dev.galasa.zosmf.IZosmfResponse;
 import dev.galasa.zosmf.IZosmfRestApiProcessor;
@@ -145,6 +148,7 @@ public class ZosmfZosVSAMDatasetImpl implements IZosVSAMDataset {
 
     private String idcamsInput;
     private String idcamsOutput;
+    private List<String> idcamsOutputLines = new ArrayList<>();
     private String idcamsCommand;
     private int idcamsRc;
     
@@ -177,6 +181,8 @@ public class ZosmfZosVSAMDatasetImpl implements IZosVSAMDataset {
     private static final String PARM_RECORDSIZE = "RECSZ";
     private static final String PARM_SHAREOPTIONS = "SHR";
     private static final String PARM_STORAGECLASS = "STORCLAS";    
+    private static final String PARM_FROMKEY = "FROMKEY";
+    private static final String PARM_TOKEY = "TOKEY";
     private static final String PROP_INPUT = "input";
 
     // Default LLQs for index and data files
@@ -376,6 +382,33 @@ public class ZosmfZosVSAMDatasetImpl implements IZosVSAMDataset {
         return content;
     }
 
+    @Override
+    public IZosVSAMRecordIterator retrieveRecords() throws ZosVSAMDatasetException {
+        return newRecordIterator(null, null, -1);
+    }
+
+    @Override
+    public List<byte[]> retrieveRecords(int count) throws ZosVSAMDatasetException {
+        return newRecordIterator(null, null, count).toList();
+    }
+
+    @Override
+    public IZosVSAMRecordIterator retrieveRecordsByKey(String fromKey, String toKey) throws ZosVSAMDatasetException {
+        return newRecordIterator(ZosVSAMPrintRecordIterator.characterKeyParameter(PARM_FROMKEY, fromKey), 
+                toKey == null ? null : ZosVSAMPrintRecordIterator.characterKeyParameter(PARM_TOKEY, toKey), -1);
+    }
+
+    @Override
+    public IZosVSAMRecordIterator retrieveRecordsByKey(byte[] fromKey, byte[] toKey) throws ZosVSAMDatasetException {
+        return newRecordIterator(ZosVSAMPrintRecordIterator.hexKeyParameter(PARM_FROMKEY, fromKey), 
+                toKey == null ? null : ZosVSAMPrintRecordIterator.hexKeyParameter(PARM_TOKEY, toKey), -1);
+    }
+
+    @Override
+    public IZosVSAMRecordIterator retrieveRecordsByRBA(long fromRba, long toRba) throws ZosVSAMDatasetException {
+        return newRecordIterator("FROMADDRESS(" + fromRba + ")", toRba < 0 ? null : "TOADDRESS(" + toRba + ")", -1);
+    }
+
     @Override
     public void saveToResultsArchive(String rasPath) throws ZosVSAMDatasetException {
         try {
@@ -895,6 +928,40 @@ public class ZosmfZosVSAMDatasetImpl implements IZosVSAMDataset {
         return reproDataset;
     }
 
+    protected ZosVSAMPrintRecordIterator newRecordIterator(String fromParameter, String toParameter, int maxRecords) throws ZosVSAMDatasetException {
+        if (!exists()) {
+            throw new ZosVSAMDatasetException(LOG_VSAM_DATA_SET + quoted(this.name) + LOG_DOES_NOT_EXIST + logOnImage());
+        }
+        int pageRecords;
+        try {
+            pageRecords = this.zosFileHandler.getZosManager().getZosFilePropertyVSAMRetrievePageRecords(this.image.getImageID());
+        } catch (ZosFileManagerException e) {
+            throw new ZosVSAMDatasetException(e);
+        }
+        return new ZosVSAMPrintRecordIterator(this.name, this.dataType, pageRecords, fromParameter, toParameter, maxRecords, this::printRecords);
+    }
+
+    protected List<String> printRecords(String command) throws ZosVSAMDatasetException {
+        JsonArray amsInput = new JsonArray();
+        String[] items = command.split("\n");
+        for (String item : items ) {
+            amsInput.add(item);
+        }
+        JsonObject requestBody = new JsonObject();
+        requestBody.add(PROP_INPUT, amsInput);
+        
+        try {
+            idcamsRequest(requestBody);
+        } catch (ZosVSAMDatasetException e) {
+            // *** An empty data set cannot be opened for input
+            if (getTotalRecords() == 0) {
+                return new ArrayList<>();
+            }
+            throw e;
+        }
+        return this.idcamsOutputLines;
+    }
+
     protected String temporaryLLQ() {
         return this.zosFileHandler.getZosFileManager().getRunId() + ".T" + StringUtils.leftPad(String.valueOf(++temporaryQualifierCounter), 4, "0");
     }
@@ -916,6 +983,7 @@ public class ZosmfZosVSAMDatasetImpl implements IZosVSAMDataset {
 
     protected void setIdcamsOutput(JsonObject responseBody) {
         StringBuilder sb = new StringBuilder();
+        this.idcamsOutputLines = new ArrayList<>();
         JsonElement outputElement = responseBody.get("output");
         if (outputElement == null) {
             return;
@@ -925,6 +993,7 @@ public class ZosmfZosVSAMDatasetImpl implements IZosVSAMDataset {
             String itemString  = item.getAsString();
             logger.debug(itemString);
             sb.append(itemString);            
+            this.idcamsOutputLines.add(itemString);
         }
         this.idcamsOutput = sb.toString();
         this.idcamsRc = responseBody.get("rc").getAsInt();
@@ -7,6 +7,7 @@ package dev.galasa.zosfile.zosmf.manager.internal;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.FileSystem;
@@ -45,6 +46,7 @@ import dev.galasa.zosfile.IZosDataset.DatasetDataType;
 import dev.galasa.zosfile.IZosDataset.DatasetOrganization;
 import dev.galasa.zosfile.IZosDataset.RecordFormat;
 import dev.galasa.zosfile.IZosDataset.SpaceUnit;
+import dev.galasa.zosfile.IZosDatasetRecordIterator;
 import dev.galasa.zosfile.ZosDatasetException;
 import dev.galasa.zosfile.ZosFileManagerException;
 import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
@@ -424,6 +426,81 @@ public class TestZosmfZosDatasetImpl {
         });
     	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
     }
+
+    @Test
+    public void testStoreFromStream() throws ZosDatasetException {
+        PowerMockito.doReturn(false).when(zosDatasetSpy).isPDS();
+        PowerMockito.doNothing().when(zosDatasetSpy).storeStream(Mockito.any(), Mockito.any());
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        
+        zosDatasetSpy.storeFromStream(content);
+        Mockito.verify(zosDatasetSpy).storeStream(content, null);
+        
+        PowerMockito.doReturn(true).when(zosDatasetSpy).isPDS();
+        String expectedMessage = "Data set \"" + DATASET_NAME + "\" is a partitioned data set. Use memberStoreFromStream(String memberName, InputStream content) method instead";
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+        	zosDatasetSpy.storeFromStream(content);
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+
+    @Test
+    public void testRetrieveAsStream() throws ZosDatasetException, ZosFileManagerException, IOException {
+        PowerMockito.doReturn(false).when(zosDatasetSpy).isPDS();
+        Mockito.when(zosManagerMock.getZosFilePropertyDatasetRetrieveThreads(Mockito.any())).thenReturn(1);
+        Mockito.when(zosManagerMock.getZosFilePropertyDatasetRetrieveRangeRecords(Mockito.any())).thenReturn(2);
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        PowerMockito.doReturn(content).when(zosDatasetSpy).retrieve(Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+        Assert.assertSame("retrieveAsStream() should return the response stream", content, zosDatasetSpy.retrieveAsStream());
+        Mockito.verify(zosDatasetSpy).retrieve(null, null, false);
+
+        PowerMockito.doReturn(CONTENT).when(zosDatasetSpy).retrieve(Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+        Assert.assertEquals("retrieveAsStream() should return the supplied value", CONTENT, new String(zosDatasetSpy.inputStreamToByteArray(zosDatasetSpy.retrieveAsStream())));
+
+        // *** Retrieved by record range
+        Mockito.when(zosManagerMock.getZosFilePropertyDatasetRetrieveThreads(Mockito.any())).thenReturn(2);
+        PowerMockito.doReturn("REC1\nREC2\n").when(zosDatasetSpy).retrieve(null, "0,2", false);
+        PowerMockito.doReturn("REC3\n").when(zosDatasetSpy).retrieve(null, "2,2", false);
+        PowerMockito.doReturn("").when(zosDatasetSpy).retrieve(null, "4,2", false);
+        try (InputStream stream = zosDatasetSpy.retrieveAsStream()) {
+            Assert.assertEquals("retrieveAsStream() should return all the ranges", "REC1\nREC2\nREC3\n", new String(zosDatasetSpy.inputStreamToByteArray(stream)));
+        }
+
+        PowerMockito.doReturn(true).when(zosDatasetSpy).isPDS();
+        String expectedMessage = "Data set \"" + DATASET_NAME + "\" is a partitioned data set. Use memberRetrieveAsStream(String memberName) method instead";
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+        	zosDatasetSpy.retrieveAsStream();
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+
+    @Test
+    public void testRetrieveRecords() throws ZosDatasetException {
+        PowerMockito.doReturn(false).when(zosDatasetSpy).isPDS();
+        PowerMockito.doReturn(new ByteArrayInputStream("REC1\nREC2\n".getBytes())).when(zosDatasetSpy).retrieveStream(Mockito.any());
+        try (IZosDatasetRecordIterator records = zosDatasetSpy.retrieveRecords()) {
+            Assert.assertEquals("retrieveRecords() should return the first record", "REC1", new String(records.next()));
+            Assert.assertEquals("retrieveRecords() should return the second record", "REC2", new String(records.next()));
+            Assert.assertFalse("retrieveRecords() should return two records", records.hasNext());
+        }
+
+        zosDatasetSpy.setDataType(DatasetDataType.BINARY);
+        Whitebox.setInternalState(zosDatasetSpy, "recfm", RecordFormat.FIXED_BLOCKED);
+        Whitebox.setInternalState(zosDatasetSpy, "lrecl", 4);
+        PowerMockito.doReturn(new ByteArrayInputStream("REC1REC2".getBytes())).when(zosDatasetSpy).retrieveStream(Mockito.any());
+        try (IZosDatasetRecordIterator records = zosDatasetSpy.retrieveRecords()) {
+            Assert.assertEquals("retrieveRecords() should return the first record", "REC1", new String(records.next()));
+            Assert.assertEquals("retrieveRecords() should return the second record", "REC2", new String(records.next()));
+            Assert.assertFalse("retrieveRecords() should return two records", records.hasNext());
+        }
+        
+        PowerMockito.doReturn(true).when(zosDatasetSpy).isPDS();
+        String expectedMessage = "Data set \"" + DATASET_NAME + "\" is a partitioned data set. Use memberRetrieveRecords(String memberName) method instead";
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+        	zosDatasetSpy.retrieveRecords();
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
     
     @Test
     public void testSaveToResultsArchive() throws IOException, ZosManagerException {
@@ -1426,6 +1503,25 @@ public class TestZosmfZosDatasetImpl {
         Mockito.clearInvocations(zosDatasetSpy);
     }
     
+    @Test
+    public void testInternalStoreStream() throws ZosDatasetException, ZosmfException {
+        PowerMockito.doReturn(true).when(zosDatasetSpy).exists();
+        Mockito.when(zosmfApiProcessorMock.sendRequest(Mockito.eq(ZosmfRequestType.PUT_STREAM), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(zosmfResponseMock);
+        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_NO_CONTENT);
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        
+        zosDatasetSpy.storeStream(content, MEMBER_NAME);
+        Mockito.verify(zosmfApiProcessorMock).sendRequest(Mockito.eq(ZosmfRequestType.PUT_STREAM), Mockito.any(), Mockito.any(), Mockito.same(content), Mockito.any(), Mockito.anyBoolean());
+        
+        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_NOT_FOUND);
+        Mockito.when(zosmfResponseMock.getJsonContent()).thenReturn(getJsonObject());
+        PowerMockito.doReturn(ERROR).when(zosDatasetSpy).buildErrorString(Mockito.anyString(), Mockito.any());
+        ZosDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosDatasetException.class, ()->{
+        	zosDatasetSpy.storeStream(content, MEMBER_NAME);
+        });
+    	Assert.assertEquals("exception should contain expected message", ERROR, expectedException.getMessage());
+    }
+    
     @Test
     public void testInternalStoreTextNotExist() throws ZosDatasetException, ZosmfException {
         PowerMockito.doReturn(false).when(zosDatasetSpy).exists();
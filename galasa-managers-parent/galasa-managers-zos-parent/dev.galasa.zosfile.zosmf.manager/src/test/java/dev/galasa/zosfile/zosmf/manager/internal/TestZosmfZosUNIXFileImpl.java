@@ -13,6 +13,7 @@ import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -929,6 +930,52 @@ public class TestZosmfZosUNIXFileImpl {
         Assert.assertEquals("exception should contain expected cause", expectedMessage, expectedException.getMessage());
     }
     
+    @Test
+    public void testListDirectories() throws ZosUNIXFileException {
+        IZosUNIXFile directoryMock1 = Mockito.mock(IZosUNIXFile.class);
+        Mockito.when(directoryMock1.getUnixPath()).thenReturn("/root/path1");
+        IZosUNIXFile directoryMock2 = Mockito.mock(IZosUNIXFile.class);
+        Mockito.when(directoryMock2.getUnixPath()).thenReturn("/root/path1/path2");
+        Mockito.when(directoryMock2.getFileType()).thenReturn(UNIXFileType.DIRECTORY);
+        IZosUNIXFile fileMock1 = Mockito.mock(IZosUNIXFile.class);
+        Mockito.when(fileMock1.getFileType()).thenReturn(UNIXFileType.FILE);
+        IZosUNIXFile fileMock2 = Mockito.mock(IZosUNIXFile.class);
+        Mockito.when(fileMock2.getFileType()).thenReturn(UNIXFileType.FILE);
+        SortedMap<String, IZosUNIXFile> path1Content = new TreeMap<>();
+        path1Content.put("/root/path1/file1", fileMock1);
+        path1Content.put("/root/path1/path2", directoryMock2);
+        SortedMap<String, IZosUNIXFile> path2Content = new TreeMap<>();
+        path2Content.put("/root/path1/path2/file2", fileMock2);
+        SortedMap<String, IZosUNIXFile> expectedResult = new TreeMap<>();
+        expectedResult.putAll(path1Content);
+        expectedResult.putAll(path2Content);
+
+        PowerMockito.doReturn(expectedResult).when(zosUNIXFileSpy).listDirectory(Mockito.any(), Mockito.anyBoolean());
+        Assert.assertEquals("listDirectories() should return expected content", expectedResult, zosUNIXFileSpy.listDirectories(Arrays.asList(directoryMock1)));
+        Mockito.verify(zosUNIXFileSpy, Mockito.times(1)).listDirectory("/root/path1", true);
+
+        Whitebox.setInternalState(zosUNIXFileSpy, "listThreads", 2);
+        PowerMockito.doReturn(path1Content).when(zosUNIXFileSpy).listDirectoryContent("/root/path1");
+        PowerMockito.doReturn(path2Content).when(zosUNIXFileSpy).listDirectoryContent("/root/path1/path2");
+        Assert.assertEquals("listDirectories() should return expected content", expectedResult, zosUNIXFileSpy.listDirectories(Arrays.asList(directoryMock1)));
+        Mockito.verify(zosUNIXFileSpy, Mockito.times(1)).listDirectory(Mockito.any(), Mockito.anyBoolean());
+
+        PowerMockito.doThrow(new ZosUNIXFileException(EXCEPTION)).when(zosUNIXFileSpy).listDirectoryContent("/root/path1/path2");
+        ZosUNIXFileException expectedException = Assert.assertThrows("expected exception should be thrown", ZosUNIXFileException.class, ()->{
+        	zosUNIXFileSpy.listDirectories(Arrays.asList(directoryMock1));
+        });
+        Assert.assertEquals("exception should contain expected message", EXCEPTION, expectedException.getMessage());
+    }
+    
+    @Test
+    public void testDirectoryEntryConstructor() {
+        ZosmfZosUNIXFileImpl unixFile = new ZosmfZosUNIXFileImpl(zosUNIXFileSpy, "/root//path1/file1");
+        Assert.assertEquals("getUnixPath() should return the expected value", "/root/path1/file1", unixFile.getUnixPath());
+        Assert.assertEquals("getFileName() should return the expected value", "file1", unixFile.getFileName());
+        Assert.assertEquals("getDirectoryPath() should return the expected value", "/root/path1", unixFile.getDirectoryPath());
+        Assert.assertSame("constructor should share the request processor", Whitebox.getInternalState(zosUNIXFileSpy, "zosmfApiProcessor"), Whitebox.getInternalState(unixFile, "zosmfApiProcessor"));
+    }
+    
     @Test
     public void testGetPaths() throws ZosUNIXFileException {
         JsonObject jsonObject = new JsonObject();
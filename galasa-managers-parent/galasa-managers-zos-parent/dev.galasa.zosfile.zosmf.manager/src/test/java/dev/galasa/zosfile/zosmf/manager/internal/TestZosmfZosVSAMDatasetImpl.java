@@ -11,6 +11,8 @@ import java.nio.channels.SeekableByteChannel;
 import java.nio.file.FileSystem;
 import java.nio.file.Path;
 import java.nio.file.spi.FileSystemProvider;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -410,6 +412,65 @@ public class TestZosmfZosVSAMDatasetImpl {
         Assert.assertEquals("exception should contain expected cause", expectedMessage, expectedException.getMessage());
     }
     
+    @Test
+    public void testRetrieveRecords() throws ZosVSAMDatasetException, ZosFileManagerException {
+        PowerMockito.doReturn(true).when(zosVSAMDatasetSpy).exists();
+        Mockito.when(zosManagerMock.getZosFilePropertyVSAMRetrievePageRecords(Mockito.any())).thenReturn(10);
+        Whitebox.setInternalState(zosVSAMDatasetSpy, "dataType", DatasetDataType.TEXT);
+        PowerMockito.doReturn(Arrays.asList("KEY OF RECORD - C1", "C1C2", "IDC0005I NUMBER OF RECORDS PROCESSED WAS 1")).when(zosVSAMDatasetSpy).printRecords(Mockito.any());
+        
+        List<byte[]> records = zosVSAMDatasetSpy.retrieveRecords(5);
+        Assert.assertEquals("retrieveRecords() should return the expected records", 1, records.size());
+        Assert.assertEquals("retrieveRecords() should return the expected records", "AB", new String(records.get(0)));
+        Mockito.verify(zosVSAMDatasetSpy).printRecords("PRINT -\n  INDATASET('" + VSAM_DATASET_NAME + "') -\n  HEX -\n  COUNT(5)");
+        
+        Assert.assertTrue("retrieveRecords() should return the records", zosVSAMDatasetSpy.retrieveRecords().hasNext());
+        Mockito.verify(zosVSAMDatasetSpy).printRecords("PRINT -\n  INDATASET('" + VSAM_DATASET_NAME + "') -\n  HEX -\n  COUNT(10)");
+        
+        Assert.assertTrue("retrieveRecordsByKey() should return the records", zosVSAMDatasetSpy.retrieveRecordsByKey("A", "B").hasNext());
+        Mockito.verify(zosVSAMDatasetSpy).printRecords("PRINT -\n  INDATASET('" + VSAM_DATASET_NAME + "') -\n  HEX -\n  FROMKEY('A') -\n  TOKEY('B')");
+        
+        Assert.assertTrue("retrieveRecordsByKey() should return the records", zosVSAMDatasetSpy.retrieveRecordsByKey(new byte[] {(byte) 0xC3}, null).hasNext());
+        Mockito.verify(zosVSAMDatasetSpy).printRecords("PRINT -\n  INDATASET('" + VSAM_DATASET_NAME + "') -\n  HEX -\n  FROMKEY(X'C3') -\n  COUNT(10)");
+        
+        Assert.assertTrue("retrieveRecordsByRBA() should return the records", zosVSAMDatasetSpy.retrieveRecordsByRBA(0, 100).hasNext());
+        Mockito.verify(zosVSAMDatasetSpy).printRecords("PRINT -\n  INDATASET('" + VSAM_DATASET_NAME + "') -\n  HEX -\n  FROMADDRESS(0) -\n  TOADDRESS(100)");
+    }
+    
+    @Test
+    public void testRetrieveRecordsException() throws ZosVSAMDatasetException, ZosFileManagerException {
+        PowerMockito.doReturn(false).when(zosVSAMDatasetSpy).exists();
+        String expectedMessage = "VSAM data set \"" + VSAM_DATASET_NAME + "\" does not exist on image " + IMAGE;
+        ZosVSAMDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosVSAMDatasetException.class, ()->{
+        	zosVSAMDatasetSpy.retrieveRecords();
+        });
+        Assert.assertEquals("exception should contain expected cause", expectedMessage, expectedException.getMessage());
+        
+        PowerMockito.doReturn(true).when(zosVSAMDatasetSpy).exists();
+        Mockito.when(zosManagerMock.getZosFilePropertyVSAMRetrievePageRecords(Mockito.any())).thenThrow(new ZosFileManagerException(EXCEPTION));
+        expectedException = Assert.assertThrows("expected exception should be thrown", ZosVSAMDatasetException.class, ()->{
+        	zosVSAMDatasetSpy.retrieveRecords();
+        });
+        Assert.assertEquals("exception should contain expected cause", EXCEPTION, expectedException.getCause().getMessage());
+    }
+    
+    @Test
+    public void testPrintRecords() throws ZosVSAMDatasetException {
+        PowerMockito.doNothing().when(zosVSAMDatasetSpy).idcamsRequest(Mockito.any());
+        Whitebox.setInternalState(zosVSAMDatasetSpy, "idcamsOutputLines", Arrays.asList("LINE1", "LINE2"));
+        Assert.assertEquals("printRecords() should return the IDCAMS output", Arrays.asList("LINE1", "LINE2"), zosVSAMDatasetSpy.printRecords(IDCAMS_COMMAND));
+        
+        PowerMockito.doThrow(new ZosVSAMDatasetException(EXCEPTION)).when(zosVSAMDatasetSpy).idcamsRequest(Mockito.any());
+        PowerMockito.doReturn("0").when(zosVSAMDatasetSpy).getValueFromListcat(Mockito.any());
+        Assert.assertTrue("printRecords() should return no output for an empty data set", zosVSAMDatasetSpy.printRecords(IDCAMS_COMMAND).isEmpty());
+        
+        PowerMockito.doReturn("99").when(zosVSAMDatasetSpy).getValueFromListcat(Mockito.any());
+        ZosVSAMDatasetException expectedException = Assert.assertThrows("expected exception should be thrown", ZosVSAMDatasetException.class, ()->{
+        	zosVSAMDatasetSpy.printRecords(IDCAMS_COMMAND);
+        });
+        Assert.assertEquals("exception should contain expected cause", EXCEPTION, expectedException.getMessage());
+    }
+    
     @Test
     public void testSaveToResultsArchive() throws IOException, ZosManagerException {
 		zosVSAMDatasetSpy.setShouldArchive(true);
@@ -6,6 +6,7 @@
 package dev.galasa.zosmf;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.validation.constraints.NotNull;
 
@@ -29,6 +30,8 @@ public interface IZosmf {
      * <li>{@link #PUT}</li>
      * <li>{@link #PUT_TEXT}</li>
      * <li>{@link #PUT_JSON}</li>
+     * <li>{@link #PUT_BINARY}</li>
+     * <li>{@link #PUT_STREAM}</li>
      * <li>{@link #DELETE}</li>
      */
     public enum ZosmfRequestType {
@@ -60,6 +63,10 @@ public interface IZosmf {
          * PUT method with byte[] request body
          */
         PUT_BINARY,
+        /**
+         * PUT method with {@link java.io.InputStream} request body, sent without being read into memory
+         */
+        PUT_STREAM,
         /**
          * DELETE method with no request body
          */
@@ -75,6 +82,7 @@ public interface IZosmf {
      * <li>{@link #X_IBM_MAX_ITEMS}</li>
      * <li>{@link #X_IBM_OPTION}</li>
      * <li>{@link #X_IBM_REQUESTED_METHOD}</li>
+     * <li>{@link #X_IBM_RECORD_RANGE}</li>
      *
      */
     public enum ZosmfCustomHeaders {
@@ -114,6 +122,10 @@ public interface IZosmf {
          * {@code X-IBM-Intrdr-Lrecl}
          */
         X_IBM_INTRDR_LRECL("X-IBM-Intrdr-Lrecl"),
+        /**
+         * {@code X-IBM-Record-Range}
+         */
+        X_IBM_RECORD_RANGE("X-IBM-Record-Range"),
         /**
          * {@code X-CSRF-ZOSMF-HEADER}
          */
@@ -209,6 +221,21 @@ public interface IZosmf {
      * @throws ZosmfException
      */
     public @NotNull IZosmfResponse delete(String path, List<Integer> validStatusCodes) throws ZosmfException;
+
+    /**
+     * Issue an HTTP request to the zOSMF server with headers for this request only, in addition to any set by
+     * {@link #setHeader(String, String)}. Unlike those, they are not seen by requests on other threads.
+     * 
+     * @param requestType as defined by {@link ZosmfRequestType}
+     * @param path identifies the zOSMF REST API
+     * @param headers the HTTP headers for this request or null
+     * @param requestBody the request body or null
+     * @param validStatusCodes a {@link List} of acceptable HTTP Status codes. Default to {@link HttpStatus#SC_OK} when null
+     * @param convert is a data conversion required on a GET. If true, data will be converted betwen EBCDIC to ISO8859-1. If false, no data conversion will take place.
+     * @return the zOSMF server response
+     * @throws ZosmfException
+     */
+    public @NotNull IZosmfResponse request(ZosmfRequestType requestType, String path, Map<String, String> headers, Object requestBody, List<Integer> validStatusCodes, boolean convert) throws ZosmfException;
     
     /**
      * Return the JSON response from the zOSMF Server Information request
@@ -6,14 +6,12 @@
 package dev.galasa.zosmf.internal;
 
 import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 
 import javax.validation.constraints.NotNull;
 
@@ -23,18 +21,17 @@ import org.apache.http.HttpStatus;
 
 import com.google.gson.JsonObject;
 
-import dev.galasa.ICredentials;
-import dev.galasa.ICredentialsUsernamePassword;
-import dev.galasa.framework.spi.creds.CredentialsException;
 import dev.galasa.http.HttpClientException;
-import dev.galasa.http.IHttpClient;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
+import dev.galasa.zos.spi.ZosRestTransport;
+import dev.galasa.zos.spi.ZosRestTransport.RequestType;
 import dev.galasa.zosmf.IZosmf;
 import dev.galasa.zosmf.IZosmfResponse;
 import dev.galasa.zosmf.ZosmfException;
 import dev.galasa.zosmf.ZosmfManagerException;
 import dev.galasa.zosmf.internal.properties.Https;
+import dev.galasa.zosmf.internal.properties.MaxConcurrentRequests;
 import dev.galasa.zosmf.internal.properties.RequestRetry;
 import dev.galasa.zosmf.internal.properties.ServerCreds;
 import dev.galasa.zosmf.internal.properties.ServerImage;
@@ -47,17 +44,21 @@ import dev.galasa.zosmf.internal.properties.ServerPort;
 public class ZosmfImpl implements IZosmf {
     
     private static final String LOG_BODY = "body: \n";
+
+    // *** e.g. /zosmf/restfiles/ds
+    private static final int ENDPOINT_SEGMENTS = 3;
+
+    // *** e.g. restfiles
+    private static final int API_SEGMENT = 1;
     
     private static final Log logger = LogFactory.getLog(ZosmfImpl.class);
 
     private final ZosmfManagerImpl zosmfManager;
     private final String serverId;
     private IZosImage image;
-    private IHttpClient httpClient;
     private String zosmfUrl;
     protected int requestRetry;
-
-    private HashMap<String, String> commonHeaders = new HashMap<>();
+    private ZosRestTransport transport;
 
 	private static final String PATH_SERVERDETAILS = "/zosmf/info";
 
@@ -81,168 +82,69 @@ public class ZosmfImpl implements IZosmf {
 
     @Override
     public void setHeader(String key, String value) {
-        this.commonHeaders.put(key, value);
+        this.transport.setHeader(key, value);
     }
 
     @Override
     public void clearHeaders() {
-        this.commonHeaders.clear();
-        this.httpClient.clearCommonHeaders();
+        this.transport.clearHeaders();
     }
 
     @Override
     public @NotNull IZosmfResponse get(String path, List<Integer> validStatusCodes, boolean convert) throws ZosmfException {
-        String method = ZosmfRequestType.GET.name();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        ZosmfResponseImpl zosmfResponse;
-        try {
-            setHeader(ZosmfCustomHeaders.X_IBM_REQUESTED_METHOD.toString(), method);
-            addCommonHeaders();
-            zosmfResponse = new ZosmfResponseImpl(this.zosmfUrl, validPath(path));
-            logger.trace(logRequest(method, zosmfResponse.getRequestUrl()));
-            if (convert) {
-                zosmfResponse.setHttpClientresponse(this.httpClient.getText(validPath(path)));
-            } else {
-                zosmfResponse.setHttpClientresponse(this.httpClient.getFile(validPath(path)));
-            }
-            
-            logger.trace(logResponse(zosmfResponse.getStatusLine(), method, zosmfResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(zosmfResponse.getStatusCode())) {
-                throw new ZosmfException(logBadStatusCode(zosmfResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException | IllegalArgumentException e) {
-            logger.error(e);
-            throw new ZosmfException(logBadRequest(method), e);
-        }
-        
-        return zosmfResponse;
+        return request(ZosmfRequestType.GET, path, null, null, validStatusCodes, convert);
     }
 
     @Override
     public @NotNull IZosmfResponse postJson(String path, JsonObject requestBody, List<Integer> validStatusCodes) throws ZosmfException {
-        String method = ZosmfRequestType.POST.name();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        ZosmfResponseImpl zosmfResponse;
-        try {
-            setHeader(ZosmfCustomHeaders.X_IBM_REQUESTED_METHOD.toString(), method);
-            addCommonHeaders();
-            zosmfResponse = new ZosmfResponseImpl(this.zosmfUrl, validPath(path));
-            logger.trace(logRequest(method, zosmfResponse.getRequestUrl()));
-            logger.trace(LOG_BODY + requestBody);
-            zosmfResponse.setHttpClientresponse(this.httpClient.postJson(validPath(path), requestBody));
-            logger.trace(logResponse(zosmfResponse.getStatusLine(), method, zosmfResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(zosmfResponse.getStatusCode())) {
-                throw new ZosmfException(logBadStatusCode(zosmfResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException  e) {
-            logger.error(e);
-            throw new ZosmfException(logBadRequest(method), e);
-        }
-        
-        return zosmfResponse;
+        return request(ZosmfRequestType.POST_JSON, path, null, requestBody, validStatusCodes, false);
     }
 
     @Override
     public @NotNull IZosmfResponse putText(String path, String requestBody, List<Integer> validStatusCodes) throws ZosmfException {
-        String method = ZosmfRequestType.PUT.name();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        ZosmfResponseImpl zosmfResponse;
-        try {
-            setHeader(ZosmfCustomHeaders.X_IBM_REQUESTED_METHOD.toString(), method);
-            addCommonHeaders();
-            zosmfResponse = new ZosmfResponseImpl(this.zosmfUrl, validPath(path));
-            logger.trace(logRequest(method, zosmfResponse.getRequestUrl()));
-            logger.trace(LOG_BODY + requestBody);
-            zosmfResponse.setHttpClientresponse(this.httpClient.putText(validPath(path), requestBody));
-            logger.trace(logResponse(zosmfResponse.getStatusLine(), method, zosmfResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(zosmfResponse.getStatusCode())) {
-                throw new ZosmfException(logBadStatusCode(zosmfResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException  e) {
-            logger.error(e);
-            throw new ZosmfException(logBadRequest(method), e);
-        }
-        
-        return zosmfResponse;
+        return request(ZosmfRequestType.PUT_TEXT, path, null, requestBody, validStatusCodes, false);
     }
 
     @Override
     public @NotNull IZosmfResponse putJson(String path, JsonObject requestBody, List<Integer> validStatusCodes) throws ZosmfException {
-        String method = ZosmfRequestType.PUT.name();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        ZosmfResponseImpl zosmfResponse;
-        try {
-            setHeader(ZosmfCustomHeaders.X_IBM_REQUESTED_METHOD.toString(), method);
-            addCommonHeaders();
-            zosmfResponse = new ZosmfResponseImpl(this.zosmfUrl, validPath(path));
-            logger.trace(logRequest(method, zosmfResponse.getRequestUrl()));
-            logger.trace(LOG_BODY + requestBody);
-            zosmfResponse.setHttpClientresponse(this.httpClient.putJson(validPath(path), requestBody));
-            logger.trace(logResponse(zosmfResponse.getStatusLine(), method, zosmfResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(zosmfResponse.getStatusCode())) {
-                throw new ZosmfException(logBadStatusCode(zosmfResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException  e) {
-            logger.error(e);
-            throw new ZosmfException(logBadRequest(method), e);
-        }
-        
-        return zosmfResponse;
+        return request(ZosmfRequestType.PUT_JSON, path, null, requestBody, validStatusCodes, false);
     }
 
     @Override
     public @NotNull IZosmfResponse putBinary(String path, byte[] requestBody, List<Integer> validStatusCodes) throws ZosmfException  {
-        String method = ZosmfRequestType.PUT.name();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        ZosmfResponseImpl zosmfResponse;
-
-        try {
-            setHeader(ZosmfCustomHeaders.X_IBM_REQUESTED_METHOD.toString(), method);
-            addCommonHeaders();
-            zosmfResponse = new ZosmfResponseImpl(this.zosmfUrl, validPath(path));
-            logger.trace(logRequest(method, zosmfResponse.getRequestUrl()));
-            logger.trace(LOG_BODY + requestBody);
-            zosmfResponse.setHttpClientresponse(this.httpClient.putBinary(path, requestBody));
-            logger.trace(logResponse(zosmfResponse.getStatusLine(), method, zosmfResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(zosmfResponse.getStatusCode())) {
-                throw new ZosmfException(logBadStatusCode(zosmfResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException  e) {
-            logger.error(e);
-            throw new ZosmfException(logBadRequest(method), e);
-        }
-
-        return zosmfResponse;
+        return request(ZosmfRequestType.PUT_BINARY, path, null, requestBody, validStatusCodes, false);
     }
 
     @Override
     public @NotNull IZosmfResponse delete(String path, List<Integer> validStatusCodes) throws ZosmfException {
-        String method = ZosmfRequestType.DELETE.name();
+        return request(ZosmfRequestType.DELETE, path, null, null, validStatusCodes, false);
+    }
+
+    @Override
+    public @NotNull IZosmfResponse request(ZosmfRequestType requestType, String path, Map<String, String> headers, Object requestBody, List<Integer> validStatusCodes, boolean convert) throws ZosmfException {
+        String method = httpMethod(requestType);
         if (validStatusCodes == null) {
             validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
         }
+        HashMap<String, String> zosmfHeaders = new HashMap<>();
+        zosmfHeaders.put(ZosmfCustomHeaders.X_IBM_REQUESTED_METHOD.toString(), method);
+        if (headers != null) {
+            zosmfHeaders.putAll(headers);
+        }
         ZosmfResponseImpl zosmfResponse;
         try {
-            setHeader(ZosmfCustomHeaders.X_IBM_REQUESTED_METHOD.toString(), method);
-            addCommonHeaders();
             zosmfResponse = new ZosmfResponseImpl(this.zosmfUrl, validPath(path));
             logger.trace(logRequest(method, zosmfResponse.getRequestUrl()));
-            zosmfResponse.setHttpClientresponse(this.httpClient.deleteJson(validPath(path)));
+            if (requestBody != null) {
+                logger.trace(LOG_BODY + requestBody);
+            }
+            zosmfResponse.setResponse(this.transport.send(transportRequestType(requestType, convert), validPath(path), zosmfHeaders, requestBody, validStatusCodes));
             logger.trace(logResponse(zosmfResponse.getStatusLine(), method, zosmfResponse.getRequestUrl()));
             if (!validStatusCodes.contains(zosmfResponse.getStatusCode())) {
                 throw new ZosmfException(logBadStatusCode(zosmfResponse.getStatusCode()));
             }
-        } catch (MalformedURLException | HttpClientException  e) {
+        } catch (MalformedURLException | IllegalArgumentException | HttpClientException e) {
+            logger.error(e);
             throw new ZosmfException(logBadRequest(method), e);
         }
         
@@ -293,48 +195,61 @@ public class ZosmfImpl implements IZosmf {
         
         this.zosmfUrl = scheme + "://" + zosmfHostname + ":" + zosmfPort;
 
-        this.httpClient = this.zosmfManager.getHttpManager().newHttpClient();
-        
         try {
-            ICredentials creds = null;
-            String credsId = ServerCreds.get(this.serverId);
-            if (credsId != null) {
-                try {
-                    creds = this.zosmfManager.getFramework().getCredentialsService().getCredentials(credsId);
-                } catch (CredentialsException e) {
-                    throw new ZosmfException("Problem accessing credentials store", e);
-                }
-            }
-            
-            if (creds == null) {
-                creds = image.getDefaultCredentials();
-            }
-
-            this.httpClient.setURI(new URI(this.zosmfUrl));
-            if (creds instanceof ICredentialsUsernamePassword) {
-                this.httpClient.setAuthorisation(((ICredentialsUsernamePassword) creds).getUsername(), ((ICredentialsUsernamePassword) creds).getPassword());
-            }
-            if (scheme.equals("https")) {
-                this.httpClient.setTrustingSSLContext();
-            }
-            this.httpClient.build();
-        } catch (HttpClientException | ZosManagerException | URISyntaxException e) {
-            throw new ZosmfException("Unable to create HTTP Client", e);
+            this.requestRetry = RequestRetry.get(this.serverId);
+            this.transport = new ZosRestTransport("zOSMF server " + this.serverId, MaxConcurrentRequests.get(this.serverId), ENDPOINT_SEGMENTS, this.serverId, API_SEGMENT);
+        } catch (ZosManagerException e) {
+            throw new ZosmfException(e);
         }
         
         try {
-            this.requestRetry = RequestRetry.get(this.serverId);
+            this.transport.initialiseHttpClient(this.zosmfManager.getHttpManager().newHttpClient(), this.zosmfUrl, ServerCreds.get(this.serverId), 
+                    this.zosmfManager.getFramework(), this.image, scheme.equals("https"));
         } catch (ZosManagerException e) {
-            throw new ZosmfException(e);
+            throw new ZosmfException("Unable to create HTTP Client", e);
         }
     }
 
-    protected void addCommonHeaders() {
-        for (Entry<String, String> entry : this.commonHeaders.entrySet()) {
-            logger.trace("Adding HTTP header: " + entry.getKey() + ": " + entry.getValue());
-            this.httpClient.addCommonHeader(entry.getKey(), entry.getValue());
+    protected String httpMethod(ZosmfRequestType requestType) throws ZosmfException {
+        switch (requestType) {
+            case GET:
+                return ZosmfRequestType.GET.name();
+            case POST_JSON:
+                return ZosmfRequestType.POST.name();
+            case PUT_TEXT:
+            case PUT_JSON:
+            case PUT_BINARY:
+            case PUT_STREAM:
+                return ZosmfRequestType.PUT.name();
+            case DELETE:
+                return ZosmfRequestType.DELETE.name();
+            default:
+                throw new ZosmfException("Invalid request type");
+        }
+    }
+
+    /**
+     * Returns the transport request for a zOSMF request type
+     */
+    protected RequestType transportRequestType(ZosmfRequestType requestType, boolean convert) throws ZosmfException {
+        switch (requestType) {
+            case GET:
+                return convert ? RequestType.GET_TEXT : RequestType.GET_FILE;
+            case POST_JSON:
+                return RequestType.POST_JSON;
+            case PUT_TEXT:
+                return RequestType.PUT_TEXT;
+            case PUT_JSON:
+                return RequestType.PUT_JSON;
+            case PUT_BINARY:
+                return RequestType.PUT_BINARY;
+            case PUT_STREAM:
+                return RequestType.PUT_STREAM;
+            case DELETE:
+                return RequestType.DELETE;
+            default:
+                throw new ZosmfException("Invalid request type");
         }
-        
     }
 
     protected String logRequest(String method, URL requestUrl) {
@@ -355,5 +270,9 @@ public class ZosmfImpl implements IZosmf {
 
     protected int getRequestRetry() {
         return this.requestRetry;
+    }
+
+    protected ZosRestTransport getTransport() {
+        return this.transport;
     }    
 }
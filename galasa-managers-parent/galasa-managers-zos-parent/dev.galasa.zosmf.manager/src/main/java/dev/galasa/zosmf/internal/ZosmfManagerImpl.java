@@ -53,6 +53,7 @@ public class ZosmfManagerImpl extends AbstractManager implements IZosmfManagerSp
 
     private final HashMap<String, IZosmf> taggedZosmfs = new HashMap<>();
     private final HashMap<String, IZosmf> zosmfs = new HashMap<>();
+    private final HashMap<String, IZosmfRestApiProcessor> restApiProcessors = new HashMap<>();
 
     /* (non-Javadoc)
      * @see dev.galasa.framework.spi.AbstractManager#initialise(dev.galasa.framework.spi.IFramework, java.util.List, java.util.List, java.lang.Class)
@@ -151,6 +152,22 @@ public class ZosmfManagerImpl extends AbstractManager implements IZosmfManagerSp
     }
 
 
+    /* (non-Javadoc)
+     * @see dev.galasa.framework.spi.IManager#endOfTestRun()
+     */
+    @Override
+    public void endOfTestRun() {
+        for (IZosmf zosmf : this.zosmfs.values()) {
+            if (zosmf instanceof ZosmfImpl) {
+                String summary = ((ZosmfImpl) zosmf).getTransport().getLatencySummary();
+                if (summary != null) {
+                    logger.debug(summary);
+                }
+            }
+        }
+    }
+
+
     @Override
     public IZosmf newZosmf(String serverId) throws ZosmfException {
         if (zosmfs.containsKey(serverId)) {
@@ -195,7 +212,19 @@ public class ZosmfManagerImpl extends AbstractManager implements IZosmfManagerSp
 
 
     @Override
-    public IZosmfRestApiProcessor newZosmfRestApiProcessor(IZosImage image, boolean restrictToImage) throws ZosmfManagerException {
+    public synchronized IZosmfRestApiProcessor newZosmfRestApiProcessor(IZosImage image, boolean restrictToImage) throws ZosmfManagerException {
+        // *** The processor is shared so that load and server health are tracked across all requests for the image
+        String key = image.getImageID() + (restrictToImage ? "/restricted" : "");
+        IZosmfRestApiProcessor processor = this.restApiProcessors.get(key);
+        if (processor == null) {
+            processor = createZosmfRestApiProcessor(image, restrictToImage);
+            this.restApiProcessors.put(key, processor);
+        }
+        return processor;
+    }
+
+
+    protected IZosmfRestApiProcessor createZosmfRestApiProcessor(IZosImage image, boolean restrictToImage) throws ZosmfManagerException {
         if (restrictToImage) {
             Map<String, IZosmf> zosmfMap = getZosmfs(image);
             for(IZosmf zosmf : zosmfMap.values()) {
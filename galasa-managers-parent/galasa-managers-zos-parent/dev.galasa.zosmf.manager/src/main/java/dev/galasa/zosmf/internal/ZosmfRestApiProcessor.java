@@ -1,18 +1,18 @@
 /*
  * Licensed Materials - Property of IBM
- * 
- * (c) Copyright IBM Corp. 2019.
+ *
+ * (c) Copyright IBM Corp. 2019,2021.
  */
 package dev.galasa.zosmf.internal;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.validation.constraints.NotNull;
 
@@ -20,8 +20,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpStatus;
 
-import com.google.gson.JsonObject;
-
 import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosmf.IZosmf;
 import dev.galasa.zosmf.IZosmf.ZosmfCustomHeaders;
@@ -31,22 +29,31 @@ import dev.galasa.zosmf.IZosmfRestApiProcessor;
 import dev.galasa.zosmf.ZosmfException;
 import dev.galasa.zosmf.ZosmfManagerException;
 
+/**
+ * Sends requests to the zOSMF servers of an image or sysplex. It is safe to share between threads.
+ *
+ * Each request goes to the available server with the fewest requests outstanding, taking them in turn
+ * when they are equal, and is retried on a different server if it fails. A server that fails
+ * {@link #FAILURE_THRESHOLD} times in a row because it could not be reached is not used again until
+ * {@link #OPEN_CIRCUIT_MILLIS} have passed, unless all of the servers are in that state.
+ */
 public class ZosmfRestApiProcessor implements IZosmfRestApiProcessor {
-    
-    private IZosmf currentZosmf;
-    private String currentZosmfImageId;
-    
-    private final HashMap<String, IZosmf> zosmfs = new LinkedHashMap<>();
-    
+
+    protected static final int FAILURE_THRESHOLD = 3;
+    protected static final long OPEN_CIRCUIT_MILLIS = 30000;
+
+    private final List<ZosmfServer> servers = new ArrayList<>();
+    private final AtomicInteger nextServer = new AtomicInteger();
+
     private static final Log logger = LogFactory.getLog(ZosmfRestApiProcessor.class);
-    
+
     public ZosmfRestApiProcessor(Map<String, IZosmf> zosmfs) {
-        this.zosmfs.putAll(zosmfs);
-        this.currentZosmfImageId = this.zosmfs.entrySet().iterator().next().getKey();
-        this.currentZosmf = this.zosmfs.get(this.currentZosmfImageId);
+        for (Entry<String, IZosmf> entry : zosmfs.entrySet()) {
+            this.servers.add(new ZosmfServer(entry.getKey(), entry.getValue()));
+        }
     }
-    
-    
+
+
     /**
      * Send zOSMF request
      * @param requestType
@@ -61,78 +68,132 @@ public class ZosmfRestApiProcessor implements IZosmfRestApiProcessor {
         if (validStatusCodes == null) {
             validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
         }
-        IZosmfResponse response = null;
-        for (int i = 0; i <= ((ZosmfImpl) currentZosmf).getRequestRetry(); i++) {
+        HashMap<String, String> requestHeaders = new HashMap<>();
+        if (headers != null) {
+            requestHeaders.putAll(headers);
+        }
+        requestHeaders.put(ZosmfCustomHeaders.X_CSRF_ZOSMF_HEADER.toString(), "");
+
+        // *** A stream body can only be sent once
+        int retries = body instanceof InputStream ? 0 : getRequestRetry();
+        ZosmfServer previousServer = null;
+        for (int i = 0; i <= retries; i++) {
+            ZosmfServer server = selectServer(previousServer);
+            logger.trace("Using zOSMF on " + server.zosmf);
+            server.outstanding.incrementAndGet();
             try {
-                IZosmf zosmfServer = getCurrentZosmfServer();
-                if (headers != null) {
-                    for (Entry<String, String> entry : headers.entrySet()) {
-                        zosmfServer.setHeader(entry.getKey(), entry.getValue());
-                    }
-                }
-                zosmfServer.setHeader(ZosmfCustomHeaders.X_CSRF_ZOSMF_HEADER.toString(), "");
-                switch (requestType) {
-                case GET:
-                    response = zosmfServer.get(path, validStatusCodes, convert);
-                    break;
-                case POST_JSON:
-                    response = zosmfServer.postJson(path, (JsonObject) body, validStatusCodes);
-                    break;
-                case PUT_TEXT:
-                    response = zosmfServer.putText(path, (String) body, validStatusCodes);
-                    break;
-                case PUT_JSON:
-                    response = zosmfServer.putJson(path, (JsonObject) body, validStatusCodes);
-                    break;
-                case PUT_BINARY:
-                    response = zosmfServer.putBinary(path, (byte[]) body, validStatusCodes);
-                    break;
-                case DELETE:
-                    response = zosmfServer.delete(path, validStatusCodes);
-                    break;
-                default:
-                    throw new ZosmfException("Invalid request type");
-                }
-    
+                IZosmfResponse response = server.zosmf.request(requestType, path, requestHeaders, body, validStatusCodes, convert);
+                server.succeeded();
                 if (validStatusCodes.contains(response.getStatusCode())) {
                     return response;
-                } else {
-                    logger.error("Expected HTTP status codes: " + validStatusCodes);
-                    getNextZosmf();
                 }
+                logger.error("Expected HTTP status codes: " + validStatusCodes);
             } catch (ZosmfManagerException e) {
                 logger.error("Problem with zOSMF request", e);
-                getNextZosmf();
+                // *** Only a failure to communicate counts against the health of the server, not an unexpected status code
+                if (e.getCause() != null) {
+                    server.failed(System.currentTimeMillis());
+                }
+            } finally {
+                server.outstanding.decrementAndGet();
             }
+            previousServer = server;
         }
         throw new ZosmfException("Unable to get valid response from zOS/MF server");
     }
-    
-    protected IZosmf getCurrentZosmfServer() {
-        logger.trace("Using zOSMF on " + this.currentZosmf);
-        this.currentZosmf.clearHeaders();
-        return this.currentZosmf;
+
+    protected int getRequestRetry() {
+        IZosmf zosmf = this.servers.get(0).zosmf;
+        if (zosmf instanceof ZosmfImpl) {
+            return ((ZosmfImpl) zosmf).getRequestRetry();
+        }
+        return 0;
     }
 
-    protected void getNextZosmf() {
-        if (this.zosmfs.size() == 1) {
-            logger.debug("Only one zOSMF server available");
-            return;
+    /**
+     * Select the server for the next attempt of a request
+     *
+     * @param exclude the server used by the previous attempt, avoided if there is another
+     * @return the available server with the fewest outstanding requests
+     */
+    protected ZosmfServer selectServer(ZosmfServer exclude) {
+        int size = this.servers.size();
+        if (size == 1) {
+            return this.servers.get(0);
         }
-        Iterator<Entry<String, IZosmf>> zosmfsIterator = this.zosmfs.entrySet().iterator();
-        while (zosmfsIterator.hasNext()) {
-            if (zosmfsIterator.next().getKey().equals(this.currentZosmfImageId)) {
-                Entry<String, IZosmf> entry;
-                if (zosmfsIterator.hasNext()) {
-                    entry = zosmfsIterator.next();
-                } else {
-                    entry = this.zosmfs.entrySet().iterator().next();
+
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(this.nextServer.getAndIncrement(), size);
+        ZosmfServer selected = null;
+        for (int i = 0; i < size; i++) {
+            ZosmfServer server = this.servers.get((start + i) % size);
+            if (server == exclude || !server.isAvailable(now)) {
+                continue;
+            }
+            if (selected == null || server.outstanding.get() < selected.outstanding.get()) {
+                selected = server;
+            }
+        }
+
+        if (selected == null) {
+            // *** Every other server is unavailable, use whichever will be available soonest
+            for (ZosmfServer server : this.servers) {
+                if (server != exclude && (selected == null || server.getOpenUntil() < selected.getOpenUntil())) {
+                    selected = server;
                 }
-                this.currentZosmfImageId = entry.getKey();
-                this.currentZosmf = this.zosmfs.get(this.currentZosmfImageId);
-                return;
             }
+            logger.debug("No available zOSMF server, using " + selected.zosmf);
+        }
+        return selected;
+    }
+
+    protected List<ZosmfServer> getServers() {
+        return this.servers;
+    }
+
+    /**
+     * A zOSMF server with its outstanding requests and health
+     */
+    protected static class ZosmfServer {
+
+        private final String imageId;
+        private final IZosmf zosmf;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        private int consecutiveFailures;
+        private long openUntil;
+
+        protected ZosmfServer(String imageId, IZosmf zosmf) {
+            this.imageId = imageId;
+            this.zosmf = zosmf;
+        }
+
+        protected synchronized boolean isAvailable(long now) {
+            return this.consecutiveFailures < FAILURE_THRESHOLD || now >= this.openUntil;
+        }
+
+        protected synchronized long getOpenUntil() {
+            return this.openUntil;
+        }
+
+        protected synchronized void succeeded() {
+            this.consecutiveFailures = 0;
+        }
+
+        protected synchronized void failed(long now) {
+            this.consecutiveFailures++;
+            if (this.consecutiveFailures >= FAILURE_THRESHOLD) {
+                this.openUntil = now + OPEN_CIRCUIT_MILLIS;
+                logger.warn("zOSMF server " + this.imageId + " has failed " + this.consecutiveFailures + " times in a row, not using it for " + (OPEN_CIRCUIT_MILLIS / 1000) + " seconds");
+            }
+        }
+
+        protected IZosmf getZosmf() {
+            return this.zosmf;
+        }
+
+        protected int getOutstanding() {
+            return this.outstanding.get();
         }
-        logger.debug("No alternate zOSMF server available");
     }
 }
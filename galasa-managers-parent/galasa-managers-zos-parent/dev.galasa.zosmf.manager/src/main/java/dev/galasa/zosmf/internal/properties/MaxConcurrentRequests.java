@@ -0,0 +1,51 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosmf.internal.properties;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zosmf.ZosmfManagerException;
+
+/**
+ * zOSMF Server maximum concurrent requests
+ * 
+ * @galasa.cps.property
+ * 
+ * @galasa.name zosmf.server.[SERVERID].max.concurrent.requests
+ * 
+ * @galasa.description The maximum number of requests sent to the zOSMF server at once. Further requests wait for
+ * an earlier one to complete. 0 leaves the number limited only by the HTTP connection pool
+ * 
+ * @galasa.required No
+ * 
+ * @galasa.default 20
+ * 
+ * @galasa.valid_values numerical value >= 0 
+ * 
+ * @galasa.examples 
+ * <code>zosmf.server.max.concurrent.requests=10</code><br>
+ * <code>zosmf.server.MFSYSA.max.concurrent.requests=4</code>
+ *
+ */
+public class MaxConcurrentRequests extends CpsProperties {
+
+    private static final String DEFAULT_MAX_CONCURRENT_REQUESTS = "20";
+
+    public static int get(@NotNull String serverId) throws ZosmfManagerException {
+        String maxString = getStringWithDefault(ZosmfPropertiesSingleton.cps(), DEFAULT_MAX_CONCURRENT_REQUESTS, "server", "max.concurrent.requests", serverId);
+        try {
+            int max = Integer.parseInt(maxString);
+            if (max < 0) {
+                throw new ZosmfManagerException("Invalid value given for zosmf.*.max.concurrent.requests '" + maxString + "'");
+            }
+            return max;
+        } catch(NumberFormatException e) {
+            throw new ZosmfManagerException("Invalid value given for zosmf.*.max.concurrent.requests '" + maxString + "'", e);
+        }
+    }
+
+}
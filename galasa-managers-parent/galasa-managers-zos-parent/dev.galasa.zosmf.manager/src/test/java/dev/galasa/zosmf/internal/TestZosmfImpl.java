@@ -9,7 +9,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
@@ -25,7 +25,6 @@ import org.mockito.exceptions.base.MockitoException;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
-import org.powermock.reflect.Whitebox;
 
 import com.google.gson.JsonObject;
 
@@ -35,6 +34,7 @@ import dev.galasa.ICredentialsUsernamePassword;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.creds.CredentialsException;
 import dev.galasa.framework.spi.creds.ICredentialsService;
+import dev.galasa.http.ContentType;
 import dev.galasa.http.HttpClientException;
 import dev.galasa.http.HttpClientResponse;
 import dev.galasa.http.IHttpClient;
@@ -42,11 +42,13 @@ import dev.galasa.http.spi.IHttpManagerSpi;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
 import dev.galasa.zos.internal.ZosManagerImpl;
+import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
 import dev.galasa.zosmf.IZosmfResponse;
 import dev.galasa.zosmf.IZosmfRestApiProcessor;
 import dev.galasa.zosmf.ZosmfException;
 import dev.galasa.zosmf.ZosmfManagerException;
 import dev.galasa.zosmf.internal.properties.Https;
+import dev.galasa.zosmf.internal.properties.MaxConcurrentRequests;
 import dev.galasa.zosmf.internal.properties.RequestRetry;
 import dev.galasa.zosmf.internal.properties.ServerCreds;
 import dev.galasa.zosmf.internal.properties.ServerImage;
@@ -54,7 +56,7 @@ import dev.galasa.zosmf.internal.properties.ServerPort;
 import dev.galasa.zosmf.internal.properties.SysplexServers;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({SysplexServers.class, ServerImage.class, ServerCreds.class, ServerPort.class, Https.class, RequestRetry.class})
+@PrepareForTest({SysplexServers.class, ServerImage.class, ServerCreds.class, ServerPort.class, Https.class, RequestRetry.class, MaxConcurrentRequests.class})
 public class TestZosmfImpl {
     
     private ZosmfImpl zosmf;
@@ -141,6 +143,8 @@ public class TestZosmfImpl {
     private static final String EXCEPTION = "exception";
 
     private static final int REQUEST_RETRY = 5;
+
+    private static final int MAX_CONCURRENT_REQUESTS = 2;
     
     @Before
     public void setup() throws Exception {
@@ -160,6 +164,9 @@ public class TestZosmfImpl {
         PowerMockito.mockStatic(RequestRetry.class);
         Mockito.when(RequestRetry.get(Mockito.any())).thenReturn(REQUEST_RETRY);
         
+        PowerMockito.mockStatic(MaxConcurrentRequests.class);
+        Mockito.when(MaxConcurrentRequests.get(Mockito.any())).thenReturn(MAX_CONCURRENT_REQUESTS);
+        
         PowerMockito.mockStatic(ServerImage.class);
         Mockito.when(ServerImage.get(Mockito.any())).thenReturn(IMAGE);
         
@@ -206,17 +213,19 @@ public class TestZosmfImpl {
     @Test
     public void testSetHeader() {
         zosmfSpy.setHeader(KEY, VALUE);
-        HashMap<String, String> commonHeaders = Whitebox.getInternalState(zosmfSpy, "commonHeaders");
+        Map<String, String> commonHeaders = zosmfSpy.getTransport().getCommonHeaders();
         
         Assert.assertEquals("setHeader() should set the supplied value", VALUE, commonHeaders.get(KEY));
     }
     
     @Test
     public void testClearHeaders() {
+        zosmfSpy.setHeader(KEY, VALUE);
         zosmfSpy.clearHeaders();
-        HashMap<String, String> commonHeaders = Whitebox.getInternalState(zosmfSpy, "commonHeaders");
+        Map<String, String> commonHeaders = zosmfSpy.getTransport().getCommonHeaders();
         
         Assert.assertTrue("clearHeaders() should set the supplied value", commonHeaders.isEmpty());
+        Mockito.verify(httpClientMock).clearCommonHeaders();
     }
     
     @Test
@@ -229,6 +238,15 @@ public class TestZosmfImpl {
         Assert.assertEquals("get() should return the expected value", HttpStatus.SC_OK, zosmfResponse.getStatusCode());
     }
     
+    @Test
+    public void testRequestLatencies() throws ZosmfException {
+        setupGet();
+        zosmfSpy.get(PATH, null, true);
+        zosmfSpy.get(PATH + "/HLQ.DS", null, true);
+        Assert.assertEquals("getTransport() should have the expected limit", MAX_CONCURRENT_REQUESTS, zosmfSpy.getTransport().getMaxConcurrentRequests());
+        Assert.assertEquals("request() should record the latency against the endpoint", 2, zosmfSpy.getTransport().getLatencies().get("GET /" + PATH).getCount());
+    }
+    
     @Test
     public void testGetBadHttpResponseException() throws ZosmfException {
         setupGet();
@@ -243,7 +261,7 @@ public class TestZosmfImpl {
     @Test
     public void testGetHttpException() throws ZosmfException, HttpClientException {
         setupGet();
-        Mockito.when(httpClientMock.getText(Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.getText(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with GET to zOSMF server";
         ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
         	zosmfSpy.get(PATH, null, true);
@@ -253,12 +271,12 @@ public class TestZosmfImpl {
     
     private void setupGet() {
         try {
-            Mockito.when(httpClientMock.getText(Mockito.anyString())).thenReturn(httpClientResponseStringMock); 
+            Mockito.when(httpClientMock.getText(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseStringMock); 
             Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT);
             Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE);
             
-            Mockito.when(httpClientMock.getFile(Mockito.anyString())).thenReturn(closeableHttpResponseMock);       
+            Mockito.when(httpClientMock.getFile(Mockito.anyString(), Mockito.anyMap())).thenReturn(closeableHttpResponseMock);       
             Mockito.when(closeableHttpResponseMock.getEntity()).thenReturn(httpEntity);
             Mockito.when(httpEntity.getContent()).thenReturn(new ByteArrayInputStream(CONTENT.getBytes()));
             Mockito.when(closeableHttpResponseMock.getStatusLine()).thenReturn(statusLineMock);
@@ -293,7 +311,7 @@ public class TestZosmfImpl {
     @Test
     public void testPostJsonHttpException() throws ZosmfException, HttpClientException {
         setupPostJson();
-        Mockito.when(httpClientMock.postJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.postJson(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with POST to zOSMF server";
         ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
         	zosmfSpy.postJson(PATH, new JsonObject(), null);
@@ -303,7 +321,7 @@ public class TestZosmfImpl {
 
     private void setupPostJson() {
         try {
-            Mockito.when(httpClientMock.postJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
+            Mockito.when(httpClientMock.postJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -336,7 +354,7 @@ public class TestZosmfImpl {
     @Test
     public void testPutTextHttpException() throws ZosmfException, HttpClientException {
         setupPutText();
-        Mockito.when(httpClientMock.putText(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.putText(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with PUT to zOSMF server";
         ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
         	zosmfSpy.putText(PATH, "", null);
@@ -346,7 +364,7 @@ public class TestZosmfImpl {
 
     private void setupPutText() {
         try {
-            Mockito.when(httpClientMock.putText(Mockito.anyString(), Mockito.anyString())).thenReturn(httpClientResponseStringMock); 
+            Mockito.when(httpClientMock.putText(Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseStringMock); 
             Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT);
             Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -355,6 +373,18 @@ public class TestZosmfImpl {
         }
     }
 
+    @Test
+    public void testPutStream() throws ZosmfException, HttpClientException {
+        Mockito.when(httpClientMock.putStream(Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseStringMock); 
+        Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT);
+        Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE);
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        IZosmfResponse zosmfResponse = zosmfSpy.request(ZosmfRequestType.PUT_STREAM, PATH, null, content, null, false);
+        Assert.assertEquals("request() should return the expected value", HttpStatus.SC_OK, zosmfResponse.getStatusCode());
+        Mockito.verify(httpClientMock).putStream(Mockito.eq("/" + PATH), Mockito.same(content), Mockito.eq(ContentType.TEXT_PLAIN), Mockito.any());
+    }
+
     @Test
     public void testPutJson() throws ZosmfException {
         setupPutJson();
@@ -379,7 +409,7 @@ public class TestZosmfImpl {
     @Test
     public void testPutJsonHttpException() throws ZosmfException, HttpClientException {
         setupPutJson();
-        Mockito.when(httpClientMock.putJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.putJson(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with PUT to zOSMF server";
         ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
         	zosmfSpy.putJson(PATH, new JsonObject(), null);
@@ -389,7 +419,7 @@ public class TestZosmfImpl {
 
     private void setupPutJson() {
         try {
-            Mockito.when(httpClientMock.putJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
+            Mockito.when(httpClientMock.putJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -422,7 +452,7 @@ public class TestZosmfImpl {
     @Test
     public void testPutBinaryHttpException() throws ZosmfException, HttpClientException {
         setupPutBinary();
-        Mockito.when(httpClientMock.putBinary(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.putBinary(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage = "Problem with PUT to zOSMF server";
         ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
         	zosmfSpy.putBinary(PATH, "".getBytes(), null);
@@ -432,7 +462,7 @@ public class TestZosmfImpl {
 
     private void setupPutBinary() {
         try {
-            Mockito.when(httpClientMock.putBinary(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseByteMock); 
+            Mockito.when(httpClientMock.putBinary(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseByteMock); 
             Mockito.when(httpClientResponseByteMock.getContent()).thenReturn(CONTENT.getBytes());
             Mockito.when(httpClientResponseByteMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseByteMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -465,7 +495,7 @@ public class TestZosmfImpl {
     @Test
     public void testDeleteHttpException() throws ZosmfException, HttpClientException {
         setupDelete();
-        Mockito.when(httpClientMock.deleteJson(Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.deleteJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with DELETE to zOSMF server";
         ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
         	zosmfSpy.delete(PATH, null);
@@ -475,7 +505,7 @@ public class TestZosmfImpl {
 
     private void setupDelete() {
         try {
-            Mockito.when(httpClientMock.deleteJson(Mockito.anyString())).thenReturn(httpClientResponseJsonMock); 
+            Mockito.when(httpClientMock.deleteJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -583,6 +613,15 @@ public class TestZosmfImpl {
     	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getCause().getMessage());
     }
     
+    @Test
+    public void testInitializeMaxConcurrentRequestsException() throws Exception {
+        Mockito.when(MaxConcurrentRequests.get(Mockito.any())).thenThrow(new ZosmfManagerException(EXCEPTION));
+        ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
+        	zosmfSpy.initialize();
+        });
+    	Assert.assertEquals("exception should contain expected message", EXCEPTION, expectedException.getCause().getMessage());
+    }
+    
     @Test
     public void testInitializeCredentialsException() throws Exception {
         Mockito.when(frameworkMock.getCredentialsService()).thenThrow(new CredentialsException(EXCEPTION));
@@ -37,6 +37,7 @@ import dev.galasa.http.internal.HttpManagerImpl;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
 import dev.galasa.zos.internal.ZosManagerImpl;
+import dev.galasa.zos.spi.ZosRestTransport;
 import dev.galasa.zosmf.IZosmf;
 import dev.galasa.zosmf.ZosmfException;
 import dev.galasa.zosmf.ZosmfManagerException;
@@ -237,6 +238,20 @@ public class TestZosmfManagerImpl {
         Assert.assertEquals("getZosmf() should return the existing IZosmf instance", zosmf, zosmf2);
     }
     
+    @Test
+    public void testEndOfTestRun() throws Exception {
+        ZosRestTransport transport = new ZosRestTransport(SERVER_ID, 0, 3);
+        transport.execute("GET", "/zosmf/info", () -> null);
+        Mockito.when(zosmfMock.getTransport()).thenReturn(transport);
+        HashMap<String, IZosmf> zosmfs = new HashMap<>();
+        zosmfs.put(SERVER_ID, zosmfMock);
+        zosmfs.put(SERVER_ID + "2", Mockito.mock(IZosmf.class));
+        Whitebox.setInternalState(zosmfManagerSpy, "zosmfs", zosmfs);
+        
+        zosmfManagerSpy.endOfTestRun();
+        Mockito.verify(zosmfMock, Mockito.times(1)).getTransport();
+    }
+    
     @Test
     public void testGetZosmfs() throws ZosManagerException {
         setupZosmfImplInitialize();
@@ -273,10 +288,10 @@ public class TestZosmfManagerImpl {
         Mockito.doReturn(zosmfs).when(zosmfManagerSpy).getZosmfs(zosImageMock);
         Mockito.when(zosmfMock.getImage()).thenReturn(zosImageMock);
         
-        Assert.assertEquals("newZosmfRestApiProcessor() should return the mocked ZosmfImpl", zosmfMock, ((ZosmfRestApiProcessor) zosmfManagerSpy.newZosmfRestApiProcessor(zosImageMock, false)).getCurrentZosmfServer());
+        Assert.assertEquals("newZosmfRestApiProcessor() should return the mocked ZosmfImpl", zosmfMock, ((ZosmfRestApiProcessor) zosmfManagerSpy.newZosmfRestApiProcessor(zosImageMock, false)).getServers().get(0).getZosmf());
         
         Whitebox.setInternalState(zosmfManagerSpy, "zosmfs", zosmfs);
-        Assert.assertEquals("newZosmfRestApiProcessor() should return the mocked ZosmfImpl", zosmfMock, ((ZosmfRestApiProcessor) zosmfManagerSpy.newZosmfRestApiProcessor(zosImageMock, true)).getCurrentZosmfServer());
+        Assert.assertEquals("newZosmfRestApiProcessor() should return the mocked ZosmfImpl", zosmfMock, ((ZosmfRestApiProcessor) zosmfManagerSpy.newZosmfRestApiProcessor(zosImageMock, true)).getServers().get(0).getZosmf());
         
         IZosImage zosImageMock1 = Mockito.mock(IZosImage.class);
 		Mockito.when(zosImageMock1 .getImageID()).thenReturn(IMAGE + "1");
@@ -6,23 +6,14 @@
 package dev.galasa.zosmf.internal;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
-import org.apache.http.StatusLine;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -32,8 +23,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
-import dev.galasa.http.HttpClientResponse;
-import dev.galasa.http.IHttpClient;
+import dev.galasa.zos.spi.ZosRestTransport.Response;
 import dev.galasa.zosmf.ZosmfException;
 import dev.galasa.zosmf.internal.properties.Https;
 import dev.galasa.zosmf.internal.properties.RequestRetry;
@@ -48,27 +38,6 @@ public class TestZosmfResponseImpl {
     
     private ZosmfResponseImpl zosmfResponseSpy;
     
-    @Mock
-    private IHttpClient httpClientMock;
-    
-    @Mock
-    private HttpClientResponse<String> httpClientResponseStringMock;
-    
-    @Mock
-    private HttpClientResponse<byte[]> httpClientResponseByteMock;
-    
-    @Mock
-    private HttpClientResponse<JsonObject> httpClientResponseJsonMock;
-    
-    @Mock
-    private CloseableHttpResponse closeableHttpResponseMock;
-    
-    @Mock 
-    private HttpEntity httpEntity;
-    
-    @Mock
-    private StatusLine statusLineMock;
-
     private static final String URL = "http://domain/";
 
     private static final String PATH = "request-path";
@@ -146,39 +115,14 @@ public class TestZosmfResponseImpl {
     }
     
     @Test
-    public void testSetHttpClientresponseHttpClientResponse() throws ZosmfException {
-        Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT_STRING);
-        Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE);
-        
-        zosmfResponseSpy.setHttpClientresponse(httpClientResponseStringMock);
+    public void testSetResponse() throws ZosmfException {
+        zosmfResponseSpy.setResponse(new Response(CONTENT_STRING, HttpStatus.SC_OK, STATUS_LINE));
 
         Assert.assertEquals("getContent() should return the expected value", CONTENT_STRING, zosmfResponseSpy.getContent());
         Assert.assertEquals("getStatusCode() should return the expected value", HttpStatus.SC_OK, zosmfResponseSpy.getStatusCode());
         Assert.assertEquals("getStatusLine() should return the expected value", STATUS_LINE, zosmfResponseSpy.getStatusLine());
     }
     
-    @Test
-    public void testSetHttpClientresponseCloseableHttpResponse() throws UnsupportedOperationException, IOException, ZosmfException {
-    	Mockito.when(closeableHttpResponseMock.getEntity()).thenReturn(httpEntity);
-    	Mockito.when(httpEntity.getContent()).thenReturn(new ByteArrayInputStream(CONTENT_STRING.getBytes()));
-    	Mockito.when(closeableHttpResponseMock.getStatusLine()).thenReturn(statusLineMock);
-    	Mockito.when(statusLineMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-    	Mockito.when(statusLineMock.getReasonPhrase()).thenReturn(STATUS_LINE);
-    	
-    	zosmfResponseSpy.setHttpClientresponse(closeableHttpResponseMock);
-    	Assert.assertTrue("getContent() should return the expected value", CONTENT_STRING.equals(IOUtils.toString((InputStream) zosmfResponseSpy.getContent(), StandardCharsets.UTF_8)));
-    	Assert.assertEquals("getStatusCode() should return the expected value", HttpStatus.SC_OK, zosmfResponseSpy.getStatusCode());
-    	Assert.assertEquals("getStatusLine() should return the expected value", STATUS_LINE, zosmfResponseSpy.getStatusLine());
-    	
-    	Mockito.when(httpEntity.getContent()).thenThrow(new IOException());
-    	String expectedMessage = "Could not retrieve response";
-    	ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
-    		zosmfResponseSpy.setHttpClientresponse(closeableHttpResponseMock);
-    	});
-    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
-    }
-    
     @Test
     public void testGetRequestUrl() throws ZosmfException, MalformedURLException {
         Assert.assertTrue("getRequestUrl() should return the expected value", new URL(URL + PATH).equals(zosmfResponseSpy.getRequestUrl()));
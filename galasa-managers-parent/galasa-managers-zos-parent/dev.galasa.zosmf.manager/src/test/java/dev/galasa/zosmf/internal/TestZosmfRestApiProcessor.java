@@ -1,152 +1,217 @@
 /*
  * Licensed Materials - Property of IBM
- * 
- * (c) Copyright IBM Corp. 2020.
+ *
+ * (c) Copyright IBM Corp. 2020,2021.
  */
 package dev.galasa.zosmf.internal;
 
+import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpStatus;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
-import org.powermock.api.mockito.PowerMockito;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
-import org.powermock.reflect.Whitebox;
+import org.mockito.junit.MockitoJUnitRunner;
 
+import dev.galasa.http.HttpClientException;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zosmf.IZosmf;
+import dev.galasa.zosmf.IZosmf.ZosmfCustomHeaders;
 import dev.galasa.zosmf.IZosmf.ZosmfRequestType;
 import dev.galasa.zosmf.IZosmfResponse;
 import dev.galasa.zosmf.ZosmfException;
 
-@RunWith(PowerMockRunner.class)
-@PrepareForTest({ZosmfRequestType.class})
+@RunWith(MockitoJUnitRunner.class)
 public class TestZosmfRestApiProcessor {
-    
+
     private ZosmfRestApiProcessor zosmfRestApiProcessor;
-    
+
     private ZosmfRestApiProcessor zosmfRestApiProcessorSpy;
 
     @Mock
     private IZosImage zosImageMock;
-    
+
     @Mock
     private ZosmfImpl zosmfMock1;
-    
+
     @Mock
     private ZosmfImpl zosmfMock2;
-    
+
     @Mock
     private ZosmfImpl zosmfMock3;
-    
+
     @Mock
     private IZosmfResponse zosmfResponseMock;
-    
+
     private HashMap<String, IZosmf> zosmfs = new LinkedHashMap<>();
-    
+
     private static final String PATH = "request-path";
 
     @Test
     public void testSendRequest() throws ZosmfException {
         zosmfs.put("image1", zosmfMock1);
         zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
-        zosmfRestApiProcessorSpy = PowerMockito.spy(zosmfRestApiProcessor);
+        zosmfRestApiProcessorSpy = Mockito.spy(zosmfRestApiProcessor);
         Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(zosmfMock1.get(Mockito.anyString(), Mockito.any(), Mockito.anyBoolean())).thenReturn(zosmfResponseMock);
+        Mockito.when(zosmfMock1.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(zosmfResponseMock);
         Mockito.when(zosmfMock1.getRequestRetry()).thenReturn(1);
         HashMap<String, String> headers = new HashMap<>();
         headers.put("key", "value");
-        
+
         IZosmfResponse response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.GET, PATH, headers, null, new ArrayList<>(Arrays.asList(HttpStatus.SC_OK)), false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
-        
+
         response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.GET, PATH, null, null, null, false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
-        
+
         zosmfs.put("image1", zosmfMock1);
         zosmfs.put("image2", zosmfMock1);
         zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
-        zosmfRestApiProcessorSpy = PowerMockito.spy(zosmfRestApiProcessor);
+        zosmfRestApiProcessorSpy = Mockito.spy(zosmfRestApiProcessor);
         Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_NOT_FOUND).thenReturn(HttpStatus.SC_OK);
         response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.GET, PATH, null, null, null, false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
 
-        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(zosmfMock1.postJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(zosmfResponseMock);
-        response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.POST_JSON, PATH, null, null, null, false);
-        Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
+        Mockito.when(zosmfMock1.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenThrow(new ZosmfException("Invalid request type"));
+        String expectedMessage = "Unable to get valid response from zOS/MF server";
+        ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
+            zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.DELETE, PATH, null, null, null, false);
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSendRequestHeaders() throws ZosmfException {
+        zosmfs.put("image1", zosmfMock1);
+        zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
         Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(zosmfMock1.putText(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(zosmfResponseMock);
-        response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.PUT_TEXT, PATH, null, null, null, false);
-        Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
+        Mockito.when(zosmfMock1.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(zosmfResponseMock);
+        HashMap<String, String> headers = new HashMap<>();
+        headers.put("key", "value");
 
-        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(zosmfMock1.putJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(zosmfResponseMock);
-        response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.PUT_JSON, PATH, null, null, null, false);
-        Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
+        zosmfRestApiProcessor.sendRequest(ZosmfRequestType.PUT_TEXT, PATH, headers, "body", null, false);
 
-        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(zosmfMock1.putBinary(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(zosmfResponseMock);
-        response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.PUT_BINARY, PATH, null, null, null, false);
-        Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
+        ArgumentCaptor<Map<String, String>> captor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(zosmfMock1).request(Mockito.eq(ZosmfRequestType.PUT_TEXT), Mockito.eq(PATH), captor.capture(), Mockito.eq("body"), Mockito.any(), Mockito.eq(false));
+        Assert.assertEquals("sendRequest() should pass the supplied header", "value", captor.getValue().get("key"));
+        Assert.assertEquals("sendRequest() should add the CSRF header", "", captor.getValue().get(ZosmfCustomHeaders.X_CSRF_ZOSMF_HEADER.toString()));
+        Mockito.verify(zosmfMock1, Mockito.never()).setHeader(Mockito.any(), Mockito.any());
+        Assert.assertEquals("sendRequest() should not change the supplied headers", 1, headers.size());
+    }
 
-        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(zosmfMock1.delete(Mockito.anyString(), Mockito.any())).thenReturn(zosmfResponseMock);
-        response = zosmfRestApiProcessorSpy.sendRequest(ZosmfRequestType.DELETE, PATH, null, null, null, false);
-        Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
+    @Test
+    public void testSendRequestStreamNotRetried() throws ZosmfException {
+        zosmfs.put("image1", zosmfMock1);
+        zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
+        Mockito.lenient().when(zosmfMock1.getRequestRetry()).thenReturn(3);
+        Mockito.when(zosmfMock1.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenThrow(new ZosmfException("Problem with PUT to zOSMF server", new HttpClientException("refused")));
 
-        ZosmfRequestType INVALID = PowerMockito.mock(ZosmfRequestType.class);
-        String expectedMessage = "Unable to get valid response from zOS/MF server";
-        ZosmfException expectedException = Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
-            zosmfRestApiProcessorSpy.sendRequest(INVALID, PATH, null, null, null, false);
+        Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
+            zosmfRestApiProcessor.sendRequest(ZosmfRequestType.PUT_STREAM, PATH, null, new ByteArrayInputStream(new byte[0]), null, false);
         });
-    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+        Mockito.verify(zosmfMock1, Mockito.times(1)).request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean());
     }
-    
+
     @Test
-    public void testGetCurrentZosmfServer() throws ZosmfException {
+    public void testSelectServerRoundRobin() throws ZosmfException {
+        zosmfs.put("image1", zosmfMock1);
+        zosmfs.put("image2", zosmfMock2);
+        zosmfs.put("image3", zosmfMock3);
+        zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
+
+        Assert.assertEquals("selectServer() should return the expected value", zosmfMock1, zosmfRestApiProcessor.selectServer(null).getZosmf());
+        Assert.assertEquals("selectServer() should return the expected value", zosmfMock2, zosmfRestApiProcessor.selectServer(null).getZosmf());
+        Assert.assertEquals("selectServer() should return the expected value", zosmfMock3, zosmfRestApiProcessor.selectServer(null).getZosmf());
+        Assert.assertEquals("selectServer() should return the expected value", zosmfMock1, zosmfRestApiProcessor.selectServer(null).getZosmf());
+
+        ZosmfRestApiProcessor.ZosmfServer server2 = zosmfRestApiProcessor.getServers().get(1);
+        Assert.assertEquals("selectServer() should not return the excluded server", zosmfMock3, zosmfRestApiProcessor.selectServer(server2).getZosmf());
+
+        zosmfs.clear();
         zosmfs.put("image1", zosmfMock1);
         zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
-        zosmfRestApiProcessorSpy = PowerMockito.spy(zosmfRestApiProcessor);
-        
-        Assert.assertEquals("getNextZosmf() should set the expected value", zosmfMock1, zosmfRestApiProcessorSpy.getCurrentZosmfServer());
+        ZosmfRestApiProcessor.ZosmfServer server1 = zosmfRestApiProcessor.getServers().get(0);
+        Assert.assertEquals("selectServer() should return the only server even when excluded", zosmfMock1, zosmfRestApiProcessor.selectServer(server1).getZosmf());
     }
-    
+
     @Test
-    public void testGetNextZosmf() throws ZosmfException {
+    public void testCircuitBreaker() throws ZosmfException {
         zosmfs.put("image1", zosmfMock1);
+        zosmfs.put("image2", zosmfMock2);
         zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
-        zosmfRestApiProcessorSpy = PowerMockito.spy(zosmfRestApiProcessor);
-        
-        zosmfRestApiProcessorSpy.getNextZosmf();
-        Assert.assertEquals("getNextZosmf() should set the expected value", zosmfMock1, Whitebox.getInternalState(zosmfRestApiProcessorSpy, "currentZosmf"));
-        
+        Mockito.when(zosmfMock1.getRequestRetry()).thenReturn(1);
+        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        Mockito.when(zosmfMock1.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenThrow(new ZosmfException("Problem with GET to zOSMF server", new HttpClientException("refused")));
+        Mockito.when(zosmfMock2.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(zosmfResponseMock);
+
+        // *** Each request either goes to server 2 or fails over to it
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, zosmfRestApiProcessor.sendRequest(ZosmfRequestType.GET, PATH, null, null, null, false).getStatusCode());
+        }
+        Mockito.verify(zosmfMock1, Mockito.times(ZosmfRestApiProcessor.FAILURE_THRESHOLD)).request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+
+        ZosmfRestApiProcessor.ZosmfServer server1 = zosmfRestApiProcessor.getServers().get(0);
+        long now = System.currentTimeMillis();
+        Assert.assertFalse("Server should be unavailable", server1.isAvailable(now));
+        Assert.assertTrue("Server should be available again later", server1.isAvailable(now + ZosmfRestApiProcessor.OPEN_CIRCUIT_MILLIS + 1000));
+
+        // *** Unexpected status codes do not count against the server
+        ZosmfRestApiProcessor.ZosmfServer server2 = zosmfRestApiProcessor.getServers().get(1);
+        Mockito.doThrow(new ZosmfException("Unexpected HTTP status code: 404")).when(zosmfMock2).request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+        for (int i = 0; i < ZosmfRestApiProcessor.FAILURE_THRESHOLD; i++) {
+            Assert.assertThrows("expected exception should be thrown", ZosmfException.class, ()->{
+                zosmfRestApiProcessor.sendRequest(ZosmfRequestType.GET, PATH, null, null, null, false);
+            });
+        }
+        Assert.assertTrue("Server should still be available", server2.isAvailable(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void testLeastOutstandingRequests() throws Exception {
         zosmfs.put("image1", zosmfMock1);
         zosmfs.put("image2", zosmfMock2);
-        zosmfs.put("image3", zosmfMock3);
         zosmfRestApiProcessor = new ZosmfRestApiProcessor(zosmfs);
-        zosmfRestApiProcessorSpy = PowerMockito.spy(zosmfRestApiProcessor);
-        
-        zosmfRestApiProcessorSpy.getNextZosmf();
-        Assert.assertEquals("getNextZosmf() should set the expected value", zosmfMock2, Whitebox.getInternalState(zosmfRestApiProcessorSpy, "currentZosmf"));
-        
-        zosmfRestApiProcessorSpy.getNextZosmf();
-        Assert.assertEquals("getNextZosmf() should set the expected value", zosmfMock3, Whitebox.getInternalState(zosmfRestApiProcessorSpy, "currentZosmf"));
-        
-        zosmfRestApiProcessorSpy.getNextZosmf();
-        Assert.assertEquals("getNextZosmf() should set the expected value", zosmfMock1, Whitebox.getInternalState(zosmfRestApiProcessorSpy, "currentZosmf"));
-        
-        Whitebox.setInternalState(zosmfRestApiProcessorSpy, "zosmfs", zosmfs = new LinkedHashMap<>());
-        zosmfRestApiProcessorSpy.getNextZosmf();
-        Assert.assertEquals("getNextZosmf() should set the expected value", zosmfMock1, Whitebox.getInternalState(zosmfRestApiProcessorSpy, "currentZosmf"));
+        Mockito.when(zosmfResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(zosmfMock1.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return zosmfResponseMock;
+        });
+        Mockito.when(zosmfMock2.request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(zosmfResponseMock);
+
+        CompletableFuture<IZosmfResponse> slow = CompletableFuture.supplyAsync(() -> {
+            try {
+                return zosmfRestApiProcessor.sendRequest(ZosmfRequestType.GET, PATH, null, null, null, false);
+            } catch (ZosmfException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Assert.assertTrue("Slow request should have started", started.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals("Server should have an outstanding request", 1, zosmfRestApiProcessor.getServers().get(0).getOutstanding());
+
+        // *** Server 1 is next in turn, but is busy
+        for (int i = 0; i < 4; i++) {
+            zosmfRestApiProcessor.sendRequest(ZosmfRequestType.GET, PATH, null, null, null, false);
+        }
+        Mockito.verify(zosmfMock2, Mockito.times(4)).request(Mockito.any(), Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+
+        release.countDown();
+        Assert.assertEquals("Slow request should complete", zosmfResponseMock, slow.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals("Server should have no outstanding requests", 0, zosmfRestApiProcessor.getServers().get(0).getOutstanding());
     }
 }
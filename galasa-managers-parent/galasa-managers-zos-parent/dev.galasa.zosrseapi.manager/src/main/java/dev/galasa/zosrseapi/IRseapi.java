@@ -5,7 +5,9 @@
  */
 package dev.galasa.zosrseapi;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 import javax.validation.constraints.NotNull;
 
@@ -26,6 +28,7 @@ public interface IRseapi {
      * <li>{@link #GET}</li>
      * <li>{@link #PUT_TEXT}</li>
      * <li>{@link #PUT_JSON}</li>
+     * <li>{@link #PUT_STREAM}</li>
      * <li>{@link #POST}</li>
      * <li>{@link #POST_JSON}</li>
      * <li>{@link #DELETE}</li>
@@ -43,6 +46,10 @@ public interface IRseapi {
          * PUT method with TEXT request body
          */
         PUT_JSON("PUT"),
+        /**
+         * PUT method with {@link java.io.InputStream} request body, sent without being read into memory
+         */
+        PUT_STREAM("PUT"),
         /**
          * POST method with JSON request body
          */
@@ -110,6 +117,17 @@ public interface IRseapi {
 	 */
 	public @NotNull IRseapiResponse putJson(String path, JsonObject body, List<Integer> validStatusCodes) throws RseapiException;
 
+	/**
+	 * Issue an HTTP PUT request to the RSE API server with a request body of content type of {@code text/plain} read from a stream
+	 * 
+	 * @param path identifies the RSE API REST API
+	 * @param body the request body, which is not closed
+	 * @param validStatusCodes a {@link List} of acceptable HTTP Status codes. Default to {@link HttpStatus.HttpStatus.SC_OK} when null
+	 * @return the RSE API server response
+	 * @throws RseapiException
+	 */
+	public @NotNull IRseapiResponse putStream(String path, InputStream body, List<Integer> validStatusCodes) throws RseapiException;
+
 	/**
      * Issue an HTTP POST request to the RSE API server with no request body
      * 
@@ -141,6 +159,21 @@ public interface IRseapi {
      * @throws RseapiException
      */
     public @NotNull IRseapiResponse delete(String path, List<Integer> validStatusCodes) throws RseapiException;
+
+    /**
+     * Issue an HTTP request to the RSE API server with headers for this request only, in addition to any set by
+     * {@link #setHeader(String, String)}. Unlike those, they are not seen by requests on other threads.
+     * 
+     * @param requestType as defined by {@link RseapiRequestType}
+     * @param path identifies the RSE API REST API
+     * @param headers the HTTP headers for this request or null
+     * @param requestBody the request body or null
+     * @param validStatusCodes a {@link List} of acceptable HTTP Status codes. Default to {@link HttpStatus#SC_OK} when null
+     * @param convert on a GET, true to receive the response as JSON, false to receive it as a stream
+     * @return the RSE API server response
+     * @throws RseapiException
+     */
+    public @NotNull IRseapiResponse request(RseapiRequestType requestType, String path, Map<String, String> headers, Object requestBody, List<Integer> validStatusCodes, boolean convert) throws RseapiException;
     
     /**
      * Return the JSON response from the RSE API server Server Information request
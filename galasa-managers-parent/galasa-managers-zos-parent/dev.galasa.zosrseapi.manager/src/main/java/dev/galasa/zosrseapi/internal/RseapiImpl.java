@@ -1,19 +1,17 @@
 /*
  * Licensed Materials - Property of IBM
  * 
- * (c) Copyright IBM Corp. 2020.
+ * (c) Copyright IBM Corp. 2020,2021.
  */
 package dev.galasa.zosrseapi.internal;
 
+import java.io.InputStream;
 import java.net.MalformedURLException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 
 import javax.validation.constraints.NotNull;
 
@@ -23,18 +21,17 @@ import org.apache.http.HttpStatus;
 
 import com.google.gson.JsonObject;
 
-import dev.galasa.ICredentials;
-import dev.galasa.ICredentialsUsernamePassword;
-import dev.galasa.framework.spi.creds.CredentialsException;
 import dev.galasa.http.HttpClientException;
-import dev.galasa.http.IHttpClient;
 import dev.galasa.zos.IZosImage;
 import dev.galasa.zos.ZosManagerException;
+import dev.galasa.zos.spi.ZosRestTransport;
+import dev.galasa.zos.spi.ZosRestTransport.RequestType;
 import dev.galasa.zosrseapi.IRseapi;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.RseapiException;
 import dev.galasa.zosrseapi.RseapiManagerException;
 import dev.galasa.zosrseapi.internal.properties.Https;
+import dev.galasa.zosrseapi.internal.properties.MaxConcurrentRequests;
 import dev.galasa.zosrseapi.internal.properties.RequestRetry;
 import dev.galasa.zosrseapi.internal.properties.ServerCreds;
 import dev.galasa.zosrseapi.internal.properties.ServerImage;
@@ -47,17 +44,21 @@ import dev.galasa.zosrseapi.internal.properties.ServerPort;
 public class RseapiImpl implements IRseapi {
     
     private static final String LOG_BODY = "body: \n";
+
+    // *** e.g. /rseapi/api/v1/datasets
+    private static final int ENDPOINT_SEGMENTS = 4;
+
+    // *** e.g. datasets
+    private static final int API_SEGMENT = 3;
     
     private static final Log logger = LogFactory.getLog(RseapiImpl.class);
 
 	private final RseapiManagerImpl rseapiManager;
 	private String serverId;
     private IZosImage image;
-    private IHttpClient httpClient;
     private String rseapiUrl;
     protected int requestRetry;
-
-    private HashMap<String, String> commonHeaders = new HashMap<>();
+    private ZosRestTransport transport;
 
 	private static final String PATH_SERVERDETAILS = "/rseapi/api/v1/info/serverdetails";
 
@@ -81,160 +82,69 @@ public class RseapiImpl implements IRseapi {
 
     @Override
     public void setHeader(String key, String value) {
-        this.commonHeaders.put(key, value);
+        this.transport.setHeader(key, value);
     }
 
     @Override
     public void clearHeaders() {
-        this.commonHeaders.clear();
-        this.httpClient.clearCommonHeaders();
+        this.transport.clearHeaders();
     }
 
     @Override
     public @NotNull IRseapiResponse get(String path, List<Integer> validStatusCodes, boolean convert) throws RseapiException {
-        String method = RseapiRequestType.GET.name();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        RseapiResponseImpl rseapiResponse;
-        try {
-            addCommonHeaders();
-            rseapiResponse = new RseapiResponseImpl(this.rseapiUrl, validPath(path));
-            logger.trace(logRequest(method, rseapiResponse.getRequestUrl()));
-            if (convert) {
-                rseapiResponse.setHttpClientresponse(this.httpClient.getJson(validPath(path)));
-            } else {
-                rseapiResponse.setHttpClientresponse(this.httpClient.getFile(validPath(path)));
-            }
-            
-            logger.trace(logResponse(rseapiResponse.getStatusLine(), method, rseapiResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(rseapiResponse.getStatusCode())) {
-                throw new RseapiException(logBadStatusCode(rseapiResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException  e) {
-            logger.error(e);
-            throw new RseapiException(logBadRequest(method), e);
-        }
-        
-        return rseapiResponse;
+        return request(RseapiRequestType.GET, path, null, null, validStatusCodes, convert);
     }
 
 	@Override
 	public @NotNull IRseapiResponse putJson(String path, JsonObject requestBody, List<Integer> validStatusCodes) throws RseapiException {
-	    String method = RseapiRequestType.PUT_JSON.getRequestType();
-	    if (validStatusCodes == null) {
-	        validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-	    }
-	    RseapiResponseImpl rseapiResponse;
-	    try {
-	        addCommonHeaders();
-	        rseapiResponse = new RseapiResponseImpl(this.rseapiUrl, validPath(path));
-	        logger.trace(logRequest(method, rseapiResponse.getRequestUrl()));
-	        logger.trace(LOG_BODY + requestBody);
-	        rseapiResponse.setHttpClientresponse(this.httpClient.putJson(validPath(path), requestBody));
-	        logger.trace(logResponse(rseapiResponse.getStatusLine(), method, rseapiResponse.getRequestUrl()));
-	        if (!validStatusCodes.contains(rseapiResponse.getStatusCode())) {
-	            throw new RseapiException(logBadStatusCode(rseapiResponse.getStatusCode()));
-	        }
-	    } catch (MalformedURLException | HttpClientException  e) {
-	        logger.error(e);
-	        throw new RseapiException(logBadRequest(method), e);
-	    }
-	    
-	    return rseapiResponse;
+	    return request(RseapiRequestType.PUT_JSON, path, null, requestBody, validStatusCodes, false);
 	}
 
     @Override
 	public @NotNull IRseapiResponse putText(String path, String requestBody, List<Integer> validStatusCodes) throws RseapiException {
-	    String method = RseapiRequestType.PUT_TEXT.getRequestType();
-	    if (validStatusCodes == null) {
-	        validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-	    }
-	    RseapiResponseImpl rseapiResponse;
-	    try {
-	        addCommonHeaders();
-	        rseapiResponse = new RseapiResponseImpl(this.rseapiUrl, validPath(path));
-	        logger.trace(logRequest(method, rseapiResponse.getRequestUrl()));
-	        logger.trace(LOG_BODY + requestBody);
-	        rseapiResponse.setHttpClientresponse(this.httpClient.putText(validPath(path), requestBody));
-	        logger.trace(logResponse(rseapiResponse.getStatusLine(), method, rseapiResponse.getRequestUrl()));
-	        if (!validStatusCodes.contains(rseapiResponse.getStatusCode())) {
-	            throw new RseapiException(logBadStatusCode(rseapiResponse.getStatusCode()));
-	        }
-	    } catch (MalformedURLException | HttpClientException  e) {
-	        logger.error(e);
-	        throw new RseapiException(logBadRequest(method), e);
-	    }
-	    
-	    return rseapiResponse;
+        return request(RseapiRequestType.PUT_TEXT, path, null, requestBody, validStatusCodes, false);
+	}
+
+    @Override
+	public @NotNull IRseapiResponse putStream(String path, InputStream requestBody, List<Integer> validStatusCodes) throws RseapiException {
+        return request(RseapiRequestType.PUT_STREAM, path, null, requestBody, validStatusCodes, false);
 	}
 
 	@Override
     public @NotNull IRseapiResponse postJson(String path, JsonObject requestBody, List<Integer> validStatusCodes) throws RseapiException {
-        String method = RseapiRequestType.POST_JSON.getRequestType();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        RseapiResponseImpl rseapiResponse;
-        try {
-            addCommonHeaders();
-            rseapiResponse = new RseapiResponseImpl(this.rseapiUrl, validPath(path));
-            logger.trace(logRequest(method, rseapiResponse.getRequestUrl()));
-            logger.trace(LOG_BODY + requestBody);
-            rseapiResponse.setHttpClientresponse(this.httpClient.postJson(validPath(path), requestBody));
-            logger.trace(logResponse(rseapiResponse.getStatusLine(), method, rseapiResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(rseapiResponse.getStatusCode())) {
-                throw new RseapiException(logBadStatusCode(rseapiResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException  e) {
-            logger.error(e);
-            throw new RseapiException(logBadRequest(method), e);
-        }
-        
-        return rseapiResponse;
+        return request(RseapiRequestType.POST_JSON, path, null, requestBody, validStatusCodes, false);
     }
 
 	@Override
     public @NotNull IRseapiResponse post(String path, List<Integer> validStatusCodes) throws RseapiException {
-        String method = RseapiRequestType.POST_JSON.getRequestType();
-        if (validStatusCodes == null) {
-            validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
-        }
-        RseapiResponseImpl rseapiResponse;
-        try {
-            addCommonHeaders();
-            rseapiResponse = new RseapiResponseImpl(this.rseapiUrl, validPath(path));
-            logger.trace(logRequest(method, rseapiResponse.getRequestUrl()));
-            rseapiResponse.setHttpClientresponse(this.httpClient.postJson(validPath(path), null));
-            logger.trace(logResponse(rseapiResponse.getStatusLine(), method, rseapiResponse.getRequestUrl()));
-            if (!validStatusCodes.contains(rseapiResponse.getStatusCode())) {
-                throw new RseapiException(logBadStatusCode(rseapiResponse.getStatusCode()));
-            }
-        } catch (MalformedURLException | HttpClientException  e) {
-            logger.error(e);
-            throw new RseapiException(logBadRequest(method), e);
-        }
-        
-        return rseapiResponse;
+        return request(RseapiRequestType.POST_JSON, path, null, null, validStatusCodes, false);
     }
 
     @Override
     public @NotNull IRseapiResponse delete(String path, List<Integer> validStatusCodes) throws RseapiException {
-        String method = RseapiRequestType.DELETE.name();
+        return request(RseapiRequestType.DELETE, path, null, null, validStatusCodes, false);
+    }
+
+    @Override
+    public @NotNull IRseapiResponse request(RseapiRequestType requestType, String path, Map<String, String> headers, Object requestBody, List<Integer> validStatusCodes, boolean convert) throws RseapiException {
+        String method = requestType.getRequestType();
         if (validStatusCodes == null) {
             validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
         }
         RseapiResponseImpl rseapiResponse;
         try {
-            addCommonHeaders();
             rseapiResponse = new RseapiResponseImpl(this.rseapiUrl, validPath(path));
             logger.trace(logRequest(method, rseapiResponse.getRequestUrl()));
-            rseapiResponse.setHttpClientresponse(this.httpClient.deleteJson(validPath(path)));
+            if (requestBody != null && !(requestBody instanceof InputStream)) {
+                logger.trace(LOG_BODY + requestBody);
+            }
+            rseapiResponse.setResponse(this.transport.send(transportRequestType(requestType, convert), validPath(path), headers, requestBody, validStatusCodes));
             logger.trace(logResponse(rseapiResponse.getStatusLine(), method, rseapiResponse.getRequestUrl()));
             if (!validStatusCodes.contains(rseapiResponse.getStatusCode())) {
                 throw new RseapiException(logBadStatusCode(rseapiResponse.getStatusCode()));
             }
-        } catch (MalformedURLException | HttpClientException  e) {
+        } catch (MalformedURLException | HttpClientException e) {
+            logger.error(e);
             throw new RseapiException(logBadRequest(method), e);
         }
         
@@ -284,45 +194,40 @@ public class RseapiImpl implements IRseapi {
         }
         this.rseapiUrl = scheme + "://" + rseapiHostname + ":" + rseapiPort;
 
-        this.httpClient = this.rseapiManager.getHttpManager().newHttpClient();
-        
         try {
-            ICredentials creds = null;
-            String credsId = ServerCreds.get(this.serverId);
-            if (credsId != null) {
-                try {
-                    creds = this.rseapiManager.getFramework().getCredentialsService().getCredentials(credsId);
-                } catch (CredentialsException e) {
-                    throw new RseapiException("Problem accessing credentials store", e);
-                }
-            }
-            
-            if (creds == null) {
-                creds = image.getDefaultCredentials();
-            }
-            this.httpClient.setURI(new URI(this.rseapiUrl));
-            if (creds instanceof ICredentialsUsernamePassword) {
-                this.httpClient.setAuthorisation(((ICredentialsUsernamePassword) creds).getUsername(), ((ICredentialsUsernamePassword) creds).getPassword());
-            }
-            this.httpClient.setTrustingSSLContext();
-            this.httpClient.build();
-        } catch (HttpClientException | ZosManagerException | URISyntaxException e) {
-            throw new RseapiException("Unable to create HTTP Client", e);
+            this.requestRetry = RequestRetry.get(this.serverId);
+            this.transport = new ZosRestTransport("RSE API server " + this.serverId, MaxConcurrentRequests.get(this.serverId), ENDPOINT_SEGMENTS, this.serverId, API_SEGMENT);
+        } catch (ZosManagerException e) {
+            throw new RseapiException(e);
         }
         
         try {
-            this.requestRetry = RequestRetry.get(this.serverId);
+            this.transport.initialiseHttpClient(this.rseapiManager.getHttpManager().newHttpClient(), this.rseapiUrl, ServerCreds.get(this.serverId), 
+                    this.rseapiManager.getFramework(), this.image, true);
         } catch (ZosManagerException e) {
-            throw new RseapiException(e);
+            throw new RseapiException("Unable to create HTTP Client", e);
         }
     }
 
-    protected void addCommonHeaders() {
-        for (Entry<String, String> entry : this.commonHeaders.entrySet()) {
-            logger.trace("Adding HTTP header: " + entry.getKey() + ": " + entry.getValue());
-            this.httpClient.addCommonHeader(entry.getKey(), entry.getValue());
+    /**
+     * Returns the transport request for a RSE API request type
+     */
+    protected RequestType transportRequestType(RseapiRequestType requestType, boolean convert) {
+        switch (requestType) {
+            case GET:
+                return convert ? RequestType.GET_JSON : RequestType.GET_FILE;
+            case PUT_JSON:
+                return RequestType.PUT_JSON;
+            case PUT_TEXT:
+                return RequestType.PUT_TEXT;
+            case PUT_STREAM:
+                return RequestType.PUT_STREAM;
+            case POST_JSON:
+                return RequestType.POST_JSON;
+            case DELETE:
+            default:
+                return RequestType.DELETE;
         }
-        
     }
 
     protected String logRequest(String method, URL requestUrl) {
@@ -343,5 +248,9 @@ public class RseapiImpl implements IRseapi {
 
     protected int getRequestRetry() {
         return this.requestRetry;
-    }    
+    }
+
+    protected ZosRestTransport getTransport() {
+        return this.transport;
+    }
 }
@@ -164,6 +164,21 @@ public class RseapiManagerImpl extends AbstractManager implements IRseapiManager
         return selected;
     }
 
+    /* (non-Javadoc)
+     * @see dev.galasa.framework.spi.IManager#endOfTestRun()
+     */
+    @Override
+    public void endOfTestRun() {
+        for (IRseapi rseapi : this.rseapis.values()) {
+            if (rseapi instanceof RseapiImpl) {
+                String summary = ((RseapiImpl) rseapi).getTransport().getLatencySummary();
+                if (summary != null) {
+                    logger.debug(summary);
+                }
+            }
+        }
+    }
+
     @Override
     public IRseapi newRseapi(String serverId) throws RseapiException {
         if (rseapis.containsKey(serverId)) {
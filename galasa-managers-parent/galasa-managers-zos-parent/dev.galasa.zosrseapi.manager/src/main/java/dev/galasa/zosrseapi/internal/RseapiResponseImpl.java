@@ -5,20 +5,23 @@
  */
 package dev.galasa.zosrseapi.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.http.client.methods.CloseableHttpResponse;
-
-import dev.galasa.http.HttpClientResponse;
+import dev.galasa.zos.spi.ZosRestTransport.Response;
 import dev.galasa.zosrseapi.IRseapiResponse;
 import dev.galasa.zosrseapi.RseapiException;
 
@@ -35,30 +38,51 @@ public class RseapiResponseImpl implements IRseapiResponse {
 
     @Override
     public JsonObject getJsonContent() throws RseapiException {
-        if (this.content instanceof String) {
-            return new JsonParser().parse((String) this.content).getAsJsonObject();
-        } else if (this.content instanceof byte[]) {
-            return new JsonParser().parse(new String((byte[]) this.content)).getAsJsonObject();
-        } else if (this.content instanceof InputStream) {
-            return new JsonParser().parse(new InputStreamReader((InputStream) this.content)).getAsJsonObject();
-        } else if (content instanceof JsonObject) {
+        if (content instanceof JsonObject) {
             return (JsonObject) this.content;
         }
+        Reader reader = jsonReader();
+        if (reader != null) {
+            return parseJson(reader).getAsJsonObject();
+        }
         
         throw new RseapiException("Content not a JsonObject - " + content.getClass().getName());
     }
 
     @Override
     public JsonArray getJsonArrayContent() throws RseapiException {
+        Reader reader = jsonReader();
+        if (reader != null) {
+            return parseJson(reader).getAsJsonArray();
+        }
+        
+        throw new RseapiException("Content not a JsonArray Object - " + content.getClass().getName());
+    }
+
+    /**
+     * Returns a reader over the content, so that JSON is parsed without first building a String from bytes or a
+     * stream. JSON from the server is UTF-8
+     */
+    private Reader jsonReader() {
         if (this.content instanceof String) {
-            return new JsonParser().parse((String) this.content).getAsJsonArray();
+            return new StringReader((String) this.content);
         } else if (this.content instanceof byte[]) {
-            return new JsonParser().parse(new String((byte[]) this.content)).getAsJsonArray();
+            return new InputStreamReader(new ByteArrayInputStream((byte[]) this.content), StandardCharsets.UTF_8);
         } else if (this.content instanceof InputStream) {
-            return new JsonParser().parse(new InputStreamReader((InputStream) this.content)).getAsJsonArray();
+            return new InputStreamReader((InputStream) this.content, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    /**
+     * Parse the JSON, closing the reader so that a streamed response releases its connection
+     */
+    private JsonElement parseJson(Reader reader) throws RseapiException {
+        try (Reader jsonReader = reader) {
+            return new JsonParser().parse(jsonReader);
+        } catch (IOException e) {
+            throw new RseapiException("Unable to read JSON content", e);
         }
-        
-        throw new RseapiException("Content not a JsonArray Object - " + content.getClass().getName());
     }
 
     @Override
@@ -95,20 +119,10 @@ public class RseapiResponseImpl implements IRseapiResponse {
         return this.requestUrl;
     }
 
-    protected void setHttpClientresponse(HttpClientResponse<?> httpClientResponse) {
-        this.content = httpClientResponse.getContent();
-        this.statusCode = httpClientResponse.getStatusCode();
-        this.statusLine = httpClientResponse.getStatusLine();
-    }
-
-    protected void setHttpClientresponse(CloseableHttpResponse httpClientResponse) throws RseapiException{
-        try{
-            this.content = httpClientResponse.getEntity().getContent();
-            this.statusCode = httpClientResponse.getStatusLine().getStatusCode();
-            this.statusLine = httpClientResponse.getStatusLine().getReasonPhrase();
-        } catch (IOException e) {
-            throw new RseapiException("Could not retrieve response", e);
-        }
+    protected void setResponse(Response response) {
+        this.content = response.getContent();
+        this.statusCode = response.getStatusCode();
+        this.statusLine = response.getStatusLine();
     }
 
 }
@@ -5,6 +5,7 @@
  */
 package dev.galasa.zosrseapi.internal;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -20,8 +21,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpStatus;
 
-import com.google.gson.JsonObject;
-
 import dev.galasa.zosbatch.ZosBatchException;
 import dev.galasa.zosrseapi.IRseapi;
 import dev.galasa.zosrseapi.IRseapiResponse;
@@ -32,8 +31,8 @@ import dev.galasa.zosrseapi.IRseapi.RseapiRequestType;
 
 public class RseapiRestApiProcessor implements IRseapiRestApiProcessor {
     
-    private IRseapi currentRseapi;
-    private String currentRseapiImageId;
+    private volatile IRseapi currentRseapi;
+    private volatile String currentRseapiImageId;
     
     private final HashMap<String, IRseapi> rseapis = new LinkedHashMap<>();
     
@@ -47,7 +46,8 @@ public class RseapiRestApiProcessor implements IRseapiRestApiProcessor {
     
     
     /**
-     * Send RSE API request
+     * Send RSE API request. The headers are sent with this request only, so requests may be sent by this processor
+     * from several threads at once
      * @param requestType
      * @param path
      * @param body
@@ -60,35 +60,18 @@ public class RseapiRestApiProcessor implements IRseapiRestApiProcessor {
         if (validStatusCodes == null) {
             validStatusCodes = new ArrayList<>(Arrays.asList(HttpStatus.SC_OK));
         }
+        HashMap<String, String> requestHeaders = new HashMap<>();
+        if (headers != null) {
+            requestHeaders.putAll(headers);
+        }
+        requestHeaders.put("accept", "*/*");
         IRseapiResponse response = null;
-        for (int i = 0; i <= ((RseapiImpl) currentRseapi).getRequestRetry(); i++) {
+        // *** A stream body can only be sent once
+        int retries = body instanceof InputStream ? 0 : ((RseapiImpl) currentRseapi).getRequestRetry();
+        for (int i = 0; i <= retries; i++) {
             try {
                 IRseapi rseapiServer = getCurrentRseapiServer();
-                if (headers != null) {
-                    for (Entry<String, String> entry : headers.entrySet()) {
-                        rseapiServer.setHeader(entry.getKey(), entry.getValue());
-                    }
-                }
-            	rseapiServer.setHeader("accept", "*/*");
-                switch (requestType) {
-	                case GET:
-	                    response = rseapiServer.get(path, validStatusCodes, convert);
-	                    break;
-	                case PUT_JSON:
-	                    response = rseapiServer.putJson(path, (JsonObject) body, validStatusCodes);
-	                    break;
-	                case PUT_TEXT:
-	                    response = rseapiServer.putText(path, (String) body, validStatusCodes);
-	                    break;
-	                case POST_JSON:
-	                    response = rseapiServer.postJson(path, (JsonObject) body, validStatusCodes);
-	                    break;
-	                case DELETE:
-	                    response = rseapiServer.delete(path, validStatusCodes);
-	                    break; 
-	                default:
-	                    throw new RseapiException("Invalid request type");
-                }
+                response = rseapiServer.request(requestType, path, requestHeaders, body, validStatusCodes, convert);
     
                 if (validStatusCodes.contains(response.getStatusCode())) {
                     return response;
@@ -105,12 +88,12 @@ public class RseapiRestApiProcessor implements IRseapiRestApiProcessor {
     }
     
     protected IRseapi getCurrentRseapiServer() {
-        logger.debug("Using RSE API server on " + this.currentRseapi);
-        this.currentRseapi.clearHeaders();
-        return this.currentRseapi;
+        IRseapi rseapi = this.currentRseapi;
+        logger.debug("Using RSE API server on " + rseapi);
+        return rseapi;
     }
 
-    protected void getNextRseapi() {
+    protected synchronized void getNextRseapi() {
         if (this.rseapis.size() == 1) {
             logger.debug("Only one RSE API server available");
             return;
@@ -9,7 +9,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -29,7 +29,6 @@ import org.mockito.stubbing.Answer;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
-import org.powermock.reflect.Whitebox;
 
 import com.google.gson.JsonObject;
 
@@ -39,6 +38,7 @@ import dev.galasa.ICredentialsUsernamePassword;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.creds.CredentialsException;
 import dev.galasa.framework.spi.creds.ICredentialsService;
+import dev.galasa.http.ContentType;
 import dev.galasa.http.HttpClientException;
 import dev.galasa.http.HttpClientResponse;
 import dev.galasa.http.IHttpClient;
@@ -51,13 +51,14 @@ import dev.galasa.zosrseapi.IRseapiRestApiProcessor;
 import dev.galasa.zosrseapi.RseapiException;
 import dev.galasa.zosrseapi.RseapiManagerException;
 import dev.galasa.zosrseapi.internal.properties.Https;
+import dev.galasa.zosrseapi.internal.properties.MaxConcurrentRequests;
 import dev.galasa.zosrseapi.internal.properties.RequestRetry;
 import dev.galasa.zosrseapi.internal.properties.ServerCreds;
 import dev.galasa.zosrseapi.internal.properties.ServerImage;
 import dev.galasa.zosrseapi.internal.properties.ServerPort;
 
 @RunWith(PowerMockRunner.class)
-@PrepareForTest({LogFactory.class, ServerImage.class, ServerPort.class, Https.class, ServerCreds.class, RequestRetry.class})
+@PrepareForTest({LogFactory.class, ServerImage.class, ServerPort.class, Https.class, ServerCreds.class, RequestRetry.class, MaxConcurrentRequests.class})
 public class TestRseapiImpl {
     
     private RseapiImpl rseapi;
@@ -147,6 +148,8 @@ public class TestRseapiImpl {
     private static final String EXCEPTION = "exception";
 
     private static final int REQUEST_RETRY = 5;
+
+    private static final int MAX_CONCURRENT_REQUESTS = 2;
     
     @Before
     public void setup() throws Exception {
@@ -184,6 +187,9 @@ public class TestRseapiImpl {
         PowerMockito.mockStatic(RequestRetry.class);
         Mockito.when(RequestRetry.get(Mockito.any())).thenReturn(REQUEST_RETRY);
         
+        PowerMockito.mockStatic(MaxConcurrentRequests.class);
+        Mockito.when(MaxConcurrentRequests.get(Mockito.any())).thenReturn(MAX_CONCURRENT_REQUESTS);
+        
         PowerMockito.doReturn(credentialsUsernamePasswordMock).when(zosImageMock, "getDefaultCredentials");
         PowerMockito.doReturn(USERID).when(credentialsUsernamePasswordMock, "getUsername");
         PowerMockito.doReturn(PASSWORD).when(credentialsUsernamePasswordMock, "getPassword");
@@ -224,17 +230,19 @@ public class TestRseapiImpl {
     @Test
     public void testSetHeader() {
         rseapiSpy.setHeader(KEY, VALUE);
-        HashMap<String, String> commonHeaders = Whitebox.getInternalState(rseapiSpy, "commonHeaders");
+        Map<String, String> commonHeaders = rseapiSpy.getTransport().getCommonHeaders();
         
         Assert.assertEquals("setHeader() should set the supplied value", VALUE, commonHeaders.get(KEY));
     }
     
     @Test
     public void testClearHeaders() {
+        rseapiSpy.setHeader(KEY, VALUE);
         rseapiSpy.clearHeaders();
-        HashMap<String, String> commonHeaders = Whitebox.getInternalState(rseapiSpy, "commonHeaders");
+        Map<String, String> commonHeaders = rseapiSpy.getTransport().getCommonHeaders();
         
         Assert.assertTrue("clearHeaders() should set the supplied value", commonHeaders.isEmpty());
+        Mockito.verify(httpClientMock).clearCommonHeaders();
     }
     
     @Test
@@ -262,7 +270,7 @@ public class TestRseapiImpl {
     @Test
     public void testGetHttpException() throws RseapiException, HttpClientException {
         setupGet();
-        Mockito.when(httpClientMock.getJson(Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.getJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with GET to RSE API server";
         RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
         	rseapiSpy.get(PATH, null, true);
@@ -276,12 +284,12 @@ public class TestRseapiImpl {
             Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT);
             Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE); 
-        	Mockito.when(httpClientMock.getJson(Mockito.anyString())).thenReturn(httpClientResponseJsonMock);
+        	Mockito.when(httpClientMock.getJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock);
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
             
-            Mockito.when(httpClientMock.getFile(Mockito.anyString())).thenReturn(closeableHttpResponseMock);       
+            Mockito.when(httpClientMock.getFile(Mockito.anyString(), Mockito.anyMap())).thenReturn(closeableHttpResponseMock);       
             Mockito.when(closeableHttpResponseMock.getEntity()).thenReturn(httpEntity);        
             Mockito.when(httpEntity.getContent()).thenReturn(new ByteArrayInputStream(CONTENT.getBytes()));
             Mockito.when(closeableHttpResponseMock.getStatusLine()).thenReturn(statusLineMock);
@@ -316,7 +324,7 @@ public class TestRseapiImpl {
     @Test
     public void testPostHttpException() throws RseapiException, HttpClientException {
         setupPost();
-        Mockito.when(httpClientMock.postJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.postJson(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with POST to RSE API server";
         RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
         	rseapiSpy.post(PATH, null);
@@ -326,7 +334,7 @@ public class TestRseapiImpl {
 
     private void setupPost() {
         try {
-            Mockito.when(httpClientMock.postJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
+            Mockito.when(httpClientMock.postJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -359,7 +367,7 @@ public class TestRseapiImpl {
     @Test
     public void testPostJsonHttpException() throws RseapiException, HttpClientException {
         setupPostJson();
-        Mockito.when(httpClientMock.postJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.postJson(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with POST to RSE API server";
         RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
         	rseapiSpy.postJson(PATH, new JsonObject(), null);
@@ -369,7 +377,7 @@ public class TestRseapiImpl {
 
     private void setupPostJson() {
         try {
-            Mockito.when(httpClientMock.postJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
+            Mockito.when(httpClientMock.postJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -402,7 +410,7 @@ public class TestRseapiImpl {
     @Test
     public void testPutHttpException() throws RseapiException, HttpClientException {
         setupPutText();
-        Mockito.when(httpClientMock.putText(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.putText(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with PUT to RSE API server";
         RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
         	rseapiSpy.putText(PATH, "", null);
@@ -412,7 +420,7 @@ public class TestRseapiImpl {
 
     private void setupPutText() {
         try {
-            Mockito.when(httpClientMock.putText(Mockito.anyString(), Mockito.anyString())).thenReturn(httpClientResponseStringMock); 
+            Mockito.when(httpClientMock.putText(Mockito.anyString(), Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseStringMock); 
             Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT);
             Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -421,6 +429,25 @@ public class TestRseapiImpl {
         }
     }
 
+    @Test
+    public void testPutStream() throws RseapiException, HttpClientException {
+        Mockito.when(httpClientMock.putStream(Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseStringMock); 
+        Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT);
+        Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
+        Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE);
+        ByteArrayInputStream content = new ByteArrayInputStream(CONTENT.getBytes());
+        IRseapiResponse rseapiResponse = rseapiSpy.putStream(PATH, content, null);
+        Assert.assertEquals("putStream() should return the expected value", HttpStatus.SC_OK, rseapiResponse.getStatusCode());
+        Mockito.verify(httpClientMock).putStream(Mockito.anyString(), Mockito.same(content), Mockito.eq(ContentType.TEXT_PLAIN), Mockito.any());
+
+        Mockito.when(httpClientMock.putStream(Mockito.anyString(), Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        String expectedMessage =  "Problem with PUT to RSE API server";
+        RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
+        	rseapiSpy.putStream(PATH, content, null);
+        });
+    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+    }
+
     @Test
     public void testPutJson() throws RseapiException {
         setupPutJson();
@@ -445,7 +472,7 @@ public class TestRseapiImpl {
     @Test
     public void testPutJsonHttpException() throws RseapiException, HttpClientException {
         setupPutJson();
-        Mockito.when(httpClientMock.putJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.putJson(Mockito.any(), Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with PUT to RSE API server";
         RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
         	rseapiSpy.putJson(PATH, new JsonObject(), null);
@@ -455,7 +482,7 @@ public class TestRseapiImpl {
 
     private void setupPutJson() {
         try {
-            Mockito.when(httpClientMock.putJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
+            Mockito.when(httpClientMock.putJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -488,7 +515,7 @@ public class TestRseapiImpl {
     @Test
     public void testDeleteHttpException() throws RseapiException, HttpClientException {
         setupDelete();
-        Mockito.when(httpClientMock.deleteJson(Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
+        Mockito.when(httpClientMock.deleteJson(Mockito.any(), Mockito.any())).thenThrow(new HttpClientException(EXCEPTION));
         String expectedMessage =  "Problem with DELETE to RSE API server";
         RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
         	rseapiSpy.delete(PATH, null);
@@ -498,7 +525,7 @@ public class TestRseapiImpl {
 
     private void setupDelete() {
         try {
-            Mockito.when(httpClientMock.deleteJson(Mockito.anyString())).thenReturn(httpClientResponseJsonMock); 
+            Mockito.when(httpClientMock.deleteJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
             Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(new JsonObject());
             Mockito.when(httpClientResponseJsonMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
             Mockito.when(httpClientResponseJsonMock.getStatusLine()).thenReturn(STATUS_LINE);
@@ -512,7 +539,7 @@ public class TestRseapiImpl {
     	setupGet(); 
     	JsonObject jsonObject = new JsonObject();
     	jsonObject.addProperty("rseapi_version", "version");
-    	Mockito.when(httpClientMock.getJson(Mockito.anyString())).thenReturn(httpClientResponseJsonMock); 
+    	Mockito.when(httpClientMock.getJson(Mockito.anyString(), Mockito.any())).thenReturn(httpClientResponseJsonMock); 
         Mockito.when(httpClientResponseJsonMock.getContent()).thenReturn(jsonObject);
         Assert.assertEquals("serverInfo() should return the expected value", jsonObject, rseapi.serverInfo());
     }
@@ -607,16 +634,20 @@ public class TestRseapiImpl {
     }
     
     @Test
-    public void testAddCommonHeaders() {
-    	HashMap<String, String> commonHeaders = new HashMap<>();
-    	logMessage = null;
-    	rseapiSpy.addCommonHeaders();
-    	Assert.assertNull("addCommonHeaders() should not log message", logMessage);
-    	
-    	commonHeaders.put("key", "value");
-    	Whitebox.setInternalState(rseapiSpy, "commonHeaders", commonHeaders);
-    	logMessage = null;
-    	rseapiSpy.addCommonHeaders();
-    	Assert.assertEquals("addCommonHeaders() should log the expected value", "Adding HTTP header: key: value", logMessage);
+    public void testRequestLatencies() throws RseapiException {
+        setupGet();
+        rseapiSpy.get(PATH, null, true);
+        rseapiSpy.get(PATH + "/HLQ.DS", null, true);
+        Assert.assertEquals("getTransport() should have the expected limit", MAX_CONCURRENT_REQUESTS, rseapiSpy.getTransport().getMaxConcurrentRequests());
+        Assert.assertEquals("request() should record the latency against the endpoint", 2, rseapiSpy.getTransport().getLatencies().get("GET /" + PATH).getCount());
+    }
+    
+    @Test
+    public void testInitializeMaxConcurrentRequestsException() throws Exception {
+        Mockito.when(MaxConcurrentRequests.get(Mockito.any())).thenThrow(new RseapiManagerException(EXCEPTION));
+        RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
+        	rseapiSpy.initialize();
+        });
+    	Assert.assertEquals("exception should contain expected message", EXCEPTION, expectedException.getCause().getMessage());
     }
 }
@@ -7,22 +7,16 @@ package dev.galasa.zosrseapi.internal;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpStatus;
-import org.apache.http.StatusLine;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -33,8 +27,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
-import dev.galasa.http.HttpClientResponse;
-import dev.galasa.http.IHttpClient;
+import dev.galasa.zos.spi.ZosRestTransport.Response;
 import dev.galasa.zosrseapi.RseapiException;
 
 @RunWith(PowerMockRunner.class)
@@ -45,27 +38,6 @@ public class TestRseapiResponseImpl {
     
     private RseapiResponseImpl rseapiResponseSpy;
     
-    @Mock
-    private IHttpClient httpClientMock;
-    
-    @Mock
-    private HttpClientResponse<String> httpClientResponseStringMock;
-    
-    @Mock
-    private HttpClientResponse<byte[]> httpClientResponseByteMock;
-    
-    @Mock
-    private HttpClientResponse<JsonObject> httpClientResponseJsonMock;
-    
-    @Mock
-    private CloseableHttpResponse closeableHttpResponseMock;
-    
-    @Mock 
-    private HttpEntity httpEntity;
-    
-    @Mock
-    private StatusLine statusLineMock;
-
     private static final String URL = "http://domain/";
 
     private static final String PATH = "request-path";
@@ -155,39 +127,14 @@ public class TestRseapiResponseImpl {
     }
     
     @Test
-    public void testSetHttpClientresponseHttpClientResponse() throws RseapiException {
-        Mockito.when(httpClientResponseStringMock.getContent()).thenReturn(CONTENT_STRING);
-        Mockito.when(httpClientResponseStringMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(httpClientResponseStringMock.getStatusLine()).thenReturn(STATUS_LINE);
-        
-        rseapiResponseSpy.setHttpClientresponse(httpClientResponseStringMock);
+    public void testSetResponse() throws RseapiException {
+        rseapiResponseSpy.setResponse(new Response(CONTENT_STRING, HttpStatus.SC_OK, STATUS_LINE));
 
         Assert.assertEquals("getContent() should return the expected value", CONTENT_STRING, rseapiResponseSpy.getContent());
         Assert.assertEquals("getStatusCode() should return the expected value", HttpStatus.SC_OK, rseapiResponseSpy.getStatusCode());
         Assert.assertEquals("getStatusLine() should return the expected value", STATUS_LINE, rseapiResponseSpy.getStatusLine());
     }
     
-    @Test
-    public void testSetHttpClientresponseCloseableHttpResponse() throws UnsupportedOperationException, IOException, RseapiException {
-    	Mockito.when(closeableHttpResponseMock.getEntity()).thenReturn(httpEntity);        
-    	Mockito.when(httpEntity.getContent()).thenReturn(new ByteArrayInputStream(CONTENT_STRING.getBytes()));
-    	Mockito.when(closeableHttpResponseMock.getStatusLine()).thenReturn(statusLineMock);
-    	Mockito.when(statusLineMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-    	Mockito.when(statusLineMock.getReasonPhrase()).thenReturn(STATUS_LINE);
-    	
-    	rseapiResponseSpy.setHttpClientresponse(closeableHttpResponseMock);
-    	Assert.assertEquals("getContent() should return the expected value", CONTENT_STRING, IOUtils.toString((InputStream) rseapiResponseSpy.getContent(), StandardCharsets.UTF_8));
-    	Assert.assertEquals("getStatusCode() should return the expected value", HttpStatus.SC_OK, rseapiResponseSpy.getStatusCode());
-    	Assert.assertEquals("getStatusLine() should return the expected value", STATUS_LINE, rseapiResponseSpy.getStatusLine());
-    	
-    	Mockito.when(httpEntity.getContent()).thenThrow(new IOException());
-    	String expectedMessage = "Could not retrieve response";
-    	RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
-    		rseapiResponseSpy.setHttpClientresponse(closeableHttpResponseMock);
-		});
-    	Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
-    }
-    
     @Test
     public void testGetRequestUrl() throws RseapiException, MalformedURLException {
         Assert.assertEquals("getRequestUrl() should return the expected value", new URL(URL + PATH), rseapiResponseSpy.getRequestUrl());
@@ -66,9 +66,9 @@ public class TestRseapiRestApiProcessor {
     public void mockEnum() {
     	if (testName.getMethodName().equals("testSendRequest")) {
 	    	rseapiRequestTypeINVALID = PowerMockito.mock(RseapiRequestType.class);
-	    	Whitebox.setInternalState(rseapiRequestTypeINVALID, "ordinal", 5);
+	    	Whitebox.setInternalState(rseapiRequestTypeINVALID, "ordinal", 6);
 	    	PowerMockito.mockStatic(RseapiRequestType.class);
-	        PowerMockito.when(RseapiRequestType.values()).thenReturn(new RseapiRequestType[]{RseapiRequestType.GET, RseapiRequestType.PUT_TEXT, RseapiRequestType.PUT_JSON, RseapiRequestType.POST_JSON, RseapiRequestType.DELETE, rseapiRequestTypeINVALID});
+	        PowerMockito.when(RseapiRequestType.values()).thenReturn(new RseapiRequestType[]{RseapiRequestType.GET, RseapiRequestType.PUT_TEXT, RseapiRequestType.PUT_JSON, RseapiRequestType.PUT_STREAM, RseapiRequestType.POST_JSON, RseapiRequestType.DELETE, rseapiRequestTypeINVALID});
     	}
     }
 
@@ -78,13 +78,14 @@ public class TestRseapiRestApiProcessor {
         rseapiRestApiProcessor = new RseapiRestApiProcessor(rseapis);
         rseapiRestApiProcessorSpy = PowerMockito.spy(rseapiRestApiProcessor);
         Mockito.when(rseapiResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(rseapiMock1.get(Mockito.anyString(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
+        Mockito.when(rseapiMock1.request(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
         Mockito.when(rseapiMock1.getRequestRetry()).thenReturn(1);
         HashMap<String, String> headers = new HashMap<>();
         headers.put("key", "value");
         
         IRseapiResponse response = rseapiRestApiProcessorSpy.sendRequest(RseapiRequestType.GET, PATH, headers, null, new ArrayList<>(Arrays.asList(HttpStatus.SC_OK)), false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
+        Mockito.verify(rseapiMock1).request(Mockito.eq(RseapiRequestType.GET), Mockito.eq(PATH), Mockito.argThat(h -> "value".equals(h.get("key")) && "*/*".equals(h.get("accept"))), Mockito.any(), Mockito.any(), Mockito.eq(false));
         
         response = rseapiRestApiProcessorSpy.sendRequest(RseapiRequestType.GET, PATH, null, null, null, false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
@@ -98,26 +99,26 @@ public class TestRseapiRestApiProcessor {
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
 
         Mockito.when(rseapiResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(rseapiMock1.putText(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(rseapiResponseMock);
+        Mockito.when(rseapiMock1.request(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
         response = rseapiRestApiProcessorSpy.sendRequest(RseapiRequestType.PUT_TEXT, PATH, null, null, null, false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
 
         Mockito.when(rseapiResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(rseapiMock1.putJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(rseapiResponseMock);
+        Mockito.when(rseapiMock1.request(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
         response = rseapiRestApiProcessorSpy.sendRequest(RseapiRequestType.PUT_JSON, PATH, null, null, null, false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
         
         Mockito.when(rseapiResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(rseapiMock1.postJson(Mockito.anyString(), Mockito.any(), Mockito.any())).thenReturn(rseapiResponseMock);
+        Mockito.when(rseapiMock1.request(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
         response = rseapiRestApiProcessorSpy.sendRequest(RseapiRequestType.POST_JSON, PATH, null, null, null, false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
 
         Mockito.when(rseapiResponseMock.getStatusCode()).thenReturn(HttpStatus.SC_OK);
-        Mockito.when(rseapiMock1.delete(Mockito.anyString(), Mockito.any())).thenReturn(rseapiResponseMock);
+        Mockito.when(rseapiMock1.request(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenReturn(rseapiResponseMock);
         response = rseapiRestApiProcessorSpy.sendRequest(RseapiRequestType.DELETE, PATH, null, null, null, false);
         Assert.assertEquals("sendRequest() should return the expected value", HttpStatus.SC_OK, response.getStatusCode());
         
-        Mockito.when(rseapiMock1.get(Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenThrow(new RseapiException());
+        Mockito.when(rseapiMock1.request(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean())).thenThrow(new RseapiException());
         String expectedMessage = "Unable to get valid response from RSE API server";
         RseapiException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiException.class, ()->{
         	rseapiRestApiProcessorSpy.sendRequest(RseapiRequestType.GET, PATH, null, null, null, false);
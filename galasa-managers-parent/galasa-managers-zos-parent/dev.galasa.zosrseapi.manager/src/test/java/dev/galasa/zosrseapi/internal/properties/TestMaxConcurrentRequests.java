@@ -0,0 +1,79 @@
+/*
+ * Licensed Materials - Property of IBM
+ * 
+ * (c) Copyright IBM Corp. 2021.
+ */
+package dev.galasa.zosrseapi.internal.properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.cps.CpsProperties;
+import dev.galasa.zosrseapi.RseapiManagerException;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({RseapiPropertiesSingleton.class, CpsProperties.class})
+public class TestMaxConcurrentRequests {
+    
+    private RseapiPropertiesSingleton properties;
+    
+    @Mock
+    private IConfigurationPropertyStoreService configurationPropertyStoreServiceMock;
+    
+    private static final String SERVERID = "RSESYSA";
+    
+    private static final String MAX_CONCURRENT_REQUESTS = "4";
+    
+    @Test
+    public void testConstructor() {
+        MaxConcurrentRequests maxConcurrentRequests = new MaxConcurrentRequests();
+        Assert.assertNotNull("Object was not created", maxConcurrentRequests);
+    }
+    
+    @Before
+    public void setup() throws ConfigurationPropertyStoreException, RseapiManagerException {
+        Mockito.when(configurationPropertyStoreServiceMock.getProperty("server", "max.concurrent.requests", SERVERID)).thenReturn(MAX_CONCURRENT_REQUESTS);
+        properties = new RseapiPropertiesSingleton();
+        properties.activate();
+        RseapiPropertiesSingleton.setCps(configurationPropertyStoreServiceMock);       
+    }
+    
+    @Test
+    public void testValid() throws Exception {
+        Assert.assertEquals("Unexpected value returned from MaxConcurrentRequests.get()", Integer.parseInt(MAX_CONCURRENT_REQUESTS), MaxConcurrentRequests.get(SERVERID));
+    }
+    
+    @Test
+    public void testDefault() throws Exception {
+        Mockito.when(configurationPropertyStoreServiceMock.getProperty("server", "max.concurrent.requests", SERVERID)).thenReturn(null);
+        Assert.assertEquals("Unexpected value returned from MaxConcurrentRequests.get()", 20, MaxConcurrentRequests.get(SERVERID));
+    }
+    
+    @Test
+    public void testInvalid() throws Exception {
+        String invalidValue = "BOB";
+        String expectedMessage = "Invalid value given for rseapi.*.max.concurrent.requests '" + invalidValue + "'";
+        
+        Mockito.when(configurationPropertyStoreServiceMock.getProperty("server", "max.concurrent.requests", SERVERID)).thenReturn(invalidValue);
+
+        RseapiManagerException expectedException = Assert.assertThrows("expected exception should be thrown", RseapiManagerException.class, ()->{
+            MaxConcurrentRequests.get(SERVERID);
+        });
+        Assert.assertEquals("exception should contain expected message", expectedMessage, expectedException.getMessage());
+        
+        Mockito.when(configurationPropertyStoreServiceMock.getProperty("server", "max.concurrent.requests", SERVERID)).thenReturn("-1");
+        expectedException = Assert.assertThrows("expected exception should be thrown", RseapiManagerException.class, ()->{
+            MaxConcurrentRequests.get(SERVERID);
+        });
+        Assert.assertEquals("exception should contain expected message", "Invalid value given for rseapi.*.max.concurrent.requests '-1'", expectedException.getMessage());
+    }
+    
+}